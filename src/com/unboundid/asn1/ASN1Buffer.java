@@ -59,42 +59,11 @@ public final class ASN1Buffer
 
 
   /**
-   * An array that will be inserted when completing a sequence whose
-   * multi-byte length should be encoded with one byte for the header and one
-   * byte for the number of value bytes.
+   * An array of zero bytes that will be inserted after the reserved length
+   * slot when completing a sequence or set whose value is too long for its
+   * length to be encoded in a single byte.
    */
-  private static final byte[] MULTIBYTE_LENGTH_HEADER_PLUS_ONE =
-       { (byte) 0x81, (byte) 0x00 };
-
-
-
-  /**
-   * An array that will be inserted when completing a sequence whose
-   * multi-byte length should be encoded with one byte for the header and two
-   * bytes for the number of value bytes.
-   */
-  private static final byte[] MULTIBYTE_LENGTH_HEADER_PLUS_TWO =
-       { (byte) 0x82, (byte) 0x00, (byte) 0x00 };
-
-
-
-  /**
-   * An array that will be inserted when completing a sequence whose
-   * multi-byte length should be encoded with one byte for the header and three
-   * bytes for the number of value bytes.
-   */
-  private static final byte[] MULTIBYTE_LENGTH_HEADER_PLUS_THREE =
-       { (byte) 0x83, (byte) 0x00, (byte) 0x00, (byte) 0x00 };
-
-
-
-  /**
-   * An array that will be inserted when completing a sequence whose
-   * multi-byte length should be encoded with one byte for the header and four
-   * bytes for the number of value bytes.
-   */
-  private static final byte[] MULTIBYTE_LENGTH_HEADER_PLUS_FOUR =
-       { (byte) 0x84, (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x00 };
+  private static final byte[] MULTIBYTE_LENGTH_EXTENSION = new byte[4];
 
 
 
@@ -896,6 +865,7 @@ public final class ASN1Buffer
   public ASN1BufferSequence beginSequence(final byte type)
   {
     buffer.append(type);
+    buffer.append((byte) 0x00);
     return new ASN1BufferSequence(this);
   }
 
@@ -929,63 +899,57 @@ public final class ASN1Buffer
   public ASN1BufferSet beginSet(final byte type)
   {
     buffer.append(type);
+    buffer.append((byte) 0x00);
     return new ASN1BufferSet(this);
   }
 
 
 
   /**
-   * Ensures that the appropriate length is inserted into the internal buffer
-   * after all elements in a sequence or set have been added.
+   * Ensures that the appropriate length is set in the internal buffer after all
+   * elements in a sequence or set have been added.  A single byte is reserved
+   * for the length when the sequence or set is started, so the elements only
+   * need to be shifted if the length is too large to fit in that byte.
    *
    * @param  valueStartPos  The position in which the first value was added.
    */
   void endSequenceOrSet(final int valueStartPos)
   {
     final int length = buffer.length() - valueStartPos;
-    if (length == 0)
+    final int lengthSlotPos = valueStartPos - 1;
+    if ((length & 0x7F) == length)
     {
-      buffer.append((byte) 0x00);
+      buffer.getBackingArray()[lengthSlotPos] = (byte) length;
       return;
     }
 
-    if ((length & 0x7F) == length)
-    {
-      buffer.insert(valueStartPos, (byte) length);
-    }
-    else if ((length & 0xFF) == length)
+    final int numLengthBytes;
+    if ((length & 0xFF) == length)
     {
-      buffer.insert(valueStartPos, MULTIBYTE_LENGTH_HEADER_PLUS_ONE);
-
-      final byte[] backingArray = buffer.getBackingArray();
-      backingArray[valueStartPos+1] = (byte) (length & 0xFF);
+      numLengthBytes = 1;
     }
     else if ((length & 0xFFFF) == length)
     {
-      buffer.insert(valueStartPos, MULTIBYTE_LENGTH_HEADER_PLUS_TWO);
-
-      final byte[] backingArray = buffer.getBackingArray();
-      backingArray[valueStartPos+1] = (byte) ((length >> 8) & 0xFF);
-      backingArray[valueStartPos+2] = (byte) (length & 0xFF);
+      numLengthBytes = 2;
     }
     else if ((length & 0x00FF_FFFF) == length)
     {
-      buffer.insert(valueStartPos, MULTIBYTE_LENGTH_HEADER_PLUS_THREE);
-
-      final byte[] backingArray = buffer.getBackingArray();
-      backingArray[valueStartPos+1] = (byte) ((length >> 16) & 0xFF);
-      backingArray[valueStartPos+2] = (byte) ((length >> 8) & 0xFF);
-      backingArray[valueStartPos+3] = (byte) (length & 0xFF);
+      numLengthBytes = 3;
     }
     else
     {
-      buffer.insert(valueStartPos, MULTIBYTE_LENGTH_HEADER_PLUS_FOUR);
+      numLengthBytes = 4;
+    }
+
+    buffer.insert(valueStartPos, MULTIBYTE_LENGTH_EXTENSION, 0,
+         numLengthBytes);
 
-      final byte[] backingArray = buffer.getBackingArray();
-      backingArray[valueStartPos+1] = (byte) ((length >> 24) & 0xFF);
-      backingArray[valueStartPos+2] = (byte) ((length >> 16) & 0xFF);
-      backingArray[valueStartPos+3] = (byte) ((length >> 8) & 0xFF);
-      backingArray[valueStartPos+4] = (byte) (length & 0xFF);
+    final byte[] backingArray = buffer.getBackingArray();
+    backingArray[lengthSlotPos] = (byte) (0x80 | numLengthBytes);
+    for (int i=numLengthBytes; i > 0; i--)
+    {
+      backingArray[lengthSlotPos + i] =
+           (byte) ((length >> ((numLengthBytes - i) * 8)) & 0xFF);
     }
   }
 
@@ -22,6 +22,7 @@ package com.unboundid.ldap.listener;
 
 
 
+import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.util.ArrayList;
@@ -1168,7 +1169,9 @@ public final class InMemoryDirectoryServer
    * attempt (even if the {@code clear} is given with a value of {@code true}).
    * <BR><BR>
    * This method may be used regardless of whether the server is listening for
-   * client connections.
+   * client connections.  The LDIF file will be read in large chunks and parsed
+   * by multiple threads, although entries will still be added in the order in
+   * which they appear in the file.
    *
    * @param  clear  Indicates whether to remove all existing entries prior to
    *                adding entries read from LDIF.
@@ -1186,7 +1189,9 @@ public final class InMemoryDirectoryServer
     final LDIFReader reader;
     try
     {
-      reader = new LDIFReader(path);
+      reader = new LDIFReader(new File(path),
+           Math.max(1, Runtime.getRuntime().availableProcessors()), true, null,
+           null);
 
       final Schema schema = getSchema();
       if (schema != null)
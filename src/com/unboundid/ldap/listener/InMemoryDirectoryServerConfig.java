@@ -22,6 +22,7 @@ package com.unboundid.ldap.listener;
 
 
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -115,6 +116,12 @@ public class InMemoryDirectoryServerConfig
   // Indicates whether to automatically generate operational attributes.
   private boolean generateOperationalAttributes;
 
+  // Indicates whether entries should be held in a compact encoded form.
+  private boolean useCompactEntryStorage;
+
+  // The file in which entries should be persisted, if any.
+  private File persistentStoreFile;
+
   // Indicates whether the code log should include sample code for processing
   // the requests.
   private boolean includeRequestProcessingInCodeLog;
@@ -171,6 +178,16 @@ public class InMemoryDirectoryServerConfig
   // The names or OIDs of the attributes for which to maintain equality indexes.
   private final List<String> equalityIndexAttributes;
 
+  // The names or OIDs of the attributes for which to maintain ordering indexes.
+  private final List<String> orderingIndexAttributes;
+
+  // The names or OIDs of the attributes for which to maintain presence indexes.
+  private final List<String> presenceIndexAttributes;
+
+  // The names or OIDs of the attributes for which to maintain substring
+  // indexes.
+  private final List<String> substringIndexAttributes;
+
   // A set of additional credentials that can be used for binding without
   // requiring a corresponding entry in the data set.
   private final Map<DN,byte[]> additionalBindCredentials;
@@ -254,11 +271,16 @@ public class InMemoryDirectoryServerConfig
     enforceAttributeSyntaxCompliance     = true;
     enforceSingleStructuralObjectClass   = true;
     generateOperationalAttributes        = true;
+    useCompactEntryStorage               = false;
+    persistentStoreFile                  = null;
     maxChangeLogEntries                  = 0;
     maxConnections                       = 0;
     maxSizeLimit                         = 0;
     exceptionHandler                     = null;
     equalityIndexAttributes              = new ArrayList<>(10);
+    orderingIndexAttributes              = new ArrayList<>(10);
+    presenceIndexAttributes              = new ArrayList<>(10);
+    substringIndexAttributes             = new ArrayList<>(10);
     rootDSEEntry                         = null;
     schema                               = Schema.getDefaultStandardSchema();
     allowedOperationTypes                = EnumSet.allOf(OperationType.class);
@@ -324,10 +346,16 @@ public class InMemoryDirectoryServerConfig
          cfg.authenticationRequiredOperationTypes);
 
     equalityIndexAttributes = new ArrayList<>(cfg.equalityIndexAttributes);
+    orderingIndexAttributes = new ArrayList<>(cfg.orderingIndexAttributes);
+    presenceIndexAttributes = new ArrayList<>(cfg.presenceIndexAttributes);
+    substringIndexAttributes =
+         new ArrayList<>(cfg.substringIndexAttributes);
 
     enforceAttributeSyntaxCompliance   = cfg.enforceAttributeSyntaxCompliance;
     enforceSingleStructuralObjectClass = cfg.enforceSingleStructuralObjectClass;
     generateOperationalAttributes      = cfg.generateOperationalAttributes;
+    useCompactEntryStorage             = cfg.useCompactEntryStorage;
+    persistentStoreFile                = cfg.persistentStoreFile;
     accessLogHandler                   = cfg.accessLogHandler;
     ldapDebugLogHandler                = cfg.ldapDebugLogHandler;
     maxChangeLogEntries                = cfg.maxChangeLogEntries;
@@ -1065,6 +1093,79 @@ public class InMemoryDirectoryServerConfig
 
 
 
+  /**
+   * Indicates whether the server should hold entries in a compact encoded form
+   * rather than as fully-decoded {@code Entry} objects.  Compact storage can
+   * substantially reduce the amount of memory needed to hold a large data set
+   * (and the time spent in garbage collection), at the cost of decoding each
+   * entry whenever it is accessed.
+   *
+   * @return  {@code true} if the server should hold entries in a compact
+   *          encoded form, or {@code false} if not.
+   */
+  public boolean useCompactEntryStorage()
+  {
+    return useCompactEntryStorage;
+  }
+
+
+
+  /**
+   * Specifies whether the server should hold entries in a compact encoded form
+   * rather than as fully-decoded {@code Entry} objects.  Compact storage can
+   * substantially reduce the amount of memory needed to hold a large data set
+   * (and the time spent in garbage collection), at the cost of decoding each
+   * entry whenever it is accessed.
+   *
+   * @param  useCompactEntryStorage  Indicates whether the server should hold
+   *                                 entries in a compact encoded form.
+   */
+  public void setUseCompactEntryStorage(final boolean useCompactEntryStorage)
+  {
+    this.useCompactEntryStorage = useCompactEntryStorage;
+  }
+
+
+
+  /**
+   * Retrieves the file in which the server should persist its entries, if
+   * any.  If a persistent store file is configured, then every change to the
+   * data is recorded in an append-only log in that file, and a server created
+   * with the same file will start with the data that it contained rather than
+   * with an empty data set.  The log is periodically compacted so that it does
+   * not grow without bound.
+   *
+   * @return  The file in which the server should persist its entries, or
+   *          {@code null} if the entries should not be persisted.
+   */
+  public File getPersistentStoreFile()
+  {
+    return persistentStoreFile;
+  }
+
+
+
+  /**
+   * Specifies the file in which the server should persist its entries, if
+   * any.  If a persistent store file is configured, then every change to the
+   * data is recorded in an append-only log in that file, and a server created
+   * with the same file will start with the data that it contained rather than
+   * with an empty data set.  The log is periodically compacted so that it does
+   * not grow without bound.  A persistent store file must not be used by more
+   * than one server at a time.
+   *
+   * @param  persistentStoreFile  The file in which the server should persist
+   *                              its entries.  It does not need to exist.  It
+   *                              may be {@code null} if the entries should
+   *                              not be persisted.
+   */
+  public void setPersistentStoreFile(final File persistentStoreFile)
+  {
+    this.persistentStoreFile = persistentStoreFile;
+  }
+
+
+
   /**
    * Retrieves the maximum number of changelog entries that the server should
    * maintain.
@@ -1240,6 +1341,196 @@ public class InMemoryDirectoryServerConfig
 
 
 
+  /**
+   * Retrieves a list containing the names or OIDs of the attribute types for
+   * which to maintain an ordering index to improve the performance of searches
+   * with greater-or-equal and less-or-equal filters.
+   *
+   * @return  A list containing the names or OIDs of the attribute types for
+   *          which to maintain an ordering index, or an empty list if no
+   *          ordering indexes should be created.
+   */
+  public List<String> getOrderingIndexAttributes()
+  {
+    return orderingIndexAttributes;
+  }
+
+
+
+  /**
+   * Specifies the names or OIDs of the attribute types for which to maintain an
+   * ordering index to improve the performance of searches with greater-or-equal
+   * and less-or-equal filters.  Ordering indexes are kept sorted using the
+   * ordering matching rule for the attribute type.
+   *
+   * @param  orderingIndexAttributes  The names or OIDs of the attributes for
+   *                                  which to maintain an ordering index to
+   *                                  improve the performance of searches with
+   *                                  greater-or-equal and less-or-equal
+   *                                  filters.  It may be {@code null} or empty
+   *                                  to indicate that no ordering indexes
+   *                                  should be maintained.
+   */
+  public void setOrderingIndexAttributes(
+                   final String... orderingIndexAttributes)
+  {
+    setOrderingIndexAttributes(StaticUtils.toList(orderingIndexAttributes));
+  }
+
+
+
+  /**
+   * Specifies the names or OIDs of the attribute types for which to maintain an
+   * ordering index to improve the performance of searches with greater-or-equal
+   * and less-or-equal filters.  Ordering indexes are kept sorted using the
+   * ordering matching rule for the attribute type.
+   *
+   * @param  orderingIndexAttributes  The names or OIDs of the attributes for
+   *                                  which to maintain an ordering index to
+   *                                  improve the performance of searches with
+   *                                  greater-or-equal and less-or-equal
+   *                                  filters.  It may be {@code null} or empty
+   *                                  to indicate that no ordering indexes
+   *                                  should be maintained.
+   */
+  public void setOrderingIndexAttributes(
+                   final Collection<String> orderingIndexAttributes)
+  {
+    this.orderingIndexAttributes.clear();
+    if (orderingIndexAttributes != null)
+    {
+      this.orderingIndexAttributes.addAll(orderingIndexAttributes);
+    }
+  }
+
+
+
+  /**
+   * Retrieves a list containing the names or OIDs of the attribute types for
+   * which to maintain a presence index to improve the performance of searches
+   * with presence filters.
+   *
+   * @return  A list containing the names or OIDs of the attribute types for
+   *          which to maintain a presence index, or an empty list if no
+   *          presence indexes should be created.
+   */
+  public List<String> getPresenceIndexAttributes()
+  {
+    return presenceIndexAttributes;
+  }
+
+
+
+  /**
+   * Specifies the names or OIDs of the attribute types for which to maintain a
+   * presence index to improve the performance of searches with presence
+   * filters.
+   *
+   * @param  presenceIndexAttributes  The names or OIDs of the attributes for
+   *                                  which to maintain a presence index to
+   *                                  improve the performance of searches with
+   *                                  presence filters.  It may be {@code null}
+   *                                  or empty to indicate that no presence
+   *                                  indexes should be maintained.
+   */
+  public void setPresenceIndexAttributes(
+                   final String... presenceIndexAttributes)
+  {
+    setPresenceIndexAttributes(StaticUtils.toList(presenceIndexAttributes));
+  }
+
+
+
+  /**
+   * Specifies the names or OIDs of the attribute types for which to maintain a
+   * presence index to improve the performance of searches with presence
+   * filters.
+   *
+   * @param  presenceIndexAttributes  The names or OIDs of the attributes for
+   *                                  which to maintain a presence index to
+   *                                  improve the performance of searches with
+   *                                  presence filters.  It may be {@code null}
+   *                                  or empty to indicate that no presence
+   *                                  indexes should be maintained.
+   */
+  public void setPresenceIndexAttributes(
+                   final Collection<String> presenceIndexAttributes)
+  {
+    this.presenceIndexAttributes.clear();
+    if (presenceIndexAttributes != null)
+    {
+      this.presenceIndexAttributes.addAll(presenceIndexAttributes);
+    }
+  }
+
+
+
+  /**
+   * Retrieves a list containing the names or OIDs of the attribute types for
+   * which to maintain a substring index to improve the performance of searches
+   * with substring filters.
+   *
+   * @return  A list containing the names or OIDs of the attribute types for
+   *          which to maintain a substring index, or an empty list if no
+   *          substring indexes should be created.
+   */
+  public List<String> getSubstringIndexAttributes()
+  {
+    return substringIndexAttributes;
+  }
+
+
+
+  /**
+   * Specifies the names or OIDs of the attribute types for which to maintain a
+   * substring index to improve the performance of searches with substring
+   * filters.  A substring index holds a sorted set of normalized values (which
+   * is used to process the subInitial component of a filter) and a set of
+   * three-byte grams (which is used to process the subAny and subFinal
+   * components).
+   *
+   * @param  substringIndexAttributes  The names or OIDs of the attributes for
+   *                                   which to maintain a substring index to
+   *                                   improve the performance of searches with
+   *                                   substring filters.  It may be
+   *                                   {@code null} or empty to indicate that no
+   *                                   substring indexes should be maintained.
+   */
+  public void setSubstringIndexAttributes(
+                   final String... substringIndexAttributes)
+  {
+    setSubstringIndexAttributes(StaticUtils.toList(substringIndexAttributes));
+  }
+
+
+
+  /**
+   * Specifies the names or OIDs of the attribute types for which to maintain a
+   * substring index to improve the performance of searches with substring
+   * filters.  A substring index holds a sorted set of normalized values (which
+   * is used to process the subInitial component of a filter) and a set of
+   * three-byte grams (which is used to process the subAny and subFinal
+   * components).
+   *
+   * @param  substringIndexAttributes  The names or OIDs of the attributes for
+   *                                   which to maintain a substring index to
+   *                                   improve the performance of searches with
+   *                                   substring filters.  It may be
+   *                                   {@code null} or empty to indicate that no
+   *                                   substring indexes should be maintained.
+   */
+  public void setSubstringIndexAttributes(
+                   final Collection<String> substringIndexAttributes)
+  {
+    this.substringIndexAttributes.clear();
+    if (substringIndexAttributes != null)
+    {
+      this.substringIndexAttributes.addAll(substringIndexAttributes);
+    }
+  }
+
+
+
   /**
    * Retrieves the names of the attributes for which referential integrity
    * should be maintained.  If referential integrity is to be provided and an
@@ -1756,6 +2047,60 @@ public class InMemoryDirectoryServerConfig
       buffer.append('}');
     }
 
+    if (! orderingIndexAttributes.isEmpty())
+    {
+      buffer.append(", orderingIndexAttributes={");
+
+      final Iterator<String> attrIterator = orderingIndexAttributes.iterator();
+      while (attrIterator.hasNext())
+      {
+        buffer.append('\'');
+        buffer.append(attrIterator.next());
+        buffer.append('\'');
+        if (attrIterator.hasNext())
+        {
+          buffer.append(", ");
+        }
+      }
+      buffer.append('}');
+    }
+
+    if (! presenceIndexAttributes.isEmpty())
+    {
+      buffer.append(", presenceIndexAttributes={");
+
+      final Iterator<String> attrIterator = presenceIndexAttributes.iterator();
+      while (attrIterator.hasNext())
+      {
+        buffer.append('\'');
+        buffer.append(attrIterator.next());
+        buffer.append('\'');
+        if (attrIterator.hasNext())
+        {
+          buffer.append(", ");
+        }
+      }
+      buffer.append('}');
+    }
+
+    if (! substringIndexAttributes.isEmpty())
+    {
+      buffer.append(", substringIndexAttributes={");
+
+      final Iterator<String> attrIterator = substringIndexAttributes.iterator();
+      while (attrIterator.hasNext())
+      {
+        buffer.append('\'');
+        buffer.append(attrIterator.next());
+        buffer.append('\'');
+        if (attrIterator.hasNext())
+        {
+          buffer.append(", ");
+        }
+      }
+      buffer.append('}');
+    }
+
     if (! referentialIntegrityAttributes.isEmpty())
     {
       buffer.append(", referentialIntegrityAttributes={");
@@ -1777,6 +2122,15 @@ public class InMemoryDirectoryServerConfig
 
     buffer.append(", generateOperationalAttributes=");
     buffer.append(generateOperationalAttributes);
+    buffer.append(", useCompactEntryStorage=");
+    buffer.append(useCompactEntryStorage);
+
+    if (persistentStoreFile != null)
+    {
+      buffer.append(", persistentStoreFile='");
+      buffer.append(persistentStoreFile.getAbsolutePath());
+      buffer.append('\'');
+    }
 
     if (maxChangeLogEntries > 0)
     {
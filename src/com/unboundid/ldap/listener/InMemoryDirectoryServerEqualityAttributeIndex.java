@@ -54,6 +54,7 @@ import static com.unboundid.ldap.listener.ListenerMessages.*;
 @Mutable()
 @ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
 final class InMemoryDirectoryServerEqualityAttributeIndex
+       extends InMemoryDirectoryServerAttributeIndex
 {
   // The attribute type with which this index is associated.
   private final AttributeTypeDefinition attributeType;
@@ -108,10 +109,9 @@ final class InMemoryDirectoryServerEqualityAttributeIndex
 
 
   /**
-   * Retrieves the attribute type definition for this index.
-   *
-   * @return  The attribute type definition for this index.
+   * {@inheritDoc}
    */
+  @Override()
   AttributeTypeDefinition getAttributeType()
   {
     return attributeType;
@@ -120,8 +120,9 @@ final class InMemoryDirectoryServerEqualityAttributeIndex
 
 
   /**
-   * Clears all index data for the associated attribute.
+   * {@inheritDoc}
    */
+  @Override()
   synchronized void clear()
   {
     indexMap.clear();
@@ -180,14 +181,9 @@ final class InMemoryDirectoryServerEqualityAttributeIndex
 
 
   /**
-   * Performs the necessary processing for adding the given entry.
-   *
-   * @param  entry  The entry to be added.
-   *
-   * @throws  LDAPException  If a problem is encountered (e.g., the entry has
-   *                         one or more values that are not acceptable for the
-   *                         associated attribute type).
+   * {@inheritDoc}
    */
+  @Override()
   synchronized void processAdd(final Entry entry)
                throws LDAPException
   {
@@ -197,14 +193,8 @@ final class InMemoryDirectoryServerEqualityAttributeIndex
     {
       final DN dn = entry.getParsedDN();
 
-      final ASN1OctetString[] rawValues = a.getRawValues();
       final ASN1OctetString[] normalizedValues =
-           new ASN1OctetString[rawValues.length];
-      for (int i=0; i < rawValues.length; i++)
-      {
-        normalizedValues[i] = matchingRule.normalize(rawValues[i]);
-      }
-
+           a.getNormalizedValues(matchingRule);
       for (final ASN1OctetString v : normalizedValues)
       {
         TreeSet<DN> dnSet = indexMap.get(v);
@@ -221,14 +211,9 @@ final class InMemoryDirectoryServerEqualityAttributeIndex
 
 
   /**
-   * Performs the necessary processing for deleting the given entry.
-   *
-   * @param  entry  The entry to be deleted.
-   *
-   * @throws  LDAPException  If a problem is encountered (e.g., the entry has
-   *                         one or more values that are not acceptable for the
-   *                         associated attribute type).
+   * {@inheritDoc}
    */
+  @Override()
   synchronized void processDelete(final Entry entry)
                throws LDAPException
   {
@@ -238,14 +223,8 @@ final class InMemoryDirectoryServerEqualityAttributeIndex
     {
       final DN dn = entry.getParsedDN();
 
-      final ASN1OctetString[] rawValues = a.getRawValues();
       final ASN1OctetString[] normalizedValues =
-           new ASN1OctetString[rawValues.length];
-      for (int i=0; i < rawValues.length; i++)
-      {
-        normalizedValues[i] = matchingRule.normalize(rawValues[i]);
-      }
-
+           a.getNormalizedValues(matchingRule);
       for (final ASN1OctetString v : normalizedValues)
       {
         final TreeSet<DN> dnSet = indexMap.get(v);
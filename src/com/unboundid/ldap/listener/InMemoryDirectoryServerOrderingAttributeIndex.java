@@ -0,0 +1,353 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.listener;
+
+
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.ldap.matchingrules.MatchingRule;
+import com.unboundid.ldap.matchingrules.OctetStringMatchingRule;
+import com.unboundid.ldap.sdk.Attribute;
+import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.schema.AttributeTypeDefinition;
+import com.unboundid.ldap.sdk.schema.Schema;
+import com.unboundid.util.Debug;
+import com.unboundid.util.InternalUseOnly;
+import com.unboundid.util.Mutable;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+import static com.unboundid.ldap.listener.ListenerMessages.*;
+
+
+
+/**
+ * This class provides a data structure for maintaining an ordering index for a
+ * specified attribute.  Values are normalized and kept sorted using the
+ * ordering matching rule for the attribute type, so that the entries matching
+ * a greater-or-equal or less-or-equal filter can be obtained with a range scan
+ * rather than by examining every entry.
+ */
+@Mutable()
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class InMemoryDirectoryServerOrderingAttributeIndex
+       extends InMemoryDirectoryServerAttributeIndex
+{
+  // The attribute type with which this index is associated.
+  private final AttributeTypeDefinition attributeType;
+
+  // The matching rule used to normalize and order values.
+  private final MatchingRule matchingRule;
+
+  // The schema for the server.
+  private final Schema schema;
+
+  // A sorted map from normalized values to the DNs of entries with those
+  // values.
+  private final TreeMap<ASN1OctetString,TreeSet<DN>> indexMap;
+
+
+
+  /**
+   * Creates a new ordering attribute index for the specified attribute type.
+   *
+   * @param  attributeType  The name or OID of the attribute type with which
+   *                        this index is associated.  It must be defined in the
+   *                        schema.
+   * @param  schema         The schema for the server.  It must not be
+   *                        {@code null}.
+   *
+   * @throws  LDAPException  If the specified attribute type is not defined in
+   *                         the schema.
+   */
+  InMemoryDirectoryServerOrderingAttributeIndex(final String attributeType,
+                                                final Schema schema)
+       throws LDAPException
+  {
+    this.schema = schema;
+    if (schema == null)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR,
+           ERR_DS_ORDERING_INDEX_NO_SCHEMA.get(attributeType));
+    }
+
+    this.attributeType = schema.getAttributeType(attributeType);
+    if (this.attributeType == null)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR,
+           ERR_DS_ORDERING_INDEX_UNDEFINED_ATTRIBUTE_TYPE.get(attributeType));
+    }
+
+    matchingRule = MatchingRule.selectOrderingMatchingRule(attributeType,
+         schema);
+
+    indexMap = new TreeMap<>(new ValueComparator(matchingRule));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  AttributeTypeDefinition getAttributeType()
+  {
+    return attributeType;
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  synchronized void clear()
+  {
+    indexMap.clear();
+  }
+
+
+
+  /**
+   * Obtains a copy of the internal map used by this index.  This is only
+   * intended for internal use for testing purposes.
+   *
+   * @return  A copy of the internal map used by this index.
+   */
+  @InternalUseOnly()
+  synchronized Map<ASN1OctetString,TreeSet<DN>> copyMap()
+  {
+    final HashMap<ASN1OctetString,TreeSet<DN>> m =
+         new HashMap<>(StaticUtils.computeMapCapacity(indexMap.size()));
+    for (final Map.Entry<ASN1OctetString,TreeSet<DN>> e : indexMap.entrySet())
+    {
+      m.put(e.getKey(), new TreeSet<>(e.getValue()));
+    }
+
+    return Collections.unmodifiableMap(m);
+  }
+
+
+
+  /**
+   * Retrieves the DNs of the entries that have at least one value for the
+   * associated attribute that is greater than or equal to (or less than or
+   * equal to) the provided value.
+   *
+   * @param  value           The assertion value for which to retrieve the
+   *                         corresponding entry DNs.
+   * @param  greaterOrEqual  Indicates whether to retrieve entries with values
+   *                         greater than or equal to the provided value
+   *                         ({@code true}) or less than or equal to it
+   *                         ({@code false}).
+   *
+   * @return  A set containing the DNs of the matching entries, or an empty set
+   *          if there are none.
+   *
+   * @throws  LDAPException  If a problem is encountered while attempting to
+   *                         make the determination (e.g., if the given value is
+   *                         not acceptable for the associated attribute type).
+   */
+  synchronized Set<DN> getMatchingEntries(final ASN1OctetString value,
+                                          final boolean greaterOrEqual)
+               throws LDAPException
+  {
+    final ASN1OctetString normalizedValue = matchingRule.normalize(value);
+
+    final Collection<TreeSet<DN>> dnSets;
+    if (greaterOrEqual)
+    {
+      dnSets = indexMap.tailMap(normalizedValue, true).values();
+    }
+    else
+    {
+      dnSets = indexMap.headMap(normalizedValue, true).values();
+    }
+
+    if (dnSets.isEmpty())
+    {
+      return Collections.emptySet();
+    }
+
+    final TreeSet<DN> matchingDNs = new TreeSet<>();
+    for (final TreeSet<DN> dnSet : dnSets)
+    {
+      matchingDNs.addAll(dnSet);
+    }
+
+    return matchingDNs;
+  }
+
+
+
+  /**
+   * {@inheritDoc}  Any values that cannot be normalized with the ordering
+   * matching rule will not be indexed, since they cannot match any ordering
+   * filter.
+   */
+  @Override()
+  synchronized void processAdd(final Entry entry)
+               throws LDAPException
+  {
+    final Attribute a =
+         entry.getAttribute(attributeType.getNameOrOID(), schema);
+    if (a != null)
+    {
+      final DN dn = entry.getParsedDN();
+      for (final ASN1OctetString v : a.getRawValues())
+      {
+        final ASN1OctetString normalizedValue;
+        try
+        {
+          normalizedValue = matchingRule.normalize(v);
+        }
+        catch (final LDAPException le)
+        {
+          Debug.debugException(le);
+          continue;
+        }
+
+        TreeSet<DN> dnSet = indexMap.get(normalizedValue);
+        if (dnSet == null)
+        {
+          dnSet = new TreeSet<>();
+          indexMap.put(normalizedValue, dnSet);
+        }
+        dnSet.add(dn);
+      }
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  synchronized void processDelete(final Entry entry)
+               throws LDAPException
+  {
+    final Attribute a =
+         entry.getAttribute(attributeType.getNameOrOID(), schema);
+    if (a != null)
+    {
+      final DN dn = entry.getParsedDN();
+      for (final ASN1OctetString v : a.getRawValues())
+      {
+        final ASN1OctetString normalizedValue;
+        try
+        {
+          normalizedValue = matchingRule.normalize(v);
+        }
+        catch (final LDAPException le)
+        {
+          Debug.debugException(le);
+          continue;
+        }
+
+        final TreeSet<DN> dnSet = indexMap.get(normalizedValue);
+        if (dnSet != null)
+        {
+          dnSet.remove(dn);
+          if (dnSet.isEmpty())
+          {
+            indexMap.remove(normalizedValue);
+          }
+        }
+      }
+    }
+  }
+
+
+
+  /**
+   * This class provides a comparator that orders normalized values using an
+   * ordering matching rule.
+   */
+  private static final class ValueComparator
+          implements Comparator<ASN1OctetString>, Serializable
+  {
+    /**
+     * The serial version UID for this serializable class.
+     */
+    private static final long serialVersionUID = -2851337917457658129L;
+
+
+
+    // The matching rule to use to compare values.
+    private final MatchingRule matchingRule;
+
+
+
+    /**
+     * Creates a new value comparator that will use the provided matching rule.
+     *
+     * @param  matchingRule  The ordering matching rule to use to compare
+     *                       values.
+     */
+    private ValueComparator(final MatchingRule matchingRule)
+    {
+      this.matchingRule = matchingRule;
+    }
+
+
+
+    /**
+     * Compares the provided normalized values.  If the matching rule is not
+     * able to compare them, then their bytes will be compared instead so that
+     * the ordering remains consistent.
+     *
+     * @param  v1  The first value to compare.
+     * @param  v2  The second value to compare.
+     *
+     * @return  A negative value if the first value should be ordered before
+     *          the second, a positive value if the first value should be
+     *          ordered after the second, or zero if they are equal.
+     */
+    @Override()
+    public int compare(final ASN1OctetString v1, final ASN1OctetString v2)
+    {
+      try
+      {
+        return matchingRule.compareValues(v1, v2);
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+        return OctetStringMatchingRule.getInstance().compareValues(v1, v2);
+      }
+    }
+  }
+}
@@ -84,7 +84,16 @@ public final class InMemoryDirectoryServerSnapshot
     this.firstChangeNumber = firstChangeNumber;
     this.lastChangeNumber  = lastChangeNumber;
 
-    entryMap = Collections.unmodifiableMap(new TreeMap<>(m));
+    if (m instanceof InMemoryEntryMap)
+    {
+      // Copy the map without decoding the entries so that the snapshot will
+      // retain the storage form used by the server.
+      entryMap = ((InMemoryEntryMap) m).readOnlyCopy();
+    }
+    else
+    {
+      entryMap = Collections.unmodifiableMap(new TreeMap<>(m));
+    }
   }
 
 
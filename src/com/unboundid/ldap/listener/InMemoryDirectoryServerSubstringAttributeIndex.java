@@ -0,0 +1,522 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.listener;
+
+
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.ldap.matchingrules.MatchingRule;
+import com.unboundid.ldap.matchingrules.OctetStringMatchingRule;
+import com.unboundid.ldap.matchingrules.SimpleMatchingRule;
+import com.unboundid.ldap.sdk.Attribute;
+import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.schema.AttributeTypeDefinition;
+import com.unboundid.ldap.sdk.schema.Schema;
+import com.unboundid.util.Debug;
+import com.unboundid.util.InternalUseOnly;
+import com.unboundid.util.Mutable;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+import static com.unboundid.ldap.listener.ListenerMessages.*;
+
+
+
+/**
+ * This class provides a data structure for maintaining a substring index for a
+ * specified attribute.  It holds two structures:
+ * <UL>
+ *   <LI>A map from normalized values (sorted by their bytes) to the DNs of the
+ *       entries with those values.  It is used to process the subInitial
+ *       component of a substring filter with a prefix range scan.</LI>
+ *   <LI>A map from each three-byte gram that appears in a normalized value to
+ *       the DNs of the entries with values containing that gram.  It is used
+ *       to process the subAny and subFinal components of a substring
+ *       filter.</LI>
+ * </UL>
+ * Both of these structures may return entries that do not actually match the
+ * filter (for example, because the grams of a subAny component appear in a
+ * value, but not contiguously), so candidate entries must still be checked
+ * against the filter.  However, every entry that does match the filter will be
+ * included in the candidate set.
+ * <BR><BR>
+ * Substring indexes are only supported for attribute types whose substring
+ * matching rule is a {@link SimpleMatchingRule}, since those rules match a
+ * substring assertion by looking for the normalized substring components in
+ * the normalized value.
+ */
+@Mutable()
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class InMemoryDirectoryServerSubstringAttributeIndex
+       extends InMemoryDirectoryServerAttributeIndex
+{
+  /**
+   * The number of bytes in each gram maintained in the index.
+   */
+  static final int GRAM_LENGTH = 3;
+
+
+
+  // The attribute type with which this index is associated.
+  private final AttributeTypeDefinition attributeType;
+
+  // A map from the encoded representation of each gram to the DNs of the
+  // entries with a normalized value containing that gram.
+  private final Map<Integer,TreeSet<DN>> gramMap;
+
+  // The schema for the server.
+  private final Schema schema;
+
+  // The matching rule used to normalize values.
+  private final SimpleMatchingRule matchingRule;
+
+  // A map from normalized values, sorted by their bytes, to the DNs of the
+  // entries with those values.
+  private final TreeMap<ASN1OctetString,TreeSet<DN>> valueMap;
+
+
+
+  /**
+   * Creates a new substring attribute index for the specified attribute type.
+   *
+   * @param  attributeType  The name or OID of the attribute type with which
+   *                        this index is associated.  It must be defined in the
+   *                        schema.
+   * @param  schema         The schema for the server.  It must not be
+   *                        {@code null}.
+   *
+   * @throws  LDAPException  If the specified attribute type is not defined in
+   *                         the schema, or if its substring matching rule does
+   *                         not support indexing.
+   */
+  InMemoryDirectoryServerSubstringAttributeIndex(final String attributeType,
+                                                 final Schema schema)
+       throws LDAPException
+  {
+    this.schema = schema;
+    if (schema == null)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR,
+           ERR_DS_SUBSTRING_INDEX_NO_SCHEMA.get(attributeType));
+    }
+
+    this.attributeType = schema.getAttributeType(attributeType);
+    if (this.attributeType == null)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR,
+           ERR_DS_SUBSTRING_INDEX_UNDEFINED_ATTRIBUTE_TYPE.get(attributeType));
+    }
+
+    final MatchingRule mr =
+         MatchingRule.selectSubstringMatchingRule(attributeType, schema);
+    if (! (mr instanceof SimpleMatchingRule))
+    {
+      String mrName = mr.getSubstringMatchingRuleNameOrOID();
+      if (mrName == null)
+      {
+        mrName = mr.getClass().getName();
+      }
+
+      throw new LDAPException(ResultCode.PARAM_ERROR,
+           ERR_DS_SUBSTRING_INDEX_UNSUPPORTED_MATCHING_RULE.get(attributeType,
+                mrName));
+    }
+    matchingRule = (SimpleMatchingRule) mr;
+
+    valueMap = new TreeMap<>(new ByteComparator());
+    gramMap = new HashMap<>(StaticUtils.computeMapCapacity(1000));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  AttributeTypeDefinition getAttributeType()
+  {
+    return attributeType;
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  synchronized void clear()
+  {
+    valueMap.clear();
+    gramMap.clear();
+  }
+
+
+
+  /**
+   * Obtains a copy of the map of normalized values used by this index.  This is
+   * only intended for internal use for testing purposes.
+   *
+   * @return  A copy of the map of normalized values used by this index.
+   */
+  @InternalUseOnly()
+  synchronized Map<ASN1OctetString,TreeSet<DN>> copyValueMap()
+  {
+    final HashMap<ASN1OctetString,TreeSet<DN>> m =
+         new HashMap<>(StaticUtils.computeMapCapacity(valueMap.size()));
+    for (final Map.Entry<ASN1OctetString,TreeSet<DN>> e : valueMap.entrySet())
+    {
+      m.put(e.getKey(), new TreeSet<>(e.getValue()));
+    }
+
+    return Collections.unmodifiableMap(m);
+  }
+
+
+
+  /**
+   * Retrieves the number of distinct grams held in this index.  This is only
+   * intended for internal use for testing purposes.
+   *
+   * @return  The number of distinct grams held in this index.
+   */
+  @InternalUseOnly()
+  synchronized int getGramCount()
+  {
+    return gramMap.size();
+  }
+
+
+
+  /**
+   * Retrieves the DNs of the entries that may match a substring filter with
+   * the provided components.
+   *
+   * @param  subInitial  The subInitial component of the filter, or
+   *                     {@code null} if there is none.
+   * @param  subAny      The subAny components of the filter.  It may be
+   *                     {@code null} or empty if there are none.
+   * @param  subFinal    The subFinal component of the filter, or {@code null}
+   *                     if there is none.
+   *
+   * @return  A set containing the DNs of the entries that may match the
+   *          filter, an empty set if no entries can match it, or {@code null}
+   *          if the filter components are too short to be processed using this
+   *          index.
+   *
+   * @throws  LDAPException  If a problem is encountered while attempting to
+   *                         normalize any of the filter components.
+   */
+  synchronized Set<DN> getCandidateEntries(final ASN1OctetString subInitial,
+                                           final ASN1OctetString[] subAny,
+                                           final ASN1OctetString subFinal)
+               throws LDAPException
+  {
+    TreeSet<DN> candidates = null;
+
+    if (subInitial != null)
+    {
+      final ASN1OctetString normInitial = matchingRule.normalizeSubstring(
+           subInitial, MatchingRule.SUBSTRING_TYPE_SUBINITIAL);
+      if (normInitial.getValueLength() > 0)
+      {
+        final byte[] prefix = normInitial.getValue();
+        candidates = new TreeSet<>();
+        for (final Map.Entry<ASN1OctetString,TreeSet<DN>> e :
+             valueMap.tailMap(normInitial, true).entrySet())
+        {
+          if (! startsWith(e.getKey().getValue(), prefix))
+          {
+            break;
+          }
+
+          candidates.addAll(e.getValue());
+        }
+
+        if (candidates.isEmpty())
+        {
+          return candidates;
+        }
+      }
+    }
+
+    if (subAny != null)
+    {
+      for (final ASN1OctetString s : subAny)
+      {
+        candidates = intersectGrams(candidates, matchingRule.normalizeSubstring(
+             s, MatchingRule.SUBSTRING_TYPE_SUBANY).getValue());
+        if ((candidates != null) && candidates.isEmpty())
+        {
+          return candidates;
+        }
+      }
+    }
+
+    if (subFinal != null)
+    {
+      candidates = intersectGrams(candidates, matchingRule.normalizeSubstring(
+           subFinal, MatchingRule.SUBSTRING_TYPE_SUBFINAL).getValue());
+    }
+
+    return candidates;
+  }
+
+
+
+  /**
+   * Restricts the provided candidate set to only those entries that contain
+   * every gram in the given normalized substring component.
+   *
+   * @param  candidates  The current candidate set.  It may be {@code null} if
+   *                     no candidate set has been established yet.
+   * @param  component   The normalized substring component to process.
+   *
+   * @return  The updated candidate set, or {@code null} if there was no
+   *          candidate set and the component is too short to produce one.
+   */
+  private TreeSet<DN> intersectGrams(final TreeSet<DN> candidates,
+                                     final byte[] component)
+  {
+    TreeSet<DN> result = candidates;
+    for (int i=0; i <= (component.length - GRAM_LENGTH); i++)
+    {
+      final TreeSet<DN> dnSet = gramMap.get(encodeGram(component, i));
+      if (dnSet == null)
+      {
+        return new TreeSet<>();
+      }
+
+      if (result == null)
+      {
+        result = new TreeSet<>(dnSet);
+      }
+      else
+      {
+        result.retainAll(dnSet);
+      }
+
+      if (result.isEmpty())
+      {
+        return result;
+      }
+    }
+
+    return result;
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  synchronized void processAdd(final Entry entry)
+               throws LDAPException
+  {
+    final Attribute a =
+         entry.getAttribute(attributeType.getNameOrOID(), schema);
+    if (a != null)
+    {
+      final DN dn = entry.getParsedDN();
+      for (final ASN1OctetString v : a.getRawValues())
+      {
+        final ASN1OctetString normalizedValue;
+        try
+        {
+          normalizedValue = matchingRule.normalize(v);
+        }
+        catch (final LDAPException le)
+        {
+          Debug.debugException(le);
+          continue;
+        }
+
+        TreeSet<DN> dnSet = valueMap.get(normalizedValue);
+        if (dnSet == null)
+        {
+          dnSet = new TreeSet<>();
+          valueMap.put(normalizedValue, dnSet);
+        }
+        dnSet.add(dn);
+
+        final byte[] valueBytes = normalizedValue.getValue();
+        for (int i=0; i <= (valueBytes.length - GRAM_LENGTH); i++)
+        {
+          final Integer gram = encodeGram(valueBytes, i);
+          TreeSet<DN> gramDNs = gramMap.get(gram);
+          if (gramDNs == null)
+          {
+            gramDNs = new TreeSet<>();
+            gramMap.put(gram, gramDNs);
+          }
+          gramDNs.add(dn);
+        }
+      }
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  synchronized void processDelete(final Entry entry)
+               throws LDAPException
+  {
+    final Attribute a =
+         entry.getAttribute(attributeType.getNameOrOID(), schema);
+    if (a != null)
+    {
+      final DN dn = entry.getParsedDN();
+      for (final ASN1OctetString v : a.getRawValues())
+      {
+        final ASN1OctetString normalizedValue;
+        try
+        {
+          normalizedValue = matchingRule.normalize(v);
+        }
+        catch (final LDAPException le)
+        {
+          Debug.debugException(le);
+          continue;
+        }
+
+        final TreeSet<DN> dnSet = valueMap.get(normalizedValue);
+        if (dnSet != null)
+        {
+          dnSet.remove(dn);
+          if (dnSet.isEmpty())
+          {
+            valueMap.remove(normalizedValue);
+          }
+        }
+
+        final byte[] valueBytes = normalizedValue.getValue();
+        for (int i=0; i <= (valueBytes.length - GRAM_LENGTH); i++)
+        {
+          final Integer gram = encodeGram(valueBytes, i);
+          final TreeSet<DN> gramDNs = gramMap.get(gram);
+          if (gramDNs != null)
+          {
+            gramDNs.remove(dn);
+            if (gramDNs.isEmpty())
+            {
+              gramMap.remove(gram);
+            }
+          }
+        }
+      }
+    }
+  }
+
+
+
+  /**
+   * Encodes the gram that starts at the specified position in the provided
+   * array as an integer.
+   *
+   * @param  b    The array containing the gram to encode.
+   * @param  pos  The position of the first byte of the gram.
+   *
+   * @return  The encoded representation of the gram.
+   */
+  private static Integer encodeGram(final byte[] b, final int pos)
+  {
+    return ((b[pos] & 0xFF) << 16) | ((b[pos+1] & 0xFF) << 8) |
+         (b[pos+2] & 0xFF);
+  }
+
+
+
+  /**
+   * Indicates whether the provided value starts with the given prefix.
+   *
+   * @param  value   The value to examine.
+   * @param  prefix  The prefix for which to make the determination.
+   *
+   * @return  {@code true} if the value starts with the given prefix, or
+   *          {@code false} if not.
+   */
+  private static boolean startsWith(final byte[] value, final byte[] prefix)
+  {
+    if (value.length < prefix.length)
+    {
+      return false;
+    }
+
+    for (int i=0; i < prefix.length; i++)
+    {
+      if (value[i] != prefix[i])
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+
+
+  /**
+   * This class provides a comparator that orders values by their bytes, so
+   * that all values with a common prefix are adjacent in the sorted map.
+   */
+  private static final class ByteComparator
+          implements Comparator<ASN1OctetString>, Serializable
+  {
+    /**
+     * The serial version UID for this serializable class.
+     */
+    private static final long serialVersionUID = 4415927409373623390L;
+
+
+
+    /**
+     * Compares the provided values by their bytes.
+     *
+     * @param  v1  The first value to compare.
+     * @param  v2  The second value to compare.
+     *
+     * @return  A negative value if the first value should be ordered before
+     *          the second, a positive value if the first value should be
+     *          ordered after the second, or zero if they are equal.
+     */
+    @Override()
+    public int compare(final ASN1OctetString v1, final ASN1OctetString v2)
+    {
+      return OctetStringMatchingRule.getInstance().compareValues(v1, v2);
+    }
+  }
+}
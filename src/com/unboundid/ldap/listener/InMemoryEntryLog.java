@@ -0,0 +1,679 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.listener;
+
+
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.schema.Schema;
+import com.unboundid.util.Debug;
+import com.unboundid.util.Mutable;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+import static com.unboundid.ldap.listener.ListenerMessages.*;
+
+
+
+/**
+ * This class provides an append-only log that may be used to persist the
+ * entries held in an in-memory directory server so that they can be restored
+ * when the server is restarted, without the need to import them from LDIF.
+ * <BR><BR>
+ * The log starts with a fixed header, followed by a sequence of records that
+ * each describe a single change to the entry map.  Each record contains the
+ * length of its content, a single-byte record type, the content itself, and a
+ * CRC-32 checksum over the type and content.  A put record holds the DN of an
+ * entry and a BER-encoded sequence of its attributes, a delete record holds
+ * only a DN, and a clear record has no content.
+ * <BR><BR>
+ * When the log is opened, it is memory-mapped and verified record by record,
+ * and the final content of the entry map is reconstructed from it.  A record
+ * at the end of the log that was only partially written (for example, because
+ * the process was terminated) will be discarded, but a record with an invalid
+ * checksum anywhere else will cause the log to be rejected.  Because stale
+ * records accumulate as entries are updated, the log is periodically rewritten
+ * so that it only contains the current set of entries.
+ * <BR><BR>
+ * Each record is written to the file as soon as the corresponding change is
+ * made to the entry map, but it is not forced to disk.  This protects against
+ * the failure of the process, but not necessarily against the failure of the
+ * system.  A log must not be used by more than one server at a time.  This
+ * class is not threadsafe, and the in-memory request handler is responsible
+ * for providing any necessary synchronization.
+ */
+@Mutable()
+@ThreadSafety(level=ThreadSafetyLevel.NOT_THREADSAFE)
+final class InMemoryEntryLog
+       implements Closeable
+{
+  /**
+   * The header that appears at the beginning of every entry log.
+   */
+  private static final byte[] HEADER = StaticUtils.getBytes("UBIDMEL1");
+
+
+
+  /**
+   * The record type for a record that puts an entry into the map.
+   */
+  static final byte RECORD_TYPE_PUT = 0x01;
+
+
+
+  /**
+   * The record type for a record that removes an entry from the map.
+   */
+  static final byte RECORD_TYPE_DELETE = 0x02;
+
+
+
+  /**
+   * The record type for a record that removes all entries from the map.
+   */
+  static final byte RECORD_TYPE_CLEAR = 0x03;
+
+
+
+  /**
+   * The number of bytes in each record in addition to its content:  four bytes
+   * for the length, one for the type, and four for the checksum.
+   */
+  private static final int RECORD_OVERHEAD = 9;
+
+
+
+  /**
+   * The maximum number of bytes of the log to map into memory at once.
+   */
+  private static final int MAX_MAPPED_REGION_SIZE = 256 * 1024 * 1024;
+
+
+
+  /**
+   * The minimum number of records that the log must contain before it will be
+   * compacted.
+   */
+  static final long MIN_RECORDS_FOR_COMPACTION = 10000L;
+
+
+
+  // The checksum used to compute record checksums.
+  private final CRC32 crc;
+
+  // The file containing the log.
+  private final File file;
+
+  // The channel used to write to the log.
+  private FileChannel channel;
+
+  // The number of records in the log.
+  private long numRecords;
+
+
+
+  /**
+   * Creates a new entry log that uses the provided file.  The log will not be
+   * opened until the {@link #open} method is called.
+   *
+   * @param  file  The file containing the log.  It does not need to exist.
+   */
+  InMemoryEntryLog(final File file)
+  {
+    this.file = file;
+
+    crc = new CRC32();
+    channel = null;
+    numRecords = 0L;
+  }
+
+
+
+  /**
+   * Retrieves the file containing the log.
+   *
+   * @return  The file containing the log.
+   */
+  File getFile()
+  {
+    return file;
+  }
+
+
+
+  /**
+   * Retrieves the number of records in the log.
+   *
+   * @return  The number of records in the log.
+   */
+  long getNumRecords()
+  {
+    return numRecords;
+  }
+
+
+
+  /**
+   * Opens the log, creating it if it does not exist, and reconstructs the set
+   * of entries that it describes.  Once this method returns, the log will be
+   * ready to have additional records appended to it.
+   *
+   * @param  schema  The schema to use when parsing entry DNs.  It may be
+   *                 {@code null} if no schema is available.
+   *
+   * @return  A map of the entries described by the log, with the BER-encoded
+   *          attributes of each entry indexed by the entry DN.  It will be
+   *          empty if the log did not previously exist or did not contain any
+   *          entries.
+   *
+   * @throws  LDAPException  If the log cannot be opened, or if it is not a
+   *                         valid entry log.
+   */
+  TreeMap<DN,byte[]> open(final Schema schema)
+                     throws LDAPException
+  {
+    final TreeMap<DN,byte[]> entries = new TreeMap<>();
+    try
+    {
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+           StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+      final long fileSize = channel.size();
+      if (fileSize == 0L)
+      {
+        channel.write(ByteBuffer.wrap(HEADER));
+        return entries;
+      }
+
+      final long validSize = readRecords(fileSize, schema, entries);
+      if (validSize < fileSize)
+      {
+        // The last record was only partially written, so get rid of it.
+        channel.truncate(validSize);
+      }
+
+      channel.position(validSize);
+      return entries;
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      close();
+      throw le;
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      close();
+      throw new LDAPException(ResultCode.LOCAL_ERROR,
+           ERR_MEM_ENTRY_LOG_CANNOT_OPEN.get(file.getAbsolutePath(),
+                StaticUtils.getExceptionMessage(e)),
+           e);
+    }
+  }
+
+
+
+  /**
+   * Reads and verifies all of the records in the log, applying each of them to
+   * the provided map.
+   *
+   * @param  fileSize  The size of the log file.
+   * @param  schema    The schema to use when parsing entry DNs.
+   * @param  entries   The map to which the records should be applied.
+   *
+   * @return  The number of bytes at the start of the log that contain complete
+   *          records.
+   *
+   * @throws  LDAPException  If the log is not a valid entry log.
+   *
+   * @throws  IOException  If a problem is encountered while reading the log.
+   */
+  private long readRecords(final long fileSize, final Schema schema,
+                           final TreeMap<DN,byte[]> entries)
+          throws LDAPException, IOException
+  {
+    MappedByteBuffer region = null;
+    long regionStart = 0L;
+    long pos = 0L;
+    while (pos < fileSize)
+    {
+      // Figure out how long the next record is (or the header, if this is the
+      // start of the log).
+      final int length;
+      if (pos == 0L)
+      {
+        length = HEADER.length;
+        if (fileSize < length)
+        {
+          throw new LDAPException(ResultCode.LOCAL_ERROR,
+               ERR_MEM_ENTRY_LOG_INVALID_HEADER.get(file.getAbsolutePath()));
+        }
+      }
+      else
+      {
+        if ((fileSize - pos) < 4L)
+        {
+          // The length of the record was only partially written.
+          break;
+        }
+
+        if (! contains(region, regionStart, pos, 4))
+        {
+          region = map(pos, 4, fileSize);
+          regionStart = pos;
+        }
+
+        final int contentLength = region.getInt((int) (pos - regionStart));
+        if ((contentLength < 0) ||
+            (contentLength > (Integer.MAX_VALUE - RECORD_OVERHEAD)))
+        {
+          throw new LDAPException(ResultCode.LOCAL_ERROR,
+               ERR_MEM_ENTRY_LOG_INVALID_RECORD.get(file.getAbsolutePath(),
+                    pos));
+        }
+
+        length = contentLength + RECORD_OVERHEAD;
+        if ((fileSize - pos) < length)
+        {
+          // The record was only partially written.
+          break;
+        }
+      }
+
+      if (! contains(region, regionStart, pos, length))
+      {
+        region = map(pos, length, fileSize);
+        regionStart = pos;
+      }
+
+      final byte[] recordBytes = new byte[length];
+      region.position((int) (pos - regionStart));
+      region.get(recordBytes);
+
+      if (pos == 0L)
+      {
+        if (! Arrays.equals(recordBytes, HEADER))
+        {
+          throw new LDAPException(ResultCode.LOCAL_ERROR,
+               ERR_MEM_ENTRY_LOG_INVALID_HEADER.get(file.getAbsolutePath()));
+        }
+      }
+      else
+      {
+        applyRecord(recordBytes, pos, schema, entries);
+        numRecords++;
+      }
+
+      pos += length;
+    }
+
+    return pos;
+  }
+
+
+
+  /**
+   * Indicates whether the provided mapped region of the log includes the
+   * specified range of bytes.
+   *
+   * @param  region       The mapped region, or {@code null} if no region has
+   *                      been mapped.
+   * @param  regionStart  The position in the log at which the region starts.
+   * @param  pos          The position of the first byte needed.
+   * @param  length       The number of bytes needed.
+   *
+   * @return  {@code true} if the region includes all of the specified bytes, or
+   *          {@code false} if not.
+   */
+  private static boolean contains(final MappedByteBuffer region,
+                                  final long regionStart, final long pos,
+                                  final int length)
+  {
+    return ((region != null) && (pos >= regionStart) &&
+         ((pos + length) <= (regionStart + region.capacity())));
+  }
+
+
+
+  /**
+   * Maps a region of the log into memory, starting at the specified position.
+   * The region will include at least the specified number of bytes, and will
+   * include more (up to a maximum size) if the log is large enough.
+   *
+   * @param  pos       The position in the log at which the region should
+   *                   start.
+   * @param  length    The minimum number of bytes to include in the region.
+   * @param  fileSize  The size of the log file.
+   *
+   * @return  The mapped region.
+   *
+   * @throws  IOException  If a problem is encountered while mapping the log.
+   */
+  private MappedByteBuffer map(final long pos, final int length,
+                               final long fileSize)
+          throws IOException
+  {
+    return channel.map(FileChannel.MapMode.READ_ONLY, pos,
+         Math.min(fileSize - pos, Math.max(length, MAX_MAPPED_REGION_SIZE)));
+  }
+
+
+
+  /**
+   * Verifies the provided record and applies it to the given map.
+   *
+   * @param  recordBytes  The bytes that comprise the record, including the
+   *                      length and checksum.
+   * @param  pos          The position of the record in the log.
+   * @param  schema       The schema to use when parsing entry DNs.
+   * @param  entries      The map to which the record should be applied.
+   *
+   * @throws  LDAPException  If the record is not valid.
+   */
+  private void applyRecord(final byte[] recordBytes, final long pos,
+                           final Schema schema,
+                           final TreeMap<DN,byte[]> entries)
+          throws LDAPException
+  {
+    final ByteBuffer buffer = ByteBuffer.wrap(recordBytes);
+    final int contentLength = buffer.getInt();
+
+    crc.reset();
+    crc.update(recordBytes, 4, contentLength + 1);
+    if (buffer.getInt(contentLength + 5) != (int) crc.getValue())
+    {
+      throw new LDAPException(ResultCode.LOCAL_ERROR,
+           ERR_MEM_ENTRY_LOG_CHECKSUM_MISMATCH.get(file.getAbsolutePath(),
+                pos));
+    }
+
+    try
+    {
+      final byte recordType = buffer.get();
+      switch (recordType)
+      {
+        case RECORD_TYPE_PUT:
+          final int dnLength = buffer.getInt();
+          final DN putDN = new DN(
+               StaticUtils.toUTF8String(recordBytes, 9, dnLength), schema);
+          entries.put(putDN, Arrays.copyOfRange(recordBytes, 9 + dnLength,
+               contentLength + 5));
+          break;
+
+        case RECORD_TYPE_DELETE:
+          final DN deleteDN = new DN(
+               StaticUtils.toUTF8String(recordBytes, 5, contentLength),
+               schema);
+          entries.remove(deleteDN);
+          break;
+
+        case RECORD_TYPE_CLEAR:
+          entries.clear();
+          break;
+
+        default:
+          throw new LDAPException(ResultCode.LOCAL_ERROR,
+               ERR_MEM_ENTRY_LOG_INVALID_RECORD.get(file.getAbsolutePath(),
+                    pos));
+      }
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      throw le;
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      throw new LDAPException(ResultCode.LOCAL_ERROR,
+           ERR_MEM_ENTRY_LOG_INVALID_RECORD.get(file.getAbsolutePath(), pos),
+           e);
+    }
+  }
+
+
+
+  /**
+   * Appends a record indicating that the provided entry has been put into the
+   * map.
+   *
+   * @param  dn                 The DN of the entry.
+   * @param  encodedAttributes  The BER-encoded attributes of the entry.
+   *
+   * @throws  IOException  If a problem is encountered while writing the record.
+   */
+  void writePut(final DN dn, final byte[] encodedAttributes)
+       throws IOException
+  {
+    channel.write(createPutRecord(dn, encodedAttributes));
+    numRecords++;
+  }
+
+
+
+  /**
+   * Appends a record indicating that the entry with the provided DN has been
+   * removed from the map.
+   *
+   * @param  dn  The DN of the entry that was removed.
+   *
+   * @throws  IOException  If a problem is encountered while writing the record.
+   */
+  void writeDelete(final DN dn)
+       throws IOException
+  {
+    final byte[] dnBytes = StaticUtils.getBytes(dn.toString());
+    final ByteBuffer buffer = createRecord(RECORD_TYPE_DELETE, dnBytes.length);
+    buffer.put(dnBytes);
+    channel.write(finishRecord(buffer));
+    numRecords++;
+  }
+
+
+
+  /**
+   * Appends a record indicating that all entries have been removed from the
+   * map.
+   *
+   * @throws  IOException  If a problem is encountered while writing the record.
+   */
+  void writeClear()
+       throws IOException
+  {
+    channel.write(finishRecord(createRecord(RECORD_TYPE_CLEAR, 0)));
+    numRecords++;
+  }
+
+
+
+  /**
+   * Indicates whether the log has accumulated enough stale records that it
+   * should be compacted.
+   *
+   * @param  numEntries  The number of entries currently held in the map.
+   *
+   * @return  {@code true} if the log should be compacted, or {@code false} if
+   *          not.
+   */
+  boolean shouldCompact(final int numEntries)
+  {
+    return ((numRecords >= MIN_RECORDS_FOR_COMPACTION) &&
+         (numRecords > (2L * numEntries)));
+  }
+
+
+
+  /**
+   * Replaces the content of the log with a single put record for each of the
+   * provided entries.  The new log is written to a temporary file which then
+   * replaces the existing log, so the existing log will remain intact if a
+   * problem is encountered.
+   *
+   * @param  entries  An iterator over the entries to write to the log, with
+   *                  the BER-encoded attributes of each entry indexed by the
+   *                  entry DN.
+   *
+   * @throws  IOException  If a problem is encountered while writing the new
+   *                       log.
+   */
+  void compact(final Iterator<Map.Entry<DN,byte[]>> entries)
+       throws IOException
+  {
+    final File tempFile = new File(file.getAbsolutePath() + ".compact");
+    long newNumRecords = 0L;
+    try (FileChannel tempChannel = FileChannel.open(tempFile.toPath(),
+              StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+              StandardOpenOption.WRITE))
+    {
+      tempChannel.write(ByteBuffer.wrap(HEADER));
+      while (entries.hasNext())
+      {
+        final Map.Entry<DN,byte[]> e = entries.next();
+        tempChannel.write(createPutRecord(e.getKey(), e.getValue()));
+        newNumRecords++;
+      }
+
+      tempChannel.force(true);
+    }
+
+    channel.close();
+    try
+    {
+      Files.move(tempFile.toPath(), file.toPath(),
+           StandardCopyOption.REPLACE_EXISTING,
+           StandardCopyOption.ATOMIC_MOVE);
+      numRecords = newNumRecords;
+    }
+    finally
+    {
+      // Whether or not the new log replaced the existing one, reopen the log
+      // so that subsequent records can be appended to it.
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+      channel.position(channel.size());
+    }
+  }
+
+
+
+  /**
+   * Closes the log.  Records may not be written to the log after it has been
+   * closed.
+   */
+  @Override()
+  public void close()
+  {
+    if (channel != null)
+    {
+      try
+      {
+        channel.close();
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+      }
+
+      channel = null;
+    }
+  }
+
+
+
+  /**
+   * Creates a put record for the provided entry.
+   *
+   * @param  dn                 The DN of the entry.
+   * @param  encodedAttributes  The BER-encoded attributes of the entry.
+   *
+   * @return  A buffer containing the put record, ready to be written.
+   */
+  private ByteBuffer createPutRecord(final DN dn,
+                                     final byte[] encodedAttributes)
+  {
+    final byte[] dnBytes = StaticUtils.getBytes(dn.toString());
+    final ByteBuffer buffer = createRecord(RECORD_TYPE_PUT,
+         4 + dnBytes.length + encodedAttributes.length);
+    buffer.putInt(dnBytes.length);
+    buffer.put(dnBytes);
+    buffer.put(encodedAttributes);
+    return finishRecord(buffer);
+  }
+
+
+
+  /**
+   * Creates a buffer to hold a record with the given type and content length.
+   * The length and type will have been written to the buffer, and the content
+   * should be written next.
+   *
+   * @param  recordType     The type for the record.
+   * @param  contentLength  The number of bytes in the record content.
+   *
+   * @return  The buffer that was created.
+   */
+  private static ByteBuffer createRecord(final byte recordType,
+                                         final int contentLength)
+  {
+    final ByteBuffer buffer =
+         ByteBuffer.allocate(contentLength + RECORD_OVERHEAD);
+    buffer.putInt(contentLength);
+    buffer.put(recordType);
+    return buffer;
+  }
+
+
+
+  /**
+   * Appends the checksum to a record whose content has been written to the
+   * provided buffer, and prepares the buffer to be written.
+   *
+   * @param  buffer  The buffer containing the record.
+   *
+   * @return  The provided buffer.
+   */
+  private ByteBuffer finishRecord(final ByteBuffer buffer)
+  {
+    crc.reset();
+    crc.update(buffer.array(), 4, buffer.position() - 4);
+    buffer.putInt((int) crc.getValue());
+    buffer.flip();
+    return buffer;
+  }
+}
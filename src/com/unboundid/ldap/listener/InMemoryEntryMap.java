@@ -0,0 +1,786 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.listener;
+
+
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.unboundid.asn1.ASN1Buffer;
+import com.unboundid.asn1.ASN1BufferSequence;
+import com.unboundid.asn1.ASN1StreamReader;
+import com.unboundid.asn1.ASN1StreamReaderSequence;
+import com.unboundid.ldap.sdk.Attribute;
+import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LDAPRuntimeException;
+import com.unboundid.ldap.sdk.ReadOnlyEntry;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.schema.Schema;
+import com.unboundid.util.Debug;
+import com.unboundid.util.Mutable;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+import static com.unboundid.ldap.listener.ListenerMessages.*;
+
+
+
+/**
+ * This class provides the map used to hold the entries in an in-memory
+ * directory server.  It is ordered by DN in the same way as a
+ * {@code TreeMap}, so that the entries in a subtree can be found with a range
+ * scan that starts at the base entry.
+ * <BR><BR>
+ * If compact storage is enabled, then the attributes of each entry are held
+ * in a single BER-encoded byte array rather than as a set of
+ * {@code Attribute} objects, which typically reduces the memory consumed by an
+ * entry several times over and greatly reduces the number of objects that the
+ * garbage collector needs to trace.  The DN of each entry is still held in
+ * parsed form as the map key, and the entry is decoded with the schema
+ * currently in use by the server whenever it is retrieved from the map.  This
+ * trades some processing for each access to an entry in return for the ability
+ * to hold a much larger data set in the same amount of memory.
+ * <BR><BR>
+ * The map may also be associated with an {@link InMemoryEntryLog} so that the
+ * entries it holds will persist across restarts of the server.  In that case,
+ * each change is written to the log before it is applied to the map, and the
+ * log is compacted whenever it has accumulated enough stale records.
+ * <BR><BR>
+ * Views returned by the {@link #tailMap} method are backed by this map.  If
+ * this map is read-only, then those views and the key and entry sets will also
+ * be read-only.  If the map is associated with an entry log, then the key set
+ * will be read-only so that any changes must be made through the map.  This
+ * class is not threadsafe, and the in-memory request handler is responsible for
+ * providing any necessary synchronization.
+ */
+@Mutable()
+@ThreadSafety(level=ThreadSafetyLevel.NOT_THREADSAFE)
+final class InMemoryEntryMap
+       extends AbstractMap<DN,ReadOnlyEntry>
+       implements Serializable
+{
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = -2305961174286632880L;
+
+
+
+  // Indicates whether entries should be stored in compact form.
+  private final boolean compact;
+
+  // Indicates whether this map is read-only.
+  private final boolean readOnly;
+
+  // Indicates whether this map is a view of a portion of another map.
+  private final boolean view;
+
+  // The log to which changes to the map should be written, if any.
+  private InMemoryEntryLog log;
+
+  // The reference to the schema to use when decoding entries held in compact
+  // form.
+  private final AtomicReference<Schema> schemaRef;
+
+  // The map that actually holds the entries.  The values will be
+  // ReadOnlyEntry objects if compact storage is not enabled, or byte arrays
+  // with the BER-encoded attributes of the entries if it is.
+  private final NavigableMap<DN,Object> map;
+
+
+
+  /**
+   * Creates a new empty entry map.
+   *
+   * @param  schemaRef  The reference to the schema to use when decoding
+   *                    entries held in compact form.  The schema it
+   *                    references may be {@code null}.
+   * @param  compact    Indicates whether entries should be stored in compact
+   *                    form.
+   */
+  InMemoryEntryMap(final AtomicReference<Schema> schemaRef,
+                   final boolean compact)
+  {
+    this(new TreeMap<DN,Object>(), schemaRef, null, compact, false, false);
+  }
+
+
+
+  /**
+   * Creates a new entry map that is backed by the provided map.
+   *
+   * @param  map        The map that actually holds the entries.
+   * @param  schemaRef  The reference to the schema to use when decoding
+   *                    entries held in compact form.
+   * @param  log        The log to which changes to the map should be written.
+   *                    It may be {@code null} if changes should not be
+   *                    logged.
+   * @param  compact    Indicates whether entries are stored in compact form.
+   * @param  readOnly   Indicates whether the map should be read-only.
+   * @param  view       Indicates whether the map is a view of a portion of
+   *                    another map.
+   */
+  private InMemoryEntryMap(final NavigableMap<DN,Object> map,
+                           final AtomicReference<Schema> schemaRef,
+                           final InMemoryEntryLog log, final boolean compact,
+                           final boolean readOnly, final boolean view)
+  {
+    this.map       = map;
+    this.schemaRef = schemaRef;
+    this.log       = log;
+    this.compact   = compact;
+    this.readOnly  = readOnly;
+    this.view      = view;
+  }
+
+
+
+  /**
+   * Indicates whether this map stores entries in compact form.
+   *
+   * @return  {@code true} if this map stores entries in compact form, or
+   *          {@code false} if it stores them as {@code ReadOnlyEntry} objects.
+   */
+  boolean isCompact()
+  {
+    return compact;
+  }
+
+
+
+  /**
+   * Associates this map with an entry log held in the provided file.  If the
+   * log already contains any records, then the content of this map will be
+   * replaced with the entries described by the log.  Otherwise, the current
+   * content of this map will be written to the log.  In either case, all
+   * subsequent changes to this map will be written to the log.
+   *
+   * @param  file  The file containing the entry log.  It does not need to
+   *               exist.
+   *
+   * @throws  LDAPException  If a problem is encountered while opening or
+   *                         writing the log.
+   */
+  void openLog(final File file)
+       throws LDAPException
+  {
+    ensureWritable();
+
+    final InMemoryEntryLog newLog = new InMemoryEntryLog(file);
+    final TreeMap<DN,byte[]> loadedEntries = newLog.open(schemaRef.get());
+    if (newLog.getNumRecords() > 0L)
+    {
+      map.clear();
+      for (final Map.Entry<DN,byte[]> e : loadedEntries.entrySet())
+      {
+        if (compact)
+        {
+          map.put(e.getKey(), e.getValue());
+        }
+        else
+        {
+          map.put(e.getKey(), toEntry(e.getKey(), e.getValue()));
+        }
+      }
+    }
+    else
+    {
+      try
+      {
+        for (final Map.Entry<DN,Object> e : map.entrySet())
+        {
+          newLog.writePut(e.getKey(), toBytes(e.getValue()));
+        }
+      }
+      catch (final IOException ioe)
+      {
+        Debug.debugException(ioe);
+        newLog.close();
+        throw new LDAPException(ResultCode.LOCAL_ERROR,
+             ERR_MEM_ENTRY_LOG_CANNOT_OPEN.get(file.getAbsolutePath(),
+                  StaticUtils.getExceptionMessage(ioe)),
+             ioe);
+      }
+    }
+
+    log = newLog;
+  }
+
+
+
+  /**
+   * Retrieves the entry log with which this map is associated, if any.
+   *
+   * @return  The entry log with which this map is associated, or {@code null}
+   *          if it is not associated with an entry log.
+   */
+  InMemoryEntryLog getLog()
+  {
+    return log;
+  }
+
+
+
+  /**
+   * Rewrites the entry log with which this map is associated so that it only
+   * contains the entries currently held in this map.  This will have no effect
+   * if the map is not associated with an entry log.
+   *
+   * @throws  LDAPException  If a problem is encountered while compacting the
+   *                         log.  The existing log will remain usable.
+   */
+  void compactLog()
+       throws LDAPException
+  {
+    if (log == null)
+    {
+      return;
+    }
+
+    final Iterator<Map.Entry<DN,Object>> iterator = map.entrySet().iterator();
+    try
+    {
+      log.compact(new Iterator<Map.Entry<DN,byte[]>>()
+      {
+        @Override()
+        public boolean hasNext()
+        {
+          return iterator.hasNext();
+        }
+
+
+
+        @Override()
+        public Map.Entry<DN,byte[]> next()
+        {
+          final Map.Entry<DN,Object> e = iterator.next();
+          return new AbstractMap.SimpleImmutableEntry<>(e.getKey(),
+               toBytes(e.getValue()));
+        }
+
+
+
+        @Override()
+        public void remove()
+        {
+          throw new UnsupportedOperationException();
+        }
+      });
+    }
+    catch (final IOException ioe)
+    {
+      Debug.debugException(ioe);
+      throw new LDAPException(ResultCode.LOCAL_ERROR,
+           ERR_MEM_ENTRY_LOG_CANNOT_COMPACT.get(
+                log.getFile().getAbsolutePath(),
+                StaticUtils.getExceptionMessage(ioe)),
+           ioe);
+    }
+  }
+
+
+
+  /**
+   * Creates a read-only copy of this map.  The copy will use the same storage
+   * form as this map, and will not be affected by any subsequent changes to
+   * this map.
+   *
+   * @return  A read-only copy of this map.
+   */
+  InMemoryEntryMap readOnlyCopy()
+  {
+    return new InMemoryEntryMap(new TreeMap<>(map), schemaRef, null, compact,
+         true, false);
+  }
+
+
+
+  /**
+   * Retrieves a view of the portion of this map whose keys are greater than (or
+   * equal to, if {@code inclusive} is {@code true}) the provided DN.
+   *
+   * @param  fromDN     The low endpoint of the keys in the returned map.
+   * @param  inclusive  Indicates whether the low endpoint should be included
+   *                    in the returned view.
+   *
+   * @return  A view of the requested portion of this map.
+   */
+  InMemoryEntryMap tailMap(final DN fromDN, final boolean inclusive)
+  {
+    return new InMemoryEntryMap(map.tailMap(fromDN, inclusive), schemaRef, log,
+         compact, readOnly, true);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public int size()
+  {
+    return map.size();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public boolean isEmpty()
+  {
+    return map.isEmpty();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public boolean containsKey(final Object key)
+  {
+    return map.containsKey(key);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public ReadOnlyEntry get(final Object key)
+  {
+    return toEntry((DN) key, map.get(key));
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public ReadOnlyEntry put(final DN key, final ReadOnlyEntry value)
+  {
+    ensureWritable();
+
+    final Object storedValue;
+    if (compact)
+    {
+      storedValue = encode(value);
+    }
+    else
+    {
+      storedValue = value;
+    }
+
+    if (log != null)
+    {
+      try
+      {
+        log.writePut(key, toBytes(storedValue));
+      }
+      catch (final IOException ioe)
+      {
+        throw logWriteFailure(key, ioe);
+      }
+    }
+
+    final ReadOnlyEntry previousEntry = toEntry(key, map.put(key, storedValue));
+    compactLogIfNecessary();
+    return previousEntry;
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void putAll(final Map<? extends DN,? extends ReadOnlyEntry> m)
+  {
+    ensureWritable();
+
+    if ((m instanceof InMemoryEntryMap) &&
+        (((InMemoryEntryMap) m).compact == compact))
+    {
+      // The stored values can be shared without the need to decode and
+      // re-encode them because they are never altered.
+      final NavigableMap<DN,Object> sourceMap = ((InMemoryEntryMap) m).map;
+      if (log != null)
+      {
+        for (final Map.Entry<DN,Object> e : sourceMap.entrySet())
+        {
+          try
+          {
+            log.writePut(e.getKey(), toBytes(e.getValue()));
+          }
+          catch (final IOException ioe)
+          {
+            throw logWriteFailure(e.getKey(), ioe);
+          }
+
+          map.put(e.getKey(), e.getValue());
+        }
+
+        compactLogIfNecessary();
+      }
+      else
+      {
+        map.putAll(sourceMap);
+      }
+    }
+    else
+    {
+      super.putAll(m);
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public ReadOnlyEntry remove(final Object key)
+  {
+    ensureWritable();
+
+    if ((log != null) && map.containsKey(key))
+    {
+      try
+      {
+        log.writeDelete((DN) key);
+      }
+      catch (final IOException ioe)
+      {
+        throw logWriteFailure((DN) key, ioe);
+      }
+    }
+
+    final ReadOnlyEntry removedEntry = toEntry((DN) key, map.remove(key));
+    compactLogIfNecessary();
+    return removedEntry;
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void clear()
+  {
+    ensureWritable();
+
+    if ((log != null) && view)
+    {
+      // A clear record would remove entries outside of this view, so each
+      // entry must be removed individually.
+      for (final DN dn : new ArrayList<>(map.keySet()))
+      {
+        remove(dn);
+      }
+
+      return;
+    }
+
+    if (log != null)
+    {
+      try
+      {
+        log.writeClear();
+      }
+      catch (final IOException ioe)
+      {
+        throw logWriteFailure(null, ioe);
+      }
+    }
+
+    map.clear();
+  }
+
+
+
+  /**
+   * {@inheritDoc}  The DNs will be returned in the order in which they are
+   * held in this map, and retrieving them does not require any entries to be
+   * decoded.
+   */
+  @Override()
+  public Set<DN> keySet()
+  {
+    if (readOnly || (log != null))
+    {
+      return Collections.unmodifiableSet(map.keySet());
+    }
+    else
+    {
+      return map.keySet();
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}  Each entry will be decoded as it is returned by the
+   * iterator.
+   */
+  @Override()
+  public Set<Map.Entry<DN,ReadOnlyEntry>> entrySet()
+  {
+    return new AbstractSet<Map.Entry<DN,ReadOnlyEntry>>()
+    {
+      @Override()
+      public int size()
+      {
+        return map.size();
+      }
+
+
+
+      @Override()
+      public Iterator<Map.Entry<DN,ReadOnlyEntry>> iterator()
+      {
+        final Iterator<Map.Entry<DN,Object>> iterator =
+             map.entrySet().iterator();
+        return new Iterator<Map.Entry<DN,ReadOnlyEntry>>()
+        {
+          // The DN of the entry most recently returned by this iterator.
+          private DN lastDN = null;
+
+
+
+          @Override()
+          public boolean hasNext()
+          {
+            return iterator.hasNext();
+          }
+
+
+
+          @Override()
+          public Map.Entry<DN,ReadOnlyEntry> next()
+          {
+            final Map.Entry<DN,Object> e = iterator.next();
+            lastDN = e.getKey();
+            return new AbstractMap.SimpleImmutableEntry<>(e.getKey(),
+                 toEntry(e.getKey(), e.getValue()));
+          }
+
+
+
+          @Override()
+          public void remove()
+          {
+            ensureWritable();
+
+            if ((log != null) && (lastDN != null))
+            {
+              try
+              {
+                log.writeDelete(lastDN);
+              }
+              catch (final IOException ioe)
+              {
+                throw logWriteFailure(lastDN, ioe);
+              }
+            }
+
+            iterator.remove();
+          }
+        };
+      }
+    };
+  }
+
+
+
+  /**
+   * Ensures that this map may be altered.
+   *
+   * @throws  UnsupportedOperationException  If this map is read-only.
+   */
+  private void ensureWritable()
+          throws UnsupportedOperationException
+  {
+    if (readOnly)
+    {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+
+
+  /**
+   * Compacts the entry log if it has accumulated enough stale records.  Any
+   * problem encountered while doing so will be ignored, since the existing log
+   * will remain valid.
+   */
+  private void compactLogIfNecessary()
+  {
+    if ((log != null) && log.shouldCompact(map.size()))
+    {
+      try
+      {
+        compactLog();
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+      }
+    }
+  }
+
+
+
+  /**
+   * Creates an exception to throw if a change cannot be written to the entry
+   * log.  The change will not have been applied to the map.
+   *
+   * @param  dn   The DN of the entry affected by the change, or {@code null}
+   *              if the change affects all entries.
+   * @param  ioe  The exception caught while writing the change.
+   *
+   * @return  The exception that was created.
+   */
+  private LDAPRuntimeException logWriteFailure(final DN dn,
+                                               final IOException ioe)
+  {
+    Debug.debugException(ioe);
+    return new LDAPRuntimeException(new LDAPException(ResultCode.LOCAL_ERROR,
+         ERR_MEM_ENTRY_LOG_CANNOT_WRITE.get(String.valueOf(dn),
+              log.getFile().getAbsolutePath(),
+              StaticUtils.getExceptionMessage(ioe)),
+         ioe));
+  }
+
+
+
+  /**
+   * Retrieves the BER-encoded attributes for the entry represented by the
+   * provided stored value.
+   *
+   * @param  storedValue  The value stored in the map for the entry.
+   *
+   * @return  The BER-encoded attributes for the entry.
+   */
+  private static byte[] toBytes(final Object storedValue)
+  {
+    if (storedValue instanceof byte[])
+    {
+      return (byte[]) storedValue;
+    }
+    else
+    {
+      return encode((ReadOnlyEntry) storedValue);
+    }
+  }
+
+
+
+  /**
+   * Encodes the attributes of the provided entry into the compact form used by
+   * this map.  The DN is not included because it is held as the map key.
+   *
+   * @param  entry  The entry to encode.
+   *
+   * @return  A byte array containing a BER-encoded sequence of the attributes
+   *          in the provided entry.
+   */
+  private static byte[] encode(final ReadOnlyEntry entry)
+  {
+    final ASN1Buffer buffer = new ASN1Buffer();
+    final ASN1BufferSequence attrSequence = buffer.beginSequence();
+    for (final Attribute a : entry.getAttributes())
+    {
+      a.writeTo(buffer);
+    }
+    attrSequence.end();
+
+    return buffer.toByteArray();
+  }
+
+
+
+  /**
+   * Retrieves the entry represented by the provided stored value.
+   *
+   * @param  dn           The DN of the entry.
+   * @param  storedValue  The value stored in the map for the entry.  It may
+   *                      be {@code null} if there is no such entry.
+   *
+   * @return  The entry represented by the provided stored value, or
+   *          {@code null} if the stored value was {@code null}.
+   *
+   * @throws  LDAPRuntimeException  If the entry is held in compact form and
+   *                                cannot be decoded.  This should never
+   *                                happen because the encoded form was created
+   *                                by this class.
+   */
+  private ReadOnlyEntry toEntry(final DN dn, final Object storedValue)
+  {
+    if (! (storedValue instanceof byte[]))
+    {
+      return (ReadOnlyEntry) storedValue;
+    }
+
+    final Schema schema = schemaRef.get();
+    try
+    {
+      final ASN1StreamReader reader = new ASN1StreamReader(
+           new ByteArrayInputStream((byte[]) storedValue));
+      final ASN1StreamReaderSequence attrSequence = reader.beginSequence();
+
+      final ArrayList<Attribute> attributes = new ArrayList<>(20);
+      while (attrSequence.hasMoreElements())
+      {
+        attributes.add(Attribute.readFrom(reader, schema));
+      }
+
+      return new ReadOnlyEntry(dn, schema, attributes);
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      throw new LDAPRuntimeException(new LDAPException(ResultCode.LOCAL_ERROR,
+           ERR_MEM_ENTRY_MAP_CANNOT_DECODE_ENTRY.get(String.valueOf(dn),
+                StaticUtils.getExceptionMessage(e)),
+           e));
+    }
+  }
+}
@@ -22,6 +22,7 @@ package com.unboundid.ldap.listener;
 
 
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -42,8 +43,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
+import com.unboundid.asn1.ASN1Constants;
+import com.unboundid.asn1.ASN1Element;
 import com.unboundid.asn1.ASN1Integer;
 import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.asn1.ASN1Sequence;
 import com.unboundid.ldap.protocol.AddRequestProtocolOp;
 import com.unboundid.ldap.protocol.AddResponseProtocolOp;
 import com.unboundid.ldap.protocol.BindRequestProtocolOp;
@@ -70,6 +74,7 @@ import com.unboundid.ldap.protocol.SearchResultReferenceProtocolOp;
 import com.unboundid.ldap.sdk.Attribute;
 import com.unboundid.ldap.sdk.BindResult;
 import com.unboundid.ldap.sdk.ChangeLogEntry;
+import com.unboundid.ldap.sdk.CompiledFilter;
 import com.unboundid.ldap.sdk.Control;
 import com.unboundid.ldap.sdk.DN;
 import com.unboundid.ldap.sdk.Entry;
@@ -130,6 +135,7 @@ import com.unboundid.ldif.LDIFModifyChangeRecord;
 import com.unboundid.ldif.LDIFModifyDNChangeRecord;
 import com.unboundid.ldif.LDIFReader;
 import com.unboundid.ldif.LDIFWriter;
+import com.unboundid.util.CloseableReadWriteLock;
 import com.unboundid.util.Debug;
 import com.unboundid.util.Mutable;
 import com.unboundid.util.ObjectPair;
@@ -235,10 +241,25 @@ public final class InMemoryRequestHandler
   // OIDs for each attribute type, when available.
   private final List<String> extendedPasswordAttributes;
 
+  // All of the attribute indexes defined for the server, regardless of type.
+  private final List<InMemoryDirectoryServerAttributeIndex> attributeIndexes;
+
   // The set of equality indexes defined for the server.
   private final Map<AttributeTypeDefinition,
      InMemoryDirectoryServerEqualityAttributeIndex> equalityIndexes;
 
+  // The set of ordering indexes defined for the server.
+  private final Map<AttributeTypeDefinition,
+     InMemoryDirectoryServerOrderingAttributeIndex> orderingIndexes;
+
+  // The set of presence indexes defined for the server.
+  private final Map<AttributeTypeDefinition,
+     InMemoryDirectoryServerPresenceAttributeIndex> presenceIndexes;
+
+  // The set of substring indexes defined for the server.
+  private final Map<AttributeTypeDefinition,
+     InMemoryDirectoryServerSubstringAttributeIndex> substringIndexes;
+
   // An additional set of credentials that may be used for bind operations.
   private final Map<DN,byte[]> additionalBindCredentials;
 
@@ -258,8 +279,23 @@ public final class InMemoryRequestHandler
   // The set of referential integrity attributes for the server.
   private final Set<String> referentialIntegrityAttributes;
 
-  // The map of entries currently held in the server.
-  private final Map<DN,ReadOnlyEntry> entryMap;
+  // The map of entries currently held in the server.  DNs are ordered
+  // hierarchically, so every entry is immediately followed in the map by all
+  // of its subordinates, and the entries in any subtree can be found with a
+  // range scan that starts at the base entry.  If so configured, entries will
+  // be held in a compact encoded form and decoded as they are retrieved.
+  private final InMemoryEntryMap entryMap;
+
+  // The lock used to protect the entry map and the indexes.  Operations that
+  // only read data (searches, compares, and simple binds) acquire the read
+  // lock and may be processed concurrently, while operations that alter data
+  // acquire the write lock so that each of them is applied atomically.
+  private final CloseableReadWriteLock entryMapLock;
+
+  // The cache of search results for use in processing paged results and
+  // virtual list view requests.  It is cleared whenever the entry map write
+  // lock is acquired.
+  private final InMemorySearchCursorCache searchCursorCache;
 
 
 
@@ -301,7 +337,10 @@ public final class InMemoryRequestHandler
            ERR_MEM_HANDLER_NO_BASE_DNS.get());
     }
 
-    entryMap = new TreeMap<>();
+    entryMap = new InMemoryEntryMap(schemaRef,
+         config.useCompactEntryStorage());
+    entryMapLock = new CloseableReadWriteLock();
+    searchCursorCache = new InMemorySearchCursorCache();
 
     final LinkedHashSet<DN> baseDNSet =
          new LinkedHashSet<>(Arrays.asList(baseDNArray));
@@ -379,6 +418,46 @@ public final class InMemoryRequestHandler
       equalityIndexes.put(i.getAttributeType(), i);
     }
 
+    final List<String> orderingIndexAttrs = config.getOrderingIndexAttributes();
+    orderingIndexes = new HashMap<>(
+         StaticUtils.computeMapCapacity(orderingIndexAttrs.size()));
+    for (final String s : orderingIndexAttrs)
+    {
+      final InMemoryDirectoryServerOrderingAttributeIndex i =
+           new InMemoryDirectoryServerOrderingAttributeIndex(s, schema);
+      orderingIndexes.put(i.getAttributeType(), i);
+    }
+
+    final List<String> presenceIndexAttrs = config.getPresenceIndexAttributes();
+    presenceIndexes = new HashMap<>(
+         StaticUtils.computeMapCapacity(presenceIndexAttrs.size()));
+    for (final String s : presenceIndexAttrs)
+    {
+      final InMemoryDirectoryServerPresenceAttributeIndex i =
+           new InMemoryDirectoryServerPresenceAttributeIndex(s, schema);
+      presenceIndexes.put(i.getAttributeType(), i);
+    }
+
+    final List<String> substringIndexAttrs =
+         config.getSubstringIndexAttributes();
+    substringIndexes = new HashMap<>(
+         StaticUtils.computeMapCapacity(substringIndexAttrs.size()));
+    for (final String s : substringIndexAttrs)
+    {
+      final InMemoryDirectoryServerSubstringAttributeIndex i =
+           new InMemoryDirectoryServerSubstringAttributeIndex(s, schema);
+      substringIndexes.put(i.getAttributeType(), i);
+    }
+
+    final ArrayList<InMemoryDirectoryServerAttributeIndex> allIndexes =
+         new ArrayList<>(equalityIndexes.size() + orderingIndexes.size() +
+              presenceIndexes.size() + substringIndexes.size());
+    allIndexes.addAll(equalityIndexes.values());
+    allIndexes.addAll(orderingIndexes.values());
+    allIndexes.addAll(presenceIndexes.values());
+    allIndexes.addAll(substringIndexes.values());
+    attributeIndexes = Collections.unmodifiableList(allIndexes);
+
     final Set<String> pwAttrSet = config.getPasswordAttributes();
     final LinkedHashSet<String> basePWAttrSet =
          new LinkedHashSet<>(StaticUtils.computeMapCapacity(pwAttrSet.size()));
@@ -440,11 +519,12 @@ public final class InMemoryRequestHandler
            ERR_MEM_HANDLER_SCHEMA_BASE_DN.get(subschemaSubentryDN));
     }
 
+    ReadOnlyEntry changeLogBaseEntry = null;
     if (maxChangelogEntries > 0)
     {
       baseDNSet.add(changeLogBaseDN);
 
-      final ReadOnlyEntry changeLogBaseEntry = new ReadOnlyEntry(
+      changeLogBaseEntry = new ReadOnlyEntry(
            changeLogBaseDN, schema,
            new Attribute("objectClass", "top", "namedObject"),
            new Attribute("cn", "changelog"),
@@ -472,6 +552,23 @@ public final class InMemoryRequestHandler
     }
 
     initialSnapshot = createSnapshot();
+
+    final File persistentStoreFile = config.getPersistentStoreFile();
+    if (persistentStoreFile != null)
+    {
+      // Load any entries from the persistent store.  If it did not previously
+      // hold a changelog, then the changelog base entry will need to be added
+      // back.
+      entryMap.openLog(persistentStoreFile);
+      if ((changeLogBaseEntry != null) &&
+          (! entryMap.containsKey(changeLogBaseDN)))
+      {
+        entryMap.put(changeLogBaseDN, changeLogBaseEntry);
+      }
+
+      rebuildIndexes();
+      initializeChangeNumbers();
+    }
   }
 
 
@@ -502,9 +599,15 @@ public final class InMemoryRequestHandler
     processingDelayMillis          = parent.processingDelayMillis;
     maxChangelogEntries            = parent.maxChangelogEntries;
     maxSizeLimit                   = parent.maxSizeLimit;
+    attributeIndexes               = parent.attributeIndexes;
     equalityIndexes                = parent.equalityIndexes;
+    orderingIndexes                = parent.orderingIndexes;
+    presenceIndexes                = parent.presenceIndexes;
+    substringIndexes               = parent.substringIndexes;
     referentialIntegrityAttributes = parent.referentialIntegrityAttributes;
     entryMap                       = parent.entryMap;
+    entryMapLock                   = parent.entryMapLock;
+    searchCursorCache              = parent.searchCursorCache;
     entryValidatorRef              = parent.entryValidatorRef;
     extendedRequestHandlers        = parent.extendedRequestHandlers;
     saslBindHandlers               = parent.saslBindHandlers;
@@ -552,8 +655,10 @@ public final class InMemoryRequestHandler
    */
   public InMemoryDirectoryServerSnapshot createSnapshot()
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       return new InMemoryDirectoryServerSnapshot(entryMap,
            firstChangeNumber.get(), lastChangeNumber.get());
     }
@@ -570,30 +675,89 @@ public final class InMemoryRequestHandler
    */
   public void restoreSnapshot(final InMemoryDirectoryServerSnapshot snapshot)
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.WriteLock writeLock = lockEntryMapForWrite())
     {
+      writeLock.avoidCompilerWarning();
+
       entryMap.clear();
       entryMap.putAll(snapshot.getEntryMap());
+      rebuildIndexes();
+
+      firstChangeNumber.set(snapshot.getFirstChangeNumber());
+      lastChangeNumber.set(snapshot.getLastChangeNumber());
+    }
+  }
 
-      for (final InMemoryDirectoryServerEqualityAttributeIndex i :
-           equalityIndexes.values())
+
+
+  /**
+   * Clears all of the attribute indexes and repopulates them with the entries
+   * currently held in the entry map.  The caller must hold the entry map write
+   * lock, unless this is called while the handler is being created.
+   */
+  private void rebuildIndexes()
+  {
+    if (attributeIndexes.isEmpty())
+    {
+      return;
+    }
+
+    for (final InMemoryDirectoryServerAttributeIndex i : attributeIndexes)
+    {
+      i.clear();
+    }
+
+    for (final Entry e : entryMap.values())
+    {
+      for (final InMemoryDirectoryServerAttributeIndex i : attributeIndexes)
       {
-        i.clear();
-        for (final Entry e : entryMap.values())
+        try
         {
-          try
-          {
-            i.processAdd(e);
-          }
-          catch (final Exception ex)
-          {
-            Debug.debugException(ex);
-          }
+          i.processAdd(e);
+        }
+        catch (final Exception ex)
+        {
+          Debug.debugException(ex);
         }
       }
+    }
+  }
 
-      firstChangeNumber.set(snapshot.getFirstChangeNumber());
-      lastChangeNumber.set(snapshot.getLastChangeNumber());
+
+
+  /**
+   * Sets the first and last change numbers to reflect the changelog entries
+   * currently held in the entry map.  This is used when the entries have been
+   * loaded from a persistent store.
+   */
+  private void initializeChangeNumbers()
+  {
+    long first = Long.MAX_VALUE;
+    long last = 0L;
+    for (final DN dn : entryMap.tailMap(changeLogBaseDN, false).keySet())
+    {
+      if (! dn.isDescendantOf(changeLogBaseDN, false))
+      {
+        break;
+      }
+
+      try
+      {
+        final long changeNumber =
+             Long.parseLong(dn.getRDN().getAttributeValues()[0]);
+        first = Math.min(first, changeNumber);
+        last = Math.max(last, changeNumber);
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+      }
+    }
+
+    if (last > 0L)
+    {
+      firstChangeNumber.set(first);
+      lastChangeNumber.set(last);
     }
   }
 
@@ -804,8 +968,10 @@ public final class InMemoryRequestHandler
                                        final AddRequestProtocolOp request,
                                        final List<Control> controls)
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.WriteLock writeLock = lockEntryMapForWrite())
     {
+      writeLock.avoidCompilerWarning();
+
       // Sleep before processing, if appropriate.
       sleepBeforeProcessing();
 
@@ -1265,228 +1431,269 @@ public final class InMemoryRequestHandler
                                         final BindRequestProtocolOp request,
                                         final List<Control> controls)
   {
-    synchronized (entryMap)
+    // SASL bind handlers are given a reference to this request handler and
+    // may use it to process other operations (including writes) on behalf of
+    // the client, so they need exclusive access to the entry map.  Simple
+    // binds only need to read the target entry, so they can be processed
+    // concurrently with other read operations.
+    if (request.getCredentialsType() == BindRequestProtocolOp.CRED_TYPE_SASL)
     {
-      // Sleep before processing, if appropriate.
-      sleepBeforeProcessing();
-
-      // If this operation type is not allowed, then reject it.
-      if (! config.getAllowedOperationTypes().contains(OperationType.BIND))
+      try (CloseableReadWriteLock.WriteLock writeLock = lockEntryMapForWrite())
       {
-        return new LDAPMessage(messageID, new BindResponseProtocolOp(
-             ResultCode.UNWILLING_TO_PERFORM_INT_VALUE, null,
-             ERR_MEM_HANDLER_BIND_NOT_ALLOWED.get(), null, null));
+        writeLock.avoidCompilerWarning();
+        return processBindRequestInternal(messageID, request, controls);
       }
+    }
+    else
+    {
+      try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
+      {
+        readLock.avoidCompilerWarning();
+        return processBindRequestInternal(messageID, request, controls);
+      }
+    }
+  }
 
 
-      authenticatedDN = DN.NULL_DN;
 
+  /**
+   * Performs the processing for the provided bind request.  The caller must
+   * hold the appropriate entry map lock.
+   *
+   * @param  messageID  The message ID of the LDAP message containing the bind
+   *                    request.
+   * @param  request    The bind request that was included in the LDAP message
+   *                    that was received.
+   * @param  controls   The set of controls included in the LDAP message.  It
+   *                    may be empty if there were no controls, but will not be
+   *                    {@code null}.
+   *
+   * @return  The {@link LDAPMessage} containing the response to send to the
+   *          client.
+   */
+  private LDAPMessage processBindRequestInternal(final int messageID,
+                           final BindRequestProtocolOp request,
+                           final List<Control> controls)
+  {
+    // Sleep before processing, if appropriate.
+    sleepBeforeProcessing();
 
-      // If this operation type requires authentication and it is a simple bind
-      // request, then ensure that the request includes credentials.
-      if ((authenticatedDN.isNullDN() &&
-           config.getAuthenticationRequiredOperationTypes().contains(
-                OperationType.BIND)))
-      {
-        if ((request.getCredentialsType() ==
-             BindRequestProtocolOp.CRED_TYPE_SIMPLE) &&
-             ((request.getSimplePassword() == null) ||
-                  request.getSimplePassword().getValueLength() == 0))
-        {
-          return new LDAPMessage(messageID, new BindResponseProtocolOp(
-               ResultCode.INVALID_CREDENTIALS_INT_VALUE, null,
-               ERR_MEM_HANDLER_BIND_REQUIRES_AUTH.get(), null, null));
-        }
-      }
+    // If this operation type is not allowed, then reject it.
+    if (! config.getAllowedOperationTypes().contains(OperationType.BIND))
+    {
+      return new LDAPMessage(messageID, new BindResponseProtocolOp(
+           ResultCode.UNWILLING_TO_PERFORM_INT_VALUE, null,
+           ERR_MEM_HANDLER_BIND_NOT_ALLOWED.get(), null, null));
+    }
 
 
-      // Get the parsed bind DN.
-      final DN bindDN;
-      try
+    authenticatedDN = DN.NULL_DN;
+
+
+    // If this operation type requires authentication and it is a simple bind
+    // request, then ensure that the request includes credentials.
+    if ((authenticatedDN.isNullDN() &&
+         config.getAuthenticationRequiredOperationTypes().contains(
+              OperationType.BIND)))
+    {
+      if ((request.getCredentialsType() ==
+           BindRequestProtocolOp.CRED_TYPE_SIMPLE) &&
+           ((request.getSimplePassword() == null) ||
+                request.getSimplePassword().getValueLength() == 0))
       {
-        bindDN = new DN(request.getBindDN(), schemaRef.get());
+        return new LDAPMessage(messageID, new BindResponseProtocolOp(
+             ResultCode.INVALID_CREDENTIALS_INT_VALUE, null,
+             ERR_MEM_HANDLER_BIND_REQUIRES_AUTH.get(), null, null));
       }
-      catch (final LDAPException le)
+    }
+
+
+    // Get the parsed bind DN.
+    final DN bindDN;
+    try
+    {
+      bindDN = new DN(request.getBindDN(), schemaRef.get());
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      return new LDAPMessage(messageID, new BindResponseProtocolOp(
+           ResultCode.INVALID_DN_SYNTAX_INT_VALUE, null,
+           ERR_MEM_HANDLER_BIND_MALFORMED_DN.get(request.getBindDN(),
+                le.getMessage()),
+           null, null));
+    }
+
+    // If the bind request is for a SASL bind, then see if there is a SASL
+    // mechanism handler that can be used to process it.
+    if (request.getCredentialsType() == BindRequestProtocolOp.CRED_TYPE_SASL)
+    {
+      final String mechanism = request.getSASLMechanism();
+      final InMemorySASLBindHandler handler = saslBindHandlers.get(mechanism);
+      if (handler == null)
       {
-        Debug.debugException(le);
         return new LDAPMessage(messageID, new BindResponseProtocolOp(
-             ResultCode.INVALID_DN_SYNTAX_INT_VALUE, null,
-             ERR_MEM_HANDLER_BIND_MALFORMED_DN.get(request.getBindDN(),
-                  le.getMessage()),
-             null, null));
+             ResultCode.AUTH_METHOD_NOT_SUPPORTED_INT_VALUE, null,
+             ERR_MEM_HANDLER_SASL_MECH_NOT_SUPPORTED.get(mechanism), null,
+             null));
       }
 
-      // If the bind request is for a SASL bind, then see if there is a SASL
-      // mechanism handler that can be used to process it.
-      if (request.getCredentialsType() == BindRequestProtocolOp.CRED_TYPE_SASL)
+      try
       {
-        final String mechanism = request.getSASLMechanism();
-        final InMemorySASLBindHandler handler = saslBindHandlers.get(mechanism);
-        if (handler == null)
-        {
-          return new LDAPMessage(messageID, new BindResponseProtocolOp(
-               ResultCode.AUTH_METHOD_NOT_SUPPORTED_INT_VALUE, null,
-               ERR_MEM_HANDLER_SASL_MECH_NOT_SUPPORTED.get(mechanism), null,
-               null));
-        }
+        final BindResult bindResult = handler.processSASLBind(this, messageID,
+             bindDN, request.getSASLCredentials(), controls);
 
-        try
+        // If the SASL bind was successful but the connection is
+        // unauthenticated, then see if we allow that.
+        if ((bindResult.getResultCode() == ResultCode.SUCCESS) &&
+             (authenticatedDN == DN.NULL_DN) &&
+             config.getAuthenticationRequiredOperationTypes().contains(
+                  OperationType.BIND))
         {
-          final BindResult bindResult = handler.processSASLBind(this, messageID,
-               bindDN, request.getSASLCredentials(), controls);
-
-          // If the SASL bind was successful but the connection is
-          // unauthenticated, then see if we allow that.
-          if ((bindResult.getResultCode() == ResultCode.SUCCESS) &&
-               (authenticatedDN == DN.NULL_DN) &&
-               config.getAuthenticationRequiredOperationTypes().contains(
-                    OperationType.BIND))
-          {
-            return new LDAPMessage(messageID, new BindResponseProtocolOp(
-                 ResultCode.INVALID_CREDENTIALS_INT_VALUE, null,
-                 ERR_MEM_HANDLER_BIND_REQUIRES_AUTH.get(), null, null));
-          }
-
           return new LDAPMessage(messageID, new BindResponseProtocolOp(
-               bindResult.getResultCode().intValue(),
-               bindResult.getMatchedDN(), bindResult.getDiagnosticMessage(),
-               Arrays.asList(bindResult.getReferralURLs()),
-               bindResult.getServerSASLCredentials()),
-               Arrays.asList(bindResult.getResponseControls()));
-        }
-        catch (final Exception e)
-        {
-          Debug.debugException(e);
-          return new LDAPMessage(messageID, new BindResponseProtocolOp(
-               ResultCode.OTHER_INT_VALUE, null,
-               ERR_MEM_HANDLER_SASL_BIND_FAILURE.get(
-                    StaticUtils.getExceptionMessage(e)),
-               null, null));
+               ResultCode.INVALID_CREDENTIALS_INT_VALUE, null,
+               ERR_MEM_HANDLER_BIND_REQUIRES_AUTH.get(), null, null));
         }
-      }
 
-      // If we've gotten here, then the bind must use simple authentication.
-      // Process the provided request controls.
-      final Map<String,Control> controlMap;
-      try
-      {
-        controlMap = RequestControlPreProcessor.processControls(
-             LDAPMessage.PROTOCOL_OP_TYPE_BIND_REQUEST, controls);
+        return new LDAPMessage(messageID, new BindResponseProtocolOp(
+             bindResult.getResultCode().intValue(),
+             bindResult.getMatchedDN(), bindResult.getDiagnosticMessage(),
+             Arrays.asList(bindResult.getReferralURLs()),
+             bindResult.getServerSASLCredentials()),
+             Arrays.asList(bindResult.getResponseControls()));
       }
-      catch (final LDAPException le)
+      catch (final Exception e)
       {
-        Debug.debugException(le);
+        Debug.debugException(e);
         return new LDAPMessage(messageID, new BindResponseProtocolOp(
-             le.getResultCode().intValue(), null, le.getMessage(), null, null));
+             ResultCode.OTHER_INT_VALUE, null,
+             ERR_MEM_HANDLER_SASL_BIND_FAILURE.get(
+                  StaticUtils.getExceptionMessage(e)),
+             null, null));
       }
-      final ArrayList<Control> responseControls = new ArrayList<>(1);
+    }
+
+    // If we've gotten here, then the bind must use simple authentication.
+    // Process the provided request controls.
+    final Map<String,Control> controlMap;
+    try
+    {
+      controlMap = RequestControlPreProcessor.processControls(
+           LDAPMessage.PROTOCOL_OP_TYPE_BIND_REQUEST, controls);
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      return new LDAPMessage(messageID, new BindResponseProtocolOp(
+           le.getResultCode().intValue(), null, le.getMessage(), null, null));
+    }
+    final ArrayList<Control> responseControls = new ArrayList<>(1);
 
-      // If the bind DN is the null DN, then the bind will be considered
-      // successful as long as the password is also empty.
-      final ASN1OctetString bindPassword = request.getSimplePassword();
-      if (bindDN.isNullDN())
+    // If the bind DN is the null DN, then the bind will be considered
+    // successful as long as the password is also empty.
+    final ASN1OctetString bindPassword = request.getSimplePassword();
+    if (bindDN.isNullDN())
+    {
+      if (bindPassword.getValueLength() == 0)
       {
-        if (bindPassword.getValueLength() == 0)
-        {
-          if (controlMap.containsKey(AuthorizationIdentityRequestControl.
-               AUTHORIZATION_IDENTITY_REQUEST_OID))
-          {
-            responseControls.add(new AuthorizationIdentityResponseControl(""));
-          }
-          return new LDAPMessage(messageID,
-               new BindResponseProtocolOp(ResultCode.SUCCESS_INT_VALUE, null,
-                    null, null, null),
-               responseControls);
-        }
-        else
+        if (controlMap.containsKey(AuthorizationIdentityRequestControl.
+             AUTHORIZATION_IDENTITY_REQUEST_OID))
         {
-          return new LDAPMessage(messageID, new BindResponseProtocolOp(
-               ResultCode.INVALID_CREDENTIALS_INT_VALUE,
-               getMatchedDNString(bindDN),
-               ERR_MEM_HANDLER_BIND_WRONG_PASSWORD.get(request.getBindDN()),
-               null, null));
+          responseControls.add(new AuthorizationIdentityResponseControl(""));
         }
+        return new LDAPMessage(messageID,
+             new BindResponseProtocolOp(ResultCode.SUCCESS_INT_VALUE, null,
+                  null, null, null),
+             responseControls);
       }
-
-      // If the bind DN is not null and the password is empty, then reject the
-      // request.
-      if ((! bindDN.isNullDN()) && (bindPassword.getValueLength() == 0))
+      else
       {
         return new LDAPMessage(messageID, new BindResponseProtocolOp(
-             ResultCode.UNWILLING_TO_PERFORM_INT_VALUE, null,
-             ERR_MEM_HANDLER_BIND_SIMPLE_DN_WITHOUT_PASSWORD.get(), null,
-             null));
+             ResultCode.INVALID_CREDENTIALS_INT_VALUE,
+             getMatchedDNString(bindDN),
+             ERR_MEM_HANDLER_BIND_WRONG_PASSWORD.get(request.getBindDN()),
+             null, null));
       }
+    }
+
+    // If the bind DN is not null and the password is empty, then reject the
+    // request.
+    if ((! bindDN.isNullDN()) && (bindPassword.getValueLength() == 0))
+    {
+      return new LDAPMessage(messageID, new BindResponseProtocolOp(
+           ResultCode.UNWILLING_TO_PERFORM_INT_VALUE, null,
+           ERR_MEM_HANDLER_BIND_SIMPLE_DN_WITHOUT_PASSWORD.get(), null,
+           null));
+    }
 
-      // See if the bind DN is in the set of additional bind credentials.  If
-      // so, then use the password there.
-      final byte[] additionalCreds = additionalBindCredentials.get(bindDN);
-      if (additionalCreds != null)
+    // See if the bind DN is in the set of additional bind credentials.  If
+    // so, then use the password there.
+    final byte[] additionalCreds = additionalBindCredentials.get(bindDN);
+    if (additionalCreds != null)
+    {
+      if (Arrays.equals(additionalCreds, bindPassword.getValue()))
       {
-        if (Arrays.equals(additionalCreds, bindPassword.getValue()))
-        {
-          authenticatedDN = bindDN;
-          if (controlMap.containsKey(AuthorizationIdentityRequestControl.
-               AUTHORIZATION_IDENTITY_REQUEST_OID))
-          {
-            responseControls.add(new AuthorizationIdentityResponseControl(
-                 "dn:" + bindDN.toString()));
-          }
-          return new LDAPMessage(messageID,
-               new BindResponseProtocolOp(ResultCode.SUCCESS_INT_VALUE, null,
-                    null, null, null),
-               responseControls);
-        }
-        else
+        authenticatedDN = bindDN;
+        if (controlMap.containsKey(AuthorizationIdentityRequestControl.
+             AUTHORIZATION_IDENTITY_REQUEST_OID))
         {
-          return new LDAPMessage(messageID, new BindResponseProtocolOp(
-               ResultCode.INVALID_CREDENTIALS_INT_VALUE,
-               getMatchedDNString(bindDN),
-               ERR_MEM_HANDLER_BIND_WRONG_PASSWORD.get(request.getBindDN()),
-               null, null));
+          responseControls.add(new AuthorizationIdentityResponseControl(
+               "dn:" + bindDN.toString()));
         }
+        return new LDAPMessage(messageID,
+             new BindResponseProtocolOp(ResultCode.SUCCESS_INT_VALUE, null,
+                  null, null, null),
+             responseControls);
       }
-
-      // If the target user doesn't exist, then reject the request.
-      final ReadOnlyEntry userEntry = entryMap.get(bindDN);
-      if (userEntry == null)
+      else
       {
         return new LDAPMessage(messageID, new BindResponseProtocolOp(
              ResultCode.INVALID_CREDENTIALS_INT_VALUE,
              getMatchedDNString(bindDN),
-             ERR_MEM_HANDLER_BIND_NO_SUCH_USER.get(request.getBindDN()), null,
-             null));
+             ERR_MEM_HANDLER_BIND_WRONG_PASSWORD.get(request.getBindDN()),
+             null, null));
       }
+    }
 
+    // If the target user doesn't exist, then reject the request.
+    final ReadOnlyEntry userEntry = entryMap.get(bindDN);
+    if (userEntry == null)
+    {
+      return new LDAPMessage(messageID, new BindResponseProtocolOp(
+           ResultCode.INVALID_CREDENTIALS_INT_VALUE,
+           getMatchedDNString(bindDN),
+           ERR_MEM_HANDLER_BIND_NO_SUCH_USER.get(request.getBindDN()), null,
+           null));
+    }
 
-      // Get a list of the user's passwords, restricted to those that match the
-      // provided clear-text password.  If the list is empty, then the
-      // authentication failed.
-      final List<InMemoryDirectoryServerPassword> matchingPasswords =
-           getPasswordsInEntry(userEntry, bindPassword);
-      if (matchingPasswords.isEmpty())
-      {
-        return new LDAPMessage(messageID, new BindResponseProtocolOp(
-             ResultCode.INVALID_CREDENTIALS_INT_VALUE,
-             getMatchedDNString(bindDN),
-             ERR_MEM_HANDLER_BIND_WRONG_PASSWORD.get(request.getBindDN()), null,
-             null));
-      }
 
+    // Get a list of the user's passwords, restricted to those that match the
+    // provided clear-text password.  If the list is empty, then the
+    // authentication failed.
+    final List<InMemoryDirectoryServerPassword> matchingPasswords =
+         getPasswordsInEntry(userEntry, bindPassword);
+    if (matchingPasswords.isEmpty())
+    {
+      return new LDAPMessage(messageID, new BindResponseProtocolOp(
+           ResultCode.INVALID_CREDENTIALS_INT_VALUE,
+           getMatchedDNString(bindDN),
+           ERR_MEM_HANDLER_BIND_WRONG_PASSWORD.get(request.getBindDN()), null,
+           null));
+    }
 
-      // If we've gotten here, then authentication was successful.
-      authenticatedDN = bindDN;
-      if (controlMap.containsKey(AuthorizationIdentityRequestControl.
-           AUTHORIZATION_IDENTITY_REQUEST_OID))
-      {
-        responseControls.add(new AuthorizationIdentityResponseControl(
-             "dn:" + bindDN.toString()));
-      }
-      return new LDAPMessage(messageID,
-           new BindResponseProtocolOp(ResultCode.SUCCESS_INT_VALUE, null,
-                null, null, null),
-           responseControls);
+
+    // If we've gotten here, then authentication was successful.
+    authenticatedDN = bindDN;
+    if (controlMap.containsKey(AuthorizationIdentityRequestControl.
+         AUTHORIZATION_IDENTITY_REQUEST_OID))
+    {
+      responseControls.add(new AuthorizationIdentityResponseControl(
+           "dn:" + bindDN.toString()));
     }
+    return new LDAPMessage(messageID,
+         new BindResponseProtocolOp(ResultCode.SUCCESS_INT_VALUE, null,
+              null, null, null),
+         responseControls);
   }
 
 
@@ -1517,8 +1724,10 @@ public final class InMemoryRequestHandler
                           final CompareRequestProtocolOp request,
                           final List<Control> controls)
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       // Sleep before processing, if appropriate.
       sleepBeforeProcessing();
 
@@ -1678,8 +1887,10 @@ public final class InMemoryRequestHandler
                                           final DeleteRequestProtocolOp request,
                                           final List<Control> controls)
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.WriteLock writeLock = lockEntryMapForWrite())
     {
+      writeLock.avoidCompilerWarning();
+
       // Sleep before processing, if appropriate.
       sleepBeforeProcessing();
 
@@ -1812,14 +2023,7 @@ public final class InMemoryRequestHandler
       // Create a list with the DN of the target entry, and all the DNs of its
       // subordinates.  If the entry has subordinates and the subtree delete
       // control was not provided, then fail.
-      final ArrayList<DN> subordinateDNs = new ArrayList<>(entryMap.size());
-      for (final DN mapEntryDN : entryMap.keySet())
-      {
-        if (mapEntryDN.isDescendantOf(dn, false))
-        {
-          subordinateDNs.add(mapEntryDN);
-        }
-      }
+      final List<DN> subordinateDNs = getSubordinateDNs(dn);
 
       if ((! subordinateDNs.isEmpty()) &&
            (! controlMap.containsKey(
@@ -1951,8 +2155,10 @@ public final class InMemoryRequestHandler
                           final ExtendedRequestProtocolOp request,
                           final List<Control> controls)
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.WriteLock writeLock = lockEntryMapForWrite())
     {
+      writeLock.avoidCompilerWarning();
+
       // Sleep before processing, if appropriate.
       sleepBeforeProcessing();
 
@@ -2067,8 +2273,10 @@ public final class InMemoryRequestHandler
                                           final ModifyRequestProtocolOp request,
                                           final List<Control> controls)
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.WriteLock writeLock = lockEntryMapForWrite())
     {
+      writeLock.avoidCompilerWarning();
+
       // Sleep before processing, if appropriate.
       sleepBeforeProcessing();
 
@@ -2696,8 +2904,10 @@ public final class InMemoryRequestHandler
                           final ModifyDNRequestProtocolOp request,
                           final List<Control> controls)
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.WriteLock writeLock = lockEntryMapForWrite())
     {
+      writeLock.avoidCompilerWarning();
+
       // Sleep before processing, if appropriate.
       sleepBeforeProcessing();
 
@@ -3096,37 +3306,33 @@ public final class InMemoryRequestHandler
       // If the target entry had any subordinates, then rename them as well.
       final RDN[] oldDNComps = dn.getRDNs();
       final RDN[] newDNComps = newDN.getRDNs();
-      final Set<DN> dnSet = new LinkedHashSet<>(entryMap.keySet());
-      for (final DN mapEntryDN : dnSet)
+      for (final DN mapEntryDN : getSubordinateDNs(dn))
       {
-        if (mapEntryDN.isDescendantOf(dn, false))
-        {
-          final Entry o = entryMap.remove(mapEntryDN);
-          final Entry e = o.duplicate();
+        final Entry o = entryMap.remove(mapEntryDN);
+        final Entry e = o.duplicate();
 
-          final RDN[] oldMapEntryComps = mapEntryDN.getRDNs();
-          final int compsToSave = oldMapEntryComps.length - oldDNComps.length;
+        final RDN[] oldMapEntryComps = mapEntryDN.getRDNs();
+        final int compsToSave = oldMapEntryComps.length - oldDNComps.length;
 
-          final RDN[] newMapEntryComps =
-               new RDN[compsToSave + newDNComps.length];
-          System.arraycopy(oldMapEntryComps, 0, newMapEntryComps, 0,
-               compsToSave);
-          System.arraycopy(newDNComps, 0, newMapEntryComps, compsToSave,
-               newDNComps.length);
+        final RDN[] newMapEntryComps =
+             new RDN[compsToSave + newDNComps.length];
+        System.arraycopy(oldMapEntryComps, 0, newMapEntryComps, 0,
+             compsToSave);
+        System.arraycopy(newDNComps, 0, newMapEntryComps, compsToSave,
+             newDNComps.length);
 
-          final DN newMapEntryDN = new DN(newMapEntryComps);
-          e.setDN(newMapEntryDN);
-          if (generateOperationalAttributes)
-          {
-            e.setAttribute(new Attribute("entryDN",
-                 DistinguishedNameMatchingRule.getInstance(),
-                 newMapEntryDN.toNormalizedString()));
-          }
-          entryMap.put(newMapEntryDN, new ReadOnlyEntry(e));
-          indexDelete(o);
-          indexAdd(e);
-          handleReferentialIntegrityModifyDN(mapEntryDN, newMapEntryDN);
+        final DN newMapEntryDN = new DN(newMapEntryComps);
+        e.setDN(newMapEntryDN);
+        if (generateOperationalAttributes)
+        {
+          e.setAttribute(new Attribute("entryDN",
+               DistinguishedNameMatchingRule.getInstance(),
+               newMapEntryDN.toNormalizedString()));
         }
+        entryMap.put(newMapEntryDN, new ReadOnlyEntry(e));
+        indexDelete(o);
+        indexAdd(e);
+        handleReferentialIntegrityModifyDN(mapEntryDN, newMapEntryDN);
       }
 
       addChangeLogEntry(request, authzDN);
@@ -3226,55 +3432,54 @@ public final class InMemoryRequestHandler
                                           final SearchRequestProtocolOp request,
                                           final List<Control> controls)
   {
-    synchronized (entryMap)
-    {
-      final List<SearchResultEntry> entryList =
-           new ArrayList<>(entryMap.size());
-      final List<SearchResultReference> referenceList =
-           new ArrayList<>(entryMap.size());
+    // The entries and references are collected while holding the read lock in
+    // the method that processes the search, but they are sent to the client
+    // only after that lock has been released, so that a slow client cannot
+    // hold up write operations.
+    final List<SearchResultEntry> entryList = new ArrayList<>(10);
+    final List<SearchResultReference> referenceList = new ArrayList<>(10);
 
-      final LDAPMessage returnMessage = processSearchRequest(messageID, request,
-           controls, entryList, referenceList);
+    final LDAPMessage returnMessage = processSearchRequest(messageID, request,
+         controls, entryList, referenceList);
 
-      for (final SearchResultEntry e : entryList)
+    for (final SearchResultEntry e : entryList)
+    {
+      try
       {
-        try
-        {
-          connection.sendSearchResultEntry(messageID, e, e.getControls());
-        }
-        catch (final LDAPException le)
-        {
-          Debug.debugException(le);
-          return new LDAPMessage(messageID,
-               new SearchResultDoneProtocolOp(le.getResultCode().intValue(),
-                    le.getMatchedDN(), le.getDiagnosticMessage(),
-                    StaticUtils.toList(le.getReferralURLs())),
-               le.getResponseControls());
-        }
+        connection.sendSearchResultEntry(messageID, e, e.getControls());
       }
-
-      for (final SearchResultReference r : referenceList)
+      catch (final LDAPException le)
       {
-        try
-        {
-          connection.sendSearchResultReference(messageID,
-               new SearchResultReferenceProtocolOp(
-                    StaticUtils.toList(r.getReferralURLs())),
-               r.getControls());
-        }
-        catch (final LDAPException le)
-        {
-          Debug.debugException(le);
-          return new LDAPMessage(messageID,
-               new SearchResultDoneProtocolOp(le.getResultCode().intValue(),
-                    le.getMatchedDN(), le.getDiagnosticMessage(),
-                    StaticUtils.toList(le.getReferralURLs())),
-               le.getResponseControls());
-        }
+        Debug.debugException(le);
+        return new LDAPMessage(messageID,
+             new SearchResultDoneProtocolOp(le.getResultCode().intValue(),
+                  le.getMatchedDN(), le.getDiagnosticMessage(),
+                  StaticUtils.toList(le.getReferralURLs())),
+             le.getResponseControls());
       }
+    }
 
-      return returnMessage;
+    for (final SearchResultReference r : referenceList)
+    {
+      try
+      {
+        connection.sendSearchResultReference(messageID,
+             new SearchResultReferenceProtocolOp(
+                  StaticUtils.toList(r.getReferralURLs())),
+             r.getControls());
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+        return new LDAPMessage(messageID,
+             new SearchResultDoneProtocolOp(le.getResultCode().intValue(),
+                  le.getMatchedDN(), le.getDiagnosticMessage(),
+                  StaticUtils.toList(le.getReferralURLs())),
+             le.getResponseControls());
+      }
     }
+
+    return returnMessage;
   }
 
 
@@ -3318,8 +3523,10 @@ public final class InMemoryRequestHandler
                    final List<SearchResultEntry> entryList,
                    final List<SearchResultReference> referenceList)
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       // Sleep before processing, if appropriate.
       final long processingStartTime = System.currentTimeMillis();
       sleepBeforeProcessing();
@@ -3458,55 +3665,156 @@ public final class InMemoryRequestHandler
 
       // Perform any necessary processing for the assertion and proxied auth
       // controls.
+      final DN authzDN;
       try
       {
         handleAssertionRequestControl(controlMap, baseEntry);
-        handleProxiedAuthControl(controlMap);
+        authzDN = handleProxiedAuthControl(controlMap);
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+        return new LDAPMessage(messageID, new SearchResultDoneProtocolOp(
+             le.getResultCode().intValue(), null, le.getMessage(), null));
+      }
+
+      // Determine whether to include subentries in search results.
+      final boolean includeSubEntries;
+      final boolean includeNonSubEntries;
+      final SearchScope scope = request.getScope();
+      if (scope == SearchScope.BASE)
+      {
+        includeSubEntries = true;
+        includeNonSubEntries = true;
+      }
+      else if (controlMap.containsKey(
+           SubentriesRequestControl.SUBENTRIES_REQUEST_OID))
+      {
+        includeSubEntries = true;
+        includeNonSubEntries = false;
+      }
+      else if (baseEntry.hasObjectClass("ldapSubEntry") ||
+               baseEntry.hasObjectClass("inheritableLDAPSubEntry"))
+      {
+        includeSubEntries = true;
+        includeNonSubEntries = true;
+      }
+      else
+      {
+        includeSubEntries = false;
+        includeNonSubEntries = true;
+      }
+
+      // If the request includes the simple paged results or virtual list view
+      // request control (but not both), then see if it references a cursor
+      // for the results of an earlier request in the same series.
+      final ServerSideSortRequestControl sortRequestControl =
+           (ServerSideSortRequestControl) controlMap.get(
+                ServerSideSortRequestControl.SERVER_SIDE_SORT_REQUEST_OID);
+      final SimplePagedResultsControl pagedResultsControl =
+           (SimplePagedResultsControl)
+                controlMap.get(SimplePagedResultsControl.PAGED_RESULTS_OID);
+      final VirtualListViewRequestControl vlvRequest =
+           (VirtualListViewRequestControl) controlMap.get(
+                VirtualListViewRequestControl.VIRTUAL_LIST_VIEW_REQUEST_OID);
+      final boolean useCursor =
+           ((pagedResultsControl == null) != (vlvRequest == null));
+
+      int pagedResultsOffset = 0;
+      String cursorID = null;
+      if (pagedResultsControl != null)
+      {
+        final ASN1OctetString cookie = pagedResultsControl.getCookie();
+        if ((cookie != null) && (cookie.getValueLength() > 0))
+        {
+          // The cookie value will either be an integer representation of the
+          // offset within the result list at which to start the next batch,
+          // or a sequence of that offset and the ID of a cursor.
+          try
+          {
+            final ASN1Element cookieElement =
+                 ASN1Element.decode(cookie.getValue());
+            if (cookieElement.getType() ==
+                 ASN1Constants.UNIVERSAL_SEQUENCE_TYPE)
+            {
+              final ASN1Element[] cookieElements =
+                   ASN1Sequence.decodeAsSequence(cookieElement).elements();
+              pagedResultsOffset =
+                   ASN1Integer.decodeAsInteger(cookieElements[0]).intValue();
+              cursorID = ASN1OctetString.decodeAsOctetString(
+                   cookieElements[1]).stringValue();
+            }
+            else
+            {
+              pagedResultsOffset =
+                   ASN1Integer.decodeAsInteger(cookieElement).intValue();
+            }
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+            return new LDAPMessage(messageID,
+                 new SearchResultDoneProtocolOp(
+                      ResultCode.PROTOCOL_ERROR_INT_VALUE, null,
+                      ERR_MEM_HANDLER_MALFORMED_PAGED_RESULTS_COOKIE.get(),
+                      null),
+                 responseControls);
+          }
+        }
       }
-      catch (final LDAPException le)
+      else if ((vlvRequest != null) && (vlvRequest.getContextID() != null))
       {
-        Debug.debugException(le);
-        return new LDAPMessage(messageID, new SearchResultDoneProtocolOp(
-             le.getResultCode().intValue(), null, le.getMessage(), null));
+        cursorID = vlvRequest.getContextID().stringValue();
       }
 
-      // Determine whether to include subentries in search results.
-      final boolean includeSubEntries;
-      final boolean includeNonSubEntries;
-      final SearchScope scope = request.getScope();
-      if (scope == SearchScope.BASE)
-      {
-        includeSubEntries = true;
-        includeNonSubEntries = true;
-      }
-      else if (controlMap.containsKey(
-           SubentriesRequestControl.SUBENTRIES_REQUEST_OID))
-      {
-        includeSubEntries = true;
-        includeNonSubEntries = false;
-      }
-      else if (baseEntry.hasObjectClass("ldapSubEntry") ||
-               baseEntry.hasObjectClass("inheritableLDAPSubEntry"))
+      final String cursorSignature;
+      final String cursorOwner;
+      InMemorySearchCursorCache.Cursor cursor = null;
+      if (useCursor)
       {
-        includeSubEntries = true;
-        includeNonSubEntries = true;
+        cursorSignature = getSearchCursorSignature(baseDN, request,
+             controlMap);
+        cursorOwner = getSearchCursorOwner(authzDN);
+        if (cursorID != null)
+        {
+          try
+          {
+            cursor = searchCursorCache.get(cursorID, cursorOwner,
+                 cursorSignature);
+          }
+          catch (final LDAPException le)
+          {
+            Debug.debugException(le);
+            return new LDAPMessage(messageID, new SearchResultDoneProtocolOp(
+                 le.getResultCode().intValue(), null, le.getMessage(), null));
+          }
+        }
       }
       else
       {
-        includeSubEntries = false;
-        includeNonSubEntries = true;
+        cursorSignature = null;
+        cursorOwner = null;
       }
 
       // Create a temporary list to hold all of the entries to be returned.
       // These entries will not have been pared down based on the requested
       // attributes.
-      final List<Entry> fullEntryList = new ArrayList<>(entryMap.size());
+      List<Entry> fullEntryList = new ArrayList<>(10);
 
 findEntriesAndRefs:
       {
+        // If we have a cursor for this search, then use the entries and
+        // references that it holds.  They will have already been sorted.
+        if (cursor != null)
+        {
+          fullEntryList = cursor.getEntries();
+          referenceList.addAll(cursor.getReferences());
+          break findEntriesAndRefs;
+        }
+
         // Check the scope.  If it is a base-level search, then we only need to
-        // examine the base entry.  Otherwise, we'll have to scan the entire
-        // entry map.
+        // examine the base entry.  Otherwise, we'll have to scan the subtree
+        // below the base entry.
         final Filter filter = request.getFilter();
         if (scope == SearchScope.BASE)
         {
@@ -3527,6 +3835,11 @@ findEntriesAndRefs:
           break findEntriesAndRefs;
         }
 
+        // Any other scope may require evaluating the filter against a number
+        // of entries, so compile it once rather than selecting matching rules
+        // and normalizing assertion values for each entry.
+        final CompiledFilter compiledFilter = filter.compile(schema);
+
         // If the search uses a single-level scope and the base DN is the root
         // DSE, then we will only examine the defined base entries for the data
         // set.
@@ -3539,7 +3852,7 @@ findEntriesAndRefs:
             {
               try
               {
-                if (filter.matchesEntry(e, schema))
+                if (compiledFilter.matchesEntry(e))
                 {
                   processSearchEntry(e, includeSubEntries, includeNonSubEntries,
                        includeChangeLog, hasManageDsaIT, fullEntryList,
@@ -3559,19 +3872,26 @@ findEntriesAndRefs:
 
         // Try to use indexes to process the request.  If we can't use any
         // indexes to get a candidate list, then just iterate over all the
-        // entries.  It's not necessary to consider the root DSE for non-base
-        // scopes.
+        // entries in the subtree below the base DN.  It's not necessary to
+        // consider the root DSE for non-base scopes.
         final Set<DN> candidateDNs = indexSearch(filter);
         if (candidateDNs == null)
         {
-          for (final Map.Entry<DN,ReadOnlyEntry> me : entryMap.entrySet())
+          for (final Map.Entry<DN,ReadOnlyEntry> me :
+               entryMap.tailMap(baseDN, true).entrySet())
           {
             final DN dn = me.getKey();
+            if (! dn.isDescendantOf(baseDN, true))
+            {
+              // There can't be any more entries in the target subtree.
+              break;
+            }
+
             final Entry entry = me.getValue();
             try
             {
               if (dn.matchesBaseAndScope(baseDN, scope) &&
-                   filter.matchesEntry(entry, schema))
+                   compiledFilter.matchesEntry(entry))
               {
                 processSearchEntry(entry, includeSubEntries,
                      includeNonSubEntries, includeChangeLog, hasManageDsaIT,
@@ -3596,7 +3916,7 @@ findEntriesAndRefs:
               }
 
               final Entry entry = entryMap.get(dn);
-              if (filter.matchesEntry(entry, schema))
+              if (compiledFilter.matchesEntry(entry))
               {
                 processSearchEntry(entry, includeSubEntries,
                      includeNonSubEntries, includeChangeLog, hasManageDsaIT,
@@ -3613,100 +3933,75 @@ findEntriesAndRefs:
 
 
       // If the request included the server-side sort request control, then sort
-      // the matching entries appropriately.
-      final ServerSideSortRequestControl sortRequestControl =
-           (ServerSideSortRequestControl) controlMap.get(
-                ServerSideSortRequestControl.SERVER_SIDE_SORT_REQUEST_OID);
+      // the matching entries appropriately (unless they came from a cursor, in
+      // which case they are already sorted).
       if (sortRequestControl != null)
       {
-        final EntrySorter entrySorter = new EntrySorter(false, schema,
-             sortRequestControl.getSortKeys());
-        final SortedSet<Entry> sortedEntrySet = entrySorter.sort(fullEntryList);
-        fullEntryList.clear();
-        fullEntryList.addAll(sortedEntrySet);
+        if (cursor == null)
+        {
+          final EntrySorter entrySorter = new EntrySorter(false, schema,
+               sortRequestControl.getSortKeys());
+          final SortedSet<Entry> sortedEntrySet =
+               entrySorter.sort(fullEntryList);
+          fullEntryList.clear();
+          fullEntryList.addAll(sortedEntrySet);
+        }
 
         responseControls.add(new ServerSideSortResponseControl(
              ResultCode.SUCCESS, null));
       }
 
 
+      // The list of entries to return may be restricted to a subset of the
+      // full list by the simple paged results or virtual list view request
+      // control.
+      List<Entry> returnEntryList = fullEntryList;
+
+
       // If the request included the simple paged results control, then handle
       // it.
-      final SimplePagedResultsControl pagedResultsControl =
-           (SimplePagedResultsControl)
-                controlMap.get(SimplePagedResultsControl.PAGED_RESULTS_OID);
       if (pagedResultsControl != null)
       {
         final int totalSize = fullEntryList.size();
-        final int pageSize = pagedResultsControl.getSize();
-        final ASN1OctetString cookie = pagedResultsControl.getCookie();
+        final int pageSize = Math.max(0, pagedResultsControl.getSize());
+        final int start = Math.max(0, Math.min(totalSize, pagedResultsOffset));
+        final int end = (int) Math.min(totalSize, ((long) start + pageSize));
+        returnEntryList = fullEntryList.subList(start, end);
+
+        // If there are still entries left, then create a cookie to include in
+        // the response, creating a cursor for the remaining pages if we don't
+        // already have one.  Otherwise, use an empty cookie and discard the
+        // cursor.
+        if (end < totalSize)
+        {
+          if ((cursor == null) && useCursor)
+          {
+            cursor = searchCursorCache.put(cursorSignature, cursorOwner,
+                 fullEntryList, new ArrayList<>(referenceList));
+          }
 
-        final int offset;
-        if ((cookie == null) || (cookie.getValueLength() == 0))
-        {
-          // This is the first request in the series, so start at the beginning
-          // of the list.
-          offset = 0;
-        }
-        else
-        {
-          // The cookie value will simply be an integer representation of the
-          // offset within the result list at which to start the next batch.
-          try
+          final ASN1Element cookieElement;
+          if (cursor == null)
           {
-            final ASN1Integer offsetInteger =
-                 ASN1Integer.decodeAsInteger(cookie.getValue());
-            offset = offsetInteger.intValue();
+            cookieElement = new ASN1Integer(end);
           }
-          catch (final Exception e)
+          else
           {
-            Debug.debugException(e);
-            return new LDAPMessage(messageID,
-                 new SearchResultDoneProtocolOp(
-                      ResultCode.PROTOCOL_ERROR_INT_VALUE, null,
-                      ERR_MEM_HANDLER_MALFORMED_PAGED_RESULTS_COOKIE.get(),
-                      null),
-                 responseControls);
+            cookieElement = new ASN1Sequence(
+                 new ASN1Integer(end),
+                 new ASN1OctetString(cursor.getID()));
           }
-        }
-
-        // Create an iterator that will be used to remove entries from the
-        // result set that are outside of the requested page of results.
-        int pos = 0;
-        final Iterator<Entry> iterator = fullEntryList.iterator();
-
-        // First, remove entries at the beginning of the list until we hit the
-        // offset.
-        while (iterator.hasNext() && (pos < offset))
-        {
-          iterator.next();
-          iterator.remove();
-          pos++;
-        }
-
-        // Next, skip over the entries that should be returned.
-        int keptEntries = 0;
-        while (iterator.hasNext() && (keptEntries < pageSize))
-        {
-          iterator.next();
-          pos++;
-          keptEntries++;
-        }
 
-        // If there are still entries left, then remove them and create a cookie
-        // to include in the response.  Otherwise, use an empty cookie.
-        if (iterator.hasNext())
-        {
           responseControls.add(new SimplePagedResultsControl(totalSize,
-               new ASN1OctetString(new ASN1Integer(pos).encode()), false));
-          while (iterator.hasNext())
-          {
-            iterator.next();
-            iterator.remove();
-          }
+               new ASN1OctetString(cookieElement.encode()), false));
         }
         else
         {
+          if (cursor != null)
+          {
+            searchCursorCache.remove(cursor.getID());
+          }
+
           responseControls.add(new SimplePagedResultsControl(totalSize,
                new ASN1OctetString(), false));
         }
@@ -3715,12 +4010,9 @@ findEntriesAndRefs:
 
       // If the request includes the virtual list view request control, then
       // handle it.
-      final VirtualListViewRequestControl vlvRequest =
-           (VirtualListViewRequestControl) controlMap.get(
-                VirtualListViewRequestControl.VIRTUAL_LIST_VIEW_REQUEST_OID);
       if (vlvRequest != null)
       {
-        final int totalEntries = fullEntryList.size();
+        final int totalEntries = returnEntryList.size();
         final ASN1OctetString assertionValue = vlvRequest.getAssertionValue();
 
         // Figure out the position of the target entry in the list.
@@ -3732,7 +4024,7 @@ findEntriesAndRefs:
           // the list.
           offset--;
           offset = Math.max(0, offset);
-          offset = Math.min(fullEntryList.size(), offset);
+          offset = Math.min(totalEntries, offset);
         }
         else
         {
@@ -3745,15 +4037,23 @@ findEntriesAndRefs:
           final EntrySorter entrySorter =
                new EntrySorter(false, schema, primarySortKey);
 
-          offset = fullEntryList.size();
-          for (int i=0; i < fullEntryList.size(); i++)
+          // The list is sorted, so find the first entry that is greater than
+          // or equal to the test entry with a binary search.
+          int low = 0;
+          int high = totalEntries;
+          while (low < high)
           {
-            if (entrySorter.compare(fullEntryList.get(i), testEntry) >= 0)
+            final int mid = (low + high) >>> 1;
+            if (entrySorter.compare(returnEntryList.get(mid), testEntry) < 0)
             {
-              offset = i;
-              break;
+              low = mid + 1;
+            }
+            else
+            {
+              high = mid;
             }
           }
+          offset = low;
         }
 
         // Get the start and end positions based on the before and after counts.
@@ -3761,26 +4061,31 @@ findEntriesAndRefs:
         final int afterCount  = Math.max(0, vlvRequest.getAfterCount());
 
         final int start = Math.max(0, (offset - beforeCount));
-        final int end =
-             Math.min(fullEntryList.size(), (offset + afterCount + 1));
+        final int end = (int) Math.min(totalEntries,
+             ((long) offset + afterCount + 1L));
+        returnEntryList = returnEntryList.subList(start, end);
 
-        // Create an iterator to use to alter the list so that it only contains
-        // the appropriate set of entries.
-        int pos = 0;
-        final Iterator<Entry> iterator = fullEntryList.iterator();
-        while (iterator.hasNext())
+        // Create a cursor so that the sorted list can be reused by subsequent
+        // requests, if we don't already have one.
+        if ((cursor == null) && useCursor)
         {
-          iterator.next();
-          if ((pos < start) || (pos >= end))
-          {
-            iterator.remove();
-          }
-          pos++;
+          cursor = searchCursorCache.put(cursorSignature, cursorOwner,
+               fullEntryList, new ArrayList<>(referenceList));
         }
 
         // Create the appropriate response control.
+        final ASN1OctetString contextID;
+        if (cursor == null)
+        {
+          contextID = null;
+        }
+        else
+        {
+          contextID = new ASN1OctetString(cursor.getID());
+        }
+
         responseControls.add(new VirtualListViewResponseControl((offset+1),
-             totalEntries, ResultCode.SUCCESS, null));
+             totalEntries, ResultCode.SUCCESS, contextID));
       }
 
 
@@ -3803,7 +4108,7 @@ findEntriesAndRefs:
       }
 
       int entryCount = 0;
-      for (final Entry e : fullEntryList)
+      for (final Entry e : returnEntryList)
       {
         entryCount++;
         if (entryCount > sizeLimit)
@@ -3903,8 +4208,7 @@ findEntriesAndRefs:
    */
   private void indexAdd(final Entry entry)
   {
-    for (final InMemoryDirectoryServerEqualityAttributeIndex i :
-         equalityIndexes.values())
+    for (final InMemoryDirectoryServerAttributeIndex i : attributeIndexes)
     {
       try
       {
@@ -3926,8 +4230,7 @@ findEntriesAndRefs:
    */
   private void indexDelete(final Entry entry)
   {
-    for (final InMemoryDirectoryServerEqualityAttributeIndex i :
-         equalityIndexes.values())
+    for (final InMemoryDirectoryServerAttributeIndex i : attributeIndexes)
     {
       try
       {
@@ -4019,26 +4322,65 @@ findEntriesAndRefs:
         }
 
       case Filter.FILTER_TYPE_EQUALITY:
-        final Schema schema = schemaRef.get();
-        if (schema == null)
+        final InMemoryDirectoryServerEqualityAttributeIndex equalityIndex =
+             equalityIndexes.get(getFilterAttributeType(filter));
+        if (equalityIndex == null)
+        {
+          return null;
+        }
+        try
+        {
+          return equalityIndex.getMatchingEntries(
+               filter.getRawAssertionValue());
+        }
+        catch (final Exception e)
+        {
+          Debug.debugException(e);
+          return null;
+        }
+
+      case Filter.FILTER_TYPE_GREATER_OR_EQUAL:
+      case Filter.FILTER_TYPE_LESS_OR_EQUAL:
+        final InMemoryDirectoryServerOrderingAttributeIndex orderingIndex =
+             orderingIndexes.get(getFilterAttributeType(filter));
+        if (orderingIndex == null)
+        {
+          return null;
+        }
+        try
         {
+          return orderingIndex.getMatchingEntries(
+               filter.getRawAssertionValue(),
+               (filter.getFilterType() ==
+                    Filter.FILTER_TYPE_GREATER_OR_EQUAL));
+        }
+        catch (final Exception e)
+        {
+          Debug.debugException(e);
           return null;
         }
-        final AttributeTypeDefinition at =
-             schema.getAttributeType(filter.getAttributeName());
-        if (at == null)
+
+      case Filter.FILTER_TYPE_PRESENCE:
+        final InMemoryDirectoryServerPresenceAttributeIndex presenceIndex =
+             presenceIndexes.get(getFilterAttributeType(filter));
+        if (presenceIndex == null)
         {
           return null;
         }
-        final InMemoryDirectoryServerEqualityAttributeIndex i =
-             equalityIndexes.get(at);
-        if (i == null)
+        return presenceIndex.getMatchingEntries();
+
+      case Filter.FILTER_TYPE_SUBSTRING:
+        final InMemoryDirectoryServerSubstringAttributeIndex substringIndex =
+             substringIndexes.get(getFilterAttributeType(filter));
+        if (substringIndex == null)
         {
           return null;
         }
         try
         {
-          return i.getMatchingEntries(filter.getRawAssertionValue());
+          return substringIndex.getCandidateEntries(
+               filter.getRawSubInitialValue(), filter.getRawSubAnyValues(),
+               filter.getRawSubFinalValue());
         }
         catch (final Exception e)
         {
@@ -4053,6 +4395,179 @@ findEntriesAndRefs:
 
 
 
+  /**
+   * Acquires the entry map write lock.  Because the data may be altered while
+   * the lock is held, any cached search cursors will be discarded.
+   *
+   * @return  The write lock that has been acquired.
+   */
+  private CloseableReadWriteLock.WriteLock lockEntryMapForWrite()
+  {
+    final CloseableReadWriteLock.WriteLock writeLock = entryMapLock.lockWrite();
+    searchCursorCache.clear();
+    return writeLock;
+  }
+
+
+
+  /**
+   * Generates a string that identifies the set of entries that a search will
+   * return, for use in ensuring that a search cursor is only used for requests
+   * in the same series as the request for which it was created.
+   *
+   * @param  baseDN      The parsed base DN for the search request.
+   * @param  request     The search request being processed.
+   * @param  controlMap  The map of request controls for the search request.
+   *
+   * @return  The search cursor signature for the provided request.
+   */
+  private static String getSearchCursorSignature(final DN baseDN,
+                             final SearchRequestProtocolOp request,
+                             final Map<String,Control> controlMap)
+  {
+    final StringBuilder buffer = new StringBuilder();
+    baseDN.toNormalizedString(buffer);
+    buffer.append('|');
+    buffer.append(request.getScope().intValue());
+    buffer.append('|');
+    request.getFilter().toNormalizedString(buffer);
+    buffer.append('|');
+    buffer.append(controlMap.containsKey(
+         ManageDsaITRequestControl.MANAGE_DSA_IT_REQUEST_OID));
+    buffer.append('|');
+    buffer.append(controlMap.containsKey(
+         SubentriesRequestControl.SUBENTRIES_REQUEST_OID));
+
+    final ServerSideSortRequestControl sortRequestControl =
+         (ServerSideSortRequestControl) controlMap.get(
+              ServerSideSortRequestControl.SERVER_SIDE_SORT_REQUEST_OID);
+    if (sortRequestControl != null)
+    {
+      for (final SortKey sortKey : sortRequestControl.getSortKeys())
+      {
+        buffer.append('|');
+        sortKey.toString(buffer);
+      }
+    }
+
+    return buffer.toString();
+  }
+
+
+
+  /**
+   * Generates a string that identifies the client connection and authorization
+   * identity for a search, for use in ensuring that a search cursor is only
+   * used by the client for which it was created.
+   *
+   * @param  authzDN  The authorization DN for the search request.
+   *
+   * @return  The search cursor owner for the provided request.
+   */
+  private String getSearchCursorOwner(final DN authzDN)
+  {
+    final StringBuilder buffer = new StringBuilder();
+    if (connection == null)
+    {
+      buffer.append("internal");
+    }
+    else
+    {
+      buffer.append(connection.getConnectionID());
+    }
+
+    buffer.append('|');
+    authzDN.toNormalizedString(buffer);
+    return buffer.toString();
+  }
+
+
+
+  /**
+   * Retrieves the DNs of all entries that are subordinate to the specified
+   * entry, in the order in which they are held in the entry map (so that each
+   * entry will come before all of its own subordinates).  This method should
+   * only be invoked while holding the entry map lock.
+   *
+   * @param  dn  The DN of the entry for which to retrieve the subordinate DNs.
+   *
+   * @return  A list of the DNs of all entries below the specified entry, or an
+   *          empty list if it does not have any subordinates.
+   */
+  private List<DN> getSubordinateDNs(final DN dn)
+  {
+    final ArrayList<DN> subordinateDNs = new ArrayList<>(10);
+    for (final DN mapEntryDN : entryMap.tailMap(dn, false).keySet())
+    {
+      if (! mapEntryDN.isDescendantOf(dn, false))
+      {
+        break;
+      }
+
+      subordinateDNs.add(mapEntryDN);
+    }
+
+    return subordinateDNs;
+  }
+
+
+
+  /**
+   * Retrieves the number of entries at or below the specified base DN.  This
+   * method should only be invoked while holding the entry map lock.
+   *
+   * @param  baseDN  The base DN of the subtree for which to count the entries.
+   *
+   * @return  The number of entries at or below the specified base DN.
+   */
+  private int countEntriesInSubtree(final DN baseDN)
+  {
+    int count = 0;
+    for (final DN dn : entryMap.tailMap(baseDN, true).keySet())
+    {
+      if (! dn.isDescendantOf(baseDN, true))
+      {
+        break;
+      }
+
+      count++;
+    }
+
+    return count;
+  }
+
+
+
+  /**
+   * Retrieves the attribute type definition for the attribute targeted by the
+   * provided filter, if it can be used to look up an attribute index.
+   *
+   * @param  filter  The filter for which to retrieve the attribute type.
+   *
+   * @return  The attribute type definition for the attribute targeted by the
+   *          provided filter, or {@code null} if there is no schema, if the
+   *          attribute type is not defined in the schema, or if the filter
+   *          includes attribute options.
+   */
+  private AttributeTypeDefinition getFilterAttributeType(final Filter filter)
+  {
+    final Schema schema = schemaRef.get();
+    if (schema == null)
+    {
+      return null;
+    }
+
+    final String attributeName = filter.getAttributeName();
+    if (attributeName.indexOf(';') >= 0)
+    {
+      return null;
+    }
+
+    return schema.getAttributeType(attributeName);
+  }
+
+
+
   /**
    * Determines whether the provided set of controls includes a transaction
    * specification request control.  If so, then it will verify that it
@@ -4270,25 +4785,17 @@ findEntriesAndRefs:
    */
   public int countEntries(final boolean includeChangeLog)
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       if (includeChangeLog || (maxChangelogEntries == 0))
       {
         return entryMap.size();
       }
       else
       {
-        int count = 0;
-
-        for (final DN dn : entryMap.keySet())
-        {
-          if (! dn.isDescendantOf(changeLogBaseDN, true))
-          {
-            count++;
-          }
-        }
-
-        return count;
+        return entryMap.size() - countEntriesInSubtree(changeLogBaseDN);
       }
     }
   }
@@ -4310,20 +4817,13 @@ findEntriesAndRefs:
   public int countEntriesBelow(final String baseDN)
          throws LDAPException
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
-      final DN parsedBaseDN = new DN(baseDN, schemaRef.get());
+      readLock.avoidCompilerWarning();
 
-      int count = 0;
-      for (final DN dn : entryMap.keySet())
-      {
-        if (dn.isDescendantOf(parsedBaseDN, true))
-        {
-          count++;
-        }
-      }
+      final DN parsedBaseDN = new DN(baseDN, schemaRef.get());
 
-      return count;
+      return countEntriesInSubtree(parsedBaseDN);
     }
   }
 
@@ -4336,8 +4836,10 @@ findEntriesAndRefs:
    */
   public void clear()
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.WriteLock writeLock = lockEntryMapForWrite())
     {
+      writeLock.avoidCompilerWarning();
+
       restoreSnapshot(initialSnapshot);
     }
   }
@@ -4364,8 +4866,10 @@ findEntriesAndRefs:
   public int importFromLDIF(final boolean clear, final LDIFReader ldifReader)
          throws LDAPException
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.WriteLock writeLock = lockEntryMapForWrite())
     {
+      writeLock.avoidCompilerWarning();
+
       final InMemoryDirectoryServerSnapshot snapshot = createSnapshot();
       boolean restoreSnapshot = true;
 
@@ -4455,8 +4959,10 @@ findEntriesAndRefs:
                           final boolean closeWriter)
          throws LDAPException
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       boolean exceptionThrown = false;
 
       try
@@ -4605,8 +5111,10 @@ findEntriesAndRefs:
   public void addEntries(final List<? extends Entry> entries)
          throws LDAPException
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.WriteLock writeLock = lockEntryMapForWrite())
     {
+      writeLock.avoidCompilerWarning();
+
       final InMemoryDirectoryServerSnapshot snapshot = createSnapshot();
       boolean restoreSnapshot = true;
 
@@ -4647,8 +5155,10 @@ findEntriesAndRefs:
   public int deleteSubtree(final String baseDN)
          throws LDAPException
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.WriteLock writeLock = lockEntryMapForWrite())
     {
+      writeLock.avoidCompilerWarning();
+
       final DN dn = new DN(baseDN, schemaRef.get());
       if (dn.isNullDN())
       {
@@ -4658,16 +5168,17 @@ findEntriesAndRefs:
 
       int numDeleted = 0;
 
-      final Iterator<Map.Entry<DN,ReadOnlyEntry>> iterator =
-           entryMap.entrySet().iterator();
+      final Iterator<DN> iterator =
+           entryMap.tailMap(dn, true).keySet().iterator();
       while (iterator.hasNext())
       {
-        final Map.Entry<DN,ReadOnlyEntry> e = iterator.next();
-        if (e.getKey().isDescendantOf(dn, true))
+        if (! iterator.next().isDescendantOf(dn, true))
         {
-          iterator.remove();
-          numDeleted++;
+          break;
         }
+
+        iterator.remove();
+        numDeleted++;
       }
 
       return numDeleted;
@@ -4747,8 +5258,10 @@ findEntriesAndRefs:
    */
   public ReadOnlyEntry getEntry(final DN dn)
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       if (dn.isNullDN())
       {
         return generateRootDSE();
@@ -4795,8 +5308,10 @@ findEntriesAndRefs:
                                     final Filter filter)
          throws LDAPException
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       final DN parsedDN;
       final Schema schema = schemaRef.get();
       try
@@ -4876,10 +5391,17 @@ findEntriesAndRefs:
         return Collections.unmodifiableList(entryList);
       }
 
+      final CompiledFilter compiledFilter = filter.compile(schema);
       final List<ReadOnlyEntry> entryList = new ArrayList<>(10);
-      for (final Map.Entry<DN,ReadOnlyEntry> me : entryMap.entrySet())
+      for (final Map.Entry<DN,ReadOnlyEntry> me :
+           entryMap.tailMap(parsedDN, true).entrySet())
       {
         final DN dn = me.getKey();
+        if (! dn.isDescendantOf(parsedDN, true))
+        {
+          break;
+        }
+
         if (dn.matchesBaseAndScope(parsedDN, scope))
         {
           // We don't want to return changelog entries searches based at the
@@ -4892,7 +5414,7 @@ findEntriesAndRefs:
           try
           {
             final Entry entry = me.getValue();
-            if (filter.matchesEntry(entry, schema))
+            if (compiledFilter.matchesEntry(entry))
             {
               entryList.add(new ReadOnlyEntry(entry));
             }
@@ -5704,8 +6226,8 @@ findEntriesAndRefs:
   /**
    * Adds the provided changelog entry to the data set, removing an old entry if
    * necessary to remain within the maximum allowed number of changes.  This
-   * must only be called from a synchronized method, and the change number for
-   * the changelog entry must have been obtained by calling
+   * must only be called while holding the entry map write lock, and the change
+   * number for the changelog entry must have been obtained by calling
    * {@code lastChangeNumber.incrementAndGet()}.
    *
    * @param  e        The changelog entry to add to the data set.
@@ -5843,8 +6365,10 @@ findEntriesAndRefs:
   public DN getDNForAuthzID(final String authzID)
          throws LDAPException
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       final String lowerAuthzID = StaticUtils.toLowerCase(authzID);
       if (lowerAuthzID.startsWith("dn:"))
       {
@@ -6145,8 +6669,10 @@ findEntriesAndRefs:
   public boolean entryExists(final String dn, final String filter)
          throws LDAPException
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       final Entry e = getEntry(dn);
       if (e == null)
       {
@@ -6185,8 +6711,10 @@ findEntriesAndRefs:
   public boolean entryExists(final Entry entry)
          throws LDAPException
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       final Entry e = getEntry(entry.getDN());
       if (e == null)
       {
@@ -6247,8 +6775,10 @@ findEntriesAndRefs:
   public void assertEntryExists(final String dn, final String filter)
          throws LDAPException, AssertionError
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       final Entry e = getEntry(dn);
       if (e == null)
       {
@@ -6293,8 +6823,10 @@ findEntriesAndRefs:
   public void assertEntryExists(final Entry entry)
          throws LDAPException, AssertionError
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       final Entry e = getEntry(entry.getDN());
       if (e == null)
       {
@@ -6353,8 +6885,10 @@ findEntriesAndRefs:
   public List<String> getMissingEntryDNs(final Collection<String> dns)
          throws LDAPException
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       final List<String> missingDNs = new ArrayList<>(dns.size());
       for (final String dn : dns)
       {
@@ -6385,8 +6919,10 @@ findEntriesAndRefs:
   public void assertEntriesExist(final Collection<String> dns)
          throws LDAPException, AssertionError
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       final List<String> missingDNs = getMissingEntryDNs(dns);
       if (missingDNs.isEmpty())
       {
@@ -6425,8 +6961,10 @@ findEntriesAndRefs:
                            final Collection<String> attributeNames)
          throws LDAPException
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       final Entry e = getEntry(dn);
       if (e == null)
       {
@@ -6469,8 +7007,10 @@ findEntriesAndRefs:
                                     final Collection<String> attributeNames)
         throws LDAPException, AssertionError
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       final List<String> missingAttrs =
            getMissingAttributeNames(dn, attributeNames);
       if (missingAttrs == null)
@@ -6517,8 +7057,10 @@ findEntriesAndRefs:
                            final Collection<String> attributeValues)
        throws LDAPException
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       final Entry e = getEntry(dn);
       if (e == null)
       {
@@ -6565,8 +7107,10 @@ findEntriesAndRefs:
                                 final Collection<String> attributeValues)
         throws LDAPException, AssertionError
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       final List<String> missingValues =
            getMissingAttributeValues(dn, attributeName, attributeValues);
       if (missingValues == null)
@@ -6640,8 +7184,10 @@ findEntriesAndRefs:
                                      final Collection<String> attributeNames)
          throws LDAPException, AssertionError
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       final Entry e = getEntry(dn);
       if (e == null)
       {
@@ -6688,8 +7234,10 @@ findEntriesAndRefs:
                                  final Collection<String> attributeValues)
          throws LDAPException, AssertionError
   {
-    synchronized (entryMap)
+    try (CloseableReadWriteLock.ReadLock readLock = entryMapLock.lockRead())
     {
+      readLock.avoidCompilerWarning();
+
       final Entry e = getEntry(dn);
       if (e == null)
       {
@@ -0,0 +1,475 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.listener;
+
+
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.SearchResultReference;
+import com.unboundid.util.Mutable;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+import static com.unboundid.ldap.listener.ListenerMessages.*;
+
+
+
+/**
+ * This class provides a cache of the results of searches processed by the
+ * in-memory directory server with the simple paged results or virtual list
+ * view request control.  It allows subsequent requests in the same series to
+ * continue from the filtered and sorted set of results created for an earlier
+ * request, rather than processing the entire search again for every page.
+ * <BR><BR>
+ * The cache does not attempt to keep cursors up to date with changes to the
+ * data.  The in-memory request handler clears the cache whenever it acquires
+ * the lock needed to update the entry map, so a cursor can only be used if no
+ * changes could have been made since it was created.  A request that cannot use
+ * a cursor is simply processed in full.
+ * <BR><BR>
+ * Each cursor is owned by the client connection and authorization identity
+ * for which it was created.  A cursor ID presented by any other connection or
+ * identity will be rejected, so that one client can never be given the results
+ * of a search processed on behalf of another.
+ * <BR><BR>
+ * The memory used by the cache is bounded by both the number of cursors and
+ * the total number of entries referenced by all of those cursors.  Cursors are
+ * also discarded once they have not been used for a period of time.  When
+ * necessary, cursors are evicted in least-recently-used order.
+ */
+@Mutable()
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class InMemorySearchCursorCache
+       implements Serializable
+{
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = -651203574895259915L;
+
+
+
+  /**
+   * The default maximum number of cursors that may be held in the cache.
+   */
+  static final int DEFAULT_MAX_CURSORS = 100;
+
+
+
+  /**
+   * The default maximum total number of entries that may be referenced by all
+   * of the cursors held in the cache.
+   */
+  static final int DEFAULT_MAX_TOTAL_ENTRIES = 1_000_000;
+
+
+
+  /**
+   * The default length of time in milliseconds that a cursor may remain in the
+   * cache without being used.
+   */
+  static final long DEFAULT_MAX_IDLE_TIME_MILLIS = 300_000L;
+
+
+
+  // The map of cursors held in the cache, in least-recently-used order.
+  private final LinkedHashMap<String,Cursor> cursors;
+
+  // The maximum number of cursors that may be held in the cache.
+  private final int maxCursors;
+
+  // The maximum total number of entries that may be referenced by cursors.
+  private final int maxTotalEntries;
+
+  // The total number of entries currently referenced by cursors.
+  private int totalEntries;
+
+  // The maximum length of time in milliseconds that a cursor may remain idle.
+  private final long maxIdleTimeMillis;
+
+
+
+  /**
+   * Creates a new search cursor cache with the default settings.
+   */
+  InMemorySearchCursorCache()
+  {
+    this(DEFAULT_MAX_CURSORS, DEFAULT_MAX_TOTAL_ENTRIES,
+         DEFAULT_MAX_IDLE_TIME_MILLIS);
+  }
+
+
+
+  /**
+   * Creates a new search cursor cache with the provided settings.
+   *
+   * @param  maxCursors         The maximum number of cursors that may be held
+   *                            in the cache.  A value that is less than or
+   *                            equal to zero indicates that no cursors should
+   *                            be cached.
+   * @param  maxTotalEntries    The maximum total number of entries that may be
+   *                            referenced by all of the cursors held in the
+   *                            cache.
+   * @param  maxIdleTimeMillis  The maximum length of time in milliseconds that
+   *                            a cursor may remain in the cache without being
+   *                            used.
+   */
+  InMemorySearchCursorCache(final int maxCursors, final int maxTotalEntries,
+                            final long maxIdleTimeMillis)
+  {
+    this.maxCursors        = maxCursors;
+    this.maxTotalEntries   = maxTotalEntries;
+    this.maxIdleTimeMillis = maxIdleTimeMillis;
+
+    cursors = new LinkedHashMap<>(
+         StaticUtils.computeMapCapacity(Math.max(1, maxCursors)), 0.75f, true);
+    totalEntries = 0;
+  }
+
+
+
+  /**
+   * Creates a new cursor with the provided information and adds it to the
+   * cache.
+   *
+   * @param  signature   A string that identifies the search that produced the
+   *                     results.  A cursor will only be returned for a request
+   *                     with the same signature.  It must not be {@code null}.
+   * @param  owner       A string that identifies the client connection and
+   *                     authorization identity for which the search was
+   *                     processed.  It must not be {@code null}.
+   * @param  entries     The filtered and sorted list of entries that match the
+   *                     search.  It must not be {@code null}, and it must not
+   *                     be altered after it has been provided to this method.
+   * @param  references  The list of search result references for the search.
+   *                     It must not be {@code null}, and it must not be altered
+   *                     after it has been provided to this method.
+   *
+   * @return  The cursor that was created, or {@code null} if the cursor could
+   *          not be cached (for example, because the set of results is too
+   *          large).
+   */
+  synchronized Cursor put(final String signature, final String owner,
+                          final List<Entry> entries,
+                          final List<SearchResultReference> references)
+  {
+    if ((maxCursors <= 0) || (entries.size() > maxTotalEntries))
+    {
+      return null;
+    }
+
+    final long currentTime = System.currentTimeMillis();
+    removeExpiredCursors(currentTime);
+
+    final Cursor cursor = new Cursor(UUID.randomUUID().toString(), signature,
+         owner, entries, references, currentTime);
+    cursors.put(cursor.getID(), cursor);
+    totalEntries += entries.size();
+
+    final Iterator<Cursor> iterator = cursors.values().iterator();
+    while (((cursors.size() > maxCursors) ||
+            (totalEntries > maxTotalEntries)) && iterator.hasNext())
+    {
+      totalEntries -= iterator.next().getEntries().size();
+      iterator.remove();
+    }
+
+    return cursor;
+  }
+
+
+
+  /**
+   * Retrieves the cursor with the specified ID, if it is still available and
+   * was created for a search with the same signature.
+   *
+   * @param  id         The ID of the cursor to retrieve.  It must not be
+   *                    {@code null}.
+   * @param  owner      A string that identifies the client connection and
+   *                    authorization identity for the request in which the
+   *                    cursor is to be used.  It must not be {@code null}.
+   * @param  signature  The signature of the search for which the cursor is to
+   *                    be used.  It must not be {@code null}.
+   *
+   * @return  The requested cursor, or {@code null} if it is not available.
+   *
+   * @throws  LDAPException  If the cursor exists but was created for a
+   *                         different client connection or authorization
+   *                         identity.
+   */
+  synchronized Cursor get(final String id, final String owner,
+                          final String signature)
+         throws LDAPException
+  {
+    final long currentTime = System.currentTimeMillis();
+    removeExpiredCursors(currentTime);
+
+    final Cursor cursor = cursors.get(id);
+    if (cursor == null)
+    {
+      return null;
+    }
+
+    if (! cursor.getOwner().equals(owner))
+    {
+      throw new LDAPException(ResultCode.UNWILLING_TO_PERFORM,
+           ERR_MEM_HANDLER_SEARCH_CURSOR_WRONG_OWNER.get());
+    }
+
+    if (! cursor.getSignature().equals(signature))
+    {
+      return null;
+    }
+
+    cursor.setLastAccessTime(currentTime);
+    return cursor;
+  }
+
+
+
+  /**
+   * Removes the cursor with the specified ID from the cache.
+   *
+   * @param  id  The ID of the cursor to remove.  It must not be {@code null}.
+   */
+  synchronized void remove(final String id)
+  {
+    final Cursor cursor = cursors.remove(id);
+    if (cursor != null)
+    {
+      totalEntries -= cursor.getEntries().size();
+    }
+  }
+
+
+
+  /**
+   * Removes all cursors from the cache.
+   */
+  synchronized void clear()
+  {
+    if (! cursors.isEmpty())
+    {
+      cursors.clear();
+      totalEntries = 0;
+    }
+  }
+
+
+
+  /**
+   * Retrieves the number of cursors currently held in the cache.
+   *
+   * @return  The number of cursors currently held in the cache.
+   */
+  synchronized int size()
+  {
+    return cursors.size();
+  }
+
+
+
+  /**
+   * Removes any cursors that have not been used within the maximum idle time.
+   * This method must only be called while synchronized on this cache.
+   *
+   * @param  currentTime  The current time in milliseconds.
+   */
+  private void removeExpiredCursors(final long currentTime)
+  {
+    final Iterator<Cursor> iterator = cursors.values().iterator();
+    while (iterator.hasNext())
+    {
+      final Cursor cursor = iterator.next();
+      if ((currentTime - cursor.getLastAccessTime()) <= maxIdleTimeMillis)
+      {
+        // Cursors are held in least-recently-used order, so none of the
+        // remaining cursors can have expired.
+        return;
+      }
+
+      totalEntries -= cursor.getEntries().size();
+      iterator.remove();
+    }
+  }
+
+
+
+  /**
+   * This class provides a data structure that holds the results of a search
+   * for use in processing subsequent requests in the same series.
+   */
+  @Mutable()
+  @ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+  static final class Cursor
+          implements Serializable
+  {
+    /**
+     * The serial version UID for this serializable class.
+     */
+    private static final long serialVersionUID = -3318760519473208255L;
+
+
+
+    // The list of entries that match the search.
+    private final List<Entry> entries;
+
+    // The list of search result references for the search.
+    private final List<SearchResultReference> references;
+
+    // The time that the cursor was last used.
+    private volatile long lastAccessTime;
+
+    // The ID for this cursor.
+    private final String id;
+
+    // The client connection and authorization identity that own the cursor.
+    private final String owner;
+
+    // The signature of the search that produced the results.
+    private final String signature;
+
+
+
+    /**
+     * Creates a new cursor with the provided information.
+     *
+     * @param  id              The ID for this cursor.
+     * @param  signature       The signature of the search that produced the
+     *                         results.
+     * @param  owner           The client connection and authorization
+     *                         identity that own the cursor.
+     * @param  entries         The list of entries that match the search.
+     * @param  references      The list of search result references for the
+     *                         search.
+     * @param  lastAccessTime  The time that the cursor was last used.
+     */
+    private Cursor(final String id, final String signature,
+                   final String owner, final List<Entry> entries,
+                   final List<SearchResultReference> references,
+                   final long lastAccessTime)
+    {
+      this.id             = id;
+      this.signature      = signature;
+      this.owner          = owner;
+      this.entries        = Collections.unmodifiableList(entries);
+      this.references     = Collections.unmodifiableList(references);
+      this.lastAccessTime = lastAccessTime;
+    }
+
+
+
+    /**
+     * Retrieves the ID for this cursor.
+     *
+     * @return  The ID for this cursor.
+     */
+    String getID()
+    {
+      return id;
+    }
+
+
+
+    /**
+     * Retrieves the signature of the search that produced the results.
+     *
+     * @return  The signature of the search that produced the results.
+     */
+    String getSignature()
+    {
+      return signature;
+    }
+
+
+
+    /**
+     * Retrieves a string that identifies the client connection and
+     * authorization identity that own the cursor.
+     *
+     * @return  A string that identifies the client connection and authorization
+     *          identity that own the cursor.
+     */
+    String getOwner()
+    {
+      return owner;
+    }
+
+
+
+    /**
+     * Retrieves the list of entries that match the search, in the order in
+     * which they should be returned.
+     *
+     * @return  The list of entries that match the search.
+     */
+    List<Entry> getEntries()
+    {
+      return entries;
+    }
+
+
+
+    /**
+     * Retrieves the list of search result references for the search.
+     *
+     * @return  The list of search result references for the search.
+     */
+    List<SearchResultReference> getReferences()
+    {
+      return references;
+    }
+
+
+
+    /**
+     * Retrieves the time that the cursor was last used.
+     *
+     * @return  The time that the cursor was last used.
+     */
+    long getLastAccessTime()
+    {
+      return lastAccessTime;
+    }
+
+
+
+    /**
+     * Updates the time that the cursor was last used.
+     *
+     * @param  lastAccessTime  The time that the cursor was last used.
+     */
+    void setLastAccessTime(final long lastAccessTime)
+    {
+      this.lastAccessTime = lastAccessTime;
+    }
+  }
+}
@@ -24,12 +24,16 @@ package com.unboundid.ldap.listener;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.channels.ServerSocketChannel;
 import java.util.ArrayList;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -40,6 +44,7 @@ import com.unboundid.ldap.sdk.ResultCode;
 import com.unboundid.ldap.sdk.extensions.NoticeOfDisconnectionExtendedResult;
 import com.unboundid.util.Debug;
 import com.unboundid.util.InternalUseOnly;
+import com.unboundid.util.LDAPSDKThreadFactory;
 import com.unboundid.util.StaticUtils;
 import com.unboundid.util.ThreadSafety;
 import com.unboundid.util.ThreadSafetyLevel;
@@ -103,6 +108,14 @@ public final class LDAPListener
   // is established.
   private final AtomicLong nextConnectionID;
 
+  // The executor used to process requests from a single connection
+  // concurrently, if any.
+  private final AtomicReference<ExecutorService> concurrentRequestExecutor;
+
+  // The selector used to manage idle client connections, if any.
+  private final AtomicReference<LDAPListenerConnectionSelector>
+       connectionSelector;
+
   // The server socket that is being used to accept connections.
   private final AtomicReference<ServerSocket> serverSocket;
 
@@ -135,6 +148,8 @@ public final class LDAPListener
     stopRequested = new AtomicBoolean(false);
     nextConnectionID = new AtomicLong(0L);
     serverSocket = new AtomicReference<>(null);
+    connectionSelector = new AtomicReference<>(null);
+    concurrentRequestExecutor = new AtomicReference<>(null);
     thread = new AtomicReference<>(null);
     startLatch = new CountDownLatch(1);
     establishedConnections =
@@ -156,7 +171,28 @@ public final class LDAPListener
     final ServerSocketFactory f = config.getServerSocketFactory();
     final InetAddress a = config.getListenAddress();
     final int p = config.getListenPort();
-    if (a == null)
+    final int numRequestProcessingThreads =
+         config.getNumRequestProcessingThreads();
+    if ((numRequestProcessingThreads > 0) &&
+        (f == ServerSocketFactory.getDefault()))
+    {
+      // Sockets need to have an associated channel in order to be managed by
+      // a selector, and the default factory doesn't create them that way.
+      final ServerSocketChannel channel = ServerSocketChannel.open();
+      try
+      {
+        channel.socket().bind(new InetSocketAddress(a, p), 128);
+      }
+      catch (final IOException ioe)
+      {
+        Debug.debugException(ioe);
+        channel.close();
+        throw ioe;
+      }
+
+      serverSocket.set(channel.socket());
+    }
+    else if (a == null)
     {
       serverSocket.set(f.createServerSocket(config.getListenPort(), 128));
     }
@@ -174,6 +210,38 @@ public final class LDAPListener
     setName("LDAP Listener Thread (listening on port " +
          serverSocket.get().getLocalPort() + ')');
 
+    if (serverSocket.get().getChannel() != null)
+    {
+      final LDAPListenerConnectionSelector selector;
+      try
+      {
+        selector = new LDAPListenerConnectionSelector(
+             "LDAP Listener Connection Selector (listening on port " +
+                  serverSocket.get().getLocalPort() + ')',
+             numRequestProcessingThreads);
+      }
+      catch (final IOException ioe)
+      {
+        Debug.debugException(ioe);
+        serverSocket.getAndSet(null).close();
+        throw ioe;
+      }
+
+      connectionSelector.set(selector);
+      selector.start();
+    }
+
+    if (config.getMaxConcurrentRequestsPerConnection() > 1)
+    {
+      // The number of threads is effectively bounded by the number of
+      // connections and the number of concurrent requests allowed for each.
+      concurrentRequestExecutor.set(Executors.newCachedThreadPool(
+           new LDAPSDKThreadFactory(
+                "LDAP Listener Concurrent Request Processor (listening on " +
+                     "port " + serverSocket.get().getLocalPort() + ')',
+                true)));
+    }
+
     start();
 
     try
@@ -258,7 +326,7 @@ public final class LDAPListener
         }
 
         establishedConnections.put(c.getConnectionID(), c);
-        c.start();
+        c.startReadingRequests();
       }
     }
     finally
@@ -389,6 +457,23 @@ public final class LDAPListener
     {
       closeAllConnections(false);
     }
+
+    // Any connections that remain established will be given dedicated threads
+    // when the selector is shut down.
+    final LDAPListenerConnectionSelector selector =
+         connectionSelector.getAndSet(null);
+    if (selector != null)
+    {
+      selector.shutDown();
+    }
+
+    // Requests read on any connections that remain established will then be
+    // processed by the thread that read them.
+    final ExecutorService executor = concurrentRequestExecutor.getAndSet(null);
+    if (executor != null)
+    {
+      executor.shutdown();
+    }
   }
 
 
@@ -454,6 +539,36 @@ public final class LDAPListener
 
 
 
+  /**
+   * Retrieves the selector that should be used to manage idle client
+   * connections accepted by this listener.
+   *
+   * @return  The selector that should be used to manage idle client
+   *          connections, or {@code null} if each connection should use a
+   *          dedicated thread.
+   */
+  LDAPListenerConnectionSelector getConnectionSelector()
+  {
+    return connectionSelector.get();
+  }
+
+
+
+  /**
+   * Retrieves the executor that should be used to process requests from a
+   * single client connection concurrently.
+   *
+   * @return  The executor that should be used to process requests from a
+   *          single client connection concurrently, or {@code null} if each
+   *          connection should process its requests one at a time.
+   */
+  ExecutorService getConcurrentRequestExecutor()
+  {
+    return concurrentRequestExecutor.get();
+  }
+
+
+
   /**
    * Retrieves the connection ID that should be used for the next connection
    * accepted by this listener.
@@ -22,13 +22,23 @@ package com.unboundid.ldap.listener;
 
 
 
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
@@ -74,6 +84,20 @@ import static com.unboundid.ldap.listener.ListenerMessages.*;
  * connection has its own thread that will be used to read requests from the
  * client, and connections created outside of an {@code LDAPListener} instance,
  * then the thread must be explicitly started.
+ * <BR><BR>
+ * If the listener has been configured with a nonzero number of request
+ * processing threads (see
+ * {@link LDAPListenerConfig#getNumRequestProcessingThreads}), then connections
+ * accepted through the JVM-default server socket factory will not use their
+ * own thread.  Instead, they will be monitored by a selector while idle and
+ * their requests will be processed by a shared pool of threads.  The request
+ * handler will be invoked in exactly the same way in either case.  Data read
+ * from such a connection will be buffered until a complete request is
+ * available, so that a client that sends only part of a request will not tie
+ * up one of the shared threads.  However, a request that is larger than
+ * {@value #MAX_INBOUND_BUFFER_SIZE} bytes cannot be buffered, so a connection
+ * that sends such a request will be given its own thread, and that thread will
+ * block until the rest of the request arrives.
  */
 @ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
 public final class LDAPListenerClientConnection
@@ -87,16 +111,89 @@ public final class LDAPListenerClientConnection
 
 
 
+  /**
+   * The thread-local buffers used to encode responses when requests are
+   * processed concurrently.
+   */
+  private static final ThreadLocal<ASN1Buffer> RESPONSE_BUFFERS =
+       new ThreadLocal<>();
+
+
+
+  /**
+   * The initial size in bytes of the buffer used to hold data read from a
+   * client connection that is managed by a selector.
+   */
+  private static final int INITIAL_INBOUND_BUFFER_SIZE = 8192;
+
+
+
+  /**
+   * The maximum size in bytes of the buffer used to hold data read from a
+   * client connection that is managed by a selector.  A connection that sends a
+   * larger request will be given a dedicated thread.
+   */
+  static final int MAX_INBOUND_BUFFER_SIZE = 1_048_576;
+
+
+
+  /**
+   * The maximum number of bytes of encoded responses that may be queued for a
+   * connection when requests are processed concurrently.  Threads attempting to
+   * queue additional responses will block until enough of the queued responses
+   * have been written to the client.
+   */
+  static final int MAX_QUEUED_RESPONSE_BYTES = 1_048_576;
+
+
+
+  /**
+   * The maximum number of queued responses that will be written to a socket
+   * channel with a single gathering write.
+   */
+  private static final int MAX_RESPONSES_PER_WRITE = 64;
+
+
+
   // The buffer used to hold responses to be sent to the client.
   private final ASN1Buffer asn1Buffer;
 
   // The ASN.1 stream reader used to read requests from the client.
   private volatile ASN1StreamReader asn1Reader;
 
+  // Indicates whether a thread is currently writing queued responses to the
+  // client.
+  private final AtomicBoolean outboundWriterActive;
+
   // Indicates whether to suppress the next call to sendMessage to send a
   // response to the client.
   private final AtomicBoolean suppressNextResponse;
 
+  // The message IDs of the requests currently being processed concurrently.  A
+  // request that is abandoned will be removed so that its response will not be
+  // sent.
+  private final ConcurrentHashMap<Integer,Boolean> activeRequests;
+
+  // The encoded responses waiting to be written to the client when requests
+  // are processed concurrently.
+  private final ConcurrentLinkedQueue<ByteBuffer> outboundMessages;
+
+  // The semaphore used to limit the number of bytes of encoded responses that
+  // may be held in the outbound message queue.  One permit is held for each
+  // queued byte, up to a maximum of MAX_QUEUED_RESPONSE_BYTES per response.
+  private final Semaphore outboundBytePermits;
+
+  // The executor used to process requests concurrently, if any.
+  private final ExecutorService concurrentRequestExecutor;
+
+  // The number of permits available for the maximum number of requests that
+  // may be processed concurrently.
+  private final int maxConcurrentRequests;
+
+  // The semaphore used to limit the number of requests that may be processed
+  // concurrently.
+  private final Semaphore concurrentRequestPermits;
+
   // The set of intermediate response transformers for this connection.
   private final CopyOnWriteArrayList<IntermediateResponseTransformer>
        intermediateResponseTransformers;
@@ -121,12 +218,30 @@ public final class LDAPListenerClientConnection
   // The connection ID assigned to this connection.
   private final long connectionID;
 
+  // The buffer that holds data read from the client while this connection is
+  // managed by a selector.  Requests will only be read from this buffer once
+  // they have been received in their entirety.  It will only be accessed by
+  // the thread that is currently processing requests for this connection.
+  private ByteBuffer inboundBuffer;
+
+  // The selector that manages this connection while it is idle, if any.  It
+  // will be cleared if the connection is converted to use a dedicated thread.
+  private volatile LDAPListenerConnectionSelector connectionSelector;
+
   // The output stream used to write responses to the client.
   private volatile OutputStream outputStream;
 
   // The socket used to communicate with the client.
   private volatile Socket socket;
 
+  // The channel associated with the socket if this connection was initially
+  // managed by a selector, or null if it has always used a dedicated thread.
+  private final SocketChannel socketChannel;
+
+  // The output stream that writes directly to the socket channel, or null if
+  // this connection has always used a dedicated thread.
+  private final SocketChannelOutputStream channelOutputStream;
+
 
 
   /**
@@ -173,6 +288,7 @@ public final class LDAPListenerClientConnection
 
     asn1Buffer           = new ASN1Buffer();
     suppressNextResponse = new AtomicBoolean(false);
+    outboundWriterActive = new AtomicBoolean(false);
 
     intermediateResponseTransformers = new CopyOnWriteArrayList<>();
     searchEntryTransformers = new CopyOnWriteArrayList<>();
@@ -187,6 +303,52 @@ public final class LDAPListenerClientConnection
       connectionID = listener.nextConnectionID();
     }
 
+    if (listener == null)
+    {
+      concurrentRequestExecutor = null;
+    }
+    else
+    {
+      concurrentRequestExecutor = listener.getConcurrentRequestExecutor();
+    }
+
+    if (concurrentRequestExecutor == null)
+    {
+      maxConcurrentRequests    = 1;
+      concurrentRequestPermits = null;
+      activeRequests           = null;
+      outboundMessages         = null;
+      outboundBytePermits      = null;
+    }
+    else
+    {
+      maxConcurrentRequests =
+           listener.getConfig().getMaxConcurrentRequestsPerConnection();
+      concurrentRequestPermits = new Semaphore(maxConcurrentRequests);
+      activeRequests = new ConcurrentHashMap<>(
+           StaticUtils.computeMapCapacity(maxConcurrentRequests));
+      outboundMessages = new ConcurrentLinkedQueue<>();
+      outboundBytePermits = new Semaphore(MAX_QUEUED_RESPONSE_BYTES);
+    }
+
+    if ((listener == null) || (socket.getChannel() == null))
+    {
+      connectionSelector = null;
+    }
+    else
+    {
+      connectionSelector = listener.getConnectionSelector();
+    }
+
+    if (connectionSelector == null)
+    {
+      socketChannel = null;
+    }
+    else
+    {
+      socketChannel = socket.getChannel();
+    }
+
     try
     {
       final LDAPListenerConfig config;
@@ -210,7 +372,17 @@ public final class LDAPListenerClientConnection
         socket.setSendBufferSize(sendBufferSize);
       }
 
-      asn1Reader = new ASN1StreamReader(socket.getInputStream());
+      if (socketChannel == null)
+      {
+        inboundBuffer = null;
+        asn1Reader = new ASN1StreamReader(socket.getInputStream());
+      }
+      else
+      {
+        inboundBuffer = ByteBuffer.allocate(INITIAL_INBOUND_BUFFER_SIZE);
+        inboundBuffer.flip();
+        asn1Reader = new ASN1StreamReader(new InboundBufferInputStream());
+      }
     }
     catch (final IOException ioe)
     {
@@ -233,7 +405,17 @@ public final class LDAPListenerClientConnection
 
     try
     {
-      outputStream = socket.getOutputStream();
+      if (socketChannel == null)
+      {
+        channelOutputStream = null;
+        outputStream = socket.getOutputStream();
+      }
+      else
+      {
+        channelOutputStream = new SocketChannelOutputStream(socketChannel,
+             listener.getConfig().getWriteTimeoutMillis());
+        outputStream = channelOutputStream;
+      }
     }
     catch (final IOException ioe)
     {
@@ -298,360 +480,1058 @@ public final class LDAPListenerClientConnection
         Debug.debugException(e);
       }
 
-      throw le;
+      throw le;
+    }
+  }
+
+
+
+  /**
+   * Closes the connection to the client.
+   *
+   * @throws  IOException  If a problem occurs while closing the socket.
+   */
+  @Override()
+  public synchronized void close()
+         throws IOException
+  {
+    try
+    {
+      requestHandler.closeInstance();
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+    }
+
+    try
+    {
+      asn1Reader.close();
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+    }
+
+    try
+    {
+      outputStream.close();
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+    }
+
+    if ((channelOutputStream != null) && (channelOutputStream != outputStream))
+    {
+      // The connection has been converted to use TLS, but the selector used
+      // to wait for the channel to become writable must still be released.
+      try
+      {
+        channelOutputStream.close();
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+      }
+    }
+
+    try
+    {
+      socket.close();
+    }
+    finally
+    {
+      // A connection that is waiting in a selector has no thread that will
+      // notice the closure, so the listener must be notified here.
+      if ((socketChannel != null) && (listener != null))
+      {
+        listener.connectionClosed(this);
+      }
+    }
+  }
+
+
+
+  /**
+   * Closes the connection to the client as a result of an exception encountered
+   * during processing.  Any associated exception handler will be notified
+   * prior to the connection closure.
+   *
+   * @param  le  The exception providing information about the reason that this
+   *             connection will be terminated.
+   */
+  void close(final LDAPException le)
+  {
+    if (exceptionHandler == null)
+    {
+      Debug.debugException(le);
+    }
+    else
+    {
+      try
+      {
+        exceptionHandler.connectionTerminated(this, le);
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+      }
+    }
+
+    try
+    {
+      sendUnsolicitedNotification(new NoticeOfDisconnectionExtendedResult(le));
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+    }
+
+    try
+    {
+      close();
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+    }
+  }
+
+
+
+  /**
+   * Operates in a loop, waiting for a request to arrive from the client and
+   * handing it off to the request handler for processing.  This method is for
+   * internal use only and must not be invoked by external callers.
+   */
+  @InternalUseOnly()
+  @Override()
+  public void run()
+  {
+    try
+    {
+      while (processNextRequest())
+      {
+        // No action is required.
+      }
+    }
+    finally
+    {
+      if (listener != null)
+      {
+        listener.connectionClosed(this);
+      }
+    }
+  }
+
+
+
+  /**
+   * Reads the next request from the client, blocking if necessary until it is
+   * available, and hands it off to the request handler for processing.
+   *
+   * @return  {@code true} if the connection remains established and additional
+   *          requests may be read, or {@code false} if the connection has been
+   *          closed.
+   */
+  private boolean processNextRequest()
+  {
+    final LDAPMessage requestMessage;
+    try
+    {
+      requestMessage = LDAPMessage.readFrom(asn1Reader, false);
+      if (requestMessage == null)
+      {
+        // This indicates that the client has closed the connection without
+        // an unbind request.  It's not all that nice, but it isn't an error
+        // so we won't notify the exception handler.
+        try
+        {
+          close();
+        }
+        catch (final IOException ioe)
+        {
+          Debug.debugException(ioe);
+        }
+
+        return false;
+      }
+    }
+    catch (final LDAPException le)
+    {
+      // This indicates that the client sent a malformed request.
+      Debug.debugException(le);
+      close(le);
+      return false;
+    }
+
+    if (concurrentRequestPermits == null)
+    {
+      return processRequest(requestMessage, false);
+    }
+
+    switch (requestMessage.getProtocolOpType())
+    {
+      case LDAPMessage.PROTOCOL_OP_TYPE_ADD_REQUEST:
+      case LDAPMessage.PROTOCOL_OP_TYPE_COMPARE_REQUEST:
+      case LDAPMessage.PROTOCOL_OP_TYPE_DELETE_REQUEST:
+      case LDAPMessage.PROTOCOL_OP_TYPE_MODIFY_REQUEST:
+      case LDAPMessage.PROTOCOL_OP_TYPE_MODIFY_DN_REQUEST:
+      case LDAPMessage.PROTOCOL_OP_TYPE_SEARCH_REQUEST:
+        return processRequestConcurrently(requestMessage);
+
+      case LDAPMessage.PROTOCOL_OP_TYPE_ABANDON_REQUEST:
+        // If the target request is still in progress, then make sure that its
+        // response is not returned, and let the request handler know about it
+        // right away rather than waiting for outstanding requests to finish.
+        activeRequests.remove(requestMessage.getAbandonRequestProtocolOp().
+             getIDToAbandon());
+        return processRequest(requestMessage, false);
+
+      case LDAPMessage.PROTOCOL_OP_TYPE_UNBIND_REQUEST:
+        // Any requests that are still in progress are implicitly abandoned,
+        // which will stop them from sending any more responses, but the
+        // connection must not be closed until they have finished.
+        activeRequests.clear();
+        concurrentRequestPermits.acquireUninterruptibly(maxConcurrentRequests);
+        try
+        {
+          return processRequest(requestMessage, false);
+        }
+        finally
+        {
+          concurrentRequestPermits.release(maxConcurrentRequests);
+        }
+
+      default:
+        // Bind and extended operations (e.g., StartTLS) may change the state
+        // of the connection, so they must not be processed until all
+        // outstanding requests have completed and their responses have been
+        // sent, and no other requests will be read until they are done.
+        concurrentRequestPermits.acquireUninterruptibly(maxConcurrentRequests);
+        try
+        {
+          synchronized (this)
+          {
+            writeQueuedMessages();
+          }
+
+          return processRequest(requestMessage, false);
+        }
+        catch (final LDAPException le)
+        {
+          Debug.debugException(le);
+          close(le);
+          return false;
+        }
+        finally
+        {
+          concurrentRequestPermits.release(maxConcurrentRequests);
+        }
+    }
+  }
+
+
+
+  /**
+   * Hands the provided request off to the concurrent request executor for
+   * processing, blocking first if necessary until the number of requests in
+   * progress is below the configured maximum.  If the executor is no longer
+   * available, then the request will be processed in the current thread.
+   *
+   * @param  requestMessage  The request message to be processed.
+   *
+   * @return  {@code true} if the connection remains established and additional
+   *          requests may be read, or {@code false} if the connection has been
+   *          closed.
+   */
+  private boolean processRequestConcurrently(final LDAPMessage requestMessage)
+  {
+    final Integer messageID = requestMessage.getMessageID();
+    concurrentRequestPermits.acquireUninterruptibly();
+    activeRequests.put(messageID, Boolean.TRUE);
+
+    try
+    {
+      concurrentRequestExecutor.execute(new Runnable()
+      {
+        @Override()
+        public void run()
+        {
+          try
+          {
+            processRequest(requestMessage, true);
+          }
+          finally
+          {
+            activeRequests.remove(messageID);
+            concurrentRequestPermits.release();
+          }
+        }
+      });
+      return true;
+    }
+    catch (final RejectedExecutionException e)
+    {
+      // The listener has been shut down, but the connection is still
+      // established, so just process the request here.
+      Debug.debugException(e);
+      try
+      {
+        return processRequest(requestMessage, true);
+      }
+      finally
+      {
+        activeRequests.remove(messageID);
+        concurrentRequestPermits.release();
+      }
+    }
+  }
+
+
+
+  /**
+   * Hands the provided request off to the request handler for processing and
+   * sends the response to the client.
+   *
+   * @param  requestMessage  The request message to be processed.
+   * @param  concurrent      Indicates whether the request is being processed
+   *                         concurrently with other requests on the same
+   *                         connection, in which case the response will not be
+   *                         sent if the request was abandoned.
+   *
+   * @return  {@code true} if the connection remains established and additional
+   *          requests may be read, or {@code false} if the connection has been
+   *          closed.
+   */
+  private boolean processRequest(final LDAPMessage requestMessage,
+                                 final boolean concurrent)
+  {
+    try
+    {
+      final int messageID = requestMessage.getMessageID();
+      final List<Control> controls = requestMessage.getControls();
+
+      LDAPMessage responseMessage;
+      switch (requestMessage.getProtocolOpType())
+      {
+        case LDAPMessage.PROTOCOL_OP_TYPE_ABANDON_REQUEST:
+          requestHandler.processAbandonRequest(messageID,
+               requestMessage.getAbandonRequestProtocolOp(), controls);
+          responseMessage = null;
+          break;
+
+        case LDAPMessage.PROTOCOL_OP_TYPE_ADD_REQUEST:
+          try
+          {
+            responseMessage = requestHandler.processAddRequest(messageID,
+                 requestMessage.getAddRequestProtocolOp(), controls);
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+            responseMessage = new LDAPMessage(messageID,
+                 new AddResponseProtocolOp(
+                      ResultCode.OTHER_INT_VALUE, null,
+                      ERR_CONN_REQUEST_HANDLER_FAILURE.get(
+                           StaticUtils.getExceptionMessage(e)),
+                      null));
+          }
+          break;
+
+        case LDAPMessage.PROTOCOL_OP_TYPE_BIND_REQUEST:
+          try
+          {
+            responseMessage = requestHandler.processBindRequest(messageID,
+                 requestMessage.getBindRequestProtocolOp(), controls);
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+            responseMessage = new LDAPMessage(messageID,
+                 new BindResponseProtocolOp(
+                      ResultCode.OTHER_INT_VALUE, null,
+                      ERR_CONN_REQUEST_HANDLER_FAILURE.get(
+                           StaticUtils.getExceptionMessage(e)),
+                      null, null));
+          }
+          break;
+
+        case LDAPMessage.PROTOCOL_OP_TYPE_COMPARE_REQUEST:
+          try
+          {
+            responseMessage = requestHandler.processCompareRequest(
+                 messageID, requestMessage.getCompareRequestProtocolOp(),
+                 controls);
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+            responseMessage = new LDAPMessage(messageID,
+                 new CompareResponseProtocolOp(
+                      ResultCode.OTHER_INT_VALUE, null,
+                      ERR_CONN_REQUEST_HANDLER_FAILURE.get(
+                           StaticUtils.getExceptionMessage(e)),
+                      null));
+          }
+          break;
+
+        case LDAPMessage.PROTOCOL_OP_TYPE_DELETE_REQUEST:
+          try
+          {
+            responseMessage = requestHandler.processDeleteRequest(messageID,
+                 requestMessage.getDeleteRequestProtocolOp(), controls);
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+            responseMessage = new LDAPMessage(messageID,
+                 new DeleteResponseProtocolOp(
+                      ResultCode.OTHER_INT_VALUE, null,
+                      ERR_CONN_REQUEST_HANDLER_FAILURE.get(
+                           StaticUtils.getExceptionMessage(e)),
+                      null));
+          }
+          break;
+
+        case LDAPMessage.PROTOCOL_OP_TYPE_EXTENDED_REQUEST:
+          try
+          {
+            responseMessage = requestHandler.processExtendedRequest(
+                 messageID, requestMessage.getExtendedRequestProtocolOp(),
+                 controls);
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+            responseMessage = new LDAPMessage(messageID,
+                 new ExtendedResponseProtocolOp(
+                      ResultCode.OTHER_INT_VALUE, null,
+                      ERR_CONN_REQUEST_HANDLER_FAILURE.get(
+                           StaticUtils.getExceptionMessage(e)),
+                      null, null, null));
+          }
+          break;
+
+        case LDAPMessage.PROTOCOL_OP_TYPE_MODIFY_REQUEST:
+          try
+          {
+            responseMessage = requestHandler.processModifyRequest(messageID,
+                 requestMessage.getModifyRequestProtocolOp(), controls);
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+            responseMessage = new LDAPMessage(messageID,
+                 new ModifyResponseProtocolOp(
+                      ResultCode.OTHER_INT_VALUE, null,
+                      ERR_CONN_REQUEST_HANDLER_FAILURE.get(
+                           StaticUtils.getExceptionMessage(e)),
+                      null));
+          }
+          break;
+
+        case LDAPMessage.PROTOCOL_OP_TYPE_MODIFY_DN_REQUEST:
+          try
+          {
+            responseMessage = requestHandler.processModifyDNRequest(
+                 messageID, requestMessage.getModifyDNRequestProtocolOp(),
+                 controls);
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+            responseMessage = new LDAPMessage(messageID,
+                 new ModifyDNResponseProtocolOp(
+                      ResultCode.OTHER_INT_VALUE, null,
+                      ERR_CONN_REQUEST_HANDLER_FAILURE.get(
+                           StaticUtils.getExceptionMessage(e)),
+                      null));
+          }
+          break;
+
+        case LDAPMessage.PROTOCOL_OP_TYPE_SEARCH_REQUEST:
+          try
+          {
+            responseMessage = requestHandler.processSearchRequest(messageID,
+                 requestMessage.getSearchRequestProtocolOp(), controls);
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+            responseMessage = new LDAPMessage(messageID,
+                 new SearchResultDoneProtocolOp(
+                      ResultCode.OTHER_INT_VALUE, null,
+                      ERR_CONN_REQUEST_HANDLER_FAILURE.get(
+                           StaticUtils.getExceptionMessage(e)),
+                      null));
+          }
+          break;
+
+        case LDAPMessage.PROTOCOL_OP_TYPE_UNBIND_REQUEST:
+          requestHandler.processUnbindRequest(messageID,
+               requestMessage.getUnbindRequestProtocolOp(), controls);
+          close();
+          return false;
+
+        default:
+          close(new LDAPException(ResultCode.PROTOCOL_ERROR,
+               ERR_CONN_INVALID_PROTOCOL_OP_TYPE.get(StaticUtils.toHex(
+                    requestMessage.getProtocolOpType()))));
+          return false;
+      }
+
+      if (concurrent && (! activeRequests.containsKey(messageID)))
+      {
+        // The request was abandoned while it was being processed.
+        responseMessage = null;
+      }
+
+      if (responseMessage != null)
+      {
+        try
+        {
+          sendMessage(responseMessage);
+        }
+        catch (final LDAPException le)
+        {
+          Debug.debugException(le);
+          close(le);
+          return false;
+        }
+      }
+    }
+    catch (final Throwable t)
+    {
+      close(new LDAPException(ResultCode.LOCAL_ERROR,
+           ERR_CONN_EXCEPTION_IN_REQUEST_HANDLER.get(
+                String.valueOf(requestMessage),
+                StaticUtils.getExceptionMessage(t))));
+      StaticUtils.throwErrorOrRuntimeException(t);
+    }
+
+    return true;
+  }
+
+
+
+  /**
+   * Starts reading requests from the client.  If this connection is managed by
+   * a selector, then it will be registered with that selector.  Otherwise, the
+   * connection's dedicated thread will be started.
+   */
+  void startReadingRequests()
+  {
+    if (connectionSelector == null)
+    {
+      start();
+    }
+    else
+    {
+      awaitNextRequest();
+    }
+  }
+
+
+
+  /**
+   * Reads whatever data is immediately available from the client and processes
+   * any complete requests that it contains, and then returns the connection to
+   * the selector to wait for more.  Data for a partial request will be held
+   * until the rest of the request arrives, so the request processing thread
+   * will never block waiting on the client.  This will be invoked by a selector
+   * request processing thread once data has arrived from the client.
+   */
+  void processAvailableRequests()
+  {
+    while (true)
+    {
+      final boolean endOfStream;
+      try
+      {
+        endOfStream = (! readAvailableData());
+      }
+      catch (final IOException ioe)
+      {
+        Debug.debugException(ioe);
+        close(new LDAPException(ResultCode.SERVER_DOWN,
+             ERR_CONN_READ_IO_EXCEPTION.get(
+                  StaticUtils.getExceptionMessage(ioe)),
+             ioe));
+        return;
+      }
+
+      // If the buffer was filled, then there may be more data to read once the
+      // complete requests it contains have been processed.
+      final boolean bufferFilled =
+           (inboundBuffer.limit() == inboundBuffer.capacity());
+
+      // If the client has closed the connection, then read whatever is left
+      // in the buffer, which will cause the connection to be closed once it
+      // has all been consumed.
+      while (endOfStream || (getNextRequestSize() <= inboundBuffer.remaining()))
+      {
+        if (! processNextRequest())
+        {
+          return;
+        }
+
+        if (connectionSelector == null)
+        {
+          // The connection was converted to use TLS while processing the
+          // request, so it can no longer be managed by the selector.
+          start();
+          return;
+        }
+      }
+
+      final long nextRequestSize = getNextRequestSize();
+      if (nextRequestSize > inboundBuffer.capacity())
+      {
+        if (nextRequestSize > MAX_INBOUND_BUFFER_SIZE)
+        {
+          useDedicatedThread();
+          return;
+        }
+
+        final ByteBuffer newBuffer =
+             ByteBuffer.allocate((int) nextRequestSize);
+        newBuffer.put(inboundBuffer);
+        newBuffer.flip();
+        inboundBuffer = newBuffer;
+      }
+      else if (! bufferFilled)
+      {
+        break;
+      }
+    }
+
+    if ((! inboundBuffer.hasRemaining()) &&
+        (inboundBuffer.capacity() > INITIAL_INBOUND_BUFFER_SIZE))
+    {
+      // Don't hold on to a large buffer while the connection is idle.
+      inboundBuffer = ByteBuffer.allocate(INITIAL_INBOUND_BUFFER_SIZE);
+      inboundBuffer.flip();
+    }
+
+    awaitNextRequest();
+  }
+
+
+
+  /**
+   * Reads as much data as is immediately available from the client into the
+   * inbound buffer without blocking, stopping if the buffer becomes full.
+   *
+   * @return  {@code true} if the connection is still established, or
+   *          {@code false} if the client has closed it.
+   *
+   * @throws  IOException  If a problem occurs while reading from the client.
+   */
+  private boolean readAvailableData()
+          throws IOException
+  {
+    inboundBuffer.compact();
+    try
+    {
+      while (inboundBuffer.hasRemaining())
+      {
+        final int bytesRead = socketChannel.read(inboundBuffer);
+        if (bytesRead < 0)
+        {
+          return false;
+        }
+        else if (bytesRead == 0)
+        {
+          break;
+        }
+      }
+
+      return true;
+    }
+    finally
+    {
+      inboundBuffer.flip();
+    }
+  }
+
+
+
+  /**
+   * Examines the BER type and length at the start of the inbound buffer to
+   * determine the total size of the next request.
+   *
+   * @return  The total size in bytes of the next request, or
+   *          {@code Long.MAX_VALUE} if not enough data has been read to
+   *          determine it.  If the length is malformed, then zero will be
+   *          returned so that the request will be read and rejected.
+   */
+  private long getNextRequestSize()
+  {
+    final int position = inboundBuffer.position();
+    final int available = inboundBuffer.remaining();
+    if (available < 2)
+    {
+      return Long.MAX_VALUE;
+    }
+
+    final int firstLengthByte = inboundBuffer.get(position + 1) & 0xFF;
+    if ((firstLengthByte & 0x80) == 0x00)
+    {
+      return 2L + firstLengthByte;
+    }
+
+    final int numLengthBytes = firstLengthByte & 0x7F;
+    if ((numLengthBytes < 1) || (numLengthBytes > 4))
+    {
+      return 0L;
+    }
+    else if (available < (2 + numLengthBytes))
+    {
+      return Long.MAX_VALUE;
+    }
+
+    long length = 0L;
+    for (int i=0; i < numLengthBytes; i++)
+    {
+      length <<= 8;
+      length |= (inboundBuffer.get(position + 2 + i) & 0xFF);
     }
+
+    return 2L + numLengthBytes + length;
   }
 
 
 
   /**
-   * Closes the connection to the client.
-   *
-   * @throws  IOException  If a problem occurs while closing the socket.
+   * Places the channel in non-blocking mode and registers it with the
+   * selector, falling back to a dedicated thread if the selector is no longer
+   * available.
    */
-  @Override()
-  public synchronized void close()
-         throws IOException
+  private void awaitNextRequest()
   {
+    final LDAPListenerConnectionSelector selector = connectionSelector;
     try
     {
-      requestHandler.closeInstance();
+      synchronized (this)
+      {
+        channelOutputStream.configureBlocking(false);
+      }
     }
-    catch (final Exception e)
+    catch (final IOException ioe)
     {
-      Debug.debugException(e);
+      // This should only happen if the connection has already been closed.
+      Debug.debugException(ioe);
+      closeQuietly();
+      return;
+    }
+
+    if ((selector == null) || (! selector.register(this)))
+    {
+      useDedicatedThread();
     }
+  }
+
 
+
+  /**
+   * Stops managing this connection with a selector and starts the connection's
+   * dedicated thread to read and process requests.  This must only be invoked
+   * while the connection is not waiting for the selector to report that a
+   * request is available and is not being processed by a selector request
+   * processing thread.
+   */
+  void useDedicatedThread()
+  {
+    final LDAPListenerConnectionSelector selector = connectionSelector;
     try
     {
-      asn1Reader.close();
+      synchronized (this)
+      {
+        connectionSelector = null;
+        if (selector != null)
+        {
+          selector.deregister(this);
+        }
+        channelOutputStream.configureBlocking(true);
+
+        // Any data that has already been read from the client must be
+        // consumed before reading from the socket.
+        final byte[] bufferedData = new byte[inboundBuffer.remaining()];
+        inboundBuffer.get(bufferedData);
+        asn1Reader = new ASN1StreamReader(new SequenceInputStream(
+             new ByteArrayInputStream(bufferedData),
+             socket.getInputStream()));
+      }
     }
-    catch (final Exception e)
+    catch (final IOException ioe)
     {
-      Debug.debugException(e);
+      // This should only happen if the connection has already been closed.
+      Debug.debugException(ioe);
+      closeQuietly();
+      return;
     }
 
+    start();
+  }
+
+
+
+  /**
+   * Retrieves the socket channel used to communicate with the client if this
+   * connection was accepted for management by a selector.
+   *
+   * @return  The socket channel used to communicate with the client, or
+   *          {@code null} if this connection has always used a dedicated
+   *          thread.
+   */
+  SocketChannel getSocketChannel()
+  {
+    return socketChannel;
+  }
+
+
+
+  /**
+   * Closes the connection to the client without reporting any exception that
+   * may be encountered in the process.
+   */
+  private void closeQuietly()
+  {
     try
     {
-      outputStream.close();
+      close();
     }
     catch (final Exception e)
     {
       Debug.debugException(e);
     }
-
-    socket.close();
   }
 
 
 
   /**
-   * Closes the connection to the client as a result of an exception encountered
-   * during processing.  Any associated exception handler will be notified
-   * prior to the connection closure.
+   * Sends the provided message to the client.  If requests are being processed
+   * concurrently, then the message will be encoded in the current thread and
+   * added to a queue of outbound messages, and the queue will be written to the
+   * client by whichever thread is not already blocked waiting on another
+   * thread to do so.  If too many bytes are already queued because the client
+   * is not reading responses quickly enough, then this method will block until
+   * there is room in the queue.
    *
-   * @param  le  The exception providing information about the reason that this
-   *             connection will be terminated.
+   * @param  message  The message to be written to the client.
+   *
+   * @throws  LDAPException  If a problem occurs while attempting to send the
+   *                         response to the client.
    */
-  void close(final LDAPException le)
+  private void sendMessage(final LDAPMessage message)
+          throws LDAPException
   {
-    if (exceptionHandler == null)
+    if (outboundMessages == null)
     {
-      Debug.debugException(le);
+      writeMessage(message);
+      return;
     }
-    else
+
+    if (suppressNextResponse.compareAndSet(true, false))
     {
-      try
-      {
-        exceptionHandler.connectionTerminated(this, le);
-      }
-      catch (final Exception e)
-      {
-        Debug.debugException(e);
-      }
+      return;
     }
 
+    ASN1Buffer buffer = RESPONSE_BUFFERS.get();
+    if (buffer == null)
+    {
+      buffer = new ASN1Buffer();
+      RESPONSE_BUFFERS.set(buffer);
+    }
+
+    buffer.clear();
+
     try
     {
-      sendUnsolicitedNotification(new NoticeOfDisconnectionExtendedResult(le));
+      message.writeTo(buffer);
+
+      final ByteBuffer queuedBuffer = ByteBuffer.wrap(buffer.toByteArray());
+      outboundBytePermits.acquireUninterruptibly(
+           getQueuedBytePermits(queuedBuffer));
+      outboundMessages.add(queuedBuffer);
     }
-    catch (final Exception e)
+    catch (final LDAPRuntimeException lre)
     {
-      Debug.debugException(e);
+      Debug.debugException(lre);
+      lre.throwLDAPException();
     }
-
-    try
+    finally
     {
-      close();
+      if (buffer.zeroBufferOnClear())
+      {
+        buffer.clear();
+      }
     }
-    catch (final Exception e)
+
+    // Only one thread at a time needs to write to the client.  If another
+    // thread is already doing so, then it will pick up this message.  The loop
+    // handles the case in which a message was added just as the active writer
+    // was finishing.
+    while ((! outboundMessages.isEmpty()) &&
+         outboundWriterActive.compareAndSet(false, true))
     {
-      Debug.debugException(e);
+      try
+      {
+        synchronized (this)
+        {
+          writeQueuedMessages();
+        }
+      }
+      finally
+      {
+        outboundWriterActive.set(false);
+      }
     }
   }
 
 
 
   /**
-   * Operates in a loop, waiting for a request to arrive from the client and
-   * handing it off to the request handler for processing.  This method is for
-   * internal use only and must not be invoked by external callers.
+   * Writes all queued responses to the client.  When writing to a socket
+   * channel, multiple responses will be written with a single gathering write.
+   *
+   * @throws  LDAPException  If a problem occurs while attempting to send the
+   *                         responses to the client.
    */
-  @InternalUseOnly()
-  @Override()
-  public void run()
+  private void writeQueuedMessages()
+          throws LDAPException
   {
+    final ByteBuffer[] buffers = new ByteBuffer[MAX_RESPONSES_PER_WRITE];
     try
     {
       while (true)
       {
-        final LDAPMessage requestMessage;
-        try
+        int numBuffers = 0;
+        while (numBuffers < buffers.length)
         {
-          requestMessage = LDAPMessage.readFrom(asn1Reader, false);
-          if (requestMessage == null)
+          final ByteBuffer b = outboundMessages.poll();
+          if (b == null)
           {
-            // This indicates that the client has closed the connection without
-            // an unbind request.  It's not all that nice, but it isn't an error
-            // so we won't notify the exception handler.
-            try
-            {
-              close();
-            }
-            catch (final IOException ioe)
-            {
-              Debug.debugException(ioe);
-            }
-
-            return;
+            break;
           }
+
+          buffers[numBuffers++] = b;
         }
-        catch (final LDAPException le)
+
+        if (numBuffers == 0)
         {
-          // This indicates that the client sent a malformed request.
-          Debug.debugException(le);
-          close(le);
           return;
         }
 
         try
         {
-          final int messageID = requestMessage.getMessageID();
-          final List<Control> controls = requestMessage.getControls();
-
-          LDAPMessage responseMessage;
-          switch (requestMessage.getProtocolOpType())
-          {
-            case LDAPMessage.PROTOCOL_OP_TYPE_ABANDON_REQUEST:
-              requestHandler.processAbandonRequest(messageID,
-                   requestMessage.getAbandonRequestProtocolOp(), controls);
-              responseMessage = null;
-              break;
-
-            case LDAPMessage.PROTOCOL_OP_TYPE_ADD_REQUEST:
-              try
-              {
-                responseMessage = requestHandler.processAddRequest(messageID,
-                     requestMessage.getAddRequestProtocolOp(), controls);
-              }
-              catch (final Exception e)
-              {
-                Debug.debugException(e);
-                responseMessage = new LDAPMessage(messageID,
-                     new AddResponseProtocolOp(
-                          ResultCode.OTHER_INT_VALUE, null,
-                          ERR_CONN_REQUEST_HANDLER_FAILURE.get(
-                               StaticUtils.getExceptionMessage(e)),
-                          null));
-              }
-              break;
-
-            case LDAPMessage.PROTOCOL_OP_TYPE_BIND_REQUEST:
-              try
-              {
-                responseMessage = requestHandler.processBindRequest(messageID,
-                     requestMessage.getBindRequestProtocolOp(), controls);
-              }
-              catch (final Exception e)
-              {
-                Debug.debugException(e);
-                responseMessage = new LDAPMessage(messageID,
-                     new BindResponseProtocolOp(
-                          ResultCode.OTHER_INT_VALUE, null,
-                          ERR_CONN_REQUEST_HANDLER_FAILURE.get(
-                               StaticUtils.getExceptionMessage(e)),
-                          null, null));
-              }
-              break;
-
-            case LDAPMessage.PROTOCOL_OP_TYPE_COMPARE_REQUEST:
-              try
-              {
-                responseMessage = requestHandler.processCompareRequest(
-                     messageID, requestMessage.getCompareRequestProtocolOp(),
-                     controls);
-              }
-              catch (final Exception e)
-              {
-                Debug.debugException(e);
-                responseMessage = new LDAPMessage(messageID,
-                     new CompareResponseProtocolOp(
-                          ResultCode.OTHER_INT_VALUE, null,
-                          ERR_CONN_REQUEST_HANDLER_FAILURE.get(
-                               StaticUtils.getExceptionMessage(e)),
-                          null));
-              }
-              break;
-
-            case LDAPMessage.PROTOCOL_OP_TYPE_DELETE_REQUEST:
-              try
-              {
-                responseMessage = requestHandler.processDeleteRequest(messageID,
-                     requestMessage.getDeleteRequestProtocolOp(), controls);
-              }
-              catch (final Exception e)
-              {
-                Debug.debugException(e);
-                responseMessage = new LDAPMessage(messageID,
-                     new DeleteResponseProtocolOp(
-                          ResultCode.OTHER_INT_VALUE, null,
-                          ERR_CONN_REQUEST_HANDLER_FAILURE.get(
-                               StaticUtils.getExceptionMessage(e)),
-                          null));
-              }
-              break;
-
-            case LDAPMessage.PROTOCOL_OP_TYPE_EXTENDED_REQUEST:
-              try
-              {
-                responseMessage = requestHandler.processExtendedRequest(
-                     messageID, requestMessage.getExtendedRequestProtocolOp(),
-                     controls);
-              }
-              catch (final Exception e)
-              {
-                Debug.debugException(e);
-                responseMessage = new LDAPMessage(messageID,
-                     new ExtendedResponseProtocolOp(
-                          ResultCode.OTHER_INT_VALUE, null,
-                          ERR_CONN_REQUEST_HANDLER_FAILURE.get(
-                               StaticUtils.getExceptionMessage(e)),
-                          null, null, null));
-              }
-              break;
-
-            case LDAPMessage.PROTOCOL_OP_TYPE_MODIFY_REQUEST:
-              try
-              {
-                responseMessage = requestHandler.processModifyRequest(messageID,
-                     requestMessage.getModifyRequestProtocolOp(), controls);
-              }
-              catch (final Exception e)
-              {
-                Debug.debugException(e);
-                responseMessage = new LDAPMessage(messageID,
-                     new ModifyResponseProtocolOp(
-                          ResultCode.OTHER_INT_VALUE, null,
-                          ERR_CONN_REQUEST_HANDLER_FAILURE.get(
-                               StaticUtils.getExceptionMessage(e)),
-                          null));
-              }
-              break;
-
-            case LDAPMessage.PROTOCOL_OP_TYPE_MODIFY_DN_REQUEST:
-              try
-              {
-                responseMessage = requestHandler.processModifyDNRequest(
-                     messageID, requestMessage.getModifyDNRequestProtocolOp(),
-                     controls);
-              }
-              catch (final Exception e)
-              {
-                Debug.debugException(e);
-                responseMessage = new LDAPMessage(messageID,
-                     new ModifyDNResponseProtocolOp(
-                          ResultCode.OTHER_INT_VALUE, null,
-                          ERR_CONN_REQUEST_HANDLER_FAILURE.get(
-                               StaticUtils.getExceptionMessage(e)),
-                          null));
-              }
-              break;
-
-            case LDAPMessage.PROTOCOL_OP_TYPE_SEARCH_REQUEST:
-              try
-              {
-                responseMessage = requestHandler.processSearchRequest(messageID,
-                     requestMessage.getSearchRequestProtocolOp(), controls);
-              }
-              catch (final Exception e)
-              {
-                Debug.debugException(e);
-                responseMessage = new LDAPMessage(messageID,
-                     new SearchResultDoneProtocolOp(
-                          ResultCode.OTHER_INT_VALUE, null,
-                          ERR_CONN_REQUEST_HANDLER_FAILURE.get(
-                               StaticUtils.getExceptionMessage(e)),
-                          null));
-              }
-              break;
-
-            case LDAPMessage.PROTOCOL_OP_TYPE_UNBIND_REQUEST:
-              requestHandler.processUnbindRequest(messageID,
-                   requestMessage.getUnbindRequestProtocolOp(), controls);
-              close();
-              return;
-
-            default:
-              close(new LDAPException(ResultCode.PROTOCOL_ERROR,
-                   ERR_CONN_INVALID_PROTOCOL_OP_TYPE.get(StaticUtils.toHex(
-                        requestMessage.getProtocolOpType()))));
-              return;
-          }
-
-          if (responseMessage != null)
-          {
-            try
-            {
-              sendMessage(responseMessage);
-            }
-            catch (final LDAPException le)
-            {
-              Debug.debugException(le);
-              close(le);
-              return;
-            }
-          }
+          writeBuffers(buffers, numBuffers);
         }
-        catch (final Throwable t)
+        finally
         {
-          close(new LDAPException(ResultCode.LOCAL_ERROR,
-               ERR_CONN_EXCEPTION_IN_REQUEST_HANDLER.get(
-                    String.valueOf(requestMessage),
-                    StaticUtils.getExceptionMessage(t))));
-          StaticUtils.throwErrorOrRuntimeException(t);
+          for (int i=0; i < numBuffers; i++)
+          {
+            releaseQueuedBuffer(buffers[i]);
+            buffers[i] = null;
+          }
         }
       }
     }
-    finally
+    catch (final IOException ioe)
     {
-      if (listener != null)
+      Debug.debugException(ioe);
+
+      // The remaining responses can never be sent, so discard them so that
+      // threads waiting to queue more responses will not block forever.
+      while (true)
       {
-        listener.connectionClosed(this);
+        final ByteBuffer b = outboundMessages.poll();
+        if (b == null)
+        {
+          break;
+        }
+
+        releaseQueuedBuffer(b);
       }
+
+      throw new LDAPException(ResultCode.LOCAL_ERROR,
+           ERR_CONN_SEND_MESSAGE_EXCEPTION.get(
+                StaticUtils.getExceptionMessage(ioe)),
+           ioe);
+    }
+  }
+
+
+
+  /**
+   * Retrieves the number of outbound byte permits that must be held while the
+   * provided buffer is in the outbound message queue.
+   *
+   * @param  buffer  The buffer containing an encoded response.
+   *
+   * @return  The number of outbound byte permits that must be held while the
+   *          provided buffer is queued.
+   */
+  private static int getQueuedBytePermits(final ByteBuffer buffer)
+  {
+    return Math.min(buffer.limit(), MAX_QUEUED_RESPONSE_BYTES);
+  }
+
+
+
+  /**
+   * Releases the outbound byte permits held by a buffer that has been removed
+   * from the outbound message queue.
+   *
+   * @param  buffer  The buffer that has been removed from the queue.
+   */
+  private void releaseQueuedBuffer(final ByteBuffer buffer)
+  {
+    outboundBytePermits.release(getQueuedBytePermits(buffer));
+  }
+
+
+
+  /**
+   * Writes the remaining contents of the provided buffers to the client.
+   *
+   * @param  buffers     The buffers to be written.
+   * @param  numBuffers  The number of buffers to be written.
+   *
+   * @throws  IOException  If a problem occurs while writing the data.
+   */
+  private void writeBuffers(final ByteBuffer[] buffers, final int numBuffers)
+          throws IOException
+  {
+    final OutputStream os = outputStream;
+    if (os instanceof SocketChannelOutputStream)
+    {
+      ((SocketChannelOutputStream) os).write(buffers, 0, numBuffers);
+      return;
+    }
+
+    // This can happen if the connection has been secured with StartTLS since
+    // the responses were queued.
+    for (int i=0; i < numBuffers; i++)
+    {
+      final ByteBuffer b = buffers[i];
+      os.write(b.array(), (b.arrayOffset() + b.position()), b.remaining());
     }
   }
 
 
 
   /**
-   * Sends the provided message to the client.
+   * Encodes the provided message and writes it to the client.
    *
    * @param  message  The message to be written to the client.
    *
    * @throws  LDAPException  If a problem occurs while attempting to send the
    *                         response to the client.
    */
-  private synchronized void sendMessage(final LDAPMessage message)
+  private synchronized void writeMessage(final LDAPMessage message)
           throws LDAPException
   {
     // If we should suppress this response (which will only be because the
@@ -713,15 +1593,22 @@ public final class LDAPListenerClientConnection
    *                     be included.
    *
    * @throws  LDAPException  If a problem occurs while attempting to send the
-   *                         provided response message.  If an exception is
-   *                         thrown, then the client connection will have been
-   *                         terminated.
+   *                         provided response message, or if the search has
+   *                         been abandoned.  If the search has been abandoned,
+   *                         then the exception will have a result code of
+   *                         {@link ResultCode#CANCELED} and the connection
+   *                         will remain established, but the request handler
+   *                         should not attempt to send any more results.  For
+   *                         any other exception, the client connection will
+   *                         have been terminated.
    */
   public void sendSearchResultEntry(final int messageID,
                    final SearchResultEntryProtocolOp protocolOp,
                    final Control... controls)
          throws LDAPException
   {
+    ensureNotAbandoned(messageID);
+
     if (searchEntryTransformers.isEmpty())
     {
       sendMessage(new LDAPMessage(messageID, protocolOp, controls));
@@ -785,9 +1672,14 @@ public final class LDAPListenerClientConnection
    *                    included.
    *
    * @throws  LDAPException  If a problem occurs while attempting to send the
-   *                         provided response message.  If an exception is
-   *                         thrown, then the client connection will have been
-   *                         terminated.
+   *                         provided response message, or if the search has
+   *                         been abandoned.  If the search has been abandoned,
+   *                         then the exception will have a result code of
+   *                         {@link ResultCode#CANCELED} and the connection
+   *                         will remain established, but the request handler
+   *                         should not attempt to send any more results.  For
+   *                         any other exception, the client connection will
+   *                         have been terminated.
    */
   public void sendSearchResultEntry(final int messageID, final Entry entry,
                                     final Control... controls)
@@ -815,15 +1707,22 @@ public final class LDAPListenerClientConnection
    *                     be included.
    *
    * @throws  LDAPException  If a problem occurs while attempting to send the
-   *                         provided response message.  If an exception is
-   *                         thrown, then the client connection will have been
-   *                         terminated.
+   *                         provided response message, or if the search has
+   *                         been abandoned.  If the search has been abandoned,
+   *                         then the exception will have a result code of
+   *                         {@link ResultCode#CANCELED} and the connection
+   *                         will remain established, but the request handler
+   *                         should not attempt to send any more results.  For
+   *                         any other exception, the client connection will
+   *                         have been terminated.
    */
   public void sendSearchResultReference(final int messageID,
                    final SearchResultReferenceProtocolOp protocolOp,
                    final Control... controls)
          throws LDAPException
   {
+    ensureNotAbandoned(messageID);
+
     if (searchReferenceTransformers.isEmpty())
     {
       sendMessage(new LDAPMessage(messageID, protocolOp, controls));
@@ -873,6 +1772,28 @@ public final class LDAPListenerClientConnection
 
 
 
+  /**
+   * Ensures that the specified request has not been abandoned, so that a
+   * request handler will stop sending search results once the client is no
+   * longer interested in them.  Requests can only be abandoned while they are
+   * in progress if requests are processed concurrently.
+   *
+   * @param  messageID  The message ID of the request to check.
+   *
+   * @throws  LDAPException  If the request has been abandoned.
+   */
+  private void ensureNotAbandoned(final int messageID)
+          throws LDAPException
+  {
+    if ((activeRequests != null) && (! activeRequests.containsKey(messageID)))
+    {
+      throw new LDAPException(ResultCode.CANCELED,
+           ERR_CONN_SEARCH_ABANDONED.get(messageID));
+    }
+  }
+
+
+
   /**
    * Sends an intermediate response message to the client with the provided
    * information.
@@ -1039,6 +1960,18 @@ public final class LDAPListenerClientConnection
 
     try
     {
+      if (socketChannel != null)
+      {
+        // The channel is kept in non-blocking mode while the connection is
+        // managed by a selector, but an SSL socket requires blocking mode.
+        final LDAPListenerConnectionSelector selector = connectionSelector;
+        if (selector != null)
+        {
+          selector.deregister(this);
+        }
+        channelOutputStream.configureBlocking(true);
+      }
+
       synchronized (f)
       {
         socket = f.createSocket(socket, hostname, port, true);
@@ -1046,6 +1979,7 @@ public final class LDAPListenerClientConnection
       ((SSLSocket) socket).setUseClientMode(false);
       outputStream = socket.getOutputStream();
       asn1Reader = new ASN1StreamReader(socket.getInputStream());
+      connectionSelector = null;
       suppressNextResponse.set(true);
       return clearOutputStream;
     }
@@ -1161,4 +2095,117 @@ public final class LDAPListenerClientConnection
   {
     intermediateResponseTransformers.remove(t);
   }
+
+
+
+  /**
+   * This class provides an input stream that reads data from the inbound
+   * buffer of a connection that is managed by a selector.  It will only be used
+   * to read requests that are already held in the buffer in their entirety, so
+   * it will never block.
+   */
+  private final class InboundBufferInputStream
+          extends InputStream
+  {
+    /**
+     * Reads a single byte from the inbound buffer.
+     *
+     * @return  The byte that was read, or -1 if the buffer is empty.
+     */
+    @Override()
+    public int read()
+    {
+      if (inboundBuffer.hasRemaining())
+      {
+        return (inboundBuffer.get() & 0xFF);
+      }
+      else
+      {
+        return -1;
+      }
+    }
+
+
+
+    /**
+     * Reads data from the inbound buffer into the specified portion of the
+     * provided array.
+     *
+     * @param  b    The array into which the data should be read.
+     * @param  off  The position in the array at which to start placing data.
+     * @param  len  The maximum number of bytes to read.
+     *
+     * @return  The number of bytes that were read, or -1 if the buffer is
+     *          empty.
+     */
+    @Override()
+    public int read(final byte[] b, final int off, final int len)
+    {
+      if (len == 0)
+      {
+        return 0;
+      }
+
+      final int bytesToRead = Math.min(len, inboundBuffer.remaining());
+      if (bytesToRead == 0)
+      {
+        return -1;
+      }
+
+      inboundBuffer.get(b, off, bytesToRead);
+      return bytesToRead;
+    }
+
+
+
+    /**
+     * Retrieves the number of bytes remaining in the inbound buffer.
+     *
+     * @return  The number of bytes remaining in the inbound buffer.
+     */
+    @Override()
+    public int available()
+    {
+      return inboundBuffer.remaining();
+    }
+
+
+
+    /**
+     * Indicates whether this input stream supports the use of the
+     * {@code mark} and {@code reset} methods.
+     *
+     * @return  {@code true}, since marks are supported.
+     */
+    @Override()
+    public boolean markSupported()
+    {
+      return true;
+    }
+
+
+
+    /**
+     * Marks the current position in the inbound buffer.
+     *
+     * @param  readLimit  The maximum number of bytes that may be read before
+     *                    the mark is invalidated.  It will be ignored.
+     */
+    @Override()
+    public void mark(final int readLimit)
+    {
+      inboundBuffer.mark();
+    }
+
+
+
+    /**
+     * Returns to the most recently marked position in the inbound buffer.
+     */
+    @Override()
+    public void reset()
+    {
+      inboundBuffer.reset();
+    }
+  }
 }
@@ -66,9 +66,18 @@ public final class LDAPListenerConfig
   // The linger timeout in seconds to use for sockets accepted by the listener.
   private int lingerTimeout;
 
+  // The number of threads that should be used to process requests from clients
+  // whose connections are managed by a shared selector rather than a dedicated
+  // thread per connection.
+  private int numRequestProcessingThreads;
+
   // The port on which to listen for client connections.
   private int listenPort;
 
+  // The maximum number of requests from a single client connection that may be
+  // processed concurrently.
+  private int maxConcurrentRequestsPerConnection;
+
   // The maximum number of concurrent connections that will be allowed.
   private int maxConnections;
 
@@ -78,6 +87,10 @@ public final class LDAPListenerConfig
   // The send buffer size to use for sockets accepted by the listener.
   private int sendBufferSize;
 
+  // The maximum length of time in milliseconds that a connection managed by a
+  // shared selector may wait for the client to accept more data.
+  private long writeTimeoutMillis;
+
   // The exception handler to use for the listener and associated connections.
   private LDAPListenerExceptionHandler exceptionHandler;
 
@@ -117,8 +130,11 @@ public final class LDAPListenerConfig
     lingerTimeout       = 5;
     listenAddress       = null;
     maxConnections      = 0;
+    maxConcurrentRequestsPerConnection = 1;
+    numRequestProcessingThreads = 0;
     receiveBufferSize   = 0;
     sendBufferSize      = 0;
+    writeTimeoutMillis  = 300_000L;
     exceptionHandler    = null;
     serverSocketFactory = ServerSocketFactory.getDefault();
   }
@@ -400,6 +416,174 @@ public final class LDAPListenerConfig
 
 
 
+  /**
+   * Retrieves the maximum number of requests from a single client connection
+   * that may be processed concurrently.  If this is one, then each request will
+   * be processed to completion before the next request is read from the client.
+   * If it is greater than one, then add, compare, delete, modify, modify DN,
+   * and search requests will be handed off to separate threads so that a
+   * client that sends multiple requests without waiting for the responses can
+   * have them processed in parallel, and the responses will be returned in the
+   * order that processing completes.  Bind, extended, and unbind requests will
+   * always wait for all outstanding requests to complete before they are
+   * processed, and abandon requests will be processed as soon as they are read.
+   * <BR><BR>
+   * If concurrent processing is enabled, then the request handler must be able
+   * to safely process multiple requests for the same connection at the same
+   * time.
+   *
+   * @return  The maximum number of requests from a single client connection
+   *          that may be processed concurrently.
+   */
+  public int getMaxConcurrentRequestsPerConnection()
+  {
+    return maxConcurrentRequestsPerConnection;
+  }
+
+
+
+  /**
+   * Specifies the maximum number of requests from a single client connection
+   * that may be processed concurrently.  If this is one, then each request will
+   * be processed to completion before the next request is read from the client.
+   * If it is greater than one, then add, compare, delete, modify, modify DN,
+   * and search requests will be handed off to separate threads, and no more
+   * requests will be read from the client while the maximum number of requests
+   * are already in progress.
+   *
+   * @param  maxConcurrentRequestsPerConnection  The maximum number of requests
+   *                                             from a single client connection
+   *                                             that may be processed
+   *                                             concurrently.  A value that is
+   *                                             less than or equal to one
+   *                                             indicates that requests should
+   *                                             be processed one at a time.
+   */
+  public void setMaxConcurrentRequestsPerConnection(
+                   final int maxConcurrentRequestsPerConnection)
+  {
+    if (maxConcurrentRequestsPerConnection > 1)
+    {
+      this.maxConcurrentRequestsPerConnection =
+           maxConcurrentRequestsPerConnection;
+    }
+    else
+    {
+      this.maxConcurrentRequestsPerConnection = 1;
+    }
+  }
+
+
+
+  /**
+   * Retrieves the number of threads that should be used to process requests
+   * read from clients.  If this is zero, then each connection accepted by the
+   * listener will have its own dedicated thread that is used to read and
+   * process requests from that client.  If this is greater than zero, then idle
+   * connections will instead be monitored by a single selector thread, and
+   * requests will be read and processed by a pool of this many threads when
+   * they arrive, so that the number of threads needed by the listener does not
+   * grow with the number of established connections.
+   * <BR><BR>
+   * Selector-based processing will only be used for connections accepted by
+   * the JVM-default server socket factory.  Connections accepted by any other
+   * server socket factory (e.g., one that creates SSL server sockets), and
+   * connections that have been converted to use TLS through StartTLS, will
+   * always use a dedicated thread.
+   * <BR><BR>
+   * A request will not be handed off to a request processing thread until it
+   * has been received in its entirety, so clients that send requests slowly
+   * cannot tie up those threads.  The exception is a request that is larger
+   * than one megabyte, which cannot be buffered, so a connection that sends
+   * such a request will be switched to use a dedicated thread instead.
+   *
+   * @return  The number of threads that should be used to process requests
+   *          read from clients, or zero if each connection should use its own
+   *          dedicated thread.
+   */
+  public int getNumRequestProcessingThreads()
+  {
+    return numRequestProcessingThreads;
+  }
+
+
+
+  /**
+   * Specifies the number of threads that should be used to process requests
+   * read from clients.  If this is zero, then each connection accepted by the
+   * listener will have its own dedicated thread that is used to read and
+   * process requests from that client.  If this is greater than zero, then idle
+   * connections will instead be monitored by a single selector thread, and
+   * requests will be read and processed by a pool of this many threads when
+   * they arrive.
+   *
+   * @param  numRequestProcessingThreads  The number of threads that should be
+   *                                      used to process requests read from
+   *                                      clients.  A value that is less than or
+   *                                      equal to zero indicates that each
+   *                                      connection should use its own
+   *                                      dedicated thread.
+   */
+  public void setNumRequestProcessingThreads(
+                   final int numRequestProcessingThreads)
+  {
+    if (numRequestProcessingThreads > 0)
+    {
+      this.numRequestProcessingThreads = numRequestProcessingThreads;
+    }
+    else
+    {
+      this.numRequestProcessingThreads = 0;
+    }
+  }
+
+
+
+  /**
+   * Retrieves the maximum length of time in milliseconds that a connection
+   * managed by a shared selector may wait for the client to accept more data
+   * when sending a response.  If the client does not read any data within this
+   * length of time, then the connection will be terminated.  This is only used
+   * if the number of request processing threads is greater than zero, and it
+   * has a default value of five minutes.
+   *
+   * @return  The maximum length of time in milliseconds that a connection may
+   *          wait for the client to accept more data, or zero if there should
+   *          be no limit.
+   */
+  public long getWriteTimeoutMillis()
+  {
+    return writeTimeoutMillis;
+  }
+
+
+
+  /**
+   * Specifies the maximum length of time in milliseconds that a connection
+   * managed by a shared selector may wait for the client to accept more data
+   * when sending a response.  This is only used if the number of request
+   * processing threads is greater than zero.
+   *
+   * @param  writeTimeoutMillis  The maximum length of time in milliseconds
+   *                             that a connection may wait for the client to
+   *                             accept more data.  A value that is less than
+   *                             or equal to zero indicates that there should
+   *                             be no limit.
+   */
+  public void setWriteTimeoutMillis(final long writeTimeoutMillis)
+  {
+    if (writeTimeoutMillis > 0L)
+    {
+      this.writeTimeoutMillis = writeTimeoutMillis;
+    }
+    else
+    {
+      this.writeTimeoutMillis = 0L;
+    }
+  }
+
+
+
   /**
    * Retrieves the receive buffer size that should be used for sockets accepted
    * by the listener.
@@ -564,8 +748,12 @@ public final class LDAPListenerConfig
     copy.listenAddress       = listenAddress;
     copy.lingerTimeout       = lingerTimeout;
     copy.maxConnections      = maxConnections;
+    copy.maxConcurrentRequestsPerConnection =
+         maxConcurrentRequestsPerConnection;
+    copy.numRequestProcessingThreads = numRequestProcessingThreads;
     copy.receiveBufferSize   = receiveBufferSize;
     copy.sendBufferSize      = sendBufferSize;
+    copy.writeTimeoutMillis  = writeTimeoutMillis;
     copy.exceptionHandler    = exceptionHandler;
     copy.serverSocketFactory = serverSocketFactory;
 
@@ -642,6 +830,12 @@ public final class LDAPListenerConfig
 
     buffer.append(", maxConnections=");
     buffer.append(maxConnections);
+    buffer.append(", maxConcurrentRequestsPerConnection=");
+    buffer.append(maxConcurrentRequestsPerConnection);
+    buffer.append(", numRequestProcessingThreads=");
+    buffer.append(numRequestProcessingThreads);
+    buffer.append(", writeTimeoutMillis=");
+    buffer.append(writeTimeoutMillis);
     buffer.append(", useReuseAddress=");
     buffer.append(useReuseAddress);
     buffer.append(", receiveBufferSize=");
@@ -0,0 +1,402 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.listener;
+
+
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.unboundid.util.Debug;
+import com.unboundid.util.InternalUseOnly;
+import com.unboundid.util.LDAPSDKThreadFactory;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides a thread that may be used by an {@link LDAPListener} to
+ * monitor idle client connections with a selector, rather than having a
+ * dedicated thread blocked on a read for each connection.  When data arrives
+ * on a connection, the selector will stop watching that connection and it will
+ * be handed off to a bounded pool of request processing threads.  The request
+ * processing thread will read whatever data is available without blocking and
+ * will process any complete requests using the same logic as a dedicated
+ * connection thread.  Once there are no more complete requests, the connection
+ * will be returned to the selector, along with any data that has been read for
+ * a partial request, so a client that sends a request slowly (or never
+ * finishes sending it) will not hold on to a request processing thread.  Each
+ * connection is registered with the selector only once, and its interest set
+ * is used to control whether the selector is watching it.
+ * <BR><BR>
+ * If the selector is shut down while connections are still established, then
+ * those connections will be given dedicated threads so that they may continue
+ * to be used.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class LDAPListenerConnectionSelector
+      extends Thread
+{
+  // Indicates whether a request has been received to stop running.  All access
+  // to this field must be synchronized on the pendingRegistrations list.
+  private boolean stopRequested;
+
+  // The connections that the selector should start watching for data the next
+  // time the selector thread wakes up.  This list is also used to notify
+  // threads waiting for a connection to be deregistered.
+  private final List<LDAPListenerClientConnection> pendingRegistrations;
+
+  // The selector used to wait for data to arrive on idle connections.
+  private final Selector selector;
+
+  // The pool of threads used to read and process requests.
+  private final ThreadPoolExecutor requestProcessingPool;
+
+
+
+  /**
+   * Creates a new connection selector.  The {@link #start} method must be
+   * called before any connections may be registered.
+   *
+   * @param  name                         The name to use for the selector
+   *                                      thread.  It will also be used as the
+   *                                      base name for the request processing
+   *                                      threads.
+   * @param  numRequestProcessingThreads  The number of threads that should be
+   *                                      used to process requests.  It must be
+   *                                      greater than zero.
+   *
+   * @throws  IOException  If a problem occurs while opening the selector.
+   */
+  LDAPListenerConnectionSelector(final String name,
+                                 final int numRequestProcessingThreads)
+       throws IOException
+  {
+    setName(name);
+    setDaemon(true);
+
+    stopRequested = false;
+    pendingRegistrations = new ArrayList<>(10);
+    selector = Selector.open();
+    requestProcessingPool = new ThreadPoolExecutor(numRequestProcessingThreads,
+         numRequestProcessingThreads, 0L, TimeUnit.MILLISECONDS,
+         new LinkedBlockingQueue<Runnable>(),
+         new LDAPSDKThreadFactory(name + " Request Processor", true));
+  }
+
+
+
+  /**
+   * Operates in a loop, registering idle connections with the selector and
+   * dispatching connections with available data to the request processing
+   * threads.  This method is for internal use only and must not be invoked by
+   * external callers.
+   */
+  @InternalUseOnly()
+  @Override()
+  public void run()
+  {
+    try
+    {
+      while (true)
+      {
+        final ArrayList<LDAPListenerClientConnection> connections;
+        synchronized (pendingRegistrations)
+        {
+          if (stopRequested)
+          {
+            return;
+          }
+
+          connections = new ArrayList<>(pendingRegistrations);
+          pendingRegistrations.clear();
+        }
+
+        for (final LDAPListenerClientConnection c : connections)
+        {
+          try
+          {
+            final SelectionKey key = c.getSocketChannel().keyFor(selector);
+            if (key == null)
+            {
+              c.getSocketChannel().register(selector, SelectionKey.OP_READ, c);
+            }
+            else
+            {
+              key.interestOps(SelectionKey.OP_READ);
+            }
+          }
+          catch (final Exception e)
+          {
+            // This will most likely be because the connection was closed while
+            // it was waiting to be registered, but let the connection decide.
+            Debug.debugException(e);
+            c.useDedicatedThread();
+          }
+        }
+
+        selector.select();
+        notifyDeregistrationWaiters();
+        dispatchReadyConnections();
+      }
+    }
+    catch (final IOException ioe)
+    {
+      Debug.debugException(ioe);
+    }
+    finally
+    {
+      final ArrayList<LDAPListenerClientConnection> connections;
+      synchronized (pendingRegistrations)
+      {
+        stopRequested = true;
+        connections = new ArrayList<>(pendingRegistrations);
+        pendingRegistrations.clear();
+      }
+
+      // Connections that the selector is not watching are being processed by
+      // a request processing thread, which will find that the selector has
+      // been stopped when it tries to return the connection.
+      for (final SelectionKey key : selector.keys())
+      {
+        try
+        {
+          if (key.interestOps() == SelectionKey.OP_READ)
+          {
+            connections.add((LDAPListenerClientConnection) key.attachment());
+          }
+        }
+        catch (final CancelledKeyException e)
+        {
+          Debug.debugException(e);
+        }
+      }
+
+      try
+      {
+        selector.close();
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+      }
+
+      notifyDeregistrationWaiters();
+
+      for (final LDAPListenerClientConnection c : connections)
+      {
+        c.useDedicatedThread();
+      }
+    }
+  }
+
+
+
+  /**
+   * Stops watching all connections that have data available and hands them off
+   * to the request processing threads.  The connections will remain registered
+   * with the selector, but with an empty interest set, until they are returned
+   * through the {@link #register} method.
+   */
+  private void dispatchReadyConnections()
+  {
+    final ArrayList<LDAPListenerClientConnection> readyConnections =
+         new ArrayList<>(selector.selectedKeys().size());
+    final Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+    while (iterator.hasNext())
+    {
+      final SelectionKey key = iterator.next();
+      iterator.remove();
+
+      try
+      {
+        key.interestOps(0);
+        readyConnections.add((LDAPListenerClientConnection) key.attachment());
+      }
+      catch (final CancelledKeyException e)
+      {
+        // The connection has been closed.
+        Debug.debugException(e);
+      }
+    }
+
+    for (final LDAPListenerClientConnection c : readyConnections)
+    {
+      try
+      {
+        requestProcessingPool.execute(new Runnable()
+        {
+          @Override()
+          public void run()
+          {
+            c.processAvailableRequests();
+          }
+        });
+      }
+      catch (final RejectedExecutionException e)
+      {
+        Debug.debugException(e);
+        c.useDedicatedThread();
+      }
+    }
+  }
+
+
+
+  /**
+   * Indicates that the selector should watch the provided connection so that
+   * it will be handed off to a request processing thread when data arrives
+   * from the client.  The connection's channel will be registered with the
+   * selector if it is not already.  The channel must be in non-blocking mode.
+   *
+   * @param  connection  The connection to register.
+   *
+   * @return  {@code true} if the connection was accepted for registration, or
+   *          {@code false} if this selector has been shut down and the
+   *          connection should use a dedicated thread instead.
+   */
+  boolean register(final LDAPListenerClientConnection connection)
+  {
+    synchronized (pendingRegistrations)
+    {
+      if (stopRequested)
+      {
+        return false;
+      }
+
+      pendingRegistrations.add(connection);
+    }
+
+    selector.wakeup();
+    return true;
+  }
+
+
+
+  /**
+   * Removes the provided connection's channel from this selector so that it
+   * may be placed in blocking mode.  A channel's registration is only removed
+   * when the selector next performs a selection operation, so if this is not
+   * invoked by the selector thread, then it will wait for the selector thread
+   * to do that.  The connection must not currently be watched by the selector.
+   *
+   * @param  connection  The connection to deregister.
+   *
+   * @throws  IOException  If a problem is encountered while interacting with
+   *                       the selector, or if the thread is interrupted while
+   *                       waiting for the channel to be deregistered.
+   */
+  void deregister(final LDAPListenerClientConnection connection)
+       throws IOException
+  {
+    final SelectionKey key = connection.getSocketChannel().keyFor(selector);
+    if (key == null)
+    {
+      return;
+    }
+
+    key.cancel();
+    if (Thread.currentThread() == this)
+    {
+      selector.selectNow();
+      return;
+    }
+
+    synchronized (pendingRegistrations)
+    {
+      while ((connection.getSocketChannel().keyFor(selector) != null) &&
+             isAlive())
+      {
+        selector.wakeup();
+
+        try
+        {
+          pendingRegistrations.wait(10L);
+        }
+        catch (final InterruptedException e)
+        {
+          Debug.debugException(e);
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException();
+        }
+      }
+    }
+  }
+
+
+
+  /**
+   * Notifies any threads waiting in the {@link #deregister} method that the
+   * selector has processed cancelled keys.
+   */
+  private void notifyDeregistrationWaiters()
+  {
+    synchronized (pendingRegistrations)
+    {
+      pendingRegistrations.notifyAll();
+    }
+  }
+
+
+
+  /**
+   * Stops this selector and the associated request processing threads.  Any
+   * connections still registered with the selector will be given dedicated
+   * threads, as will any connections currently being processed once they have
+   * finished with their available requests.
+   */
+  void shutDown()
+  {
+    synchronized (pendingRegistrations)
+    {
+      stopRequested = true;
+    }
+
+    selector.wakeup();
+
+    while (isAlive())
+    {
+      try
+      {
+        join(100L);
+      }
+      catch (final InterruptedException e)
+      {
+        Debug.debugException(e);
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+
+    requestProcessingPool.shutdown();
+  }
+}
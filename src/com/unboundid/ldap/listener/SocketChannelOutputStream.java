@@ -0,0 +1,287 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.listener;
+
+
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import com.unboundid.util.Debug;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+import static com.unboundid.ldap.listener.ListenerMessages.*;
+
+
+
+/**
+ * This class provides an output stream that writes data directly to a socket
+ * channel.  Unlike the output stream obtained from the channel's socket, it
+ * may be used regardless of whether the channel is currently configured in
+ * blocking or non-blocking mode, so that data may be written over a connection
+ * that is registered with a selector.  If the channel is in non-blocking mode
+ * and the socket's send buffer is full, then the write will wait until the
+ * channel becomes writable, using a selector that is created the first time it
+ * is needed and retained for the life of the stream.  If a write timeout has
+ * been configured and the channel does not become writable within that length
+ * of time, then the write will fail with a {@code SocketTimeoutException}.
+ * <BR><BR>
+ * Writes are synchronized with calls to the {@link #configureBlocking} method,
+ * so that the blocking mode of the channel will not be altered while a write is
+ * in progress.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class SocketChannelOutputStream
+      extends OutputStream
+{
+  // The socket channel to which data will be written.
+  private final SocketChannel channel;
+
+  // The maximum length of time in milliseconds to wait for the channel to
+  // become writable, or zero if there is no limit.
+  private final long writeTimeoutMillis;
+
+  // The key for the registration of the channel with the write selector.
+  private SelectionKey writeKey;
+
+  // The selector used to wait for the channel to become writable.  It will be
+  // created the first time that a write cannot be completed immediately.
+  private volatile Selector writeSelector;
+
+
+
+  /**
+   * Creates a new output stream that will write to the provided channel.
+   *
+   * @param  channel             The socket channel to which data will be
+   *                             written.  It must not be {@code null}.
+   * @param  writeTimeoutMillis  The maximum length of time in milliseconds to
+   *                             wait for a channel in non-blocking mode to
+   *                             become writable.  A value that is less than
+   *                             or equal to zero indicates that there should
+   *                             be no limit.
+   */
+  SocketChannelOutputStream(final SocketChannel channel,
+                            final long writeTimeoutMillis)
+  {
+    this.channel = channel;
+    this.writeTimeoutMillis = Math.max(writeTimeoutMillis, 0L);
+
+    writeKey = null;
+    writeSelector = null;
+  }
+
+
+
+  /**
+   * Writes the provided byte to the channel.
+   *
+   * @param  b  The byte to be written.
+   *
+   * @throws  IOException  If a problem occurs while writing to the channel.
+   */
+  @Override()
+  public void write(final int b)
+         throws IOException
+  {
+    write(new byte[] { (byte) b }, 0, 1);
+  }
+
+
+
+  /**
+   * Writes the specified portion of the provided array to the channel.
+   *
+   * @param  b    The array containing the data to be written.
+   * @param  off  The position in the array at which to start writing.
+   * @param  len  The number of bytes to be written.
+   *
+   * @throws  IOException  If a problem occurs while writing to the channel.
+   */
+  @Override()
+  public synchronized void write(final byte[] b, final int off,
+                                 final int len)
+         throws IOException
+  {
+    final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+    while (buffer.hasRemaining())
+    {
+      if (channel.write(buffer) == 0)
+      {
+        awaitWritable();
+      }
+    }
+  }
+
+
+
+  /**
+   * Writes the remaining contents of the specified buffers to the channel using
+   * a gathering write, so that the data from several buffers may be sent with a
+   * single system call.  When this method returns, none of the buffers will
+   * have any data remaining.
+   *
+   * @param  buffers  The buffers containing the data to be written.
+   * @param  offset   The position in the array of the first buffer to write.
+   * @param  length   The number of buffers to write.
+   *
+   * @throws  IOException  If a problem occurs while writing to the channel.
+   */
+  synchronized void write(final ByteBuffer[] buffers, final int offset,
+                          final int length)
+         throws IOException
+  {
+    long bytesRemaining = 0L;
+    for (int i=offset; i < (offset + length); i++)
+    {
+      bytesRemaining += buffers[i].remaining();
+    }
+
+    while (bytesRemaining > 0L)
+    {
+      final long bytesWritten = channel.write(buffers, offset, length);
+      if (bytesWritten == 0L)
+      {
+        awaitWritable();
+      }
+      else
+      {
+        bytesRemaining -= bytesWritten;
+      }
+    }
+  }
+
+
+
+  /**
+   * Adjusts the blocking mode of the underlying channel.  This will wait for
+   * any write currently in progress to complete before the change is made.  If
+   * the channel is to be placed in blocking mode, then it will first be
+   * removed from the write selector.  The caller is responsible for ensuring
+   * that it is not registered with any other selector.
+   *
+   * @param  block  Indicates whether the channel should be placed in blocking
+   *                mode.
+   *
+   * @throws  IOException  If a problem occurs while changing the blocking mode
+   *                       of the channel.
+   */
+  synchronized void configureBlocking(final boolean block)
+       throws IOException
+  {
+    if (block && (writeKey != null))
+    {
+      // A channel cannot be placed in blocking mode until the selector has
+      // processed the cancellation of its key.
+      writeKey.cancel();
+      writeKey = null;
+      writeSelector.selectNow();
+    }
+
+    channel.configureBlocking(block);
+  }
+
+
+
+  /**
+   * Waits until the channel is able to accept more data.  This will only be
+   * invoked if the channel is in non-blocking mode and the socket's send buffer
+   * is full.  It may return before the channel is writable if the stream is
+   * being closed, in which case the next attempt to write will fail.
+   *
+   * @throws  IOException  If a problem occurs while waiting, or if the channel
+   *                       does not become writable within the write timeout.
+   */
+  private void awaitWritable()
+          throws IOException
+  {
+    if (writeSelector == null)
+    {
+      writeSelector = Selector.open();
+    }
+
+    if (writeKey == null)
+    {
+      try
+      {
+        writeKey = channel.register(writeSelector, SelectionKey.OP_WRITE);
+      }
+      catch (final IllegalBlockingModeException e)
+      {
+        // The channel has been switched to blocking mode, so the next attempt
+        // to write will block until it completes.
+        Debug.debugException(e);
+        return;
+      }
+    }
+
+    final long startTime = System.currentTimeMillis();
+    final int numSelected = writeSelector.select(writeTimeoutMillis);
+    writeSelector.selectedKeys().clear();
+
+    if ((numSelected == 0) && (writeTimeoutMillis > 0L) && channel.isOpen() &&
+        ((System.currentTimeMillis() - startTime) >= writeTimeoutMillis))
+    {
+      throw new SocketTimeoutException(
+           ERR_CONN_WRITE_TIMEOUT.get(writeTimeoutMillis));
+    }
+  }
+
+
+
+  /**
+   * Closes the underlying channel, along with the selector used to wait for it
+   * to become writable.  Any write that is waiting for the channel to become
+   * writable will be interrupted.
+   *
+   * @throws  IOException  If a problem occurs while closing the channel.
+   */
+  @Override()
+  public void close()
+         throws IOException
+  {
+    try
+    {
+      channel.close();
+    }
+    finally
+    {
+      final Selector s = writeSelector;
+      if (s != null)
+      {
+        s.wakeup();
+        synchronized (this)
+        {
+          writeKey = null;
+          writeSelector = null;
+          s.close();
+        }
+      }
+    }
+  }
+}
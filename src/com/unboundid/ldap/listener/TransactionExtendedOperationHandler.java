@@ -24,6 +24,7 @@ package com.unboundid.ldap.listener;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -236,10 +237,13 @@ public final class TransactionExtendedOperationHandler
 
     // Create a new object with information to use for the transaction.  It will
     // include the transaction ID and a list of LDAP messages that are part of
-    // the transaction.  Store it in the connection state.
+    // the transaction.  The list must be synchronized because the listener may
+    // be configured to process requests on the connection concurrently.  Store
+    // it in the connection state.
     final ASN1OctetString txnID =
          new ASN1OctetString(String.valueOf(TXN_ID_COUNTER.getAndIncrement()));
-    final List<LDAPMessage> requestList = new ArrayList<>(10);
+    final List<LDAPMessage> requestList =
+         Collections.synchronizedList(new ArrayList<LDAPMessage>(10));
     final ObjectPair<ASN1OctetString,List<LDAPMessage>> txnInfo =
          new ObjectPair<>(txnID, requestList);
     connectionState.put(STATE_VARIABLE_TXN_INFO, txnInfo);
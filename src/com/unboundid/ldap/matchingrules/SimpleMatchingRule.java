@@ -113,11 +113,76 @@ public abstract class SimpleMatchingRule
   {
     final byte[] normValue = normalize(value).getValue();
 
-    int pos = 0;
-    if (subInitial != null)
+    final byte[] normSubInitial;
+    if (subInitial == null)
+    {
+      normSubInitial = null;
+    }
+    else
     {
-      final byte[] normSubInitial =
+      normSubInitial =
            normalizeSubstring(subInitial, SUBSTRING_TYPE_SUBINITIAL).getValue();
+    }
+
+    final byte[][] normSubAny;
+    if (subAny == null)
+    {
+      normSubAny = null;
+    }
+    else
+    {
+      normSubAny = new byte[subAny.length][];
+      for (int i=0; i < subAny.length; i++)
+      {
+        normSubAny[i] =
+             normalizeSubstring(subAny[i],SUBSTRING_TYPE_SUBANY).getValue();
+      }
+    }
+
+    final byte[] normSubFinal;
+    if (subFinal == null)
+    {
+      normSubFinal = null;
+    }
+    else
+    {
+      normSubFinal =
+           normalizeSubstring(subFinal, SUBSTRING_TYPE_SUBFINAL).getValue();
+    }
+
+    return matchesNormalizedSubstring(normValue, normSubInitial, normSubAny,
+         normSubFinal);
+  }
+
+
+
+  /**
+   * Indicates whether the provided normalized value matches the given
+   * normalized substring assertion components.  This may be used to avoid
+   * normalizing the same substring assertion repeatedly when it is to be
+   * compared against a number of values.
+   *
+   * @param  normValue       The normalized value for which to make the
+   *                         determination.  It must not be {@code null}.
+   * @param  normSubInitial  The normalized subInitial component, if any.  It
+   *                         may be {@code null} if there is no subInitial
+   *                         component.
+   * @param  normSubAny      The normalized subAny components, if any.  It may
+   *                         be {@code null} if there are no subAny components.
+   * @param  normSubFinal    The normalized subFinal component, if any.  It may
+   *                         be {@code null} if there is no subFinal component.
+   *
+   * @return  {@code true} if the provided value matches the substring
+   *          assertion, or {@code false} if not.
+   */
+  public static boolean matchesNormalizedSubstring(final byte[] normValue,
+                                                   final byte[] normSubInitial,
+                                                   final byte[][] normSubAny,
+                                                   final byte[] normSubFinal)
+  {
+    int pos = 0;
+    if (normSubInitial != null)
+    {
       if (normValue.length < normSubInitial.length)
       {
         return false;
@@ -134,15 +199,8 @@ public abstract class SimpleMatchingRule
       pos = normSubInitial.length;
     }
 
-    if (subAny != null)
+    if (normSubAny != null)
     {
-      final byte[][] normSubAny = new byte[subAny.length][];
-      for (int i=0; i < subAny.length; i++)
-      {
-        normSubAny[i] =
-             normalizeSubstring(subAny[i],SUBSTRING_TYPE_SUBANY).getValue();
-      }
-
       for (final byte[] b : normSubAny)
       {
         if (b.length == 0)
@@ -182,10 +240,8 @@ public abstract class SimpleMatchingRule
       }
     }
 
-    if (subFinal != null)
+    if (normSubFinal != null)
     {
-      final byte[] normSubFinal =
-           normalizeSubstring(subFinal, SUBSTRING_TYPE_SUBFINAL).getValue();
       int finalStartPos = normValue.length - normSubFinal.length;
       if (finalStartPos < pos)
       {
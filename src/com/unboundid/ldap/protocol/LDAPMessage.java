@@ -41,6 +41,7 @@ import com.unboundid.asn1.ASN1StreamReader;
 import com.unboundid.asn1.ASN1StreamReaderSequence;
 import com.unboundid.ldap.sdk.Control;
 import com.unboundid.ldap.sdk.InternalSDKHelper;
+import com.unboundid.ldap.sdk.LDAPConnection;
 import com.unboundid.ldap.sdk.LDAPException;
 import com.unboundid.ldap.sdk.ResultCode;
 import com.unboundid.ldap.sdk.schema.Schema;
@@ -1111,7 +1112,7 @@ public final class LDAPMessage
                                   final boolean ignoreSocketTimeout)
          throws LDAPException
   {
-    return readLDAPResponseFrom(reader, ignoreSocketTimeout, null);
+    return readLDAPResponseFrom(reader, ignoreSocketTimeout, null, null);
   }
 
 
@@ -1143,6 +1144,76 @@ public final class LDAPMessage
                                   final boolean ignoreSocketTimeout,
                                   final Schema schema)
          throws LDAPException
+  {
+    return readLDAPResponseFrom(reader, ignoreSocketTimeout, schema, null);
+  }
+
+
+
+  /**
+   * Reads {@link LDAPResponse} object from the provided ASN.1 stream reader.
+   * The schema and the lazy search entry decoding setting will be obtained
+   * from the provided connection when a search result entry is decoded rather
+   * than when this method is called, since the connection's schema may be
+   * updated while this method is waiting for the response to arrive.
+   *
+   * @param  reader               The ASN.1 stream reader from which the LDAP
+   *                              message should be read.
+   * @param  ignoreSocketTimeout  Indicates whether to ignore socket timeout
+   *                              exceptions caught during processing.  This
+   *                              should be {@code true} when the associated
+   *                              connection is operating in asynchronous mode,
+   *                              and {@code false} when operating in
+   *                              synchronous mode.  In either case, exceptions
+   *                              will not be ignored for the first read, since
+   *                              that will be handled by the connection reader.
+   * @param  connection           The connection with which the response is
+   *                              associated.  It must not be {@code null}.
+   *
+   * @return  The decoded LDAP message, or {@code null} if the end of the input
+   *          stream has been reached.
+   *
+   * @throws  LDAPException  If an error occurs while attempting to read or
+   *                         decode the LDAP message.
+   */
+  public static LDAPResponse readLDAPResponseFrom(final ASN1StreamReader reader,
+                                  final boolean ignoreSocketTimeout,
+                                  final LDAPConnection connection)
+         throws LDAPException
+  {
+    return readLDAPResponseFrom(reader, ignoreSocketTimeout, null, connection);
+  }
+
+
+
+  /**
+   * Reads {@link LDAPResponse} object from the provided ASN.1 stream reader.
+   *
+   * @param  reader               The ASN.1 stream reader from which the LDAP
+   *                              message should be read.
+   * @param  ignoreSocketTimeout  Indicates whether to ignore socket timeout
+   *                              exceptions caught during processing.
+   * @param  schema               The schema to use to select the appropriate
+   *                              matching rule for attributes included in the
+   *                              response.  It will be ignored if a connection
+   *                              is provided.
+   * @param  connection           The connection from which to obtain the schema
+   *                              and search entry decoding settings when they
+   *                              are needed.  It may be {@code null} if the
+   *                              provided schema should be used.
+   *
+   * @return  The decoded LDAP message, or {@code null} if the end of the input
+   *          stream has been reached.
+   *
+   * @throws  LDAPException  If an error occurs while attempting to read or
+   *                         decode the LDAP message.
+   */
+  private static LDAPResponse readLDAPResponseFrom(
+                                   final ASN1StreamReader reader,
+                                   final boolean ignoreSocketTimeout,
+                                   final Schema schema,
+                                   final LDAPConnection connection)
+         throws LDAPException
   {
     final ASN1StreamReaderSequence messageSequence;
     try
@@ -1202,8 +1273,16 @@ public final class LDAPMessage
                       messageSequence, reader);
 
         case PROTOCOL_OP_TYPE_SEARCH_RESULT_ENTRY:
-          return InternalSDKHelper.readSearchResultEntryFrom(messageID,
-                      messageSequence, reader, schema);
+          if (connection == null)
+          {
+            return InternalSDKHelper.readSearchResultEntryFrom(messageID,
+                        messageSequence, reader, schema);
+          }
+          else
+          {
+            return InternalSDKHelper.readSearchResultEntryFrom(messageID,
+                        messageSequence, reader, connection);
+          }
 
         case PROTOCOL_OP_TYPE_SEARCH_RESULT_REFERENCE:
           return InternalSDKHelper.readSearchResultReferenceFrom(messageID,
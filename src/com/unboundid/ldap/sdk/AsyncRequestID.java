@@ -332,6 +332,21 @@ public final class AsyncRequestID
 
 
 
+  /**
+   * Retrieves the timer task that may be used to cancel this result after a
+   * period of time.
+   *
+   * @return  The timer task that may be used to cancel this result after a
+   *          period of time, or {@code null} if there is none or the result
+   *          has already been set.
+   */
+  AsyncTimeoutTimerTask getTimerTask()
+  {
+    return timerTask;
+  }
+
+
+
   /**
    * Sets the result for the associated operation.
    *
@@ -346,7 +361,7 @@ public final class AsyncRequestID
     if (t != null)
     {
       t.cancel();
-      connection.getTimer().purge();
+      connection.asyncTimeoutCompleted(t);
       timerTask = null;
     }
   }
@@ -22,8 +22,6 @@ package com.unboundid.ldap.sdk;
 
 
 
-import java.util.TimerTask;
-
 import com.unboundid.ldap.protocol.LDAPResponse;
 import com.unboundid.util.Debug;
 import com.unboundid.util.StaticUtils;
@@ -34,10 +32,11 @@ import static com.unboundid.ldap.sdk.LDAPMessages.*;
 
 /**
  * This class provides a timer task that can be used to ensure that operation
- * timeouts for asynchronous operations are properly respected.
+ * timeouts for asynchronous operations are properly respected.  It will be
+ * scheduled with the shared {@link HashedWheelTimer}.
  */
 final class AsyncTimeoutTimerTask
-      extends TimerTask
+      extends HashedWheelTimerTask
 {
   // The async helper with which this task is associated.
   private final CommonAsyncHelper helper;
@@ -67,6 +66,8 @@ final class AsyncTimeoutTimerTask
     final long waitTimeMillis = waitTimeNanos / 1_000_000L;
 
     final LDAPConnection conn = helper.getConnection();
+    conn.asyncTimeoutCompleted(this);
+
     final boolean abandon = conn.getConnectionOptions().abandonOnTimeout();
 
     final String message;
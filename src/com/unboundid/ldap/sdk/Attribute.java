@@ -45,6 +45,7 @@ import com.unboundid.asn1.ASN1StreamReader;
 import com.unboundid.asn1.ASN1StreamReaderSet;
 import com.unboundid.ldap.matchingrules.CaseIgnoreStringMatchingRule;
 import com.unboundid.ldap.matchingrules.MatchingRule;
+import com.unboundid.ldap.matchingrules.SimpleMatchingRule;
 import com.unboundid.ldap.sdk.schema.Schema;
 import com.unboundid.util.Base64;
 import com.unboundid.util.Debug;
@@ -118,6 +119,26 @@ public final class Attribute
 
 
 
+  /**
+   * The name of a system property that can be used to indicate whether
+   * attributes should retain the normalized representations of their values
+   * once they have been computed, so that repeated comparisons against the
+   * same attribute will not need to normalize its values again.  This can
+   * benefit applications that hold a set of entries in memory and evaluate
+   * many filters or comparisons against them, at the cost of additional memory
+   * for each attribute whose normalized values have been used.  If this
+   * property is set at the time that this class is loaded, then its value must
+   * be either "true" or "false".  If this property is not set, then a default
+   * value of "false" will be assumed.
+   * <BR><BR>
+   * The full name for this system property is
+   * "com.unboundid.ldap.sdk.Attribute.cacheNormalizedValues".
+   */
+  public static final String PROPERTY_CACHE_NORMALIZED_VALUES =
+       Attribute.class.getName() + ".cacheNormalizedValues";
+
+
+
   /**
    * The serial version UID for this serializable class.
    */
@@ -125,9 +146,23 @@ public final class Attribute
 
 
 
+  // Indicates whether attributes should retain the normalized representations
+  // of their values once they have been computed.
+  private static volatile boolean cacheNormalizedValues =
+       LDAPConnectionOptions.getSystemProperty(
+            PROPERTY_CACHE_NORMALIZED_VALUES, false);
+
+
+
   // The set of values for this attribute.
   private final ASN1OctetString[] values;
 
+  // The normalized representations of the values for this attribute, as
+  // generated by its matching rule.  If normalized values are to be cached,
+  // then this will be computed the first time it is needed, and an element
+  // will be null if the corresponding value could not be normalized.
+  private transient volatile ASN1OctetString[] normalizedValues;
+
   // The hash code for this attribute.
   private int hashCode = -1;
 
@@ -1245,6 +1280,156 @@ public final class Attribute
 
 
 
+  /**
+   * Retrieves the normalized representations of the values for this attribute,
+   * as generated by the provided matching rule.  If the
+   * {@link #PROPERTY_CACHE_NORMALIZED_VALUES} system property is set to
+   * "true" and the given matching rule is the one associated with this
+   * attribute, then the normalized values will only be generated the first
+   * time they are needed and will be retained for subsequent use.  The
+   * returned array must not be altered by the caller.
+   *
+   * @param  matchingRule  The matching rule to use to normalize the values.  It
+   *                       must not be {@code null}.
+   *
+   * @return  The normalized representations of the values for this attribute,
+   *          in the same order as the values returned by the
+   *          {@link #getRawValues} method.
+   *
+   * @throws  LDAPException  If any of the values cannot be normalized.
+   */
+  public ASN1OctetString[] getNormalizedValues(final MatchingRule matchingRule)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(matchingRule);
+
+    if (cacheNormalizedValues && (matchingRule == this.matchingRule))
+    {
+      final ASN1OctetString[] normValues = getCachedNormalizedValues();
+      for (int i=0; i < normValues.length; i++)
+      {
+        if (normValues[i] == null)
+        {
+          // Attempt to normalize the value again so that the reason it could
+          // not be normalized will be conveyed to the caller.
+          matchingRule.normalize(values[i]);
+        }
+      }
+
+      return normValues;
+    }
+
+    final ASN1OctetString[] normValues = new ASN1OctetString[values.length];
+    for (int i=0; i < values.length; i++)
+    {
+      normValues[i] = matchingRule.normalize(values[i]);
+    }
+
+    return normValues;
+  }
+
+
+
+  /**
+   * Retrieves the normalized representation of the value at the specified
+   * position, as generated by the provided matching rule.  The cached
+   * normalized values will be used if normalized values are to be cached and
+   * the given matching rule is the one associated with this attribute.
+   *
+   * @param  index         The position of the value to normalize.
+   * @param  matchingRule  The matching rule to use to normalize the value.
+   *
+   * @return  The normalized representation of the specified value.
+   *
+   * @throws  LDAPException  If the value cannot be normalized.
+   */
+  ASN1OctetString getNormalizedValue(final int index,
+                                     final MatchingRule matchingRule)
+                  throws LDAPException
+  {
+    if (cacheNormalizedValues && (matchingRule == this.matchingRule))
+    {
+      final ASN1OctetString normalizedValue =
+           getCachedNormalizedValues()[index];
+      if (normalizedValue != null)
+      {
+        return normalizedValue;
+      }
+    }
+
+    return matchingRule.normalize(values[index]);
+  }
+
+
+
+  /**
+   * Retrieves the normalized representations of the values for this attribute,
+   * as generated by its matching rule, computing them if that has not already
+   * been done.  Any value that cannot be normalized will be represented by a
+   * {@code null} element.  This must only be called if normalized values are
+   * to be cached.
+   *
+   * @return  The normalized representations of the values for this attribute.
+   */
+  private ASN1OctetString[] getCachedNormalizedValues()
+  {
+    ASN1OctetString[] normValues = normalizedValues;
+    if (normValues == null)
+    {
+      normValues = new ASN1OctetString[values.length];
+      for (int i=0; i < values.length; i++)
+      {
+        try
+        {
+          normValues[i] = matchingRule.normalize(values[i]);
+        }
+        catch (final LDAPException le)
+        {
+          Debug.debugException(le);
+        }
+      }
+
+      normalizedValues = normValues;
+    }
+
+    return normValues;
+  }
+
+
+
+  /**
+   * Indicates whether attributes should retain the normalized representations
+   * of their values once they have been computed.  The initial value is
+   * determined by the {@link #PROPERTY_CACHE_NORMALIZED_VALUES} system
+   * property.
+   *
+   * @return  {@code true} if attributes should retain the normalized
+   *          representations of their values, or {@code false} if not.
+   */
+  static boolean cacheNormalizedValues()
+  {
+    return cacheNormalizedValues;
+  }
+
+
+
+  /**
+   * Specifies whether attributes should retain the normalized representations
+   * of their values once they have been computed.  This is primarily intended
+   * for testing purposes.  Attributes that have already cached their
+   * normalized values will continue to use them.
+   *
+   * @param  cacheNormalizedValues  Indicates whether attributes should retain
+   *                                the normalized representations of their
+   *                                values.
+   */
+  static void setCacheNormalizedValues(final boolean cacheNormalizedValues)
+  {
+    Attribute.cacheNormalizedValues = cacheNormalizedValues;
+  }
+
+
+
   /**
    * Indicates whether this attribute contains at least one value.
    *
@@ -1364,6 +1549,24 @@ public final class Attribute
   {
     try
     {
+      // A simple matching rule considers two values equal if their normalized
+      // representations are equal, so if it is the matching rule for this
+      // attribute, then the cached normalized values can be used.
+      if (cacheNormalizedValues && (matchingRule == this.matchingRule) &&
+          (matchingRule instanceof SimpleMatchingRule))
+      {
+        final ASN1OctetString normalizedValue = matchingRule.normalize(value);
+        for (final ASN1OctetString v : getCachedNormalizedValues())
+        {
+          if (normalizedValue.equalsIgnoreType(v))
+          {
+            return true;
+          }
+        }
+
+        return false;
+      }
+
       return matchingRule.matchesAnyValue(value, values);
     }
     catch (final LDAPException le)
@@ -1664,16 +1867,26 @@ public final class Attribute
     {
       int c = StaticUtils.toLowerCase(name).hashCode();
 
-      for (final ASN1OctetString value : values)
+      // Use the cached normalized values if they are already available, but
+      // don't compute them just for the sake of the hash code, since that is
+      // only needed once.
+      final ASN1OctetString[] normValues = normalizedValues;
+      for (int i=0; i < values.length; i++)
       {
+        if ((normValues != null) && (normValues[i] != null))
+        {
+          c += normValues[i].hashCode();
+          continue;
+        }
+
         try
         {
-          c += matchingRule.normalize(value).hashCode();
+          c += matchingRule.normalize(values[i]).hashCode();
         }
         catch (final LDAPException le)
         {
           Debug.debugException(le);
-          c += value.hashCode();
+          c += values[i].hashCode();
         }
       }
 
@@ -1740,9 +1953,9 @@ public final class Attribute
       // set.  For any values that aren't in the un-normalized set, create a
       // new set with the normalized representations of those values.
       HashSet<ASN1OctetString> normalizedMissingValues = null;
-      for (final ASN1OctetString value : a.values)
+      for (int i=0; i < a.values.length; i++)
       {
-        if (! unNormalizedValues.remove(value))
+        if (! unNormalizedValues.remove(a.values[i]))
         {
           if (normalizedMissingValues == null)
           {
@@ -1752,7 +1965,7 @@ public final class Attribute
 
           try
           {
-            normalizedMissingValues.add(matchingRule.normalize(value));
+            normalizedMissingValues.add(a.getNormalizedValue(i, matchingRule));
           }
           catch (final Exception e)
           {
@@ -1768,12 +1981,17 @@ public final class Attribute
       // compare their normalized representations.
       if (normalizedMissingValues != null)
       {
-        for (final ASN1OctetString value : unNormalizedValues)
+        for (int i=0; i < values.length; i++)
         {
+          if (! unNormalizedValues.contains(values[i]))
+          {
+            continue;
+          }
+
           try
           {
             if (! normalizedMissingValues.contains(
-                       matchingRule.normalize(value)))
+                       getNormalizedValue(i, matchingRule)))
             {
               return false;
             }
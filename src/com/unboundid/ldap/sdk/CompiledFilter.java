@@ -0,0 +1,539 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.Serializable;
+import java.util.LinkedHashSet;
+
+import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.ldap.matchingrules.MatchingRule;
+import com.unboundid.ldap.matchingrules.SimpleMatchingRule;
+import com.unboundid.ldap.sdk.schema.AttributeTypeDefinition;
+import com.unboundid.ldap.sdk.schema.Schema;
+import com.unboundid.util.Debug;
+import com.unboundid.util.NotMutable;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+import com.unboundid.util.Validator;
+
+import static com.unboundid.ldap.sdk.LDAPMessages.*;
+
+
+
+/**
+ * This class provides a form of a {@link Filter} that has been prepared for
+ * evaluating against a large number of entries with a particular schema.  It
+ * is created with the {@link Filter#compile} method, and it yields the same
+ * result as {@link Filter#matchesEntry(Entry,Schema)} for every entry, but
+ * much of the work that method does for each entry is only done once when the
+ * filter is compiled:
+ * <UL>
+ *   <LI>The names under which the attribute targeted by each component may be
+ *       held in an entry (including the OID and any alternate names defined in
+ *       the schema) are identified and converted to lowercase.</LI>
+ *   <LI>The equality, ordering, or substring matching rule for each component
+ *       is selected.</LI>
+ *   <LI>For components whose matching rule can compare normalized values byte
+ *       for byte, the assertion value and any substring components are
+ *       normalized.  If the
+ *       {@link Attribute#PROPERTY_CACHE_NORMALIZED_VALUES} system property is
+ *       set to "true", then the values of those attributes are compared using
+ *       the normalized representations cached in each {@link Attribute}, so
+ *       evaluating the filter repeatedly against the same entry does not need
+ *       to normalize its values again.</LI>
+ * </UL>
+ * A compiled filter does not hold any state that is specific to a particular
+ * entry, so a single instance may safely be used by multiple threads at the
+ * same time.
+ * <BR><BR>
+ * <H2>Example</H2>
+ * The following example demonstrates the process for compiling a filter and
+ * using it to identify which entries read from an LDIF file match that filter:
+ * <PRE>
+ * Filter filter = Filter.create("(&amp;(objectClass=person)(sn=Doe))");
+ * CompiledFilter compiledFilter = filter.compile(schema);
+ *
+ * Entry entry;
+ * while ((entry = ldifReader.readEntry()) != null)
+ * {
+ *   if (compiledFilter.matchesEntry(entry))
+ *   {
+ *     // The entry matches the filter.
+ *   }
+ * }
+ * </PRE>
+ */
+@NotMutable()
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+public final class CompiledFilter
+       implements Serializable
+{
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = 4907735413264052817L;
+
+
+
+  // The normalized assertion value for an equality filter, if it could be
+  // determined.
+  private final ASN1OctetString normalizedAssertionValue;
+
+  // Indicates whether the substring assertion components have been
+  // normalized.
+  private final boolean substringNormalized;
+
+  // The normalized subInitial component for a substring filter, if any.
+  private final byte[] normalizedSubInitial;
+
+  // The normalized subFinal component for a substring filter, if any.
+  private final byte[] normalizedSubFinal;
+
+  // The normalized subAny components for a substring filter, if any.
+  private final byte[][] normalizedSubAny;
+
+  // The compiled components for an AND or OR filter.
+  private final CompiledFilter[] components;
+
+  // The compiled component for a NOT filter.
+  private final CompiledFilter notComponent;
+
+  // The filter that was compiled.
+  private final Filter filter;
+
+  // The matching rule to use for an equality, substring, greater-or-equal, or
+  // less-or-equal filter.
+  private final MatchingRule matchingRule;
+
+  // The schema with which the filter was compiled.
+  private final Schema schema;
+
+  // The lowercase names under which the target attribute may be held in an
+  // entry, in the order in which they should be checked.
+  private final String[] attributeNames;
+
+
+
+  /**
+   * Creates a new compiled form of the provided filter.
+   *
+   * @param  filter  The filter to be compiled.  It must not be {@code null}.
+   * @param  schema  The schema to use when compiling the filter.  It may be
+   *                 {@code null} if all matching should be performed using a
+   *                 case-ignore matching rule.
+   */
+  CompiledFilter(final Filter filter, final Schema schema)
+  {
+    Validator.ensureNotNull(filter);
+
+    this.filter = filter;
+    this.schema = schema;
+
+    CompiledFilter[] comps = null;
+    CompiledFilter notComp = null;
+    String[] names = null;
+    MatchingRule mr = null;
+    ASN1OctetString normAssertion = null;
+    boolean substringNorm = false;
+    byte[] normSubInitial = null;
+    byte[][] normSubAny = null;
+    byte[] normSubFinal = null;
+
+    switch (filter.getFilterType())
+    {
+      case Filter.FILTER_TYPE_AND:
+      case Filter.FILTER_TYPE_OR:
+        final Filter[] filterComps = filter.getComponents();
+        comps = new CompiledFilter[filterComps.length];
+        for (int i=0; i < filterComps.length; i++)
+        {
+          comps[i] = new CompiledFilter(filterComps[i], schema);
+        }
+        break;
+
+      case Filter.FILTER_TYPE_NOT:
+        notComp = new CompiledFilter(filter.getNOTComponent(), schema);
+        break;
+
+      case Filter.FILTER_TYPE_EQUALITY:
+        names = getAttributeNames(filter.getAttributeName(), schema);
+        mr = MatchingRule.selectEqualityMatchingRule(filter.getAttributeName(),
+             schema);
+        if (mr instanceof SimpleMatchingRule)
+        {
+          try
+          {
+            normAssertion = mr.normalize(filter.getRawAssertionValue());
+          }
+          catch (final LDAPException le)
+          {
+            // The assertion value will be normalized for each entry, so the
+            // exception will be thrown when the filter is evaluated.
+            Debug.debugException(le);
+          }
+        }
+        break;
+
+      case Filter.FILTER_TYPE_SUBSTRING:
+        names = getAttributeNames(filter.getAttributeName(), schema);
+        mr = MatchingRule.selectSubstringMatchingRule(
+             filter.getAttributeName(), schema);
+        if (mr instanceof SimpleMatchingRule)
+        {
+          try
+          {
+            final ASN1OctetString subInitial = filter.getRawSubInitialValue();
+            if (subInitial != null)
+            {
+              normSubInitial = mr.normalizeSubstring(subInitial,
+                   MatchingRule.SUBSTRING_TYPE_SUBINITIAL).getValue();
+            }
+
+            final ASN1OctetString[] subAny = filter.getRawSubAnyValues();
+            if (subAny != null)
+            {
+              normSubAny = new byte[subAny.length][];
+              for (int i=0; i < subAny.length; i++)
+              {
+                normSubAny[i] = mr.normalizeSubstring(subAny[i],
+                     MatchingRule.SUBSTRING_TYPE_SUBANY).getValue();
+              }
+            }
+
+            final ASN1OctetString subFinal = filter.getRawSubFinalValue();
+            if (subFinal != null)
+            {
+              normSubFinal = mr.normalizeSubstring(subFinal,
+                   MatchingRule.SUBSTRING_TYPE_SUBFINAL).getValue();
+            }
+
+            substringNorm = true;
+          }
+          catch (final LDAPException le)
+          {
+            // The substring components will be normalized for each value, so
+            // the exception will be thrown when the filter is evaluated.
+            Debug.debugException(le);
+          }
+        }
+        break;
+
+      case Filter.FILTER_TYPE_GREATER_OR_EQUAL:
+      case Filter.FILTER_TYPE_LESS_OR_EQUAL:
+        names = getAttributeNames(filter.getAttributeName(), schema);
+        mr = MatchingRule.selectOrderingMatchingRule(filter.getAttributeName(),
+             schema);
+        break;
+
+      case Filter.FILTER_TYPE_PRESENCE:
+        names = getAttributeNames(filter.getAttributeName(), schema);
+        break;
+
+      default:
+        // Approximate and extensible matching filters are not supported, and
+        // an exception will be thrown if an attempt is made to evaluate them.
+        break;
+    }
+
+    components               = comps;
+    notComponent             = notComp;
+    attributeNames           = names;
+    matchingRule             = mr;
+    normalizedAssertionValue = normAssertion;
+    substringNormalized      = substringNorm;
+    normalizedSubInitial     = normSubInitial;
+    normalizedSubAny         = normSubAny;
+    normalizedSubFinal       = normSubFinal;
+  }
+
+
+
+  /**
+   * Retrieves the lowercase names under which the specified attribute may be
+   * held in an entry, in the same order as they would be checked by the
+   * {@link Entry#getAttribute(String,Schema)} method.
+   *
+   * @param  attributeName  The name of the attribute, which may include
+   *                        options.
+   * @param  schema         The schema to use to identify the OID and alternate
+   *                        names for the attribute.  It may be {@code null}
+   *                        if only the provided name should be used.
+   *
+   * @return  The lowercase names under which the attribute may be held.
+   */
+  private static String[] getAttributeNames(final String attributeName,
+                                            final Schema schema)
+  {
+    final LinkedHashSet<String> names =
+         new LinkedHashSet<>(StaticUtils.computeMapCapacity(5));
+    names.add(StaticUtils.toLowerCase(attributeName));
+
+    if (schema != null)
+    {
+      final String baseName;
+      final String options;
+      final int semicolonPos = attributeName.indexOf(';');
+      if (semicolonPos > 0)
+      {
+        baseName = attributeName.substring(0, semicolonPos);
+        options =
+             StaticUtils.toLowerCase(attributeName.substring(semicolonPos));
+      }
+      else
+      {
+        baseName = attributeName;
+        options  = "";
+      }
+
+      final AttributeTypeDefinition at = schema.getAttributeType(baseName);
+      if (at != null)
+      {
+        names.add(StaticUtils.toLowerCase(at.getOID() + options));
+        for (final String name : at.getNames())
+        {
+          names.add(StaticUtils.toLowerCase(name) + options);
+        }
+      }
+    }
+
+    return names.toArray(StaticUtils.NO_STRINGS);
+  }
+
+
+
+  /**
+   * Retrieves the filter that was compiled.
+   *
+   * @return  The filter that was compiled.
+   */
+  public Filter getFilter()
+  {
+    return filter;
+  }
+
+
+
+  /**
+   * Retrieves the schema with which the filter was compiled.
+   *
+   * @return  The schema with which the filter was compiled, or {@code null} if
+   *          it was compiled without a schema.
+   */
+  public Schema getSchema()
+  {
+    return schema;
+  }
+
+
+
+  /**
+   * Indicates whether the filter matches the provided entry.  The result will
+   * be the same as that of the {@link Filter#matchesEntry(Entry,Schema)} method
+   * when it is invoked with the schema used to compile the filter, and the same
+   * caveats apply.
+   *
+   * @param  entry  The entry for which to make the determination.  It must not
+   *                be {@code null}.
+   *
+   * @return  {@code true} if the filter appears to match the provided entry, or
+   *          {@code false} if not.
+   *
+   * @throws  LDAPException  If a problem occurs while trying to make the
+   *                         determination.
+   */
+  public boolean matchesEntry(final Entry entry)
+         throws LDAPException
+  {
+    Validator.ensureNotNull(entry);
+
+    switch (filter.getFilterType())
+    {
+      case Filter.FILTER_TYPE_AND:
+        for (final CompiledFilter f : components)
+        {
+          if (! f.matchesEntry(entry))
+          {
+            return false;
+          }
+        }
+        return true;
+
+      case Filter.FILTER_TYPE_OR:
+        for (final CompiledFilter f : components)
+        {
+          if (f.matchesEntry(entry))
+          {
+            return true;
+          }
+        }
+        return false;
+
+      case Filter.FILTER_TYPE_NOT:
+        return (! notComponent.matchesEntry(entry));
+
+      case Filter.FILTER_TYPE_EQUALITY:
+        Attribute a = getAttribute(entry);
+        if (a == null)
+        {
+          return false;
+        }
+
+        if (normalizedAssertionValue == null)
+        {
+          return matchingRule.matchesAnyValue(filter.getRawAssertionValue(),
+               a.getRawValues());
+        }
+
+        for (int i=0; i < a.size(); i++)
+        {
+          try
+          {
+            if (normalizedAssertionValue.equalsIgnoreType(
+                 a.getNormalizedValue(i, matchingRule)))
+            {
+              return true;
+            }
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+          }
+        }
+        return false;
+
+      case Filter.FILTER_TYPE_SUBSTRING:
+        a = getAttribute(entry);
+        if (a == null)
+        {
+          return false;
+        }
+
+        final ASN1OctetString[] values = a.getRawValues();
+        for (int i=0; i < values.length; i++)
+        {
+          if (substringNormalized)
+          {
+            if (SimpleMatchingRule.matchesNormalizedSubstring(
+                 a.getNormalizedValue(i, matchingRule).getValue(),
+                 normalizedSubInitial, normalizedSubAny, normalizedSubFinal))
+            {
+              return true;
+            }
+          }
+          else if (matchingRule.matchesSubstring(values[i],
+                        filter.getRawSubInitialValue(),
+                        filter.getRawSubAnyValues(),
+                        filter.getRawSubFinalValue()))
+          {
+            return true;
+          }
+        }
+        return false;
+
+      case Filter.FILTER_TYPE_GREATER_OR_EQUAL:
+        a = getAttribute(entry);
+        if (a == null)
+        {
+          return false;
+        }
+
+        for (final ASN1OctetString v : a.getRawValues())
+        {
+          if (matchingRule.compareValues(v, filter.getRawAssertionValue()) >= 0)
+          {
+            return true;
+          }
+        }
+        return false;
+
+      case Filter.FILTER_TYPE_LESS_OR_EQUAL:
+        a = getAttribute(entry);
+        if (a == null)
+        {
+          return false;
+        }
+
+        for (final ASN1OctetString v : a.getRawValues())
+        {
+          if (matchingRule.compareValues(v, filter.getRawAssertionValue()) <= 0)
+          {
+            return true;
+          }
+        }
+        return false;
+
+      case Filter.FILTER_TYPE_PRESENCE:
+        return (getAttribute(entry) != null);
+
+      case Filter.FILTER_TYPE_APPROXIMATE_MATCH:
+        throw new LDAPException(ResultCode.NOT_SUPPORTED,
+             ERR_FILTER_APPROXIMATE_MATCHING_NOT_SUPPORTED.get());
+
+      case Filter.FILTER_TYPE_EXTENSIBLE_MATCH:
+        throw new LDAPException(ResultCode.NOT_SUPPORTED,
+             ERR_FILTER_EXTENSIBLE_MATCHING_NOT_SUPPORTED.get());
+
+      default:
+        throw new LDAPException(ResultCode.PARAM_ERROR,
+                                ERR_FILTER_INVALID_TYPE.get());
+    }
+  }
+
+
+
+  /**
+   * Retrieves the attribute targeted by this filter from the provided entry.
+   *
+   * @param  entry  The entry from which to retrieve the attribute.
+   *
+   * @return  The attribute targeted by this filter, or {@code null} if the
+   *          entry does not contain that attribute.
+   */
+  private Attribute getAttribute(final Entry entry)
+  {
+    for (final String name : attributeNames)
+    {
+      final Attribute a = entry.getAttributeWithLowerCaseName(name);
+      if (a != null)
+      {
+        return a;
+      }
+    }
+
+    return null;
+  }
+
+
+
+  /**
+   * Retrieves a string representation of this compiled filter.
+   *
+   * @return  A string representation of this compiled filter.
+   */
+  @Override()
+  public String toString()
+  {
+    return filter.toString();
+  }
+}
@@ -137,6 +137,29 @@ public class Entry
 
 
 
+  /**
+   * Creates a new entry with the provided DN and attribute map.  The map will
+   * be used directly rather than copied.
+   *
+   * @param  dn          The DN for this entry.  It must not be {@code null}.
+   * @param  schema      The schema to use for operations involving this entry.
+   *                     It may be {@code null} if no schema is available.
+   * @param  attributes  The map to use to hold the attributes for this entry,
+   *                     keyed by lowercase attribute name.  It must not be
+   *                     {@code null}.
+   */
+  Entry(final String dn, final Schema schema,
+        final LinkedHashMap<String,Attribute> attributes)
+  {
+    Validator.ensureNotNull(dn, attributes);
+
+    this.dn         = dn;
+    this.schema     = schema;
+    this.attributes = attributes;
+  }
+
+
+
   /**
    * Creates a new entry with the provided DN and no attributes.
    *
@@ -897,6 +920,26 @@ public class Entry
 
 
 
+  /**
+   * Retrieves the attribute held in this entry under the provided name, which
+   * must already have been converted to lowercase.  No attempt will be made to
+   * find the attribute under any other name, so this avoids the cost of
+   * converting the name for callers that look up the same attribute in a
+   * number of entries.
+   *
+   * @param  lowerCaseName  The lowercase name, including any options, of the
+   *                        attribute to retrieve.
+   *
+   * @return  The requested attribute, or {@code null} if this entry does not
+   *          have an attribute with the provided name.
+   */
+  final Attribute getAttributeWithLowerCaseName(final String lowerCaseName)
+  {
+    return attributes.get(lowerCaseName);
+  }
+
+
+
   /**
    * Retrieves the list of attributes with the given base name and all of the
    * specified options.
@@ -2129,11 +2172,14 @@ public class Entry
         final LinkedHashMap<ASN1OctetString,ASN1OctetString> sourceValues =
              new LinkedHashMap<>(StaticUtils.computeMapCapacity(
                   sourceValueArray.length));
-        for (final ASN1OctetString s : sourceValueArray)
+        for (int i=0; i < sourceValueArray.length; i++)
         {
+          final ASN1OctetString s = sourceValueArray[i];
           try
           {
-            sourceValues.put(sourceAttr.getMatchingRule().normalize(s), s);
+            sourceValues.put(
+                 sourceAttr.getNormalizedValue(i, sourceAttr.getMatchingRule()),
+                 s);
           }
           catch (final Exception e)
           {
@@ -2146,11 +2192,14 @@ public class Entry
         final LinkedHashMap<ASN1OctetString,ASN1OctetString> targetValues =
              new LinkedHashMap<>(StaticUtils.computeMapCapacity(
                   targetValueArray.length));
-        for (final ASN1OctetString s : targetValueArray)
+        for (int i=0; i < targetValueArray.length; i++)
         {
+          final ASN1OctetString s = targetValueArray[i];
           try
           {
-            targetValues.put(sourceAttr.getMatchingRule().normalize(s), s);
+            targetValues.put(
+                 targetAttr.getNormalizedValue(i, sourceAttr.getMatchingRule()),
+                 s);
           }
           catch (final Exception e)
           {
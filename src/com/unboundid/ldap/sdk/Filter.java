@@ -3416,6 +3416,26 @@ attrNameLoop:
 
 
 
+  /**
+   * Compiles this filter for use in determining whether it matches a large
+   * number of entries.  The resulting compiled filter will yield the same
+   * results as the {@link #matchesEntry(Entry,Schema)} method with the provided
+   * schema, but it will identify matching rules and normalize assertion values
+   * only once rather than for each entry.
+   *
+   * @param  schema  The schema to use when compiling the filter.  If this is
+   *                 {@code null}, then all matching will be performed using a
+   *                 case-ignore matching rule.
+   *
+   * @return  The compiled form of this filter.
+   */
+  public CompiledFilter compile(final Schema schema)
+  {
+    return new CompiledFilter(this, schema);
+  }
+
+
+
   /**
    * Attempts to simplify the provided filter to allow it to be more efficiently
    * processed by the server.  The simplifications it will make include:
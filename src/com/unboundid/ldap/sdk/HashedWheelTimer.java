@@ -0,0 +1,414 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.unboundid.util.Debug;
+import com.unboundid.util.InternalUseOnly;
+import com.unboundid.util.LDAPSDKThreadFactory;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides a timer that uses a hashed timing wheel to schedule
+ * tasks, so that scheduling and cancelling a task are both constant-time
+ * operations regardless of the number of outstanding tasks.  This makes it
+ * well suited to tracking large numbers of deadlines that will usually be
+ * cancelled before they expire, like response timeouts for asynchronous
+ * operations.
+ * <BR><BR>
+ * Time is divided into ticks of a fixed duration, and each tick is mapped onto
+ * one of a fixed number of buckets.  Newly-scheduled tasks are placed in a
+ * concurrent queue and moved into the appropriate bucket by the timer thread at
+ * the next tick, and cancelled tasks are simply marked as such and discarded
+ * the next time their bucket is visited.  As a result, a task will run no
+ * earlier than its deadline, and no more than about one tick after it.
+ * <BR><BR>
+ * Expired tasks are run by a separate pool of threads so that a task that
+ * blocks (for example, while trying to send an abandon request to an
+ * unresponsive server) cannot delay the expiration of other tasks.  When there
+ * are no outstanding tasks, the timer thread will sleep until a new task is
+ * scheduled.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class HashedWheelTimer
+      extends Thread
+{
+  /**
+   * The default duration for each tick of the wheel, in milliseconds.
+   */
+  static final long DEFAULT_TICK_DURATION_MILLIS = 10L;
+
+
+
+  /**
+   * The default number of buckets in the wheel.
+   */
+  static final int DEFAULT_WHEEL_SIZE = 512;
+
+
+
+  /**
+   * The timer instance shared by all connections in the LDAP SDK.
+   */
+  private static HashedWheelTimer sharedInstance = null;
+
+
+
+  // The buckets that make up the wheel.  They will only be accessed by the
+  // timer thread.
+  private final HashedWheelTimerTask[] wheel;
+
+  // The tasks that have been scheduled but not yet placed in the wheel.
+  private final ConcurrentLinkedQueue<HashedWheelTimerTask> pendingTasks;
+
+  // The executor that will be used to run expired tasks.
+  private final ExecutorService taskExecutor;
+
+  // The mask used to map a tick onto a bucket in the wheel.
+  private final int wheelMask;
+
+  // The number of tasks currently held in the wheel, including those that have
+  // been cancelled but not yet discarded.  It will only be accessed by the
+  // timer thread.
+  private long numTasksInWheel;
+
+  // The tick that the timer thread will process next.  It will only be updated
+  // by the timer thread.
+  private volatile long currentTick;
+
+  // The duration of each tick, in nanoseconds.
+  private final long tickDurationNanos;
+
+  // The time, in the System.nanoTime clock, that corresponds to tick zero.  It
+  // will only be updated by the timer thread.
+  private volatile long startTimeNanos;
+
+  // Indicates whether the timer thread is sleeping because there are no
+  // outstanding tasks.
+  private volatile boolean idle;
+
+
+
+  /**
+   * Creates a new hashed wheel timer.  The {@link #start} method must be
+   * called before any scheduled tasks will run.
+   *
+   * @param  name                The name to use for the timer thread.  It will
+   *                             also be used as the base name for the threads
+   *                             that run expired tasks.
+   * @param  tickDurationMillis  The duration for each tick of the wheel, in
+   *                             milliseconds.  It must be greater than zero.
+   * @param  wheelSize           The minimum number of buckets in the wheel.  It
+   *                             will be rounded up to a power of two.
+   */
+  HashedWheelTimer(final String name, final long tickDurationMillis,
+                   final int wheelSize)
+  {
+    setName(name);
+    setDaemon(true);
+
+    int size = 1;
+    while (size < wheelSize)
+    {
+      size <<= 1;
+    }
+
+    wheel = new HashedWheelTimerTask[size];
+    wheelMask = size - 1;
+    tickDurationNanos = TimeUnit.MILLISECONDS.toNanos(tickDurationMillis);
+    pendingTasks = new ConcurrentLinkedQueue<>();
+    numTasksInWheel = 0L;
+    currentTick = 0L;
+    startTimeNanos = System.nanoTime();
+    idle = false;
+
+    taskExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L,
+         TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+         new LDAPSDKThreadFactory(name + " Task Runner", true));
+  }
+
+
+
+  /**
+   * Retrieves the timer instance that is shared by all connections in the LDAP
+   * SDK, creating and starting it if necessary.
+   *
+   * @return  The shared timer instance.
+   */
+  static synchronized HashedWheelTimer getSharedInstance()
+  {
+    if (sharedInstance == null)
+    {
+      sharedInstance = new HashedWheelTimer("LDAP SDK Timeout Timer",
+           DEFAULT_TICK_DURATION_MILLIS, DEFAULT_WHEEL_SIZE);
+      sharedInstance.start();
+    }
+
+    return sharedInstance;
+  }
+
+
+
+  /**
+   * Schedules the provided task to run after the specified delay.
+   *
+   * @param  task         The task to be scheduled.  It must not be
+   *                      {@code null}, and it must not have been scheduled
+   *                      before.
+   * @param  delayMillis  The length of time in milliseconds to wait before
+   *                      running the task.
+   *
+   * @throws  IllegalStateException  If the task has already been scheduled or
+   *                                 cancelled.
+   */
+  void schedule(final HashedWheelTimerTask task, final long delayMillis)
+  {
+    final long deadlineNanos = System.nanoTime() +
+         TimeUnit.MILLISECONDS.toNanos(Math.max(0L, delayMillis));
+    if (! task.markScheduled(deadlineNanos))
+    {
+      throw new IllegalStateException();
+    }
+
+    pendingTasks.offer(task);
+    if (idle)
+    {
+      LockSupport.unpark(this);
+    }
+  }
+
+
+
+  /**
+   * Operates in a loop, advancing the wheel once per tick and running any tasks
+   * whose deadlines have been reached.  This method is for internal use only
+   * and must not be invoked by external callers.
+   */
+  @InternalUseOnly()
+  @Override()
+  public void run()
+  {
+    while (true)
+    {
+      if ((numTasksInWheel == 0L) && pendingTasks.isEmpty())
+      {
+        awaitTask();
+      }
+
+      awaitNextTick();
+
+      transferPendingTasks();
+      expireTasks(wheel[(int) (currentTick & wheelMask)]);
+      currentTick++;
+    }
+  }
+
+
+
+  /**
+   * Waits until a new task has been scheduled, and then re-aligns the clock so
+   * that the wheel will not try to catch up on ticks that elapsed while it was
+   * idle.
+   */
+  private void awaitTask()
+  {
+    idle = true;
+    while (pendingTasks.isEmpty())
+    {
+      LockSupport.park(this);
+      Thread.interrupted();
+    }
+    idle = false;
+
+    startTimeNanos = System.nanoTime() - (currentTick * tickDurationNanos);
+  }
+
+
+
+  /**
+   * Waits until the time for the current tick has elapsed.
+   */
+  private void awaitNextTick()
+  {
+    final long tickEndNanos =
+         startTimeNanos + ((currentTick + 1L) * tickDurationNanos);
+    while (true)
+    {
+      final long sleepNanos = tickEndNanos - System.nanoTime();
+      if (sleepNanos <= 0L)
+      {
+        return;
+      }
+
+      LockSupport.parkNanos(this, sleepNanos);
+      Thread.interrupted();
+    }
+  }
+
+
+
+  /**
+   * Moves all pending tasks into the appropriate buckets in the wheel.
+   */
+  private void transferPendingTasks()
+  {
+    while (true)
+    {
+      final HashedWheelTimerTask task = pendingTasks.poll();
+      if (task == null)
+      {
+        return;
+      }
+
+      if (task.isCancelled())
+      {
+        continue;
+      }
+
+      // Determine the tick during which the deadline will be reached.  If that
+      // tick has already been processed, then use the current tick so that the
+      // task runs as soon as possible.
+      final long deadlineTick = Math.max(currentTick,
+           (task.getDeadlineNanos() - startTimeNanos) / tickDurationNanos);
+
+      final int bucket = (int) (deadlineTick & wheelMask);
+      task.setRemainingRounds((deadlineTick - currentTick) / wheel.length);
+      task.setNext(wheel[bucket]);
+      wheel[bucket] = task;
+      numTasksInWheel++;
+    }
+  }
+
+
+
+  /**
+   * Iterates through the tasks in the provided bucket, running those that have
+   * expired and discarding those that have been cancelled.
+   *
+   * @param  firstTask  The first task in the bucket to process.
+   */
+  private void expireTasks(final HashedWheelTimerTask firstTask)
+  {
+    final int bucket = (int) (currentTick & wheelMask);
+
+    HashedWheelTimerTask previous = null;
+    HashedWheelTimerTask task = firstTask;
+    while (task != null)
+    {
+      final HashedWheelTimerTask next = task.getNext();
+      final boolean remove;
+      if (task.isCancelled())
+      {
+        remove = true;
+      }
+      else if (task.getRemainingRounds() <= 0L)
+      {
+        remove = true;
+        if (task.markExpired())
+        {
+          runTask(task);
+        }
+      }
+      else
+      {
+        remove = false;
+        task.setRemainingRounds(task.getRemainingRounds() - 1L);
+      }
+
+      if (remove)
+      {
+        if (previous == null)
+        {
+          wheel[bucket] = next;
+        }
+        else
+        {
+          previous.setNext(next);
+        }
+
+        task.setNext(null);
+        numTasksInWheel--;
+      }
+      else
+      {
+        previous = task;
+      }
+
+      task = next;
+    }
+  }
+
+
+
+  /**
+   * Runs the provided expired task using the task executor, or in the timer
+   * thread if the executor is unable to accept it.
+   *
+   * @param  task  The task to be run.
+   */
+  private void runTask(final HashedWheelTimerTask task)
+  {
+    try
+    {
+      taskExecutor.execute(task);
+    }
+    catch (final RejectedExecutionException e)
+    {
+      Debug.debugException(e);
+
+      try
+      {
+        task.run();
+      }
+      catch (final Exception e2)
+      {
+        Debug.debugException(e2);
+      }
+    }
+  }
+
+
+
+  /**
+   * Retrieves the number of tasks that the timer thread currently holds in the
+   * wheel, including cancelled tasks that have not yet been discarded.  This
+   * must only be used for testing purposes, and the value will only be
+   * accurate if the caller has ensured that the timer is quiescent.
+   *
+   * @return  The number of tasks currently held in the wheel.
+   */
+  long getNumTasksInWheel()
+  {
+    return numTasksInWheel;
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides a task that may be scheduled for execution with a
+ * {@link HashedWheelTimer}.  A task may only be scheduled once, and it may be
+ * cancelled in constant time at any point before it has started running.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+abstract class HashedWheelTimerTask
+      implements Runnable
+{
+  /**
+   * The state for a task that has not yet been scheduled.
+   */
+  private static final int STATE_NEW = 0;
+
+
+
+  /**
+   * The state for a task that has been scheduled but has not yet expired or
+   * been cancelled.
+   */
+  private static final int STATE_SCHEDULED = 1;
+
+
+
+  /**
+   * The state for a task that has been cancelled.
+   */
+  private static final int STATE_CANCELLED = 2;
+
+
+
+  /**
+   * The state for a task whose deadline has been reached.
+   */
+  private static final int STATE_EXPIRED = 3;
+
+
+
+  // The current state for this task.
+  private final AtomicInteger state;
+
+  // The number of complete rotations of the wheel that must occur before this
+  // task expires.  It will only be accessed by the timer thread.
+  private long remainingRounds;
+
+  // The next task in the same bucket of the wheel.  It will only be accessed by
+  // the timer thread.
+  private HashedWheelTimerTask next;
+
+  // The time, in the timer's nanosecond clock, at which this task should run.
+  private long deadlineNanos;
+
+
+
+  /**
+   * Creates a new timer task.
+   */
+  protected HashedWheelTimerTask()
+  {
+    state = new AtomicInteger(STATE_NEW);
+    remainingRounds = 0L;
+    next = null;
+    deadlineNanos = 0L;
+  }
+
+
+
+  /**
+   * Cancels this task so that it will not run.
+   *
+   * @return  {@code true} if the task was cancelled before it started running,
+   *          or {@code false} if it had already expired or been cancelled.
+   */
+  public final boolean cancel()
+  {
+    while (true)
+    {
+      final int s = state.get();
+      if ((s == STATE_CANCELLED) || (s == STATE_EXPIRED))
+      {
+        return false;
+      }
+      else if (state.compareAndSet(s, STATE_CANCELLED))
+      {
+        return true;
+      }
+    }
+  }
+
+
+
+  /**
+   * Indicates whether this task has been cancelled.
+   *
+   * @return  {@code true} if this task has been cancelled, or {@code false} if
+   *          not.
+   */
+  final boolean isCancelled()
+  {
+    return (state.get() == STATE_CANCELLED);
+  }
+
+
+
+  /**
+   * Marks this task as scheduled with the provided deadline.
+   *
+   * @param  deadlineNanos  The time, in the timer's nanosecond clock, at which
+   *                        this task should run.
+   *
+   * @return  {@code true} if the task was marked as scheduled, or
+   *          {@code false} if it has already been scheduled or cancelled.
+   */
+  final boolean markScheduled(final long deadlineNanos)
+  {
+    // The deadline must not be changed for a task that has already been
+    // scheduled.  The timer thread will not read it until the task has been
+    // handed off through the timer's queue, which happens after this returns.
+    if (! state.compareAndSet(STATE_NEW, STATE_SCHEDULED))
+    {
+      return false;
+    }
+
+    this.deadlineNanos = deadlineNanos;
+    return true;
+  }
+
+
+
+  /**
+   * Marks this task as expired so that it can no longer be cancelled.
+   *
+   * @return  {@code true} if the task was marked as expired and should be run,
+   *          or {@code false} if it was cancelled first.
+   */
+  final boolean markExpired()
+  {
+    return state.compareAndSet(STATE_SCHEDULED, STATE_EXPIRED);
+  }
+
+
+
+  /**
+   * Retrieves the time, in the timer's nanosecond clock, at which this task
+   * should run.
+   *
+   * @return  The time at which this task should run.
+   */
+  final long getDeadlineNanos()
+  {
+    return deadlineNanos;
+  }
+
+
+
+  /**
+   * Retrieves the number of complete rotations of the wheel that must occur
+   * before this task expires.
+   *
+   * @return  The number of rotations remaining before this task expires.
+   */
+  final long getRemainingRounds()
+  {
+    return remainingRounds;
+  }
+
+
+
+  /**
+   * Specifies the number of complete rotations of the wheel that must occur
+   * before this task expires.
+   *
+   * @param  remainingRounds  The number of rotations remaining before this
+   *                          task expires.
+   */
+  final void setRemainingRounds(final long remainingRounds)
+  {
+    this.remainingRounds = remainingRounds;
+  }
+
+
+
+  /**
+   * Retrieves the next task in the same bucket of the wheel.
+   *
+   * @return  The next task in the same bucket, or {@code null} if there is
+   *          none.
+   */
+  final HashedWheelTimerTask getNext()
+  {
+    return next;
+  }
+
+
+
+  /**
+   * Specifies the next task in the same bucket of the wheel.
+   *
+   * @param  next  The next task in the same bucket, or {@code null} if there is
+   *               none.
+   */
+  final void setNext(final HashedWheelTimerTask next)
+  {
+    this.next = next;
+  }
+}
@@ -128,7 +128,7 @@ public final class InternalSDKHelper
              connection.getConnectionInternals(false);
         if (internals != null)
         {
-          internals.getSocket().setSoTimeout(soTimeout);
+          internals.setSoTimeout(soTimeout);
         }
       }
     }
@@ -364,6 +364,39 @@ public final class InternalSDKHelper
 
 
 
+  /**
+   * Reads a search result entry from the provided ASN.1 stream reader, using
+   * the schema and lazy search entry decoding setting that are in effect for
+   * the provided connection at the time the entry is decoded.
+   *
+   * @param  messageID        The LDAP message ID for the LDAP message that is
+   *                          associated with this search result entry.
+   * @param  messageSequence  The ASN.1 stream reader sequence used in the
+   *                          course of reading the LDAP message elements.
+   * @param  reader           The ASN.1 stream reader from which to read the
+   *                          protocol op and controls.
+   * @param  connection       The connection with which the search result entry
+   *                          is associated.  It must not be {@code null}.
+   *
+   * @return  The decoded search result entry object.
+   *
+   * @throws  LDAPException  If a problem occurs while reading or decoding data
+   *                         from the ASN.1 stream reader.
+   */
+  @InternalUseOnly()
+  public static SearchResultEntry readSearchResultEntryFrom(final int messageID,
+                     final ASN1StreamReaderSequence messageSequence,
+                     final ASN1StreamReader reader,
+                     final LDAPConnection connection)
+         throws LDAPException
+  {
+    return SearchResultEntry.readSearchEntryFrom(messageID, messageSequence,
+         reader, connection.getCachedSchema(),
+         connection.getConnectionOptions().useLazySearchEntryDecoding());
+  }
+
+
+
   /**
    * Creates a new search result reference object with the protocol op and
    * controls read from the given ASN.1 stream reader.
@@ -26,10 +26,12 @@ import java.io.Closeable;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -306,8 +308,9 @@ public final class LDAPConnection
   // The address of the server to which a connection should be re-established.
   private String reconnectAddress;
 
-  // A timer that may be used to enforce timeouts for asynchronous operations.
-  private Timer timer;
+  // The timer tasks scheduled to enforce timeouts for asynchronous operations
+  // on this connection that have not yet run or been cancelled.
+  private final Set<AsyncTimeoutTimerTask> asyncTimeoutTasks;
 
 
 
@@ -415,7 +418,9 @@ public final class LDAPConnection
     connectionName       = null;
     connectionPoolName   = null;
     cachedSchema         = null;
-    timer                = null;
+    asyncTimeoutTasks    = Collections.newSetFromMap(
+         new ConcurrentHashMap<AsyncTimeoutTimerTask,Boolean>(
+              StaticUtils.computeMapCapacity(10)));
 
     referralConnector = this.connectionOptions.getReferralConnector();
     if (referralConnector == null)
@@ -4640,20 +4645,57 @@ public final class LDAPConnection
     cachedSchema = null;
     lastCommunicationTime = -1L;
 
-    synchronized (this)
+    // Timeouts for operations on this connection are no longer needed, and
+    // they must not hold on to it until their deadlines are reached.
+    for (final AsyncTimeoutTimerTask t : asyncTimeoutTasks)
     {
-      final Timer t = timer;
-      timer = null;
+      t.cancel();
+    }
+    asyncTimeoutTasks.clear();
+  }
 
-      if (t != null)
-      {
-        t.cancel();
-      }
+
+
+  /**
+   * Schedules the provided task to enforce the timeout for an asynchronous
+   * operation processed on this connection.  The task will be cancelled if the
+   * connection is closed before it runs.
+   *
+   * @param  task           The task to be scheduled.  It must not be
+   *                        {@code null}.
+   * @param  timeoutMillis  The length of time in milliseconds to wait before
+   *                        running the task.
+   */
+  void scheduleAsyncTimeout(final AsyncTimeoutTimerTask task,
+                            final long timeoutMillis)
+  {
+    asyncTimeoutTasks.add(task);
+    HashedWheelTimer.getSharedInstance().schedule(task, timeoutMillis);
+
+    // The connection may have been closed after the operation was sent but
+    // before the task was added to the set.
+    if (closeRequested || (! isConnected()))
+    {
+      task.cancel();
+      asyncTimeoutTasks.remove(task);
     }
   }
 
 
 
+  /**
+   * Indicates that the provided task has run or been cancelled, so that this
+   * connection no longer needs to cancel it when the connection is closed.
+   *
+   * @param  task  The task that has completed.
+   */
+  void asyncTimeoutCompleted(final AsyncTimeoutTimerTask task)
+  {
+    asyncTimeoutTasks.remove(task);
+  }
+
+
+
   /**
    * Registers the provided response acceptor with the connection reader.
    *
@@ -4704,23 +4746,6 @@ public final class LDAPConnection
 
 
 
-  /**
-   * Retrieves a timer for use with this connection, creating one if necessary.
-   *
-   * @return  A timer for use with this connection.
-   */
-  synchronized Timer getTimer()
-  {
-    if (timer == null)
-    {
-      timer = new Timer("Timer thread for " + toString(), true);
-    }
-
-    return timer;
-  }
-
-
-
   /**
    * {@inheritDoc}
    */
@@ -5051,14 +5076,18 @@ public final class LDAPConnection
 
 
   /**
-   * Retrieves the schema from the provided connection.  If the retrieved schema
-   * matches schema that's already in use by other connections, the common
-   * schema will be used instead of the newly-retrieved version.
+   * Retrieves the schema for the provided connection.  Schema that has already
+   * been retrieved from the same server by another connection will be used if
+   * the server indicates that it has not been modified since it was retrieved,
+   * and the full schema will only be retrieved if necessary.  If the retrieved
+   * schema matches schema that's already in use by other connections, the
+   * common schema will be used instead of the newly-retrieved version.
    *
    * @param  c  The connection for which to retrieve the schema.
    *
    * @return  The schema retrieved from the given connection, or a cached
-   *          schema if it matched a schema that was already in use.
+   *          schema if it is still current or matched a schema that was
+   *          already in use.
    *
    * @throws  LDAPException  If a problem is encountered while retrieving or
    *                         parsing the schema.
@@ -5066,7 +5095,8 @@ public final class LDAPConnection
   private static Schema getCachedSchema(final LDAPConnection c)
          throws LDAPException
   {
-    final Schema s = c.getSchema();
+    final Schema s = ServerSchemaCache.getInstance().getSchema(c,
+         c.connectionOptions.getSchemaRevalidationIntervalMillis());
 
     synchronized (SCHEMA_SET)
     {
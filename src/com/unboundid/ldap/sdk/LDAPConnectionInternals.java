@@ -27,6 +27,8 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.net.SocketException;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -42,6 +44,7 @@ import com.unboundid.util.Debug;
 import com.unboundid.util.DebugType;
 import com.unboundid.util.InternalUseOnly;
 import com.unboundid.util.StaticUtils;
+import com.unboundid.util.SynchronizedSocketFactory;
 
 import static com.unboundid.ldap.sdk.LDAPMessages.*;
 
@@ -79,6 +82,10 @@ final class LDAPConnectionInternals
   // The inet address to which the connection is established.
   private final InetAddress inetAddress;
 
+  // The SO_TIMEOUT value most recently set on the socket, or -1 if it is not
+  // known.
+  private volatile int currentSOTimeout;
+
   // The port of the server to which the connection is established.
   private final int port;
 
@@ -92,6 +99,14 @@ final class LDAPConnectionInternals
   // associated.
   private final LDAPConnectionReader connectionReader;
 
+  // The writer used to combine messages sent concurrently by multiple threads,
+  // if write coalescing is enabled.
+  private final LDAPConnectionWriter connectionWriter;
+
+  // The lock used to ensure that the SO_TIMEOUT value set on the socket
+  // matches the cached value.
+  private final Object soTimeoutLock;
+
   // The output stream used to send requests to the server.
   private volatile OutputStream outputStream;
 
@@ -101,6 +116,10 @@ final class LDAPConnectionInternals
   // The socket used to communicate with the directory server.
   private volatile Socket socket;
 
+  // The output stream used to write to the socket's channel if the connection
+  // uses a shared connection reader.
+  private final SocketChannelOutputStream socketChannelOutputStream;
+
   // The address of the server to which the connection is established.
   private final String host;
 
@@ -152,11 +171,44 @@ final class LDAPConnectionInternals
     synchronousMode = options.useSynchronousMode();
     saslClient      = null;
     socket          = null;
+    soTimeoutLock   = new Object();
+
+    if (options.useWriteCoalescing())
+    {
+      connectionWriter = new LDAPConnectionWriter(this);
+    }
+    else
+    {
+      connectionWriter = null;
+    }
+
+    // A shared connection reader requires a socket with a channel, which is
+    // only available when the JVM-default socket factory would be used.
+    SocketFactory unwrappedSocketFactory = socketFactory;
+    if (unwrappedSocketFactory instanceof SynchronizedSocketFactory)
+    {
+      unwrappedSocketFactory = ((SynchronizedSocketFactory)
+           unwrappedSocketFactory).getWrappedSocketFactory();
+    }
+
+    final boolean useSharedReader = options.useSharedConnectionReader() &&
+         (! synchronousMode) &&
+         (unwrappedSocketFactory == SocketFactory.getDefault());
 
     try
     {
+      final SocketFactory f;
+      if (useSharedReader)
+      {
+        f = new SocketChannelSocketFactory();
+      }
+      else
+      {
+        f = socketFactory;
+      }
+
       final ConnectThread connectThread =
-           new ConnectThread(socketFactory, inetAddress, port, timeout);
+           new ConnectThread(f, inetAddress, port, timeout);
       connectThread.start();
       socket = connectThread.getConnectedSocket();
 
@@ -203,8 +255,20 @@ final class LDAPConnectionInternals
            "Setting the SO_TIMEOUT value for connection " + connection +
                 " to " + soTimeout + "ms.");
       socket.setSoTimeout(soTimeout);
+      currentSOTimeout = soTimeout;
+
+      if ((! useSharedReader) || (socket.getChannel() == null))
+      {
+        socketChannelOutputStream = null;
+        outputStream = new BufferedOutputStream(socket.getOutputStream());
+      }
+      else
+      {
+        socketChannelOutputStream = new SocketChannelOutputStream(
+             socket.getChannel(), options.getResponseTimeoutMillis());
+        outputStream = new BufferedOutputStream(socketChannelOutputStream);
+      }
 
-      outputStream     = new BufferedOutputStream(socket.getOutputStream());
       connectionReader = new LDAPConnectionReader(connection, this);
     }
     catch (final IOException ioe)
@@ -235,7 +299,7 @@ final class LDAPConnectionInternals
   {
     if (! synchronousMode)
     {
-      connectionReader.start();
+      connectionReader.startReading();
     }
   }
 
@@ -328,7 +392,47 @@ final class LDAPConnectionInternals
    */
   void setSocket(final Socket socket)
   {
-    this.socket = socket;
+    synchronized (soTimeoutLock)
+    {
+      this.socket = socket;
+      currentSOTimeout = -1;
+    }
+  }
+
+
+
+  /**
+   * Sets the SO_TIMEOUT value for the socket used to communicate with the
+   * directory server.  The socket option will only be updated if the provided
+   * value differs from the value most recently set, so that a system call is
+   * not needed for every message that is sent.  All changes to the SO_TIMEOUT
+   * value for the socket should be made through this method.
+   *
+   * @param  soTimeout  The SO_TIMEOUT value, in milliseconds, to use.
+   *
+   * @throws  SocketException  If a problem occurs while setting the value.
+   */
+  void setSoTimeout(final int soTimeout)
+       throws SocketException
+  {
+    if (soTimeout == currentSOTimeout)
+    {
+      return;
+    }
+
+    synchronized (soTimeoutLock)
+    {
+      if (Debug.debugEnabled())
+      {
+        Debug.debug(Level.INFO, DebugType.CONNECT,
+             "Setting the SO_TIMEOUT value for connection " + connection +
+                  " to " + soTimeout + "ms.");
+      }
+
+      currentSOTimeout = -1;
+      socket.setSoTimeout(soTimeout);
+      currentSOTimeout = soTimeout;
+    }
   }
 
 
@@ -345,6 +449,21 @@ final class LDAPConnectionInternals
 
 
 
+  /**
+   * Retrieves the output stream used to write to the socket's channel, which
+   * must be used to alter the blocking mode of the channel.
+   *
+   * @return  The output stream used to write to the socket's channel, or
+   *          {@code null} if the connection does not use a shared connection
+   *          reader.
+   */
+  SocketChannelOutputStream getSocketChannelOutputStream()
+  {
+    return socketChannelOutputStream;
+  }
+
+
+
   /**
    * Indicates whether the socket is currently connected.
    *
@@ -536,47 +655,66 @@ final class LDAPConnectionInternals
     }
 
 
-    try
+    final int soTimeout = Math.max(0, (int) sendTimeoutMillis);
+    final boolean coalesceWrite =
+         ((connectionWriter != null) && (saslClient == null));
+    if (! coalesceWrite)
     {
-      final int soTimeout = Math.max(0, (int) sendTimeoutMillis);
-      if (Debug.debugEnabled())
+      try
       {
-        Debug.debug(Level.INFO, DebugType.CONNECT,
-             "Setting the SO_TIMEOUT value for connection " + connection +
-                  " to " + soTimeout + "ms.");
+        setSoTimeout(soTimeout);
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
       }
-      socket.setSoTimeout(soTimeout);
-    }
-    catch (final Exception e)
-    {
-      Debug.debugException(e);
     }
 
 
     try
     {
-      final OutputStream os = outputStream;
-      if (saslClient == null)
+      if (coalesceWrite)
       {
-        buffer.writeTo(os);
+        // The message will be queued until it is written, so it can't be
+        // left in the thread-local buffer.
+        final byte[] encodedMessage = buffer.toByteArray();
+        try
+        {
+          connectionWriter.write(encodedMessage, soTimeout);
+        }
+        finally
+        {
+          if (buffer.zeroBufferOnClear())
+          {
+            Arrays.fill(encodedMessage, (byte) 0x00);
+          }
+        }
       }
       else
       {
-        // We need to wrap the data that was read using the SASL client, but we
-        // also need to precede that wrapped data with four bytes that specify
-        // the number of bytes of wrapped data.
-        final byte[] clearBytes = buffer.toByteArray();
-        final byte[] saslBytes =
-             saslClient.wrap(clearBytes, 0, clearBytes.length);
-        final byte[] lengthBytes = new byte[4];
-        lengthBytes[0] = (byte) ((saslBytes.length >> 24) & 0xFF);
-        lengthBytes[1] = (byte) ((saslBytes.length >> 16) & 0xFF);
-        lengthBytes[2] = (byte) ((saslBytes.length >> 8) & 0xFF);
-        lengthBytes[3] = (byte) (saslBytes.length & 0xFF);
-        os.write(lengthBytes);
-        os.write(saslBytes);
+        final OutputStream os = outputStream;
+        if (saslClient == null)
+        {
+          buffer.writeTo(os);
+        }
+        else
+        {
+          // We need to wrap the data that was read using the SASL client, but
+          // we also need to precede that wrapped data with four bytes that
+          // specify the number of bytes of wrapped data.
+          final byte[] clearBytes = buffer.toByteArray();
+          final byte[] saslBytes =
+               saslClient.wrap(clearBytes, 0, clearBytes.length);
+          final byte[] lengthBytes = new byte[4];
+          lengthBytes[0] = (byte) ((saslBytes.length >> 24) & 0xFF);
+          lengthBytes[1] = (byte) ((saslBytes.length >> 16) & 0xFF);
+          lengthBytes[2] = (byte) ((saslBytes.length >> 8) & 0xFF);
+          lengthBytes[3] = (byte) (saslBytes.length & 0xFF);
+          os.write(lengthBytes);
+          os.write(saslBytes);
+        }
+        os.flush();
       }
-      os.flush();
     }
     catch (final IOException ioe)
     {
@@ -411,6 +411,35 @@ public final class LDAPConnectionOptions
 
 
 
+  /**
+   * The name of a system property that can be used to specify the initial
+   * default value for the schema revalidation interval, in milliseconds.  If
+   * this property is set at the time that this class is loaded, then its value
+   * must be parseable as an integer.  If this property is not set, then a
+   * default value of "0" will be assumed.
+   * <BR><BR>
+   * The full name for this system property is "com.unboundid.ldap.sdk.
+   * LDAPConnectionOptions.defaultSchemaRevalidationIntervalMillis".
+   */
+  public static final String
+       PROPERTY_DEFAULT_SCHEMA_REVALIDATION_INTERVAL_MILLIS =
+       PROPERTY_PREFIX + "defaultSchemaRevalidationIntervalMillis";
+
+
+
+  /**
+   * The default value for the setting that controls the schema revalidation
+   * interval.  If the
+   * {@link #PROPERTY_DEFAULT_SCHEMA_REVALIDATION_INTERVAL_MILLIS} system
+   * property is set at the time this class is loaded, then its value will be
+   * used.  Otherwise, a default of zero will be used.
+   */
+  private static final long DEFAULT_SCHEMA_REVALIDATION_INTERVAL_MILLIS =
+       getSystemProperty(PROPERTY_DEFAULT_SCHEMA_REVALIDATION_INTERVAL_MILLIS,
+            0L);
+
+
+
   /**
    * The name of a system property that can be used to specify the initial
    * default value for the "use keepalive" behavior.  If this property is set at
@@ -547,6 +576,91 @@ public final class LDAPConnectionOptions
 
 
 
+  /**
+   * The name of a system property that can be used to specify the initial
+   * default value for the "use shared connection reader" behavior.  If this
+   * property is set at the time that this class is loaded, then its value must
+   * be either "true" or "false".  If this property is not set, then a default
+   * value of "false" will be assumed.
+   * <BR><BR>
+   * The full name for this system property is
+   * "com.unboundid.ldap.sdk.LDAPConnectionOptions.
+   * defaultUseSharedConnectionReader".
+   */
+  public static final String PROPERTY_DEFAULT_USE_SHARED_CONNECTION_READER =
+       PROPERTY_PREFIX + "defaultUseSharedConnectionReader";
+
+
+
+  /**
+   * The default value for the setting that controls whether connections
+   * operating in asynchronous mode should share a selector and a small pool of
+   * threads for reading responses rather than each having its own reader
+   * thread.  If the {@link #PROPERTY_DEFAULT_USE_SHARED_CONNECTION_READER}
+   * system property is set at the time this class is loaded, then its value
+   * will be used.  Otherwise, a default value of {@code false} will be used.
+   */
+  private static final boolean DEFAULT_USE_SHARED_CONNECTION_READER =
+       getSystemProperty(PROPERTY_DEFAULT_USE_SHARED_CONNECTION_READER, false);
+
+
+
+  /**
+   * The name of a system property that can be used to specify the initial
+   * default value for the "use write coalescing" behavior.  If this property is
+   * set at the time that this class is loaded, then its value must be either
+   * "true" or "false".  If this property is not set, then a default value of
+   * "false" will be assumed.
+   * <BR><BR>
+   * The full name for this system property is
+   * "com.unboundid.ldap.sdk.LDAPConnectionOptions.defaultUseWriteCoalescing".
+   */
+  public static final String PROPERTY_DEFAULT_USE_WRITE_COALESCING =
+       PROPERTY_PREFIX + "defaultUseWriteCoalescing";
+
+
+
+  /**
+   * The default value for the setting that controls whether messages sent
+   * concurrently by multiple threads should be combined into a single write.
+   * If the {@link #PROPERTY_DEFAULT_USE_WRITE_COALESCING} system property is
+   * set at the time this class is loaded, then its value will be used.
+   * Otherwise, a default value of {@code false} will be used.
+   */
+  private static final boolean DEFAULT_USE_WRITE_COALESCING =
+       getSystemProperty(PROPERTY_DEFAULT_USE_WRITE_COALESCING, false);
+
+
+
+  /**
+   * The name of a system property that can be used to specify the initial
+   * default value for the "use lazy search entry decoding" behavior.  If this
+   * property is set at the time that this class is loaded, then its value must
+   * be either "true" or "false".  If this property is not set, then a default
+   * value of "false" will be assumed.
+   * <BR><BR>
+   * The full name for this system property is
+   * "com.unboundid.ldap.sdk.LDAPConnectionOptions.
+   * defaultUseLazySearchEntryDecoding".
+   */
+  public static final String PROPERTY_DEFAULT_USE_LAZY_SEARCH_ENTRY_DECODING =
+       PROPERTY_PREFIX + "defaultUseLazySearchEntryDecoding";
+
+
+
+  /**
+   * The default value for the setting that controls whether the attributes of
+   * search result entries should only be decoded as they are accessed.  If the
+   * {@link #PROPERTY_DEFAULT_USE_LAZY_SEARCH_ENTRY_DECODING} system property is
+   * set at the time this class is loaded, then its value will be used.
+   * Otherwise, a default value of {@code false} will be used.
+   */
+  private static final boolean DEFAULT_USE_LAZY_SEARCH_ENTRY_DECODING =
+       getSystemProperty(PROPERTY_DEFAULT_USE_LAZY_SEARCH_ENTRY_DECODING,
+            false);
+
+
+
   /**
    * The name of a system property that can be used to specify the initial
    * default value for the "use TCP nodelay" behavior.  If this property is set
@@ -1151,14 +1265,26 @@ public final class LDAPConnectionOptions
   // the same schema.
   private boolean usePooledSchema;
 
+  // Indicates whether the attributes of search result entries should only be
+  // decoded as they are accessed.
+  private boolean useLazySearchEntryDecoding;
+
   // Indicates whether to try to use schema information when reading data from
   // the server.
   private boolean useSchema;
 
+  // Indicates whether connections operating in asynchronous mode should share
+  // a selector and a pool of threads for reading responses.
+  private boolean useSharedConnectionReader;
+
   // Indicates whether to use synchronous mode in which only a single operation
   // may be in progress on associated connections at any given time.
   private boolean useSynchronousMode;
 
+  // Indicates whether messages sent concurrently by multiple threads should be
+  // combined into a single write.
+  private boolean useWriteCoalescing;
+
   // Indicates whether to use TCP_NODELAY for the underlying sockets.
   private boolean useTCPNoDelay;
 
@@ -1187,6 +1313,9 @@ public final class LDAPConnectionOptions
   // The pooled schema timeout, in milliseconds.
   private long pooledSchemaTimeoutMillis;
 
+  // The schema revalidation interval, in milliseconds.
+  private long schemaRevalidationIntervalMillis;
+
   // The response timeout, in milliseconds.
   private long responseTimeoutMillis;
 
@@ -1227,12 +1356,17 @@ public final class LDAPConnectionOptions
     usePooledSchema                = DEFAULT_USE_POOLED_SCHEMA;
     useSchema                      = DEFAULT_USE_SCHEMA;
     useSynchronousMode             = DEFAULT_USE_SYNCHRONOUS_MODE;
+    useSharedConnectionReader      = DEFAULT_USE_SHARED_CONNECTION_READER;
+    useWriteCoalescing             = DEFAULT_USE_WRITE_COALESCING;
+    useLazySearchEntryDecoding     = DEFAULT_USE_LAZY_SEARCH_ENTRY_DECODING;
     useTCPNoDelay                  = DEFAULT_USE_TCP_NODELAY;
     connectTimeoutMillis           = DEFAULT_CONNECT_TIMEOUT_MILLIS;
     lingerTimeoutSeconds           = DEFAULT_LINGER_TIMEOUT_SECONDS;
     maxMessageSizeBytes            = DEFAULT_MAX_MESSAGE_SIZE_BYTES;
     referralHopLimit               = DEFAULT_REFERRAL_HOP_LIMIT;
     pooledSchemaTimeoutMillis      = DEFAULT_POOLED_SCHEMA_TIMEOUT_MILLIS;
+    schemaRevalidationIntervalMillis =
+         DEFAULT_SCHEMA_REVALIDATION_INTERVAL_MILLIS;
     responseTimeoutMillis          = DEFAULT_RESPONSE_TIMEOUT_MILLIS;
     receiveBufferSizeBytes         = DEFAULT_RECEIVE_BUFFER_SIZE_BYTES;
     sendBufferSizeBytes            = DEFAULT_SEND_BUFFER_SIZE_BYTES;
@@ -1275,11 +1409,15 @@ public final class LDAPConnectionOptions
     o.usePooledSchema                 = usePooledSchema;
     o.useSchema                       = useSchema;
     o.useSynchronousMode              = useSynchronousMode;
+    o.useSharedConnectionReader       = useSharedConnectionReader;
+    o.useWriteCoalescing              = useWriteCoalescing;
+    o.useLazySearchEntryDecoding      = useLazySearchEntryDecoding;
     o.useTCPNoDelay                   = useTCPNoDelay;
     o.connectTimeoutMillis            = connectTimeoutMillis;
     o.lingerTimeoutSeconds            = lingerTimeoutSeconds;
     o.maxMessageSizeBytes             = maxMessageSizeBytes;
     o.pooledSchemaTimeoutMillis       = pooledSchemaTimeoutMillis;
+    o.schemaRevalidationIntervalMillis = schemaRevalidationIntervalMillis;
     o.responseTimeoutMillis           = responseTimeoutMillis;
     o.referralConnector               = referralConnector;
     o.referralHopLimit                = referralHopLimit;
@@ -1970,6 +2108,58 @@ public final class LDAPConnectionOptions
 
 
 
+  /**
+   * Retrieves the length of time in milliseconds that schema retrieved from a
+   * server may be used by new connections to that server without checking
+   * whether it has been modified.
+   * <BR><BR>
+   * This will only be used if the {@link #useSchema} method returns
+   * {@code true}.  Schema retrieved for connections that use schema is cached
+   * for the entire process and shared by all connections to the same server.
+   * Before cached schema is used for a new connection, only the modify
+   * timestamp of the server's subschema subentry will ordinarily be retrieved
+   * to determine whether the full schema needs to be retrieved again.  Schema
+   * from a server that does not expose a modify timestamp for its subschema
+   * subentry will be reused for up to 30 seconds after it was retrieved.  If
+   * this interval is greater than zero, then schema that has been retrieved or
+   * checked within that interval will be used without checking whether it has
+   * been modified.  In either case, the schema will be retrieved again if the
+   * server's root DSE indicates that it is a different server instance than
+   * the one from which the schema was retrieved.
+   *
+   * @return  The length of time in milliseconds that cached schema may be used
+   *          without checking whether it has been modified, or zero if it
+   *          should always be checked.
+   */
+  public long getSchemaRevalidationIntervalMillis()
+  {
+    return schemaRevalidationIntervalMillis;
+  }
+
+
+
+  /**
+   * Specifies the length of time in milliseconds that schema retrieved from a
+   * server may be used by new connections to that server without checking
+   * whether it has been modified.
+   *
+   * @param  schemaRevalidationIntervalMillis  The length of time in
+   *                                           milliseconds that cached schema
+   *                                           may be used without checking
+   *                                           whether it has been modified.  A
+   *                                           value less than or equal to zero
+   *                                           will indicate that it should
+   *                                           always be checked.
+   */
+  public void setSchemaRevalidationIntervalMillis(
+                   final long schemaRevalidationIntervalMillis)
+  {
+    this.schemaRevalidationIntervalMillis =
+         Math.max(0L, schemaRevalidationIntervalMillis);
+  }
+
+
+
   /**
    * Indicates whether to operate in synchronous mode, in which at most one
    * operation may be in progress at any time on a given connection, which may
@@ -2015,6 +2205,155 @@ public final class LDAPConnectionOptions
 
 
 
+  /**
+   * Indicates whether connections operating in asynchronous mode should use a
+   * shared selector and a shared pool of threads to read responses from the
+   * server rather than each having its own dedicated reader thread.  This
+   * can dramatically reduce the number of threads needed by an application that
+   * maintains a large number of mostly-idle connections.  Responses will be
+   * delivered to the same response acceptors, and in the same order, as with
+   * a dedicated reader thread.
+   * <BR><BR>
+   * Asynchronous result listeners, search result listeners, and intermediate
+   * response listeners will be invoked by the pool thread that read the
+   * response, and no more data will be read from that connection until the
+   * listener returns.  The pool will create additional threads as needed, so a
+   * listener that blocks will only hold up its own connection.
+   * <BR><BR>
+   * The shared reader will only be used for connections created with the
+   * JVM-default socket factory.  Connections created with any other socket
+   * factory (including SSL-based connections) will always use a dedicated
+   * reader thread, and a connection using the shared reader will switch to a
+   * dedicated reader thread if it is secured with StartTLS or a SASL quality
+   * of protection.  This option will have no effect for connections operating
+   * in synchronous mode, which do not use a reader thread at all.
+   * <BR><BR>
+   * Note that this connection option must be set on the connection before any
+   * attempt is made to establish the connection.
+   *
+   * @return  {@code true} if associated connections should use the shared
+   *          connection reader, or {@code false} if each connection should have
+   *          its own reader thread.
+   */
+  public boolean useSharedConnectionReader()
+  {
+    return useSharedConnectionReader;
+  }
+
+
+
+  /**
+   * Specifies whether connections operating in asynchronous mode should use a
+   * shared selector and a shared pool of threads to read responses from the
+   * server rather than each having its own dedicated reader thread.
+   * <BR><BR>
+   * Note that this connection option must be set on the connection before any
+   * attempt is made to establish the connection.
+   *
+   * @param  useSharedConnectionReader  Indicates whether connections operating
+   *                                    in asynchronous mode should use the
+   *                                    shared connection reader.
+   */
+  public void setUseSharedConnectionReader(
+                   final boolean useSharedConnectionReader)
+  {
+    this.useSharedConnectionReader = useSharedConnectionReader;
+  }
+
+
+
+  /**
+   * Indicates whether messages sent concurrently over a connection by multiple
+   * threads should be combined into a single write.  When this option is
+   * enabled, each message is queued after it has been encoded, and the first
+   * thread to obtain the connection's write lock will write all of the queued
+   * messages and flush the output stream once for the entire batch.  The
+   * threads whose messages were written by another thread will not need to
+   * write or flush anything themselves.  This can significantly increase the
+   * rate at which an application that issues many asynchronous requests over
+   * the same connection can send those requests, because fewer system calls
+   * are needed and requests can be sent in fewer TCP segments.  It will not
+   * provide any benefit for a connection used by only one thread at a time.
+   * <BR><BR>
+   * Note that this connection option must be set on the connection before any
+   * attempt is made to establish the connection.
+   *
+   * @return  {@code true} if messages sent concurrently over associated
+   *          connections should be combined into a single write, or
+   *          {@code false} if each message should be written and flushed
+   *          individually.
+   */
+  public boolean useWriteCoalescing()
+  {
+    return useWriteCoalescing;
+  }
+
+
+
+  /**
+   * Specifies whether messages sent concurrently over a connection by multiple
+   * threads should be combined into a single write.
+   * <BR><BR>
+   * Note that this connection option must be set on the connection before any
+   * attempt is made to establish the connection.
+   *
+   * @param  useWriteCoalescing  Indicates whether messages sent concurrently
+   *                             over associated connections should be combined
+   *                             into a single write.
+   */
+  public void setUseWriteCoalescing(final boolean useWriteCoalescing)
+  {
+    this.useWriteCoalescing = useWriteCoalescing;
+  }
+
+
+
+  /**
+   * Indicates whether the attributes of search result entries read over
+   * associated connections should only be decoded as they are accessed.  When
+   * this option is enabled, the encoded attribute list of each search result
+   * entry is retained, and only the names of the attributes are read when the
+   * entry is received.  An individual attribute is decoded the first time it
+   * is retrieved with a method like {@link Entry#getAttribute(String)} or
+   * {@link Entry#getAttributeValue(String)}, and all remaining attributes are
+   * decoded if the entry is altered or if a method is called that needs all
+   * of the attributes, like {@link Entry#getAttributes()} or
+   * {@link Entry#toLDIF()}.  This can substantially reduce the processing and
+   * memory needed by applications that retrieve entries with many attributes
+   * but only use a few of them.
+   * <BR><BR>
+   * Lazily decoded entries behave exactly like other entries, except that a
+   * malformed attribute value that would otherwise have caused the entry to
+   * be rejected when it was read will instead cause an
+   * {@link LDAPRuntimeException} to be thrown when that attribute is decoded.
+   *
+   * @return  {@code true} if the attributes of search result entries should
+   *          only be decoded as they are accessed, or {@code false} if all
+   *          attributes should be decoded when the entry is read.
+   */
+  public boolean useLazySearchEntryDecoding()
+  {
+    return useLazySearchEntryDecoding;
+  }
+
+
+
+  /**
+   * Specifies whether the attributes of search result entries read over
+   * associated connections should only be decoded as they are accessed.
+   *
+   * @param  useLazySearchEntryDecoding  Indicates whether the attributes of
+   *                                     search result entries should only be
+   *                                     decoded as they are accessed.
+   */
+  public void setUseLazySearchEntryDecoding(
+                   final boolean useLazySearchEntryDecoding)
+  {
+    this.useLazySearchEntryDecoding = useLazySearchEntryDecoding;
+  }
+
+
+
   /**
    * Indicates whether to use the TCP_NODELAY option for the underlying sockets
    * used by associated connections.
@@ -2632,14 +2971,22 @@ public final class LDAPConnectionOptions
     }
     buffer.append(", useReuseAddress=");
     buffer.append(useReuseAddress);
+    buffer.append(", useLazySearchEntryDecoding=");
+    buffer.append(useLazySearchEntryDecoding);
     buffer.append(", useSchema=");
     buffer.append(useSchema);
     buffer.append(", usePooledSchema=");
     buffer.append(usePooledSchema);
     buffer.append(", pooledSchemaTimeoutMillis=");
     buffer.append(pooledSchemaTimeoutMillis);
+    buffer.append(", schemaRevalidationIntervalMillis=");
+    buffer.append(schemaRevalidationIntervalMillis);
     buffer.append(", useSynchronousMode=");
     buffer.append(useSynchronousMode);
+    buffer.append(", useSharedConnectionReader=");
+    buffer.append(useSharedConnectionReader);
+    buffer.append(", useWriteCoalescing=");
+    buffer.append(useWriteCoalescing);
     buffer.append(", useTCPNoDelay=");
     buffer.append(useTCPNoDelay);
     buffer.append(", captureConnectStackTrace=");
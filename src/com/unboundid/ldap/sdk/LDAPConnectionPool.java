@@ -30,7 +30,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -260,7 +259,7 @@ public final class LDAPConnectionPool
   private final LDAPConnectionPoolStatistics poolStatistics;
 
   // The set of connections that are currently available for use.
-  private final LinkedBlockingQueue<LDAPConnection> availableConnections;
+  private final LDAPConnectionPoolQueue availableConnections;
 
   // The length of time in milliseconds between periodic health checks against
   // the available connections in this pool.
@@ -638,7 +637,7 @@ public final class LDAPConnectionPool
          Collections.unmodifiableSet(EnumSet.noneOf(OperationType.class)));
     numConnections            = maxConnections;
     minConnectionGoal         = 0;
-    availableConnections      = new LinkedBlockingQueue<>(numConnections);
+    availableConnections      = new LDAPConnectionPoolQueue(numConnections);
 
     if (! connection.isConnected())
     {
@@ -1221,8 +1220,7 @@ public final class LDAPConnectionPool
 
     numConnections = maxConnections;
 
-    availableConnections =
-         new LinkedBlockingQueue<>(numConnections);
+    availableConnections = new LDAPConnectionPoolQueue(numConnections);
     availableConnections.addAll(connList);
 
     failedReplaceCount                 =
@@ -1894,7 +1892,7 @@ public final class LDAPConnectionPool
          new HashSet<>(StaticUtils.computeMapCapacity(numConnections));
     while (true)
     {
-      final LDAPConnection conn = availableConnections.poll();
+      final LDAPConnection conn = availableConnections.pollLeastRecentlyUsed();
       if (conn == null)
       {
         poolStatistics.incrementNumFailedCheckouts();
@@ -2412,6 +2410,48 @@ public final class LDAPConnectionPool
 
 
 
+  /**
+   * Indicates whether the connection pool should hand out the most recently
+   * released connection when a connection is requested, rather than the
+   * connection that has been available for the longest period of time.
+   *
+   * @return  {@code true} if the connection pool should hand out the most
+   *          recently released connection first, or {@code false} if
+   *          connections should be handed out in the order in which they were
+   *          released.
+   */
+  public boolean useLIFOConnectionReuse()
+  {
+    return availableConnections.isLIFO();
+  }
+
+
+
+  /**
+   * Specifies whether the connection pool should hand out the most recently
+   * released connection when a connection is requested, rather than the
+   * connection that has been available for the longest period of time.  By
+   * default, connections are handed out in the order in which they were
+   * released, which tends to keep all connections in the pool in use.  With
+   * LIFO connection reuse, the same small set of connections will be used
+   * whenever the load is light, and a thread will be given the connection
+   * that it most recently released if possible.  Connections that go unused
+   * will then remain idle and may be reclaimed by a health check like
+   * {@link PruneUnneededConnectionsLDAPConnectionPoolHealthCheck}, or may be
+   * closed by the maximum connection age, without affecting the connections
+   * that are actively being used.
+   *
+   * @param  useLIFOConnectionReuse  Specifies whether the connection pool
+   *                                 should hand out the most recently released
+   *                                 connection first.
+   */
+  public void setUseLIFOConnectionReuse(final boolean useLIFOConnectionReuse)
+  {
+    availableConnections.setLIFO(useLIFOConnectionReuse);
+  }
+
+
+
   /**
    * Retrieves the maximum length of time in milliseconds to wait for a
    * connection to become available when trying to obtain a connection from the
@@ -2868,7 +2908,7 @@ public final class LDAPConnectionPool
 
     for (int i=0; i < numConnections; i++)
     {
-      LDAPConnection conn = availableConnections.poll();
+      LDAPConnection conn = availableConnections.pollLeastRecentlyUsed();
       if (conn == null)
       {
         break;
@@ -3211,12 +3251,11 @@ public final class LDAPConnectionPool
   {
     while (availableConnections.size() > connectionsToRetain)
     {
-      final LDAPConnection conn;
-      try
-      {
-        conn = getConnection();
-      }
-      catch (final LDAPException le)
+      // Discard the connections that have gone unused the longest, so that
+      // the connections that remain in a pool using LIFO connection reuse
+      // are the ones that are actually being used.
+      final LDAPConnection conn = availableConnections.pollLeastRecentlyUsed();
+      if (conn == null)
       {
         return;
       }
@@ -3227,7 +3266,10 @@ public final class LDAPConnectionPool
       }
       else
       {
-        releaseConnection(conn);
+        if (! availableConnections.offer(conn))
+        {
+          discardConnection(conn);
+        }
         return;
       }
     }
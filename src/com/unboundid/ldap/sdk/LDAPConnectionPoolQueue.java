@@ -0,0 +1,399 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides a bounded queue that holds the connections that are
+ * available for use in an {@link LDAPConnectionPool}.  Connections are stored
+ * in a lock-free deque, and a semaphore is used to track the number of
+ * connections available for checkout, so neither checking out nor releasing a
+ * connection requires a lock unless a thread needs to wait for a connection to
+ * become available.
+ * <BR><BR>
+ * By default, connections will be handed out in the order in which they were
+ * released (FIFO), which matches the behavior of earlier versions of the pool.
+ * Alternately, the queue may be configured to hand out the most recently
+ * released connection first (LIFO).  In that mode, a thread that releases a
+ * connection will prefer to get that same connection back on its next checkout
+ * if it is still near the top of the stack, and the least recently used
+ * connections will remain idle at the bottom of the stack where they can be
+ * found by health checks and reclaimed.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class LDAPConnectionPoolQueue
+      extends AbstractQueue<LDAPConnection>
+{
+  /**
+   * The maximum number of connections at the top of the stack that will be
+   * examined when looking for the connection most recently released by the
+   * current thread.
+   */
+  private static final int AFFINITY_PROBE_DEPTH = 4;
+
+
+
+  // The number of connections in the queue, including those for which space
+  // has been reserved but that have not yet been added.
+  private final AtomicInteger size;
+
+  // Indicates whether to hand out the most recently released connection first.
+  private volatile boolean lifo;
+
+  // The deque that holds the available connections.  The head of the deque is
+  // always the next connection to be handed out by the poll methods.
+  private final ConcurrentLinkedDeque<LDAPConnection> connections;
+
+  // The maximum number of connections that may be held in the queue.
+  private final int capacity;
+
+  // A semaphore with one permit for each connection that may be removed from
+  // the deque.
+  private final Semaphore availablePermits;
+
+  // The connection most recently released by each thread while operating in
+  // LIFO mode.
+  private final ThreadLocal<LDAPConnection> lastReleasedConnection;
+
+
+
+  /**
+   * Creates a new, empty connection pool queue with the specified capacity.
+   *
+   * @param  capacity  The maximum number of connections that may be held in
+   *                   the queue.  It must be greater than zero.
+   */
+  LDAPConnectionPoolQueue(final int capacity)
+  {
+    this.capacity = capacity;
+
+    size = new AtomicInteger(0);
+    lifo = false;
+    connections = new ConcurrentLinkedDeque<>();
+    availablePermits = new Semaphore(0);
+    lastReleasedConnection = new ThreadLocal<>();
+  }
+
+
+
+  /**
+   * Indicates whether this queue will hand out the most recently released
+   * connection first.
+   *
+   * @return  {@code true} if this queue will hand out the most recently
+   *          released connection first, or {@code false} if it will hand out
+   *          connections in the order in which they were released.
+   */
+  boolean isLIFO()
+  {
+    return lifo;
+  }
+
+
+
+  /**
+   * Specifies whether this queue should hand out the most recently released
+   * connection first.  This may be changed at any time, and will affect the
+   * way that connections are released from then on.
+   *
+   * @param  lifo  Indicates whether this queue should hand out the most
+   *               recently released connection first.
+   */
+  void setLIFO(final boolean lifo)
+  {
+    this.lifo = lifo;
+  }
+
+
+
+  /**
+   * Adds the provided connection to this queue if there is room for it.
+   *
+   * @param  connection  The connection to be added.  It must not be
+   *                     {@code null}.
+   *
+   * @return  {@code true} if the connection was added, or {@code false} if the
+   *          queue is already full.
+   */
+  @Override()
+  public boolean offer(final LDAPConnection connection)
+  {
+    if (connection == null)
+    {
+      throw new NullPointerException();
+    }
+
+    while (true)
+    {
+      final int currentSize = size.get();
+      if (currentSize >= capacity)
+      {
+        return false;
+      }
+      else if (size.compareAndSet(currentSize, (currentSize + 1)))
+      {
+        break;
+      }
+    }
+
+    if (lifo)
+    {
+      connections.offerFirst(connection);
+      lastReleasedConnection.set(connection);
+    }
+    else
+    {
+      connections.offerLast(connection);
+    }
+
+    availablePermits.release();
+    return true;
+  }
+
+
+
+  /**
+   * Retrieves and removes the next available connection, if there is one.
+   *
+   * @return  The connection that was removed, or {@code null} if there are no
+   *          available connections.
+   */
+  @Override()
+  public LDAPConnection poll()
+  {
+    if (availablePermits.tryAcquire())
+    {
+      return removeConnection();
+    }
+
+    return null;
+  }
+
+
+
+  /**
+   * Retrieves and removes the next available connection, waiting up to the
+   * specified length of time for one to become available if necessary.
+   *
+   * @param  timeout  The maximum length of time to wait.
+   * @param  unit     The time unit for the timeout.
+   *
+   * @return  The connection that was removed, or {@code null} if no connection
+   *          became available within the specified length of time.
+   *
+   * @throws  InterruptedException  If the thread is interrupted while waiting.
+   */
+  LDAPConnection poll(final long timeout, final TimeUnit unit)
+                 throws InterruptedException
+  {
+    if (availablePermits.tryAcquire(timeout, unit))
+    {
+      return removeConnection();
+    }
+
+    return null;
+  }
+
+
+
+  /**
+   * Retrieves and removes the connection that has been available for the
+   * longest period of time, if there is one.  In FIFO mode, this is the same
+   * as the connection that would be returned by the {@link #poll()} method,
+   * but in LIFO mode it is the connection at the bottom of the stack.  This is
+   * intended for use by processing that needs to examine each of the available
+   * connections in turn, like health checks, since a connection that is
+   * returned to the queue with the {@link #offer} method after being examined
+   * will not be returned by this method again until all other connections
+   * have been examined.
+   *
+   * @return  The connection that was removed, or {@code null} if there are no
+   *          available connections.
+   */
+  LDAPConnection pollLeastRecentlyUsed()
+  {
+    if (! availablePermits.tryAcquire())
+    {
+      return null;
+    }
+
+    while (true)
+    {
+      final LDAPConnection connection;
+      if (lifo)
+      {
+        connection = connections.pollLast();
+      }
+      else
+      {
+        connection = connections.pollFirst();
+      }
+
+      if (connection != null)
+      {
+        size.decrementAndGet();
+        return connection;
+      }
+    }
+  }
+
+
+
+  /**
+   * Removes a connection from the deque.  The caller must have already
+   * acquired a permit, which guarantees that a connection is present.
+   *
+   * @return  The connection that was removed.
+   */
+  private LDAPConnection removeConnection()
+  {
+    if (lifo)
+    {
+      final LDAPConnection preferredConnection = lastReleasedConnection.get();
+      if (preferredConnection != null)
+      {
+        lastReleasedConnection.remove();
+
+        final Iterator<LDAPConnection> iterator = connections.iterator();
+        for (int i=0; (i < AFFINITY_PROBE_DEPTH) && iterator.hasNext(); i++)
+        {
+          if (iterator.next() == preferredConnection)
+          {
+            if (connections.removeFirstOccurrence(preferredConnection))
+            {
+              size.decrementAndGet();
+              return preferredConnection;
+            }
+
+            break;
+          }
+        }
+      }
+    }
+
+    while (true)
+    {
+      final LDAPConnection connection = connections.pollFirst();
+      if (connection != null)
+      {
+        size.decrementAndGet();
+        return connection;
+      }
+    }
+  }
+
+
+
+  /**
+   * Retrieves the next connection that would be returned by the {@code poll}
+   * method without removing it.
+   *
+   * @return  The next connection that would be returned by the {@code poll}
+   *          method, or {@code null} if there are no available connections.
+   */
+  @Override()
+  public LDAPConnection peek()
+  {
+    return connections.peekFirst();
+  }
+
+
+
+  /**
+   * Retrieves the number of connections in this queue.
+   *
+   * @return  The number of connections in this queue.
+   */
+  @Override()
+  public int size()
+  {
+    return size.get();
+  }
+
+
+
+  /**
+   * Retrieves the number of additional connections that may be added to this
+   * queue before it reaches its capacity.
+   *
+   * @return  The number of additional connections that may be added to this
+   *          queue.
+   */
+  int remainingCapacity()
+  {
+    return capacity - size.get();
+  }
+
+
+
+  /**
+   * Removes all available connections from this queue and adds them to the
+   * provided collection.
+   *
+   * @param  c  The collection to which the connections should be added.
+   *
+   * @return  The number of connections that were removed.
+   */
+  int drainTo(final Collection<? super LDAPConnection> c)
+  {
+    int numDrained = 0;
+    while (true)
+    {
+      final LDAPConnection connection = poll();
+      if (connection == null)
+      {
+        return numDrained;
+      }
+
+      c.add(connection);
+      numDrained++;
+    }
+  }
+
+
+
+  /**
+   * Retrieves a weakly-consistent iterator over the connections in this queue.
+   * The iterator does not support removal.
+   *
+   * @return  An iterator over the connections in this queue.
+   */
+  @Override()
+  public Iterator<LDAPConnection> iterator()
+  {
+    return Collections.unmodifiableCollection(connections).iterator();
+  }
+}
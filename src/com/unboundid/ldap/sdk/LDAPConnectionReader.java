@@ -29,8 +29,10 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.nio.channels.SocketChannel;
 import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
@@ -47,6 +49,7 @@ import com.unboundid.ldap.sdk.unboundidds.extensions.
 import com.unboundid.util.Debug;
 import com.unboundid.util.DebugType;
 import com.unboundid.util.InternalUseOnly;
+import com.unboundid.util.SocketChannelInputStream;
 import com.unboundid.util.StaticUtils;
 import com.unboundid.util.WakeableSleeper;
 
@@ -57,7 +60,11 @@ import static com.unboundid.ldap.sdk.LDAPMessages.*;
 /**
  * This class provides a thread that will read data from the socket associated
  * with an LDAP connection.  It will accept messages from the server, and
- * associate responses with their corresponding requests.
+ * associate responses with their corresponding requests.  If the connection is
+ * configured to use a shared connection reader, then the thread will only be
+ * started if the connection needs to stop using the shared
+ * {@link LDAPConnectionReaderSelector}, and responses will otherwise be read by
+ * threads from the selector's response processing pool.
  */
 @InternalUseOnly()
 final class LDAPConnectionReader
@@ -70,12 +77,43 @@ final class LDAPConnectionReader
 
 
 
+  /**
+   * The value that will be returned by the {@code processNextResponse} method
+   * if more responses may be read from the connection.
+   */
+  private static final int RESULT_CONTINUE = 0;
+
+
+
+  /**
+   * The value that will be returned by the {@code processNextResponse} method
+   * if the connection should be re-established.
+   */
+  private static final int RESULT_RECONNECT = 1;
+
+
+
+  /**
+   * The value that will be returned by the {@code processNextResponse} method
+   * if the connection has been closed.
+   */
+  private static final int RESULT_CLOSED = 2;
+
+
+
   // The ASN.1 stream reader used to read LDAP messages from the server.
   private volatile ASN1StreamReader asn1StreamReader;
 
   // Indicates whether a request has been made to close the associated socket.
   private volatile boolean closeRequested;
 
+  // Indicates whether a request has been made to stop using the shared
+  // selector and read responses with a dedicated thread.
+  private volatile boolean dedicatedThreadRequested;
+
+  // Indicates whether this reader has been started as a dedicated thread.
+  private final AtomicBoolean dedicatedThreadStarted;
+
   // The map that will be used to associate message IDs with the corresponding
   // response acceptors.
   private final ConcurrentHashMap<Integer,ResponseAcceptor> acceptorMap;
@@ -94,9 +132,23 @@ final class LDAPConnectionReader
   // The LDAP connection with which this reader is associated.
   private final LDAPConnection connection;
 
+  // The selector that will be used to wait for responses if this reader does
+  // not have a dedicated thread.  It will be null if the connection does not
+  // use a shared connection reader.
+  private final LDAPConnectionReaderSelector sharedSelector;
+
   // The socket with which this reader is associated.
   private volatile Socket socket;
 
+  // The channel for the socket with which this reader is associated.  It will
+  // be null if the socket does not have a channel.
+  private final SocketChannel socketChannel;
+
+  // The output stream used to write to the socket channel, which must be used
+  // to alter the blocking mode of the channel.  It will be null if the socket
+  // does not have a channel.
+  private final SocketChannelOutputStream channelOutputStream;
+
   // The SSL socket factory to use to convert an insecure connection to a secure
   // one when performing StartTLS processing.  It will be null unless there is
   // an outstanding StartTLS request.
@@ -131,14 +183,30 @@ final class LDAPConnectionReader
     setName(constructThreadName(connectionInternals));
     setDaemon(true);
 
-    socket               = connectionInternals.getSocket();
-    inputStream          = new BufferedInputStream(socket.getInputStream(),
-                                                   DEFAULT_INPUT_BUFFER_SIZE);
+    socket              = connectionInternals.getSocket();
+    channelOutputStream = connectionInternals.getSocketChannelOutputStream();
+    if (channelOutputStream == null)
+    {
+      socketChannel  = null;
+      sharedSelector = null;
+      inputStream    = new BufferedInputStream(socket.getInputStream(),
+                                               DEFAULT_INPUT_BUFFER_SIZE);
+    }
+    else
+    {
+      socketChannel  = socket.getChannel();
+      sharedSelector = LDAPConnectionReaderSelector.getInstance();
+      inputStream    = new BufferedInputStream(
+           new SocketChannelInputStream(socket), DEFAULT_INPUT_BUFFER_SIZE);
+    }
+
     asn1StreamReader = new ASN1StreamReader(inputStream,
          connection.getConnectionOptions().getMaxMessageSize());
 
     acceptorMap = new ConcurrentHashMap<>(StaticUtils.computeMapCapacity(10));
     closeRequested = false;
+    dedicatedThreadRequested = false;
+    dedicatedThreadStarted = new AtomicBoolean(false);
     sslSocketFactory = null;
     startTLSException = null;
     startTLSOutputStream = null;
@@ -204,6 +272,101 @@ final class LDAPConnectionReader
 
 
 
+  /**
+   * Starts reading responses from the server.  If the connection is configured
+   * to use a shared connection reader, then it will be registered with the
+   * shared selector.  Otherwise, or if that is not possible, a dedicated thread
+   * will be started.
+   */
+  void startReading()
+  {
+    if (sharedSelector != null)
+    {
+      try
+      {
+        channelOutputStream.configureBlocking(false);
+        if (sharedSelector.register(this))
+        {
+          return;
+        }
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+      }
+    }
+
+    startDedicatedThread();
+  }
+
+
+
+  /**
+   * Starts a dedicated thread for this reader if one has not already been
+   * started.  A connection that uses a shared connection reader will stop
+   * using the shared selector when this method is called.
+   */
+  void startDedicatedThread()
+  {
+    if (dedicatedThreadStarted.compareAndSet(false, true))
+    {
+      thread = this;
+      start();
+    }
+  }
+
+
+
+  /**
+   * Requests that a connection using a shared connection reader switch to a
+   * dedicated reader thread.  This is necessary for processing that needs to
+   * interact with the socket directly, like StartTLS negotiation, or that may
+   * leave decoded data buffered in the ASN.1 stream reader, like SASL QoP.
+   * The conversion will be completed asynchronously, but the {@code thread}
+   * field will be set immediately so that it is only {@code null} if the
+   * reader has stopped running.
+   */
+  private void requestDedicatedThread()
+  {
+    if ((sharedSelector == null) || dedicatedThreadStarted.get())
+    {
+      return;
+    }
+
+    thread = this;
+    dedicatedThreadRequested = true;
+    sharedSelector.convertToDedicatedThread(this);
+  }
+
+
+
+  /**
+   * Indicates whether a request has been made for this reader to switch to a
+   * dedicated thread.
+   *
+   * @return  {@code true} if this reader should switch to a dedicated thread,
+   *          or {@code false} if not.
+   */
+  boolean dedicatedThreadRequested()
+  {
+    return dedicatedThreadRequested;
+  }
+
+
+
+  /**
+   * Retrieves the channel for the socket with which this reader is associated.
+   *
+   * @return  The channel for the socket with which this reader is associated,
+   *          or {@code null} if the socket does not have a channel.
+   */
+  SocketChannel getSocketChannel()
+  {
+    return socketChannel;
+  }
+
+
+
   /**
    * Operates in a loop, reading data from the server and decoding the
    * responses, and associating them with their corresponding requests.
@@ -215,355 +378,261 @@ final class LDAPConnectionReader
 
     thread = Thread.currentThread();
 
-    while (! closeRequested)
+    if (channelOutputStream != null)
     {
       try
       {
-        final LDAPResponse response;
-        try
-        {
-          response = LDAPMessage.readLDAPResponseFrom(asn1StreamReader, true,
-               connection.getCachedSchema());
-        }
-        catch (final LDAPException le)
-        {
-          final Throwable t = le.getCause();
-          if ((t != null) && (t instanceof SocketTimeoutException))
-          {
-            // This is rarely a problem, so we can make the debug message for
-            // this exception only visible at a verbose log level.
-            final SocketTimeoutException ste = (SocketTimeoutException) t;
-            Debug.debugException(Level.FINEST,  ste);
-            if (sslSocketFactory != null)
-            {
-              final LDAPConnectionOptions connectionOptions =
-                   connection.getConnectionOptions();
-              try
-              {
-                final int responseTimeoutMillis =
-                     (int) connectionOptions.getResponseTimeoutMillis();
-                if (responseTimeoutMillis > 0)
-                {
-                  InternalSDKHelper.setSoTimeout(connection,
-                       responseTimeoutMillis);
-                }
-                else
-                {
-                  InternalSDKHelper.setSoTimeout(connection, 0);
-                }
-
-                final SSLSocket sslSocket;
-                synchronized (sslSocketFactory)
-                {
-                  sslSocket = (SSLSocket) sslSocketFactory.createSocket(socket,
-                       connection.getConnectedAddress(), socket.getPort(),
-                       true);
-                  sslSocket.startHandshake();
-                }
-                connectionOptions.getSSLSocketVerifier().verifySSLSocket(
-                     connection.getConnectedAddress(), socket.getPort(),
-                     sslSocket);
-                inputStream =
-                     new BufferedInputStream(sslSocket.getInputStream(),
-                                             DEFAULT_INPUT_BUFFER_SIZE);
-                asn1StreamReader = new ASN1StreamReader(inputStream,
-                     connectionOptions.getMaxMessageSize());
-                startTLSOutputStream = sslSocket.getOutputStream();
-                socket = sslSocket;
-                connection.getConnectionInternals(true).setSocket(sslSocket);
-                startTLSSleeper.wakeup();
-              }
-              catch (final Exception e)
-              {
-                Debug.debugException(e);
-                connection.setDisconnectInfo(DisconnectType.SECURITY_PROBLEM,
-                     StaticUtils.getExceptionMessage(e), e);
-                startTLSException = e;
-                closeRequested = true;
-                if (thread != null)
-                {
-                  thread.setName(thread.getName() + " (closed)");
-                  thread = null;
-                }
-                closeInternal(true, StaticUtils.getExceptionMessage(e));
-                startTLSSleeper.wakeup();
-                return;
-              }
+        channelOutputStream.configureBlocking(true);
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+        closeRequested = true;
+        thread.setName(thread.getName() + " (closed)");
+        thread = null;
+        closeInternal(true, StaticUtils.getExceptionMessage(e));
+        return;
+      }
+    }
 
-              sslSocketFactory = null;
-            }
+    while (! closeRequested)
+    {
+      final int result = processNextResponse();
+      if (result == RESULT_CLOSED)
+      {
+        return;
+      }
+      else if (result == RESULT_RECONNECT)
+      {
+        reconnect = true;
+        break;
+      }
+    }
 
-            continue;
-          }
+    finishReading(reconnect);
+  }
 
-          if (closeRequested || connection.closeRequested() ||
-              (connection.getDisconnectType() != null))
-          {
-            // This exception resulted from the connection being closed in a way
-            // that we already knew about.  We don't want to debug it at the
-            // same level as a newly-detected invalidity.
-            closeRequested = true;
-            Debug.debugException(Level.FINEST, le);
-          }
-          else
-          {
-            Debug.debugException(le);
-          }
 
-          // We should terminate the connection regardless of the type of
-          // exception, but might want to customize the debug message.
-          final String message;
-          Level debugLevel = Level.SEVERE;
 
-          if (t == null)
-          {
-            connection.setDisconnectInfo(DisconnectType.DECODE_ERROR,
-                 le.getMessage(), t);
-            message = le.getMessage();
-            debugLevel = Level.WARNING;
-          }
-          else if ((t instanceof InterruptedIOException) && socket.isClosed())
-          {
-            connection.setDisconnectInfo(
-                 DisconnectType.SERVER_CLOSED_WITHOUT_NOTICE, le.getMessage(),
-                 t);
-            message = ERR_READER_CLOSING_DUE_TO_INTERRUPTED_IO.get(
-                 connection.getHostPort());
-            debugLevel = Level.WARNING;
-          }
-          else if (t instanceof IOException)
-          {
-            connection.setDisconnectInfo(DisconnectType.IO_ERROR,
-                 le.getMessage(), t);
-            message = ERR_READER_CLOSING_DUE_TO_IO_EXCEPTION.get(
-                 connection.getHostPort(), StaticUtils.getExceptionMessage(t));
-            debugLevel = Level.WARNING;
-          }
-          else if (t instanceof ASN1Exception)
-          {
-            connection.setDisconnectInfo(DisconnectType.DECODE_ERROR,
-                 le.getMessage(), t);
-            message = ERR_READER_CLOSING_DUE_TO_ASN1_EXCEPTION.get(
-                 connection.getHostPort(), StaticUtils.getExceptionMessage(t));
-          }
-          else
-          {
-            connection.setDisconnectInfo(DisconnectType.LOCAL_ERROR,
-                 le.getMessage(), t);
-            message = ERR_READER_CLOSING_DUE_TO_EXCEPTION.get(
-                 connection.getHostPort(), StaticUtils.getExceptionMessage(t));
-          }
+  /**
+   * Reads and processes responses from the server for as long as data is
+   * immediately available, and then hands the connection back to the shared
+   * selector.  This will be invoked by a thread from the shared selector's
+   * response processing pool when data arrives on a connection that does not
+   * have a dedicated reader thread.
+   */
+  void processAvailableResponses()
+  {
+    while (true)
+    {
+      if (closeRequested)
+      {
+        finishReading(false);
+        return;
+      }
 
-          Debug.debug(debugLevel, DebugType.LDAP, message, t);
+      final int result = processNextResponse();
+      if (result == RESULT_CLOSED)
+      {
+        return;
+      }
+      else if (result == RESULT_RECONNECT)
+      {
+        finishReading(true);
+        return;
+      }
 
-          // If the connection is configured to try to auto-reconnect, then set
-          // things up to do that.  Otherwise, terminate the connection.
-          @SuppressWarnings("deprecation")
-          final boolean autoReconnect =
-               connection.getConnectionOptions().autoReconnect();
-          if ((! closeRequested) && autoReconnect)
-          {
-            reconnect = true;
-            break;
-          }
-          else
-          {
-            closeRequested = true;
-            if (thread != null)
-            {
-              thread.setName(thread.getName() + " (closed)");
-              thread = null;
-            }
-            closeInternal(true, message);
-            return;
-          }
-        }
+      if (dedicatedThreadRequested)
+      {
+        break;
+      }
 
-        if (response == null)
+      try
+      {
+        final InputStream is = inputStream;
+        if ((is == null) || (is.available() <= 0))
         {
-          // This should only happen if the socket has been closed.
-          connection.setDisconnectInfo(
-               DisconnectType.SERVER_CLOSED_WITHOUT_NOTICE, null, null);
-          @SuppressWarnings("deprecation")
-          final boolean autoReconnect =
-               connection.getConnectionOptions().autoReconnect();
-          if ((! closeRequested) && (! connection.unbindRequestSent()) &&
-              autoReconnect)
-          {
-            reconnect = true;
-            break;
-          }
-          else
-          {
-            closeRequested = true;
-            if (thread != null)
-            {
-              thread.setName(thread.getName() + " (closed)");
-              thread = null;
-            }
-            closeInternal(true, null);
-            return;
-          }
+          break;
         }
+      }
+      catch (final IOException ioe)
+      {
+        // The problem will be detected on the next attempt to read from the
+        // connection.
+        Debug.debugException(ioe);
+        break;
+      }
+    }
 
-        Debug.debugLDAPResult(response, connection);
-        connection.setLastCommunicationTime();
+    if (closeRequested)
+    {
+      finishReading(false);
+    }
+    else if (dedicatedThreadRequested || (! sharedSelector.register(this)))
+    {
+      startDedicatedThread();
+    }
+  }
 
-        final ResponseAcceptor responseAcceptor;
-        if ((response instanceof SearchResultEntry) ||
-            (response instanceof SearchResultReference))
-        {
-          responseAcceptor = acceptorMap.get(response.getMessageID());
-        }
-        else if (response instanceof IntermediateResponse)
-        {
-          final IntermediateResponse ir = (IntermediateResponse) response;
-          responseAcceptor = acceptorMap.get(response.getMessageID());
-           IntermediateResponseListener l = null;
-          if (responseAcceptor instanceof LDAPRequest)
-          {
-            final LDAPRequest r = (LDAPRequest) responseAcceptor;
-            l = r.getIntermediateResponseListener();
 
-          }
-          else if (responseAcceptor instanceof IntermediateResponseListener)
-          {
-            l = (IntermediateResponseListener) responseAcceptor;
-          }
 
-          if (l == null)
-          {
-            Debug.debug(Level.WARNING, DebugType.LDAP,
-                 WARN_INTERMEDIATE_RESPONSE_WITH_NO_LISTENER.get(
-                      String.valueOf(ir)));
-          }
-          else
+  /**
+   * Reads and processes the next response from the server.
+   *
+   * @return  {@link #RESULT_CONTINUE} if more responses may be read from the
+   *          connection, {@link #RESULT_RECONNECT} if the connection should be
+   *          re-established, or {@link #RESULT_CLOSED} if the connection has
+   *          been closed.
+   */
+  private int processNextResponse()
+  {
+    try
+    {
+      final LDAPResponse response;
+      try
+      {
+        response = LDAPMessage.readLDAPResponseFrom(asn1StreamReader, true,
+             connection);
+      }
+      catch (final LDAPException le)
+      {
+        final Throwable t = le.getCause();
+        if ((t != null) && (t instanceof SocketTimeoutException))
+        {
+          // This is rarely a problem, so we can make the debug message for
+          // this exception only visible at a verbose log level.
+          final SocketTimeoutException ste = (SocketTimeoutException) t;
+          Debug.debugException(Level.FINEST,  ste);
+          if (sslSocketFactory != null)
           {
+            final LDAPConnectionOptions connectionOptions =
+                 connection.getConnectionOptions();
             try
             {
-              l.intermediateResponseReturned(ir);
+              final int responseTimeoutMillis =
+                   (int) connectionOptions.getResponseTimeoutMillis();
+              if (responseTimeoutMillis > 0)
+              {
+                InternalSDKHelper.setSoTimeout(connection,
+                     responseTimeoutMillis);
+              }
+              else
+              {
+                InternalSDKHelper.setSoTimeout(connection, 0);
+              }
+
+              final SSLSocket sslSocket;
+              synchronized (sslSocketFactory)
+              {
+                sslSocket = (SSLSocket) sslSocketFactory.createSocket(socket,
+                     connection.getConnectedAddress(), socket.getPort(),
+                     true);
+                sslSocket.startHandshake();
+              }
+              connectionOptions.getSSLSocketVerifier().verifySSLSocket(
+                   connection.getConnectedAddress(), socket.getPort(),
+                   sslSocket);
+              inputStream =
+                   new BufferedInputStream(sslSocket.getInputStream(),
+                                           DEFAULT_INPUT_BUFFER_SIZE);
+              asn1StreamReader = new ASN1StreamReader(inputStream,
+                   connectionOptions.getMaxMessageSize());
+              startTLSOutputStream = sslSocket.getOutputStream();
+              socket = sslSocket;
+              connection.getConnectionInternals(true).setSocket(sslSocket);
+              startTLSSleeper.wakeup();
             }
             catch (final Exception e)
             {
               Debug.debugException(e);
-            }
-          }
-          continue;
-        }
-        else
-        {
-          responseAcceptor = acceptorMap.remove(response.getMessageID());
-        }
-
-
-        if (responseAcceptor == null)
-        {
-          if ((response instanceof ExtendedResult) &&
-              (response.getMessageID() == 0))
-          {
-            // This is an intermediate response message, so handle it
-            // appropriately.
-            ExtendedResult extendedResult = (ExtendedResult) response;
-
-            final String oid = extendedResult.getOID();
-            if (NoticeOfDisconnectionExtendedResult.
-                     NOTICE_OF_DISCONNECTION_RESULT_OID.equals(oid))
-            {
-              extendedResult = new NoticeOfDisconnectionExtendedResult(
-                                        extendedResult);
-              connection.setDisconnectInfo(
-                   DisconnectType.SERVER_CLOSED_WITH_NOTICE,
-                   extendedResult.getDiagnosticMessage(), null);
-            }
-            else if (InteractiveTransactionAbortedExtendedResult.
-                          INTERACTIVE_TRANSACTION_ABORTED_RESULT_OID.equals(
-                               oid))
-            {
-              extendedResult = new InteractiveTransactionAbortedExtendedResult(
-                                        extendedResult);
-            }
-
-            final UnsolicitedNotificationHandler handler =
-                 connection.getConnectionOptions().
-                      getUnsolicitedNotificationHandler();
-            if (handler == null)
-            {
-              if (Debug.debugEnabled(DebugType.LDAP))
+              connection.setDisconnectInfo(DisconnectType.SECURITY_PROBLEM,
+                   StaticUtils.getExceptionMessage(e), e);
+              startTLSException = e;
+              closeRequested = true;
+              if (thread != null)
               {
-                Debug.debug(Level.WARNING, DebugType.LDAP,
-                     WARN_READER_UNHANDLED_UNSOLICITED_NOTIFICATION.get(
-                          response));
+                thread.setName(thread.getName() + " (closed)");
+                thread = null;
               }
+              closeInternal(true, StaticUtils.getExceptionMessage(e));
+              startTLSSleeper.wakeup();
+              return RESULT_CLOSED;
             }
-            else
-            {
-              handler.handleUnsolicitedNotification(connection,
-                                                    extendedResult);
-            }
-            continue;
-          }
 
-          if (Debug.debugEnabled(DebugType.LDAP))
-          {
-            Debug.debug(Level.WARNING, DebugType.LDAP,
-                  WARN_READER_NO_ACCEPTOR.get(response));
+            sslSocketFactory = null;
           }
-          continue;
+
+          return RESULT_CONTINUE;
         }
 
-        try
+        if (closeRequested || connection.closeRequested() ||
+            (connection.getDisconnectType() != null))
         {
-          responseAcceptor.responseReceived(response);
+          // This exception resulted from the connection being closed in a way
+          // that we already knew about.  We don't want to debug it at the
+          // same level as a newly-detected invalidity.
+          closeRequested = true;
+          Debug.debugException(Level.FINEST, le);
         }
-        catch (final LDAPException le)
+        else
         {
           Debug.debugException(le);
-          Debug.debug(Level.WARNING, DebugType.LDAP,
-                ERR_READER_ACCEPTOR_ERROR.get(String.valueOf(response),
-                     connection.getHostPort(),
-                     StaticUtils.getExceptionMessage(le)),
-               le);
         }
-      }
-      catch (final Exception e)
-      {
-        Debug.debugException(e);
 
         // We should terminate the connection regardless of the type of
         // exception, but might want to customize the debug message.
         final String message;
         Level debugLevel = Level.SEVERE;
-        if (e instanceof IOException)
+
+        if (t == null)
         {
-          connection.setDisconnectInfo(DisconnectType.IO_ERROR, null, e);
+          connection.setDisconnectInfo(DisconnectType.DECODE_ERROR,
+               le.getMessage(), t);
+          message = le.getMessage();
+          debugLevel = Level.WARNING;
+        }
+        else if ((t instanceof InterruptedIOException) && socket.isClosed())
+        {
+          connection.setDisconnectInfo(
+               DisconnectType.SERVER_CLOSED_WITHOUT_NOTICE, le.getMessage(),
+               t);
+          message = ERR_READER_CLOSING_DUE_TO_INTERRUPTED_IO.get(
+               connection.getHostPort());
+          debugLevel = Level.WARNING;
+        }
+        else if (t instanceof IOException)
+        {
+          connection.setDisconnectInfo(DisconnectType.IO_ERROR,
+               le.getMessage(), t);
           message = ERR_READER_CLOSING_DUE_TO_IO_EXCEPTION.get(
-               connection.getHostPort(), StaticUtils.getExceptionMessage(e));
+               connection.getHostPort(), StaticUtils.getExceptionMessage(t));
           debugLevel = Level.WARNING;
         }
-        else if (e instanceof ASN1Exception)
+        else if (t instanceof ASN1Exception)
         {
-          connection.setDisconnectInfo(DisconnectType.DECODE_ERROR, null, e);
+          connection.setDisconnectInfo(DisconnectType.DECODE_ERROR,
+               le.getMessage(), t);
           message = ERR_READER_CLOSING_DUE_TO_ASN1_EXCEPTION.get(
-               connection.getHostPort(), StaticUtils.getExceptionMessage(e));
+               connection.getHostPort(), StaticUtils.getExceptionMessage(t));
         }
         else
         {
-          connection.setDisconnectInfo(DisconnectType.LOCAL_ERROR, null, e);
+          connection.setDisconnectInfo(DisconnectType.LOCAL_ERROR,
+               le.getMessage(), t);
           message = ERR_READER_CLOSING_DUE_TO_EXCEPTION.get(
-               connection.getHostPort(), StaticUtils.getExceptionMessage(e));
+               connection.getHostPort(), StaticUtils.getExceptionMessage(t));
         }
 
-        Debug.debug(debugLevel, DebugType.LDAP, message, e);
+        Debug.debug(debugLevel, DebugType.LDAP, message, t);
 
         // If the connection is configured to try to auto-reconnect, then set
         // things up to do that.  Otherwise, terminate the connection.
         @SuppressWarnings("deprecation")
         final boolean autoReconnect =
              connection.getConnectionOptions().autoReconnect();
-        if (autoReconnect)
+        if ((! closeRequested) && autoReconnect)
         {
-          reconnect = true;
-          break;
+          return RESULT_RECONNECT;
         }
         else
         {
@@ -574,11 +643,221 @@ final class LDAPConnectionReader
             thread = null;
           }
           closeInternal(true, message);
-          return;
+          return RESULT_CLOSED;
+        }
+      }
+
+      if (response == null)
+      {
+        // This should only happen if the socket has been closed.
+        connection.setDisconnectInfo(
+             DisconnectType.SERVER_CLOSED_WITHOUT_NOTICE, null, null);
+        @SuppressWarnings("deprecation")
+        final boolean autoReconnect =
+             connection.getConnectionOptions().autoReconnect();
+        if ((! closeRequested) && (! connection.unbindRequestSent()) &&
+            autoReconnect)
+        {
+          return RESULT_RECONNECT;
+        }
+        else
+        {
+          closeRequested = true;
+          if (thread != null)
+          {
+            thread.setName(thread.getName() + " (closed)");
+            thread = null;
+          }
+          closeInternal(true, null);
+          return RESULT_CLOSED;
+        }
+      }
+
+      Debug.debugLDAPResult(response, connection);
+      connection.setLastCommunicationTime();
+
+      final ResponseAcceptor responseAcceptor;
+      if ((response instanceof SearchResultEntry) ||
+          (response instanceof SearchResultReference))
+      {
+        responseAcceptor = acceptorMap.get(response.getMessageID());
+      }
+      else if (response instanceof IntermediateResponse)
+      {
+        final IntermediateResponse ir = (IntermediateResponse) response;
+        responseAcceptor = acceptorMap.get(response.getMessageID());
+         IntermediateResponseListener l = null;
+        if (responseAcceptor instanceof LDAPRequest)
+        {
+          final LDAPRequest r = (LDAPRequest) responseAcceptor;
+          l = r.getIntermediateResponseListener();
+
+        }
+        else if (responseAcceptor instanceof IntermediateResponseListener)
+        {
+          l = (IntermediateResponseListener) responseAcceptor;
+        }
+
+        if (l == null)
+        {
+          Debug.debug(Level.WARNING, DebugType.LDAP,
+               WARN_INTERMEDIATE_RESPONSE_WITH_NO_LISTENER.get(
+                    String.valueOf(ir)));
         }
+        else
+        {
+          try
+          {
+            l.intermediateResponseReturned(ir);
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+          }
+        }
+        return RESULT_CONTINUE;
+      }
+      else
+      {
+        responseAcceptor = acceptorMap.remove(response.getMessageID());
+      }
+
+
+      if (responseAcceptor == null)
+      {
+        if ((response instanceof ExtendedResult) &&
+            (response.getMessageID() == 0))
+        {
+          // This is an intermediate response message, so handle it
+          // appropriately.
+          ExtendedResult extendedResult = (ExtendedResult) response;
+
+          final String oid = extendedResult.getOID();
+          if (NoticeOfDisconnectionExtendedResult.
+                   NOTICE_OF_DISCONNECTION_RESULT_OID.equals(oid))
+          {
+            extendedResult = new NoticeOfDisconnectionExtendedResult(
+                                      extendedResult);
+            connection.setDisconnectInfo(
+                 DisconnectType.SERVER_CLOSED_WITH_NOTICE,
+                 extendedResult.getDiagnosticMessage(), null);
+          }
+          else if (InteractiveTransactionAbortedExtendedResult.
+                        INTERACTIVE_TRANSACTION_ABORTED_RESULT_OID.equals(
+                             oid))
+          {
+            extendedResult = new InteractiveTransactionAbortedExtendedResult(
+                                      extendedResult);
+          }
+
+          final UnsolicitedNotificationHandler handler =
+               connection.getConnectionOptions().
+                    getUnsolicitedNotificationHandler();
+          if (handler == null)
+          {
+            if (Debug.debugEnabled(DebugType.LDAP))
+            {
+              Debug.debug(Level.WARNING, DebugType.LDAP,
+                   WARN_READER_UNHANDLED_UNSOLICITED_NOTIFICATION.get(
+                        response));
+            }
+          }
+          else
+          {
+            handler.handleUnsolicitedNotification(connection,
+                                                  extendedResult);
+          }
+          return RESULT_CONTINUE;
+        }
+
+        if (Debug.debugEnabled(DebugType.LDAP))
+        {
+          Debug.debug(Level.WARNING, DebugType.LDAP,
+                WARN_READER_NO_ACCEPTOR.get(response));
+        }
+        return RESULT_CONTINUE;
+      }
+
+      try
+      {
+        responseAcceptor.responseReceived(response);
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+        Debug.debug(Level.WARNING, DebugType.LDAP,
+              ERR_READER_ACCEPTOR_ERROR.get(String.valueOf(response),
+                   connection.getHostPort(),
+                   StaticUtils.getExceptionMessage(le)),
+             le);
       }
     }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
 
+      // We should terminate the connection regardless of the type of
+      // exception, but might want to customize the debug message.
+      final String message;
+      Level debugLevel = Level.SEVERE;
+      if (e instanceof IOException)
+      {
+        connection.setDisconnectInfo(DisconnectType.IO_ERROR, null, e);
+        message = ERR_READER_CLOSING_DUE_TO_IO_EXCEPTION.get(
+             connection.getHostPort(), StaticUtils.getExceptionMessage(e));
+        debugLevel = Level.WARNING;
+      }
+      else if (e instanceof ASN1Exception)
+      {
+        connection.setDisconnectInfo(DisconnectType.DECODE_ERROR, null, e);
+        message = ERR_READER_CLOSING_DUE_TO_ASN1_EXCEPTION.get(
+             connection.getHostPort(), StaticUtils.getExceptionMessage(e));
+      }
+      else
+      {
+        connection.setDisconnectInfo(DisconnectType.LOCAL_ERROR, null, e);
+        message = ERR_READER_CLOSING_DUE_TO_EXCEPTION.get(
+             connection.getHostPort(), StaticUtils.getExceptionMessage(e));
+      }
+
+      Debug.debug(debugLevel, DebugType.LDAP, message, e);
+
+      // If the connection is configured to try to auto-reconnect, then set
+      // things up to do that.  Otherwise, terminate the connection.
+      @SuppressWarnings("deprecation")
+      final boolean autoReconnect =
+           connection.getConnectionOptions().autoReconnect();
+      if (autoReconnect)
+      {
+        return RESULT_RECONNECT;
+      }
+      else
+      {
+        closeRequested = true;
+        if (thread != null)
+        {
+          thread.setName(thread.getName() + " (closed)");
+          thread = null;
+        }
+        closeInternal(true, message);
+        return RESULT_CLOSED;
+      }
+    }
+
+    return RESULT_CONTINUE;
+  }
+
+
+
+  /**
+   * Performs the necessary processing after this reader has stopped reading
+   * responses without closing the connection itself.
+   *
+   * @param  reconnect  Indicates whether to attempt to re-establish the
+   *                    connection.
+   */
+  private void finishReading(final boolean reconnect)
+  {
     if (thread != null)
     {
       thread.setName(constructThreadName(null));
@@ -628,7 +907,7 @@ final class LDAPConnectionReader
       try
       {
         final LDAPResponse response = LDAPMessage.readLDAPResponseFrom(
-             asn1StreamReader, false, connection.getCachedSchema());
+             asn1StreamReader, false, connection);
         if (response == null)
         {
           return new ConnectionClosedResponse(ResultCode.SERVER_DOWN, null);
@@ -865,6 +1144,7 @@ final class LDAPConnectionReader
     }
     else
     {
+      requestDedicatedThread();
       this.sslSocketFactory = sslSocketFactory;
 
       // Since the connection isn't operating in synchronous mode, we'll want to
@@ -925,6 +1205,7 @@ final class LDAPConnectionReader
   void applySASLQoP(final SaslClient saslClient)
   {
     InternalASN1Helper.setSASLClient(asn1StreamReader, saslClient);
+    requestDedicatedThread();
   }
 
 
@@ -997,6 +1278,13 @@ final class LDAPConnectionReader
        Debug.debugException(e);
      }
 
+     if (sharedSelector != null)
+     {
+       // The selector must be woken up in order for it to release a channel
+       // that has been closed while registered with it.
+       sharedSelector.wakeUp();
+     }
+
      if (notifyConnection)
      {
        connection.setClosed();
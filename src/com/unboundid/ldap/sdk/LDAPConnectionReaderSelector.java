@@ -0,0 +1,424 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.unboundid.util.Debug;
+import com.unboundid.util.InternalUseOnly;
+import com.unboundid.util.LDAPSDKThreadFactory;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides a thread that may be used to monitor a number of LDAP
+ * connections with a single selector, rather than having a dedicated reader
+ * thread blocked on a read for each connection.  When data arrives on a
+ * connection, that connection will be removed from the selector and handed off
+ * to a pool of threads that will read responses using the same logic as a
+ * dedicated {@link LDAPConnectionReader} thread.  Once there is no more data
+ * immediately available from the server, the connection will be returned to
+ * the selector.
+ * <BR><BR>
+ * Responses are delivered to listeners by the pool thread that read them, and
+ * the connection is not read again until the listener returns.  The pool does
+ * not queue work, but creates a new thread whenever all of its threads are
+ * busy, so a listener that blocks will only hold up its own connection.  Idle
+ * pool threads will exit after a minute, so the number of threads tracks the
+ * number of connections actively receiving responses.
+ * <BR><BR>
+ * A single instance of this class is shared by all connections that have the
+ * {@link LDAPConnectionOptions#useSharedConnectionReader()} option enabled.
+ * Connections that need to be converted to use a dedicated reader thread (for
+ * example, because of StartTLS processing) may do so at any time.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class LDAPConnectionReaderSelector
+      extends Thread
+{
+  /**
+   * The length of time in milliseconds that an idle response processing
+   * thread will be retained.
+   */
+  private static final long IDLE_THREAD_TIMEOUT_MILLIS = 60_000L;
+
+
+
+  /**
+   * The shared selector instance, if one has been created.
+   */
+  private static LDAPConnectionReaderSelector instance = null;
+
+
+
+  // Indicates whether the selector has stopped running.  All access to this
+  // field must be synchronized on the pendingRegistrations list.
+  private boolean stopped;
+
+  // The connection readers that should be converted to use a dedicated thread
+  // the next time the selector thread wakes up.  All access to this list must
+  // be synchronized on the pendingRegistrations list.
+  private final List<LDAPConnectionReader> pendingConversions;
+
+  // The connection readers that should be registered with the selector the
+  // next time the selector thread wakes up.
+  private final List<LDAPConnectionReader> pendingRegistrations;
+
+  // The selector used to wait for data to arrive on idle connections.
+  private final Selector selector;
+
+  // The pool of threads used to read responses and deliver them to listeners.
+  private final ThreadPoolExecutor responseProcessingPool;
+
+
+
+  /**
+   * Creates a new connection reader selector.
+   *
+   * @throws  IOException  If a problem occurs while opening the selector.
+   */
+  private LDAPConnectionReaderSelector()
+          throws IOException
+  {
+    setName("Shared LDAP Connection Reader Selector");
+    setDaemon(true);
+
+    stopped = false;
+    pendingConversions = new ArrayList<>(10);
+    pendingRegistrations = new ArrayList<>(10);
+    selector = Selector.open();
+
+    responseProcessingPool = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+         IDLE_THREAD_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS,
+         new SynchronousQueue<Runnable>(),
+         new LDAPSDKThreadFactory("Shared LDAP Connection Reader", true));
+  }
+
+
+
+  /**
+   * Retrieves the shared connection reader selector, creating and starting it
+   * if necessary.
+   *
+   * @return  The shared connection reader selector, or {@code null} if it
+   *          could not be created.
+   */
+  static synchronized LDAPConnectionReaderSelector getInstance()
+  {
+    if (instance != null)
+    {
+      synchronized (instance.pendingRegistrations)
+      {
+        if (! instance.stopped)
+        {
+          return instance;
+        }
+      }
+    }
+
+    try
+    {
+      instance = new LDAPConnectionReaderSelector();
+      instance.start();
+      return instance;
+    }
+    catch (final IOException ioe)
+    {
+      Debug.debugException(ioe);
+      instance = null;
+      return null;
+    }
+  }
+
+
+
+  /**
+   * Operates in a loop, registering idle connections with the selector and
+   * dispatching connections with available data to the response processing
+   * threads.  This method is for internal use only and must not be invoked by
+   * external callers.
+   */
+  @InternalUseOnly()
+  @Override()
+  public void run()
+  {
+    try
+    {
+      while (true)
+      {
+        final ArrayList<LDAPConnectionReader> registrations;
+        final ArrayList<LDAPConnectionReader> conversions;
+        synchronized (pendingRegistrations)
+        {
+          registrations = new ArrayList<>(pendingRegistrations);
+          pendingRegistrations.clear();
+
+          conversions = new ArrayList<>(pendingConversions);
+          pendingConversions.clear();
+        }
+
+        for (final LDAPConnectionReader r : registrations)
+        {
+          if (r.dedicatedThreadRequested())
+          {
+            r.startDedicatedThread();
+            continue;
+          }
+
+          try
+          {
+            r.getSocketChannel().register(selector, SelectionKey.OP_READ, r);
+          }
+          catch (final Exception e)
+          {
+            // This will most likely be because the connection was closed while
+            // it was waiting to be registered, but let the reader decide.
+            Debug.debugException(e);
+            r.startDedicatedThread();
+          }
+        }
+
+        if (! conversions.isEmpty())
+        {
+          convertToDedicatedThreads(conversions);
+        }
+
+        selector.select();
+        dispatchReadyConnections();
+      }
+    }
+    catch (final IOException ioe)
+    {
+      Debug.debugException(ioe);
+    }
+    finally
+    {
+      final ArrayList<LDAPConnectionReader> readers;
+      synchronized (pendingRegistrations)
+      {
+        stopped = true;
+        readers = new ArrayList<>(pendingRegistrations);
+        readers.addAll(pendingConversions);
+        pendingRegistrations.clear();
+        pendingConversions.clear();
+      }
+
+      for (final SelectionKey key : selector.keys())
+      {
+        if (key.isValid())
+        {
+          readers.add((LDAPConnectionReader) key.attachment());
+        }
+      }
+
+      try
+      {
+        selector.close();
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+      }
+
+      for (final LDAPConnectionReader r : readers)
+      {
+        r.startDedicatedThread();
+      }
+
+      responseProcessingPool.shutdown();
+    }
+  }
+
+
+
+  /**
+   * Removes the provided readers from the selector and starts a dedicated
+   * thread for each of them.  Readers that are not currently registered with
+   * the selector are being processed by a response processing thread or are
+   * awaiting registration, and they will be converted when that completes.
+   *
+   * @param  readers  The readers to be converted.
+   *
+   * @throws  IOException  If a problem is encountered while interacting with
+   *                       the selector.
+   */
+  private void convertToDedicatedThreads(
+                    final List<LDAPConnectionReader> readers)
+          throws IOException
+  {
+    final ArrayList<LDAPConnectionReader> convertedReaders =
+         new ArrayList<>(readers.size());
+    for (final LDAPConnectionReader r : readers)
+    {
+      final SocketChannel channel = r.getSocketChannel();
+      final SelectionKey key = channel.keyFor(selector);
+      if ((key != null) && key.isValid())
+      {
+        key.cancel();
+        convertedReaders.add(r);
+      }
+      else if (! channel.isOpen())
+      {
+        convertedReaders.add(r);
+      }
+    }
+
+    // A channel cannot be placed back into blocking mode until its key has been
+    // removed from the selector, and cancelled keys are only removed during a
+    // selection operation.
+    selector.selectNow();
+    dispatchReadyConnections();
+
+    for (final LDAPConnectionReader r : convertedReaders)
+    {
+      r.startDedicatedThread();
+    }
+  }
+
+
+
+  /**
+   * Removes all connections that have data available from the selector and
+   * hands them off to the response processing threads.
+   *
+   * @throws  IOException  If a problem is encountered while interacting with
+   *                       the selector.
+   */
+  private void dispatchReadyConnections()
+          throws IOException
+  {
+    // A connection cannot be registered with the selector again until its
+    // cancelled key has been removed during a selection operation, so keep
+    // selecting until nothing else is ready.
+    final ArrayList<LDAPConnectionReader> readyReaders = new ArrayList<>(10);
+    do
+    {
+      final Iterator<SelectionKey> iterator =
+           selector.selectedKeys().iterator();
+      while (iterator.hasNext())
+      {
+        final SelectionKey key = iterator.next();
+        iterator.remove();
+        key.cancel();
+        readyReaders.add((LDAPConnectionReader) key.attachment());
+      }
+    }
+    while (selector.selectNow() > 0);
+
+    for (final LDAPConnectionReader r : readyReaders)
+    {
+      try
+      {
+        responseProcessingPool.execute(new Runnable()
+        {
+          @Override()
+          public void run()
+          {
+            r.processAvailableResponses();
+          }
+        });
+      }
+      catch (final RejectedExecutionException e)
+      {
+        Debug.debugException(e);
+        r.startDedicatedThread();
+      }
+    }
+  }
+
+
+
+  /**
+   * Registers the provided reader with this selector so that it will be handed
+   * off to a response processing thread when data arrives from the server.  The
+   * reader's channel must already be in non-blocking mode.
+   *
+   * @param  reader  The reader to register.
+   *
+   * @return  {@code true} if the reader was accepted for registration, or
+   *          {@code false} if this selector has stopped and the reader should
+   *          use a dedicated thread instead.
+   */
+  boolean register(final LDAPConnectionReader reader)
+  {
+    synchronized (pendingRegistrations)
+    {
+      if (stopped)
+      {
+        return false;
+      }
+
+      pendingRegistrations.add(reader);
+    }
+
+    selector.wakeup();
+    return true;
+  }
+
+
+
+  /**
+   * Indicates that the provided reader should be removed from this selector
+   * and should use a dedicated thread from now on.  The conversion will be
+   * performed asynchronously.
+   *
+   * @param  reader  The reader to be converted.
+   */
+  void convertToDedicatedThread(final LDAPConnectionReader reader)
+  {
+    synchronized (pendingRegistrations)
+    {
+      if (stopped)
+      {
+        return;
+      }
+
+      pendingConversions.add(reader);
+    }
+
+    selector.wakeup();
+  }
+
+
+
+  /**
+   * Wakes up the selector thread so that the channels for any closed
+   * connections will be released.
+   */
+  void wakeUp()
+  {
+    selector.wakeup();
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.unboundid.util.Debug;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides a mechanism for combining messages that are sent
+ * concurrently over the same connection by multiple threads into a single
+ * write.  Each thread adds its encoded message to a queue and then waits for
+ * the connection's write lock.  Whichever thread obtains the lock will write
+ * all of the queued messages to the output stream and flush it once, so that
+ * threads that obtain the lock later will usually find that their messages
+ * have already been sent.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class LDAPConnectionWriter
+{
+  /**
+   * The maximum number of bytes that will be written in a single batch.  Any
+   * messages remaining in the queue once this limit has been reached will be
+   * written by the next thread to obtain the lock, so that a thread cannot be
+   * kept writing indefinitely by other threads that continue to add messages.
+   */
+  private static final int MAX_BATCH_SIZE_BYTES = 65_536;
+
+
+
+  // The list used to hold the messages in the batch being written.  It must
+  // only be accessed while holding the write lock.
+  private final ArrayList<PendingWrite> batch;
+
+  // The queue of messages waiting to be written.
+  private final ConcurrentLinkedQueue<PendingWrite> pendingWrites;
+
+  // The connection internals for the connection to which messages will be
+  // written.
+  private final LDAPConnectionInternals connectionInternals;
+
+  // The lock that must be held while writing messages.
+  private final ReentrantLock writeLock;
+
+
+
+  /**
+   * Creates a new writer for the provided connection.
+   *
+   * @param  connectionInternals  The connection internals for the connection
+   *                              to which messages will be written.
+   */
+  LDAPConnectionWriter(final LDAPConnectionInternals connectionInternals)
+  {
+    this.connectionInternals = connectionInternals;
+
+    batch = new ArrayList<>(10);
+    pendingWrites = new ConcurrentLinkedQueue<>();
+    writeLock = new ReentrantLock();
+  }
+
+
+
+  /**
+   * Writes the provided encoded message to the connection, possibly along
+   * with messages provided by other threads.  This method will not return
+   * until the message has been written and the output stream flushed, or an
+   * error has occurred.
+   *
+   * @param  encodedMessage  The encoded message to be written.  It must not
+   *                         be altered by the caller until this method
+   *                         returns.
+   * @param  soTimeout       The SO_TIMEOUT value, in milliseconds, to use if
+   *                         this thread needs to write the message itself.
+   *
+   * @throws  IOException  If a problem occurs while writing the message or
+   *                       flushing the output stream.
+   */
+  void write(final byte[] encodedMessage, final int soTimeout)
+       throws IOException
+  {
+    final PendingWrite pendingWrite = new PendingWrite(encodedMessage);
+    pendingWrites.add(pendingWrite);
+
+    writeLock.lock();
+    try
+    {
+      if (! pendingWrite.completed)
+      {
+        try
+        {
+          connectionInternals.setSoTimeout(soTimeout);
+        }
+        catch (final Exception e)
+        {
+          Debug.debugException(e);
+        }
+
+        writePendingMessages();
+      }
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+
+    if (pendingWrite.exception != null)
+    {
+      throw pendingWrite.exception;
+    }
+  }
+
+
+
+  /**
+   * Writes the messages in the queue to the output stream, up to the maximum
+   * batch size, and flushes it.  This must only be called while holding the
+   * write lock.
+   */
+  private void writePendingMessages()
+  {
+    final OutputStream outputStream = connectionInternals.getOutputStream();
+
+    IOException exception = null;
+    int bytesWritten = 0;
+    while (bytesWritten < MAX_BATCH_SIZE_BYTES)
+    {
+      final PendingWrite pendingWrite = pendingWrites.poll();
+      if (pendingWrite == null)
+      {
+        break;
+      }
+
+      batch.add(pendingWrite);
+      if (exception == null)
+      {
+        try
+        {
+          outputStream.write(pendingWrite.encodedMessage);
+          bytesWritten += pendingWrite.encodedMessage.length;
+        }
+        catch (final IOException ioe)
+        {
+          Debug.debugException(ioe);
+          exception = ioe;
+        }
+      }
+    }
+
+    if (exception == null)
+    {
+      try
+      {
+        outputStream.flush();
+      }
+      catch (final IOException ioe)
+      {
+        Debug.debugException(ioe);
+        exception = ioe;
+      }
+    }
+
+    for (final PendingWrite pendingWrite : batch)
+    {
+      pendingWrite.exception = exception;
+      pendingWrite.completed = true;
+    }
+    batch.clear();
+  }
+
+
+
+  /**
+   * This class holds a message waiting to be written.  Its fields are only
+   * accessed while holding the write lock, apart from the final
+   * {@code encodedMessage} field.
+   */
+  private static final class PendingWrite
+  {
+    // The encoded message to be written.
+    private final byte[] encodedMessage;
+
+    // Indicates whether an attempt has been made to write the message.
+    private boolean completed;
+
+    // The exception caught while trying to write the message, if any.
+    private IOException exception;
+
+
+
+    /**
+     * Creates a new pending write for the provided message.
+     *
+     * @param  encodedMessage  The encoded message to be written.
+     */
+    private PendingWrite(final byte[] encodedMessage)
+    {
+      this.encodedMessage = encodedMessage;
+
+      completed = false;
+      exception = null;
+    }
+  }
+}
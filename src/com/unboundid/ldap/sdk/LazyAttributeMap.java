@@ -0,0 +1,622 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.ByteArrayInputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.unboundid.asn1.ASN1StreamReader;
+import com.unboundid.ldap.sdk.schema.Schema;
+import com.unboundid.util.Debug;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+import static com.unboundid.ldap.sdk.LDAPMessages.*;
+
+
+
+/**
+ * This class provides a map of attributes for use in an entry that holds the
+ * encoded attribute list of a search result entry and only decodes individual
+ * attributes when they are requested.  When the map is created, the encoded
+ * attribute list is scanned to find the name and position of each attribute,
+ * but no values are decoded.  Attributes retrieved with the {@code get}
+ * method are decoded individually, and the {@code containsKey}, {@code size},
+ * and {@code isEmpty} methods do not require any attributes to be decoded.
+ * Any other method, including any method that alters the map or iterates
+ * through its contents, will cause all remaining attributes to be decoded, and
+ * the map will behave like a normal {@code LinkedHashMap} from then on.
+ * <BR><BR>
+ * Lazy decoding is safe for concurrent readers, like any other entry that is
+ * not being altered.  Decoding failures that are not detected when the map is
+ * created will result in an {@link LDAPRuntimeException} when the affected
+ * attribute is accessed.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.NOT_THREADSAFE)
+final class LazyAttributeMap
+      extends LinkedHashMap<String,Attribute>
+{
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = 2318760946315743582L;
+
+
+
+  // The attributes that have been decoded, in the order in which they appear
+  // in the encoded attribute list.  It will be null once all attributes have
+  // been moved into the map.
+  private Attribute[] decodedAttributes;
+
+  // The encoded attribute list.  It will be null once all attributes have been
+  // moved into the map.
+  private byte[] encodedAttributes;
+
+  // The position of each attribute in the encoded attribute list, keyed by the
+  // lowercase attribute name.
+  private final HashMap<String,Integer> attributeIndexes;
+
+  // The offset of each attribute in the encoded attribute list.
+  private final int[] attributeOffsets;
+
+  // The length of each attribute in the encoded attribute list.
+  private final int[] attributeLengths;
+
+  // Indicates whether all attributes have been decoded and moved into the map.
+  private volatile boolean materialized;
+
+  // The schema to use when decoding attributes.
+  private final Schema schema;
+
+  // The lowercase names of the attributes, in the order in which they appear
+  // in the encoded attribute list.
+  private final String[] attributeNames;
+
+
+
+  /**
+   * Creates a new lazy attribute map with the provided information.
+   *
+   * @param  encodedAttributes  The encoded attribute list.
+   * @param  schema             The schema to use when decoding attributes.
+   * @param  attributeNames     The lowercase names of the attributes.
+   * @param  attributeOffsets   The offset of each attribute.
+   * @param  attributeLengths   The length of each attribute.
+   * @param  attributeIndexes   The position of each attribute, keyed by name.
+   */
+  private LazyAttributeMap(final byte[] encodedAttributes, final Schema schema,
+                           final String[] attributeNames,
+                           final int[] attributeOffsets,
+                           final int[] attributeLengths,
+                           final HashMap<String,Integer> attributeIndexes)
+  {
+    super(StaticUtils.computeMapCapacity(attributeNames.length));
+
+    this.encodedAttributes = encodedAttributes;
+    this.schema            = schema;
+    this.attributeNames    = attributeNames;
+    this.attributeOffsets  = attributeOffsets;
+    this.attributeLengths  = attributeLengths;
+    this.attributeIndexes  = attributeIndexes;
+
+    decodedAttributes = new Attribute[attributeNames.length];
+    materialized      = false;
+  }
+
+
+
+  /**
+   * Creates a lazy attribute map for the provided encoded attribute list.
+   *
+   * @param  encodedAttributes  The value of the sequence that holds the
+   *                            attributes of a search result entry.  It must
+   *                            not be altered after this method returns.
+   * @param  schema             The schema to use when decoding attributes.  It
+   *                            may be {@code null} if no schema is available.
+   *
+   * @return  The lazy attribute map that was created, or {@code null} if the
+   *          encoded attribute list contains more than one attribute with the
+   *          same name so that the attributes must be merged as they are
+   *          decoded.
+   *
+   * @throws  LDAPException  If the encoded attribute list is malformed.
+   */
+  static LazyAttributeMap create(final byte[] encodedAttributes,
+                                 final Schema schema)
+         throws LDAPException
+  {
+    int numAttributes = 0;
+    String[] names = new String[10];
+    int[] offsets = new int[10];
+    int[] lengths = new int[10];
+    final HashMap<String,Integer> indexes =
+         new HashMap<>(StaticUtils.computeMapCapacity(10));
+
+    final int[] valueLength = new int[1];
+    int pos = 0;
+    while (pos < encodedAttributes.length)
+    {
+      // Each attribute is a sequence of the attribute name and a set of
+      // values.  Only the name needs to be read.
+      final int attributeStart = pos;
+      final int attributeValueStart = getValueStart(encodedAttributes,
+           attributeStart, encodedAttributes.length, valueLength);
+      final int attributeEnd = attributeValueStart + valueLength[0];
+
+      final int nameValueStart = getValueStart(encodedAttributes,
+           attributeValueStart, attributeEnd, valueLength);
+      final int nameEnd = nameValueStart + valueLength[0];
+
+      final int valuesValueStart = getValueStart(encodedAttributes, nameEnd,
+           attributeEnd, valueLength);
+      if ((valuesValueStart + valueLength[0]) != attributeEnd)
+      {
+        throw new LDAPException(ResultCode.DECODING_ERROR,
+             ERR_SEARCH_ENTRY_MALFORMED_ATTRIBUTE.get(attributeStart));
+      }
+
+      final String lowerName = StaticUtils.toLowerCase(
+           StaticUtils.toUTF8String(encodedAttributes, nameValueStart,
+                (nameEnd - nameValueStart)));
+      if (indexes.put(lowerName, numAttributes) != null)
+      {
+        return null;
+      }
+
+      if (numAttributes == names.length)
+      {
+        final int newLength = names.length * 2;
+        final String[] newNames = new String[newLength];
+        final int[] newOffsets = new int[newLength];
+        final int[] newLengths = new int[newLength];
+        System.arraycopy(names, 0, newNames, 0, numAttributes);
+        System.arraycopy(offsets, 0, newOffsets, 0, numAttributes);
+        System.arraycopy(lengths, 0, newLengths, 0, numAttributes);
+        names = newNames;
+        offsets = newOffsets;
+        lengths = newLengths;
+      }
+
+      names[numAttributes] = lowerName;
+      offsets[numAttributes] = attributeStart;
+      lengths[numAttributes] = attributeEnd - attributeStart;
+      numAttributes++;
+
+      pos = attributeEnd;
+    }
+
+    final String[] attributeNames = new String[numAttributes];
+    final int[] attributeOffsets = new int[numAttributes];
+    final int[] attributeLengths = new int[numAttributes];
+    System.arraycopy(names, 0, attributeNames, 0, numAttributes);
+    System.arraycopy(offsets, 0, attributeOffsets, 0, numAttributes);
+    System.arraycopy(lengths, 0, attributeLengths, 0, numAttributes);
+
+    return new LazyAttributeMap(encodedAttributes, schema, attributeNames,
+         attributeOffsets, attributeLengths, indexes);
+  }
+
+
+
+  /**
+   * Reads the BER type and length of the element that starts at the specified
+   * position and determines where its value begins.
+   *
+   * @param  b            The array containing the element.
+   * @param  start        The position of the BER type of the element.
+   * @param  end          The position immediately after the last byte that
+   *                      the element is allowed to use.
+   * @param  valueLength  An array whose first element will be set to the
+   *                      length of the element value.
+   *
+   * @return  The position of the first byte of the element value.
+   *
+   * @throws  LDAPException  If the element is malformed or extends beyond the
+   *                         allowed end position.
+   */
+  private static int getValueStart(final byte[] b, final int start,
+                                   final int end, final int[] valueLength)
+         throws LDAPException
+  {
+    int pos = start + 1;
+    if (pos >= end)
+    {
+      throw new LDAPException(ResultCode.DECODING_ERROR,
+           ERR_SEARCH_ENTRY_MALFORMED_ATTRIBUTE.get(start));
+    }
+
+    int length = (b[pos++] & 0xFF);
+    if ((length & 0x80) != 0)
+    {
+      final int numLengthBytes = (length & 0x7F);
+      if ((numLengthBytes < 1) || (numLengthBytes > 4) ||
+          ((pos + numLengthBytes) > end))
+      {
+        throw new LDAPException(ResultCode.DECODING_ERROR,
+             ERR_SEARCH_ENTRY_MALFORMED_ATTRIBUTE.get(start));
+      }
+
+      length = 0;
+      for (int i=0; i < numLengthBytes; i++)
+      {
+        length = (length << 8) | (b[pos++] & 0xFF);
+      }
+    }
+
+    if ((length < 0) || (length > (end - pos)))
+    {
+      throw new LDAPException(ResultCode.DECODING_ERROR,
+           ERR_SEARCH_ENTRY_MALFORMED_ATTRIBUTE.get(start));
+    }
+
+    valueLength[0] = length;
+    return pos;
+  }
+
+
+
+  /**
+   * Retrieves the number of attributes that have been decoded.  This is
+   * intended for testing purposes.
+   *
+   * @return  The number of attributes that have been decoded.
+   */
+  synchronized int getNumDecodedAttributes()
+  {
+    if (materialized)
+    {
+      return attributeNames.length;
+    }
+
+    int numDecoded = 0;
+    for (final Attribute a : decodedAttributes)
+    {
+      if (a != null)
+      {
+        numDecoded++;
+      }
+    }
+
+    return numDecoded;
+  }
+
+
+
+  /**
+   * Retrieves the attribute at the specified position, decoding it if
+   * necessary.  The caller must hold the lock on this map, and all attributes
+   * must not yet have been moved into the map.
+   *
+   * @param  index  The position of the attribute to retrieve.
+   *
+   * @return  The requested attribute.
+   */
+  private Attribute decodeAttribute(final int index)
+  {
+    Attribute a = decodedAttributes[index];
+    if (a == null)
+    {
+      final ASN1StreamReader reader = new ASN1StreamReader(
+           new ByteArrayInputStream(encodedAttributes, attributeOffsets[index],
+                attributeLengths[index]));
+      try
+      {
+        a = Attribute.readFrom(reader, schema);
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+        throw new LDAPRuntimeException(le);
+      }
+
+      decodedAttributes[index] = a;
+    }
+
+    return a;
+  }
+
+
+
+  /**
+   * Decodes all remaining attributes and moves them into the map in their
+   * original order.
+   */
+  private void materialize()
+  {
+    if (materialized)
+    {
+      return;
+    }
+
+    synchronized (this)
+    {
+      if (materialized)
+      {
+        return;
+      }
+
+      for (int i=0; i < attributeNames.length; i++)
+      {
+        super.put(attributeNames[i], decodeAttribute(i));
+      }
+
+      decodedAttributes = null;
+      encodedAttributes = null;
+      materialized = true;
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public Attribute get(final Object key)
+  {
+    if (materialized)
+    {
+      return super.get(key);
+    }
+
+    synchronized (this)
+    {
+      if (materialized)
+      {
+        return super.get(key);
+      }
+
+      final Integer index = attributeIndexes.get(key);
+      if (index == null)
+      {
+        return null;
+      }
+
+      return decodeAttribute(index);
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public boolean containsKey(final Object key)
+  {
+    if (materialized)
+    {
+      return super.containsKey(key);
+    }
+
+    synchronized (this)
+    {
+      if (materialized)
+      {
+        return super.containsKey(key);
+      }
+
+      return attributeIndexes.containsKey(key);
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public int size()
+  {
+    if (materialized)
+    {
+      return super.size();
+    }
+
+    synchronized (this)
+    {
+      if (materialized)
+      {
+        return super.size();
+      }
+
+      return attributeNames.length;
+    }
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public boolean isEmpty()
+  {
+    return (size() == 0);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public boolean containsValue(final Object value)
+  {
+    materialize();
+    return super.containsValue(value);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public Attribute put(final String key, final Attribute value)
+  {
+    materialize();
+    return super.put(key, value);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void putAll(final Map<? extends String,? extends Attribute> m)
+  {
+    materialize();
+    super.putAll(m);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public Attribute remove(final Object key)
+  {
+    materialize();
+    return super.remove(key);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void clear()
+  {
+    materialize();
+    super.clear();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public Set<String> keySet()
+  {
+    materialize();
+    return super.keySet();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public Collection<Attribute> values()
+  {
+    materialize();
+    return super.values();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public Set<Map.Entry<String,Attribute>> entrySet()
+  {
+    materialize();
+    return super.entrySet();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public boolean equals(final Object o)
+  {
+    materialize();
+    return super.equals(o);
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public int hashCode()
+  {
+    materialize();
+    return super.hashCode();
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public String toString()
+  {
+    materialize();
+    return super.toString();
+  }
+
+
+
+  /**
+   * Creates a copy of this map as a normal {@code LinkedHashMap}.
+   *
+   * @return  A copy of this map as a normal {@code LinkedHashMap}.
+   */
+  @Override()
+  public Object clone()
+  {
+    materialize();
+    return new LinkedHashMap<>(this);
+  }
+
+
+
+  /**
+   * Designates a normal {@code LinkedHashMap} with the same contents to be
+   * serialized in place of this map.
+   *
+   * @return  A normal {@code LinkedHashMap} with the same contents.
+   */
+  private Object writeReplace()
+  {
+    materialize();
+    return new LinkedHashMap<>(this);
+  }
+}
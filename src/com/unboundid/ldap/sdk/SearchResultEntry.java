@@ -22,6 +22,7 @@ package com.unboundid.ldap.sdk;
 
 
 
+import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -265,17 +266,76 @@ public final class SearchResultEntry
               final ASN1StreamReaderSequence messageSequence,
               final ASN1StreamReader reader, final Schema schema)
          throws LDAPException
+  {
+    return readSearchEntryFrom(messageID, messageSequence, reader, schema,
+         false);
+  }
+
+
+
+  /**
+   * Creates a new search result entry object with the protocol op and controls
+   * read from the given ASN.1 stream reader.
+   *
+   * @param  messageID        The message ID for the LDAP message containing
+   *                          this response.
+   * @param  messageSequence  The ASN.1 stream reader sequence used in the
+   *                          course of reading the LDAP message elements.
+   * @param  reader           The ASN.1 stream reader from which to read the
+   *                          protocol op and controls.
+   * @param  schema           The schema to use to select the appropriate
+   *                          matching rule to use for each attribute.  It may
+   *                          be {@code null} if the default matching rule
+   *                          should always be used.
+   * @param  lazy             Indicates whether to retain the encoded
+   *                          attributes and only decode them as they are
+   *                          accessed.
+   *
+   * @return  The decoded search result entry object.
+   *
+   * @throws  LDAPException  If a problem occurs while reading or decoding data
+   *                         from the ASN.1 stream reader.
+   */
+  static SearchResultEntry readSearchEntryFrom(final int messageID,
+              final ASN1StreamReaderSequence messageSequence,
+              final ASN1StreamReader reader, final Schema schema,
+              final boolean lazy)
+         throws LDAPException
   {
     try
     {
       reader.beginSequence();
       final String dn = reader.readString();
 
-      final ArrayList<Attribute> attrList = new ArrayList<>(10);
-      final ASN1StreamReaderSequence attrSequence = reader.beginSequence();
-      while (attrSequence.hasMoreElements())
+      // If lazy decoding was requested, then read the attribute list as a
+      // single element and defer decoding the individual attributes.  If the
+      // list contains the same attribute more than once, then fall back to
+      // decoding it eagerly so that the attributes can be merged.
+      ArrayList<Attribute> attrList = null;
+      LazyAttributeMap lazyAttrs = null;
+      if (lazy)
       {
-        attrList.add(Attribute.readFrom(reader, schema));
+        final byte[] encodedAttrs = reader.readElement().getValue();
+        lazyAttrs = LazyAttributeMap.create(encodedAttrs, schema);
+        if (lazyAttrs == null)
+        {
+          attrList = new ArrayList<>(10);
+          final ASN1StreamReader attrReader =
+               new ASN1StreamReader(new ByteArrayInputStream(encodedAttrs));
+          while (attrReader.peek() >= 0)
+          {
+            attrList.add(Attribute.readFrom(attrReader, schema));
+          }
+        }
+      }
+      else
+      {
+        attrList = new ArrayList<>(10);
+        final ASN1StreamReaderSequence attrSequence = reader.beginSequence();
+        while (attrSequence.hasMoreElements())
+        {
+          attrList.add(Attribute.readFrom(reader, schema));
+        }
       }
 
       Control[] controls = NO_CONTROLS;
@@ -292,7 +352,16 @@ public final class SearchResultEntry
         controlList.toArray(controls);
       }
 
-      return new SearchResultEntry(messageID, dn, schema, attrList, controls);
+      if (lazyAttrs == null)
+      {
+        return new SearchResultEntry(messageID, dn, schema, attrList,
+             controls);
+      }
+      else
+      {
+        return new SearchResultEntry(messageID,
+             new Entry(dn, schema, lazyAttrs), controls);
+      }
     }
     catch (final LDAPException le)
     {
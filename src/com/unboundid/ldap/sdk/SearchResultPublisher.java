@@ -0,0 +1,1004 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.ArrayDeque;
+
+import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.ldap.sdk.controls.SimplePagedResultsControl;
+import com.unboundid.util.Debug;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+import com.unboundid.util.Validator;
+
+import static com.unboundid.ldap.sdk.LDAPMessages.*;
+
+
+
+/**
+ * This class provides a mechanism for processing a search in which entries are
+ * only retrieved from the server as they are requested by a
+ * {@link SearchResultSubscriber}.  It follows the same model as a reactive
+ * streams publisher:  the subscriber requests some number of entries, and
+ * entries will not be provided (or read from the server) until they have been
+ * requested.
+ * <BR><BR>
+ * The search is processed using the simple paged results control as described
+ * in <A HREF="http://www.ietf.org/rfc/rfc2696.txt">RFC 2696</A>, and a page is
+ * only requested from the server when the subscriber has outstanding demand
+ * for more entries.  Each page will contain no more entries than the
+ * subscriber has requested, up to a configurable maximum page size.  Unlike
+ * the {@link LDAPEntrySource} class, the thread reading responses from the
+ * server will never need to wait for the subscriber to request more entries.
+ * If the server does not support the simple paged results control, then all
+ * matching entries will be returned in a single page and held in memory until
+ * they are requested by the subscriber.
+ * <BR><BR>
+ * Each subscriber will be provided with the results of a separate search.
+ * The {@link SearchResultSubscription#request} method will not wait for the
+ * server to respond:  it sends the request for the next page asynchronously,
+ * and entries will be provided to the subscriber either on the thread that
+ * called that method (if they are already available) or on the thread that
+ * reads responses from the server as they arrive.  Subscribers should
+ * therefore avoid blocking in the {@code onNext} method.  The only exception is
+ * a connection operating in synchronous mode, for which each page must be
+ * retrieved on the thread that requests it.  When a connection pool is used, a
+ * connection will be checked out of the pool when the first page is requested,
+ * and it will remain checked out until the search completes or the
+ * subscription is cancelled, since servers typically require all pages of a
+ * search to be requested on the same connection.
+ * <H2>Example</H2>
+ * The following example demonstrates the process that may be used to process
+ * all entries containing the {@code person} object class, ten entries at a
+ * time:
+ * <PRE>
+ * SearchRequest searchRequest = new SearchRequest("dc=example,dc=com",
+ *      SearchScope.SUB, Filter.createEqualityFilter("objectClass", "person"));
+ * SearchResultPublisher publisher =
+ *      new SearchResultPublisher(connection, searchRequest);
+ *
+ * publisher.subscribe(new SearchResultSubscriber()
+ * {
+ *   private SearchResultSubscription subscription;
+ *   private int entriesInBatch;
+ *
+ *   public void onSubscribe(SearchResultSubscription subscription)
+ *   {
+ *     this.subscription = subscription;
+ *     subscription.request(10L);
+ *   }
+ *
+ *   public void onNext(SearchResultEntry entry)
+ *   {
+ *     // Do something with the entry here.
+ *     entriesInBatch++;
+ *     if (entriesInBatch == 10)
+ *     {
+ *       entriesInBatch = 0;
+ *       subscription.request(10L);
+ *     }
+ *   }
+ *
+ *   public void onError(LDAPException exception)
+ *   {
+ *     // The search could not be completed.
+ *   }
+ *
+ *   public void onComplete(SearchResult result)
+ *   {
+ *     // All matching entries have been processed.
+ *   }
+ * });
+ * </PRE>
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+public final class SearchResultPublisher
+{
+  /**
+   * The default maximum number of entries to request in a single page.
+   */
+  private static final int DEFAULT_MAX_PAGE_SIZE = 100;
+
+
+
+  // The connection pool to use to process the search.
+  private final AbstractConnectionPool pool;
+
+  // The maximum number of entries to request in a single page.
+  private final int maxPageSize;
+
+  // The connection to use to process the search.
+  private final LDAPConnection connection;
+
+  // The search request to process.
+  private final SearchRequest searchRequest;
+
+
+
+  /**
+   * Creates a new search result publisher that will process searches using the
+   * provided connection and a default maximum page size.
+   *
+   * @param  connection     The connection to use to process the search.  It
+   *                        must not be {@code null}.
+   * @param  searchRequest  The search request to process.  It must not be
+   *                        {@code null}, and it must not be configured with a
+   *                        {@link SearchResultListener}.
+   *
+   * @throws  LDAPException  If there is a problem with the provided search
+   *                         request.
+   */
+  public SearchResultPublisher(final LDAPConnection connection,
+                               final SearchRequest searchRequest)
+         throws LDAPException
+  {
+    this(connection, searchRequest, DEFAULT_MAX_PAGE_SIZE);
+  }
+
+
+
+  /**
+   * Creates a new search result publisher that will process searches using the
+   * provided connection.
+   *
+   * @param  connection     The connection to use to process the search.  It
+   *                        must not be {@code null}.
+   * @param  searchRequest  The search request to process.  It must not be
+   *                        {@code null}, and it must not be configured with a
+   *                        {@link SearchResultListener}.
+   * @param  maxPageSize    The maximum number of entries to request from the
+   *                        server at a time.  It must be greater than zero.
+   *
+   * @throws  LDAPException  If there is a problem with the provided search
+   *                         request.
+   */
+  public SearchResultPublisher(final LDAPConnection connection,
+                               final SearchRequest searchRequest,
+                               final int maxPageSize)
+         throws LDAPException
+  {
+    this(connection, null, searchRequest, maxPageSize);
+  }
+
+
+
+  /**
+   * Creates a new search result publisher that will process searches using
+   * connections from the provided pool and a default maximum page size.
+   *
+   * @param  pool           The connection pool to use to process the search.
+   *                        It must not be {@code null}.
+   * @param  searchRequest  The search request to process.  It must not be
+   *                        {@code null}, and it must not be configured with a
+   *                        {@link SearchResultListener}.
+   *
+   * @throws  LDAPException  If there is a problem with the provided search
+   *                         request.
+   */
+  public SearchResultPublisher(final AbstractConnectionPool pool,
+                               final SearchRequest searchRequest)
+         throws LDAPException
+  {
+    this(pool, searchRequest, DEFAULT_MAX_PAGE_SIZE);
+  }
+
+
+
+  /**
+   * Creates a new search result publisher that will process searches using
+   * connections from the provided pool.
+   *
+   * @param  pool           The connection pool to use to process the search.
+   *                        It must not be {@code null}.
+   * @param  searchRequest  The search request to process.  It must not be
+   *                        {@code null}, and it must not be configured with a
+   *                        {@link SearchResultListener}.
+   * @param  maxPageSize    The maximum number of entries to request from the
+   *                        server at a time.  It must be greater than zero.
+   *
+   * @throws  LDAPException  If there is a problem with the provided search
+   *                         request.
+   */
+  public SearchResultPublisher(final AbstractConnectionPool pool,
+                               final SearchRequest searchRequest,
+                               final int maxPageSize)
+         throws LDAPException
+  {
+    this(null, pool, searchRequest, maxPageSize);
+  }
+
+
+
+  /**
+   * Creates a new search result publisher with the provided information.
+   *
+   * @param  connection     The connection to use to process the search, or
+   *                        {@code null} if a connection pool should be used.
+   * @param  pool           The connection pool to use to process the search,
+   *                        or {@code null} if a connection should be used.
+   * @param  searchRequest  The search request to process.
+   * @param  maxPageSize    The maximum number of entries to request from the
+   *                        server at a time.
+   *
+   * @throws  LDAPException  If there is a problem with the provided search
+   *                         request.
+   */
+  private SearchResultPublisher(final LDAPConnection connection,
+                                final AbstractConnectionPool pool,
+                                final SearchRequest searchRequest,
+                                final int maxPageSize)
+          throws LDAPException
+  {
+    if (pool == null)
+    {
+      Validator.ensureNotNull(connection, searchRequest);
+    }
+    else
+    {
+      Validator.ensureNotNull(pool, searchRequest);
+    }
+
+    Validator.ensureTrue(maxPageSize > 0,
+         "SearchResultPublisher.maxPageSize must be greater than 0.");
+
+    if (searchRequest.getSearchResultListener() != null)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR,
+           ERR_SEARCH_RESULT_PUBLISHER_REQUEST_HAS_LISTENER.get());
+    }
+
+    this.connection    = connection;
+    this.pool          = pool;
+    this.searchRequest = searchRequest.duplicate();
+    this.maxPageSize   = maxPageSize;
+
+    // A new paged results control will be included in the request for each
+    // page, so remove any that the caller may have provided.
+    while (this.searchRequest.removeControl(
+         SimplePagedResultsControl.PAGED_RESULTS_OID) != null)
+    {
+      // No implementation required.
+    }
+  }
+
+
+
+  /**
+   * Retrieves the maximum number of entries that will be requested from the
+   * server at a time.
+   *
+   * @return  The maximum number of entries that will be requested from the
+   *          server at a time.
+   */
+  public int getMaxPageSize()
+  {
+    return maxPageSize;
+  }
+
+
+
+  /**
+   * Subscribes the provided subscriber to this publisher.  The subscriber's
+   * {@code onSubscribe} method will be invoked before this method returns, but
+   * the search will not be sent to the server until entries are requested.
+   * Each subscriber will be provided with the results of a separate search.
+   *
+   * @param  subscriber  The subscriber to which entries should be provided.
+   *                     It must not be {@code null}.
+   */
+  public void subscribe(final SearchResultSubscriber subscriber)
+  {
+    Validator.ensureNotNull(subscriber);
+
+    subscriber.onSubscribe(new PagedSearchSubscription(subscriber));
+  }
+
+
+
+  /**
+   * This class provides the subscription used to request entries for a single
+   * subscriber.  Only one thread at a time will provide entries to the
+   * subscriber, and all other state is protected by synchronizing on this
+   * object.
+   */
+  private final class PagedSearchSubscription
+          implements SearchResultSubscription
+  {
+    // The entries that have been retrieved from the server but not yet
+    // provided to the subscriber.
+    private final ArrayDeque<SearchResultEntry> entries;
+
+    // The subscriber to which entries should be provided.
+    private final SearchResultSubscriber subscriber;
+
+    // The cookie to use to request the next page of results.
+    private ASN1OctetString cookie;
+
+    // The async request ID for the page that is currently being retrieved.
+    private AsyncRequestID pageRequestID;
+
+    // Indicates whether the subscription has been cancelled.
+    private boolean cancelled;
+
+    // Indicates whether a thread is currently providing entries to the
+    // subscriber.
+    private boolean draining;
+
+    // Indicates whether there may be more pages to retrieve from the server.
+    private boolean morePages;
+
+    // Indicates whether a page has been requested from the server but its
+    // search result has not yet been received.
+    private boolean pageInProgress;
+
+    // Indicates whether the subscriber has been notified that processing is
+    // complete, or whether the subscription has been cancelled.
+    private boolean terminated;
+
+    // The connection that is being used to process the search.
+    private LDAPConnection searchConnection;
+
+    // An exception that should be provided to the subscriber immediately.
+    private LDAPException pendingException;
+
+    // An exception that should be provided to the subscriber after all entries
+    // retrieved from the server have been provided.
+    private LDAPException searchException;
+
+    // The number of entries that have been requested but not yet provided.
+    private long demand;
+
+    // The search result for the last page that was retrieved.
+    private SearchResult lastResult;
+
+
+
+    /**
+     * Creates a new subscription for the provided subscriber.
+     *
+     * @param  subscriber  The subscriber to which entries should be provided.
+     */
+    private PagedSearchSubscription(final SearchResultSubscriber subscriber)
+    {
+      this.subscriber = subscriber;
+
+      entries          = new ArrayDeque<>(10);
+      cookie           = null;
+      pageRequestID    = null;
+      cancelled        = false;
+      draining         = false;
+      morePages        = true;
+      pageInProgress   = false;
+      terminated       = false;
+      searchConnection = null;
+      pendingException = null;
+      searchException  = null;
+      demand           = 0L;
+      lastResult       = null;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void request(final long n)
+    {
+      synchronized (this)
+      {
+        if (terminated)
+        {
+          return;
+        }
+
+        if (n <= 0L)
+        {
+          if (pendingException == null)
+          {
+            pendingException = new LDAPException(ResultCode.PARAM_ERROR,
+                 ERR_SEARCH_RESULT_PUBLISHER_INVALID_REQUEST_COUNT.get(n));
+          }
+        }
+        else
+        {
+          demand += n;
+          if (demand < 0L)
+          {
+            demand = Long.MAX_VALUE;
+          }
+        }
+      }
+
+      scheduleDrain();
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void cancel()
+    {
+      synchronized (this)
+      {
+        if (terminated)
+        {
+          return;
+        }
+
+        cancelled = true;
+      }
+
+      scheduleDrain();
+    }
+
+
+
+    /**
+     * Provides requested entries to the subscriber on the current thread,
+     * unless another thread is already doing so (in which case that thread
+     * will pick up any new state before it stops).
+     */
+    private void scheduleDrain()
+    {
+      synchronized (this)
+      {
+        if (draining || terminated)
+        {
+          return;
+        }
+
+        draining = true;
+      }
+
+      drain();
+    }
+
+
+
+    /**
+     * Provides requested entries to the subscriber, and sends a request for
+     * the next page to the server when there is outstanding demand, until
+     * there is no more demand, the subscription must wait for a page to be
+     * returned, or processing is complete.  This must only be invoked by the
+     * thread that set the {@code draining} flag.
+     */
+    private void drain()
+    {
+      while (true)
+      {
+        SearchResultEntry entry = null;
+        boolean retrievePage = false;
+        final LDAPException exception;
+        final SearchResult result;
+        synchronized (this)
+        {
+          if (cancelled)
+          {
+            exception = null;
+            result = null;
+          }
+          else if (pendingException != null)
+          {
+            exception = pendingException;
+            result = null;
+          }
+          else if (! entries.isEmpty())
+          {
+            if (demand == 0L)
+            {
+              draining = false;
+              return;
+            }
+
+            entry = entries.removeFirst();
+            demand--;
+            exception = null;
+            result = null;
+          }
+          else if (pageInProgress)
+          {
+            // The listener for the page will resume processing when more
+            // entries or the search result are received.
+            draining = false;
+            return;
+          }
+          else if (morePages)
+          {
+            if (demand == 0L)
+            {
+              draining = false;
+              return;
+            }
+
+            retrievePage = true;
+            pageInProgress = true;
+            exception = null;
+            result = null;
+          }
+          else
+          {
+            exception = searchException;
+            result = lastResult;
+          }
+
+          if ((entry == null) && (! retrievePage))
+          {
+            terminated = true;
+          }
+        }
+
+        if (entry != null)
+        {
+          try
+          {
+            subscriber.onNext(entry);
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+            synchronized (this)
+            {
+              cancelled = true;
+            }
+          }
+        }
+        else if (retrievePage)
+        {
+          retrievePage();
+        }
+        else
+        {
+          releaseConnection();
+          if (exception != null)
+          {
+            subscriber.onError(exception);
+          }
+          else if (result != null)
+          {
+            subscriber.onComplete(result);
+          }
+
+          return;
+        }
+      }
+    }
+
+
+
+    /**
+     * Sends the request for the next page of results to the server.  Entries
+     * and the search result will be handled by a {@link PageResultListener}
+     * as they are received, so this method will not wait for a response unless
+     * the connection is operating in synchronous mode.  If a problem is
+     * encountered, then it will be stored as the search exception.
+     */
+    private void retrievePage()
+    {
+      final int pageSize;
+      final ASN1OctetString pageCookie;
+      synchronized (this)
+      {
+        pageSize = (int) Math.min(demand, maxPageSize);
+        pageCookie = cookie;
+      }
+
+      try
+      {
+        LDAPConnection conn;
+        synchronized (this)
+        {
+          conn = searchConnection;
+        }
+
+        if (conn == null)
+        {
+          if (pool == null)
+          {
+            conn = connection;
+          }
+          else
+          {
+            conn = pool.getConnection();
+          }
+
+          synchronized (this)
+          {
+            searchConnection = conn;
+          }
+        }
+
+        if (conn.synchronousMode())
+        {
+          // Asynchronous operations are not available in synchronous mode,
+          // so the page must be retrieved on this thread.
+          SearchResult result;
+          try
+          {
+            result = conn.search(createPageRequest(pageSize, pageCookie, null));
+          }
+          catch (final LDAPSearchException lse)
+          {
+            Debug.debugException(lse);
+            result = lse.getSearchResult();
+          }
+
+          synchronized (this)
+          {
+            if (result.getSearchEntries() != null)
+            {
+              entries.addAll(result.getSearchEntries());
+            }
+          }
+
+          pageResultReceived(result);
+        }
+        else
+        {
+          final AsyncRequestID requestID = conn.asyncSearch(
+               createPageRequest(pageSize, pageCookie,
+                    new PageResultListener()));
+          synchronized (this)
+          {
+            if (pageInProgress)
+            {
+              pageRequestID = requestID;
+            }
+          }
+        }
+      }
+      catch (final LDAPException le)
+      {
+        Debug.debugException(le);
+
+        synchronized (this)
+        {
+          pageInProgress = false;
+          morePages = false;
+          cookie = null;
+          searchException = le;
+        }
+      }
+    }
+
+
+
+    /**
+     * Updates the state of this subscription to reflect the search result
+     * for a page.  Any entries returned with the page must already have been
+     * added to the set of entries to provide to the subscriber.
+     *
+     * @param  result  The search result for the page.
+     */
+    private void pageResultReceived(final SearchResult result)
+    {
+      SimplePagedResultsControl responseControl = null;
+      LDAPException exception = null;
+      if (result.getResultCode() == ResultCode.SUCCESS)
+      {
+        try
+        {
+          responseControl = SimplePagedResultsControl.get(result);
+        }
+        catch (final LDAPException le)
+        {
+          Debug.debugException(le);
+          exception = le;
+        }
+      }
+      else
+      {
+        exception = new LDAPSearchException(result);
+      }
+
+      synchronized (this)
+      {
+        pageInProgress = false;
+        pageRequestID = null;
+        lastResult = result;
+
+        if (exception != null)
+        {
+          morePages = false;
+          cookie = null;
+          searchException = exception;
+        }
+        else if ((responseControl == null) ||
+                 (! responseControl.moreResultsToReturn()))
+        {
+          morePages = false;
+          cookie = null;
+        }
+        else
+        {
+          cookie = responseControl.getCookie();
+        }
+      }
+    }
+
+
+
+    /**
+     * Releases the connection used to process the search.  If a page is
+     * still being retrieved, then it will be abandoned.  If the search was
+     * cancelled before all pages were retrieved, then the server will be told
+     * that no more pages are needed, and a connection from a pool will be
+     * released once the server has responded.
+     */
+    private void releaseConnection()
+    {
+      final LDAPConnection conn;
+      final ASN1OctetString pageCookie;
+      final AsyncRequestID abandonID;
+      final boolean pageWasInProgress;
+      final LDAPException failure;
+      synchronized (this)
+      {
+        conn = searchConnection;
+        pageCookie = cookie;
+        abandonID = pageRequestID;
+        pageWasInProgress = pageInProgress;
+        failure = searchException;
+
+        searchConnection = null;
+        cookie = null;
+        pageRequestID = null;
+        pageInProgress = false;
+      }
+
+      if (conn == null)
+      {
+        return;
+      }
+
+      if (failure != null)
+      {
+        if (pool != null)
+        {
+          pool.releaseConnectionAfterException(conn, failure);
+        }
+
+        return;
+      }
+
+      if (abandonID != null)
+      {
+        try
+        {
+          conn.abandon(abandonID);
+        }
+        catch (final LDAPException le)
+        {
+          Debug.debugException(le);
+        }
+      }
+      else if ((! pageWasInProgress) && (pageCookie != null) &&
+               (pageCookie.getValueLength() > 0))
+      {
+        try
+        {
+          if (conn.synchronousMode())
+          {
+            conn.search(createPageRequest(0, pageCookie, null));
+          }
+          else
+          {
+            conn.asyncSearch(createPageRequest(0, pageCookie,
+                 new ReleaseConnectionListener(conn)));
+            return;
+          }
+        }
+        catch (final LDAPException le)
+        {
+          Debug.debugException(le);
+        }
+      }
+
+      if (pool != null)
+      {
+        pool.releaseConnection(conn);
+      }
+    }
+
+
+
+    /**
+     * Creates a search request that may be used to retrieve a page of results.
+     *
+     * @param  pageSize    The maximum number of entries to retrieve.
+     * @param  pageCookie  The cookie from the previous page, or {@code null} if
+     *                     the first page should be retrieved.
+     * @param  listener    The listener to use for the search, or {@code null}
+     *                     if it will be processed synchronously.
+     *
+     * @return  The search request that was created.
+     */
+    private SearchRequest createPageRequest(final int pageSize,
+                              final ASN1OctetString pageCookie,
+                              final AsyncSearchResultListener listener)
+    {
+      final SearchRequest r = new SearchRequest(listener,
+           searchRequest.getControls(), searchRequest.getBaseDN(),
+           searchRequest.getScope(), searchRequest.getDereferencePolicy(),
+           searchRequest.getSizeLimit(), searchRequest.getTimeLimitSeconds(),
+           searchRequest.typesOnly(), searchRequest.getFilter(),
+           searchRequest.getAttributes());
+      if (searchRequest.followReferralsInternal() != null)
+      {
+        r.setFollowReferrals(searchRequest.followReferralsInternal());
+      }
+
+      if (searchRequest.getReferralConnectorInternal() != null)
+      {
+        r.setReferralConnector(searchRequest.getReferralConnectorInternal());
+      }
+
+      r.setResponseTimeoutMillis(searchRequest.getResponseTimeoutMillis(null));
+      r.addControl(new SimplePagedResultsControl(pageSize, pageCookie, false));
+      return r;
+    }
+
+
+
+    /**
+     * This class provides the listener that will be notified of entries and
+     * the search result for a page as they are read from the server.
+     */
+    private final class PageResultListener
+            implements AsyncSearchResultListener
+    {
+      /**
+       * The serial version UID for this serializable class.
+       */
+      private static final long serialVersionUID = 4297406873853011785L;
+
+
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override()
+      public void searchEntryReturned(final SearchResultEntry searchEntry)
+      {
+        synchronized (PagedSearchSubscription.this)
+        {
+          if (terminated)
+          {
+            return;
+          }
+
+          entries.addLast(searchEntry);
+        }
+
+        scheduleDrain();
+      }
+
+
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override()
+      public void searchReferenceReturned(
+                       final SearchResultReference searchReference)
+      {
+        // Search result references will not be provided to the subscriber.
+      }
+
+
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override()
+      public void searchResultReceived(final AsyncRequestID requestID,
+                                       final SearchResult searchResult)
+      {
+        synchronized (PagedSearchSubscription.this)
+        {
+          if (terminated)
+          {
+            return;
+          }
+        }
+
+        pageResultReceived(searchResult);
+        scheduleDrain();
+      }
+    }
+  }
+
+
+
+  /**
+   * This class provides a listener for the request that tells the server that
+   * no more pages are needed for a cancelled search.  It will release a
+   * connection from a pool once the server has responded to that request.
+   */
+  private final class ReleaseConnectionListener
+          implements AsyncSearchResultListener
+  {
+    /**
+     * The serial version UID for this serializable class.
+     */
+    private static final long serialVersionUID = -1873514626745063930L;
+
+
+
+    // The connection to release once the search has completed.
+    private final LDAPConnection releaseConnection;
+
+
+
+    /**
+     * Creates a new listener that will release the provided connection.
+     *
+     * @param  releaseConnection  The connection to release once the search has
+     *                            completed.
+     */
+    private ReleaseConnectionListener(final LDAPConnection releaseConnection)
+    {
+      this.releaseConnection = releaseConnection;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void searchEntryReturned(final SearchResultEntry searchEntry)
+    {
+      // No implementation required.
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void searchReferenceReturned(
+                     final SearchResultReference searchReference)
+    {
+      // No implementation required.
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void searchResultReceived(final AsyncRequestID requestID,
+                                     final SearchResult searchResult)
+    {
+      if (pool != null)
+      {
+        pool.releaseConnection(releaseConnection);
+      }
+    }
+  }
+}
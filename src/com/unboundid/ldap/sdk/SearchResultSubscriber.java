@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import com.unboundid.util.Extensible;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This interface defines a set of methods that may be used to receive search
+ * result entries from a {@link SearchResultPublisher}.  Entries will only be
+ * provided to the subscriber as they are requested through the
+ * {@link SearchResultSubscription} provided to the {@link #onSubscribe}
+ * method, so a subscriber that processes entries more slowly than the server
+ * can return them will not cause entries to accumulate in memory.
+ * <BR><BR>
+ * The methods in this interface follow the same contract as the corresponding
+ * methods in a reactive streams subscriber.  The {@code onSubscribe} method
+ * will be invoked exactly once, followed by zero or more invocations of the
+ * {@code onNext} method, and then at most one invocation of either the
+ * {@code onComplete} or the {@code onError} method.  These methods will never
+ * be invoked concurrently for the same subscription.
+ */
+@Extensible()
+@ThreadSafety(level=ThreadSafetyLevel.INTERFACE_NOT_THREADSAFE)
+public interface SearchResultSubscriber
+{
+  /**
+   * Indicates that the subscriber has been subscribed to a publisher.  No
+   * entries will be provided until entries are requested using the
+   * provided subscription.
+   *
+   * @param  subscription  The subscription that may be used to request entries
+   *                       or cancel the search.
+   */
+  void onSubscribe(SearchResultSubscription subscription);
+
+
+
+  /**
+   * Indicates that the provided search result entry has been returned by the
+   * server and may be processed by this subscriber.  This will only be invoked
+   * for entries that have been requested through the subscription.
+   *
+   * @param  entry  The search result entry that has been returned by the
+   *                server.
+   */
+  void onNext(SearchResultEntry entry);
+
+
+
+  /**
+   * Indicates that the search could not be completed because of an error.  No
+   * further methods will be invoked on this subscriber.
+   *
+   * @param  exception  The exception that describes the problem that was
+   *                    encountered.
+   */
+  void onError(LDAPException exception);
+
+
+
+  /**
+   * Indicates that all entries matching the search criteria have been provided
+   * to this subscriber.  No further methods will be invoked on this
+   * subscriber.
+   *
+   * @param  result  The search result for the final page of the search.  The
+   *                 entry and reference counts will only reflect that page.
+   */
+  void onComplete(SearchResult result);
+}
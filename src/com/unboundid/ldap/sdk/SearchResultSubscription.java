@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import com.unboundid.util.NotExtensible;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This interface defines a set of methods that a {@link SearchResultSubscriber}
+ * may use to request search result entries from a
+ * {@link SearchResultPublisher}, or to indicate that it does not want to
+ * receive any more entries.
+ */
+@NotExtensible()
+@ThreadSafety(level=ThreadSafetyLevel.INTERFACE_THREADSAFE)
+public interface SearchResultSubscription
+{
+  /**
+   * Requests that up to the specified number of additional entries be provided
+   * to the subscriber.  This method will not wait for a response from the
+   * server.  Entries that are already available may be provided to the
+   * subscriber on the thread that invoked this method before it returns, and
+   * any others will be provided on another thread as they are received.
+   *
+   * @param  n  The number of additional entries to request.  It must be
+   *            greater than zero, or the subscriber will be notified of an
+   *            error.
+   */
+  void request(long n);
+
+
+
+  /**
+   * Indicates that the subscriber does not want to receive any more entries.
+   * Any resources associated with the search will be released, and the
+   * subscriber will not be notified of completion.
+   */
+  void cancel();
+}
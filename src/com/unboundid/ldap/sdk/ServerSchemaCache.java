@@ -0,0 +1,531 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.unboundid.ldap.sdk.schema.Schema;
+import com.unboundid.util.Debug;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides a process-wide cache of the schema retrieved from
+ * directory servers for connections that are configured to use schema.  Cached
+ * schema is keyed by the IP address and port of the server and the DN of its
+ * subschema subentry, so that a large number of connections to the same server
+ * (for example, when a connection pool is created) will only need to retrieve
+ * and parse the full schema once.
+ * <BR><BR>
+ * The full schema is read from the subschema subentry in a single search that
+ * also requests its {@code modifyTimestamp} attribute.  Before cached schema
+ * is used for a new connection, the cache will retrieve only that attribute
+ * and compare it with the value that was in place when the schema was cached.
+ * If the server did not expose a modify timestamp for its subschema subentry,
+ * then cached schema will be used without that check for a short period of
+ * time after it was retrieved, so that connections established together (for
+ * example, when a connection pool is created) will not each need to retrieve
+ * it.  A connection may also be configured with a revalidation interval, in
+ * which case cached schema that has been validated within that interval will
+ * be used without checking whether it has been modified.
+ * <BR><BR>
+ * Because the key does not identify a particular server process, the values
+ * of a few root DSE attributes that identify the server instance (for example,
+ * its vendor version and start time) are retrieved along with the subschema
+ * subentry DN and cached with the schema.  If they do not match, then the
+ * schema will be retrieved again regardless of the revalidation interval.
+ * The cache holds schema for a limited number of servers, and will discard the
+ * schema for the server that was least recently used when that limit is
+ * reached.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class ServerSchemaCache
+       implements Serializable
+{
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = -3545683199364468329L;
+
+
+
+  /**
+   * The default maximum number of servers for which schema may be cached.  If
+   * this limit is reached, then the schema for the server that was least
+   * recently used will be discarded.
+   */
+  static final int DEFAULT_MAX_CACHED_SERVERS = 100;
+
+
+
+  /**
+   * The default length of time in milliseconds that schema retrieved from a
+   * server that does not provide a modify timestamp for its subschema subentry
+   * may be used without retrieving it again.
+   */
+  static final long DEFAULT_UNVALIDATED_SCHEMA_TTL_MILLIS = 30_000L;
+
+
+
+  /**
+   * The name of the attribute that will be used to determine whether the
+   * schema has been modified.
+   */
+  private static final String ATTR_MODIFY_TIMESTAMP = "modifyTimestamp";
+
+
+
+  /**
+   * The names of the root DSE attributes that may be used to determine whether
+   * a cached schema was retrieved from the same server instance.
+   */
+  private static final String[] SERVER_IDENTITY_ATTRS =
+  {
+    "vendorName",
+    "vendorVersion",
+    "startupUUID",
+    "startTime"
+  };
+
+
+
+  /**
+   * The set of attributes to request from the root DSE.
+   */
+  private static final String[] ROOT_DSE_REQUEST_ATTRS =
+  {
+    Schema.ATTR_SUBSCHEMA_SUBENTRY,
+    "vendorName",
+    "vendorVersion",
+    "startupUUID",
+    "startTime"
+  };
+
+
+
+  /**
+   * The set of attributes to request when retrieving the full schema from a
+   * server.  This is the same set used by the {@link Schema} class, along with
+   * the modifyTimestamp attribute so that it will not need to be retrieved
+   * separately.
+   */
+  private static final String[] SCHEMA_REQUEST_ATTRS =
+  {
+    "*",
+    Schema.ATTR_ATTRIBUTE_SYNTAX,
+    Schema.ATTR_ATTRIBUTE_TYPE,
+    Schema.ATTR_DIT_CONTENT_RULE,
+    Schema.ATTR_DIT_STRUCTURE_RULE,
+    Schema.ATTR_MATCHING_RULE,
+    Schema.ATTR_MATCHING_RULE_USE,
+    Schema.ATTR_NAME_FORM,
+    Schema.ATTR_OBJECT_CLASS,
+    ATTR_MODIFY_TIMESTAMP
+  };
+
+
+
+  /**
+   * The singleton instance of this cache.
+   */
+  private static final ServerSchemaCache INSTANCE = new ServerSchemaCache();
+
+
+
+  // The number of times that the full schema has been retrieved from a server.
+  private final AtomicLong numSchemaRetrievals;
+
+  // The map of cached schema information, indexed by server and subschema
+  // subentry DN, in least recently used order.  All access to it must be
+  // synchronized on the map.
+  private final LinkedHashMap<String,CachedSchema> cachedSchemas;
+
+  // The maximum number of servers for which schema may be cached.
+  private final int maxCachedServers;
+
+  // The length of time in milliseconds that schema without a modify timestamp
+  // may be used without retrieving it again.
+  private final long unvalidatedSchemaTTLMillis;
+
+
+
+  /**
+   * Creates a new, empty schema cache.
+   */
+  ServerSchemaCache()
+  {
+    this(DEFAULT_UNVALIDATED_SCHEMA_TTL_MILLIS, DEFAULT_MAX_CACHED_SERVERS);
+  }
+
+
+
+  /**
+   * Creates a new, empty schema cache with the provided settings.
+   *
+   * @param  unvalidatedSchemaTTLMillis  The length of time in milliseconds
+   *                                     that schema retrieved from a server
+   *                                     that does not provide a modify
+   *                                     timestamp for its subschema subentry
+   *                                     may be used without retrieving it
+   *                                     again.
+   * @param  maxCachedServers            The maximum number of servers for
+   *                                     which schema may be cached.  It must
+   *                                     be greater than zero.
+   */
+  ServerSchemaCache(final long unvalidatedSchemaTTLMillis,
+                    final int maxCachedServers)
+  {
+    this.unvalidatedSchemaTTLMillis = Math.max(0L, unvalidatedSchemaTTLMillis);
+    this.maxCachedServers = maxCachedServers;
+
+    numSchemaRetrievals = new AtomicLong(0L);
+    cachedSchemas = new LinkedHashMap<String,CachedSchema>(
+         StaticUtils.computeMapCapacity(maxCachedServers), 0.75f, true)
+    {
+      private static final long serialVersionUID = 7233614466542093437L;
+
+      @Override()
+      protected boolean removeEldestEntry(
+                             final Map.Entry<String,CachedSchema> eldest)
+      {
+        return (size() > maxCachedServers);
+      }
+    };
+  }
+
+
+
+  /**
+   * Retrieves the process-wide schema cache.
+   *
+   * @return  The process-wide schema cache.
+   */
+  static ServerSchemaCache getInstance()
+  {
+    return INSTANCE;
+  }
+
+
+
+  /**
+   * Retrieves the schema for the server to which the provided connection is
+   * established, using cached schema if it is still current.
+   *
+   * @param  connection                  The connection for which to retrieve
+   *                                     the schema.  It must be established.
+   * @param  revalidationIntervalMillis  The length of time in milliseconds
+   *                                     that cached schema may be used without
+   *                                     checking whether it has been modified.
+   *                                     A value of zero indicates that the
+   *                                     schema should always be checked.
+   *
+   * @return  The schema for the server, or {@code null} if it could not be
+   *          retrieved (e.g., the client does not have permission to read the
+   *          server schema).
+   *
+   * @throws  LDAPException  If a problem is encountered while retrieving or
+   *                         parsing the schema.
+   */
+  Schema getSchema(final LDAPConnection connection,
+                   final long revalidationIntervalMillis)
+         throws LDAPException
+  {
+    final Entry rootDSE = connection.getEntry("", ROOT_DSE_REQUEST_ATTRS);
+    if (rootDSE == null)
+    {
+      return null;
+    }
+
+    final String subschemaSubentryDN =
+         rootDSE.getAttributeValue(Schema.ATTR_SUBSCHEMA_SUBENTRY);
+    if (subschemaSubentryDN == null)
+    {
+      return null;
+    }
+
+    final String address = connection.getConnectedIPAddress();
+    if (address == null)
+    {
+      final Entry schemaEntry =
+           readSchemaEntry(connection, subschemaSubentryDN);
+      if (schemaEntry == null)
+      {
+        return null;
+      }
+
+      return new Schema(schemaEntry);
+    }
+
+    final String key = getKey(address, connection.getConnectedPort(),
+         subschemaSubentryDN);
+    CachedSchema cachedSchema;
+    synchronized (cachedSchemas)
+    {
+      cachedSchema = cachedSchemas.get(key);
+      if (cachedSchema == null)
+      {
+        cachedSchema = new CachedSchema();
+        cachedSchemas.put(key, cachedSchema);
+      }
+    }
+
+    // Only one connection at a time will validate or retrieve the schema for a
+    // given server, so that connections established at the same time will be
+    // able to use the schema retrieved by the first of them.
+    final String serverIdentity = getServerIdentity(rootDSE);
+    synchronized (cachedSchema)
+    {
+      final long currentTime = System.currentTimeMillis();
+      if ((cachedSchema.schema != null) &&
+          serverIdentity.equals(cachedSchema.serverIdentity))
+      {
+        if ((revalidationIntervalMillis > 0L) &&
+            ((currentTime - cachedSchema.validatedTime) <
+                 revalidationIntervalMillis))
+        {
+          return cachedSchema.schema;
+        }
+
+        if (cachedSchema.modifyTimestamp == null)
+        {
+          // The server did not provide anything that can be used to determine
+          // whether the schema has changed, so it will only be used for a
+          // short time after it was retrieved.
+          if ((currentTime - cachedSchema.validatedTime) <
+               unvalidatedSchemaTTLMillis)
+          {
+            return cachedSchema.schema;
+          }
+        }
+        else
+        {
+          final String modifyTimestamp =
+               getModifyTimestamp(connection, subschemaSubentryDN);
+          if (cachedSchema.modifyTimestamp.equals(modifyTimestamp))
+          {
+            cachedSchema.validatedTime = currentTime;
+            return cachedSchema.schema;
+          }
+        }
+      }
+
+      numSchemaRetrievals.incrementAndGet();
+      final Entry schemaEntry =
+           readSchemaEntry(connection, subschemaSubentryDN);
+      if (schemaEntry == null)
+      {
+        return null;
+      }
+
+      final Schema schema = new Schema(schemaEntry);
+      cachedSchema.schema = schema;
+      cachedSchema.serverIdentity = serverIdentity;
+      cachedSchema.modifyTimestamp =
+           schemaEntry.getAttributeValue(ATTR_MODIFY_TIMESTAMP);
+      cachedSchema.validatedTime = currentTime;
+      return schema;
+    }
+  }
+
+
+
+  /**
+   * Reads the full schema from the specified subschema subentry, along with
+   * the modifyTimestamp attribute that will be used to determine whether it
+   * has been updated.
+   *
+   * @param  connection           The connection to use to read the entry.
+   * @param  subschemaSubentryDN  The DN of the subschema subentry.
+   *
+   * @return  The subschema subentry, or {@code null} if it could not be
+   *          retrieved.
+   *
+   * @throws  LDAPException  If a problem is encountered while reading the
+   *                         entry.
+   */
+  private static Entry readSchemaEntry(final LDAPConnection connection,
+                                       final String subschemaSubentryDN)
+         throws LDAPException
+  {
+    return connection.searchForEntry(subschemaSubentryDN, SearchScope.BASE,
+         Filter.createEqualityFilter("objectClass", "subschema"),
+         SCHEMA_REQUEST_ATTRS);
+  }
+
+
+
+  /**
+   * Retrieves the value of the modifyTimestamp attribute from the specified
+   * subschema subentry.
+   *
+   * @param  connection           The connection to use to retrieve the value.
+   * @param  subschemaSubentryDN  The DN of the subschema subentry.
+   *
+   * @return  The value of the modifyTimestamp attribute, or {@code null} if it
+   *          could not be retrieved.
+   */
+  private static String getModifyTimestamp(final LDAPConnection connection,
+                                           final String subschemaSubentryDN)
+  {
+    try
+    {
+      final SearchResultEntry entry = connection.searchForEntry(
+           subschemaSubentryDN, SearchScope.BASE,
+           Filter.createEqualityFilter("objectClass", "subschema"),
+           ATTR_MODIFY_TIMESTAMP);
+      if (entry == null)
+      {
+        return null;
+      }
+
+      return entry.getAttributeValue(ATTR_MODIFY_TIMESTAMP);
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      return null;
+    }
+  }
+
+
+
+  /**
+   * Retrieves a string that identifies the server instance from which the
+   * provided root DSE was retrieved, as far as the server allows.
+   *
+   * @param  rootDSE  The root DSE retrieved from the server.
+   *
+   * @return  A string that identifies the server instance.  It may be empty if
+   *          the root DSE does not include any of the identifying attributes.
+   */
+  private static String getServerIdentity(final Entry rootDSE)
+  {
+    final StringBuilder buffer = new StringBuilder();
+    for (final String name : SERVER_IDENTITY_ATTRS)
+    {
+      final String value = rootDSE.getAttributeValue(name);
+      if (value != null)
+      {
+        buffer.append(name);
+        buffer.append('=');
+        buffer.append(value);
+        buffer.append('\n');
+      }
+    }
+
+    return buffer.toString();
+  }
+
+
+
+  /**
+   * Retrieves the key that will be used to cache the schema for the specified
+   * server and subschema subentry.
+   *
+   * @param  address              The IP address of the server.
+   * @param  port                 The port of the server.
+   * @param  subschemaSubentryDN  The DN of the subschema subentry.
+   *
+   * @return  The key that will be used to cache the schema.
+   */
+  private static String getKey(final String address, final int port,
+                               final String subschemaSubentryDN)
+  {
+    String normalizedDN;
+    try
+    {
+      normalizedDN = DN.normalize(subschemaSubentryDN);
+    }
+    catch (final LDAPException le)
+    {
+      Debug.debugException(le);
+      normalizedDN = StaticUtils.toLowerCase(subschemaSubentryDN);
+    }
+
+    return address + ':' + port + ':' + normalizedDN;
+  }
+
+
+
+  /**
+   * Retrieves the number of times that the full schema has been retrieved from
+   * a server because it was not cached or the cached schema was out of date.
+   *
+   * @return  The number of times that the full schema has been retrieved.
+   */
+  long getNumSchemaRetrievals()
+  {
+    return numSchemaRetrievals.get();
+  }
+
+
+
+  /**
+   * Removes all schema from the cache.
+   */
+  void clear()
+  {
+    synchronized (cachedSchemas)
+    {
+      cachedSchemas.clear();
+    }
+  }
+
+
+
+  /**
+   * This class holds the schema cached for a single server and subschema
+   * subentry.  All access to its fields must be synchronized on the instance.
+   */
+  private static final class CachedSchema
+          implements Serializable
+  {
+    /**
+     * The serial version UID for this serializable class.
+     */
+    private static final long serialVersionUID = 5518547005276478448L;
+
+
+
+    // The time that the schema was last retrieved or validated.
+    private long validatedTime;
+
+    // The cached schema.
+    private Schema schema;
+
+    // The values of the root DSE attributes that identify the server instance
+    // from which the schema was retrieved.
+    private String serverIdentity;
+
+    // The value of the modifyTimestamp attribute from the subschema subentry
+    // at the time the schema was retrieved, or null if the server did not
+    // provide one.
+    private String modifyTimestamp;
+  }
+}
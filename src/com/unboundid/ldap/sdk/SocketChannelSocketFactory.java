@@ -0,0 +1,168 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import javax.net.SocketFactory;
+
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides a socket factory that creates sockets with associated
+ * channels, which is necessary for connections that will be registered with the
+ * {@link LDAPConnectionReaderSelector}.  The sockets it creates are otherwise
+ * equivalent to those created by the JVM-default socket factory.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class SocketChannelSocketFactory
+      extends SocketFactory
+{
+  /**
+   * Creates a new instance of this socket factory.
+   */
+  SocketChannelSocketFactory()
+  {
+    // No implementation is required.
+  }
+
+
+
+  /**
+   * Creates a new unconnected socket with an associated channel.
+   *
+   * @return  The socket that was created.
+   *
+   * @throws  IOException  If a problem occurs while creating the socket.
+   */
+  @Override()
+  public Socket createSocket()
+         throws IOException
+  {
+    return SocketChannel.open().socket();
+  }
+
+
+
+  /**
+   * Creates a new socket that is connected to the specified system.
+   *
+   * @param  host  The address of the system to which to connect.
+   * @param  port  The port of the system to which to connect.
+   *
+   * @return  The socket that was created.
+   *
+   * @throws  IOException  If a problem occurs while creating the socket.
+   */
+  @Override()
+  public Socket createSocket(final String host, final int port)
+         throws IOException
+  {
+    return SocketChannel.open(new InetSocketAddress(host, port)).socket();
+  }
+
+
+
+  /**
+   * Creates a new socket that is connected to the specified system.
+   *
+   * @param  address  The address of the system to which to connect.
+   * @param  port     The port of the system to which to connect.
+   *
+   * @return  The socket that was created.
+   *
+   * @throws  IOException  If a problem occurs while creating the socket.
+   */
+  @Override()
+  public Socket createSocket(final InetAddress address, final int port)
+         throws IOException
+  {
+    return SocketChannel.open(new InetSocketAddress(address, port)).socket();
+  }
+
+
+
+  /**
+   * Creates a new socket that is connected to the specified system from the
+   * given local address and port.
+   *
+   * @param  host          The address of the system to which to connect.
+   * @param  port          The port of the system to which to connect.
+   * @param  localAddress  The local address to which to bind the socket.
+   * @param  localPort     The local port to which to bind the socket.
+   *
+   * @return  The socket that was created.
+   *
+   * @throws  IOException  If a problem occurs while creating the socket.
+   */
+  @Override()
+  public Socket createSocket(final String host, final int port,
+                             final InetAddress localAddress,
+                             final int localPort)
+         throws IOException
+  {
+    return createSocket(InetAddress.getByName(host), port, localAddress,
+         localPort);
+  }
+
+
+
+  /**
+   * Creates a new socket that is connected to the specified system from the
+   * given local address and port.
+   *
+   * @param  address       The address of the system to which to connect.
+   * @param  port          The port of the system to which to connect.
+   * @param  localAddress  The local address to which to bind the socket.
+   * @param  localPort     The local port to which to bind the socket.
+   *
+   * @return  The socket that was created.
+   *
+   * @throws  IOException  If a problem occurs while creating the socket.
+   */
+  @Override()
+  public Socket createSocket(final InetAddress address, final int port,
+                             final InetAddress localAddress,
+                             final int localPort)
+         throws IOException
+  {
+    final Socket socket = createSocket();
+    try
+    {
+      socket.bind(new InetSocketAddress(localAddress, localPort));
+      socket.connect(new InetSocketAddress(address, port));
+      return socket;
+    }
+    catch (final IOException ioe)
+    {
+      socket.close();
+      throw ioe;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk.examples;
+
+
+
+import java.io.Serializable;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+
+
+/**
+ * This class provides a timeline of intended request arrival times for use by
+ * the rate tools when operating in open-loop mode.  Rather than waiting for a
+ * response before issuing the next request, a thread using an arrival schedule
+ * will issue each request at its scheduled time regardless of how many earlier
+ * requests are still outstanding, so that the load offered to the server does
+ * not drop when the server slows down.  Arrivals may be evenly spaced or may
+ * follow a Poisson process, in which the time between arrivals is
+ * exponentially distributed.
+ * <BR><BR>
+ * Each arrival schedule is intended to be used by only a single thread.
+ */
+final class ArrivalSchedule
+       implements Serializable
+{
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = -3720958657989204912L;
+
+
+
+  /**
+   * The maximum length of time, in nanoseconds, to park at once while waiting
+   * for the next arrival, so that a request to stop is noticed promptly.
+   */
+  private static final long MAX_PARK_NANOS =
+       TimeUnit.MILLISECONDS.toNanos(100L);
+
+
+
+  // Indicates whether arrivals should follow a Poisson process rather than
+  // being evenly spaced.
+  private final boolean poisson;
+
+  // The average interval between arrivals, in nanoseconds.
+  private final double intervalNanos;
+
+  // The number of arrivals that have been scheduled so far.
+  private long arrivalCount;
+
+  // The System.nanoTime value for the first arrival.
+  private long startTime;
+
+  // The offset from the start time for the next arrival, in nanoseconds.
+  private double nextArrivalOffset;
+
+  // The random number generator used to compute Poisson inter-arrival times.
+  private final Random random;
+
+
+
+  /**
+   * Creates a new arrival schedule with the provided information.
+   *
+   * @param  arrivalsPerSecond  The average number of arrivals per second.  It
+   *                            must be greater than zero.
+   * @param  poisson            Indicates whether arrivals should follow a
+   *                            Poisson process rather than being evenly
+   *                            spaced.
+   * @param  randomSeed         The seed to use for the random number generator
+   *                            used to compute Poisson inter-arrival times.
+   */
+  ArrivalSchedule(final double arrivalsPerSecond, final boolean poisson,
+                  final long randomSeed)
+  {
+    this.poisson = poisson;
+
+    intervalNanos = TimeUnit.SECONDS.toNanos(1L) / arrivalsPerSecond;
+    random = new Random(randomSeed);
+    arrivalCount = 0L;
+    nextArrivalOffset = 0.0d;
+  }
+
+
+
+  /**
+   * Waits until the next scheduled arrival time.  If that time has already
+   * passed, then this method will return immediately.  The timeline starts
+   * with the first call to this method.
+   *
+   * @param  stopRequested  A flag that indicates whether the caller has been
+   *                        asked to stop.  If it is set while waiting, then
+   *                        this method may return before the scheduled time.
+   *
+   * @return  The scheduled arrival time, in terms of {@code System.nanoTime},
+   *          from which the response time for the associated request should
+   *          be measured.
+   */
+  long awaitNextArrival(final AtomicBoolean stopRequested)
+  {
+    if (arrivalCount == 0L)
+    {
+      startTime = System.nanoTime();
+    }
+
+    final long arrivalTime = startTime + (long) nextArrivalOffset;
+    arrivalCount++;
+    if (poisson)
+    {
+      nextArrivalOffset += -Math.log(1.0d - random.nextDouble()) *
+           intervalNanos;
+    }
+    else
+    {
+      nextArrivalOffset = arrivalCount * intervalNanos;
+    }
+
+    while (! stopRequested.get())
+    {
+      final long remainingNanos = arrivalTime - System.nanoTime();
+      if (remainingNanos <= 0L)
+      {
+        break;
+      }
+
+      LockSupport.parkNanos(Math.min(remainingNanos, MAX_PARK_NANOS));
+    }
+
+    return arrivalTime;
+  }
+}
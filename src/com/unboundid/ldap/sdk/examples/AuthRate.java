@@ -24,6 +24,7 @@ package com.unboundid.ldap.sdk.examples;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.PrintWriter;
 import java.io.Serializable;
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -51,6 +52,7 @@ import com.unboundid.util.FixedRateBarrier;
 import com.unboundid.util.FormattableColumn;
 import com.unboundid.util.HorizontalAlignment;
 import com.unboundid.util.LDAPCommandLineTool;
+import com.unboundid.util.LatencyHistogram;
 import com.unboundid.util.ObjectPair;
 import com.unboundid.util.OutputFormat;
 import com.unboundid.util.RateAdjustor;
@@ -185,6 +187,10 @@ public final class AuthRate
   // without a search.
   private BooleanArgument bindOnly;
 
+  // The argument used to indicate whether to correct response time
+  // percentiles for coordinated omission.
+  private BooleanArgument correctForCoordinatedOmission;
+
   // The argument used to indicate whether to generate output in CSV format.
   private BooleanArgument csvFormat;
 
@@ -204,6 +210,10 @@ public final class AuthRate
   // requests.
   private ControlArgument searchControl;
 
+  // The argument used to specify a file to which the response time histogram
+  // should be written.
+  private FileArgument latencyHistogramFile;
+
   // The argument used to specify a variable rate file.
   private FileArgument sampleRateFile;
 
@@ -663,6 +673,22 @@ public final class AuthRate
     parser.addArgument(sampleRateFile);
     parser.addExclusiveArgumentSet(variableRateData, sampleRateFile);
 
+    description = "Indicates that response time percentiles should be " +
+                  "corrected for coordinated omission.  When an " +
+                  "authentication takes longer than the interval between " +
+                  "authentications implied by the '--ratePerSecond' and " +
+                  "'--numThreads' arguments, the authentications that " +
+                  "should have been attempted in the meantime will also be " +
+                  "counted with the response times they would have " +
+                  "experienced.";
+    correctForCoordinatedOmission = new BooleanArgument(null,
+         "correctForCoordinatedOmission", 1, description);
+    correctForCoordinatedOmission.setArgumentGroupName(
+         "Rate Management Arguments");
+    correctForCoordinatedOmission.addLongIdentifier(
+         "correct-for-coordinated-omission", true);
+    parser.addArgument(correctForCoordinatedOmission);
+
     description = "The number of intervals to complete before beginning " +
                   "overall statistics collection.  Specifying a nonzero " +
                   "number of warm-up intervals gives the client and server " +
@@ -699,11 +725,24 @@ public final class AuthRate
     csvFormat = new BooleanArgument('c', "csv", 1, description);
     parser.addArgument(csvFormat);
 
+    description = "Specifies the path to a file to which a histogram of " +
+                  "the response times for all authentications performed " +
+                  "after the warm-up intervals should be written in CSV " +
+                  "format when the tool completes.";
+    latencyHistogramFile = new FileArgument(null, "latencyHistogramFile",
+         false, 1, "{path}", description, false, true, true, false);
+    latencyHistogramFile.addLongIdentifier("latency-histogram-file", true);
+    parser.addArgument(latencyHistogramFile);
+
     description = "Specifies the seed to use for the random number generator.";
     randomSeed = new IntegerArgument('R', "randomSeed", false, 1, "{value}",
          description);
     randomSeed.addLongIdentifier("random-seed", true);
     parser.addArgument(randomSeed);
+
+
+    parser.addDependentArgumentSet(correctForCoordinatedOmission,
+         ratePerSecond);
   }
 
 
@@ -934,7 +973,17 @@ public final class AuthRate
          new FormattableColumn(12, HorizontalAlignment.RIGHT, "Overall",
                   "Auths/Sec"),
          new FormattableColumn(12, HorizontalAlignment.RIGHT, "Overall",
-                  "Avg Dur ms"));
+                  "Avg Dur ms"),
+         new FormattableColumn(10, HorizontalAlignment.RIGHT, "Recent",
+                  "P50 ms"),
+         new FormattableColumn(10, HorizontalAlignment.RIGHT, "Recent",
+                  "P90 ms"),
+         new FormattableColumn(10, HorizontalAlignment.RIGHT, "Recent",
+                  "P99 ms"),
+         new FormattableColumn(10, HorizontalAlignment.RIGHT, "Recent",
+                  "P99.9 ms"),
+         new FormattableColumn(10, HorizontalAlignment.RIGHT, "Recent",
+                  "Max ms"));
 
 
     // Create values to use for statistics collection.
@@ -943,6 +992,24 @@ public final class AuthRate
     final AtomicLong        authDurations = new AtomicLong(0L);
     final ResultCodeCounter rcCounter     = new ResultCodeCounter();
 
+    final LatencyHistogram overallHistogram = new LatencyHistogram();
+    final LatencyHistogram[] threadHistograms =
+         new LatencyHistogram[numThreads.getValue()];
+
+
+    // If we should correct for coordinated omission, then determine how long
+    // each thread is expected to wait between authentications.
+    final long expectedIntervalNanos;
+    if (correctForCoordinatedOmission.isPresent())
+    {
+      expectedIntervalNanos = 1_000_000_000L * numThreads.getValue() /
+           ratePerSecond.getValue();
+    }
+    else
+    {
+      expectedIntervalNanos = 0L;
+    }
+
 
     // Determine the length of each interval in milliseconds.
     final long intervalMillis = 1000L * collectionInterval.getValue();
@@ -968,12 +1035,13 @@ public final class AuthRate
         return le.getResultCode();
       }
 
+      threadHistograms[i] = new LatencyHistogram();
       threads[i] = new AuthRateThread(this, i, searchConnection, bindConnection,
            dnPattern, scopeArg.getValue(), filterPattern, attrs,
            userPassword.getValue(), bindOnly.isPresent(), authType.getValue(),
            searchControl.getValues(), bindControls, runningThreads, barrier,
-           authCounter, authDurations, errorCounter, rcCounter,
-           fixedRateBarrier);
+           authCounter, authDurations, threadHistograms[i],
+           expectedIntervalNanos, errorCounter, rcCounter, fixedRateBarrier);
       threads[i].start();
     }
 
@@ -1057,6 +1125,18 @@ public final class AuthRate
         totalDuration = authDurations.get();
       }
 
+      final LatencyHistogram recentHistogram = new LatencyHistogram();
+      for (final LatencyHistogram h : threadHistograms)
+      {
+        h.drainTo(recentHistogram);
+      }
+
+      final double recentP50 = recentHistogram.getMillisAtPercentile(50.0d);
+      final double recentP90 = recentHistogram.getMillisAtPercentile(90.0d);
+      final double recentP99 = recentHistogram.getMillisAtPercentile(99.0d);
+      final double recentP999 = recentHistogram.getMillisAtPercentile(99.9d);
+      final double recentMax = recentHistogram.getMaxValue() / 1_000_000.0d;
+
       final long recentNumAuths  = numAuths - lastNumAuths;
       final long recentNumErrors = numErrors - lastNumErrors;
       final long recentDuration = totalDuration - lastDuration;
@@ -1078,7 +1158,8 @@ public final class AuthRate
       if (warmUp && (remainingWarmUpIntervals > 0))
       {
         out(formatter.formatRow(recentAuthRate, recentAvgDuration,
-             recentErrorRate, "warming up", "warming up"));
+             recentErrorRate, "warming up", "warming up", recentP50,
+             recentP90, recentP99, recentP999, recentMax));
 
         remainingWarmUpIntervals--;
         if (remainingWarmUpIntervals == 0)
@@ -1113,8 +1194,10 @@ public final class AuthRate
           overallAvgDuration = 0.0d;
         }
 
+        overallHistogram.add(recentHistogram);
         out(formatter.formatRow(recentAuthRate, recentAvgDuration,
-             recentErrorRate, overallAuthRate, overallAvgDuration));
+             recentErrorRate, overallAuthRate, overallAvgDuration, recentP50,
+             recentP90, recentP99, recentP999, recentMax));
 
         lastNumAuths    = numAuths;
         lastNumErrors   = numErrors;
@@ -1154,6 +1237,27 @@ public final class AuthRate
       }
     }
 
+
+    // If a latency histogram file was requested, then write it.
+    if (latencyHistogramFile.isPresent())
+    {
+      try (PrintWriter w = new PrintWriter(latencyHistogramFile.getValue()))
+      {
+        overallHistogram.writeCSV(w);
+      }
+      catch (final IOException e)
+      {
+        Debug.debugException(e);
+        err("Unable to write the latency histogram to file '",
+             latencyHistogramFile.getValue().getAbsolutePath(), "':  ",
+             StaticUtils.getExceptionMessage(e));
+        if (resultCode == ResultCode.SUCCESS)
+        {
+          resultCode = ResultCode.LOCAL_ERROR;
+        }
+      }
+    }
+
     return resultCode;
   }
 
@@ -44,6 +44,7 @@ import com.unboundid.ldap.sdk.SearchScope;
 import com.unboundid.ldap.sdk.SimpleBindRequest;
 import com.unboundid.util.Debug;
 import com.unboundid.util.FixedRateBarrier;
+import com.unboundid.util.LatencyHistogram;
 import com.unboundid.util.ResultCodeCounter;
 import com.unboundid.util.StaticUtils;
 import com.unboundid.util.ValuePattern;
@@ -101,6 +102,15 @@ final class AuthRateThread
   // The value that will be updated with total duration of the searches.
   private final AtomicLong authDurations;
 
+  // The histogram that will be updated with the duration of each
+  // authentication.
+  private final LatencyHistogram authHistogram;
+
+  // The expected interval between authentications on this thread, in
+  // nanoseconds, for use in correcting for coordinated omission, or zero if no
+  // correction should be performed.
+  private final long expectedIntervalNanos;
+
   // The counter used to track the number of errors encountered while searching.
   private final AtomicLong errorCounter;
 
@@ -181,6 +191,13 @@ final class AuthRateThread
    *                           total number of authentications performed.
    * @param  authDurations     A value that will be used to keep track of the
    *                           total duration for all authentications.
+   * @param  authHistogram     The histogram that will be updated with the
+   *                           duration of each authentication.
+   * @param  expectedIntervalNanos
+   *                           The expected interval between authentications
+   *                           on this thread, in nanoseconds, for use in
+   *                           correcting for coordinated omission.  It should
+   *                           be zero if no correction should be performed.
    * @param  errorCounter      A value that will be used to keep track of the
    *                           number of errors encountered while searching.
    * @param  rcCounter         The result code counter to use for keeping track
@@ -200,6 +217,8 @@ final class AuthRateThread
                  final AtomicInteger runningThreads,
                  final CyclicBarrier startBarrier,
                  final AtomicLong authCounter, final AtomicLong authDurations,
+                 final LatencyHistogram authHistogram,
+                 final long expectedIntervalNanos,
                  final AtomicLong errorCounter,
                  final ResultCodeCounter rcCounter,
                  final FixedRateBarrier rateBarrier)
@@ -216,6 +235,8 @@ final class AuthRateThread
     this.bindOnly         = bindOnly;
     this.authCounter      = authCounter;
     this.authDurations    = authDurations;
+    this.authHistogram    = authHistogram;
+    this.expectedIntervalNanos = expectedIntervalNanos;
     this.errorCounter     = errorCounter;
     this.rcCounter        = rcCounter;
     this.runningThreads   = runningThreads;
@@ -441,7 +462,9 @@ final class AuthRateThread
         finally
         {
           authCounter.incrementAndGet();
-          authDurations.addAndGet(System.nanoTime() - startTime);
+          final long duration = System.nanoTime() - startTime;
+          authDurations.addAndGet(duration);
+          authHistogram.recordValue(duration, expectedIntervalNanos);
         }
       }
     }
@@ -24,13 +24,16 @@ package com.unboundid.ldap.sdk.examples;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.PrintWriter;
 import java.io.Serializable;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -51,6 +54,7 @@ import com.unboundid.util.FixedRateBarrier;
 import com.unboundid.util.FormattableColumn;
 import com.unboundid.util.HorizontalAlignment;
 import com.unboundid.util.LDAPCommandLineTool;
+import com.unboundid.util.LatencyHistogram;
 import com.unboundid.util.ObjectPair;
 import com.unboundid.util.OutputFormat;
 import com.unboundid.util.RateAdjustor;
@@ -152,6 +156,17 @@ import com.unboundid.util.args.StringArgument;
  *       using an alternate authorization identity.  In this case, the bind DN
  *       should be that of a user that has permission to use this control.  The
  *       authorization identity may be a value pattern.</LI>
+ *   <LI>"--openLoop" -- Indicates that modifications should be issued
+ *       asynchronously according to a fixed schedule of arrival times derived
+ *       from the "--ratePerSecond" argument, regardless of how many earlier
+ *       modifications are still outstanding, and that response times should
+ *       be measured from the scheduled arrival time.</LI>
+ *   <LI>"--arrivalDistribution {constant|poisson}" -- Specifies whether
+ *       arrivals in open-loop mode should be evenly spaced or should follow a
+ *       Poisson process.</LI>
+ *   <LI>"-O {num}" or "--maxOutstandingRequests {num}" -- Specifies the maximum
+ *       number of outstanding requests that will be allowed in open-loop
+ *       mode.</LI>
  *   <LI>"--suppressErrorResultCodes" -- Indicates that information about the
  *       result codes for failed operations should not be displayed.</LI>
  *   <LI>"-c" or "--csv" -- Generate output in CSV format rather than a
@@ -176,6 +191,10 @@ public final class ModRate
   // The number of modrate threads that are currently running.
   private final AtomicInteger runningThreads;
 
+  // The argument used to indicate whether to correct response time
+  // percentiles for coordinated omission.
+  private BooleanArgument correctForCoordinatedOmission;
+
   // The argument used to indicate whether to generate output in CSV format.
   private BooleanArgument csvFormat;
 
@@ -183,6 +202,9 @@ public final class ModRate
   // of replace.
   private BooleanArgument increment;
 
+  // The argument used to indicate whether to operate in open-loop mode.
+  private BooleanArgument openLoop;
+
   // Indicates that modify requests should include the permissive modify request
   // control.
   private BooleanArgument permissiveModify;
@@ -195,6 +217,10 @@ public final class ModRate
   // the request.
   private ControlArgument control;
 
+  // The argument used to specify a file to which the response time histogram
+  // should be written.
+  private FileArgument latencyHistogramFile;
+
   // The argument used to specify a variable rate file.
   private FileArgument sampleRateFile;
 
@@ -216,6 +242,10 @@ public final class ModRate
   // connection before it is closed and re-established.
   private IntegerArgument iterationsBeforeReconnect;
 
+  // The argument used to specify the maximum number of outstanding
+  // asynchronous requests.
+  private IntegerArgument maxOutstandingRequests;
+
   // The argument used to specify the number of intervals.
   private IntegerArgument numIntervals;
 
@@ -238,6 +268,10 @@ public final class ModRate
   // The number of warm-up intervals to perform.
   private IntegerArgument warmUpIntervals;
 
+  // The argument used to specify the distribution of arrival times in
+  // open-loop mode.
+  private StringArgument arrivalDistribution;
+
   // The argument used to specify the name of the attribute to modify.
   private StringArgument attribute;
 
@@ -729,6 +763,21 @@ public final class ModRate
     parser.addArgument(sampleRateFile);
     parser.addExclusiveArgumentSet(variableRateData, sampleRateFile);
 
+    description = "Indicates that response time percentiles should be " +
+                  "corrected for coordinated omission.  When a modification " +
+                  "takes longer than the interval between modifications " +
+                  "implied by the '--ratePerSecond' and '--numThreads' " +
+                  "arguments, the modifications that should have been " +
+                  "issued in the meantime will also be counted with the " +
+                  "response times they would have experienced.";
+    correctForCoordinatedOmission = new BooleanArgument(null,
+         "correctForCoordinatedOmission", 1, description);
+    correctForCoordinatedOmission.setArgumentGroupName(
+         "Rate Management Arguments");
+    correctForCoordinatedOmission.addLongIdentifier(
+         "correct-for-coordinated-omission", true);
+    parser.addArgument(correctForCoordinatedOmission);
+
     description = "The number of intervals to complete before beginning " +
                   "overall statistics collection.  Specifying a nonzero " +
                   "number of warm-up intervals gives the client and server " +
@@ -752,6 +801,40 @@ public final class ModRate
     timestampFormat.addLongIdentifier("timestamp-format", true);
     parser.addArgument(timestampFormat);
 
+    description = "Indicates that the client should operate in open-loop " +
+                  "mode, in which modifications are issued asynchronously " +
+                  "at the times given by a fixed schedule derived from the " +
+                  "'--ratePerSecond' argument, regardless of how many " +
+                  "earlier modifications are still awaiting a response.  " +
+                  "Response times will be measured from the time that each " +
+                  "modification was scheduled to be sent, so that any delay " +
+                  "in sending it is included.  The " +
+                  "'--maxOutstandingRequests' argument may be used to bound " +
+                  "the number of outstanding requests.";
+    openLoop = new BooleanArgument(null, "openLoop", 1, description);
+    openLoop.addLongIdentifier("open-loop", true);
+    parser.addArgument(openLoop);
+
+    description = "Specifies the distribution to use for the times between " +
+                  "modifications in open-loop mode.  A value of 'constant' " +
+                  "indicates that modifications should be evenly spaced.  A " +
+                  "value of 'poisson' indicates that arrivals should follow " +
+                  "a Poisson process, in which the times between " +
+                  "modifications are exponentially distributed.  If this is " +
+                  "not provided, then a constant distribution will be used.";
+    arrivalDistribution = new StringArgument(null, "arrivalDistribution",
+         false, 1, "{constant|poisson}", description,
+         StaticUtils.setOf("constant", "poisson"));
+    arrivalDistribution.addLongIdentifier("arrival-distribution", true);
+    parser.addArgument(arrivalDistribution);
+
+    description = "Specifies the maximum number of outstanding requests " +
+                  "that should be allowed when operating in open-loop mode.";
+    maxOutstandingRequests = new IntegerArgument('O', "maxOutstandingRequests",
+         false, 1, "{num}", description, 1, Integer.MAX_VALUE, (Integer) null);
+    maxOutstandingRequests.addLongIdentifier("max-outstanding-requests", true);
+    parser.addArgument(maxOutstandingRequests);
+
     description = "Indicates that information about the result codes for " +
                   "failed operations should not be displayed.";
     suppressErrorsArgument = new BooleanArgument(null,
@@ -765,6 +848,15 @@ public final class ModRate
     csvFormat = new BooleanArgument('c', "csv", 1, description);
     parser.addArgument(csvFormat);
 
+    description = "Specifies the path to a file to which a histogram of " +
+                  "the response times for all modifications performed after " +
+                  "the warm-up intervals should be written in CSV format " +
+                  "when the tool completes.";
+    latencyHistogramFile = new FileArgument(null, "latencyHistogramFile",
+         false, 1, "{path}", description, false, true, true, false);
+    latencyHistogramFile.addLongIdentifier("latency-histogram-file", true);
+    parser.addArgument(latencyHistogramFile);
+
     description = "Specifies the seed to use for the random number generator.";
     randomSeed = new IntegerArgument('R', "randomSeed", false, 1, "{value}",
          description);
@@ -777,6 +869,21 @@ public final class ModRate
     parser.addDependentArgumentSet(incrementAmount, increment);
 
 
+    // The correctForCoordinatedOmission argument can only be used if the
+    // ratePerSecond argument is provided.
+    parser.addDependentArgumentSet(correctForCoordinatedOmission,
+         ratePerSecond);
+
+
+    // Open-loop mode requires a target rate, and the arguments that control
+    // it can only be used in open-loop mode.
+    parser.addDependentArgumentSet(openLoop, ratePerSecond);
+    parser.addDependentArgumentSet(arrivalDistribution, openLoop);
+    parser.addDependentArgumentSet(maxOutstandingRequests, openLoop);
+    parser.addExclusiveArgumentSet(openLoop, variableRateData);
+    parser.addExclusiveArgumentSet(openLoop, correctForCoordinatedOmission);
+
+
     // None of the valueLength, valueCount, characterSet, or valuePattern
     // arguments can be used if the increment argument is provided.
     parser.addExclusiveArgumentSet(increment, valueLength);
@@ -822,7 +929,7 @@ public final class ModRate
   public LDAPConnectionOptions getConnectionOptions()
   {
     final LDAPConnectionOptions options = new LDAPConnectionOptions();
-    options.setUseSynchronousMode(true);
+    options.setUseSynchronousMode(! openLoop.isPresent());
     return options;
   }
 
@@ -947,9 +1054,11 @@ public final class ModRate
 
 
     // If the --ratePerSecond option was specified, then limit the rate
-    // accordingly.
+    // accordingly.  In open-loop mode, each thread will instead follow its own
+    // schedule of arrival times.
     FixedRateBarrier fixedRateBarrier = null;
-    if (ratePerSecond.isPresent() || variableRateData.isPresent())
+    if ((ratePerSecond.isPresent() || variableRateData.isPresent()) &&
+        (! openLoop.isPresent()))
     {
       // We might not have a rate per second if --variableRateData is specified.
       // The rate typically doesn't matter except when we have warm-up
@@ -982,6 +1091,19 @@ public final class ModRate
     }
 
 
+    // If the --maxOutstandingRequests option was specified, then create the
+    // semaphore used to enforce that limit.
+    final Semaphore asyncSemaphore;
+    if (maxOutstandingRequests.isPresent())
+    {
+      asyncSemaphore = new Semaphore(maxOutstandingRequests.getValue());
+    }
+    else
+    {
+      asyncSemaphore = null;
+    }
+
+
     // Determine whether to include timestamps in the output and if so what
     // format should be used for them.
     final boolean includeTimestamp;
@@ -1041,7 +1163,17 @@ public final class ModRate
          new FormattableColumn(12, HorizontalAlignment.RIGHT, "Overall",
                   "Mods/Sec"),
          new FormattableColumn(12, HorizontalAlignment.RIGHT, "Overall",
-                  "Avg Dur ms"));
+                  "Avg Dur ms"),
+         new FormattableColumn(10, HorizontalAlignment.RIGHT, "Recent",
+                  "P50 ms"),
+         new FormattableColumn(10, HorizontalAlignment.RIGHT, "Recent",
+                  "P90 ms"),
+         new FormattableColumn(10, HorizontalAlignment.RIGHT, "Recent",
+                  "P99 ms"),
+         new FormattableColumn(10, HorizontalAlignment.RIGHT, "Recent",
+                  "P99.9 ms"),
+         new FormattableColumn(10, HorizontalAlignment.RIGHT, "Recent",
+                  "Max ms"));
 
 
     // Create values to use for statistics collection.
@@ -1050,12 +1182,40 @@ public final class ModRate
     final AtomicLong        modDurations = new AtomicLong(0L);
     final ResultCodeCounter rcCounter    = new ResultCodeCounter();
 
+    final LatencyHistogram overallHistogram = new LatencyHistogram();
+    final LatencyHistogram[] threadHistograms =
+         new LatencyHistogram[numThreads.getValue()];
+
+
+    // If we should correct for coordinated omission, then determine how long
+    // each thread is expected to wait between modifications.
+    final long expectedIntervalNanos;
+    if (correctForCoordinatedOmission.isPresent())
+    {
+      expectedIntervalNanos = 1_000_000_000L * numThreads.getValue() /
+           ratePerSecond.getValue();
+    }
+    else
+    {
+      expectedIntervalNanos = 0L;
+    }
+
 
     // Determine the length of each interval in milliseconds.
     final long intervalMillis = 1000L * collectionInterval.getValue();
 
 
     // Create the threads to use for the modifications.
+    final Random random;
+    if (seed == null)
+    {
+      random = new Random();
+    }
+    else
+    {
+      random = new Random(seed);
+    }
+
     final CyclicBarrier barrier = new CyclicBarrier(numThreads.getValue() + 1);
     final ModRateThread[] threads = new ModRateThread[numThreads.getValue()];
     for (int i=0; i < threads.length; i++)
@@ -1116,11 +1276,27 @@ public final class ModRate
         return ResultCode.PARAM_ERROR;
       }
 
+      final ArrivalSchedule arrivalSchedule;
+      if (openLoop.isPresent())
+      {
+        arrivalSchedule = new ArrivalSchedule(
+             1.0d * ratePerSecond.getValue() / threads.length,
+             "poisson".equalsIgnoreCase(arrivalDistribution.getValue()),
+             random.nextLong());
+      }
+      else
+      {
+        arrivalSchedule = null;
+      }
+
+      threadHistograms[i] = new LatencyHistogram();
       threads[i] = new ModRateThread(this, i, connection, dnPattern, attrs,
            parsedValuePattern, valueCount.getValue(), increment.isPresent(),
            incrementAmount.getValue(), controlArray, authzIDPattern,
            iterationsBeforeReconnect.getValue(), runningThreads, barrier,
-           modCounter, modDurations, errorCounter, rcCounter, fixedRateBarrier);
+           modCounter, modDurations, threadHistograms[i],
+           expectedIntervalNanos, errorCounter, rcCounter, fixedRateBarrier,
+           arrivalSchedule, asyncSemaphore);
       threads[i].start();
     }
 
@@ -1204,6 +1380,18 @@ public final class ModRate
         totalDuration = modDurations.get();
       }
 
+      final LatencyHistogram recentHistogram = new LatencyHistogram();
+      for (final LatencyHistogram h : threadHistograms)
+      {
+        h.drainTo(recentHistogram);
+      }
+
+      final double recentP50 = recentHistogram.getMillisAtPercentile(50.0d);
+      final double recentP90 = recentHistogram.getMillisAtPercentile(90.0d);
+      final double recentP99 = recentHistogram.getMillisAtPercentile(99.0d);
+      final double recentP999 = recentHistogram.getMillisAtPercentile(99.9d);
+      final double recentMax = recentHistogram.getMaxValue() / 1_000_000.0d;
+
       final long recentNumMods = numMods - lastNumMods;
       final long recentNumErrors = numErrors - lastNumErrors;
       final long recentDuration = totalDuration - lastDuration;
@@ -1225,7 +1413,8 @@ public final class ModRate
       if (warmUp && (remainingWarmUpIntervals > 0))
       {
         out(formatter.formatRow(recentModRate, recentAvgDuration,
-             recentErrorRate, "warming up", "warming up"));
+             recentErrorRate, "warming up", "warming up", recentP50,
+             recentP90, recentP99, recentP999, recentMax));
 
         remainingWarmUpIntervals--;
         if (remainingWarmUpIntervals == 0)
@@ -1260,8 +1449,10 @@ public final class ModRate
           overallAvgDuration = 0.0d;
         }
 
+        overallHistogram.add(recentHistogram);
         out(formatter.formatRow(recentModRate, recentAvgDuration,
-             recentErrorRate, overallAuthRate, overallAvgDuration));
+             recentErrorRate, overallAuthRate, overallAvgDuration, recentP50,
+             recentP90, recentP99, recentP999, recentMax));
 
         lastNumMods     = numMods;
         lastNumErrors   = numErrors;
@@ -1299,6 +1490,26 @@ public final class ModRate
       }
     }
 
+    // If a latency histogram file was requested, then write it.
+    if (latencyHistogramFile.isPresent())
+    {
+      try (PrintWriter w = new PrintWriter(latencyHistogramFile.getValue()))
+      {
+        overallHistogram.writeCSV(w);
+      }
+      catch (final IOException e)
+      {
+        Debug.debugException(e);
+        err("Unable to write the latency histogram to file '",
+             latencyHistogramFile.getValue().getAbsolutePath(), "':  ",
+             StaticUtils.getExceptionMessage(e));
+        if (resultCode == ResultCode.SUCCESS)
+        {
+          resultCode = ResultCode.LOCAL_ERROR;
+        }
+      }
+    }
+
     return resultCode;
   }
 
@@ -1332,6 +1543,29 @@ public final class ModRate
 
 
 
+  /**
+   * Retrieves the maximum number of outstanding requests that may be in
+   * progress at any time, if appropriate.
+   *
+   * @return  The maximum number of outstanding requests that may be in progress
+   *          at any time, or -1 if the tool was not configured to perform
+   *          asynchronous modifications with a maximum number of outstanding
+   *          requests.
+   */
+  int getMaxOutstandingRequests()
+  {
+    if (maxOutstandingRequests.isPresent())
+    {
+      return maxOutstandingRequests.getValue();
+    }
+    else
+    {
+      return -1;
+    }
+  }
+
+
+
   /**
    * {@inheritDoc}
    */
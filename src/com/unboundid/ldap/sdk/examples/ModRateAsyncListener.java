@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk.examples;
+
+
+
+import java.io.Serializable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.unboundid.ldap.sdk.AsyncRequestID;
+import com.unboundid.ldap.sdk.AsyncResultListener;
+import com.unboundid.ldap.sdk.LDAPResult;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.util.LatencyHistogram;
+import com.unboundid.util.ResultCodeCounter;
+
+
+
+/**
+ * This class provides an asynchronous result listener that will be used for
+ * the {@link ModRate} tool when operating in open-loop mode.
+ */
+final class ModRateAsyncListener
+      implements AsyncResultListener, Serializable
+{
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = 7135926310894152768L;
+
+
+
+  // The counter used to track the number of errors encountered while
+  // processing modifications.
+  private final AtomicLong errorCounter;
+
+  // The counter used to track the number of modifications performed.
+  private final AtomicLong modCounter;
+
+  // The value that will be updated with total duration of the modifications.
+  private final AtomicLong modDurations;
+
+  // The histogram that will be updated with the duration of each modification.
+  private final LatencyHistogram modHistogram;
+
+  // The result code for the modify thread.
+  private final AtomicReference<ResultCode> resultCode;
+
+  // The time from which the response time for the modification should be
+  // measured, in nanoseconds.
+  private final long startTime;
+
+  // The result code counter to use for failed operations.
+  private final ResultCodeCounter rcCounter;
+
+  // The semaphore used to limit total number of outstanding asynchronous
+  // requests.
+  private final Semaphore asyncSemaphore;
+
+
+
+  /**
+   * Creates a new instance of this listener with the provided information.
+   *
+   * @param  modCounter      A value that will be used to keep track of the
+   *                         total number of modifications performed.
+   * @param  modDurations    A value that will be used to keep track of the
+   *                         total duration for all modifications.
+   * @param  modHistogram    The histogram that will be updated with the
+   *                         duration of each modification.
+   * @param  errorCounter    A value that will be used to keep track of the
+   *                         number of errors encountered while processing.
+   * @param  rcCounter       The result code counter to use for keeping track
+   *                         of the result codes for failed operations.
+   * @param  asyncSemaphore  The semaphore used to limit the total number of
+   *                         outstanding asynchronous requests.  It may be
+   *                         {@code null} if there is no limit.
+   * @param  resultCode      The result code for the modify thread.
+   * @param  startTime       The time, in terms of {@code System.nanoTime}, from
+   *                         which the response time for the modification
+   *                         should be measured.
+   */
+  ModRateAsyncListener(final AtomicLong modCounter,
+                       final AtomicLong modDurations,
+                       final LatencyHistogram modHistogram,
+                       final AtomicLong errorCounter,
+                       final ResultCodeCounter rcCounter,
+                       final Semaphore asyncSemaphore,
+                       final AtomicReference<ResultCode> resultCode,
+                       final long startTime)
+  {
+    this.modCounter     = modCounter;
+    this.modDurations   = modDurations;
+    this.modHistogram   = modHistogram;
+    this.errorCounter   = errorCounter;
+    this.rcCounter      = rcCounter;
+    this.asyncSemaphore = asyncSemaphore;
+    this.resultCode     = resultCode;
+    this.startTime      = startTime;
+  }
+
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override()
+  public void ldapResultReceived(final AsyncRequestID requestID,
+                                 final LDAPResult ldapResult)
+  {
+    final long duration = System.nanoTime() - startTime;
+    modDurations.addAndGet(duration);
+    modHistogram.recordValue(duration);
+
+    if (asyncSemaphore != null)
+    {
+      asyncSemaphore.release();
+    }
+
+    modCounter.incrementAndGet();
+
+    final ResultCode rc = ldapResult.getResultCode();
+    if (rc != ResultCode.SUCCESS)
+    {
+      errorCounter.incrementAndGet();
+      rcCounter.increment(rc);
+      resultCode.compareAndSet(null, rc);
+    }
+  }
+}
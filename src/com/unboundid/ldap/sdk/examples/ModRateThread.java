@@ -23,6 +23,7 @@ package com.unboundid.ldap.sdk.examples;
 
 
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -38,6 +39,7 @@ import com.unboundid.ldap.sdk.ResultCode;
 import com.unboundid.ldap.sdk.controls.ProxiedAuthorizationV2RequestControl;
 import com.unboundid.util.Debug;
 import com.unboundid.util.FixedRateBarrier;
+import com.unboundid.util.LatencyHistogram;
 import com.unboundid.util.ResultCodeCounter;
 import com.unboundid.util.ValuePattern;
 
@@ -66,6 +68,14 @@ final class ModRateThread
   // The value that will be updated with total duration of the modifications.
   private final AtomicLong modDurations;
 
+  // The histogram that will be updated with the duration of each modification.
+  private final LatencyHistogram modHistogram;
+
+  // The expected interval between modifications on this thread, in
+  // nanoseconds, for use in correcting for coordinated omission, or zero if no
+  // correction should be performed.
+  private final long expectedIntervalNanos;
+
   // The counter used to track the number of iterations remaining on the
   // current connection.
   private final AtomicLong remainingIterationsBeforeReconnect;
@@ -87,6 +97,14 @@ final class ModRateThread
   // rate-limiting should be used.
   private final FixedRateBarrier fixedRateBarrier;
 
+  // The schedule of arrival times to use for modifications in open-loop mode.
+  // null if the thread is not operating in open-loop mode.
+  private final ArrivalSchedule arrivalSchedule;
+
+  // The semaphore used to limit the total number of outstanding asynchronous
+  // requests in open-loop mode.  null if there is no limit.
+  private final Semaphore asyncSemaphore;
+
   // The amount by which to increment values.
   private final int incrementAmount;
 
@@ -165,6 +183,14 @@ final class ModRateThread
    * @param  modDurations               A value that will be used to keep track
    *                                    of the total duration for all
    *                                    modifications.
+   * @param  modHistogram               The histogram that will be updated with
+   *                                    the duration of each modification.
+   * @param  expectedIntervalNanos      The expected interval between
+   *                                    modifications on this thread, in
+   *                                    nanoseconds, for use in correcting for
+   *                                    coordinated omission.  It should be
+   *                                    zero if no correction should be
+   *                                    performed.
    * @param  errorCounter               A value that will be used to keep track
    *                                    of the number of errors encountered
    *                                    while processing.
@@ -174,6 +200,14 @@ final class ModRateThread
    * @param  rateBarrier                The barrier to use for controlling the
    *                                    rate of modifies.  {@code null} if no
    *                                    rate-limiting should be used.
+   * @param  arrivalSchedule            The schedule of arrival times to use for
+   *                                    modifications in open-loop mode.
+   *                                    {@code null} if the thread should not
+   *                                    operate in open-loop mode.
+   * @param  asyncSemaphore             The semaphore used to limit the total
+   *                                    number of outstanding asynchronous
+   *                                    requests in open-loop mode.
+   *                                    {@code null} if there is no limit.
    */
   ModRateThread(final ModRate modRate, final int threadNumber,
                 final LDAPConnection connection, final ValuePattern entryDN,
@@ -184,9 +218,14 @@ final class ModRateThread
                 final long iterationsBeforeReconnect,
                 final AtomicInteger runningThreads,
                 final CyclicBarrier startBarrier, final AtomicLong modCounter,
-                final AtomicLong modDurations, final AtomicLong errorCounter,
+                final AtomicLong modDurations,
+                final LatencyHistogram modHistogram,
+                final long expectedIntervalNanos,
+                final AtomicLong errorCounter,
                 final ResultCodeCounter rcCounter,
-                final FixedRateBarrier rateBarrier)
+                final FixedRateBarrier rateBarrier,
+                final ArrivalSchedule arrivalSchedule,
+                final Semaphore asyncSemaphore)
   {
     setName("ModRate Thread " + threadNumber);
     setDaemon(true);
@@ -204,11 +243,15 @@ final class ModRateThread
     this.iterationsBeforeReconnect = iterationsBeforeReconnect;
     this.modCounter                = modCounter;
     this.modDurations              = modDurations;
+    this.modHistogram              = modHistogram;
+    this.expectedIntervalNanos     = expectedIntervalNanos;
     this.errorCounter              = errorCounter;
     this.rcCounter                 = rcCounter;
     this.runningThreads            = runningThreads;
     this.startBarrier              = startBarrier;
     fixedRateBarrier               = rateBarrier;
+    this.arrivalSchedule           = arrivalSchedule;
+    this.asyncSemaphore            = asyncSemaphore;
 
     if (iterationsBeforeReconnect > 0L)
     {
@@ -299,6 +342,11 @@ final class ModRateThread
               fixedRateBarrier.await();
             }
 
+            if (arrivalSchedule != null)
+            {
+              arrivalSchedule.awaitNextArrival(stopRequested);
+            }
+
             continue;
           }
         }
@@ -335,6 +383,67 @@ final class ModRateThread
           fixedRateBarrier.await();
         }
 
+        // In open-loop mode, wait until the next modify is scheduled to be
+        // sent and issue it asynchronously, measuring its response time from
+        // the scheduled time so that any delay in sending it is included.
+        if (arrivalSchedule != null)
+        {
+          final long scheduledTime =
+               arrivalSchedule.awaitNextArrival(stopRequested);
+          if (stopRequested.get())
+          {
+            break;
+          }
+
+          if (asyncSemaphore != null)
+          {
+            try
+            {
+              asyncSemaphore.acquire();
+            }
+            catch (final Exception e)
+            {
+              Debug.debugException(e);
+              errorCounter.incrementAndGet();
+
+              final ResultCode rc = ResultCode.LOCAL_ERROR;
+              rcCounter.increment(rc);
+              resultCode.compareAndSet(null, rc);
+              continue;
+            }
+          }
+
+          try
+          {
+            connection.asyncModify(modifyRequest.duplicate(),
+                 new ModRateAsyncListener(modCounter, modDurations,
+                      modHistogram, errorCounter, rcCounter, asyncSemaphore,
+                      resultCode, scheduledTime));
+          }
+          catch (final LDAPException le)
+          {
+            Debug.debugException(le);
+            errorCounter.incrementAndGet();
+
+            final ResultCode rc = le.getResultCode();
+            rcCounter.increment(rc);
+            resultCode.compareAndSet(null, rc);
+
+            if (asyncSemaphore != null)
+            {
+              asyncSemaphore.release();
+            }
+
+            if (! rc.isConnectionUsable())
+            {
+              connection.close();
+              connection = null;
+            }
+          }
+
+          continue;
+        }
+
         final long startTime = System.nanoTime();
         try
         {
@@ -357,7 +466,33 @@ final class ModRateThread
         }
 
         modCounter.incrementAndGet();
-        modDurations.addAndGet(System.nanoTime() - startTime);
+        final long duration = System.nanoTime() - startTime;
+        modDurations.addAndGet(duration);
+        modHistogram.recordValue(duration, expectedIntervalNanos);
+      }
+
+      // Wait for all outstanding asynchronous modifications to complete before
+      // closing the connection.
+      if (asyncSemaphore != null)
+      {
+        while (asyncSemaphore.availablePermits() <
+             modRate.getMaxOutstandingRequests())
+        {
+          try
+          {
+            Thread.sleep(1L);
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+
+            if (e instanceof InterruptedException)
+            {
+              Thread.currentThread().interrupt();
+              break;
+            }
+          }
+        }
       }
     }
     finally
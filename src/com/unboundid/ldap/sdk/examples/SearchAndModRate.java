@@ -24,6 +24,7 @@ package com.unboundid.ldap.sdk.examples;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.PrintWriter;
 import java.io.Serializable;
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -53,6 +54,7 @@ import com.unboundid.util.FixedRateBarrier;
 import com.unboundid.util.FormattableColumn;
 import com.unboundid.util.HorizontalAlignment;
 import com.unboundid.util.LDAPCommandLineTool;
+import com.unboundid.util.LatencyHistogram;
 import com.unboundid.util.ObjectPair;
 import com.unboundid.util.OutputFormat;
 import com.unboundid.util.RateAdjustor;
@@ -215,6 +217,10 @@ public final class SearchAndModRate
   // requests.
   private ControlArgument searchControl;
 
+  // The argument used to specify a file to which the response time histograms
+  // should be written.
+  private FileArgument latencyHistogramFile;
+
   // The argument used to specify a variable rate file.
   private FileArgument sampleRateFile;
 
@@ -815,6 +821,15 @@ public final class SearchAndModRate
     csvFormat = new BooleanArgument('c', "csv", 1, description);
     parser.addArgument(csvFormat);
 
+    description = "Specifies the path to a file to which histograms of " +
+                  "the response times for all searches and modifications " +
+                  "performed after the warm-up intervals should be written " +
+                  "in CSV format when the tool completes.";
+    latencyHistogramFile = new FileArgument(null, "latencyHistogramFile",
+         false, 1, "{path}", description, false, true, true, false);
+    latencyHistogramFile.addLongIdentifier("latency-histogram-file", true);
+    parser.addArgument(latencyHistogramFile);
+
     description = "Specifies the seed to use for the random number generator.";
     randomSeed = new IntegerArgument('R', "randomSeed", false, 1, "{value}",
          description);
@@ -1122,7 +1137,27 @@ public final class SearchAndModRate
          new FormattableColumn(12, HorizontalAlignment.RIGHT, "Overall",
                   "Mods/Sec"),
          new FormattableColumn(12, HorizontalAlignment.RIGHT, "Overall",
-                  "Mod Dur ms"));
+                  "Mod Dur ms"),
+         new FormattableColumn(12, HorizontalAlignment.RIGHT, "Recent",
+                  "Srch P50 ms"),
+         new FormattableColumn(12, HorizontalAlignment.RIGHT, "Recent",
+                  "Srch P90 ms"),
+         new FormattableColumn(12, HorizontalAlignment.RIGHT, "Recent",
+                  "Srch P99 ms"),
+         new FormattableColumn(12, HorizontalAlignment.RIGHT, "Recent",
+                  "Srch P99.9 ms"),
+         new FormattableColumn(12, HorizontalAlignment.RIGHT, "Recent",
+                  "Srch Max ms"),
+         new FormattableColumn(12, HorizontalAlignment.RIGHT, "Recent",
+                  "Mod P50 ms"),
+         new FormattableColumn(12, HorizontalAlignment.RIGHT, "Recent",
+                  "Mod P90 ms"),
+         new FormattableColumn(12, HorizontalAlignment.RIGHT, "Recent",
+                  "Mod P99 ms"),
+         new FormattableColumn(12, HorizontalAlignment.RIGHT, "Recent",
+                  "Mod P99.9 ms"),
+         new FormattableColumn(12, HorizontalAlignment.RIGHT, "Recent",
+                  "Mod Max ms"));
 
 
     // Create values to use for statistics collection.
@@ -1133,6 +1168,13 @@ public final class SearchAndModRate
     final AtomicLong        searchDurations = new AtomicLong(0L);
     final ResultCodeCounter rcCounter       = new ResultCodeCounter();
 
+    final LatencyHistogram overallSearchHistogram = new LatencyHistogram();
+    final LatencyHistogram overallModHistogram = new LatencyHistogram();
+    final LatencyHistogram[] threadSearchHistograms =
+         new LatencyHistogram[numThreads.getValue()];
+    final LatencyHistogram[] threadModHistograms =
+         new LatencyHistogram[numThreads.getValue()];
+
 
     // Determine the length of each interval in milliseconds.
     final long intervalMillis = 1000L * collectionInterval.getValue();
@@ -1158,13 +1200,16 @@ public final class SearchAndModRate
         return le.getResultCode();
       }
 
+      threadSearchHistograms[i] = new LatencyHistogram();
+      threadModHistograms[i] = new LatencyHistogram();
       threads[i] = new SearchAndModRateThread(this, i, connection, dnPattern,
            scopeArg.getValue(), filterPattern, returnAttrs, modAttrs,
            valueLength.getValue(), charSet, authzIDPattern,
            simplePageSize.getValue(), searchControls, modifyControls,
            iterationsBeforeReconnect.getValue(), random.nextLong(),
            runningThreads, barrier, searchCounter, modCounter, searchDurations,
-           modDurations, errorCounter, rcCounter, fixedRateBarrier);
+           modDurations, threadSearchHistograms[i], threadModHistograms[i],
+           errorCounter, rcCounter, fixedRateBarrier);
       threads[i].start();
     }
 
@@ -1256,6 +1301,35 @@ public final class SearchAndModRate
         totalModDuration    = modDurations.get();
       }
 
+      final LatencyHistogram recentSearchHistogram = new LatencyHistogram();
+      final LatencyHistogram recentModHistogram = new LatencyHistogram();
+      for (int j=0; j < threads.length; j++)
+      {
+        threadSearchHistograms[j].drainTo(recentSearchHistogram);
+        threadModHistograms[j].drainTo(recentModHistogram);
+      }
+
+      final double recentSearchP50 =
+           recentSearchHistogram.getMillisAtPercentile(50.0d);
+      final double recentSearchP90 =
+           recentSearchHistogram.getMillisAtPercentile(90.0d);
+      final double recentSearchP99 =
+           recentSearchHistogram.getMillisAtPercentile(99.0d);
+      final double recentSearchP999 =
+           recentSearchHistogram.getMillisAtPercentile(99.9d);
+      final double recentSearchMax =
+           recentSearchHistogram.getMaxValue() / 1_000_000.0d;
+      final double recentModP50 =
+           recentModHistogram.getMillisAtPercentile(50.0d);
+      final double recentModP90 =
+           recentModHistogram.getMillisAtPercentile(90.0d);
+      final double recentModP99 =
+           recentModHistogram.getMillisAtPercentile(99.0d);
+      final double recentModP999 =
+           recentModHistogram.getMillisAtPercentile(99.9d);
+      final double recentModMax =
+           recentModHistogram.getMaxValue() / 1_000_000.0d;
+
       final long recentNumSearches = numSearches - lastNumSearches;
       final long recentNumMods = numMods - lastNumMods;
       final long recentNumErrors = numErrors - lastNumErrors;
@@ -1294,7 +1368,10 @@ public final class SearchAndModRate
       {
         out(formatter.formatRow(recentSearchRate, recentAvgSearchDuration,
              recentModRate, recentAvgModDuration, recentErrorRate, "warming up",
-             "warming up", "warming up", "warming up"));
+             "warming up", "warming up", "warming up", recentSearchP50,
+             recentSearchP90, recentSearchP99, recentSearchP999,
+             recentSearchMax, recentModP50, recentModP90, recentModP99,
+             recentModP999, recentModMax));
 
         remainingWarmUpIntervals--;
         if (remainingWarmUpIntervals == 0)
@@ -1342,10 +1419,14 @@ public final class SearchAndModRate
           overallAvgModDuration = 0.0d;
         }
 
+        overallSearchHistogram.add(recentSearchHistogram);
+        overallModHistogram.add(recentModHistogram);
         out(formatter.formatRow(recentSearchRate, recentAvgSearchDuration,
              recentModRate, recentAvgModDuration, recentErrorRate,
              overallSearchRate, overallAvgSearchDuration, overallModRate,
-             overallAvgModDuration));
+             overallAvgModDuration, recentSearchP50, recentSearchP90,
+             recentSearchP99, recentSearchP999, recentSearchMax, recentModP50,
+             recentModP90, recentModP99, recentModP999, recentModMax));
 
         lastNumSearches    = numSearches;
         lastNumMods        = numMods;
@@ -1386,6 +1467,31 @@ public final class SearchAndModRate
       }
     }
 
+
+    // If a latency histogram file was requested, then write it.
+    if (latencyHistogramFile.isPresent())
+    {
+      try (PrintWriter w = new PrintWriter(latencyHistogramFile.getValue()))
+      {
+        w.println("# Search Response Times");
+        overallSearchHistogram.writeCSV(w);
+        w.println();
+        w.println("# Modify Response Times");
+        overallModHistogram.writeCSV(w);
+      }
+      catch (final IOException e)
+      {
+        Debug.debugException(e);
+        err("Unable to write the latency histograms to file '",
+             latencyHistogramFile.getValue().getAbsolutePath(), "':  ",
+             StaticUtils.getExceptionMessage(e));
+        if (resultCode == ResultCode.SUCCESS)
+        {
+          resultCode = ResultCode.LOCAL_ERROR;
+        }
+      }
+    }
+
     return resultCode;
   }
 
@@ -48,6 +48,7 @@ import com.unboundid.ldap.sdk.controls.ProxiedAuthorizationV2RequestControl;
 import com.unboundid.ldap.sdk.controls.SimplePagedResultsControl;
 import com.unboundid.util.Debug;
 import com.unboundid.util.FixedRateBarrier;
+import com.unboundid.util.LatencyHistogram;
 import com.unboundid.util.ResultCodeCounter;
 import com.unboundid.util.ValuePattern;
 
@@ -75,6 +76,9 @@ final class SearchAndModRateThread
   // The value that will be updated with total duration of the modifies.
   private final AtomicLong modDurations;
 
+  // The histogram that will be updated with the duration of each modify.
+  private final LatencyHistogram modHistogram;
+
   // The counter used to track the number of iterations remaining on the
   // current connection.
   private final AtomicLong remainingIterationsBeforeReconnect;
@@ -85,6 +89,9 @@ final class SearchAndModRateThread
   // The value that will be updated with total duration of the searches.
   private final AtomicLong searchDurations;
 
+  // The histogram that will be updated with the duration of each search.
+  private final LatencyHistogram searchHistogram;
+
   // The thread that is actually performing the search and modify operations.
   private final AtomicReference<Thread> searchAndModThread;
 
@@ -200,6 +207,10 @@ final class SearchAndModRateThread
    * @param  modDurations               A value that will be used to keep track
    *                                    of the total duration for all
    *                                    modifications.
+   * @param  searchHistogram            The histogram that will be updated with
+   *                                    the duration of each search.
+   * @param  modHistogram               The histogram that will be updated with
+   *                                    the duration of each modification.
    * @param  errorCounter               A value that will be used to keep track
    *                                    of the number of errors encountered
    *                                    while searching.
@@ -221,7 +232,8 @@ final class SearchAndModRateThread
        final long randomSeed, final AtomicInteger runningThreads,
        final CyclicBarrier startBarrier, final AtomicLong searchCounter,
        final AtomicLong modCounter, final AtomicLong searchDurations,
-       final AtomicLong modDurations, final AtomicLong errorCounter,
+       final AtomicLong modDurations, final LatencyHistogram searchHistogram,
+       final LatencyHistogram modHistogram, final AtomicLong errorCounter,
        final ResultCodeCounter rcCounter, final FixedRateBarrier rateBarrier)
   {
     setName("SearchAndModRate Thread " + threadNumber);
@@ -243,6 +255,8 @@ final class SearchAndModRateThread
     this.modCounter                 = modCounter;
     this.searchDurations            = searchDurations;
     this.modDurations               = modDurations;
+    this.searchHistogram            = searchHistogram;
+    this.modHistogram               = modHistogram;
     this.errorCounter               = errorCounter;
     this.rcCounter                  = rcCounter;
     this.runningThreads             = runningThreads;
@@ -458,7 +472,9 @@ searchLoop:
               finally
               {
                 modCounter.incrementAndGet();
-                modDurations.addAndGet(System.nanoTime() - modStartTime);
+                final long modDuration = System.nanoTime() - modStartTime;
+                modDurations.addAndGet(modDuration);
+                modHistogram.recordValue(modDuration);
               }
             }
 
@@ -500,7 +516,9 @@ searchLoop:
         finally
         {
           searchCounter.incrementAndGet();
-          searchDurations.addAndGet(System.nanoTime() - searchStartTime);
+          final long searchDuration = System.nanoTime() - searchStartTime;
+          searchDurations.addAndGet(searchDuration);
+          searchHistogram.recordValue(searchDuration);
         }
       }
     }
@@ -24,11 +24,13 @@ package com.unboundid.ldap.sdk.examples;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.PrintWriter;
 import java.io.Serializable;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.concurrent.CyclicBarrier;
@@ -54,6 +56,7 @@ import com.unboundid.util.FixedRateBarrier;
 import com.unboundid.util.FormattableColumn;
 import com.unboundid.util.HorizontalAlignment;
 import com.unboundid.util.LDAPCommandLineTool;
+import com.unboundid.util.LatencyHistogram;
 import com.unboundid.util.ObjectPair;
 import com.unboundid.util.OutputFormat;
 import com.unboundid.util.RateAdjustor;
@@ -175,7 +178,15 @@ import com.unboundid.util.args.StringArgument;
  *       provided to limit the number of outstanding requests.</LI>
  *   <LI>"-O {num}" or "--maxOutstandingRequests {num}" -- Specifies the maximum
  *       number of outstanding requests that will be allowed in asynchronous
- *       mode.</LI>
+ *       or open-loop mode.</LI>
+ *   <LI>"--openLoop" -- Indicates that searches should be issued
+ *       asynchronously according to a fixed schedule of arrival times derived
+ *       from the "--ratePerSecond" argument, regardless of how many earlier
+ *       searches are still outstanding, and that response times should be
+ *       measured from the scheduled arrival time.</LI>
+ *   <LI>"--arrivalDistribution {constant|poisson}" -- Specifies whether
+ *       arrivals in open-loop mode should be evenly spaced or should follow a
+ *       Poisson process.</LI>
  *   <LI>"--suppressErrorResultCodes" -- Indicates that information about the
  *       result codes for failed operations should not be displayed.</LI>
  *   <LI>"-c" or "--csv" -- Generate output in CSV format rather than a
@@ -203,9 +214,16 @@ public final class SearchRate
   // The argument used to indicate whether to operate in asynchronous mode.
   private BooleanArgument asynchronousMode;
 
+  // The argument used to indicate whether to correct response time
+  // percentiles for coordinated omission.
+  private BooleanArgument correctForCoordinatedOmission;
+
   // The argument used to indicate whether to generate output in CSV format.
   private BooleanArgument csvFormat;
 
+  // The argument used to indicate whether to operate in open-loop mode.
+  private BooleanArgument openLoop;
+
   // The argument used to indicate whether to suppress information about error
   // result codes.
   private BooleanArgument suppressErrors;
@@ -218,6 +236,10 @@ public final class SearchRate
   // the request.
   private ControlArgument control;
 
+  // The argument used to specify a file to which the response time histogram
+  // should be written.
+  private FileArgument latencyHistogramFile;
+
   // The argument used to specify a variable rate file.
   private FileArgument sampleRateFile;
 
@@ -268,6 +290,10 @@ public final class SearchRate
   // The argument used to specify the scope for the searches.
   private ScopeArgument scopeArg;
 
+  // The argument used to specify the distribution of arrival times in
+  // open-loop mode.
+  private StringArgument arrivalDistribution;
+
   // The argument used to specify the attributes to return.
   private StringArgument attributes;
 
@@ -748,6 +774,22 @@ public final class SearchRate
     parser.addArgument(sampleRateFile);
     parser.addExclusiveArgumentSet(variableRateData, sampleRateFile);
 
+    description = "Indicates that response time percentiles should be " +
+                  "corrected for coordinated omission.  When a search takes " +
+                  "longer than the interval between searches implied by " +
+                  "the '--ratePerSecond' and '--numThreads' arguments, the " +
+                  "searches that should have been issued in the meantime " +
+                  "will also be counted with the response times they would " +
+                  "have experienced.  This has no effect when operating in " +
+                  "asynchronous mode.";
+    correctForCoordinatedOmission = new BooleanArgument(null,
+         "correctForCoordinatedOmission", 1, description);
+    correctForCoordinatedOmission.setArgumentGroupName(
+         "Rate Management Arguments");
+    correctForCoordinatedOmission.addLongIdentifier(
+         "correct-for-coordinated-omission", true);
+    parser.addArgument(correctForCoordinatedOmission);
+
     description = "The number of intervals to complete before beginning " +
                   "overall statistics collection.  Specifying a nonzero " +
                   "number of warm-up intervals gives the client and server " +
@@ -781,12 +823,39 @@ public final class SearchRate
     parser.addArgument(asynchronousMode);
 
     description = "Specifies the maximum number of outstanding requests " +
-                  "that should be allowed when operating in asynchronous mode.";
+                  "that should be allowed when operating in asynchronous or " +
+                  "open-loop mode.";
     maxOutstandingRequests = new IntegerArgument('O', "maxOutstandingRequests",
          false, 1, "{num}", description, 1, Integer.MAX_VALUE, (Integer) null);
     maxOutstandingRequests.addLongIdentifier("max-outstanding-requests", true);
     parser.addArgument(maxOutstandingRequests);
 
+    description = "Indicates that the client should operate in open-loop " +
+                  "mode, in which searches are issued asynchronously at the " +
+                  "times given by a fixed schedule derived from the " +
+                  "'--ratePerSecond' argument, regardless of how many " +
+                  "earlier searches are still awaiting a response.  Response " +
+                  "times will be measured from the time that each search was " +
+                  "scheduled to be sent, so that any delay in sending it is " +
+                  "included.  The '--maxOutstandingRequests' argument may " +
+                  "be used to bound the number of outstanding requests.";
+    openLoop = new BooleanArgument(null, "openLoop", 1, description);
+    openLoop.addLongIdentifier("open-loop", true);
+    parser.addArgument(openLoop);
+
+    description = "Specifies the distribution to use for the times between " +
+                  "searches in open-loop mode.  A value of 'constant' " +
+                  "indicates that searches should be evenly spaced.  A " +
+                  "value of 'poisson' indicates that arrivals should follow " +
+                  "a Poisson process, in which the times between searches " +
+                  "are exponentially distributed.  If this is not provided, " +
+                  "then a constant distribution will be used.";
+    arrivalDistribution = new StringArgument(null, "arrivalDistribution",
+         false, 1, "{constant|poisson}", description,
+         StaticUtils.setOf("constant", "poisson"));
+    arrivalDistribution.addLongIdentifier("arrival-distribution", true);
+    parser.addArgument(arrivalDistribution);
+
     description = "Indicates that information about the result codes for " +
                   "failed operations should not be displayed.";
     suppressErrors = new BooleanArgument(null,
@@ -799,6 +868,15 @@ public final class SearchRate
     csvFormat = new BooleanArgument('c', "csv", 1, description);
     parser.addArgument(csvFormat);
 
+    description = "Specifies the path to a file to which a histogram of " +
+                  "the response times for all searches performed after the " +
+                  "warm-up intervals should be written in CSV format when " +
+                  "the tool completes.";
+    latencyHistogramFile = new FileArgument(null, "latencyHistogramFile",
+         false, 1, "{path}", description, false, true, true, false);
+    latencyHistogramFile.addLongIdentifier("latency-histogram-file", true);
+    parser.addArgument(latencyHistogramFile);
+
     description = "Specifies the seed to use for the random number generator.";
     randomSeed = new IntegerArgument('R', "randomSeed", false, 1, "{value}",
          description);
@@ -808,9 +886,17 @@ public final class SearchRate
 
     parser.addDependentArgumentSet(asynchronousMode, ratePerSecond,
          maxOutstandingRequests);
-    parser.addDependentArgumentSet(maxOutstandingRequests, asynchronousMode);
+    parser.addDependentArgumentSet(maxOutstandingRequests, asynchronousMode,
+         openLoop);
+    parser.addDependentArgumentSet(correctForCoordinatedOmission,
+         ratePerSecond);
+    parser.addDependentArgumentSet(openLoop, ratePerSecond);
+    parser.addDependentArgumentSet(arrivalDistribution, openLoop);
 
     parser.addExclusiveArgumentSet(asynchronousMode, simplePageSize);
+    parser.addExclusiveArgumentSet(openLoop, simplePageSize);
+    parser.addExclusiveArgumentSet(openLoop, variableRateData);
+    parser.addExclusiveArgumentSet(openLoop, correctForCoordinatedOmission);
   }
 
 
@@ -844,7 +930,8 @@ public final class SearchRate
   public LDAPConnectionOptions getConnectionOptions()
   {
     final LDAPConnectionOptions options = new LDAPConnectionOptions();
-    options.setUseSynchronousMode(! asynchronousMode.isPresent());
+    options.setUseSynchronousMode(! (asynchronousMode.isPresent() ||
+         openLoop.isPresent()));
     return options;
   }
 
@@ -1033,9 +1120,11 @@ public final class SearchRate
 
 
     // If the --ratePerSecond option was specified, then limit the rate
-    // accordingly.
+    // accordingly.  In open-loop mode, each thread will instead follow its own
+    // schedule of arrival times.
     FixedRateBarrier fixedRateBarrier = null;
-    if (ratePerSecond.isPresent() || variableRateData.isPresent())
+    if ((ratePerSecond.isPresent() || variableRateData.isPresent()) &&
+        (! openLoop.isPresent()))
     {
       // We might not have a rate per second if --variableRateData is specified.
       // The rate typically doesn't matter except when we have warm-up
@@ -1142,7 +1231,17 @@ public final class SearchRate
          new FormattableColumn(12, HorizontalAlignment.RIGHT, "Overall",
                   "Searches/Sec"),
          new FormattableColumn(12, HorizontalAlignment.RIGHT, "Overall",
-                  "Avg Dur ms"));
+                  "Avg Dur ms"),
+         new FormattableColumn(10, HorizontalAlignment.RIGHT, "Recent",
+                  "P50 ms"),
+         new FormattableColumn(10, HorizontalAlignment.RIGHT, "Recent",
+                  "P90 ms"),
+         new FormattableColumn(10, HorizontalAlignment.RIGHT, "Recent",
+                  "P99 ms"),
+         new FormattableColumn(10, HorizontalAlignment.RIGHT, "Recent",
+                  "P99.9 ms"),
+         new FormattableColumn(10, HorizontalAlignment.RIGHT, "Recent",
+                  "Max ms"));
 
 
     // Create values to use for statistics collection.
@@ -1152,12 +1251,40 @@ public final class SearchRate
     final AtomicLong        searchDurations = new AtomicLong(0L);
     final ResultCodeCounter rcCounter       = new ResultCodeCounter();
 
+    final LatencyHistogram overallHistogram = new LatencyHistogram();
+    final LatencyHistogram[] threadHistograms =
+         new LatencyHistogram[numThreads.getValue()];
+
+
+    // If we should correct for coordinated omission, then determine how long
+    // each thread is expected to wait between searches.
+    final long expectedIntervalNanos;
+    if (correctForCoordinatedOmission.isPresent())
+    {
+      expectedIntervalNanos = 1_000_000_000L * numThreads.getValue() /
+           ratePerSecond.getValue();
+    }
+    else
+    {
+      expectedIntervalNanos = 0L;
+    }
+
 
     // Determine the length of each interval in milliseconds.
     final long intervalMillis = 1000L * collectionInterval.getValue();
 
 
     // Create the threads to use for the searches.
+    final Random random;
+    if (seed == null)
+    {
+      random = new Random();
+    }
+    else
+    {
+      random = new Random(seed);
+    }
+
     final CyclicBarrier barrier = new CyclicBarrier(numThreads.getValue() + 1);
     final SearchRateThread[] threads =
          new SearchRateThread[numThreads.getValue()];
@@ -1176,14 +1303,30 @@ public final class SearchRate
         return le.getResultCode();
       }
 
+      final ArrivalSchedule arrivalSchedule;
+      if (openLoop.isPresent())
+      {
+        arrivalSchedule = new ArrivalSchedule(
+             1.0d * ratePerSecond.getValue() / threads.length,
+             "poisson".equalsIgnoreCase(arrivalDistribution.getValue()),
+             random.nextLong());
+      }
+      else
+      {
+        arrivalSchedule = null;
+      }
+
+      threadHistograms[i] = new LatencyHistogram();
       threads[i] = new SearchRateThread(this, i, connection,
-           asynchronousMode.isPresent(), dnPattern, scopeArg.getValue(),
+           (asynchronousMode.isPresent() || openLoop.isPresent()), dnPattern,
+           scopeArg.getValue(),
            derefPolicy, sizeLimit.getValue(), timeLimitSeconds.getValue(),
            typesOnly.isPresent(), filterPattern, attrs, authzIDPattern,
            simplePageSize.getValue(), controlList,
            iterationsBeforeReconnect.getValue(), runningThreads, barrier,
-           searchCounter, entryCounter, searchDurations, errorCounter,
-           rcCounter, fixedRateBarrier, asyncSemaphore);
+           searchCounter, entryCounter, searchDurations, threadHistograms[i],
+           expectedIntervalNanos, errorCounter, rcCounter, fixedRateBarrier,
+           arrivalSchedule, asyncSemaphore);
       threads[i].start();
     }
 
@@ -1271,6 +1414,18 @@ public final class SearchRate
         totalDuration = searchDurations.get();
       }
 
+      final LatencyHistogram recentHistogram = new LatencyHistogram();
+      for (final LatencyHistogram h : threadHistograms)
+      {
+        h.drainTo(recentHistogram);
+      }
+
+      final double recentP50 = recentHistogram.getMillisAtPercentile(50.0d);
+      final double recentP90 = recentHistogram.getMillisAtPercentile(90.0d);
+      final double recentP99 = recentHistogram.getMillisAtPercentile(99.0d);
+      final double recentP999 = recentHistogram.getMillisAtPercentile(99.9d);
+      final double recentMax = recentHistogram.getMaxValue() / 1_000_000.0d;
+
       final long recentNumSearches = numSearches - lastNumSearches;
       final long recentNumEntries = numEntries - lastNumEntries;
       final long recentNumErrors = numErrors - lastNumErrors;
@@ -1299,7 +1454,8 @@ public final class SearchRate
       {
         out(formatter.formatRow(recentSearchRate, recentAvgDuration,
              recentEntriesPerSearch, recentErrorRate, "warming up",
-             "warming up"));
+             "warming up", recentP50, recentP90, recentP99, recentP999,
+             recentMax));
 
         remainingWarmUpIntervals--;
         if (remainingWarmUpIntervals == 0)
@@ -1334,9 +1490,11 @@ public final class SearchRate
           overallAvgDuration = 0.0d;
         }
 
+        overallHistogram.add(recentHistogram);
         out(formatter.formatRow(recentSearchRate, recentAvgDuration,
              recentEntriesPerSearch, recentErrorRate, overallSearchRate,
-             overallAvgDuration));
+             overallAvgDuration, recentP50, recentP90, recentP99, recentP999,
+             recentMax));
 
         lastNumSearches = numSearches;
         lastNumEntries  = numEntries;
@@ -1381,6 +1539,27 @@ public final class SearchRate
       }
     }
 
+
+    // If a latency histogram file was requested, then write it.
+    if (latencyHistogramFile.isPresent())
+    {
+      try (PrintWriter w = new PrintWriter(latencyHistogramFile.getValue()))
+      {
+        overallHistogram.writeCSV(w);
+      }
+      catch (final IOException e)
+      {
+        Debug.debugException(e);
+        err("Unable to write the latency histogram to file '",
+             latencyHistogramFile.getValue().getAbsolutePath(), "':  ",
+             StaticUtils.getExceptionMessage(e));
+        if (resultCode == ResultCode.SUCCESS)
+        {
+          resultCode = ResultCode.LOCAL_ERROR;
+        }
+      }
+    }
+
     return resultCode;
   }
 
@@ -32,6 +32,7 @@ import com.unboundid.ldap.sdk.ResultCode;
 import com.unboundid.ldap.sdk.SearchResult;
 import com.unboundid.ldap.sdk.SearchResultEntry;
 import com.unboundid.ldap.sdk.SearchResultReference;
+import com.unboundid.util.LatencyHistogram;
 import com.unboundid.util.ResultCodeCounter;
 
 
@@ -62,6 +63,9 @@ final class SearchRateAsyncListener
   // The value that will be updated with total duration of the searches.
   private final AtomicLong searchDurations;
 
+  // The histogram that will be updated with the duration of each search.
+  private final LatencyHistogram searchHistogram;
+
   // The result code for the search.
   private final AtomicReference<ResultCode> resultCode;
 
@@ -86,6 +90,8 @@ final class SearchRateAsyncListener
    *                          total number of entries returned.
    * @param  searchDurations  A value that will be used to keep track of the
    *                          total duration for all searches.
+   * @param  searchHistogram  The histogram that will be updated with the
+   *                          duration of each search.
    * @param  errorCounter     A value that will be used to keep track of the
    *                          number of errors encountered while searching.
    * @param  rcCounter        The result code counter to use for keeping track
@@ -93,24 +99,30 @@ final class SearchRateAsyncListener
    * @param  asyncSemaphore   The semaphore used ot limit the total number of
    *                          outstanding asynchronous requests.
    * @param  resultCode       The result code for the search thread.
+   * @param  startTime        The time, in terms of {@code System.nanoTime},
+   *                          from which the response time for the search should
+   *                          be measured.
    */
   SearchRateAsyncListener(final AtomicLong searchCounter,
                           final AtomicLong entryCounter,
                           final AtomicLong searchDurations,
+                          final LatencyHistogram searchHistogram,
                           final AtomicLong errorCounter,
                           final ResultCodeCounter rcCounter,
                           final Semaphore asyncSemaphore,
-                          final AtomicReference<ResultCode> resultCode)
+                          final AtomicReference<ResultCode> resultCode,
+                          final long startTime)
   {
     this.searchCounter   = searchCounter;
     this.entryCounter    = entryCounter;
     this.searchDurations = searchDurations;
+    this.searchHistogram = searchHistogram;
     this.errorCounter    = errorCounter;
     this.rcCounter       = rcCounter;
     this.asyncSemaphore  = asyncSemaphore;
     this.resultCode      = resultCode;
 
-    startTime = System.nanoTime();
+    this.startTime       = startTime;
   }
 
 
@@ -145,7 +157,9 @@ final class SearchRateAsyncListener
   public void searchResultReceived(final AsyncRequestID requestID,
                                    final SearchResult searchResult)
   {
-    searchDurations.addAndGet(System.nanoTime() - startTime);
+    final long duration = System.nanoTime() - startTime;
+    searchDurations.addAndGet(duration);
+    searchHistogram.recordValue(duration);
 
     if (asyncSemaphore != null)
     {
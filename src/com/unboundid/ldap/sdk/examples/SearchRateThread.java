@@ -47,6 +47,7 @@ import com.unboundid.ldap.sdk.controls.ProxiedAuthorizationV2RequestControl;
 import com.unboundid.ldap.sdk.controls.SimplePagedResultsControl;
 import com.unboundid.util.Debug;
 import com.unboundid.util.FixedRateBarrier;
+import com.unboundid.util.LatencyHistogram;
 import com.unboundid.util.ResultCodeCounter;
 import com.unboundid.util.ValuePattern;
 
@@ -88,6 +89,14 @@ final class SearchRateThread
   // The value that will be updated with total duration of the searches.
   private final AtomicLong searchDurations;
 
+  // The histogram that will be updated with the duration of each search.
+  private final LatencyHistogram searchHistogram;
+
+  // The expected interval between searches on this thread, in nanoseconds, for
+  // use in correcting for coordinated omission, or zero if no correction
+  // should be performed.
+  private final long expectedIntervalNanos;
+
   // The thread that is actually performing the searches.
   private final AtomicReference<Thread> searchThread;
 
@@ -145,6 +154,10 @@ final class SearchRateThread
   // rate-limiting should be used.
   private final FixedRateBarrier fixedRateBarrier;
 
+  // The schedule of arrival times to use for searches in open-loop mode.  null
+  // if the thread is not operating in open-loop mode.
+  private final ArrivalSchedule arrivalSchedule;
+
 
 
   /**
@@ -199,6 +212,13 @@ final class SearchRateThread
    *                                    of the total number of entries returned.
    * @param  searchDurations            A value that will be used to keep track
    *                                    of the total duration for all searches.
+   * @param  searchHistogram            The histogram that will be updated with
+   *                                    the duration of each search.
+   * @param  expectedIntervalNanos      The expected interval between searches
+   *                                    on this thread, in nanoseconds, for use
+   *                                    in correcting for coordinated omission.
+   *                                    It should be zero if no correction
+   *                                    should be performed.
    * @param  errorCounter               A value that will be used to keep track
    *                                    of the number of errors encountered
    *                                    while searching.
@@ -208,6 +228,10 @@ final class SearchRateThread
    * @param  rateBarrier                The barrier to use for controlling the
    *                                    rate of searches.  {@code null} if no
    *                                    rate-limiting should be used.
+   * @param  arrivalSchedule            The schedule of arrival times to use for
+   *                                    searches in open-loop mode.
+   *                                    {@code null} if the thread should not
+   *                                    operate in open-loop mode.
    * @param  asyncSemaphore             The semaphore used ot limit the total
    *                                    number of outstanding asynchronous
    *                                    requests.
@@ -227,9 +251,12 @@ final class SearchRateThread
                    final AtomicLong searchCounter,
                    final AtomicLong entryCounter,
                    final AtomicLong searchDurations,
+                   final LatencyHistogram searchHistogram,
+                   final long expectedIntervalNanos,
                    final AtomicLong errorCounter,
                    final ResultCodeCounter rcCounter,
                    final FixedRateBarrier rateBarrier,
+                   final ArrivalSchedule arrivalSchedule,
                    final Semaphore asyncSemaphore)
   {
     setName("SearchRate Thread " + threadNumber);
@@ -249,12 +276,15 @@ final class SearchRateThread
     this.searchCounter             = searchCounter;
     this.entryCounter              = entryCounter;
     this.searchDurations           = searchDurations;
+    this.searchHistogram           = searchHistogram;
+    this.expectedIntervalNanos     = expectedIntervalNanos;
     this.errorCounter              = errorCounter;
     this.rcCounter                 = rcCounter;
     this.runningThreads            = runningThreads;
     this.startBarrier              = startBarrier;
     this.asyncSemaphore            = asyncSemaphore;
     fixedRateBarrier               = rateBarrier;
+    this.arrivalSchedule           = arrivalSchedule;
 
     if (iterationsBeforeReconnect > 0L)
     {
@@ -332,6 +362,11 @@ final class SearchRateThread
               fixedRateBarrier.await();
             }
 
+            if (arrivalSchedule != null)
+            {
+              arrivalSchedule.awaitNextArrival(stopRequested);
+            }
+
             continue;
           }
         }
@@ -343,6 +378,23 @@ final class SearchRateThread
           fixedRateBarrier.await();
         }
 
+        // In open-loop mode, wait until the next search is scheduled to be
+        // sent, and measure its response time from that point so that any
+        // delay in actually sending it is included.
+        final long scheduledTime;
+        if (arrivalSchedule == null)
+        {
+          scheduledTime = 0L;
+        }
+        else
+        {
+          scheduledTime = arrivalSchedule.awaitNextArrival(stopRequested);
+          if (stopRequested.get())
+          {
+            break;
+          }
+        }
+
         ProxiedAuthorizationV2RequestControl proxyControl = null;
         if (async)
         {
@@ -365,8 +417,9 @@ final class SearchRateThread
           }
 
           final SearchRateAsyncListener listener = new SearchRateAsyncListener(
-               searchCounter, entryCounter, searchDurations, errorCounter,
-               rcCounter, asyncSemaphore, resultCode);
+               searchCounter, entryCounter, searchDurations, searchHistogram,
+               errorCounter, rcCounter, asyncSemaphore, resultCode,
+               ((arrivalSchedule == null) ? System.nanoTime() : scheduledTime));
 
           try
           {
@@ -500,7 +553,9 @@ final class SearchRateThread
           }
 
           searchCounter.incrementAndGet();
-          searchDurations.addAndGet(System.nanoTime() - startTime);
+          final long duration = System.nanoTime() - startTime;
+          searchDurations.addAndGet(duration);
+          searchHistogram.recordValue(duration, expectedIntervalNanos);
           entryCounter.addAndGet(entriesReturned);
         }
       }
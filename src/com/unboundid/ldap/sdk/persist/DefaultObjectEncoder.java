@@ -27,6 +27,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -1041,92 +1042,7 @@ public final class DefaultObjectEncoder
 
     try
     {
-      final Class<?> baseClass = typeInfo.getBaseClass();
-      final Object newValue = getValue(baseClass, attribute, 0);
-      if (newValue != null)
-      {
-        field.set(object, newValue);
-        return;
-      }
-
-      if (typeInfo.isArray())
-      {
-        final Class<?> componentType = typeInfo.getComponentType();
-        final ASN1OctetString[] values = attribute.getRawValues();
-        final Object arrayObject =
-             Array.newInstance(componentType, values.length);
-        for (int i=0; i < values.length; i++)
-        {
-          final Object o = getValue(componentType, attribute, i);
-          if (o == null)
-          {
-            throw new LDAPPersistException(
-                 ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(
-                      componentType.getName()));
-          }
-          Array.set(arrayObject, i, o);
-        }
-
-        field.set(object, arrayObject);
-        return;
-      }
-      else if (typeInfo.isList() && isSupportedListType(baseClass))
-      {
-        final Class<?> componentType = typeInfo.getComponentType();
-        if (componentType == null)
-        {
-          throw new LDAPPersistException(
-               ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(baseClass.getName()));
-        }
-
-        final ASN1OctetString[] values = attribute.getRawValues();
-        final List<?> l = createList(baseClass, values.length);
-        for (int i=0; i < values.length; i++)
-        {
-          final Object o = getValue(componentType, attribute, i);
-          if (o == null)
-          {
-            throw new LDAPPersistException(
-                 ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(
-                      componentType.getName()));
-          }
-
-          invokeAdd(l, o);
-        }
-
-        field.set(object, l);
-        return;
-      }
-      else if (typeInfo.isSet() && isSupportedSetType(baseClass))
-      {
-        final Class<?> componentType = typeInfo.getComponentType();
-        if (componentType == null)
-        {
-          throw new LDAPPersistException(
-               ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(baseClass.getName()));
-        }
-
-        final ASN1OctetString[] values = attribute.getRawValues();
-        final Set<?> l = createSet(baseClass, values.length);
-        for (int i=0; i < values.length; i++)
-        {
-          final Object o = getValue(componentType, attribute, i);
-          if (o == null)
-          {
-            throw new LDAPPersistException(
-                 ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(
-                      componentType.getName()));
-          }
-
-          invokeAdd(l, o);
-        }
-
-        field.set(object, l);
-        return;
-      }
-
-      throw new LDAPPersistException(ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(
-           baseClass.getName()));
+      field.set(object, decodeValue(typeInfo, attribute));
     }
     catch (final LDAPPersistException lpe)
     {
@@ -1152,118 +1068,215 @@ public final class DefaultObjectEncoder
   {
     final TypeInfo typeInfo =
          new TypeInfo(method.getGenericParameterTypes()[0]);
-    final Class<?> baseClass = typeInfo.getBaseClass();
     method.setAccessible(true);
 
     try
     {
-      final Object newValue = getValue(baseClass, attribute, 0);
-      if (newValue != null)
-      {
-        method.invoke(object, newValue);
-        return;
-      }
+      method.invoke(object, decodeValue(typeInfo, attribute));
+    }
+    catch (final LDAPPersistException lpe)
+    {
+      Debug.debugException(lpe);
+      throw lpe;
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
 
-      if (typeInfo.isArray())
+      if (e instanceof InvocationTargetException)
       {
-        final Class<?> componentType = typeInfo.getComponentType();
-        final ASN1OctetString[] values = attribute.getRawValues();
-        final Object arrayObject =
-             Array.newInstance(componentType, values.length);
-        for (int i=0; i < values.length; i++)
-        {
-          final Object o = getValue(componentType, attribute, i);
-          if (o == null)
-          {
-            throw new LDAPPersistException(
-                 ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(
-                      componentType.getName()));
-          }
-          Array.set(arrayObject, i, o);
-        }
-
-        method.invoke(object, arrayObject);
-        return;
+        final Throwable targetException =
+             ((InvocationTargetException) e).getTargetException();
+        throw new LDAPPersistException(
+             StaticUtils.getExceptionMessage(targetException), targetException);
       }
-      else if (typeInfo.isList() && isSupportedListType(baseClass))
+      else
       {
-        final Class<?> componentType = typeInfo.getComponentType();
-        if (componentType == null)
-        {
-          throw new LDAPPersistException(
-               ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(baseClass.getName()));
-        }
+        throw new LDAPPersistException(StaticUtils.getExceptionMessage(e), e);
+      }
+    }
+  }
 
-        final ASN1OctetString[] values = attribute.getRawValues();
-        final List<?> l = createList(baseClass, values.length);
-        for (int i=0; i < values.length; i++)
-        {
-          final Object o = getValue(componentType, attribute, i);
-          if (o == null)
-          {
-            throw new LDAPPersistException(
-                 ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(
-                      componentType.getName()));
-          }
-
-          invokeAdd(l, o);
-        }
 
-        method.invoke(object, l);
-        return;
-      }
-      else if (typeInfo.isSet() && isSupportedSetType(baseClass))
-      {
-        final Class<?> componentType = typeInfo.getComponentType();
-        if (componentType == null)
-        {
-          throw new LDAPPersistException(
-               ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(baseClass.getName()));
-        }
 
-        final ASN1OctetString[] values = attribute.getRawValues();
-        final Set<?> s = createSet(baseClass, values.length);
-        for (int i=0; i < values.length; i++)
-        {
-          final Object o = getValue(componentType, attribute, i);
-          if (o == null)
-          {
-            throw new LDAPPersistException(
-                 ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(
-                      componentType.getName()));
-          }
-
-          invokeAdd(s, o);
-        }
+  /**
+   * Sets the value of a field in the provided object using a method handle
+   * created when the field was first examined, rather than reflection.
+   *
+   * @param  setter     The method handle to use to set the field value.
+   * @param  typeInfo   Information about the type of the field.
+   * @param  object     The object in which to set the field value.
+   * @param  attribute  The attribute whose values should be used to set the
+   *                    field value.
+   *
+   * @throws  LDAPPersistException  If a problem occurs while attempting to set
+   *                                the field value.
+   */
+  void decodeField(final MethodHandle setter, final TypeInfo typeInfo,
+                   final Object object, final Attribute attribute)
+       throws LDAPPersistException
+  {
+    try
+    {
+      PersistAccessors.setFieldValue(setter, object,
+           decodeValue(typeInfo, attribute));
+    }
+    catch (final LDAPPersistException lpe)
+    {
+      Debug.debugException(lpe);
+      throw lpe;
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      throw new LDAPPersistException(StaticUtils.getExceptionMessage(e), e);
+    }
+  }
 
-        method.invoke(object, s);
-        return;
-      }
 
-      throw new LDAPPersistException(ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(
-           baseClass.getName()));
+
+  /**
+   * Invokes a setter method on the provided object using a method handle
+   * created when the method was first examined, rather than reflection.
+   *
+   * @param  invoker    The method handle to use to invoke the setter.
+   * @param  typeInfo   Information about the type of the method argument.
+   * @param  object     The object on which to invoke the setter.
+   * @param  attribute  The attribute whose values should be used to construct
+   *                    the method argument.
+   *
+   * @throws  LDAPPersistException  If a problem occurs while attempting to
+   *                                invoke the setter.
+   */
+  void invokeSetter(final MethodHandle invoker, final TypeInfo typeInfo,
+                    final Object object, final Attribute attribute)
+       throws LDAPPersistException
+  {
+    try
+    {
+      PersistAccessors.invoke(invoker, object,
+           decodeValue(typeInfo, attribute));
     }
     catch (final LDAPPersistException lpe)
     {
       Debug.debugException(lpe);
       throw lpe;
     }
+    catch (final InvocationTargetException ite)
+    {
+      Debug.debugException(ite);
+      final Throwable targetException = ite.getTargetException();
+      throw new LDAPPersistException(
+           StaticUtils.getExceptionMessage(targetException), targetException);
+    }
     catch (final Exception e)
     {
       Debug.debugException(e);
+      throw new LDAPPersistException(StaticUtils.getExceptionMessage(e), e);
+    }
+  }
 
-      if (e instanceof InvocationTargetException)
+
+
+  /**
+   * Creates an object of the specified type from the values of the given
+   * attribute.  This is used by the {@code decodeField} and
+   * {@code invokeSetter} methods, and it may also be used by the persistence
+   * framework to decode a value that will be assigned using a method handle.
+   *
+   * @param  typeInfo   Information about the type of object to create.
+   * @param  attribute  The attribute to use to create the object.
+   *
+   * @return  The created object.
+   *
+   * @throws  LDAPPersistException  If the provided type is not supported or a
+   *                                problem occurs while creating the object.
+   */
+  Object decodeValue(final TypeInfo typeInfo, final Attribute attribute)
+         throws LDAPPersistException
+  {
+    final Class<?> baseClass = typeInfo.getBaseClass();
+    final Object newValue = getValue(baseClass, attribute, 0);
+    if (newValue != null)
+    {
+      return newValue;
+    }
+
+    if (typeInfo.isArray())
+    {
+      final Class<?> componentType = typeInfo.getComponentType();
+      final ASN1OctetString[] values = attribute.getRawValues();
+      final Object arrayObject =
+           Array.newInstance(componentType, values.length);
+      for (int i=0; i < values.length; i++)
+      {
+        final Object o = getValue(componentType, attribute, i);
+        if (o == null)
+        {
+          throw new LDAPPersistException(
+               ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(
+                    componentType.getName()));
+        }
+        Array.set(arrayObject, i, o);
+      }
+
+      return arrayObject;
+    }
+    else if (typeInfo.isList() && isSupportedListType(baseClass))
+    {
+      final Class<?> componentType = typeInfo.getComponentType();
+      if (componentType == null)
       {
-        final Throwable targetException =
-             ((InvocationTargetException) e).getTargetException();
         throw new LDAPPersistException(
-             StaticUtils.getExceptionMessage(targetException), targetException);
+             ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(baseClass.getName()));
       }
-      else
+
+      final ASN1OctetString[] values = attribute.getRawValues();
+      final List<?> l = createList(baseClass, values.length);
+      for (int i=0; i < values.length; i++)
       {
-        throw new LDAPPersistException(StaticUtils.getExceptionMessage(e), e);
+        final Object o = getValue(componentType, attribute, i);
+        if (o == null)
+        {
+          throw new LDAPPersistException(
+               ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(
+                    componentType.getName()));
+        }
+
+        invokeAdd(l, o);
       }
+
+      return l;
     }
+    else if (typeInfo.isSet() && isSupportedSetType(baseClass))
+    {
+      final Class<?> componentType = typeInfo.getComponentType();
+      if (componentType == null)
+      {
+        throw new LDAPPersistException(
+             ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(baseClass.getName()));
+      }
+
+      final ASN1OctetString[] values = attribute.getRawValues();
+      final Set<?> l = createSet(baseClass, values.length);
+      for (int i=0; i < values.length; i++)
+      {
+        final Object o = getValue(componentType, attribute, i);
+        if (o == null)
+        {
+          throw new LDAPPersistException(
+               ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(
+                    componentType.getName()));
+        }
+
+        invokeAdd(l, o);
+      }
+
+      return l;
+    }
+
+    throw new LDAPPersistException(ERR_DEFAULT_ENCODER_UNSUPPORTED_TYPE.get(
+         baseClass.getName()));
   }
 
 
@@ -1528,33 +1541,27 @@ public final class DefaultObjectEncoder
    * @throws  LDAPPersistException  If a problem occurs while attempting to
    *                                invoke the {@code add} method.
    */
+  @SuppressWarnings("unchecked")
   private static void invokeAdd(final Object l, final Object o)
           throws LDAPPersistException
   {
-    final Class<?> c = l.getClass();
-
-    for (final Method m : c.getMethods())
+    if (! (l instanceof Collection))
     {
-      if (m.getName().equals("add") &&
-          (m.getGenericParameterTypes().length == 1))
-      {
-        try
-        {
-          m.invoke(l, o);
-          return;
-        }
-        catch (final Exception e)
-        {
-          Debug.debugException(e);
-          throw new LDAPPersistException(
-               ERR_DEFAULT_ENCODER_CANNOT_ADD.get(
-                    StaticUtils.getExceptionMessage(e)),
-               e);
-        }
-      }
+      throw new LDAPPersistException(
+           ERR_DEFAULT_ENCODER_CANNOT_FIND_ADD_METHOD.get());
     }
 
-    throw new LDAPPersistException(
-         ERR_DEFAULT_ENCODER_CANNOT_FIND_ADD_METHOD.get());
+    try
+    {
+      ((Collection<Object>) l).add(o);
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      throw new LDAPPersistException(
+           ERR_DEFAULT_ENCODER_CANNOT_ADD.get(
+                StaticUtils.getExceptionMessage(e)),
+           e);
+    }
   }
 }
@@ -23,6 +23,7 @@ package com.unboundid.ldap.sdk.persist;
 
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.List;
@@ -99,6 +100,12 @@ public final class FieldInfo
   // The filter usage for the associated field.
   private final FilterUsage filterUsage;
 
+  // The method handle used to retrieve the value of the associated field.
+  private final MethodHandle getter;
+
+  // The method handle used to set the value of the associated field.
+  private final MethodHandle setter;
+
   // The encoder used for this field.
   private final ObjectEncoder encoder;
 
@@ -114,6 +121,9 @@ public final class FieldInfo
   // The names of the object classes for the associated attribute.
   private final String[] objectClasses;
 
+  // Information about the type of the associated field.
+  private final TypeInfo typeInfo;
+
 
 
   /**
@@ -198,6 +208,10 @@ public final class FieldInfo
            f.getName(), c.getName()));
     }
 
+    getter   = PersistAccessors.getFieldGetter(f);
+    setter   = PersistAccessors.getFieldSetter(f);
+    typeInfo = new TypeInfo(f.getGenericType());
+
     try
     {
       encoder = a.encoderClass().newInstance();
@@ -620,7 +634,7 @@ public final class FieldInfo
   {
     try
     {
-      final Object fieldValue = field.get(o);
+      final Object fieldValue = PersistAccessors.getFieldValue(getter, o);
       if (fieldValue == null)
       {
         if (defaultEncodeValues.length > 0)
@@ -716,7 +730,14 @@ public final class FieldInfo
 
     try
     {
-      encoder.decodeField(field, o, a);
+      if (encoder instanceof DefaultObjectEncoder)
+      {
+        ((DefaultObjectEncoder) encoder).decodeField(setter, typeInfo, o, a);
+      }
+      else
+      {
+        encoder.decodeField(field, o, a);
+      }
     }
     catch (final LDAPPersistException lpe)
     {
@@ -23,6 +23,7 @@ package com.unboundid.ldap.sdk.persist;
 
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
@@ -76,6 +77,9 @@ public final class GetterInfo
   // The method with which this object is associated.
   private final Method method;
 
+  // The method handle used to invoke the associated method.
+  private final MethodHandle invoker;
+
   // The encoder used for this method.
   private final ObjectEncoder encoder;
 
@@ -138,6 +142,8 @@ public final class GetterInfo
            m.getName(), c.getName()));
     }
 
+    invoker = PersistAccessors.getMethodInvoker(m);
+
     try
     {
       encoder = a.encoderClass().newInstance();
@@ -408,7 +414,7 @@ public final class GetterInfo
   {
     try
     {
-      final Object methodValue = method.invoke(o);
+      final Object methodValue = PersistAccessors.invoke(invoker, o);
       if (methodValue == null)
       {
         return null;
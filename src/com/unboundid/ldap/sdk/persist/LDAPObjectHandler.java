@@ -23,6 +23,7 @@ package com.unboundid.ldap.sdk.persist;
 
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -103,6 +104,23 @@ public final class LDAPObjectHandler<T>
   // The LDAPObject annotation for the associated object.
   private final LDAPObject ldapObject;
 
+  // The method handle used to invoke the constructor.
+  private final MethodHandle constructorInvoker;
+
+  // The method handles used to get and set the value of the DN field.
+  private final MethodHandle dnFieldGetter;
+  private final MethodHandle dnFieldSetter;
+
+  // The method handles used to get and set the value of the entry field.
+  private final MethodHandle entryFieldGetter;
+  private final MethodHandle entryFieldSetter;
+
+  // The method handle used to invoke the post-decode method.
+  private final MethodHandle postDecodeInvoker;
+
+  // The method handle used to invoke the post-encode method.
+  private final MethodHandle postEncodeInvoker;
+
   // The LDAP object handler for the superclass, if applicable.
   private final LDAPObjectHandler<? super T> superclassHandler;
 
@@ -317,6 +335,7 @@ public final class LDAPObjectHandler<T>
       {
         postDecodeMethod = type.getDeclaredMethod(postDecodeMethodName);
         postDecodeMethod.setAccessible(true);
+        postDecodeInvoker = PersistAccessors.getMethodInvoker(postDecodeMethod);
       }
       catch (final Exception e)
       {
@@ -330,6 +349,7 @@ public final class LDAPObjectHandler<T>
     else
     {
       postDecodeMethod = null;
+      postDecodeInvoker = null;
     }
 
 
@@ -341,6 +361,7 @@ public final class LDAPObjectHandler<T>
         postEncodeMethod = type.getDeclaredMethod(postEncodeMethodName,
              Entry.class);
         postEncodeMethod.setAccessible(true);
+        postEncodeInvoker = PersistAccessors.getMethodInvoker(postEncodeMethod);
       }
       catch (final Exception e)
       {
@@ -354,6 +375,7 @@ public final class LDAPObjectHandler<T>
     else
     {
       postEncodeMethod = null;
+      postEncodeInvoker = null;
     }
 
 
@@ -361,6 +383,7 @@ public final class LDAPObjectHandler<T>
     {
       constructor = type.getDeclaredConstructor();
       constructor.setAccessible(true);
+      constructorInvoker = PersistAccessors.getConstructorInvoker(constructor);
     }
     catch (final Exception e)
     {
@@ -511,7 +534,28 @@ public final class LDAPObjectHandler<T>
     }
 
     dnField = tmpDNField;
+    if (dnField == null)
+    {
+      dnFieldGetter = null;
+      dnFieldSetter = null;
+    }
+    else
+    {
+      dnFieldGetter = PersistAccessors.getFieldGetter(dnField);
+      dnFieldSetter = PersistAccessors.getFieldSetter(dnField);
+    }
+
     entryField = tmpEntryField;
+    if (entryField == null)
+    {
+      entryFieldGetter = null;
+      entryFieldSetter = null;
+    }
+    else
+    {
+      entryFieldGetter = PersistAccessors.getFieldGetter(entryField);
+      entryFieldSetter = PersistAccessors.getFieldSetter(entryField);
+    }
     requiredFilterFields = Collections.unmodifiableList(tmpRFilterFields);
     alwaysAllowedFilterFields = Collections.unmodifiableList(tmpAAFilterFields);
     conditionallyAllowedFilterFields =
@@ -897,7 +941,8 @@ public final class LDAPObjectHandler<T>
     {
       try
       {
-        final Object dnObject = dnField.get(o);
+        final Object dnObject =
+             PersistAccessors.getFieldValue(dnFieldGetter, o);
         if (dnObject == null)
         {
           return null;
@@ -949,7 +994,8 @@ public final class LDAPObjectHandler<T>
     {
       try
       {
-        final Object entryObject = entryField.get(o);
+        final Object entryObject =
+             PersistAccessors.getFieldValue(entryFieldGetter, o);
         if (entryObject == null)
         {
           return null;
@@ -1230,7 +1276,7 @@ public final class LDAPObjectHandler<T>
     final T o;
     try
     {
-      o = constructor.newInstance();
+      o = type.cast(PersistAccessors.invoke(constructorInvoker));
     }
     catch (final Exception ex)
     {
@@ -1299,7 +1345,7 @@ public final class LDAPObjectHandler<T>
     {
       try
       {
-        postDecodeMethod.invoke(o);
+        PersistAccessors.invoke(postDecodeInvoker, o);
       }
       catch (final Exception ex)
       {
@@ -1400,7 +1446,7 @@ public final class LDAPObjectHandler<T>
     {
       try
       {
-        postEncodeMethod.invoke(o, entry);
+        PersistAccessors.invoke(postEncodeInvoker, o, entry);
       }
       catch (final Exception ex)
       {
@@ -1458,9 +1504,9 @@ public final class LDAPObjectHandler<T>
     {
       try
       {
-        if (dnField.get(o) == null)
+        if (PersistAccessors.getFieldValue(dnFieldGetter, o) == null)
         {
-          dnField.set(o, e.getDN());
+          PersistAccessors.setFieldValue(dnFieldSetter, o, e.getDN());
         }
       }
       catch (final Exception ex)
@@ -1477,9 +1523,10 @@ public final class LDAPObjectHandler<T>
     {
       try
       {
-        if (entryField.get(o) == null)
+        if (PersistAccessors.getFieldValue(entryFieldGetter, o) == null)
         {
-          entryField.set(o, new ReadOnlyEntry(e));
+          PersistAccessors.setFieldValue(entryFieldSetter, o,
+               new ReadOnlyEntry(e));
         }
       }
       catch (final Exception ex)
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk.persist;
+
+
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+
+import com.unboundid.util.Debug;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+import static com.unboundid.ldap.sdk.persist.PersistMessages.*;
+
+
+
+/**
+ * This class provides a set of utility methods for creating and using method
+ * handles that access the fields, methods, and constructors of persisted
+ * objects.  Method handles are created once when a class is first examined by
+ * the persistence framework, and all handles have a generic type in which all
+ * arguments and return values are objects so that they may be invoked without
+ * the security checks, argument array allocation, and exception wrapping that
+ * reflection requires on every call.  The provided member must already have
+ * been made accessible before a method handle is created for it.
+ */
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+final class PersistAccessors
+{
+  /**
+   * The lookup that will be used to create method handles.
+   */
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+
+
+  /**
+   * Prevent this utility class from being instantiated.
+   */
+  private PersistAccessors()
+  {
+    // No implementation required.
+  }
+
+
+
+  /**
+   * Creates a method handle that may be used to retrieve the value of the
+   * provided field.  The handle will take the object containing the field as
+   * its only argument and will return the field value, boxed if necessary.
+   *
+   * @param  f  The field for which to create the method handle.
+   *
+   * @return  The method handle that was created.
+   *
+   * @throws  LDAPPersistException  If the method handle cannot be created.
+   */
+  static MethodHandle getFieldGetter(final Field f)
+         throws LDAPPersistException
+  {
+    try
+    {
+      return LOOKUP.unreflectGetter(f).asType(MethodType.genericMethodType(1));
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      throw new LDAPPersistException(
+           ERR_PERSIST_ACCESSORS_CANNOT_CREATE_HANDLE.get(f.getName(),
+                f.getDeclaringClass().getName(),
+                StaticUtils.getExceptionMessage(e)),
+           e);
+    }
+  }
+
+
+
+  /**
+   * Creates a method handle that may be used to set the value of the provided
+   * field.  The handle will take the object containing the field and the new
+   * value, which will be unboxed if necessary, as its arguments.
+   *
+   * @param  f  The field for which to create the method handle.
+   *
+   * @return  The method handle that was created.
+   *
+   * @throws  LDAPPersistException  If the method handle cannot be created.
+   */
+  static MethodHandle getFieldSetter(final Field f)
+         throws LDAPPersistException
+  {
+    try
+    {
+      return LOOKUP.unreflectSetter(f).asType(
+           MethodType.methodType(void.class, Object.class, Object.class));
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      throw new LDAPPersistException(
+           ERR_PERSIST_ACCESSORS_CANNOT_CREATE_HANDLE.get(f.getName(),
+                f.getDeclaringClass().getName(),
+                StaticUtils.getExceptionMessage(e)),
+           e);
+    }
+  }
+
+
+
+  /**
+   * Creates a method handle that may be used to invoke the provided method.
+   * The handle will take the object on which to invoke the method (which will
+   * be ignored for a static method) followed by the method arguments, and it
+   * will return the value returned by the method, or {@code null} if the
+   * method does not return a value.
+   *
+   * @param  m  The method for which to create the method handle.
+   *
+   * @return  The method handle that was created.
+   *
+   * @throws  LDAPPersistException  If the method handle cannot be created.
+   */
+  static MethodHandle getMethodInvoker(final Method m)
+         throws LDAPPersistException
+  {
+    try
+    {
+      MethodHandle h = LOOKUP.unreflect(m);
+      if (Modifier.isStatic(m.getModifiers()))
+      {
+        h = MethodHandles.dropArguments(h, 0, Object.class);
+      }
+
+      return h.asType(MethodType.genericMethodType(
+           m.getParameterTypes().length + 1));
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      throw new LDAPPersistException(
+           ERR_PERSIST_ACCESSORS_CANNOT_CREATE_HANDLE.get(m.getName(),
+                m.getDeclaringClass().getName(),
+                StaticUtils.getExceptionMessage(e)),
+           e);
+    }
+  }
+
+
+
+  /**
+   * Creates a method handle that may be used to invoke the provided
+   * zero-argument constructor.  The handle will not take any arguments and will
+   * return the newly-created object.
+   *
+   * @param  c  The constructor for which to create the method handle.
+   *
+   * @return  The method handle that was created.
+   *
+   * @throws  LDAPPersistException  If the method handle cannot be created.
+   */
+  static MethodHandle getConstructorInvoker(final Constructor<?> c)
+         throws LDAPPersistException
+  {
+    try
+    {
+      return LOOKUP.unreflectConstructor(c).asType(
+           MethodType.genericMethodType(0));
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      throw new LDAPPersistException(
+           ERR_PERSIST_ACCESSORS_CANNOT_CREATE_HANDLE.get(c.getName(),
+                c.getDeclaringClass().getName(),
+                StaticUtils.getExceptionMessage(e)),
+           e);
+    }
+  }
+
+
+
+  /**
+   * Retrieves the value of a field using a handle created by the
+   * {@link #getFieldGetter} method.
+   *
+   * @param  getter  The method handle to use to retrieve the field value.
+   * @param  o       The object from which to retrieve the field value.
+   *
+   * @return  The value of the field, which may be {@code null}.
+   */
+  static Object getFieldValue(final MethodHandle getter, final Object o)
+  {
+    try
+    {
+      return (Object) getter.invokeExact(o);
+    }
+    catch (final RuntimeException | Error e)
+    {
+      throw e;
+    }
+    catch (final Throwable t)
+    {
+      throw new UndeclaredThrowableException(t);
+    }
+  }
+
+
+
+  /**
+   * Sets the value of a field using a handle created by the
+   * {@link #getFieldSetter} method.
+   *
+   * @param  setter  The method handle to use to set the field value.
+   * @param  o       The object in which to set the field value.
+   * @param  value   The value to assign to the field.
+   */
+  static void setFieldValue(final MethodHandle setter, final Object o,
+                            final Object value)
+  {
+    try
+    {
+      setter.invokeExact(o, value);
+    }
+    catch (final RuntimeException | Error e)
+    {
+      throw e;
+    }
+    catch (final Throwable t)
+    {
+      throw new UndeclaredThrowableException(t);
+    }
+  }
+
+
+
+  /**
+   * Invokes a zero-argument method or constructor using a handle created by
+   * the {@link #getConstructorInvoker} method.
+   *
+   * @param  invoker  The method handle to invoke.
+   *
+   * @return  The value returned by the invocation.
+   *
+   * @throws  InvocationTargetException  If the invocation throws an exception,
+   *                                     which will be available as the target
+   *                                     exception.
+   */
+  static Object invoke(final MethodHandle invoker)
+         throws InvocationTargetException
+  {
+    try
+    {
+      return (Object) invoker.invokeExact();
+    }
+    catch (final Throwable t)
+    {
+      throw new InvocationTargetException(t);
+    }
+  }
+
+
+
+  /**
+   * Invokes a method that does not take any arguments using a handle created
+   * by the {@link #getMethodInvoker} method.
+   *
+   * @param  invoker  The method handle to invoke.
+   * @param  o        The object on which to invoke the method.
+   *
+   * @return  The value returned by the method, or {@code null} if the method
+   *          does not return a value.
+   *
+   * @throws  InvocationTargetException  If the method throws an exception,
+   *                                     which will be available as the target
+   *                                     exception.
+   */
+  static Object invoke(final MethodHandle invoker, final Object o)
+         throws InvocationTargetException
+  {
+    try
+    {
+      return (Object) invoker.invokeExact(o);
+    }
+    catch (final Throwable t)
+    {
+      throw new InvocationTargetException(t);
+    }
+  }
+
+
+
+  /**
+   * Invokes a method that takes a single argument using a handle created by the
+   * {@link #getMethodInvoker} method.
+   *
+   * @param  invoker  The method handle to invoke.
+   * @param  o        The object on which to invoke the method.
+   * @param  arg      The argument to provide to the method.
+   *
+   * @return  The value returned by the method, or {@code null} if the method
+   *          does not return a value.
+   *
+   * @throws  InvocationTargetException  If the method throws an exception,
+   *                                     which will be available as the target
+   *                                     exception.
+   */
+  static Object invoke(final MethodHandle invoker, final Object o,
+                       final Object arg)
+         throws InvocationTargetException
+  {
+    try
+    {
+      return (Object) invoker.invokeExact(o, arg);
+    }
+    catch (final Throwable t)
+    {
+      throw new InvocationTargetException(t);
+    }
+  }
+}
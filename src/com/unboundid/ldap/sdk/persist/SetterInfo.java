@@ -23,6 +23,7 @@ package com.unboundid.ldap.sdk.persist;
 
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.List;
@@ -76,12 +77,18 @@ public final class SetterInfo
   // The method with which this object is associated.
   private final Method method;
 
+  // The method handle used to invoke the associated method.
+  private final MethodHandle invoker;
+
   // The encoder used for this method.
   private final ObjectEncoder encoder;
 
   // The name of the associated attribute type.
   private final String attributeName;
 
+  // Information about the type of the method argument.
+  private final TypeInfo typeInfo;
+
 
 
   /**
@@ -126,6 +133,9 @@ public final class SetterInfo
                 c.getName()));
     }
 
+    invoker  = PersistAccessors.getMethodInvoker(m);
+    typeInfo = new TypeInfo(params[0]);
+
     try
     {
       encoder = a.encoderClass().newInstance();
@@ -323,7 +333,14 @@ public final class SetterInfo
 
     try
     {
-      encoder.invokeSetter(method, o, a);
+      if (encoder instanceof DefaultObjectEncoder)
+      {
+        ((DefaultObjectEncoder) encoder).invokeSetter(invoker, typeInfo, o, a);
+      }
+      else
+      {
+        encoder.invokeSetter(method, o, a);
+      }
     }
     catch (final LDAPPersistException lpe)
     {
@@ -25,6 +25,7 @@ package com.unboundid.ldap.sdk.transformations;
 import java.io.Serializable;
 import java.util.concurrent.atomic.AtomicLong;
 
+import com.unboundid.ldap.sdk.CompiledFilter;
 import com.unboundid.ldap.sdk.DN;
 import com.unboundid.ldap.sdk.Entry;
 import com.unboundid.ldap.sdk.Filter;
@@ -71,10 +72,7 @@ public final class ExcludeEntryTransformation
   private final DN baseDN;
 
   // The filter to use to identify entries to exclude.
-  private final Filter filter;
-
-  // The schema to use when processing.
-  private final Schema schema;
+  private final CompiledFilter filter;
 
   // The scope to use to identify entries to exclude.
   private final SearchScope scope;
@@ -129,7 +127,6 @@ public final class ExcludeEntryTransformation
         Debug.debugException(e);
       }
     }
-    this.schema = s;
 
 
     // If a base DN was provided, then use it.  Otherwise, use the null DN.
@@ -160,12 +157,12 @@ public final class ExcludeEntryTransformation
     // filter.
     if (filter == null)
     {
-      this.filter = Filter.createANDFilter();
+      this.filter = Filter.createANDFilter().compile(s);
       allEntriesMatchFilter = true;
     }
     else
     {
-      this.filter = filter;
+      this.filter = filter.compile(s);
       if (filter.getFilterType() == Filter.FILTER_TYPE_AND)
       {
         allEntriesMatchFilter = (filter.getComponents().length == 0);
@@ -212,7 +209,7 @@ public final class ExcludeEntryTransformation
     boolean matchesFilter;
     try
     {
-      matchesFilter = (allEntriesMatchFilter || filter.matchesEntry(e, schema));
+      matchesFilter = (allEntriesMatchFilter || filter.matchesEntry(e));
     }
     catch (final Exception ex)
     {
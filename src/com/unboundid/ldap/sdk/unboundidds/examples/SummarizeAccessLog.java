@@ -35,9 +35,13 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPInputStream;
 import javax.crypto.BadPaddingException;
@@ -62,14 +66,17 @@ import com.unboundid.ldap.sdk.unboundidds.logs.LogException;
 import com.unboundid.ldap.sdk.unboundidds.logs.ModifyDNResultAccessLogMessage;
 import com.unboundid.ldap.sdk.unboundidds.logs.ModifyResultAccessLogMessage;
 import com.unboundid.ldap.sdk.unboundidds.logs.OperationAccessLogMessage;
+import com.unboundid.ldap.sdk.unboundidds.logs.OperationRequestAccessLogMessage;
 import com.unboundid.ldap.sdk.unboundidds.logs.SearchRequestAccessLogMessage;
 import com.unboundid.ldap.sdk.unboundidds.logs.SearchResultAccessLogMessage;
 import com.unboundid.ldap.sdk.unboundidds.logs.UnbindRequestAccessLogMessage;
 import com.unboundid.ldap.sdk.unboundidds.tools.ToolUtils;
 import com.unboundid.util.CommandLineTool;
 import com.unboundid.util.Debug;
+import com.unboundid.util.LDAPSDKThreadFactory;
 import com.unboundid.util.NotMutable;
 import com.unboundid.util.ObjectPair;
+import com.unboundid.util.PassphraseEncryptedInputStream;
 import com.unboundid.util.ReverseComparator;
 import com.unboundid.util.StaticUtils;
 import com.unboundid.util.ThreadSafety;
@@ -78,6 +85,7 @@ import com.unboundid.util.args.ArgumentException;
 import com.unboundid.util.args.ArgumentParser;
 import com.unboundid.util.args.BooleanArgument;
 import com.unboundid.util.args.FileArgument;
+import com.unboundid.util.args.IntegerArgument;
 
 
 
@@ -124,7 +132,10 @@ import com.unboundid.util.args.FileArgument;
  * format with separate request and response messages, as well as log files
  * in which the request and response details have been combined on the same
  * line.  The log files to be processed should be provided as command-line
- * arguments.
+ * arguments.  If the "--numThreads" argument is used to request more than one
+ * thread, then the files will be examined in parallel, and large uncompressed,
+ * unencrypted files will be split into ranges that are also examined in
+ * parallel, with the partial results from each combined at the end.
  * <BR><BR>
  * The APIs demonstrated by this example include:
  * <UL>
@@ -157,12 +168,22 @@ public final class SummarizeAccessLog
   // An argument used to specify the encryption passphrase.
   private FileArgument    encryptionPassphraseFile;
 
+  // An argument used to specify the number of threads to use.
+  private IntegerArgument numThreads;
+
   // The decimal format that will be used for this class.
   private final DecimalFormat decimalFormat;
 
   // The total duration for log content, in milliseconds.
   private long logDurationMillis;
 
+  // The total number of log messages examined.
+  private long logLines;
+
+  // The maximum number of bytes of an uncompressed, unencrypted log file that
+  // will be examined by a single thread in parallel mode.
+  private long chunkSizeBytes;
+
   // The total processing time for each type of operation.
   private double addProcessingDuration;
   private double bindProcessingDuration;
@@ -219,7 +240,13 @@ public final class SummarizeAccessLog
   private final HashMap<String,AtomicLong> disconnectReasons;
   private final HashMap<String,AtomicLong> extendedOperations;
   private final HashMap<String,AtomicLong> filterTypes;
-  private final HashSet<String> processedRequests;
+  private final HashMap<String,OperationRequestAccessLogMessage>
+       processedRequests;
+
+  // The IDs of the operations for which a result message was examined without
+  // a corresponding request message.  This will only be maintained for partial
+  // summaries created for parallel processing.
+  private final HashSet<String> unmatchedResults;
   private final LinkedHashMap<Long,AtomicLong> addProcessingTimes;
   private final LinkedHashMap<Long,AtomicLong> bindProcessingTimes;
   private final LinkedHashMap<Long,AtomicLong> compareProcessingTimes;
@@ -231,6 +258,14 @@ public final class SummarizeAccessLog
 
 
 
+  /**
+   * The default number of bytes of an uncompressed, unencrypted log file that
+   * will be examined by a single thread in parallel mode.
+   */
+  private static final long DEFAULT_CHUNK_SIZE_BYTES = 64L * 1024L * 1024L;
+
+
+
   /**
    * Parse the provided command line arguments and perform the appropriate
    * processing.
@@ -285,12 +320,39 @@ public final class SummarizeAccessLog
    */
   public SummarizeAccessLog(final OutputStream outStream,
                             final OutputStream errStream)
+  {
+    this(outStream, errStream, false);
+  }
+
+
+
+  /**
+   * Creates a new instance of this tool.
+   *
+   * @param  outStream              The output stream to which standard out
+   *                                should be written.  It may be {@code null}
+   *                                if output should be suppressed.
+   * @param  errStream              The output stream to which standard error
+   *                                should be written.  It may be {@code null}
+   *                                if error messages should be suppressed.
+   * @param  trackUnmatchedResults  Indicates whether to keep track of result
+   *                                messages that do not have a corresponding
+   *                                request message.  This should only be
+   *                                {@code true} for instances used to hold
+   *                                partial summaries for a subset of the log
+   *                                data.
+   */
+  private SummarizeAccessLog(final OutputStream outStream,
+                             final OutputStream errStream,
+                             final boolean trackUnmatchedResults)
   {
     super(outStream, errStream);
 
     decimalFormat = new DecimalFormat("0.000");
 
     logDurationMillis = 0L;
+    logLines = 0L;
+    chunkSizeBytes = DEFAULT_CHUNK_SIZE_BYTES;
 
     addProcessingDuration      = 0.0;
     bindProcessingDuration     = 0.0;
@@ -340,7 +402,15 @@ public final class SummarizeAccessLog
     disconnectReasons = new HashMap<>(StaticUtils.computeMapCapacity(100));
     extendedOperations = new HashMap<>(StaticUtils.computeMapCapacity(10));
     filterTypes = new HashMap<>(StaticUtils.computeMapCapacity(100));
-    processedRequests = new HashSet<>(StaticUtils.computeMapCapacity(100));
+    processedRequests = new HashMap<>(StaticUtils.computeMapCapacity(100));
+    if (trackUnmatchedResults)
+    {
+      unmatchedResults = new HashSet<>(StaticUtils.computeMapCapacity(100));
+    }
+    else
+    {
+      unmatchedResults = null;
+    }
     addProcessingTimes =
          new LinkedHashMap<>(StaticUtils.computeMapCapacity(11));
     bindProcessingTimes =
@@ -579,6 +649,19 @@ public final class SummarizeAccessLog
     encryptionPassphraseFile.addLongIdentifier("encryption-password-file",
          true);
     parser.addArgument(encryptionPassphraseFile);
+
+
+    // Add an argument that specifies the number of threads to use to examine
+    // the log files.
+    description = "The number of threads to use to examine the log files.  " +
+         "If more than one thread is used, then multiple files will be " +
+         "examined in parallel, and large uncompressed, unencrypted files " +
+         "will be divided into ranges that are examined in parallel.  If " +
+         "this is not provided, then a single thread will be used.";
+    numThreads = new IntegerArgument('t', "numThreads", true, 1, "{num}",
+         description, 1, Integer.MAX_VALUE, 1);
+    numThreads.addLongIdentifier("num-threads", true);
+    parser.addArgument(numThreads);
   }
 
 
@@ -633,195 +716,19 @@ public final class SummarizeAccessLog
     }
 
 
-    long logLines = 0L;
-    for (final String path : argumentParser.getTrailingArguments())
+    final ResultCode processingResultCode;
+    if (numThreads.getValue() > 1)
     {
-      final File f = new File(path);
-      out("Examining access log ", f.getAbsolutePath());
-      AccessLogReader reader = null;
-      InputStream inputStream = null;
-      try
-      {
-        inputStream = new FileInputStream(f);
-
-        final ObjectPair<InputStream,String> p =
-             ToolUtils.getPossiblyPassphraseEncryptedInputStream(inputStream,
-                  encryptionPassphrase,
-                  (! encryptionPassphraseFile.isPresent()),
-                  "Log file '" + path + "' is encrypted.  Please enter the " +
-                       "encryption passphrase:",
-                  "ERROR:  The provided passphrase was incorrect.",
-                  getOut(), getErr());
-        inputStream = p.getFirst();
-        if ((p.getSecond() != null) && (encryptionPassphrase == null))
-        {
-          encryptionPassphrase = p.getSecond();
-        }
-
-        if (isCompressed.isPresent())
-        {
-          inputStream = new GZIPInputStream(inputStream);
-        }
-        else
-        {
-          inputStream =
-               ToolUtils.getPossiblyGZIPCompressedInputStream(inputStream);
-        }
-
-        reader = new AccessLogReader(new InputStreamReader(inputStream));
-      }
-      catch (final Exception e)
-      {
-        Debug.debugException(e);
-        err("Unable to open access log file ", f.getAbsolutePath(), ":  ",
-            StaticUtils.getExceptionMessage(e));
-        return ResultCode.LOCAL_ERROR;
-      }
-      finally
-      {
-        if ((reader == null) && (inputStream != null))
-        {
-          try
-          {
-            inputStream.close();
-          }
-          catch (final Exception e)
-          {
-            Debug.debugException(e);
-          }
-        }
-      }
-
-      long startTime = 0L;
-      long stopTime  = 0L;
-
-      while (true)
-      {
-        final AccessLogMessage msg;
-        try
-        {
-          msg = reader.read();
-        }
-        catch (final IOException ioe)
-        {
-          Debug.debugException(ioe);
-          err("Error reading from access log file ", f.getAbsolutePath(),
-              ":  ", StaticUtils.getExceptionMessage(ioe));
-
-          if ((ioe.getCause() != null) &&
-               (ioe.getCause() instanceof BadPaddingException))
-          {
-            err("This error is likely because the log is encrypted and the " +
-                 "server still has the log file open.  It is recommended " +
-                 "that you only try to examine encrypted logs after they " +
-                 "have been rotated.  You can use the rotate-log tool to " +
-                 "force a rotation at any time.  Attempting to proceed with " +
-                 "just the data that was successfully read.");
-            break;
-          }
-          else
-          {
-            return ResultCode.LOCAL_ERROR;
-          }
-        }
-        catch (final LogException le)
-        {
-          Debug.debugException(le);
-          err("Encountered an error while attempting to parse a line in" +
-              "access log file ", f.getAbsolutePath(), ":  ",
-              StaticUtils.getExceptionMessage(le));
-          continue;
-        }
-
-        if (msg == null)
-        {
-          break;
-        }
-
-        logLines++;
-        stopTime = msg.getTimestamp().getTime();
-        if (startTime == 0L)
-        {
-          startTime = stopTime;
-        }
-
-        switch (msg.getMessageType())
-        {
-          case CONNECT:
-            processConnect((ConnectAccessLogMessage) msg);
-            break;
-          case DISCONNECT:
-            processDisconnect((DisconnectAccessLogMessage) msg);
-            break;
-          case REQUEST:
-            switch (((OperationAccessLogMessage) msg).getOperationType())
-            {
-              case ABANDON:
-                processAbandonRequest((AbandonRequestAccessLogMessage) msg);
-                break;
-              case EXTENDED:
-                processExtendedRequest((ExtendedRequestAccessLogMessage) msg);
-                break;
-              case SEARCH:
-                processSearchRequest((SearchRequestAccessLogMessage) msg);
-                break;
-              case UNBIND:
-                processUnbindRequest((UnbindRequestAccessLogMessage) msg);
-                break;
-            }
-            break;
-          case RESULT:
-            switch (((OperationAccessLogMessage) msg).getOperationType())
-            {
-              case ADD:
-                processAddResult((AddResultAccessLogMessage) msg);
-                break;
-              case BIND:
-                processBindResult((BindResultAccessLogMessage) msg);
-                break;
-              case COMPARE:
-                processCompareResult((CompareResultAccessLogMessage) msg);
-                break;
-              case DELETE:
-                processDeleteResult((DeleteResultAccessLogMessage) msg);
-                break;
-              case EXTENDED:
-                processExtendedResult((ExtendedResultAccessLogMessage) msg);
-                break;
-              case MODIFY:
-                processModifyResult((ModifyResultAccessLogMessage) msg);
-                break;
-              case MODDN:
-                processModifyDNResult((ModifyDNResultAccessLogMessage) msg);
-                break;
-              case SEARCH:
-                processSearchResult((SearchResultAccessLogMessage) msg);
-                break;
-            }
-            break;
-
-          case ASSURANCE_COMPLETE:
-          case CLIENT_CERTIFICATE:
-          case ENTRY_REBALANCING_REQUEST:
-          case ENTRY_REBALANCING_RESULT:
-          case FORWARD:
-          case FORWARD_FAILED:
-          case ENTRY:
-          case REFERENCE:
-          default:
-            // Nothing needs to be done for these message types.
-        }
-      }
+      processingResultCode = processFilesInParallel(encryptionPassphrase);
+    }
+    else
+    {
+      processingResultCode = processFilesSequentially(encryptionPassphrase);
+    }
 
-      try
-      {
-        reader.close();
-      }
-      catch (final Exception e)
-      {
-        Debug.debugException(e);
-      }
-      logDurationMillis += (stopTime - startTime);
+    if (processingResultCode != ResultCode.SUCCESS)
+    {
+      return processingResultCode;
     }
 
 
@@ -1258,6 +1165,589 @@ public final class SummarizeAccessLog
 
 
 
+  /**
+   * Examines each of the log files in turn using the current thread.
+   *
+   * @param  initialPassphrase  The passphrase to try first for any encrypted
+   *                            log files.  It may be {@code null} if the tool
+   *                            should prompt for the passphrase if needed.
+   *
+   * @return  A result code that indicates whether the processing completed
+   *          successfully.
+   */
+  private ResultCode processFilesSequentially(final String initialPassphrase)
+  {
+    String encryptionPassphrase = initialPassphrase;
+    for (final String path : argumentParser.getTrailingArguments())
+    {
+      final File f = new File(path);
+      out("Examining access log ", f.getAbsolutePath());
+      AccessLogReader reader = null;
+      InputStream inputStream = null;
+      try
+      {
+        inputStream = new FileInputStream(f);
+
+        final ObjectPair<InputStream,String> p =
+             ToolUtils.getPossiblyPassphraseEncryptedInputStream(inputStream,
+                  encryptionPassphrase,
+                  (! encryptionPassphraseFile.isPresent()),
+                  "Log file '" + path + "' is encrypted.  Please enter the " +
+                       "encryption passphrase:",
+                  "ERROR:  The provided passphrase was incorrect.",
+                  getOut(), getErr());
+        inputStream = p.getFirst();
+        if ((p.getSecond() != null) && (encryptionPassphrase == null))
+        {
+          encryptionPassphrase = p.getSecond();
+        }
+
+        if (isCompressed.isPresent())
+        {
+          inputStream = new GZIPInputStream(inputStream);
+        }
+        else
+        {
+          inputStream =
+               ToolUtils.getPossiblyGZIPCompressedInputStream(inputStream);
+        }
+
+        reader =
+             new AccessLogReader(new InputStreamReader(inputStream), true);
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+        err("Unable to open access log file ", f.getAbsolutePath(), ":  ",
+            StaticUtils.getExceptionMessage(e));
+        return ResultCode.LOCAL_ERROR;
+      }
+      finally
+      {
+        if ((reader == null) && (inputStream != null))
+        {
+          try
+          {
+            inputStream.close();
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+          }
+        }
+      }
+
+      long startTime = 0L;
+      long stopTime  = 0L;
+
+      while (true)
+      {
+        final AccessLogMessage msg;
+        try
+        {
+          msg = reader.read();
+        }
+        catch (final IOException ioe)
+        {
+          Debug.debugException(ioe);
+          err("Error reading from access log file ", f.getAbsolutePath(),
+              ":  ", StaticUtils.getExceptionMessage(ioe));
+
+          if ((ioe.getCause() != null) &&
+               (ioe.getCause() instanceof BadPaddingException))
+          {
+            err("This error is likely because the log is encrypted and the " +
+                 "server still has the log file open.  It is recommended " +
+                 "that you only try to examine encrypted logs after they " +
+                 "have been rotated.  You can use the rotate-log tool to " +
+                 "force a rotation at any time.  Attempting to proceed with " +
+                 "just the data that was successfully read.");
+            break;
+          }
+          else
+          {
+            return ResultCode.LOCAL_ERROR;
+          }
+        }
+        catch (final LogException le)
+        {
+          Debug.debugException(le);
+          err("Encountered an error while attempting to parse a line in" +
+              "access log file ", f.getAbsolutePath(), ":  ",
+              StaticUtils.getExceptionMessage(le));
+          continue;
+        }
+
+        if (msg == null)
+        {
+          break;
+        }
+
+        logLines++;
+        stopTime = msg.getTimestamp().getTime();
+        if (startTime == 0L)
+        {
+          startTime = stopTime;
+        }
+
+        processMessage(msg);
+      }
+
+      try
+      {
+        reader.close();
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+      }
+      logDurationMillis += (stopTime - startTime);
+    }
+
+    return ResultCode.SUCCESS;
+  }
+
+
+
+  /**
+   * Examines the log files using a pool of threads.  Each thread builds a
+   * partial summary for a log file, or for a range of lines in a large
+   * uncompressed, unencrypted log file, and the partial summaries are merged
+   * into this summary in the order in which they appear in the logs.
+   *
+   * @param  initialPassphrase  The passphrase to try first for any encrypted
+   *                            log files.  It may be {@code null} if the tool
+   *                            should prompt for the passphrase if needed.
+   *
+   * @return  A result code that indicates whether the processing completed
+   *          successfully.
+   */
+  private ResultCode processFilesInParallel(final String initialPassphrase)
+  {
+    final ExecutorService executor = Executors.newFixedThreadPool(
+         numThreads.getValue(),
+         new LDAPSDKThreadFactory("SummarizeAccessLog Worker", true, null));
+    try
+    {
+      // Determine whether each file is compressed or encrypted, prompting for
+      // the passphrase if necessary, and submit the tasks used to examine it.
+      // Any prompting needs to happen here, in file order, rather than in the
+      // worker threads.
+      String encryptionPassphrase = initialPassphrase;
+      final List<List<SummarizeAccessLogTask>> tasksByFile =
+           new ArrayList<>(argumentParser.getTrailingArguments().size());
+      final List<SummarizeAccessLogTask> allTasks = new ArrayList<>(100);
+      for (final String path : argumentParser.getTrailingArguments())
+      {
+        final File f = new File(path);
+        out("Examining access log ", f.getAbsolutePath());
+
+        final String filePassphrase;
+        final boolean canSplit;
+        InputStream inputStream = null;
+        try
+        {
+          inputStream = new FileInputStream(f);
+
+          final ObjectPair<InputStream,String> p =
+               ToolUtils.getPossiblyPassphraseEncryptedInputStream(
+                    inputStream, encryptionPassphrase,
+                    (! encryptionPassphraseFile.isPresent()),
+                    "Log file '" + path + "' is encrypted.  Please enter " +
+                         "the encryption passphrase:",
+                    "ERROR:  The provided passphrase was incorrect.",
+                    getOut(), getErr());
+          inputStream = p.getFirst();
+          filePassphrase = p.getSecond();
+          if ((filePassphrase != null) && (encryptionPassphrase == null))
+          {
+            encryptionPassphrase = filePassphrase;
+          }
+
+          if (isCompressed.isPresent() ||
+              (inputStream instanceof PassphraseEncryptedInputStream))
+          {
+            canSplit = false;
+          }
+          else
+          {
+            inputStream =
+                 ToolUtils.getPossiblyGZIPCompressedInputStream(inputStream);
+            canSplit = (! (inputStream instanceof GZIPInputStream));
+          }
+        }
+        catch (final Exception e)
+        {
+          Debug.debugException(e);
+          err("Unable to open access log file ", f.getAbsolutePath(), ":  ",
+              StaticUtils.getExceptionMessage(e));
+          return ResultCode.LOCAL_ERROR;
+        }
+        finally
+        {
+          if (inputStream != null)
+          {
+            try
+            {
+              inputStream.close();
+            }
+            catch (final Exception e)
+            {
+              Debug.debugException(e);
+            }
+          }
+        }
+
+        final List<SummarizeAccessLogTask> fileTasks = new ArrayList<>(10);
+        if (canSplit)
+        {
+          final long fileLength = f.length();
+          long startOffset = 0L;
+          do
+          {
+            final long endOffset =
+                 Math.min(fileLength, (startOffset + chunkSizeBytes));
+            fileTasks.add(
+                 new SummarizeAccessLogTask(this, f, startOffset, endOffset));
+            startOffset = endOffset;
+          }
+          while (startOffset < fileLength);
+        }
+        else
+        {
+          fileTasks.add(new SummarizeAccessLogTask(this, f, filePassphrase,
+               isCompressed.isPresent()));
+        }
+
+        tasksByFile.add(fileTasks);
+        allTasks.addAll(fileTasks);
+      }
+
+
+      // Wait for each of the tasks to complete and merge their results.  This
+      // is done in the same order that the tasks were created so that
+      // operations whose request and result messages were examined by
+      // different tasks can be properly matched up.  Only a limited number of
+      // tasks are submitted ahead of the one being merged so that the number
+      // of partial summaries held in memory remains bounded.
+      final int maxSubmittedTasks = 2 * numThreads.getValue();
+      final LinkedList<Future<ResultCode>> futures = new LinkedList<>();
+      final Iterator<SummarizeAccessLogTask> unsubmittedTasks =
+           allTasks.iterator();
+      while (unsubmittedTasks.hasNext() &&
+             (futures.size() < maxSubmittedTasks))
+      {
+        futures.add(executor.submit(unsubmittedTasks.next()));
+      }
+
+      for (final List<SummarizeAccessLogTask> fileTasks : tasksByFile)
+      {
+        long startTime = 0L;
+        long stopTime = 0L;
+        for (final SummarizeAccessLogTask task : fileTasks)
+        {
+          final ResultCode taskResultCode;
+          try
+          {
+            taskResultCode = futures.removeFirst().get();
+          }
+          catch (final Exception e)
+          {
+            Debug.debugException(e);
+            err("An error occurred while examining access log file ",
+                task.getFile().getAbsolutePath(), ":  ",
+                StaticUtils.getExceptionMessage(e));
+            return ResultCode.LOCAL_ERROR;
+          }
+
+          if (taskResultCode != ResultCode.SUCCESS)
+          {
+            return taskResultCode;
+          }
+
+          if (unsubmittedTasks.hasNext())
+          {
+            futures.add(executor.submit(unsubmittedTasks.next()));
+          }
+
+          mergeSummary(task.getSummary());
+          task.releaseSummary();
+          logLines += task.getLogLines();
+          if (task.getLogLines() > 0L)
+          {
+            if (startTime == 0L)
+            {
+              startTime = task.getStartTime();
+            }
+            stopTime = task.getStopTime();
+          }
+        }
+
+        logDurationMillis += (stopTime - startTime);
+      }
+
+      return ResultCode.SUCCESS;
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+
+
+  /**
+   * Specifies the maximum number of bytes of an uncompressed, unencrypted log
+   * file that will be examined by a single thread in parallel mode.  This is
+   * primarily intended for testing purposes.
+   *
+   * @param  chunkSizeBytes  The maximum number of bytes of an uncompressed,
+   *                         unencrypted log file that will be examined by a
+   *                         single thread in parallel mode.  It must be
+   *                         greater than zero.
+   */
+  void setChunkSizeBytes(final long chunkSizeBytes)
+  {
+    this.chunkSizeBytes = chunkSizeBytes;
+  }
+
+
+
+  /**
+   * Updates this summary with the information from the provided log message.
+   *
+   * @param  msg  The log message to be processed.
+   */
+  void processMessage(final AccessLogMessage msg)
+  {
+    switch (msg.getMessageType())
+    {
+      case CONNECT:
+        processConnect((ConnectAccessLogMessage) msg);
+        break;
+      case DISCONNECT:
+        processDisconnect((DisconnectAccessLogMessage) msg);
+        break;
+      case REQUEST:
+        switch (((OperationAccessLogMessage) msg).getOperationType())
+        {
+          case ABANDON:
+            processAbandonRequest((AbandonRequestAccessLogMessage) msg);
+            break;
+          case EXTENDED:
+            processExtendedRequest((ExtendedRequestAccessLogMessage) msg);
+            break;
+          case SEARCH:
+            processSearchRequest((SearchRequestAccessLogMessage) msg);
+            break;
+          case UNBIND:
+            processUnbindRequest((UnbindRequestAccessLogMessage) msg);
+            break;
+        }
+        break;
+      case RESULT:
+        switch (((OperationAccessLogMessage) msg).getOperationType())
+        {
+          case ADD:
+            processAddResult((AddResultAccessLogMessage) msg);
+            break;
+          case BIND:
+            processBindResult((BindResultAccessLogMessage) msg);
+            break;
+          case COMPARE:
+            processCompareResult((CompareResultAccessLogMessage) msg);
+            break;
+          case DELETE:
+            processDeleteResult((DeleteResultAccessLogMessage) msg);
+            break;
+          case EXTENDED:
+            processExtendedResult((ExtendedResultAccessLogMessage) msg);
+            break;
+          case MODIFY:
+            processModifyResult((ModifyResultAccessLogMessage) msg);
+            break;
+          case MODDN:
+            processModifyDNResult((ModifyDNResultAccessLogMessage) msg);
+            break;
+          case SEARCH:
+            processSearchResult((SearchResultAccessLogMessage) msg);
+            break;
+        }
+        break;
+
+      case ASSURANCE_COMPLETE:
+      case CLIENT_CERTIFICATE:
+      case ENTRY_REBALANCING_REQUEST:
+      case ENTRY_REBALANCING_RESULT:
+      case FORWARD:
+      case FORWARD_FAILED:
+      case ENTRY:
+      case REFERENCE:
+      default:
+        // Nothing needs to be done for these message types.
+    }
+  }
+
+
+
+  /**
+   * Merges the information from the provided partial summary into this
+   * summary.  Partial summaries must be merged in the order in which their
+   * log data appears so that request and result messages for the same
+   * operation that were examined by different partial summaries can be
+   * matched up.
+   *
+   * @param  s  The partial summary to merge into this summary.
+   */
+  void mergeSummary(final SummarizeAccessLog s)
+  {
+    // If the provided summary examined a result message for an operation whose
+    // request message was examined by an earlier summary, then the request
+    // information has been counted twice, so back out one of them.
+    if (s.unmatchedResults != null)
+    {
+      for (final String id : s.unmatchedResults)
+      {
+        final OperationRequestAccessLogMessage m =
+             processedRequests.remove(id);
+        if (m instanceof SearchRequestAccessLogMessage)
+        {
+          processSearchRequestInternal((SearchRequestAccessLogMessage) m, -1L);
+        }
+        else if (m instanceof ExtendedRequestAccessLogMessage)
+        {
+          processExtendedRequestInternal((ExtendedRequestAccessLogMessage) m,
+               -1L);
+        }
+      }
+    }
+    processedRequests.putAll(s.processedRequests);
+
+    addProcessingDuration      += s.addProcessingDuration;
+    bindProcessingDuration     += s.bindProcessingDuration;
+    compareProcessingDuration  += s.compareProcessingDuration;
+    deleteProcessingDuration   += s.deleteProcessingDuration;
+    extendedProcessingDuration += s.extendedProcessingDuration;
+    modifyProcessingDuration   += s.modifyProcessingDuration;
+    modifyDNProcessingDuration += s.modifyDNProcessingDuration;
+    searchProcessingDuration   += s.searchProcessingDuration;
+
+    numAbandons        += s.numAbandons;
+    numAdds            += s.numAdds;
+    numBinds           += s.numBinds;
+    numCompares        += s.numCompares;
+    numConnects        += s.numConnects;
+    numDeletes         += s.numDeletes;
+    numDisconnects     += s.numDisconnects;
+    numExtended        += s.numExtended;
+    numModifies        += s.numModifies;
+    numModifyDNs       += s.numModifyDNs;
+    numNonBaseSearches += s.numNonBaseSearches;
+    numSearches        += s.numSearches;
+    numUnbinds         += s.numUnbinds;
+
+    numUncachedAdds      += s.numUncachedAdds;
+    numUncachedBinds     += s.numUncachedBinds;
+    numUncachedCompares  += s.numUncachedCompares;
+    numUncachedDeletes   += s.numUncachedDeletes;
+    numUncachedExtended  += s.numUncachedExtended;
+    numUncachedModifies  += s.numUncachedModifies;
+    numUncachedModifyDNs += s.numUncachedModifyDNs;
+    numUncachedSearches  += s.numUncachedSearches;
+
+    numUnindexedAttempts   += s.numUnindexedAttempts;
+    numUnindexedFailed     += s.numUnindexedFailed;
+    numUnindexedSuccessful += s.numUnindexedSuccessful;
+
+    mergeCounts(searchEntryCounts, s.searchEntryCounts);
+    mergeCounts(addResultCodes, s.addResultCodes);
+    mergeCounts(bindResultCodes, s.bindResultCodes);
+    mergeCounts(compareResultCodes, s.compareResultCodes);
+    mergeCounts(deleteResultCodes, s.deleteResultCodes);
+    mergeCounts(extendedResultCodes, s.extendedResultCodes);
+    mergeCounts(modifyResultCodes, s.modifyResultCodes);
+    mergeCounts(modifyDNResultCodes, s.modifyDNResultCodes);
+    mergeCounts(searchResultCodes, s.searchResultCodes);
+    mergeCounts(searchScopes, s.searchScopes);
+    mergeCounts(clientAddresses, s.clientAddresses);
+    mergeCounts(clientConnectionPolicies, s.clientConnectionPolicies);
+    mergeCounts(disconnectReasons, s.disconnectReasons);
+    mergeCounts(extendedOperations, s.extendedOperations);
+    mergeCounts(filterTypes, s.filterTypes);
+    mergeCounts(addProcessingTimes, s.addProcessingTimes);
+    mergeCounts(bindProcessingTimes, s.bindProcessingTimes);
+    mergeCounts(compareProcessingTimes, s.compareProcessingTimes);
+    mergeCounts(deleteProcessingTimes, s.deleteProcessingTimes);
+    mergeCounts(extendedProcessingTimes, s.extendedProcessingTimes);
+    mergeCounts(modifyProcessingTimes, s.modifyProcessingTimes);
+    mergeCounts(modifyDNProcessingTimes, s.modifyDNProcessingTimes);
+    mergeCounts(searchProcessingTimes, s.searchProcessingTimes);
+  }
+
+
+
+  /**
+   * Adds the counts from the provided source map to the counts for the same
+   * keys in the given target map.
+   *
+   * @param  <K>     The type of object used as the key for the maps.
+   * @param  target  The map to be updated.
+   * @param  source  The map containing the counts to add.
+   */
+  private static <K> void mergeCounts(final Map<K,AtomicLong> target,
+                                      final Map<K,AtomicLong> source)
+  {
+    for (final Map.Entry<K,AtomicLong> e : source.entrySet())
+    {
+      updateCount(target, e.getKey(), e.getValue().get());
+    }
+  }
+
+
+
+  /**
+   * Adjusts the count for the specified key in the provided map.  If a negative
+   * adjustment causes the count to drop to zero, then the key will be removed
+   * from the map.
+   *
+   * @param  <K>    The type of object used as the key for the map.
+   * @param  m      The map to be updated.
+   * @param  key    The key for which to adjust the count.
+   * @param  delta  The amount by which to adjust the count.
+   */
+  private static <K> void updateCount(final Map<K,AtomicLong> m, final K key,
+                                      final long delta)
+  {
+    AtomicLong l = m.get(key);
+    if (l == null)
+    {
+      l = new AtomicLong(0L);
+      m.put(key, l);
+    }
+
+    if ((l.addAndGet(delta) <= 0L) && (delta < 0L))
+    {
+      m.remove(key);
+    }
+  }
+
+
+
+  /**
+   * Creates a new instance of this tool that may be used to hold a partial
+   * summary for a subset of the log data.  The partial summary can later be
+   * merged into the summary for the complete log data using the
+   * {@link #mergeSummary} method.
+   *
+   * @return  The new instance that may be used to hold a partial summary.
+   */
+  static SummarizeAccessLog createPartialSummary()
+  {
+    return new SummarizeAccessLog(null, null, true);
+  }
+
+
+
   /**
    * Retrieves a set of information that may be used to generate example usage
    * information.  Each element in the returned map should consist of a map
@@ -1389,8 +1879,8 @@ public final class SummarizeAccessLog
    */
   private void processExtendedRequest(final ExtendedRequestAccessLogMessage m)
   {
-    processedRequests.add(m.getConnectionID() + "-" + m.getOperationID());
-    processExtendedRequestInternal(m);
+    processedRequests.put(m.getConnectionID() + "-" + m.getOperationID(), m);
+    processExtendedRequestInternal(m, 1L);
   }
 
 
@@ -1398,21 +1888,18 @@ public final class SummarizeAccessLog
   /**
    * Performs the internal processing for an extended request message.
    *
-   * @param  m  The log message to be processed.
+   * @param  m      The log message to be processed.
+   * @param  delta  The amount by which to adjust the counts for the request.
+   *                This will be negative when backing out a request that was
+   *                counted twice.
    */
   private void processExtendedRequestInternal(
-                    final ExtendedRequestAccessLogMessage m)
+                    final ExtendedRequestAccessLogMessage m, final long delta)
   {
     final String oid = m.getRequestOID();
     if (oid != null)
     {
-      AtomicLong l = extendedOperations.get(oid);
-      if (l == null)
-      {
-        l  = new AtomicLong(0L);
-        extendedOperations.put(oid, l);
-      }
-      l.incrementAndGet();
+      updateCount(extendedOperations, oid, delta);
     }
   }
 
@@ -1425,8 +1912,8 @@ public final class SummarizeAccessLog
    */
   private void processSearchRequest(final SearchRequestAccessLogMessage m)
   {
-    processedRequests.add(m.getConnectionID() + "-" + m.getOperationID());
-    processSearchRequestInternal(m);
+    processedRequests.put(m.getConnectionID() + "-" + m.getOperationID(), m);
+    processSearchRequestInternal(m, 1L);
   }
 
 
@@ -1434,26 +1921,23 @@ public final class SummarizeAccessLog
   /**
    * Performs any necessary processing for a search request message.
    *
-   * @param  m  The log message to be processed.
+   * @param  m      The log message to be processed.
+   * @param  delta  The amount by which to adjust the counts for the request.
+   *                This will be negative when backing out a request that was
+   *                counted twice.
    */
   private void processSearchRequestInternal(
-                    final SearchRequestAccessLogMessage m)
+                    final SearchRequestAccessLogMessage m, final long delta)
   {
     final SearchScope scope = m.getScope();
     if (scope != null)
     {
       if (scope != SearchScope.BASE)
       {
-        numNonBaseSearches++;
+        numNonBaseSearches += delta;
       }
 
-      AtomicLong scopeCount = searchScopes.get(scope);
-      if (scopeCount == null)
-      {
-        scopeCount = new AtomicLong(0L);
-        searchScopes.put(scope, scopeCount);
-      }
-      scopeCount.incrementAndGet();
+      updateCount(searchScopes, scope, delta);
 
       if (! scope.equals(SearchScope.BASE))
       {
@@ -1461,13 +1945,7 @@ public final class SummarizeAccessLog
         if (filter != null)
         {
           final String genericString = new GenericFilter(filter).toString();
-          AtomicLong filterCount = filterTypes.get(genericString);
-          if (filterCount == null)
-          {
-            filterCount = new AtomicLong(0L);
-            filterTypes.put(genericString, filterCount);
-          }
-          filterCount.incrementAndGet();
+          updateCount(filterTypes, genericString, delta);
         }
       }
     }
@@ -1597,9 +2075,13 @@ public final class SummarizeAccessLog
     numExtended++;
 
     final String id = m.getConnectionID() + "-" + m.getOperationID();
-    if (!processedRequests.remove(id))
+    if (processedRequests.remove(id) == null)
     {
-      processExtendedRequestInternal(m);
+      processExtendedRequestInternal(m, 1L);
+      if (unmatchedResults != null)
+      {
+        unmatchedResults.add(id);
+      }
     }
 
     updateResultCodeCount(m.getResultCode(), extendedResultCodes);
@@ -1681,9 +2163,13 @@ public final class SummarizeAccessLog
     numSearches++;
 
     final String id = m.getConnectionID() + "-" + m.getOperationID();
-    if (!processedRequests.remove(id))
+    if (processedRequests.remove(id) == null)
     {
-      processSearchRequestInternal(m);
+      processSearchRequestInternal(m, 1L);
+      if (unmatchedResults != null)
+      {
+        unmatchedResults.add(id);
+      }
     }
 
     final ResultCode resultCode = m.getResultCode();
@@ -0,0 +1,587 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk.unboundidds.examples;
+
+
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPInputStream;
+import javax.crypto.BadPaddingException;
+
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.unboundidds.logs.AccessLogMessage;
+import com.unboundid.ldap.sdk.unboundidds.logs.AccessLogReader;
+import com.unboundid.ldap.sdk.unboundidds.logs.LogException;
+import com.unboundid.ldap.sdk.unboundidds.tools.ToolUtils;
+import com.unboundid.util.ByteStringBuffer;
+import com.unboundid.util.Debug;
+import com.unboundid.util.StaticUtils;
+import com.unboundid.util.ThreadSafety;
+import com.unboundid.util.ThreadSafetyLevel;
+
+
+
+/**
+ * This class provides a task that may be used by the summarize-access-log tool
+ * to build a partial summary for all or part of an access log file in a
+ * separate thread.  A task may either examine a complete log file (which may
+ * be compressed and/or encrypted), or a range of bytes in an uncompressed,
+ * unencrypted log file.  In the latter case, the task will examine every line
+ * that starts within that range, even if the end of the line falls outside of
+ * it.
+ * <BR>
+ * <BLOCKQUOTE>
+ *   <B>NOTE:</B>  This class, and other classes within the
+ *   {@code com.unboundid.ldap.sdk.unboundidds} package structure, are only
+ *   supported for use against Ping Identity, UnboundID, and
+ *   Nokia/Alcatel-Lucent 8661 server products.  These classes provide support
+ *   for proprietary functionality or for external specifications that are not
+ *   considered stable or mature enough to be guaranteed to work in an
+ *   interoperable way with other types of LDAP servers.
+ * </BLOCKQUOTE>
+ */
+@ThreadSafety(level=ThreadSafetyLevel.NOT_THREADSAFE)
+final class SummarizeAccessLogTask
+       implements Callable<ResultCode>, Serializable
+{
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = -2875293200062377941L;
+
+
+
+  /**
+   * The size of the buffer used when reading a range of a log file.
+   */
+  private static final int BUFFER_SIZE = 65536;
+
+
+
+  // Indicates whether the log file should be treated as GZIP-compressed even if
+  // it does not appear to be.
+  private final boolean isCompressed;
+
+  // The log file to examine.
+  private final File file;
+
+  // The offset of the first byte of the range to examine, or -1 if the
+  // complete file should be examined.
+  private final long startOffset;
+
+  // The offset immediately after the last byte of the range to examine, or -1
+  // if the complete file should be examined.
+  private final long endOffset;
+
+  // The number of log messages examined.
+  private long logLines;
+
+  // The timestamp of the first log message examined.
+  private long startTime;
+
+  // The timestamp of the last log message examined.
+  private long stopTime;
+
+  // The partial summary to update with the messages examined by this task.  It
+  // will be created when the task is run.
+  private SummarizeAccessLog summary;
+
+  // The tool to use to report errors.
+  private final SummarizeAccessLog tool;
+
+  // The passphrase to use if the log file is encrypted.
+  private final String encryptionPassphrase;
+
+
+
+  /**
+   * Creates a new task that will examine the complete contents of the
+   * specified log file.
+   *
+   * @param  tool                  The tool to use to report errors.
+   * @param  file                  The log file to examine.
+   * @param  encryptionPassphrase  The passphrase to use to decrypt the log
+   *                               file.  It must be {@code null} if the file is
+   *                               not encrypted.
+   * @param  isCompressed          Indicates whether the log file should be
+   *                               treated as GZIP-compressed even if it does
+   *                               not appear to be.
+   */
+  SummarizeAccessLogTask(final SummarizeAccessLog tool, final File file,
+                         final String encryptionPassphrase,
+                         final boolean isCompressed)
+  {
+    this.tool = tool;
+    this.file = file;
+    this.encryptionPassphrase = encryptionPassphrase;
+    this.isCompressed = isCompressed;
+
+    summary = null;
+    startOffset = -1L;
+    endOffset = -1L;
+    logLines = 0L;
+    startTime = 0L;
+    stopTime = 0L;
+  }
+
+
+
+  /**
+   * Creates a new task that will examine the lines that start within the
+   * specified range of an uncompressed, unencrypted log file.
+   *
+   * @param  tool         The tool to use to report errors.
+   * @param  file         The log file to examine.
+   * @param  startOffset  The offset of the first byte of the range to
+   *                      examine.
+   * @param  endOffset    The offset immediately after the last byte of the
+   *                      range to examine.
+   */
+  SummarizeAccessLogTask(final SummarizeAccessLog tool, final File file,
+                         final long startOffset, final long endOffset)
+  {
+    this.tool = tool;
+    this.file = file;
+    this.startOffset = startOffset;
+    this.endOffset = endOffset;
+
+    summary = null;
+    encryptionPassphrase = null;
+    isCompressed = false;
+    logLines = 0L;
+    startTime = 0L;
+    stopTime = 0L;
+  }
+
+
+
+  /**
+   * Examines the log data assigned to this task.
+   *
+   * @return  A result code that indicates whether the processing completed
+   *          successfully.
+   */
+  @Override()
+  public ResultCode call()
+  {
+    summary = SummarizeAccessLog.createPartialSummary();
+    if (startOffset < 0L)
+    {
+      return examineFile();
+    }
+    else
+    {
+      return examineRange();
+    }
+  }
+
+
+
+  /**
+   * Examines the complete contents of the log file.
+   *
+   * @return  A result code that indicates whether the processing completed
+   *          successfully.
+   */
+  private ResultCode examineFile()
+  {
+    AccessLogReader reader = null;
+    InputStream inputStream = null;
+    try
+    {
+      inputStream = new FileInputStream(file);
+
+      if (encryptionPassphrase != null)
+      {
+        inputStream = ToolUtils.getPossiblyPassphraseEncryptedInputStream(
+             inputStream, encryptionPassphrase, false,
+             "Log file '" + file.getPath() + "' is encrypted.  Please enter " +
+                  "the encryption passphrase:",
+             "ERROR:  The provided passphrase was incorrect.",
+             tool.getOut(), tool.getErr()).getFirst();
+      }
+
+      if (isCompressed)
+      {
+        inputStream = new GZIPInputStream(inputStream);
+      }
+      else
+      {
+        inputStream =
+             ToolUtils.getPossiblyGZIPCompressedInputStream(inputStream);
+      }
+
+      reader =
+           new AccessLogReader(new InputStreamReader(inputStream), true);
+    }
+    catch (final Exception e)
+    {
+      Debug.debugException(e);
+      tool.err("Unable to open access log file ", file.getAbsolutePath(),
+           ":  ", StaticUtils.getExceptionMessage(e));
+      return ResultCode.LOCAL_ERROR;
+    }
+    finally
+    {
+      if ((reader == null) && (inputStream != null))
+      {
+        try
+        {
+          inputStream.close();
+        }
+        catch (final Exception e)
+        {
+          Debug.debugException(e);
+        }
+      }
+    }
+
+    try
+    {
+      while (true)
+      {
+        final AccessLogMessage msg;
+        try
+        {
+          msg = reader.read();
+        }
+        catch (final IOException ioe)
+        {
+          Debug.debugException(ioe);
+          tool.err("Error reading from access log file ",
+               file.getAbsolutePath(), ":  ",
+               StaticUtils.getExceptionMessage(ioe));
+
+          if ((ioe.getCause() != null) &&
+               (ioe.getCause() instanceof BadPaddingException))
+          {
+            tool.err("This error is likely because the log is encrypted and " +
+                 "the server still has the log file open.  It is " +
+                 "recommended that you only try to examine encrypted logs " +
+                 "after they have been rotated.  You can use the rotate-log " +
+                 "tool to force a rotation at any time.  Attempting to " +
+                 "proceed with just the data that was successfully read.");
+            break;
+          }
+          else
+          {
+            return ResultCode.LOCAL_ERROR;
+          }
+        }
+        catch (final LogException le)
+        {
+          Debug.debugException(le);
+          reportParseError(le);
+          continue;
+        }
+
+        if (msg == null)
+        {
+          break;
+        }
+
+        processMessage(msg);
+      }
+    }
+    finally
+    {
+      try
+      {
+        reader.close();
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+      }
+    }
+
+    return ResultCode.SUCCESS;
+  }
+
+
+
+  /**
+   * Examines the lines that start within the range of the log file assigned to
+   * this task.  If the range does not start at the beginning of the file, then
+   * the partial line at the start of the range will be skipped because it will
+   * be examined by the task for the preceding range.
+   *
+   * @return  A result code that indicates whether the processing completed
+   *          successfully.
+   */
+  private ResultCode examineRange()
+  {
+    FileInputStream inputStream = null;
+    try
+    {
+      inputStream = new FileInputStream(file);
+
+      // If the range doesn't start at the beginning of the file, then start
+      // reading at the byte immediately before it, so that the first line
+      // (which will be skipped) ends with that byte if it is a line break.
+      long pos;
+      boolean skipPartialLine;
+      if (startOffset > 0L)
+      {
+        pos = startOffset - 1L;
+        inputStream.getChannel().position(pos);
+        skipPartialLine = true;
+      }
+      else
+      {
+        pos = 0L;
+        skipPartialLine = false;
+      }
+
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      final ByteStringBuffer lineBuffer = new ByteStringBuffer();
+      int bufferPos = 0;
+      int bufferLimit = 0;
+      while (true)
+      {
+        if (bufferPos >= bufferLimit)
+        {
+          bufferPos = 0;
+          bufferLimit = inputStream.read(buffer);
+          if (bufferLimit < 0)
+          {
+            if ((! skipPartialLine) && (lineBuffer.length() > 0))
+            {
+              processLine(lineBuffer);
+            }
+            break;
+          }
+        }
+
+        int lineBreakPos = -1;
+        for (int i=bufferPos; i < bufferLimit; i++)
+        {
+          if (buffer[i] == '\n')
+          {
+            lineBreakPos = i;
+            break;
+          }
+        }
+
+        if (lineBreakPos < 0)
+        {
+          if (! skipPartialLine)
+          {
+            lineBuffer.append(buffer, bufferPos, (bufferLimit - bufferPos));
+          }
+          pos += (bufferLimit - bufferPos);
+          bufferPos = bufferLimit;
+          continue;
+        }
+
+        if (skipPartialLine)
+        {
+          skipPartialLine = false;
+        }
+        else
+        {
+          lineBuffer.append(buffer, bufferPos, (lineBreakPos - bufferPos));
+          processLine(lineBuffer);
+          lineBuffer.clear();
+        }
+
+        pos += (lineBreakPos - bufferPos + 1);
+        bufferPos = lineBreakPos + 1;
+        if (pos >= endOffset)
+        {
+          // The next line starts outside of the range, so it will be examined
+          // by another task.
+          break;
+        }
+      }
+    }
+    catch (final IOException ioe)
+    {
+      Debug.debugException(ioe);
+      tool.err("Error reading from access log file ", file.getAbsolutePath(),
+           ":  ", StaticUtils.getExceptionMessage(ioe));
+      return ResultCode.LOCAL_ERROR;
+    }
+    finally
+    {
+      if (inputStream != null)
+      {
+        try
+        {
+          inputStream.close();
+        }
+        catch (final Exception e)
+        {
+          Debug.debugException(e);
+        }
+      }
+    }
+
+    return ResultCode.SUCCESS;
+  }
+
+
+
+  /**
+   * Parses the provided line as an access log message and updates the summary
+   * with it.  Empty lines and comments will be ignored, as will any trailing
+   * carriage return.
+   *
+   * @param  lineBuffer  The buffer containing the line to process.
+   */
+  private void processLine(final ByteStringBuffer lineBuffer)
+  {
+    int length = lineBuffer.length();
+    if ((length > 0) && (lineBuffer.getBackingArray()[length-1] == '\r'))
+    {
+      length--;
+      lineBuffer.setLength(length);
+    }
+
+    if ((length == 0) || (lineBuffer.getBackingArray()[0] == '#'))
+    {
+      return;
+    }
+
+    try
+    {
+      processMessage(AccessLogReader.parse(lineBuffer.toString(), true));
+    }
+    catch (final LogException le)
+    {
+      Debug.debugException(le);
+      reportParseError(le);
+    }
+  }
+
+
+
+  /**
+   * Updates the summary with the provided log message.
+   *
+   * @param  msg  The log message to process.
+   */
+  private void processMessage(final AccessLogMessage msg)
+  {
+    logLines++;
+    stopTime = msg.getTimestamp().getTime();
+    if (startTime == 0L)
+    {
+      startTime = stopTime;
+    }
+
+    summary.processMessage(msg);
+  }
+
+
+
+  /**
+   * Reports an error that occurred while parsing a log message.
+   *
+   * @param  le  The exception caught while parsing the message.
+   */
+  private void reportParseError(final LogException le)
+  {
+    tool.err("Encountered an error while attempting to parse a line in " +
+         "access log file ", file.getAbsolutePath(), ":  ",
+         StaticUtils.getExceptionMessage(le));
+  }
+
+
+
+  /**
+   * Retrieves the log file examined by this task.
+   *
+   * @return  The log file examined by this task.
+   */
+  File getFile()
+  {
+    return file;
+  }
+
+
+
+  /**
+   * Retrieves the partial summary updated by this task.
+   *
+   * @return  The partial summary updated by this task, or {@code null} if the
+   *          task has not been run or the summary has been released.
+   */
+  SummarizeAccessLog getSummary()
+  {
+    return summary;
+  }
+
+
+
+  /**
+   * Releases this task's reference to its partial summary so that the memory
+   * it uses can be reclaimed once it has been merged.
+   */
+  void releaseSummary()
+  {
+    summary = null;
+  }
+
+
+
+  /**
+   * Retrieves the number of log messages examined by this task.
+   *
+   * @return  The number of log messages examined by this task.
+   */
+  long getLogLines()
+  {
+    return logLines;
+  }
+
+
+
+  /**
+   * Retrieves the timestamp of the first log message examined by this task.
+   *
+   * @return  The timestamp of the first log message examined by this task, or
+   *          zero if no messages were examined.
+   */
+  long getStartTime()
+  {
+    return startTime;
+  }
+
+
+
+  /**
+   * Retrieves the timestamp of the last log message examined by this task.
+   *
+   * @return  The timestamp of the last log message examined by this task, or
+   *          zero if no messages were examined.
+   */
+  long getStopTime()
+  {
+    return stopTime;
+  }
+}
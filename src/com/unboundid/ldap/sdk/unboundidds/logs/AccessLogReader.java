@@ -56,6 +56,9 @@ import static com.unboundid.ldap.sdk.unboundidds.logs.LogMessages.*;
 public final class AccessLogReader
        implements Closeable
 {
+  // Indicates whether log messages should be decoded lazily.
+  private final boolean decodeLazily;
+
   // The reader used to read the contents of the log file.
   private final BufferedReader reader;
 
@@ -74,6 +77,7 @@ public final class AccessLogReader
          throws IOException
   {
     reader = new BufferedReader(new FileReader(path));
+    decodeLazily = false;
   }
 
 
@@ -91,6 +95,7 @@ public final class AccessLogReader
          throws IOException
   {
     reader = new BufferedReader(new FileReader(file));
+    decodeLazily = false;
   }
 
 
@@ -103,6 +108,28 @@ public final class AccessLogReader
    */
   public AccessLogReader(final Reader reader)
   {
+    this(reader, false);
+  }
+
+
+
+  /**
+   * Creates a new access log reader that will read messages using the provided
+   * {@code Reader} object, optionally decoding the fields of each message
+   * lazily.  If messages are decoded lazily, then each message will only
+   * record the positions of the fields in the log line when it is read, and
+   * the value of each field will only be decoded the first time that it is
+   * requested.  This can considerably reduce the cost of reading log messages
+   * when only a few of their fields are needed.
+   *
+   * @param  reader        The reader to use to read log messages.
+   * @param  decodeLazily  Indicates whether the fields of each log message
+   *                       should be decoded lazily.
+   */
+  public AccessLogReader(final Reader reader, final boolean decodeLazily)
+  {
+    this.decodeLazily = decodeLazily;
+
     if (reader instanceof BufferedReader)
     {
       this.reader = (BufferedReader) reader;
@@ -143,7 +170,7 @@ public final class AccessLogReader
         continue;
       }
 
-      return parse(line);
+      return parse(line, decodeLazily);
     }
   }
 
@@ -162,7 +189,32 @@ public final class AccessLogReader
   public static AccessLogMessage parse(final String s)
          throws LogException
   {
-    final LogMessage m = new LogMessage(s);
+    return parse(s, false);
+  }
+
+
+
+  /**
+   * Parses the provided string as an access log message, optionally decoding
+   * the fields of the message lazily.  If the message is decoded lazily, then
+   * it will only record the positions of the fields in the provided string,
+   * and the value of each field will only be decoded the first time that it is
+   * requested.
+   *
+   * @param  s             The string to parse as an access log message.
+   * @param  decodeLazily  Indicates whether the fields of the log message
+   *                       should be decoded lazily.
+   *
+   * @return  The parsed access log message.
+   *
+   * @throws  LogException  If an error occurs while trying to parse the log
+   *                        message.
+   */
+  public static AccessLogMessage parse(final String s,
+                                       final boolean decodeLazily)
+         throws LogException
+  {
+    final LogMessage m = new LogMessage(s, decodeLazily);
     if (m.hasUnnamedValue(AccessLogMessageType.CONNECT.getLogIdentifier()))
     {
       return new ConnectAccessLogMessage(m);
@@ -24,6 +24,7 @@ package com.unboundid.ldap.sdk.unboundidds.logs;
 
 import java.io.Serializable;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedHashMap;
@@ -46,6 +47,12 @@ import static com.unboundid.ldap.sdk.unboundidds.logs.LogMessages.*;
 /**
  * This class provides a data structure that holds information about a log
  * message contained in a Directory Server access or error log file.
+ * <BR><BR>
+ * A log message may optionally be decoded lazily.  In that case, the message
+ * will only record the positions of the tokens in the message string when it is
+ * created, and the value of each named token will only be decoded the first
+ * time that it is requested.  This can considerably reduce the cost of
+ * processing log messages when only a few of their fields are needed.
  * <BR>
  * <BLOCKQUOTE>
  *   <B>NOTE:</B>  This class, and other classes within the
@@ -97,6 +104,83 @@ public class LogMessage
 
 
 
+  /**
+   * The lowercase three-letter abbreviations for the names of the months, in
+   * the order in which they occur in the year.
+   */
+  private static final String[] MONTH_ABBREVIATIONS =
+  {
+    "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct",
+    "nov", "dec"
+  };
+
+
+
+  /**
+   * The offset within a token table entry of the position of the first
+   * character of the token.
+   */
+  private static final int TOKEN_START = 0;
+
+
+
+  /**
+   * The offset within a token table entry of the position of the equal sign
+   * that separates the name and value of a named token, or -1 for an unnamed
+   * token.
+   */
+  private static final int TOKEN_EQUAL_POS = 1;
+
+
+
+  /**
+   * The offset within a token table entry of the position immediately after
+   * the last character of the token.
+   */
+  private static final int TOKEN_END = 2;
+
+
+
+  /**
+   * The offset within a token table entry of the hash code of the name of a
+   * named token, or of the complete text of an unnamed token.  It is computed
+   * in the same way as {@code String.hashCode}.
+   */
+  private static final int TOKEN_HASH = 3;
+
+
+
+  /**
+   * The offset within a token table entry of the flags that indicate whether
+   * the token requires any special processing.
+   */
+  private static final int TOKEN_FLAGS = 4;
+
+
+
+  /**
+   * The number of elements used for each token in a token table.
+   */
+  private static final int TOKEN_TABLE_ENTRY_SIZE = 5;
+
+
+
+  /**
+   * The token flag that indicates that the token contains at least one
+   * quotation mark.
+   */
+  private static final int TOKEN_FLAG_QUOTED = 0x01;
+
+
+
+  /**
+   * The token flag that indicates that the value of a named token contains at
+   * least one escaped or non-ASCII character.
+   */
+  private static final int TOKEN_FLAG_NEEDS_DECODING = 0x02;
+
+
+
   /**
    * The serial version UID for this serializable class.
    */
@@ -107,11 +191,25 @@ public class LogMessage
   // The timestamp for this log message.
   private final Date timestamp;
 
-  // The map of named fields contained in this log message.
-  private final Map<String,String> namedValues;
+  // The positions of the tokens in the message string, in groups of
+  // TOKEN_TABLE_ENTRY_SIZE elements per token, if the message is decoded
+  // lazily.  It will be null if all tokens were decoded when the message was
+  // created.
+  private final int[] tokenTable;
+
+  // The decoded values for the tokens in the token table, in the order in which
+  // the tokens appear in the message.  Elements will be null until the
+  // corresponding value has been decoded.  It will be null if all tokens were
+  // decoded when the message was created.
+  private final String[] decodedValues;
+
+  // The map of named fields contained in this log message.  If the message is
+  // decoded lazily, then this will be null until it is first requested.
+  private volatile Map<String,String> namedValues;
 
-  // The set of unnamed values contained in this log message.
-  private final Set<String> unnamedValues;
+  // The set of unnamed values contained in this log message.  If the message is
+  // decoded lazily, then this will be null until it is first requested.
+  private volatile Set<String> unnamedValues;
 
   // The string representation of this log message.
   private final String messageString;
@@ -129,6 +227,8 @@ public class LogMessage
     unnamedValues = m.unnamedValues;
     namedValues   = m.namedValues;
     messageString = m.messageString;
+    tokenTable    = m.tokenTable;
+    decodedValues = m.decodedValues;
   }
 
 
@@ -143,6 +243,28 @@ public class LogMessage
    */
   protected LogMessage(final String s)
             throws LogException
+  {
+    this(s, false);
+  }
+
+
+
+  /**
+   * Parses the provided string as a log message, optionally deferring the
+   * decoding of the tokens it contains until they are requested.  Even if the
+   * tokens are to be decoded lazily, the message will be checked for invalid
+   * escaped characters when it is created, so that any problem will be
+   * reported in the same way as if the tokens were decoded immediately.
+   *
+   * @param  s             The string to be parsed as a log message.
+   * @param  decodeLazily  Indicates whether to defer the decoding of the tokens
+   *                       in the message until they are requested.
+   *
+   * @throws  LogException  If the provided string cannot be parsed as a valid
+   *                        log message.
+   */
+  protected LogMessage(final String s, final boolean decodeLazily)
+            throws LogException
   {
     messageString = s;
 
@@ -155,53 +277,339 @@ public class LogMessage
       throw new LogException(s, ERR_LOG_MESSAGE_NO_TIMESTAMP.get());
     }
 
-    final String timestampString = s.substring(0, bracketPos+1);
+    // Timestamps written by the server can almost always be decoded directly
+    // from the characters of the message.  Only fall back to a date formatter
+    // for timestamps that don't have the expected form, so that they will be
+    // handled (and rejected) in exactly the same way as before.
+    final long timestampMillis = parseTimestamp(s, bracketPos);
+    if (timestampMillis >= 0L)
+    {
+      timestamp = new Date(timestampMillis);
+    }
+    else
+    {
+      final String timestampString = s.substring(0, bracketPos+1);
+
+      SimpleDateFormat f;
+      if (timestampIncludesMilliseconds(timestampString))
+      {
+        f = dateMsFormat.get();
+        if (f == null)
+        {
+          f = new SimpleDateFormat(TIMESTAMP_MS_FORMAT);
+          f.setLenient(false);
+          dateMsFormat.set(f);
+        }
+      }
+      else
+      {
+        f = dateSecFormat.get();
+        if (f == null)
+        {
+          f = new SimpleDateFormat(TIMESTAMP_SEC_FORMAT);
+          f.setLenient(false);
+          dateSecFormat.set(f);
+        }
+      }
+
+      try
+      {
+        timestamp = f.parse(timestampString);
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+        throw new LogException(s,
+             ERR_LOG_MESSAGE_INVALID_TIMESTAMP.get(
+                  StaticUtils.getExceptionMessage(e)),
+             e);
+      }
+    }
+
 
-    SimpleDateFormat f;
-    if (timestampIncludesMilliseconds(timestampString))
+    // The remainder of the message should consist of named and unnamed values.
+    if (decodeLazily)
     {
-      f = dateMsFormat.get();
-      if (f == null)
+      tokenTable = tokenize(s, bracketPos+1);
+      decodedValues = new String[tokenTable.length / TOKEN_TABLE_ENTRY_SIZE];
+      namedValues = null;
+      unnamedValues = null;
+
+      // Decode any values that contain escaped characters now, both so that
+      // invalid escapes will be reported and so that decoding a value later
+      // can never fail.
+      for (int i=0; i < decodedValues.length; i++)
       {
-        f = new SimpleDateFormat(TIMESTAMP_MS_FORMAT);
-        f.setLenient(false);
-        dateMsFormat.set(f);
+        final int entryPos = i * TOKEN_TABLE_ENTRY_SIZE;
+        if ((tokenTable[entryPos + TOKEN_FLAGS] &
+             TOKEN_FLAG_NEEDS_DECODING) != 0)
+        {
+          decodedValues[i] = decodeToken(s, tokenTable, entryPos);
+        }
       }
     }
     else
     {
-      f = dateSecFormat.get();
-      if (f == null)
+      final LinkedHashMap<String,String> named =
+           new LinkedHashMap<>(StaticUtils.computeMapCapacity(10));
+      final LinkedHashSet<String> unnamed =
+           new LinkedHashSet<>(StaticUtils.computeMapCapacity(10));
+      parseTokens(s, bracketPos+1, named, unnamed);
+
+      tokenTable = null;
+      decodedValues = null;
+      namedValues   = Collections.unmodifiableMap(named);
+      unnamedValues = Collections.unmodifiableSet(unnamed);
+    }
+  }
+
+
+
+  /**
+   * Identifies the positions of the named and unnamed tokens in the provided
+   * message string without decoding any of them.  Tokens are delimited in
+   * exactly the same way as by the {@link #parseTokens} method.
+   *
+   * @param  s         The complete message string being parsed.
+   * @param  startPos  The position at which to start parsing.
+   *
+   * @return  A token table with {@code TOKEN_TABLE_ENTRY_SIZE} elements for
+   *          each of the tokens in the message string.
+   */
+  private static int[] tokenize(final String s, final int startPos)
+  {
+    int[] table = new int[TOKEN_TABLE_ENTRY_SIZE * 16];
+    int numEntries = 0;
+
+    final int length = s.length();
+    int p = startPos;
+    while (p < length)
+    {
+      if (s.charAt(p) == ' ')
+      {
+        p++;
+        continue;
+      }
+
+      final int tokenStart = p;
+      int equalPos = -1;
+      int hash = 0;
+      int flags = 0;
+      int numTokenChars = 0;
+      boolean inQuotes = false;
+      for ( ; p < length; p++)
+      {
+        final char c = s.charAt(p);
+        if (c == '"')
+        {
+          inQuotes = (! inQuotes);
+          flags |= TOKEN_FLAG_QUOTED;
+          continue;
+        }
+        else if ((c == ' ') && (! inQuotes))
+        {
+          break;
+        }
+
+        numTokenChars++;
+        if (equalPos < 0)
+        {
+          if (c == '=')
+          {
+            equalPos = p;
+          }
+          else
+          {
+            hash = (31 * hash) + c;
+          }
+        }
+        else if ((c == '#') || (c > 0x7F))
+        {
+          flags |= TOKEN_FLAG_NEEDS_DECODING;
+        }
+      }
+
+      // A token made up entirely of quotation marks is ignored.
+      if (numTokenChars == 0)
       {
-        f = new SimpleDateFormat(TIMESTAMP_SEC_FORMAT);
-        f.setLenient(false);
-        dateSecFormat.set(f);
+        continue;
       }
+
+      final int entryPos = numEntries * TOKEN_TABLE_ENTRY_SIZE;
+      if (entryPos >= table.length)
+      {
+        table = Arrays.copyOf(table, (table.length * 2));
+      }
+
+      table[entryPos + TOKEN_START] = tokenStart;
+      table[entryPos + TOKEN_EQUAL_POS] = equalPos;
+      table[entryPos + TOKEN_END] = p;
+      table[entryPos + TOKEN_HASH] = hash;
+      table[entryPos + TOKEN_FLAGS] = flags;
+      numEntries++;
     }
 
-    try
+    return Arrays.copyOf(table, (numEntries * TOKEN_TABLE_ENTRY_SIZE));
+  }
+
+
+
+  /**
+   * Decodes the value of the token with the provided token table entry.  For a
+   * named token, this will be the value after the equal sign, and for an
+   * unnamed token it will be the complete token.  The result will be exactly
+   * the same as would have been obtained from the {@link #parseTokens} method.
+   *
+   * @param  s         The complete message string.
+   * @param  table     The token table for the message string.
+   * @param  entryPos  The position of the entry for the token in the token
+   *                   table.
+   *
+   * @return  The decoded value for the token.
+   *
+   * @throws  LogException  If the value contains an invalid escaped character.
+   */
+  private static String decodeToken(final String s, final int[] table,
+                                    final int entryPos)
+          throws LogException
+  {
+    final int equalPos = table[entryPos + TOKEN_EQUAL_POS];
+    final int valueStart =
+         (equalPos < 0) ? table[entryPos + TOKEN_START] : (equalPos + 1);
+    final int valueEnd = table[entryPos + TOKEN_END];
+    final int flags = table[entryPos + TOKEN_FLAGS];
+
+    final String value;
+    if ((flags & TOKEN_FLAG_QUOTED) == 0)
     {
-      timestamp = f.parse(timestampString);
+      value = s.substring(valueStart, valueEnd);
     }
-    catch (final Exception e)
+    else
     {
-      Debug.debugException(e);
-      throw new LogException(s,
-           ERR_LOG_MESSAGE_INVALID_TIMESTAMP.get(
-                StaticUtils.getExceptionMessage(e)),
-           e);
+      value = stripQuotes(s, valueStart, valueEnd);
     }
 
+    if ((flags & TOKEN_FLAG_NEEDS_DECODING) == 0)
+    {
+      return value;
+    }
+    else
+    {
+      return processValue(s, value);
+    }
+  }
 
-    // The remainder of the message should consist of named and unnamed values.
-    final LinkedHashMap<String,String> named =
-         new LinkedHashMap<>(StaticUtils.computeMapCapacity(10));
-    final LinkedHashSet<String> unnamed =
-         new LinkedHashSet<>(StaticUtils.computeMapCapacity(10));
-    parseTokens(s, bracketPos+1, named, unnamed);
-
-    namedValues   = Collections.unmodifiableMap(named);
-    unnamedValues = Collections.unmodifiableSet(unnamed);
+
+
+  /**
+   * Retrieves the specified portion of the provided string with any quotation
+   * marks removed.
+   *
+   * @param  s      The string containing the text to retrieve.
+   * @param  start  The position of the first character to retrieve.
+   * @param  end    The position immediately after the last character to
+   *                retrieve.
+   *
+   * @return  The specified portion of the provided string with any quotation
+   *          marks removed.
+   */
+  private static String stripQuotes(final String s, final int start,
+                                    final int end)
+  {
+    final StringBuilder buffer = new StringBuilder(end - start);
+    for (int i=start; i < end; i++)
+    {
+      final char c = s.charAt(i);
+      if (c != '"')
+      {
+        buffer.append(c);
+      }
+    }
+
+    return buffer.toString();
+  }
+
+
+
+  /**
+   * Retrieves the position in the token table of the entry for the last named
+   * token with the specified name, or of the first unnamed token with the
+   * specified value.  This may only be used for messages that are decoded
+   * lazily.
+   *
+   * @param  text   The name of the named token or the value of the unnamed
+   *                token to find.
+   * @param  named  Indicates whether to find a named token rather than an
+   *                unnamed token.
+   *
+   * @return  The position in the token table of the entry for the token, or -1
+   *          if there is no such token.
+   */
+  private int findToken(final String text, final boolean named)
+  {
+    final int hash = text.hashCode();
+    for (int i=(tokenTable.length - TOKEN_TABLE_ENTRY_SIZE); i >= 0;
+         i -= TOKEN_TABLE_ENTRY_SIZE)
+    {
+      final int equalPos = tokenTable[i + TOKEN_EQUAL_POS];
+      if ((named != (equalPos >= 0)) || (tokenTable[i + TOKEN_HASH] != hash))
+      {
+        continue;
+      }
+
+      final int start = tokenTable[i + TOKEN_START];
+      final int end = named ? equalPos : tokenTable[i + TOKEN_END];
+      if ((tokenTable[i + TOKEN_FLAGS] & TOKEN_FLAG_QUOTED) == 0)
+      {
+        if (((end - start) == text.length()) &&
+            messageString.regionMatches(start, text, 0, text.length()))
+        {
+          return i;
+        }
+      }
+      else if (text.equals(stripQuotes(messageString, start, end)))
+      {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+
+
+  /**
+   * Retrieves the decoded value for the token with the provided token table
+   * entry, decoding it if that has not already been done.  This may only be
+   * used for messages that are decoded lazily.
+   *
+   * @param  entryPos  The position of the entry for the token in the token
+   *                   table.
+   *
+   * @return  The decoded value for the token.
+   */
+  private String getDecodedValue(final int entryPos)
+  {
+    final int index = entryPos / TOKEN_TABLE_ENTRY_SIZE;
+    String value = decodedValues[index];
+    if (value == null)
+    {
+      try
+      {
+        value = decodeToken(messageString, tokenTable, entryPos);
+      }
+      catch (final LogException le)
+      {
+        // This should never happen, since any values that could not be
+        // decoded would have been rejected when the message was created.
+        Debug.debugException(le);
+        throw new IllegalStateException(le.getMessage(), le);
+      }
+
+      decodedValues[index] = value;
+    }
+
+    return value;
   }
 
 
@@ -418,6 +826,211 @@ public class LogMessage
 
 
 
+  /**
+   * Attempts to parse the timestamp at the beginning of the provided message
+   * string without the use of a date formatter or any intermediate objects.
+   * Only timestamps in the exact form written by the server (with a two-digit
+   * day, an English month abbreviation, a four-digit year no earlier than 1970,
+   * an optional three-digit millisecond component, and a numeric time zone
+   * offset) will be handled.
+   *
+   * @param  s           The complete message string being parsed.
+   * @param  bracketPos  The position of the closing bracket for the timestamp.
+   *
+   * @return  The number of milliseconds since the epoch represented by the
+   *          timestamp, or -1 if the timestamp does not have the expected form
+   *          or contains values that are out of range.
+   */
+  static long parseTimestamp(final String s, final int bracketPos)
+  {
+    final boolean includesMillis;
+    if (bracketPos == 27)
+    {
+      includesMillis = false;
+    }
+    else if (bracketPos == 31)
+    {
+      includesMillis = true;
+    }
+    else
+    {
+      return -1L;
+    }
+
+    if ((s.charAt(0) != '[') || (s.charAt(3) != '/') ||
+        (s.charAt(7) != '/') || (s.charAt(12) != ':') ||
+        (s.charAt(15) != ':') || (s.charAt(18) != ':'))
+    {
+      return -1L;
+    }
+
+    final int day = parseDigits(s, 1, 2);
+    final int month = parseMonth(s, 4);
+    final int year = parseDigits(s, 8, 4);
+    final int hour = parseDigits(s, 13, 2);
+    final int minute = parseDigits(s, 16, 2);
+    final int second = parseDigits(s, 19, 2);
+    if ((month < 0) || (year < 1970) || (hour < 0) || (hour > 23) ||
+        (minute < 0) || (minute > 59) || (second < 0) || (second > 59) ||
+        (day < 1) || (day > getDaysInMonth(year, month)))
+    {
+      return -1L;
+    }
+
+    int pos = 21;
+    int millis = 0;
+    if (includesMillis)
+    {
+      if (s.charAt(pos) != '.')
+      {
+        return -1L;
+      }
+
+      millis = parseDigits(s, pos+1, 3);
+      if (millis < 0)
+      {
+        return -1L;
+      }
+
+      pos += 4;
+    }
+
+    if (s.charAt(pos) != ' ')
+    {
+      return -1L;
+    }
+
+    final int offsetSign;
+    switch (s.charAt(pos+1))
+    {
+      case '+':
+        offsetSign = 1;
+        break;
+      case '-':
+        offsetSign = -1;
+        break;
+      default:
+        return -1L;
+    }
+
+    final int offsetHours = parseDigits(s, pos+2, 2);
+    final int offsetMinutes = parseDigits(s, pos+4, 2);
+    if ((offsetHours < 0) || (offsetHours > 23) || (offsetMinutes < 0) ||
+        (offsetMinutes > 59))
+    {
+      return -1L;
+    }
+
+
+    // Compute the number of days since the epoch using the proleptic Gregorian
+    // calendar, treating March as the first month of the year so that the leap
+    // day falls at the end.
+    final int adjustedYear = (month <= 2) ? (year - 1) : year;
+    final int era = adjustedYear / 400;
+    final int yearOfEra = adjustedYear - (era * 400);
+    final int dayOfYear =
+         (((153 * (month + ((month > 2) ? -3 : 9))) + 2) / 5) + (day - 1);
+    final int dayOfEra = (yearOfEra * 365) + (yearOfEra / 4) -
+         (yearOfEra / 100) + dayOfYear;
+    final long daysSinceEpoch = (era * 146097L) + dayOfEra - 719468L;
+
+    final long offsetMillis =
+         offsetSign * ((offsetHours * 3600000L) + (offsetMinutes * 60000L));
+    return (daysSinceEpoch * 86400000L) + (hour * 3600000L) +
+         (minute * 60000L) + (second * 1000L) + millis - offsetMillis;
+  }
+
+
+
+  /**
+   * Parses the specified number of decimal digits from the provided string.
+   *
+   * @param  s       The string containing the digits to parse.
+   * @param  offset  The position of the first digit.
+   * @param  length  The number of digits to parse.
+   *
+   * @return  The value of the digits, or -1 if any of the characters is not a
+   *          decimal digit.
+   */
+  private static int parseDigits(final String s, final int offset,
+                                 final int length)
+  {
+    int value = 0;
+    for (int i=offset; i < (offset+length); i++)
+    {
+      final char c = s.charAt(i);
+      if ((c < '0') || (c > '9'))
+      {
+        return -1;
+      }
+
+      value = (value * 10) + (c - '0');
+    }
+
+    return value;
+  }
+
+
+
+  /**
+   * Parses the three-letter English month abbreviation at the specified
+   * position in the provided string.
+   *
+   * @param  s       The string containing the month abbreviation.
+   * @param  offset  The position of the first character of the abbreviation.
+   *
+   * @return  The number of the month, from 1 for January through 12 for
+   *          December, or -1 if the characters do not represent a month.
+   */
+  private static int parseMonth(final String s, final int offset)
+  {
+    for (int i=0; i < MONTH_ABBREVIATIONS.length; i++)
+    {
+      if (s.regionMatches(true, offset, MONTH_ABBREVIATIONS[i], 0, 3))
+      {
+        return (i + 1);
+      }
+    }
+
+    return -1;
+  }
+
+
+
+  /**
+   * Retrieves the number of days in the specified month.
+   *
+   * @param  year   The year containing the month.
+   * @param  month  The number of the month, from 1 for January through 12 for
+   *                December.
+   *
+   * @return  The number of days in the specified month.
+   */
+  private static int getDaysInMonth(final int year, final int month)
+  {
+    switch (month)
+    {
+      case 2:
+        if (((year % 4) == 0) && (((year % 100) != 0) || ((year % 400) == 0)))
+        {
+          return 29;
+        }
+        else
+        {
+          return 28;
+        }
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+
+
   /**
    * Retrieves the timestamp for this log message.
    *
@@ -438,7 +1051,36 @@ public class LogMessage
    */
   public final Map<String,String> getNamedValues()
   {
-    return namedValues;
+    Map<String,String> m = namedValues;
+    if (m == null)
+    {
+      final LinkedHashMap<String,String> named = new LinkedHashMap<>(
+           StaticUtils.computeMapCapacity(decodedValues.length));
+      for (int i=0; i < tokenTable.length; i += TOKEN_TABLE_ENTRY_SIZE)
+      {
+        final int equalPos = tokenTable[i + TOKEN_EQUAL_POS];
+        if (equalPos >= 0)
+        {
+          final int start = tokenTable[i + TOKEN_START];
+          final String name;
+          if ((tokenTable[i + TOKEN_FLAGS] & TOKEN_FLAG_QUOTED) == 0)
+          {
+            name = messageString.substring(start, equalPos);
+          }
+          else
+          {
+            name = stripQuotes(messageString, start, equalPos);
+          }
+
+          named.put(name, getDecodedValue(i));
+        }
+      }
+
+      m = Collections.unmodifiableMap(named);
+      namedValues = m;
+    }
+
+    return m;
   }
 
 
@@ -453,7 +1095,20 @@ public class LogMessage
    */
   public final String getNamedValue(final String name)
   {
-    return namedValues.get(name);
+    if (tokenTable == null)
+    {
+      return namedValues.get(name);
+    }
+
+    final int entryPos = findToken(name, true);
+    if (entryPos < 0)
+    {
+      return null;
+    }
+    else
+    {
+      return getDecodedValue(entryPos);
+    }
   }
 
 
@@ -470,7 +1125,7 @@ public class LogMessage
    */
   public final Boolean getNamedValueAsBoolean(final String name)
   {
-    final String s = namedValues.get(name);
+    final String s = getNamedValue(name);
     if (s == null)
     {
       return null;
@@ -509,7 +1164,7 @@ public class LogMessage
    */
   public final Double getNamedValueAsDouble(final String name)
   {
-    final String s = namedValues.get(name);
+    final String s = getNamedValue(name);
     if (s == null)
     {
       return null;
@@ -541,7 +1196,7 @@ public class LogMessage
    */
   public final Integer getNamedValueAsInteger(final String name)
   {
-    final String s = namedValues.get(name);
+    final String s = getNamedValue(name);
     if (s == null)
     {
       return null;
@@ -571,7 +1226,7 @@ public class LogMessage
    */
   public final Long getNamedValueAsLong(final String name)
   {
-    final String s = namedValues.get(name);
+    final String s = getNamedValue(name);
     if (s == null)
     {
       return null;
@@ -597,7 +1252,24 @@ public class LogMessage
    */
   public final Set<String> getUnnamedValues()
   {
-    return unnamedValues;
+    Set<String> values = unnamedValues;
+    if (values == null)
+    {
+      final LinkedHashSet<String> unnamed = new LinkedHashSet<>(
+           StaticUtils.computeMapCapacity(decodedValues.length));
+      for (int i=0; i < tokenTable.length; i += TOKEN_TABLE_ENTRY_SIZE)
+      {
+        if (tokenTable[i + TOKEN_EQUAL_POS] < 0)
+        {
+          unnamed.add(getDecodedValue(i));
+        }
+      }
+
+      values = Collections.unmodifiableSet(unnamed);
+      unnamedValues = values;
+    }
+
+    return values;
   }
 
 
@@ -612,7 +1284,14 @@ public class LogMessage
    */
   public final boolean hasUnnamedValue(final String value)
   {
-    return unnamedValues.contains(value);
+    if (tokenTable == null)
+    {
+      return unnamedValues.contains(value);
+    }
+    else
+    {
+      return (findToken(value, false) >= 0);
+    }
   }
 
 
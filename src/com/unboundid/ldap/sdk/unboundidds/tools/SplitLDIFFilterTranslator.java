@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import com.unboundid.ldap.sdk.CompiledFilter;
 import com.unboundid.ldap.sdk.DN;
 import com.unboundid.ldap.sdk.Entry;
 import com.unboundid.ldap.sdk.Filter;
@@ -67,16 +68,13 @@ final class SplitLDIFFilterTranslator
   // The map used to cache decisions made by this translator.
   private final ConcurrentHashMap<String,Set<String>> rdnCache;
 
-  // A map used to associate the search filter for each set with the name of
-  // that set.
-  private final Map<Filter,Set<String>> setFilters;
+  // A map used to associate the compiled search filter for each set with the
+  // name of that set.
+  private final Map<CompiledFilter,Set<String>> setFilters;
 
   // A map of the names that will be used for each of the sets.
   private final Map<Integer,Set<String>> setNames;
 
-  // The schema to use for filter evaluation.
-  private final Schema schema;
-
   // The sets in which entries outside the split base should be placed.
   private final Set<String> outsideSplitBaseSetNames;
 
@@ -120,8 +118,6 @@ final class SplitLDIFFilterTranslator
   {
     super(splitBaseDN);
 
-    this.schema = schema;
-
     if (assumeFlatDIT)
     {
       rdnCache = null;
@@ -158,7 +154,7 @@ final class SplitLDIFFilterTranslator
         outsideSplitBaseSetNames.add(setName);
       }
 
-      setFilters.put(f, sets);
+      setFilters.put(f.compile(schema), sets);
       setNames.put(i, sets);
 
       i++;
@@ -254,12 +250,13 @@ final class SplitLDIFFilterTranslator
     // At this point, we know that the entry is exactly one level below the
     // split base DN.  Iterate through the filters and see if any of them
     // matches the entry.
-    for (final Map.Entry<Filter,Set<String>> e : setFilters.entrySet())
+    for (final Map.Entry<CompiledFilter,Set<String>> e :
+         setFilters.entrySet())
     {
-      final Filter f = e.getKey();
+      final CompiledFilter f = e.getKey();
       try
       {
-        if (f.matchesEntry(original, schema))
+        if (f.matchesEntry(original))
         {
           final Set<String> sets = e.getValue();
           if (rdnCache != null)
@@ -32,7 +32,9 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -40,6 +42,11 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.nio.charset.Charset;
@@ -175,6 +182,14 @@ public final class LDIFReader
 
 
 
+  /**
+   * The default size in bytes of the chunks that will be read from the input
+   * when using chunked parsing.
+   */
+  private static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+
+
   /**
    * Special entry used internally to signal that the LDIFReaderEntryTranslator
    * has signalled that a read Entry should be skipped by returning null,
@@ -260,6 +275,9 @@ public final class LDIFReader
   private final BlockingQueue<Result<UnparsedLDIFRecord,LDIFRecord>>
        asyncParsedRecords;
 
+  // Reads and parses the input in byte-oriented chunks, if applicable.
+  private final ChunkedRecordReader chunkedReader;
+
 
 
   /**
@@ -763,6 +781,7 @@ public final class LDIFReader
     trailingSpaceBehavior  = TrailingSpaceBehavior.REJECT;
 
     relativeBasePath = DEFAULT_RELATIVE_BASE_PATH;
+    chunkedReader = null;
 
     if (numParseThreads == 0)
     {
@@ -802,6 +821,156 @@ public final class LDIFReader
 
 
 
+  /**
+   * Creates a new LDIF reader that will read data from the specified file in
+   * large chunks of bytes rather than line-by-line through a character-based
+   * reader.  Each chunk that is read will be split into records and parsed by
+   * one of the specified number of threads, so that both identifying record
+   * boundaries and decoding records are performed in parallel.  The data must
+   * be encoded using the UTF-8 character set, as required by RFC 2849, and
+   * lines must be terminated with either a line feed or a carriage return
+   * followed by a line feed.
+   *
+   * @param  file                    The file from which the data is to be
+   *                                 read.  It must not be {@code null}.
+   * @param  numParseThreads         The number of threads to use to parse the
+   *                                 LDIF data.  It must be greater than zero.
+   * @param  preserveOrder           Indicates whether records should be
+   *                                 returned in the order in which they appear
+   *                                 in the LDIF data.  If this is
+   *                                 {@code false}, then records will be
+   *                                 returned a chunk at a time in the order
+   *                                 that chunks finish parsing, which may
+   *                                 improve throughput for applications that
+   *                                 do not depend on the order of the records.
+   * @param  entryTranslator         The LDIFReaderEntryTranslator to apply to
+   *                                 entries before they are returned.  This is
+   *                                 normally {@code null}, which causes entries
+   *                                 to be returned unaltered.  Entry
+   *                                 translation will be performed by the parse
+   *                                 threads.
+   * @param  changeRecordTranslator  The LDIFReaderChangeRecordTranslator to
+   *                                 apply to change records before they are
+   *                                 returned.  This is normally {@code null},
+   *                                 which causes change records to be returned
+   *                                 unaltered.  Change record translation will
+   *                                 be performed by the parse threads.
+   *
+   * @throws  IOException  If a problem occurs while opening the file for
+   *                       reading.
+   */
+  public LDIFReader(final File file, final int numParseThreads,
+              final boolean preserveOrder,
+              final LDIFReaderEntryTranslator entryTranslator,
+              final LDIFReaderChangeRecordTranslator changeRecordTranslator)
+         throws IOException
+  {
+    this(new FileInputStream(file), numParseThreads, preserveOrder,
+         entryTranslator, changeRecordTranslator);
+  }
+
+
+
+  /**
+   * Creates a new LDIF reader that will read data from the provided input
+   * stream in large chunks of bytes rather than line-by-line through a
+   * character-based reader.  Each chunk that is read will be split into
+   * records and parsed by one of the specified number of threads, so that both
+   * identifying record boundaries and decoding records are performed in
+   * parallel.  The data must be encoded using the UTF-8 character set, as
+   * required by RFC 2849, and lines must be terminated with either a line feed
+   * or a carriage return followed by a line feed.
+   *
+   * @param  inputStream             The input stream from which the data is to
+   *                                 be read.  It must not be {@code null}.
+   * @param  numParseThreads         The number of threads to use to parse the
+   *                                 LDIF data.  It must be greater than zero.
+   * @param  preserveOrder           Indicates whether records should be
+   *                                 returned in the order in which they appear
+   *                                 in the LDIF data.  If this is
+   *                                 {@code false}, then records will be
+   *                                 returned a chunk at a time in the order
+   *                                 that chunks finish parsing, which may
+   *                                 improve throughput for applications that
+   *                                 do not depend on the order of the records.
+   * @param  entryTranslator         The LDIFReaderEntryTranslator to apply to
+   *                                 entries before they are returned.  This is
+   *                                 normally {@code null}, which causes entries
+   *                                 to be returned unaltered.  Entry
+   *                                 translation will be performed by the parse
+   *                                 threads.
+   * @param  changeRecordTranslator  The LDIFReaderChangeRecordTranslator to
+   *                                 apply to change records before they are
+   *                                 returned.  This is normally {@code null},
+   *                                 which causes change records to be returned
+   *                                 unaltered.  Change record translation will
+   *                                 be performed by the parse threads.
+   */
+  public LDIFReader(final InputStream inputStream, final int numParseThreads,
+              final boolean preserveOrder,
+              final LDIFReaderEntryTranslator entryTranslator,
+              final LDIFReaderChangeRecordTranslator changeRecordTranslator)
+  {
+    this(inputStream, numParseThreads, preserveOrder, entryTranslator,
+         changeRecordTranslator, DEFAULT_CHUNK_SIZE);
+  }
+
+
+
+  /**
+   * Creates a new LDIF reader that will read data from the provided input
+   * stream in chunks of the specified size.
+   *
+   * @param  inputStream             The input stream from which the data is to
+   *                                 be read.  It must not be {@code null}.
+   * @param  numParseThreads         The number of threads to use to parse the
+   *                                 LDIF data.  It must be greater than zero.
+   * @param  preserveOrder           Indicates whether records should be
+   *                                 returned in the order in which they appear
+   *                                 in the LDIF data.
+   * @param  entryTranslator         The LDIFReaderEntryTranslator to apply to
+   *                                 entries before they are returned.  It may
+   *                                 be {@code null} if no translation should be
+   *                                 performed.
+   * @param  changeRecordTranslator  The LDIFReaderChangeRecordTranslator to
+   *                                 apply to change records before they are
+   *                                 returned.  It may be {@code null} if no
+   *                                 translation should be performed.
+   * @param  chunkSize               The minimum number of bytes to read from
+   *                                 the input stream for each chunk.  It must
+   *                                 be greater than zero.
+   */
+  LDIFReader(final InputStream inputStream, final int numParseThreads,
+             final boolean preserveOrder,
+             final LDIFReaderEntryTranslator entryTranslator,
+             final LDIFReaderChangeRecordTranslator changeRecordTranslator,
+             final int chunkSize)
+  {
+    Validator.ensureNotNull(inputStream);
+    Validator.ensureTrue(numParseThreads > 0,
+         "LDIFReader.numParseThreads must be greater than zero.");
+    Validator.ensureTrue(chunkSize > 0,
+         "LDIFReader.chunkSize must be greater than zero.");
+
+    this.entryTranslator = entryTranslator;
+    this.changeRecordTranslator = changeRecordTranslator;
+
+    duplicateValueBehavior = DuplicateValueBehavior.STRIP;
+    trailingSpaceBehavior  = TrailingSpaceBehavior.REJECT;
+
+    relativeBasePath = DEFAULT_RELATIVE_BASE_PATH;
+
+    reader = null;
+    isAsync = true;
+    asyncParser = null;
+    asyncParsingComplete = null;
+    asyncParsedRecords = null;
+    chunkedReader = new ChunkedRecordReader(inputStream, numParseThreads,
+         preserveOrder, chunkSize);
+  }
+
+
+
   /**
    * Reads entries from the LDIF file with the specified path and returns them
    * as a {@code List}.  This is a convenience method that should only be used
@@ -928,6 +1097,12 @@ public final class LDIFReader
   public void close()
          throws IOException
   {
+    if (chunkedReader != null)
+    {
+      chunkedReader.close();
+      return;
+    }
+
     reader.close();
 
     if (isAsync())
@@ -1486,11 +1661,17 @@ public final class LDIFReader
   {
     Result<UnparsedLDIFRecord, LDIFRecord> result = null;
 
-    // If the asynchronous reading and parsing is complete, then we don't have
-    // to block waiting for the next record to show up on the queue.  If there
-    // isn't a record there, then return null (EOF) right away.
-    if (asyncParsingComplete.get())
+    if (chunkedReader != null)
     {
+      // Records that are read in chunks are handed off directly by the chunked
+      // reader rather than through the asynchronous parser's output queue.
+      result = chunkedReader.nextResult();
+    }
+    else if (asyncParsingComplete.get())
+    {
+      // If the asynchronous reading and parsing is complete, then we don't
+      // have to block waiting for the next record to show up on the queue.  If
+      // there isn't a record there, then return null (EOF) right away.
       result = asyncParsedRecords.poll();
     }
     else
@@ -4397,4 +4578,812 @@ public final class LDIFReader
       return record;
     }
   }
+
+
+
+  /**
+   * When processing in chunked mode, this thread is responsible for reading
+   * large chunks of bytes from the input, splitting them at the last record
+   * boundary they contain, and handing them off to a pool of threads that
+   * will split each chunk into records and parse them.  It also provides the
+   * parsed records to the thread that is reading from the LDIF reader.
+   */
+  private final class ChunkedRecordReader
+       extends Thread
+  {
+    // Indicates whether the reader has been closed.
+    private volatile boolean closed;
+
+    // Indicates whether the end of the parsed records has been reached.  This
+    // will only be accessed by the thread reading from the LDIF reader.
+    private boolean endOfRecordsReached;
+
+    // Indicates whether this thread has been started.  This will only be
+    // accessed by the thread reading from the LDIF reader.
+    private boolean started;
+
+    // Indicates whether records should be provided in the order in which they
+    // were read.
+    private final boolean preserveOrder;
+
+    // The executor service that will be used to parse chunks.
+    private final ExecutorService parseExecutor;
+
+    // The input stream from which the data will be read.
+    private final InputStream inputStream;
+
+    // The minimum number of bytes to read for each chunk.
+    private final int chunkSize;
+
+    // The parsed records from the current chunk that have not yet been
+    // provided to the caller.  This will only be accessed by the thread
+    // reading from the LDIF reader.
+    private Iterator<Result<UnparsedLDIFRecord,LDIFRecord>> currentResults;
+
+    // The chunks that are ready to be consumed, in the order in which they
+    // should be consumed.
+    private final LinkedBlockingQueue<RecordChunk> chunkQueue;
+
+    // The chunk whose records are currently being consumed.  This will only be
+    // accessed by the thread reading from the LDIF reader.
+    private RecordChunk currentChunk;
+
+    // A marker chunk that will be provided after all other chunks.
+    private final RecordChunk endOfInputChunk;
+
+    // The permits that limit the number of chunks that may be read but not
+    // yet consumed.
+    private final Semaphore chunkPermits;
+
+
+
+    /**
+     * Creates a new chunked record reader with the provided information.
+     *
+     * @param  inputStream      The input stream from which the data will be
+     *                          read.
+     * @param  numParseThreads  The number of threads to use to parse chunks.
+     * @param  preserveOrder    Indicates whether records should be provided in
+     *                          the order in which they were read.
+     * @param  chunkSize        The minimum number of bytes to read for each
+     *                          chunk.
+     */
+    private ChunkedRecordReader(final InputStream inputStream,
+                                final int numParseThreads,
+                                final boolean preserveOrder,
+                                final int chunkSize)
+    {
+      super("Asynchronous LDIF chunk reader");
+      setDaemon(true);
+
+      this.inputStream = inputStream;
+      this.preserveOrder = preserveOrder;
+      this.chunkSize = chunkSize;
+
+      parseExecutor = Executors.newFixedThreadPool(numParseThreads,
+           new LDAPSDKThreadFactory("LDIFReader Chunk Parser", true, null));
+      chunkPermits = new Semaphore(2 * numParseThreads);
+      chunkQueue = new LinkedBlockingQueue<>();
+      endOfInputChunk = new RecordChunk(
+           Collections.<Result<UnparsedLDIFRecord,LDIFRecord>>emptyList());
+
+      closed = false;
+      started = false;
+      endOfRecordsReached = false;
+      currentChunk = null;
+      currentResults = null;
+    }
+
+
+
+    /**
+     * Reads chunks from the input and submits them for parsing until the end
+     * of the input is reached or the reader is closed.
+     */
+    @Override()
+    public void run()
+    {
+      Exception readError = null;
+      try
+      {
+        long firstLineNumber = 1L;
+        byte[] buffer = new byte[chunkSize];
+        int length = 0;
+        while (true)
+        {
+          boolean endOfInput = false;
+          while (length < buffer.length)
+          {
+            final int bytesRead =
+                 inputStream.read(buffer, length, buffer.length - length);
+            if (bytesRead < 0)
+            {
+              endOfInput = true;
+              break;
+            }
+
+            length += bytesRead;
+          }
+
+          if (endOfInput)
+          {
+            if (length > 0)
+            {
+              submitChunk(buffer, length, firstLineNumber);
+            }
+
+            break;
+          }
+
+          // Only hand off the portion of the buffer that ends with a blank
+          // line so that no record is split across chunks.  If the buffer
+          // doesn't contain a complete record, then make it bigger.
+          final int boundary = findLastRecordBoundary(buffer, length);
+          if (boundary == 0)
+          {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            continue;
+          }
+
+          final int remainingLength = length - boundary;
+          final byte[] nextBuffer =
+               new byte[Math.max(chunkSize, remainingLength * 2)];
+          System.arraycopy(buffer, boundary, nextBuffer, 0, remainingLength);
+
+          submitChunk(buffer, boundary, firstLineNumber);
+          firstLineNumber += countLineBreaks(buffer, boundary);
+
+          buffer = nextBuffer;
+          length = remainingLength;
+        }
+      }
+      catch (final InterruptedException e)
+      {
+        Debug.debugException(e);
+        Thread.currentThread().interrupt();
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+        if (! closed)
+        {
+          readError = e;
+        }
+      }
+      finally
+      {
+        // Wait for all chunks to be parsed so that the end-of-input marker is
+        // always the last chunk provided, even when order is not preserved.
+        parseExecutor.shutdown();
+        try
+        {
+          while ((! closed) &&
+               (! parseExecutor.awaitTermination(1L, TimeUnit.SECONDS)))
+          {
+            // Keep waiting.
+          }
+        }
+        catch (final InterruptedException e)
+        {
+          Debug.debugException(e);
+          Thread.currentThread().interrupt();
+        }
+
+        if (readError != null)
+        {
+          final Result<UnparsedLDIFRecord,LDIFRecord> errorResult =
+               new ChunkedRecordResult(new UnparsedLDIFRecord(readError), null,
+                    readError);
+          chunkQueue.add(new RecordChunk(
+               Collections.singletonList(errorResult)));
+        }
+
+        chunkQueue.add(endOfInputChunk);
+      }
+    }
+
+
+
+    /**
+     * Submits the provided data for parsing.
+     *
+     * @param  data             The data to be parsed.  It must contain only
+     *                          complete records.
+     * @param  length           The number of bytes of the data to parse.
+     * @param  firstLineNumber  The line number of the first line in the data.
+     *
+     * @throws  InterruptedException  If this thread is interrupted while
+     *                                waiting for a chunk permit.
+     */
+    private void submitChunk(final byte[] data, final int length,
+                             final long firstLineNumber)
+            throws InterruptedException
+    {
+      chunkPermits.acquire();
+
+      final RecordChunk chunk = new RecordChunk(data, length, firstLineNumber);
+      if (preserveOrder)
+      {
+        chunkQueue.add(chunk);
+      }
+
+      parseExecutor.execute(chunk);
+    }
+
+
+
+    /**
+     * Retrieves the next parsed record.  This thread will be started the first
+     * time this method is called, so that any settings applied to the LDIF
+     * reader before that time will be used for all records.
+     *
+     * @return  The next parsed record, or {@code null} if there are no more
+     *          records.
+     *
+     * @throws  IOException  If the calling thread is interrupted while waiting
+     *                       for a record.
+     */
+    private Result<UnparsedLDIFRecord,LDIFRecord> nextResult()
+            throws IOException
+    {
+      if (! started)
+      {
+        started = true;
+        start();
+      }
+
+      while (true)
+      {
+        if ((currentResults != null) && currentResults.hasNext())
+        {
+          return currentResults.next();
+        }
+
+        if (currentChunk != null)
+        {
+          if (currentChunk.holdsPermit())
+          {
+            chunkPermits.release();
+          }
+
+          currentChunk = null;
+          currentResults = null;
+        }
+
+        if (endOfRecordsReached || closed)
+        {
+          return null;
+        }
+
+        try
+        {
+          // Use a cautious polling interval so that we won't block forever if
+          // the reader is closed while we're waiting.
+          RecordChunk chunk = null;
+          while (chunk == null)
+          {
+            if (closed)
+            {
+              return null;
+            }
+
+            chunk = chunkQueue.poll(1L, TimeUnit.SECONDS);
+          }
+
+          while (! chunk.awaitParsing(1L, TimeUnit.SECONDS))
+          {
+            if (closed)
+            {
+              return null;
+            }
+          }
+
+          if (chunk == endOfInputChunk)
+          {
+            endOfRecordsReached = true;
+            return null;
+          }
+
+          currentChunk = chunk;
+          currentResults = chunk.getResults().iterator();
+        }
+        catch (final InterruptedException e)
+        {
+          Debug.debugException(e);
+          Thread.currentThread().interrupt();
+          throw new IOException(e);
+        }
+      }
+    }
+
+
+
+    /**
+     * Closes the input stream and stops reading and parsing chunks.
+     *
+     * @throws  IOException  If a problem occurs while closing the input
+     *                       stream.
+     */
+    private void close()
+            throws IOException
+    {
+      closed = true;
+
+      try
+      {
+        inputStream.close();
+      }
+      finally
+      {
+        interrupt();
+        parseExecutor.shutdownNow();
+      }
+    }
+  }
+
+
+
+  /**
+   * Retrieves the position immediately after the last blank line in the
+   * provided data.  The data is expected to start at the beginning of a line.
+   *
+   * @param  data    The data to examine.
+   * @param  length  The number of bytes of the data to examine.
+   *
+   * @return  The position immediately after the last blank line in the
+   *          provided data, or zero if the data does not contain a blank line.
+   */
+  static int findLastRecordBoundary(final byte[] data, final int length)
+  {
+    for (int i=length-1; i >= 0; i--)
+    {
+      if (data[i] == '\n')
+      {
+        int previousPos = i - 1;
+        if ((previousPos >= 0) && (data[previousPos] == '\r'))
+        {
+          previousPos--;
+        }
+
+        if ((previousPos < 0) || (data[previousPos] == '\n'))
+        {
+          return i + 1;
+        }
+      }
+    }
+
+    return 0;
+  }
+
+
+
+  /**
+   * Counts the number of line feed characters in the provided data.
+   *
+   * @param  data    The data to examine.
+   * @param  length  The number of bytes of the data to examine.
+   *
+   * @return  The number of line feed characters in the provided data.
+   */
+  private static long countLineBreaks(final byte[] data, final int length)
+  {
+    long count = 0L;
+    for (int i=0; i < length; i++)
+    {
+      if (data[i] == '\n')
+      {
+        count++;
+      }
+    }
+
+    return count;
+  }
+
+
+
+  /**
+   * Appends the UTF-8 string represented by the specified portion of the
+   * provided byte array to the given buffer.
+   *
+   * @param  buffer  The buffer to which the string should be appended.
+   * @param  data    The byte array containing the UTF-8 data.
+   * @param  offset  The position in the array of the first byte to append.
+   * @param  length  The number of bytes to append.
+   */
+  private static void appendUTF8(final StringBuilder buffer, final byte[] data,
+                                 final int offset, final int length)
+  {
+    final int originalLength = buffer.length();
+    for (int i=offset; i < (offset + length); i++)
+    {
+      if ((data[i] & 0x80) != 0x00)
+      {
+        // The data isn't all ASCII, so decode it the hard way.
+        buffer.setLength(originalLength);
+        buffer.append(StaticUtils.toUTF8String(data, offset, length));
+        return;
+      }
+
+      buffer.append((char) data[i]);
+    }
+  }
+
+
+
+  /**
+   * A chunk of LDIF data that will be split into records and parsed by one of
+   * the parse threads.
+   */
+  private final class RecordChunk
+       implements Runnable
+  {
+    // The data to be parsed.
+    private final byte[] data;
+
+    // Indicates whether this chunk holds one of the chunk permits.
+    private final boolean holdsPermit;
+
+    // Used to wait for parsing to complete.
+    private final CountDownLatch parsingComplete;
+
+    // The number of bytes of data to parse.
+    private final int length;
+
+    // The parsed records.
+    private volatile List<Result<UnparsedLDIFRecord,LDIFRecord>> results;
+
+    // The line number of the first line in the data.
+    private final long firstLineNumber;
+
+
+
+    /**
+     * Creates a new record chunk that will parse the provided data.
+     *
+     * @param  data             The data to be parsed.
+     * @param  length           The number of bytes of data to parse.
+     * @param  firstLineNumber  The line number of the first line in the data.
+     */
+    private RecordChunk(final byte[] data, final int length,
+                        final long firstLineNumber)
+    {
+      this.data = data;
+      this.length = length;
+      this.firstLineNumber = firstLineNumber;
+
+      holdsPermit = true;
+      parsingComplete = new CountDownLatch(1);
+      results = null;
+    }
+
+
+
+    /**
+     * Creates a new record chunk that already contains the provided results.
+     *
+     * @param  results  The results for this chunk.
+     */
+    private RecordChunk(
+                 final List<Result<UnparsedLDIFRecord,LDIFRecord>> results)
+    {
+      this.results = results;
+
+      data = null;
+      length = 0;
+      firstLineNumber = 0L;
+      holdsPermit = false;
+      parsingComplete = new CountDownLatch(0);
+    }
+
+
+
+    /**
+     * Splits the data into records and parses them.
+     */
+    @Override()
+    public void run()
+    {
+      try
+      {
+        results = parseRecords();
+      }
+      catch (final Throwable t)
+      {
+        Debug.debugException(t);
+        final Exception e = new LDIFException(
+             StaticUtils.getExceptionMessage(t), firstLineNumber, false, t);
+        final Result<UnparsedLDIFRecord,LDIFRecord> errorResult =
+             new ChunkedRecordResult(new UnparsedLDIFRecord(e), null, e);
+        results = Collections.singletonList(errorResult);
+      }
+      finally
+      {
+        parsingComplete.countDown();
+        if (! chunkedReader.preserveOrder)
+        {
+          chunkedReader.chunkQueue.add(this);
+        }
+      }
+    }
+
+
+
+    /**
+     * Splits the data into records and parses them, using the same rules as
+     * the line-oriented reader.
+     *
+     * @return  The results of parsing the records.
+     */
+    private List<Result<UnparsedLDIFRecord,LDIFRecord>> parseRecords()
+    {
+      final ArrayList<Result<UnparsedLDIFRecord,LDIFRecord>> resultList =
+           new ArrayList<>(100);
+      final RecordParser recordParser = new RecordParser();
+
+      ArrayList<StringBuilder> lineList = new ArrayList<>(20);
+      boolean lastWasComment = false;
+      long lineNumber = firstLineNumber - 1L;
+      long recordFirstLineNumber = firstLineNumber;
+
+      int pos = 0;
+      while (pos < length)
+      {
+        int lineEnd = pos;
+        while ((lineEnd < length) && (data[lineEnd] != '\n'))
+        {
+          lineEnd++;
+        }
+
+        final int nextLineStart = lineEnd + 1;
+        if ((lineEnd > pos) && (data[lineEnd - 1] == '\r'))
+        {
+          lineEnd--;
+        }
+
+        lineNumber++;
+
+        if (lineEnd == pos)
+        {
+          // It's a blank line, so it either ends the current record or is an
+          // extra space between records.
+          lastWasComment = false;
+          if (lineList.isEmpty())
+          {
+            recordFirstLineNumber++;
+          }
+          else
+          {
+            parseRecord(recordParser, resultList,
+                 new UnparsedLDIFRecord(lineList, duplicateValueBehavior,
+                      trailingSpaceBehavior, schema, recordFirstLineNumber));
+            lineList = new ArrayList<>(20);
+            recordFirstLineNumber = lineNumber + 1L;
+          }
+        }
+        else if (data[pos] == ' ')
+        {
+          // It's a continuation of the previous line, which we can ignore if
+          // that was a comment.
+          if (lastWasComment)
+          {
+            // No action is required.
+          }
+          else if (lineList.isEmpty())
+          {
+            parseRecord(recordParser, resultList,
+                 new UnparsedLDIFRecord(new LDIFException(
+                      ERR_READ_UNEXPECTED_FIRST_SPACE.get(lineNumber),
+                      lineNumber, false)));
+            recordFirstLineNumber = lineNumber + 1L;
+          }
+          else
+          {
+            appendUTF8(lineList.get(lineList.size() - 1), data, (pos + 1),
+                 (lineEnd - pos - 1));
+          }
+        }
+        else if (data[pos] == '#')
+        {
+          lastWasComment = true;
+        }
+        else if (lineList.isEmpty() && isVersionLine(pos, lineEnd))
+        {
+          lastWasComment = true;
+        }
+        else
+        {
+          final StringBuilder line = new StringBuilder(lineEnd - pos);
+          appendUTF8(line, data, pos, (lineEnd - pos));
+          lineList.add(line);
+          lastWasComment = false;
+        }
+
+        pos = nextLineStart;
+      }
+
+      // Only the last chunk of the input may end without a blank line.
+      if (! lineList.isEmpty())
+      {
+        parseRecord(recordParser, resultList,
+             new UnparsedLDIFRecord(lineList, duplicateValueBehavior,
+                  trailingSpaceBehavior, schema, recordFirstLineNumber));
+      }
+
+      return resultList;
+    }
+
+
+
+    /**
+     * Indicates whether the specified line of the data starts with
+     * "version:".
+     *
+     * @param  start  The position of the first byte of the line.
+     * @param  end    The position immediately after the last byte of the line.
+     *
+     * @return  {@code true} if the line starts with "version:", or
+     *          {@code false} if not.
+     */
+    private boolean isVersionLine(final int start, final int end)
+    {
+      final String prefix = "version:";
+      if ((end - start) < prefix.length())
+      {
+        return false;
+      }
+
+      for (int i=0; i < prefix.length(); i++)
+      {
+        if (data[start + i] != prefix.charAt(i))
+        {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+
+
+    /**
+     * Parses the provided unparsed record and adds the result to the given
+     * list.
+     *
+     * @param  recordParser    The record parser to use.
+     * @param  resultList      The list to which the result should be added.
+     * @param  unparsedRecord  The unparsed record to be parsed.
+     */
+    private void parseRecord(final RecordParser recordParser,
+                      final List<Result<UnparsedLDIFRecord,LDIFRecord>>
+                           resultList,
+                      final UnparsedLDIFRecord unparsedRecord)
+    {
+      try
+      {
+        resultList.add(new ChunkedRecordResult(unparsedRecord,
+             recordParser.process(unparsedRecord), null));
+      }
+      catch (final Exception e)
+      {
+        Debug.debugException(e);
+        resultList.add(new ChunkedRecordResult(unparsedRecord, null, e));
+      }
+    }
+
+
+
+    /**
+     * Indicates whether this chunk holds one of the chunk permits, which
+     * should be released after its records have been consumed.
+     *
+     * @return  {@code true} if this chunk holds a chunk permit, or
+     *          {@code false} if not.
+     */
+    private boolean holdsPermit()
+    {
+      return holdsPermit;
+    }
+
+
+
+    /**
+     * Waits for parsing to complete.
+     *
+     * @param  timeout  The maximum length of time to wait.
+     * @param  unit     The time unit for the timeout.
+     *
+     * @return  {@code true} if parsing is complete, or {@code false} if the
+     *          timeout expired first.
+     *
+     * @throws  InterruptedException  If the thread is interrupted while
+     *                                waiting.
+     */
+    private boolean awaitParsing(final long timeout, final TimeUnit unit)
+            throws InterruptedException
+    {
+      return parsingComplete.await(timeout, unit);
+    }
+
+
+
+    /**
+     * Retrieves the results of parsing this chunk.  This must only be called
+     * after parsing is complete.
+     *
+     * @return  The results of parsing this chunk.
+     */
+    private List<Result<UnparsedLDIFRecord,LDIFRecord>> getResults()
+    {
+      return results;
+    }
+  }
+
+
+
+  /**
+   * The result of parsing a record that was read in chunked mode.
+   */
+  private static final class ChunkedRecordResult
+          implements Result<UnparsedLDIFRecord,LDIFRecord>
+  {
+    // The unparsed record.
+    private final UnparsedLDIFRecord input;
+
+    // The parsed record, if available.
+    private final LDIFRecord output;
+
+    // The reason that parsing failed, if applicable.
+    private final Throwable failureCause;
+
+
+
+    /**
+     * Creates a new result with the provided information.
+     *
+     * @param  input         The unparsed record.
+     * @param  output        The parsed record, if available.
+     * @param  failureCause  The reason that parsing failed, if applicable.
+     */
+    private ChunkedRecordResult(final UnparsedLDIFRecord input,
+                                final LDIFRecord output,
+                                final Throwable failureCause)
+    {
+      this.input = input;
+      this.output = output;
+      this.failureCause = failureCause;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public UnparsedLDIFRecord getInput()
+    {
+      return input;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public LDIFRecord getOutput()
+    {
+      return output;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public Throwable getFailureCause()
+    {
+      return failureCause;
+    }
+  }
 }
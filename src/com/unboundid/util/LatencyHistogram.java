@@ -0,0 +1,451 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.util;
+
+
+
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.text.DecimalFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+
+/**
+ * This class provides a lock-free histogram that may be used to keep track of
+ * operation response times so that percentiles may be computed from them.
+ * Values are recorded as durations in nanoseconds and are placed into
+ * log-linear buckets:  values less than 128 are tracked exactly, and larger
+ * values are grouped into buckets whose width is 1/64 of the power of two
+ * that contains them, so that any reported percentile is within about 1.6% of
+ * the actual value.  Buckets are maintained with atomic counters, so values
+ * may be recorded concurrently by any number of threads, although the
+ * histogram is best used by giving each thread its own instance and
+ * periodically draining all of them into a combined histogram with the
+ * {@link #drainTo} method.
+ * <BR><BR>
+ * Histograms may optionally correct for coordinated omission.  When a client
+ * is attempting to issue requests at a fixed rate and a response takes longer
+ * than the expected interval between requests, the requests that should have
+ * been sent in the meantime are never issued and therefore never measured.
+ * The {@link #recordValue(long,long)} method compensates for this by also
+ * recording the response times that those requests would have experienced.
+ */
+@Mutable()
+@ThreadSafety(level=ThreadSafetyLevel.COMPLETELY_THREADSAFE)
+public final class LatencyHistogram
+       implements Serializable
+{
+  /**
+   * The serial version UID for this serializable class.
+   */
+  private static final long serialVersionUID = 2671521945691753783L;
+
+
+
+  /**
+   * The number of bits used to identify a sub-bucket within each power of
+   * two.
+   */
+  private static final int SUB_BUCKET_BITS = 6;
+
+
+
+  /**
+   * The number of sub-buckets within each power of two.
+   */
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+
+
+  /**
+   * The number of values that will be tracked exactly.
+   */
+  private static final int LINEAR_BUCKET_COUNT = 2 * SUB_BUCKET_COUNT;
+
+
+
+  /**
+   * The total number of buckets needed to cover all positive long values.
+   */
+  private static final int NUM_BUCKETS = LINEAR_BUCKET_COUNT +
+       ((63 - SUB_BUCKET_BITS - 1) * SUB_BUCKET_COUNT);
+
+
+
+  // The number of values recorded in each bucket.
+  private final AtomicLongArray counts;
+
+  // The largest value that has been recorded.
+  private final AtomicLong maxValue;
+
+
+
+  /**
+   * Creates a new, empty latency histogram.
+   */
+  public LatencyHistogram()
+  {
+    counts = new AtomicLongArray(NUM_BUCKETS);
+    maxValue = new AtomicLong(0L);
+  }
+
+
+
+  /**
+   * Records the provided response time in this histogram.
+   *
+   * @param  durationNanos  The response time to record, in nanoseconds.
+   *                        Negative values will be treated as zero.
+   */
+  public void recordValue(final long durationNanos)
+  {
+    final long value = Math.max(0L, durationNanos);
+
+    // Update the maximum before the count so that a concurrent call to drainTo
+    // will never see a count for a value that is larger than the maximum.
+    long currentMax = maxValue.get();
+    while (value > currentMax)
+    {
+      if (maxValue.compareAndSet(currentMax, value))
+      {
+        break;
+      }
+
+      currentMax = maxValue.get();
+    }
+
+    counts.incrementAndGet(getBucketIndex(value));
+  }
+
+
+
+  /**
+   * Records the provided response time in this histogram, correcting for
+   * coordinated omission.  If the response time is larger than the expected
+   * interval between requests, then additional values will be recorded for
+   * the requests that would have been issued during that time, each of them
+   * one interval shorter than the last, until the value would be less than
+   * the expected interval.
+   *
+   * @param  durationNanos          The response time to record, in
+   *                                nanoseconds.  Negative values will be
+   *                                treated as zero.
+   * @param  expectedIntervalNanos  The expected interval between requests, in
+   *                                nanoseconds.  If this is less than or equal
+   *                                to zero, then no correction will be
+   *                                performed.
+   */
+  public void recordValue(final long durationNanos,
+                          final long expectedIntervalNanos)
+  {
+    recordValue(durationNanos);
+    if (expectedIntervalNanos <= 0L)
+    {
+      return;
+    }
+
+    for (long missingValue = durationNanos - expectedIntervalNanos;
+         missingValue >= expectedIntervalNanos;
+         missingValue -= expectedIntervalNanos)
+    {
+      recordValue(missingValue);
+    }
+  }
+
+
+
+  /**
+   * Adds all of the values recorded in this histogram to the provided
+   * histogram and clears them from this histogram.  Values may continue to be
+   * recorded while this method is in progress, and any value will be counted
+   * exactly once, either in the provided histogram or in a subsequent drain
+   * of this histogram.
+   *
+   * @param  target  The histogram to which the values should be added.  It
+   *                 must not be {@code null}, and it must not be this
+   *                 histogram.
+   */
+  public void drainTo(final LatencyHistogram target)
+  {
+    Validator.ensureTrue(target != this);
+
+    for (int i=0; i < NUM_BUCKETS; i++)
+    {
+      if (counts.get(i) != 0L)
+      {
+        target.counts.addAndGet(i, counts.getAndSet(i, 0L));
+      }
+    }
+
+    target.updateMax(maxValue.getAndSet(0L));
+  }
+
+
+
+  /**
+   * Adds all of the values recorded in the provided histogram to this
+   * histogram.  The provided histogram will not be altered.
+   *
+   * @param  source  The histogram whose values should be added to this
+   *                 histogram.  It must not be {@code null}.
+   */
+  public void add(final LatencyHistogram source)
+  {
+    for (int i=0; i < NUM_BUCKETS; i++)
+    {
+      final long count = source.counts.get(i);
+      if (count != 0L)
+      {
+        counts.addAndGet(i, count);
+      }
+    }
+
+    updateMax(source.maxValue.get());
+  }
+
+
+
+  /**
+   * Updates the maximum value for this histogram if the provided value is
+   * larger than the current maximum.
+   *
+   * @param  value  The value to consider.
+   */
+  private void updateMax(final long value)
+  {
+    long currentMax = maxValue.get();
+    while (value > currentMax)
+    {
+      if (maxValue.compareAndSet(currentMax, value))
+      {
+        return;
+      }
+
+      currentMax = maxValue.get();
+    }
+  }
+
+
+
+  /**
+   * Retrieves the total number of values that have been recorded in this
+   * histogram.
+   *
+   * @return  The total number of values that have been recorded in this
+   *          histogram.
+   */
+  public long getTotalCount()
+  {
+    long total = 0L;
+    for (int i=0; i < NUM_BUCKETS; i++)
+    {
+      total += counts.get(i);
+    }
+
+    return total;
+  }
+
+
+
+  /**
+   * Retrieves the largest value that has been recorded in this histogram.
+   *
+   * @return  The largest value that has been recorded in this histogram, in
+   *          nanoseconds, or zero if no values have been recorded.
+   */
+  public long getMaxValue()
+  {
+    return maxValue.get();
+  }
+
+
+
+  /**
+   * Retrieves the value at the specified percentile.  The value returned will
+   * be the largest value that falls into the same bucket as the value at that
+   * percentile, but it will never be larger than the maximum recorded value.
+   *
+   * @param  percentile  The percentile for which to retrieve the value.  It
+   *                     must be between 0 and 100, inclusive.
+   *
+   * @return  The value at the specified percentile, in nanoseconds, or zero
+   *          if no values have been recorded.
+   */
+  public long getValueAtPercentile(final double percentile)
+  {
+    Validator.ensureTrue(((percentile >= 0.0d) && (percentile <= 100.0d)),
+         "LatencyHistogram.getValueAtPercentile.percentile must be between " +
+              "0 and 100.");
+
+    final long[] snapshot = new long[NUM_BUCKETS];
+    long total = 0L;
+    for (int i=0; i < NUM_BUCKETS; i++)
+    {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+
+    if (total == 0L)
+    {
+      return 0L;
+    }
+
+    final long targetCount =
+         Math.max(1L, (long) Math.ceil(percentile / 100.0d * total));
+    long cumulativeCount = 0L;
+    for (int i=0; i < NUM_BUCKETS; i++)
+    {
+      cumulativeCount += snapshot[i];
+      if (cumulativeCount >= targetCount)
+      {
+        return Math.min(getBucketUpperBound(i), maxValue.get());
+      }
+    }
+
+    return maxValue.get();
+  }
+
+
+
+  /**
+   * Retrieves the value at the specified percentile, in milliseconds.
+   *
+   * @param  percentile  The percentile for which to retrieve the value.  It
+   *                     must be between 0 and 100, inclusive.
+   *
+   * @return  The value at the specified percentile, in milliseconds, or zero
+   *          if no values have been recorded.
+   */
+  public double getMillisAtPercentile(final double percentile)
+  {
+    return getValueAtPercentile(percentile) / 1_000_000.0d;
+  }
+
+
+
+  /**
+   * Writes the contents of this histogram to the provided writer in
+   * comma-separated values format.  The output will include a header line
+   * followed by one line for each non-empty bucket, giving the lower and upper
+   * bounds of the bucket in milliseconds, the number of values in that bucket,
+   * and the percentage of all values that are less than or equal to the upper
+   * bound of that bucket.
+   *
+   * @param  writer  The writer to which the histogram should be written.  It
+   *                 must not be {@code null}.
+   */
+  public void writeCSV(final PrintWriter writer)
+  {
+    final long[] snapshot = new long[NUM_BUCKETS];
+    long total = 0L;
+    for (int i=0; i < NUM_BUCKETS; i++)
+    {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+
+    final DecimalFormat millisFormat = new DecimalFormat("0.000000");
+    final DecimalFormat percentFormat = new DecimalFormat("0.000");
+    writer.println("Lower Bound ms,Upper Bound ms,Count,Cumulative Percent");
+
+    long cumulativeCount = 0L;
+    for (int i=0; i < NUM_BUCKETS; i++)
+    {
+      if (snapshot[i] == 0L)
+      {
+        continue;
+      }
+
+      cumulativeCount += snapshot[i];
+      writer.println(
+           millisFormat.format(getBucketLowerBound(i) / 1_000_000.0d) + ',' +
+           millisFormat.format(getBucketUpperBound(i) / 1_000_000.0d) + ',' +
+           snapshot[i] + ',' +
+           percentFormat.format(100.0d * cumulativeCount / total));
+    }
+  }
+
+
+
+  /**
+   * Retrieves the index of the bucket that holds the provided value.
+   *
+   * @param  value  The value for which to retrieve the bucket index.  It must
+   *                not be negative.
+   *
+   * @return  The index of the bucket that holds the provided value.
+   */
+  static int getBucketIndex(final long value)
+  {
+    if (value < LINEAR_BUCKET_COUNT)
+    {
+      return (int) value;
+    }
+
+    final int highestBit = 63 - Long.numberOfLeadingZeros(value);
+    final int shift = highestBit - SUB_BUCKET_BITS;
+    final int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+    return LINEAR_BUCKET_COUNT + ((shift - 1) * SUB_BUCKET_COUNT) + subBucket;
+  }
+
+
+
+  /**
+   * Retrieves the smallest value that may be held in the specified bucket.
+   *
+   * @param  index  The index of the bucket.
+   *
+   * @return  The smallest value that may be held in the specified bucket.
+   */
+  static long getBucketLowerBound(final int index)
+  {
+    if (index < LINEAR_BUCKET_COUNT)
+    {
+      return index;
+    }
+
+    final int offset = index - LINEAR_BUCKET_COUNT;
+    final int shift = (offset / SUB_BUCKET_COUNT) + 1;
+    final long subBucket = (offset % SUB_BUCKET_COUNT) + SUB_BUCKET_COUNT;
+    return subBucket << shift;
+  }
+
+
+
+  /**
+   * Retrieves the largest value that may be held in the specified bucket.
+   *
+   * @param  index  The index of the bucket.
+   *
+   * @return  The largest value that may be held in the specified bucket.
+   */
+  static long getBucketUpperBound(final int index)
+  {
+    if (index == (NUM_BUCKETS - 1))
+    {
+      return Long.MAX_VALUE;
+    }
+
+    return getBucketLowerBound(index + 1) - 1L;
+  }
+}
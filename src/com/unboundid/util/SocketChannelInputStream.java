@@ -0,0 +1,279 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.util;
+
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+
+
+/**
+ * This class provides an input stream that reads data directly from a socket
+ * channel.  Unlike the input stream obtained from the channel's socket, it may
+ * be used regardless of whether the channel is currently configured in
+ * blocking or non-blocking mode, so that data may be read from a connection
+ * that is registered with a selector.  If the channel is in non-blocking mode
+ * and no data is available, then a read will wait until data arrives, or until
+ * the socket's {@code SO_TIMEOUT} has elapsed, in which case a
+ * {@code SocketTimeoutException} will be thrown, just as it would for the
+ * socket's own input stream.
+ * <BR><BR>
+ * When the channel is in non-blocking mode, the {@link #available} method will
+ * perform a non-blocking read to determine whether any data has arrived, which
+ * makes it possible to determine whether another read would block.  This class
+ * is intended for use only within the LDAP SDK.
+ */
+@InternalUseOnly()
+@ThreadSafety(level=ThreadSafetyLevel.NOT_THREADSAFE)
+public final class SocketChannelInputStream
+      extends InputStream
+{
+  /**
+   * The size to use for the buffer that holds data obtained by the
+   * {@code available} method.
+   */
+  private static final int BUFFER_SIZE = 4096;
+
+
+
+  // The buffer that holds any data that has been read from the channel but not
+  // yet consumed.
+  private final ByteBuffer buffer;
+
+  // The input stream for the channel's socket, which will be used when the
+  // channel is in blocking mode so that the SO_TIMEOUT will be honored.
+  private final InputStream socketInputStream;
+
+  // The socket whose channel will be read.
+  private final Socket socket;
+
+  // The socket channel from which data will be read.
+  private final SocketChannel channel;
+
+
+
+  /**
+   * Creates a new input stream that will read from the channel for the
+   * provided socket.
+   *
+   * @param  socket  The socket from which data will be read.  It must not be
+   *                 {@code null}, and it must have an associated channel.
+   *
+   * @throws  IOException  If a problem occurs while preparing to read from the
+   *                       socket.
+   */
+  public SocketChannelInputStream(final Socket socket)
+         throws IOException
+  {
+    this.socket = socket;
+
+    channel = socket.getChannel();
+    socketInputStream = socket.getInputStream();
+
+    buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    buffer.flip();
+  }
+
+
+
+  /**
+   * Reads a single byte from the channel.
+   *
+   * @return  The byte that was read, or -1 if the end of the stream has been
+   *          reached.
+   *
+   * @throws  IOException  If a problem occurs while reading from the channel.
+   */
+  @Override()
+  public int read()
+         throws IOException
+  {
+    final byte[] b = new byte[1];
+    while (true)
+    {
+      final int bytesRead = read(b, 0, 1);
+      if (bytesRead < 0)
+      {
+        return -1;
+      }
+      else if (bytesRead > 0)
+      {
+        return (b[0] & 0xFF);
+      }
+    }
+  }
+
+
+
+  /**
+   * Reads data from the channel into the specified portion of the provided
+   * array, waiting if necessary for data to become available.
+   *
+   * @param  b    The array into which the data should be read.
+   * @param  off  The position in the array at which to start writing data.
+   * @param  len  The maximum number of bytes to read.
+   *
+   * @return  The number of bytes that were read, or -1 if the end of the stream
+   *          has been reached.
+   *
+   * @throws  IOException  If a problem occurs while reading from the channel.
+   */
+  @Override()
+  public int read(final byte[] b, final int off, final int len)
+         throws IOException
+  {
+    if (len == 0)
+    {
+      return 0;
+    }
+
+    if (buffer.hasRemaining())
+    {
+      final int bytesRead = Math.min(len, buffer.remaining());
+      buffer.get(b, off, bytesRead);
+      return bytesRead;
+    }
+
+    final ByteBuffer target = ByteBuffer.wrap(b, off, len);
+    while (true)
+    {
+      if (channel.isBlocking())
+      {
+        return socketInputStream.read(b, off, len);
+      }
+
+      final int bytesRead = channel.read(target);
+      if (bytesRead != 0)
+      {
+        return bytesRead;
+      }
+
+      awaitReadable();
+    }
+  }
+
+
+
+  /**
+   * Retrieves the number of bytes that may be read without blocking.  If the
+   * channel is in non-blocking mode and no data has been buffered, then a
+   * non-blocking read will be performed to determine whether any data has
+   * arrived.
+   *
+   * @return  The number of bytes that may be read without blocking.
+   *
+   * @throws  IOException  If a problem occurs while reading from the channel.
+   */
+  @Override()
+  public int available()
+         throws IOException
+  {
+    if (buffer.hasRemaining())
+    {
+      return buffer.remaining();
+    }
+
+    if (channel.isBlocking())
+    {
+      return socketInputStream.available();
+    }
+
+    buffer.clear();
+    try
+    {
+      channel.read(buffer);
+    }
+    catch (final IllegalBlockingModeException e)
+    {
+      // The channel has been switched to blocking mode.
+      Debug.debugException(e);
+    }
+    finally
+    {
+      buffer.flip();
+    }
+
+    return buffer.remaining();
+  }
+
+
+
+  /**
+   * Waits until the channel has data available to be read, or until the
+   * socket's {@code SO_TIMEOUT} has elapsed.  This will only be invoked if the
+   * channel is in non-blocking mode.
+   *
+   * @throws  IOException  If a problem occurs while waiting, or if the timeout
+   *                       elapses before any data becomes available.
+   */
+  private void awaitReadable()
+          throws IOException
+  {
+    final int timeoutMillis = socket.getSoTimeout();
+    final long stopTime = System.currentTimeMillis() + timeoutMillis;
+    try (Selector selector = Selector.open())
+    {
+      channel.register(selector, SelectionKey.OP_READ);
+      while (selector.select(timeoutMillis) == 0)
+      {
+        if (Thread.currentThread().isInterrupted())
+        {
+          throw new InterruptedIOException();
+        }
+        else if ((timeoutMillis > 0) &&
+                 (System.currentTimeMillis() >= stopTime))
+        {
+          throw new SocketTimeoutException();
+        }
+      }
+    }
+    catch (final IllegalBlockingModeException e)
+    {
+      // The channel has been switched to blocking mode, so the next attempt to
+      // read will block until data is available.
+      Debug.debugException(e);
+    }
+  }
+
+
+
+  /**
+   * Closes the underlying channel.
+   *
+   * @throws  IOException  If a problem occurs while closing the channel.
+   */
+  @Override()
+  public void close()
+         throws IOException
+  {
+    channel.close();
+  }
+}
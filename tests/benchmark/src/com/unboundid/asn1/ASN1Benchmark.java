@@ -0,0 +1,168 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.asn1;
+
+
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.unboundid.ldap.protocol.LDAPMessage;
+import com.unboundid.ldap.protocol.LDAPResponse;
+import com.unboundid.ldap.protocol.SearchResultEntryProtocolOp;
+import com.unboundid.ldap.sdk.Entry;
+
+
+
+/**
+ * This class provides a set of JMH microbenchmarks for encoding LDAP messages
+ * with the {@link ASN1Buffer} class and decoding them with the
+ * {@link ASN1StreamReader} class.  The message used is a search result entry,
+ * since that is by far the most common type of message read by clients.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+@Measurement(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+@Fork(1)
+public class ASN1Benchmark
+{
+  /**
+   * The number of values to include in the description attribute of the
+   * entry, which controls the size of the encoded message.
+   */
+  @Param({ "1", "100" })
+  public int numValues;
+
+
+
+  // The buffer used to encode the message.
+  private ASN1Buffer buffer;
+
+  // The encoded representation of the message.
+  private byte[] encodedMessage;
+
+  // The message to encode.
+  private LDAPMessage message;
+
+
+
+  /**
+   * Creates the message to be encoded and its encoded representation.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Setup()
+  public void setUp()
+         throws Exception
+  {
+    final Entry entry = new Entry(
+         "dn: uid=user.1,ou=People,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: person",
+         "objectClass: organizationalPerson",
+         "objectClass: inetOrgPerson",
+         "uid: user.1",
+         "givenName: User",
+         "sn: 1",
+         "cn: User 1",
+         "mail: user.1@example.com",
+         "telephoneNumber: +1 512 555 1234");
+
+    final String[] descriptions = new String[numValues];
+    for (int i=0; i < numValues; i++)
+    {
+      descriptions[i] = "This is description value number " + i;
+    }
+    entry.addAttribute("description", descriptions);
+
+    message = new LDAPMessage(1, new SearchResultEntryProtocolOp(entry));
+    buffer = new ASN1Buffer();
+
+    message.writeTo(buffer);
+    encodedMessage = buffer.toByteArray();
+  }
+
+
+
+  /**
+   * Encodes the search result entry message.
+   *
+   * @return  The number of bytes in the encoded message.
+   */
+  @Benchmark()
+  public int encodeSearchResultEntry()
+  {
+    buffer.clear();
+    message.writeTo(buffer);
+    return buffer.length();
+  }
+
+
+
+  /**
+   * Decodes the search result entry message.
+   *
+   * @return  The decoded response.
+   *
+   * @throws  Exception  If a problem occurs while decoding the message.
+   */
+  @Benchmark()
+  public LDAPResponse decodeSearchResultEntry()
+         throws Exception
+  {
+    final ASN1StreamReader reader =
+         new ASN1StreamReader(new ByteArrayInputStream(encodedMessage));
+    return LDAPMessage.readLDAPResponseFrom(reader, true);
+  }
+
+
+
+  /**
+   * Decodes the search result entry message as a generic ASN.1 element
+   * without interpreting its contents.
+   *
+   * @return  The decoded element.
+   *
+   * @throws  Exception  If a problem occurs while decoding the message.
+   */
+  @Benchmark()
+  public ASN1Element readElement()
+         throws Exception
+  {
+    final ASN1StreamReader reader =
+         new ASN1StreamReader(new ByteArrayInputStream(encodedMessage));
+    return reader.readElement();
+  }
+}
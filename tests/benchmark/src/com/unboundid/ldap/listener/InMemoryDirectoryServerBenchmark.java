@@ -0,0 +1,259 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.listener;
+
+
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPResult;
+import com.unboundid.ldap.sdk.Modification;
+import com.unboundid.ldap.sdk.ModificationType;
+import com.unboundid.ldap.sdk.SearchResult;
+import com.unboundid.ldap.sdk.SearchScope;
+
+
+
+/**
+ * This class provides a set of end-to-end JMH benchmarks that process
+ * operations over loopback connections to an {@link InMemoryDirectoryServer}.
+ * These exercise the full client and server stacks, including request
+ * encoding, the connection reader, listener request handling, and the
+ * in-memory request handler.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+@Measurement(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+@Fork(1)
+@Threads(8)
+public class InMemoryDirectoryServerBenchmark
+{
+  /**
+   * The state that holds the in-memory directory server, which is shared by
+   * all threads.
+   */
+  @State(Scope.Benchmark)
+  public static class ServerState
+  {
+    /**
+     * The number of user entries to include in the server.
+     */
+    @Param({ "10000" })
+    public int numEntries;
+
+    // The in-memory directory server.
+    private InMemoryDirectoryServer ds;
+
+
+
+    /**
+     * Creates and populates the in-memory directory server.
+     *
+     * @throws  Exception  If an unexpected problem occurs.
+     */
+    @Setup()
+    public void setUp()
+           throws Exception
+    {
+      final InMemoryDirectoryServerConfig config =
+           new InMemoryDirectoryServerConfig("dc=example,dc=com");
+      config.setEqualityIndexAttributes("uid");
+
+      ds = new InMemoryDirectoryServer(config);
+      ds.add(
+           "dn: dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: domain",
+           "dc: example");
+      ds.add(
+           "dn: ou=People,dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: People");
+
+      for (int i=0; i < numEntries; i++)
+      {
+        ds.add(new Entry(
+             "dn: uid=user." + i + ",ou=People,dc=example,dc=com",
+             "objectClass: top",
+             "objectClass: person",
+             "objectClass: organizationalPerson",
+             "objectClass: inetOrgPerson",
+             "uid: user." + i,
+             "givenName: User",
+             "sn: " + i,
+             "cn: User " + i,
+             "mail: user." + i + "@example.com",
+             "description: initial"));
+      }
+
+      ds.startListening();
+    }
+
+
+
+    /**
+     * Shuts down the in-memory directory server.
+     */
+    @TearDown()
+    public void tearDown()
+    {
+      ds.shutDown(true);
+    }
+  }
+
+
+
+  /**
+   * The state that holds a connection to the server for each thread.
+   */
+  @State(Scope.Thread)
+  public static class ConnectionState
+  {
+    // The connection to the server.
+    private LDAPConnection connection;
+
+
+
+    /**
+     * Establishes the connection to the server.
+     *
+     * @param  serverState  The state that holds the server.
+     *
+     * @throws  Exception  If an unexpected problem occurs.
+     */
+    @Setup()
+    public void setUp(final ServerState serverState)
+           throws Exception
+    {
+      connection = serverState.ds.getConnection();
+    }
+
+
+
+    /**
+     * Closes the connection to the server.
+     */
+    @TearDown()
+    public void tearDown()
+    {
+      connection.close();
+    }
+  }
+
+
+
+  /**
+   * Retrieves a randomly-selected entry with a base-level search.
+   *
+   * @param  serverState      The state that holds the server.
+   * @param  connectionState  The state that holds the connection.
+   *
+   * @return  The entry that was retrieved.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Benchmark()
+  public Entry baseSearch(final ServerState serverState,
+                          final ConnectionState connectionState)
+         throws Exception
+  {
+    return connectionState.connection.getEntry("uid=user." +
+         randomUser(serverState) + ",ou=People,dc=example,dc=com");
+  }
+
+
+
+  /**
+   * Finds a randomly-selected entry with an indexed subtree search.
+   *
+   * @param  serverState      The state that holds the server.
+   * @param  connectionState  The state that holds the connection.
+   *
+   * @return  The search result.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Benchmark()
+  public SearchResult subtreeSearch(final ServerState serverState,
+                                    final ConnectionState connectionState)
+         throws Exception
+  {
+    return connectionState.connection.search("dc=example,dc=com",
+         SearchScope.SUB, "(uid=user." + randomUser(serverState) + ')');
+  }
+
+
+
+  /**
+   * Replaces the description of a randomly-selected entry.
+   *
+   * @param  serverState      The state that holds the server.
+   * @param  connectionState  The state that holds the connection.
+   *
+   * @return  The result of the modify operation.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Benchmark()
+  public LDAPResult modify(final ServerState serverState,
+                           final ConnectionState connectionState)
+         throws Exception
+  {
+    return connectionState.connection.modify(
+         "uid=user." + randomUser(serverState) +
+              ",ou=People,dc=example,dc=com",
+         new Modification(ModificationType.REPLACE, "description",
+              String.valueOf(System.nanoTime())));
+  }
+
+
+
+  /**
+   * Selects a random user number.
+   *
+   * @param  serverState  The state that holds the server.
+   *
+   * @return  The selected user number.
+   */
+  private static int randomUser(final ServerState serverState)
+  {
+    return ThreadLocalRandom.current().nextInt(serverState.numEntries);
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.unboundid.ldap.sdk.schema.Schema;
+
+
+
+/**
+ * This class provides a set of JMH microbenchmarks for parsing, normalizing,
+ * and comparing DNs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+@Measurement(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+@Fork(1)
+public class DNBenchmark
+{
+  /**
+   * The string representation of the DN to use.
+   */
+  @Param({ "uid=user.1,ou=People,dc=example,dc=com",
+           "CN=John Doe+employeeNumber=12345,OU=Engineering,O=Example,C=US",
+           "cn=Doe\\, John,ou=People,dc=example,dc=com" })
+  public String dnString;
+
+
+
+  // The parsed representation of the DN.
+  private DN dn;
+
+  // The DN of the base entry used for hierarchy comparisons.
+  private DN baseDN;
+
+  // The schema to use for normalization.
+  private Schema schema;
+
+
+
+  /**
+   * Parses the DN and obtains the schema.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Setup()
+  public void setUp()
+         throws Exception
+  {
+    schema = Schema.getDefaultStandardSchema();
+    dn = new DN(dnString);
+    baseDN = dn.getParent().getParent();
+  }
+
+
+
+  /**
+   * Parses the DN string without a schema.
+   *
+   * @return  The parsed DN.
+   *
+   * @throws  Exception  If the DN cannot be parsed.
+   */
+  @Benchmark()
+  public DN parse()
+         throws Exception
+  {
+    return new DN(dnString);
+  }
+
+
+
+  /**
+   * Parses the DN string with a schema.
+   *
+   * @return  The parsed DN.
+   *
+   * @throws  Exception  If the DN cannot be parsed.
+   */
+  @Benchmark()
+  public DN parseWithSchema()
+         throws Exception
+  {
+    return new DN(dnString, schema);
+  }
+
+
+
+  /**
+   * Parses the DN string and obtains its normalized representation.
+   *
+   * @return  The normalized representation of the DN.
+   *
+   * @throws  Exception  If the DN cannot be parsed.
+   */
+  @Benchmark()
+  public String parseAndNormalize()
+         throws Exception
+  {
+    return new DN(dnString).toNormalizedString();
+  }
+
+
+
+  /**
+   * Determines whether the parsed DN is a descendant of its grandparent.
+   *
+   * @return  {@code true} if the DN is a descendant of its grandparent, which
+   *          will always be the case.
+   */
+  @Benchmark()
+  public boolean isDescendantOf()
+  {
+    return dn.isDescendantOf(baseDN, false);
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.unboundid.ldap.sdk.schema.Schema;
+
+
+
+/**
+ * This class provides a set of JMH microbenchmarks for parsing filters and
+ * evaluating them against entries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+@Measurement(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+@Fork(1)
+public class FilterBenchmark
+{
+  /**
+   * The string representation of the filter to use.
+   */
+  @Param({ "(uid=user.1)",
+           "(&(objectClass=person)(mail=*@example.com))",
+           "(|(cn=Jane*)(sn=Doe)(employeeNumber>=50000))",
+           "(&(objectClass=inetOrgPerson)(!(description=*retired*)))" })
+  public String filterString;
+
+
+
+  // The entry against which the filter will be evaluated.
+  private Entry entry;
+
+  // The parsed representation of the filter.
+  private Filter filter;
+
+  // The schema to use for matching.
+  private Schema schema;
+
+
+
+  /**
+   * Parses the filter and creates the entry.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Setup()
+  public void setUp()
+         throws Exception
+  {
+    schema = Schema.getDefaultStandardSchema();
+    filter = Filter.create(filterString);
+    entry = new Entry(
+         "dn: uid=user.1,ou=People,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: person",
+         "objectClass: organizationalPerson",
+         "objectClass: inetOrgPerson",
+         "uid: user.1",
+         "givenName: User",
+         "sn: 1",
+         "cn: User 1",
+         "mail: user.1@example.com",
+         "employeeNumber: 12345",
+         "description: This is a description of the user");
+  }
+
+
+
+  /**
+   * Parses the filter string.
+   *
+   * @return  The parsed filter.
+   *
+   * @throws  Exception  If the filter cannot be parsed.
+   */
+  @Benchmark()
+  public Filter parse()
+         throws Exception
+  {
+    return Filter.create(filterString);
+  }
+
+
+
+  /**
+   * Evaluates the filter against the entry without a schema.
+   *
+   * @return  The result of the evaluation.
+   *
+   * @throws  Exception  If a problem occurs during evaluation.
+   */
+  @Benchmark()
+  public boolean matchesEntry()
+         throws Exception
+  {
+    return filter.matchesEntry(entry);
+  }
+
+
+
+  /**
+   * Evaluates the filter against the entry with a schema.
+   *
+   * @return  The result of the evaluation.
+   *
+   * @throws  Exception  If a problem occurs during evaluation.
+   */
+  @Benchmark()
+  public boolean matchesEntryWithSchema()
+         throws Exception
+  {
+    return filter.matchesEntry(entry, schema);
+  }
+}
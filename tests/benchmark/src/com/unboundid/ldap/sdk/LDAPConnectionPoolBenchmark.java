@@ -0,0 +1,261 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+
+
+
+/**
+ * This class provides a set of JMH microbenchmarks for the connection
+ * checkout path of the {@link LDAPConnectionPool} class.  The
+ * {@code queueCheckoutAndRelease} benchmark compares the
+ * {@link LDAPConnectionPoolQueue} used to hold available connections, in both
+ * FIFO and LIFO modes, against the {@code LinkedBlockingQueue} that was
+ * previously used, and the {@code poolCheckoutAndRelease} benchmark measures
+ * the full checkout path of a pool connected to an in-memory directory server.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+@Measurement(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+@Fork(1)
+@Threads(64)
+public class LDAPConnectionPoolBenchmark
+{
+  /**
+   * The amount of simulated work, in JMH tokens, performed while holding a
+   * connection.
+   */
+  private static final long WORK_TOKENS = 100L;
+
+
+
+  /**
+   * The state for the queue benchmark, which holds a queue of unconnected
+   * connection objects.
+   */
+  @State(Scope.Benchmark)
+  public static class QueueState
+  {
+    /**
+     * The type of queue to use.  The "LinkedBlockingQueue" value indicates
+     * that a {@code LinkedBlockingQueue} should be used, while the "FIFO" and
+     * "LIFO" values indicate that an {@code LDAPConnectionPoolQueue} should be
+     * used in the corresponding mode.
+     */
+    @Param({ "LinkedBlockingQueue", "FIFO", "LIFO" })
+    public String queueType;
+
+    /**
+     * The number of connections to make available.
+     */
+    @Param({ "10", "100" })
+    public int numConnections;
+
+    // The linked blocking queue, if one is in use.
+    private LinkedBlockingQueue<LDAPConnection> linkedBlockingQueue;
+
+    // The connection pool queue, if one is in use.
+    private LDAPConnectionPoolQueue connectionPoolQueue;
+
+
+
+    /**
+     * Creates and populates the queue.
+     */
+    @Setup()
+    public void setUp()
+    {
+      if (queueType.equals("LinkedBlockingQueue"))
+      {
+        linkedBlockingQueue = new LinkedBlockingQueue<>(numConnections);
+        for (int i=0; i < numConnections; i++)
+        {
+          linkedBlockingQueue.offer(new LDAPConnection());
+        }
+      }
+      else
+      {
+        connectionPoolQueue = new LDAPConnectionPoolQueue(numConnections);
+        connectionPoolQueue.setLIFO(queueType.equals("LIFO"));
+        for (int i=0; i < numConnections; i++)
+        {
+          connectionPoolQueue.offer(new LDAPConnection());
+        }
+      }
+    }
+
+
+
+    /**
+     * Checks out a connection, waiting for one to become available if
+     * necessary.
+     *
+     * @return  The connection that was checked out.
+     *
+     * @throws  InterruptedException  If the thread is interrupted while
+     *                                waiting.
+     */
+    LDAPConnection checkout()
+         throws InterruptedException
+    {
+      if (linkedBlockingQueue == null)
+      {
+        return connectionPoolQueue.poll(1L, TimeUnit.MINUTES);
+      }
+      else
+      {
+        return linkedBlockingQueue.poll(1L, TimeUnit.MINUTES);
+      }
+    }
+
+
+
+    /**
+     * Releases the provided connection.
+     *
+     * @param  connection  The connection to release.
+     */
+    void release(final LDAPConnection connection)
+    {
+      if (linkedBlockingQueue == null)
+      {
+        connectionPoolQueue.offer(connection);
+      }
+      else
+      {
+        linkedBlockingQueue.offer(connection);
+      }
+    }
+  }
+
+
+
+  /**
+   * The state for the pool benchmark, which holds a connection pool
+   * established to an in-memory directory server.
+   */
+  @State(Scope.Benchmark)
+  public static class PoolState
+  {
+    /**
+     * Indicates whether the pool should use LIFO connection reuse.
+     */
+    @Param({ "false", "true" })
+    public boolean lifo;
+
+    // The in-memory directory server.
+    private InMemoryDirectoryServer ds;
+
+    // The connection pool.
+    private LDAPConnectionPool pool;
+
+
+
+    /**
+     * Starts the server and creates the connection pool.
+     *
+     * @throws  Exception  If an unexpected problem occurs.
+     */
+    @Setup()
+    public void setUp()
+           throws Exception
+    {
+      ds = new InMemoryDirectoryServer("dc=example,dc=com");
+      ds.startListening();
+
+      pool = ds.getConnectionPool(null, null, 10, 10);
+      pool.setMaxWaitTimeMillis(60_000L);
+      pool.setUseLIFOConnectionReuse(lifo);
+    }
+
+
+
+    /**
+     * Closes the connection pool and shuts down the server.
+     */
+    @TearDown()
+    public void tearDown()
+    {
+      pool.close();
+      ds.shutDown(true);
+    }
+  }
+
+
+
+  /**
+   * Checks out a connection from the queue, performs a small amount of work,
+   * and returns it to the queue.
+   *
+   * @param  state  The state for the benchmark.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Benchmark()
+  public void queueCheckoutAndRelease(final QueueState state)
+         throws Exception
+  {
+    final LDAPConnection connection = state.checkout();
+    Blackhole.consumeCPU(WORK_TOKENS);
+    state.release(connection);
+  }
+
+
+
+  /**
+   * Checks out a connection from the pool, performs a small amount of work,
+   * and returns it to the pool.
+   *
+   * @param  state  The state for the benchmark.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Benchmark()
+  public void poolCheckoutAndRelease(final PoolState state)
+         throws Exception
+  {
+    final LDAPConnection connection = state.pool.getConnection();
+    Blackhole.consumeCPU(WORK_TOKENS);
+    state.pool.releaseConnection(connection);
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldif;
+
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.unboundid.ldap.sdk.Entry;
+
+
+
+/**
+ * This class provides a JMH microbenchmark for reading entries with the
+ * {@link LDIFReader} class.  Each invocation reads a complete LDIF file held
+ * in memory, so the reported throughput is in files rather than entries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+@Measurement(iterations=5, time=1, timeUnit=TimeUnit.SECONDS)
+@Fork(1)
+public class LDIFReaderBenchmark
+{
+  /**
+   * The number of entries to include in the LDIF data.
+   */
+  @Param({ "10000" })
+  public int numEntries;
+
+
+
+  /**
+   * The number of threads that the LDIF reader should use to parse entries.
+   */
+  @Param({ "0", "4" })
+  public int numParseThreads;
+
+
+
+  // The LDIF data to read.
+  private byte[] ldifBytes;
+
+
+
+  /**
+   * Generates the LDIF data to read.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Setup()
+  public void setUp()
+         throws Exception
+  {
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (LDIFWriter writer = new LDIFWriter(outputStream))
+    {
+      writer.writeEntry(new Entry(
+           "dn: dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: domain",
+           "dc: example"));
+      writer.writeEntry(new Entry(
+           "dn: ou=People,dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: People"));
+
+      for (int i=0; i < numEntries; i++)
+      {
+        writer.writeEntry(new Entry(
+             "dn: uid=user." + i + ",ou=People,dc=example,dc=com",
+             "objectClass: top",
+             "objectClass: person",
+             "objectClass: organizationalPerson",
+             "objectClass: inetOrgPerson",
+             "uid: user." + i,
+             "givenName: User",
+             "sn: " + i,
+             "cn: User " + i,
+             "mail: user." + i + "@example.com",
+             "employeeNumber: " + i,
+             "telephoneNumber: +1 512 555 " + (1000 + (i % 9000)),
+             "description: This is the description for user " + i));
+      }
+    }
+
+    ldifBytes = outputStream.toByteArray();
+  }
+
+
+
+  /**
+   * Reads all of the entries from the LDIF data.
+   *
+   * @return  The number of entries read.
+   *
+   * @throws  Exception  If a problem occurs while reading the data.
+   */
+  @Benchmark()
+  public int readEntries()
+         throws Exception
+  {
+    int entriesRead = 0;
+    try (LDIFReader reader = new LDIFReader(
+              new ByteArrayInputStream(ldifBytes), numParseThreads))
+    {
+      while (reader.readEntry() != null)
+      {
+        entriesRead++;
+      }
+    }
+
+    return entriesRead;
+  }
+
+
+
+  /**
+   * Reads all of the entries from the LDIF data using the chunked reader, which
+   * requires at least one parse thread.
+   *
+   * @return  The number of entries read.
+   *
+   * @throws  Exception  If a problem occurs while reading the data.
+   */
+  @Benchmark()
+  public int readEntriesChunked()
+         throws Exception
+  {
+    int entriesRead = 0;
+    try (LDIFReader reader = new LDIFReader(
+              new ByteArrayInputStream(ldifBytes),
+              Math.max(1, numParseThreads), true, null, null))
+    {
+      while (reader.readEntry() != null)
+      {
+        entriesRead++;
+      }
+    }
+
+    return entriesRead;
+  }
+}
@@ -986,6 +986,73 @@ public class ASN1BufferTestCase
 
 
 
+  /**
+   * Retrieves a set of value lengths that exercise each possible number of
+   * bytes used to encode the length of a sequence or set.
+   *
+   * @return  A set of value lengths.
+   */
+  @DataProvider(name="sequenceValueLengths")
+  public Object[][] getSequenceValueLengths()
+  {
+    return new Object[][]
+    {
+      new Object[] { 0 },
+      new Object[] { 1 },
+      new Object[] { 125 },
+      new Object[] { 126 },
+      new Object[] { 127 },
+      new Object[] { 253 },
+      new Object[] { 65_000 },
+      new Object[] { 65_533 },
+      new Object[] { 70_000 },
+      new Object[] { 16_777_300 }
+    };
+  }
+
+
+
+  /**
+   * Tests to ensure that nested sequences and sets are encoded properly when
+   * their lengths fall on or near the boundaries between the number of bytes
+   * needed to encode the length.
+   *
+   * @param  valueLength  The length of the octet string value to include in
+   *                      the innermost element.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="sequenceValueLengths")
+  public void testNestedSequenceLengths(final int valueLength)
+         throws Exception
+  {
+    final ASN1OctetString octetString =
+         new ASN1OctetString(new byte[valueLength]);
+    final ASN1Sequence expectedElement = new ASN1Sequence(
+         new ASN1Integer(1),
+         new ASN1Set((byte) 0xA0,
+              new ASN1Sequence(octetString),
+              new ASN1Boolean(true)));
+
+    final ASN1Buffer b = new ASN1Buffer();
+    final ASN1BufferSequence outerSequence = b.beginSequence();
+    b.addInteger(1);
+    final ASN1BufferSet set = b.beginSet((byte) 0xA0);
+    final ASN1BufferSequence innerSequence = b.beginSequence();
+    b.addElement(octetString);
+    innerSequence.end();
+    b.addBoolean(true);
+    set.end();
+    outerSequence.end();
+
+    final byte[] expectedBytes = expectedElement.encode();
+    assertEquals(b.length(), expectedBytes.length);
+    assertTrue(Arrays.equals(b.toByteArray(), expectedBytes));
+    assertEquals(ASN1Element.decode(b.toByteArray()), expectedElement);
+  }
+
+
+
   /**
    * Performs a set of tests with UTC time elements.
    *
@@ -29,6 +29,7 @@ import java.util.List;
 
 import org.testng.annotations.Test;
 
+import com.unboundid.asn1.ASN1Integer;
 import com.unboundid.asn1.ASN1OctetString;
 import com.unboundid.ldap.sdk.AddRequest;
 import com.unboundid.ldap.sdk.Attribute;
@@ -2514,6 +2515,277 @@ public final class InMemoryDirectoryControlsTestCase
 
 
 
+  /**
+   * Tests to ensure that the simple paged results control behaves properly
+   * when the data is altered between pages, which will prevent the server from
+   * using the cursor created for the first page, and when a cookie that only
+   * contains an offset is used.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSimplePagedResultsControlWithChanges()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPConnection conn = ds.getConnection();
+
+    conn.delete("uid=test.user,ou=People,dc=example,dc=com");
+    for (int i=0; i < 30; i++)
+    {
+      conn.add(generateUserEntry("test." + i, "ou=People,dc=example,dc=com",
+           "Test", String.valueOf(i), "password"));
+    }
+
+    final SearchRequest searchRequest = new SearchRequest(
+         "ou=People,dc=example,dc=com", SearchScope.ONE,
+         "(objectClass=person)");
+    searchRequest.addControl(new SimplePagedResultsControl(10, true));
+
+    SearchResult searchResult = conn.search(searchRequest);
+    assertEquals(searchResult.getEntryCount(), 10);
+
+    SimplePagedResultsControl pagedResultsResponse =
+         SimplePagedResultsControl.get(searchResult);
+    assertNotNull(pagedResultsResponse);
+    assertEquals(pagedResultsResponse.getSize(), 30);
+    assertTrue(pagedResultsResponse.getCookie().getValueLength() > 0);
+
+    final HashSet<DN> returnedEntries = new HashSet<DN>(30);
+    for (final SearchResultEntry e : searchResult.getSearchEntries())
+    {
+      returnedEntries.add(e.getParsedDN());
+    }
+
+    // Delete one of the entries that hasn't been returned yet.  It must not
+    // be included in any subsequent page.
+    DN deletedDN = null;
+    for (int i=0; i < 30; i++)
+    {
+      final DN dn = new DN("uid=test." + i + ",ou=People,dc=example,dc=com");
+      if (! returnedEntries.contains(dn))
+      {
+        deletedDN = dn;
+        break;
+      }
+    }
+    assertNotNull(deletedDN);
+    conn.delete(deletedDN.toString());
+
+    while (pagedResultsResponse.getCookie().getValueLength() > 0)
+    {
+      searchRequest.setControls(new SimplePagedResultsControl(10,
+           pagedResultsResponse.getCookie(), true));
+      searchResult = conn.search(searchRequest);
+      assertEquals(searchResult.getResultCode(), ResultCode.SUCCESS);
+
+      for (final SearchResultEntry e : searchResult.getSearchEntries())
+      {
+        assertFalse(e.getParsedDN().equals(deletedDN));
+        assertTrue(returnedEntries.add(e.getParsedDN()));
+      }
+
+      pagedResultsResponse = SimplePagedResultsControl.get(searchResult);
+      assertNotNull(pagedResultsResponse);
+      assertEquals(pagedResultsResponse.getSize(), 29);
+    }
+
+    assertFalse(returnedEntries.contains(deletedDN));
+    assertTrue(returnedEntries.size() >= 28);
+
+
+    // Use a cookie that only contains the offset at which to resume.
+    searchRequest.setControls(new SimplePagedResultsControl(10,
+         new ASN1OctetString(new ASN1Integer(25).encode()), true));
+    searchResult = conn.search(searchRequest);
+    assertEquals(searchResult.getResultCode(), ResultCode.SUCCESS);
+    assertEquals(searchResult.getEntryCount(), 4);
+
+    pagedResultsResponse = SimplePagedResultsControl.get(searchResult);
+    assertNotNull(pagedResultsResponse);
+    assertEquals(pagedResultsResponse.getCookie().getValueLength(), 0);
+
+    conn.close();
+  }
+
+
+
+  /**
+   * Tests to ensure that a simple paged results cookie that refers to a search
+   * cursor will only be accepted from the connection and authorization
+   * identity for which it was created.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSimplePagedResultsCookieFromDifferentClient()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPConnection conn1 = ds.getConnection();
+    final LDAPConnection conn2 = ds.getConnection();
+
+    for (int i=0; i < 30; i++)
+    {
+      conn1.add(generateUserEntry("test." + i, "ou=People,dc=example,dc=com",
+           "Test", String.valueOf(i), "password"));
+    }
+
+    final SearchRequest searchRequest = new SearchRequest(
+         "ou=People,dc=example,dc=com", SearchScope.ONE,
+         "(objectClass=person)");
+    searchRequest.addControl(new SimplePagedResultsControl(10, true));
+
+    SearchResult searchResult = conn1.search(searchRequest);
+    assertEquals(searchResult.getEntryCount(), 10);
+
+    final ASN1OctetString cookie =
+         SimplePagedResultsControl.get(searchResult).getCookie();
+    assertTrue(cookie.getValueLength() > 0);
+
+    // Another connection must not be able to use the cookie.
+    searchRequest.setControls(new SimplePagedResultsControl(10, cookie, true));
+    try
+    {
+      conn2.search(searchRequest);
+      fail("Expected an exception when using a paged results cookie from " +
+           "another connection");
+    }
+    catch (final LDAPSearchException lse)
+    {
+      assertEquals(lse.getResultCode(), ResultCode.UNWILLING_TO_PERFORM);
+    }
+
+    // Neither can the same connection with a different authorization
+    // identity.
+    searchRequest.setControls(
+         new SimplePagedResultsControl(10, cookie, true),
+         new ProxiedAuthorizationV2RequestControl(
+              "dn:uid=test.user,ou=People,dc=example,dc=com"));
+    try
+    {
+      conn1.search(searchRequest);
+      fail("Expected an exception when using a paged results cookie with a " +
+           "different authorization identity");
+    }
+    catch (final LDAPSearchException lse)
+    {
+      assertEquals(lse.getResultCode(), ResultCode.UNWILLING_TO_PERFORM);
+    }
+
+    // The connection that created the cookie can still use it.
+    searchRequest.setControls(new SimplePagedResultsControl(10, cookie, true));
+    searchResult = conn1.search(searchRequest);
+    assertEquals(searchResult.getResultCode(), ResultCode.SUCCESS);
+    assertEquals(searchResult.getEntryCount(), 10);
+
+    conn1.close();
+    conn2.close();
+  }
+
+
+
+  /**
+   * Tests to ensure that the context ID returned in a virtual list view
+   * response control can be used in subsequent requests, and that a request
+   * with a context ID that the server doesn't recognize is processed normally.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testVirtualListViewControlWithContextID()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final LDAPConnection conn = ds.getConnection();
+
+    conn.delete("uid=test.user,ou=People,dc=example,dc=com");
+    for (int i=10; i < 60; i++)
+    {
+      conn.add(generateUserEntry("test." + i, "ou=People,dc=example,dc=com",
+           "Test", String.valueOf(i), "password"));
+    }
+
+    final SearchRequest searchRequest = new SearchRequest("dc=example,dc=com",
+         SearchScope.SUB, "(objectClass=person)");
+    searchRequest.setControls(
+         new ServerSideSortRequestControl(new SortKey("sn")),
+         new VirtualListViewRequestControl(1, 0, 4, 0, null));
+
+    SearchResult searchResult = conn.search(searchRequest);
+    assertEquals(searchResult.getResultCode(), ResultCode.SUCCESS);
+    assertEquals(searchResult.getEntryCount(), 5);
+    assertEquals(searchResult.getSearchEntries().get(0).getParsedDN(),
+         new DN("uid=test.10,ou=People,dc=example,dc=com"));
+
+    VirtualListViewResponseControl vlvResponse =
+         VirtualListViewResponseControl.get(searchResult);
+    assertNotNull(vlvResponse);
+    assertEquals(vlvResponse.getContentCount(), 50);
+    final ASN1OctetString contextID = vlvResponse.getContextID();
+    assertNotNull(contextID);
+
+
+    // Use the context ID to retrieve a page by offset and by assertion value.
+    searchRequest.setControls(
+         new ServerSideSortRequestControl(new SortKey("sn")),
+         new VirtualListViewRequestControl(21, 0, 4, 50, contextID));
+
+    searchResult = conn.search(searchRequest);
+    assertEquals(searchResult.getResultCode(), ResultCode.SUCCESS);
+    assertEquals(searchResult.getEntryCount(), 5);
+    assertEquals(searchResult.getSearchEntries().get(0).getParsedDN(),
+         new DN("uid=test.30,ou=People,dc=example,dc=com"));
+
+    vlvResponse = VirtualListViewResponseControl.get(searchResult);
+    assertNotNull(vlvResponse);
+    assertEquals(vlvResponse.getTargetPosition(), 21);
+    assertEquals(vlvResponse.getContextID(), contextID);
+
+    searchRequest.setControls(
+         new ServerSideSortRequestControl(new SortKey("sn")),
+         new VirtualListViewRequestControl("45", 1, 1, contextID));
+
+    searchResult = conn.search(searchRequest);
+    assertEquals(searchResult.getResultCode(), ResultCode.SUCCESS);
+    assertEquals(searchResult.getEntryCount(), 3);
+    assertEquals(searchResult.getSearchEntries().get(1).getParsedDN(),
+         new DN("uid=test.45,ou=People,dc=example,dc=com"));
+
+    vlvResponse = VirtualListViewResponseControl.get(searchResult);
+    assertNotNull(vlvResponse);
+    assertEquals(vlvResponse.getTargetPosition(), 36);
+    assertEquals(vlvResponse.getContextID(), contextID);
+
+
+    // Make a change and verify that the old context ID is no longer used, and
+    // that the results reflect the change.
+    conn.delete("uid=test.10,ou=People,dc=example,dc=com");
+
+    searchRequest.setControls(
+         new ServerSideSortRequestControl(new SortKey("sn")),
+         new VirtualListViewRequestControl(1, 0, 0, 50, contextID));
+
+    searchResult = conn.search(searchRequest);
+    assertEquals(searchResult.getResultCode(), ResultCode.SUCCESS);
+    assertEquals(searchResult.getEntryCount(), 1);
+    assertEquals(searchResult.getSearchEntries().get(0).getParsedDN(),
+         new DN("uid=test.11,ou=People,dc=example,dc=com"));
+
+    vlvResponse = VirtualListViewResponseControl.get(searchResult);
+    assertNotNull(vlvResponse);
+    assertEquals(vlvResponse.getContentCount(), 49);
+    assertNotNull(vlvResponse.getContextID());
+    assertFalse(vlvResponse.getContextID().equals(contextID));
+
+    conn.close();
+  }
+
+
+
   /**
    * Provides test coverage for the virtual list view request control.
    *
@@ -2599,7 +2871,7 @@ public final class InMemoryDirectoryControlsTestCase
     assertEquals(vlvResponse.getResultCode(), ResultCode.SUCCESS);
     assertEquals(vlvResponse.getContentCount(), 100);
     assertEquals(vlvResponse.getTargetPosition(), 1);
-    assertNull(vlvResponse.getContextID());
+    assertNotNull(vlvResponse.getContextID());
 
 
     // Use VLV to retrieve entries from the beginning of the list, with the
@@ -2634,7 +2906,7 @@ public final class InMemoryDirectoryControlsTestCase
     assertEquals(vlvResponse.getResultCode(), ResultCode.SUCCESS);
     assertEquals(vlvResponse.getContentCount(), 100);
     assertEquals(vlvResponse.getTargetPosition(), 3);
-    assertNull(vlvResponse.getContextID());
+    assertNotNull(vlvResponse.getContextID());
 
 
     // Use VLV to retrieve entries from near the end of the list, with the after
@@ -2671,7 +2943,7 @@ public final class InMemoryDirectoryControlsTestCase
     assertEquals(vlvResponse.getResultCode(), ResultCode.SUCCESS);
     assertEquals(vlvResponse.getContentCount(), 100);
     assertEquals(vlvResponse.getTargetPosition(), 95);
-    assertNull(vlvResponse.getContextID());
+    assertNotNull(vlvResponse.getContextID());
 
 
     // Use VLV with an offset beyond the end of the list and no before count.
@@ -2691,7 +2963,7 @@ public final class InMemoryDirectoryControlsTestCase
     assertEquals(vlvResponse.getResultCode(), ResultCode.SUCCESS);
     assertEquals(vlvResponse.getContentCount(), 100);
     assertEquals(vlvResponse.getTargetPosition(), 101);
-    assertNull(vlvResponse.getContextID());
+    assertNotNull(vlvResponse.getContextID());
 
 
     // Use VLV with an assertion value in the middle of the list and the entire
@@ -2732,7 +3004,7 @@ public final class InMemoryDirectoryControlsTestCase
     assertEquals(vlvResponse.getResultCode(), ResultCode.SUCCESS);
     assertEquals(vlvResponse.getContentCount(), 100);
     assertEquals(vlvResponse.getTargetPosition(), 46);
-    assertNull(vlvResponse.getContextID());
+    assertNotNull(vlvResponse.getContextID());
 
 
     // Use VLV with an assertion value in the middle of the list and the before
@@ -2767,7 +3039,7 @@ public final class InMemoryDirectoryControlsTestCase
     assertEquals(vlvResponse.getResultCode(), ResultCode.SUCCESS);
     assertEquals(vlvResponse.getContentCount(), 100);
     assertEquals(vlvResponse.getTargetPosition(), 4);
-    assertNull(vlvResponse.getContextID());
+    assertNotNull(vlvResponse.getContextID());
 
 
     // Use VLV with an assertion value before the beginning of the list.
@@ -2799,7 +3071,7 @@ public final class InMemoryDirectoryControlsTestCase
     assertEquals(vlvResponse.getResultCode(), ResultCode.SUCCESS);
     assertEquals(vlvResponse.getContentCount(), 100);
     assertEquals(vlvResponse.getTargetPosition(), 1);
-    assertNull(vlvResponse.getContextID());
+    assertNotNull(vlvResponse.getContextID());
 
 
     // Use VLV with an assertion value beyond the end of the list.
@@ -2819,7 +3091,7 @@ public final class InMemoryDirectoryControlsTestCase
     assertEquals(vlvResponse.getResultCode(), ResultCode.SUCCESS);
     assertEquals(vlvResponse.getContentCount(), 100);
     assertEquals(vlvResponse.getTargetPosition(), 101);
-    assertNull(vlvResponse.getContextID());
+    assertNotNull(vlvResponse.getContextID());
 
 
     conn.close();
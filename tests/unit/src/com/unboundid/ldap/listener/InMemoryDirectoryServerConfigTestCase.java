@@ -952,6 +952,70 @@ public final class InMemoryDirectoryServerConfigTestCase
 
 
 
+  /**
+   * Tests the behavior of the methods for using compact entry storage.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testUseCompactEntryStorage()
+         throws Exception
+  {
+    final InMemoryDirectoryServerConfig cfg =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+
+    assertFalse(cfg.useCompactEntryStorage());
+
+    assertNotNull(cfg.toString());
+
+    cfg.setUseCompactEntryStorage(true);
+    assertTrue(cfg.useCompactEntryStorage());
+    assertTrue(new InMemoryDirectoryServerConfig(cfg).useCompactEntryStorage());
+
+    assertNotNull(cfg.toString());
+
+    cfg.setUseCompactEntryStorage(false);
+    assertFalse(cfg.useCompactEntryStorage());
+
+    assertNotNull(cfg.toString());
+  }
+
+
+
+  /**
+   * Tests the behavior of the methods for using a persistent store file.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testPersistentStoreFile()
+         throws Exception
+  {
+    final InMemoryDirectoryServerConfig cfg =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+
+    assertNull(cfg.getPersistentStoreFile());
+
+    assertNotNull(cfg.toString());
+
+    final File storeFile = new File(createTempDir(), "entries.log");
+    cfg.setPersistentStoreFile(storeFile);
+    assertEquals(cfg.getPersistentStoreFile(), storeFile);
+    assertEquals(
+         new InMemoryDirectoryServerConfig(cfg).getPersistentStoreFile(),
+         storeFile);
+
+    assertNotNull(cfg.toString());
+    assertTrue(cfg.toString().contains(storeFile.getAbsolutePath()));
+
+    cfg.setPersistentStoreFile(null);
+    assertNull(cfg.getPersistentStoreFile());
+
+    assertNotNull(cfg.toString());
+  }
+
+
+
   /**
    * Tests the behavior of the methods for maintaining a changelog.
    *
@@ -1075,6 +1139,158 @@ public final class InMemoryDirectoryServerConfigTestCase
 
 
 
+  /**
+   * Tests the behavior of the methods for interacting with the ordering index
+   * attributes.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testOrderingIndexAttributes()
+         throws Exception
+  {
+    final InMemoryDirectoryServerConfig cfg =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+
+    assertNotNull(cfg.getOrderingIndexAttributes());
+    assertTrue(cfg.getOrderingIndexAttributes().isEmpty());
+
+    assertNotNull(cfg.toString());
+
+    cfg.setOrderingIndexAttributes("createTimestamp");
+    assertNotNull(cfg.getOrderingIndexAttributes());
+    assertEquals(cfg.getOrderingIndexAttributes().size(), 1);
+    assertTrue(cfg.getOrderingIndexAttributes().contains("createTimestamp"));
+
+    assertNotNull(cfg.toString());
+
+    cfg.setOrderingIndexAttributes((String[]) null);
+    assertNotNull(cfg.getOrderingIndexAttributes());
+    assertTrue(cfg.getOrderingIndexAttributes().isEmpty());
+
+    assertNotNull(cfg.toString());
+
+    cfg.setOrderingIndexAttributes("createTimestamp", "modifyTimestamp",
+         "uidNumber", "gidNumber");
+    assertNotNull(cfg.getOrderingIndexAttributes());
+    assertEquals(cfg.getOrderingIndexAttributes().size(), 4);
+    assertTrue(cfg.getOrderingIndexAttributes().contains("createTimestamp"));
+    assertTrue(cfg.getOrderingIndexAttributes().contains("modifyTimestamp"));
+    assertTrue(cfg.getOrderingIndexAttributes().contains("uidNumber"));
+    assertTrue(cfg.getOrderingIndexAttributes().contains("gidNumber"));
+
+    assertNotNull(cfg.toString());
+
+    cfg.setOrderingIndexAttributes();
+    assertNotNull(cfg.getOrderingIndexAttributes());
+    assertTrue(cfg.getOrderingIndexAttributes().isEmpty());
+
+    assertNotNull(cfg.toString());
+  }
+
+
+
+  /**
+   * Tests the behavior of the methods for interacting with the presence index
+   * attributes.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testPresenceIndexAttributes()
+         throws Exception
+  {
+    final InMemoryDirectoryServerConfig cfg =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+
+    assertNotNull(cfg.getPresenceIndexAttributes());
+    assertTrue(cfg.getPresenceIndexAttributes().isEmpty());
+
+    assertNotNull(cfg.toString());
+
+    cfg.setPresenceIndexAttributes("mail");
+    assertNotNull(cfg.getPresenceIndexAttributes());
+    assertEquals(cfg.getPresenceIndexAttributes().size(), 1);
+    assertTrue(cfg.getPresenceIndexAttributes().contains("mail"));
+
+    assertNotNull(cfg.toString());
+
+    cfg.setPresenceIndexAttributes((String[]) null);
+    assertNotNull(cfg.getPresenceIndexAttributes());
+    assertTrue(cfg.getPresenceIndexAttributes().isEmpty());
+
+    assertNotNull(cfg.toString());
+
+    cfg.setPresenceIndexAttributes("mail", "telephoneNumber", "manager",
+         "seeAlso");
+    assertNotNull(cfg.getPresenceIndexAttributes());
+    assertEquals(cfg.getPresenceIndexAttributes().size(), 4);
+    assertTrue(cfg.getPresenceIndexAttributes().contains("mail"));
+    assertTrue(cfg.getPresenceIndexAttributes().contains("telephoneNumber"));
+    assertTrue(cfg.getPresenceIndexAttributes().contains("manager"));
+    assertTrue(cfg.getPresenceIndexAttributes().contains("seeAlso"));
+
+    assertNotNull(cfg.toString());
+
+    cfg.setPresenceIndexAttributes();
+    assertNotNull(cfg.getPresenceIndexAttributes());
+    assertTrue(cfg.getPresenceIndexAttributes().isEmpty());
+
+    assertNotNull(cfg.toString());
+  }
+
+
+
+  /**
+   * Tests the behavior of the methods for interacting with the substring index
+   * attributes.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSubstringIndexAttributes()
+         throws Exception
+  {
+    final InMemoryDirectoryServerConfig cfg =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+
+    assertNotNull(cfg.getSubstringIndexAttributes());
+    assertTrue(cfg.getSubstringIndexAttributes().isEmpty());
+
+    assertNotNull(cfg.toString());
+
+    cfg.setSubstringIndexAttributes("cn");
+    assertNotNull(cfg.getSubstringIndexAttributes());
+    assertEquals(cfg.getSubstringIndexAttributes().size(), 1);
+    assertTrue(cfg.getSubstringIndexAttributes().contains("cn"));
+
+    assertNotNull(cfg.toString());
+
+    cfg.setSubstringIndexAttributes((String[]) null);
+    assertNotNull(cfg.getSubstringIndexAttributes());
+    assertTrue(cfg.getSubstringIndexAttributes().isEmpty());
+
+    assertNotNull(cfg.toString());
+
+    cfg.setSubstringIndexAttributes("cn", "sn", "givenName", "mail");
+    assertNotNull(cfg.getSubstringIndexAttributes());
+    assertEquals(cfg.getSubstringIndexAttributes().size(), 4);
+    assertTrue(cfg.getSubstringIndexAttributes().contains("cn"));
+    assertTrue(cfg.getSubstringIndexAttributes().contains("sn"));
+    assertTrue(cfg.getSubstringIndexAttributes().contains("givenName"));
+    assertTrue(cfg.getSubstringIndexAttributes().contains("mail"));
+
+    assertNotNull(cfg.toString());
+
+    cfg.setSubstringIndexAttributes();
+    assertNotNull(cfg.getSubstringIndexAttributes());
+    assertTrue(cfg.getSubstringIndexAttributes().isEmpty());
+
+    assertNotNull(cfg.toString());
+  }
+
+
+
   /**
    * Tests the behavior of the methods for interacting with the referential
    * integrity attributes.
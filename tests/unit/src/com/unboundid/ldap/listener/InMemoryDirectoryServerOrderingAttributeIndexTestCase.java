@@ -0,0 +1,203 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.listener;
+
+
+
+import java.util.Collection;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LDAPSDKTestCase;
+import com.unboundid.ldap.sdk.schema.Schema;
+
+
+
+/**
+ * This class provides a set of test cases for the
+ * InMemoryDirectoryServerOrderingAttributeIndex class.
+ */
+public final class InMemoryDirectoryServerOrderingAttributeIndexTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the behavior when trying to create an index when no schema is
+   * available.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPException.class })
+  public void testIndexWithoutSchema()
+         throws Exception
+  {
+    new InMemoryDirectoryServerOrderingAttributeIndex("changeNumber", null);
+  }
+
+
+
+  /**
+   * Tests the behavior when trying to create an index for an undefined
+   * attribute type.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPException.class })
+  public void testIndexWithUndefinedAttribute()
+         throws Exception
+  {
+    new InMemoryDirectoryServerOrderingAttributeIndex("undefined",
+         Schema.getDefaultStandardSchema());
+  }
+
+
+
+  /**
+   * Tests the behavior of an ordering index for an attribute with integer
+   * values, which must be ordered numerically rather than lexically.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testIntegerOrdering()
+         throws Exception
+  {
+    final InMemoryDirectoryServerOrderingAttributeIndex index =
+         new InMemoryDirectoryServerOrderingAttributeIndex("changeNumber",
+              Schema.getDefaultStandardSchema());
+    assertNotNull(index.getAttributeType());
+
+    final Entry[] entries = new Entry[20];
+    for (int i=0; i < entries.length; i++)
+    {
+      entries[i] = new Entry(
+           "dn: changeNumber=" + (i * 5) + ",cn=changelog",
+           "objectClass: top",
+           "objectClass: changeLogEntry",
+           "changeNumber: " + (i * 5),
+           "targetDN: dc=example,dc=com",
+           "changeType: delete");
+      index.processAdd(entries[i]);
+    }
+
+    assertEquals(index.copyMap().size(), 20);
+
+    Set<DN> dnSet =
+         index.getMatchingEntries(new ASN1OctetString("50"), true);
+    assertEquals(dnSet.size(), 10);
+    assertTrue(dnSet.contains(new DN("changeNumber=50,cn=changelog")));
+    assertTrue(dnSet.contains(new DN("changeNumber=95,cn=changelog")));
+    assertFalse(dnSet.contains(new DN("changeNumber=45,cn=changelog")));
+
+    dnSet = index.getMatchingEntries(new ASN1OctetString("9"), false);
+    assertEquals(dnSet.size(), 2);
+    assertTrue(dnSet.contains(new DN("changeNumber=0,cn=changelog")));
+    assertTrue(dnSet.contains(new DN("changeNumber=5,cn=changelog")));
+
+    assertEmpty(index.getMatchingEntries(new ASN1OctetString("1000"), true));
+    assertEmpty(index.getMatchingEntries(new ASN1OctetString("-1"), false));
+
+    for (int i=0; i < entries.length; i += 2)
+    {
+      index.processDelete(entries[i]);
+    }
+
+    assertEquals(index.copyMap().size(), 10);
+    dnSet = index.getMatchingEntries(new ASN1OctetString("50"), true);
+    assertEquals(dnSet.size(), 5);
+
+    index.clear();
+    assertTrue(index.copyMap().isEmpty());
+    assertEmpty(index.getMatchingEntries(new ASN1OctetString("0"), true));
+  }
+
+
+
+  /**
+   * Tests the behavior of an ordering index with multiple entries sharing a
+   * value and entries with multiple values.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSharedAndMultipleValues()
+         throws Exception
+  {
+    final InMemoryDirectoryServerOrderingAttributeIndex index =
+         new InMemoryDirectoryServerOrderingAttributeIndex("cn",
+              Schema.getDefaultStandardSchema());
+
+    final Entry e1 = new Entry(
+         "dn: cn=first,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: device",
+         "cn: first",
+         "cn: Middle");
+    final Entry e2 = new Entry(
+         "dn: cn=second,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: device",
+         "cn: second",
+         "cn: middle");
+
+    index.processAdd(e1);
+    index.processAdd(e2);
+    assertEquals(index.copyMap().size(), 3);
+
+    Set<DN> dnSet =
+         index.getMatchingEntries(new ASN1OctetString("MIDDLE"), true);
+    assertEquals(dnSet.size(), 2);
+
+    dnSet = index.getMatchingEntries(new ASN1OctetString("n"), true);
+    assertEquals(dnSet.size(), 1);
+    assertTrue(dnSet.contains(new DN("cn=second,dc=example,dc=com")));
+
+    dnSet = index.getMatchingEntries(new ASN1OctetString("g"), false);
+    assertEquals(dnSet.size(), 1);
+    assertTrue(dnSet.contains(new DN("cn=first,dc=example,dc=com")));
+
+    index.processDelete(e2);
+    assertEquals(index.copyMap().size(), 2);
+    dnSet = index.getMatchingEntries(new ASN1OctetString("MIDDLE"), true);
+    assertEquals(dnSet.size(), 1);
+    assertTrue(dnSet.contains(new DN("cn=first,dc=example,dc=com")));
+  }
+
+
+
+  /**
+   * Asserts that the provided collection is not {@code null} but is empty.
+   *
+   * @param  c  The collection to examine.
+   *
+   * @throws  AssertionError  If the collection is {@code null} or non-empty.
+   */
+  private static void assertEmpty(final Collection<?> c)
+          throws AssertionError
+  {
+    assertNotNull(c);
+    assertTrue(c.isEmpty());
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.listener;
+
+
+
+import java.util.Collection;
+
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LDAPSDKTestCase;
+import com.unboundid.ldap.sdk.schema.Schema;
+
+
+
+/**
+ * This class provides a set of test cases for the
+ * InMemoryDirectoryServerPresenceAttributeIndex class.
+ */
+public final class InMemoryDirectoryServerPresenceAttributeIndexTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the behavior when trying to create an index when no schema is
+   * available.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPException.class })
+  public void testIndexWithoutSchema()
+         throws Exception
+  {
+    new InMemoryDirectoryServerPresenceAttributeIndex("description", null);
+  }
+
+
+
+  /**
+   * Tests the behavior when trying to create an index for an undefined
+   * attribute type.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPException.class })
+  public void testIndexWithUndefinedAttribute()
+         throws Exception
+  {
+    new InMemoryDirectoryServerPresenceAttributeIndex("undefined",
+         Schema.getDefaultStandardSchema());
+  }
+
+
+
+  /**
+   * Tests the behavior when adding and removing entries with and without the
+   * indexed attribute.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testAddAndDelete()
+         throws Exception
+  {
+    final InMemoryDirectoryServerPresenceAttributeIndex index =
+         new InMemoryDirectoryServerPresenceAttributeIndex("description",
+              Schema.getDefaultStandardSchema());
+    assertNotNull(index.getAttributeType());
+    assertEmpty(index.getMatchingEntries());
+
+    final Entry withAttr = new Entry(
+         "dn: ou=With,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: organizationalUnit",
+         "ou: With",
+         "description: foo",
+         "description: bar");
+    final Entry withoutAttr = new Entry(
+         "dn: ou=Without,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: organizationalUnit",
+         "ou: Without");
+    final Entry withAttrOptions = new Entry(
+         "dn: ou=With Options,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: organizationalUnit",
+         "ou: With Options",
+         "description;lang-en: foo");
+
+    index.processAdd(withAttr);
+    index.processAdd(withoutAttr);
+    index.processAdd(withAttrOptions);
+
+    assertEquals(index.getMatchingEntries().size(), 1);
+    assertTrue(index.getMatchingEntries().contains(
+         new DN("ou=With,dc=example,dc=com")));
+    assertEquals(index.copySet(), index.getMatchingEntries());
+
+    index.processDelete(withoutAttr);
+    index.processDelete(withAttrOptions);
+    assertEquals(index.getMatchingEntries().size(), 1);
+
+    index.processDelete(withAttr);
+    assertEmpty(index.getMatchingEntries());
+
+    index.processAdd(withAttr);
+    assertEquals(index.getMatchingEntries().size(), 1);
+
+    index.clear();
+    assertEmpty(index.getMatchingEntries());
+  }
+
+
+
+  /**
+   * Asserts that the provided collection is not {@code null} but is empty.
+   *
+   * @param  c  The collection to examine.
+   *
+   * @throws  AssertionError  If the collection is {@code null} or non-empty.
+   */
+  private static void assertEmpty(final Collection<?> c)
+          throws AssertionError
+  {
+    assertNotNull(c);
+    assertTrue(c.isEmpty());
+  }
+}
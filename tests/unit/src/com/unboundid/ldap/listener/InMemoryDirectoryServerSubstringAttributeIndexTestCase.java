@@ -0,0 +1,214 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.listener;
+
+
+
+import java.util.Collection;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import com.unboundid.asn1.ASN1OctetString;
+import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LDAPSDKTestCase;
+import com.unboundid.ldap.sdk.schema.Schema;
+
+
+
+/**
+ * This class provides a set of test cases for the
+ * InMemoryDirectoryServerSubstringAttributeIndex class.
+ */
+public final class InMemoryDirectoryServerSubstringAttributeIndexTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the behavior when trying to create an index when no schema is
+   * available.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPException.class })
+  public void testIndexWithoutSchema()
+         throws Exception
+  {
+    new InMemoryDirectoryServerSubstringAttributeIndex("cn", null);
+  }
+
+
+
+  /**
+   * Tests the behavior when trying to create an index for an undefined
+   * attribute type.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPException.class })
+  public void testIndexWithUndefinedAttribute()
+         throws Exception
+  {
+    new InMemoryDirectoryServerSubstringAttributeIndex("undefined",
+         Schema.getDefaultStandardSchema());
+  }
+
+
+
+  /**
+   * Tests the behavior when trying to create an index for an attribute type
+   * whose substring matching rule cannot be used for indexing.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPException.class })
+  public void testIndexWithUnsupportedMatchingRule()
+         throws Exception
+  {
+    new InMemoryDirectoryServerSubstringAttributeIndex("member",
+         Schema.getDefaultStandardSchema());
+  }
+
+
+
+  /**
+   * Tests the behavior of the index with a variety of substring components.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testCandidateEntries()
+         throws Exception
+  {
+    final InMemoryDirectoryServerSubstringAttributeIndex index =
+         new InMemoryDirectoryServerSubstringAttributeIndex("cn",
+              Schema.getDefaultStandardSchema());
+    assertNotNull(index.getAttributeType());
+
+    final Entry johnDoe = new Entry(
+         "dn: cn=John Doe,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: person",
+         "cn: John Doe",
+         "sn: Doe");
+    final Entry janeDoe = new Entry(
+         "dn: cn=Jane Doe,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: person",
+         "cn: Jane Doe",
+         "cn: Janie",
+         "sn: Doe");
+    final Entry bobSmith = new Entry(
+         "dn: cn=Bob Smith,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: person",
+         "cn: Bob Smith",
+         "sn: Smith");
+
+    index.processAdd(johnDoe);
+    index.processAdd(janeDoe);
+    index.processAdd(bobSmith);
+
+    assertEquals(index.copyValueMap().size(), 4);
+    assertTrue(index.getGramCount() > 0);
+
+    // subInitial only.
+    Set<DN> dnSet = index.getCandidateEntries(new ASN1OctetString("JA"),
+         null, null);
+    assertNotNull(dnSet);
+    assertEquals(dnSet.size(), 1);
+    assertTrue(dnSet.contains(new DN("cn=Jane Doe,dc=example,dc=com")));
+
+    dnSet = index.getCandidateEntries(new ASN1OctetString("j"), null, null);
+    assertNotNull(dnSet);
+    assertEquals(dnSet.size(), 2);
+
+    assertEmpty(index.getCandidateEntries(new ASN1OctetString("x"), null,
+         null));
+
+    // subFinal only.
+    dnSet = index.getCandidateEntries(null, null,
+         new ASN1OctetString(" DOE"));
+    assertNotNull(dnSet);
+    assertEquals(dnSet.size(), 2);
+    assertFalse(dnSet.contains(new DN("cn=Bob Smith,dc=example,dc=com")));
+
+    // subAny only.
+    dnSet = index.getCandidateEntries(null,
+         new ASN1OctetString[] { new ASN1OctetString("mit") }, null);
+    assertNotNull(dnSet);
+    assertEquals(dnSet.size(), 1);
+    assertTrue(dnSet.contains(new DN("cn=Bob Smith,dc=example,dc=com")));
+
+    assertEmpty(index.getCandidateEntries(null,
+         new ASN1OctetString[] { new ASN1OctetString("xyz") }, null));
+
+    // A combination of components.
+    dnSet = index.getCandidateEntries(new ASN1OctetString("j"),
+         new ASN1OctetString[] { new ASN1OctetString("ohn") },
+         new ASN1OctetString("doe"));
+    assertNotNull(dnSet);
+    assertEquals(dnSet.size(), 1);
+    assertTrue(dnSet.contains(new DN("cn=John Doe,dc=example,dc=com")));
+
+    // Components that are too short to use the gram map.
+    assertNull(index.getCandidateEntries(null,
+         new ASN1OctetString[] { new ASN1OctetString("o") },
+         new ASN1OctetString("e")));
+
+    // Deleting entries should remove them from the index.
+    index.processDelete(janeDoe);
+    assertEquals(index.copyValueMap().size(), 2);
+    assertEmpty(index.getCandidateEntries(new ASN1OctetString("ja"), null,
+         null));
+    dnSet = index.getCandidateEntries(null, null, new ASN1OctetString("doe"));
+    assertNotNull(dnSet);
+    assertEquals(dnSet.size(), 1);
+
+    index.processDelete(johnDoe);
+    index.processDelete(bobSmith);
+    assertTrue(index.copyValueMap().isEmpty());
+    assertEquals(index.getGramCount(), 0);
+
+    index.processAdd(bobSmith);
+    assertFalse(index.copyValueMap().isEmpty());
+    index.clear();
+    assertTrue(index.copyValueMap().isEmpty());
+    assertEquals(index.getGramCount(), 0);
+  }
+
+
+
+  /**
+   * Asserts that the provided collection is not {@code null} but is empty.
+   *
+   * @param  c  The collection to examine.
+   *
+   * @throws  AssertionError  If the collection is {@code null} or non-empty.
+   */
+  private static void assertEmpty(final Collection<?> c)
+          throws AssertionError
+  {
+    assertNotNull(c);
+    assertTrue(c.isEmpty());
+  }
+}
@@ -27,7 +27,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.testng.annotations.Test;
 
@@ -77,6 +80,7 @@ import com.unboundid.ldap.sdk.unboundidds.controls.
             IgnoreNoUserModificationRequestControl;
 import com.unboundid.ldif.LDIFException;
 import com.unboundid.util.MemoryBasedLogHandler;
+import com.unboundid.util.StaticUtils;
 import com.unboundid.util.ssl.KeyStoreKeyManager;
 import com.unboundid.util.ssl.SSLUtil;
 import com.unboundid.util.ssl.TrustAllTrustManager;
@@ -470,6 +474,469 @@ public final class InMemoryDirectoryServerTestCase
 
 
 
+  /**
+   * Tests to ensure that scoped searches, subtree deletes, and modify DN
+   * operations work properly for entries in branches whose DNs sort near each
+   * other.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSubtreeOperationsWithAdjacentBranches()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds =
+         new InMemoryDirectoryServer("dc=example,dc=com");
+    ds.add(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example");
+
+    final String[] branchNames = { "a", "a a", "a0", "b", "ab" };
+    for (final String branchName : branchNames)
+    {
+      ds.add(
+           "dn: ou=" + branchName + ",dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: " + branchName);
+      ds.add(
+           "dn: ou=" + branchName + ",ou=" + branchName + ",dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: " + branchName);
+      for (int i=0; i < 5; i++)
+      {
+        ds.add(
+             "dn: cn=" + i + ",ou=" + branchName + ",dc=example,dc=com",
+             "objectClass: top",
+             "objectClass: device",
+             "cn: " + i);
+        ds.add(
+             "dn: cn=" + i + ",ou=" + branchName + ",ou=" + branchName +
+                  ",dc=example,dc=com",
+             "objectClass: top",
+             "objectClass: device",
+             "cn: " + i);
+      }
+    }
+
+    assertEquals(ds.countEntries(), 61);
+    for (final String branchName : branchNames)
+    {
+      final String branchDN = "ou=" + branchName + ",dc=example,dc=com";
+      assertEquals(ds.countEntriesBelow(branchDN), 12);
+      assertEquals(ds.search(branchDN, SearchScope.BASE,
+           "(objectClass=*)").getEntryCount(), 1);
+      assertEquals(ds.search(branchDN, SearchScope.ONE,
+           "(objectClass=*)").getEntryCount(), 6);
+      assertEquals(ds.search(branchDN, SearchScope.SUB,
+           "(objectClass=*)").getEntryCount(), 12);
+      assertEquals(ds.search(branchDN, SearchScope.SUBORDINATE_SUBTREE,
+           "(objectClass=*)").getEntryCount(), 11);
+      assertEquals(ds.search(branchDN, SearchScope.SUB,
+           "(objectClass=device)").getEntryCount(), 10);
+    }
+
+    assertEquals(ds.search("dc=example,dc=com", SearchScope.ONE,
+         "(objectClass=*)").getEntryCount(), 5);
+    assertEquals(ds.search("dc=example,dc=com", SearchScope.SUB,
+         "(objectClass=*)").getEntryCount(), 61);
+
+    // Deleting a subtree should not affect any of the neighboring branches.
+    assertEquals(ds.deleteSubtree("ou=a,dc=example,dc=com"), 12);
+    assertEquals(ds.countEntries(), 49);
+    assertEquals(ds.countEntriesBelow("ou=a a,dc=example,dc=com"), 12);
+    assertEquals(ds.countEntriesBelow("ou=a0,dc=example,dc=com"), 12);
+
+    // Renaming an entry should rename all of its subordinates, and nothing
+    // else.
+    ds.modifyDN("ou=a a,dc=example,dc=com", "ou=a", true);
+    assertEquals(ds.countEntriesBelow("ou=a,dc=example,dc=com"), 12);
+    assertNull(ds.getEntry("ou=a a,dc=example,dc=com"));
+    assertNotNull(ds.getEntry("cn=4,ou=a a,ou=a,dc=example,dc=com"));
+    assertEquals(ds.countEntriesBelow("ou=a0,dc=example,dc=com"), 12);
+
+    ds.modifyDN("ou=ab,dc=example,dc=com", "ou=ab", true,
+         "ou=b,dc=example,dc=com");
+    assertEquals(ds.countEntriesBelow("ou=b,dc=example,dc=com"), 24);
+    assertEquals(ds.search("ou=b,dc=example,dc=com", SearchScope.ONE,
+         "(objectClass=*)").getEntryCount(), 7);
+    assertEquals(ds.countEntries(), 49);
+
+    // Deleting an entry with subordinates should fail without the subtree
+    // delete request control.
+    try
+    {
+      ds.delete("ou=a0,dc=example,dc=com");
+      fail("Expected an exception when trying to delete a non-leaf entry.");
+    }
+    catch (final LDAPException le)
+    {
+      assertEquals(le.getResultCode(), ResultCode.NOT_ALLOWED_ON_NONLEAF);
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that a server that holds entries in compact form behaves
+   * the same way as a server that does not.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testCompactEntryStorage()
+         throws Exception
+  {
+    final InMemoryDirectoryServer[] servers = new InMemoryDirectoryServer[2];
+    for (int i=0; i < servers.length; i++)
+    {
+      final InMemoryDirectoryServerConfig config =
+           new InMemoryDirectoryServerConfig("dc=example,dc=com");
+      config.setUseCompactEntryStorage(i == 1);
+      config.setGenerateOperationalAttributes(false);
+      config.setEqualityIndexAttributes("uid");
+      config.setMaxChangeLogEntries(100);
+      servers[i] = new InMemoryDirectoryServer(config);
+    }
+
+    for (final InMemoryDirectoryServer ds : servers)
+    {
+      ds.add(
+           "dn: dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: domain",
+           "dc: example");
+      ds.add(
+           "dn: ou=People,dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: People");
+      for (int i=0; i < 10; i++)
+      {
+        ds.add(
+             "dn: uid=user." + i + ",ou=People,dc=example,dc=com",
+             "objectClass: top",
+             "objectClass: person",
+             "objectClass: organizationalPerson",
+             "objectClass: inetOrgPerson",
+             "uid: user." + i,
+             "givenName: User",
+             "sn: " + i,
+             "cn: User " + i,
+             "description: first",
+             "description: second",
+             "jpegPhoto:: AAECAwQFBgcICQ==");
+      }
+
+      ds.modify(
+           "dn: uid=user.0,ou=People,dc=example,dc=com",
+           "changetype: modify",
+           "replace: description",
+           "description: modified");
+      ds.modifyDN("uid=user.1,ou=People,dc=example,dc=com", "uid=user.one",
+           true);
+      ds.delete("uid=user.2,ou=People,dc=example,dc=com");
+    }
+
+    final InMemoryDirectoryServerSnapshot snapshot =
+         servers[1].createSnapshot();
+    servers[1].delete("uid=user.3,ou=People,dc=example,dc=com");
+    assertEquals(servers[1].countEntries(false), 10);
+    servers[1].restoreSnapshot(snapshot);
+    assertEquals(servers[1].countEntries(false), 11);
+
+    final String[] filters =
+    {
+      "(objectClass=*)",
+      "(uid=user.5)",
+      "(uid=user.one)",
+      "(description=MODIFIED)",
+      "(&(sn>=5)(description=second))",
+      "(cn=*user*)"
+    };
+
+    for (final String filter : filters)
+    {
+      final List<SearchResultEntry> regularEntries =
+           servers[0].search("dc=example,dc=com", SearchScope.SUB, filter).
+                getSearchEntries();
+      final List<SearchResultEntry> compactEntries =
+           servers[1].search("dc=example,dc=com", SearchScope.SUB, filter).
+                getSearchEntries();
+      assertFalse(regularEntries.isEmpty(), filter);
+      assertEquals(new ArrayList<Entry>(compactEntries),
+           new ArrayList<Entry>(regularEntries), filter);
+    }
+
+    assertEquals(
+         servers[1].getEntry("uid=user.4,ou=People,dc=example,dc=com"),
+         servers[0].getEntry("uid=user.4,ou=People,dc=example,dc=com"));
+    assertNull(servers[1].getEntry("uid=user.2,ou=People,dc=example,dc=com"));
+    assertEquals(servers[1].countEntriesBelow("cn=changelog"),
+         servers[0].countEntriesBelow("cn=changelog"));
+    assertTrue(servers[1].compare("uid=user.5,ou=People,dc=example,dc=com",
+         "jpegPhoto", "\u0000\u0001\u0002\u0003\u0004\u0005\u0006\u0007" +
+              "\u0008\u0009").compareMatched());
+  }
+
+
+
+  /**
+   * Tests to ensure that a server configured with a persistent store will start
+   * with the data held by a previous server that used the same store.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testPersistentStore()
+         throws Exception
+  {
+    for (final boolean compact : new boolean[] { false, true })
+    {
+      final File storeFile = new File(createTempDir(), "entries.log");
+
+      InMemoryDirectoryServer ds =
+           createPersistentStoreServer(storeFile, compact);
+      ds.add(
+           "dn: dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: domain",
+           "dc: example");
+      ds.add(
+           "dn: ou=People,dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: People");
+      for (int i=0; i < 5; i++)
+      {
+        ds.add(
+             "dn: uid=user." + i + ",ou=People,dc=example,dc=com",
+             "objectClass: top",
+             "objectClass: person",
+             "objectClass: organizationalPerson",
+             "objectClass: inetOrgPerson",
+             "uid: user." + i,
+             "givenName: User",
+             "sn: " + i,
+             "cn: User " + i);
+      }
+
+      ds.modify(
+           "dn: uid=user.0,ou=People,dc=example,dc=com",
+           "changetype: modify",
+           "replace: description",
+           "description: modified");
+      ds.modifyDN("uid=user.1,ou=People,dc=example,dc=com", "uid=user.one",
+           true);
+      ds.delete("uid=user.2,ou=People,dc=example,dc=com");
+
+      final Entry user0 = ds.getEntry("uid=user.0,ou=People,dc=example,dc=com");
+      assertEquals(ds.countEntries(false), 6);
+      final int numChangeLogEntries = ds.countEntriesBelow("cn=changelog");
+
+      // Create a new server with the same store and make sure that it has the
+      // same data, including the changelog, and that its indexes are usable.
+      ds = createPersistentStoreServer(storeFile, compact);
+      assertEquals(ds.countEntries(false), 6);
+      assertEquals(ds.getEntry("uid=user.0,ou=People,dc=example,dc=com"),
+           user0);
+      assertNotNull(ds.getEntry("uid=user.one,ou=People,dc=example,dc=com"));
+      assertNull(ds.getEntry("uid=user.2,ou=People,dc=example,dc=com"));
+      assertEquals(ds.countEntriesBelow("cn=changelog"), numChangeLogEntries);
+      assertEquals(ds.search("dc=example,dc=com", SearchScope.SUB,
+           "(uid=user.3)").getEntryCount(), 1);
+
+      ds.add(
+           "dn: uid=user.5,ou=People,dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: person",
+           "objectClass: organizationalPerson",
+           "objectClass: inetOrgPerson",
+           "uid: user.5",
+           "givenName: User",
+           "sn: 5",
+           "cn: User 5");
+      assertEquals(ds.countEntriesBelow("cn=changelog"),
+           numChangeLogEntries + 1);
+
+      // The count of changelog entries includes the changelog base entry, so
+      // it matches the change number for the new change.
+      assertNotNull(ds.getEntry("changeNumber=" + numChangeLogEntries +
+           ",cn=changelog"));
+
+      // Clearing the server should also clear the store.
+      ds.clear();
+      ds = createPersistentStoreServer(storeFile, compact);
+      assertEquals(ds.countEntries(false), 0);
+    }
+  }
+
+
+
+  /**
+   * Creates an in-memory directory server instance that uses the provided
+   * persistent store file.
+   *
+   * @param  storeFile  The persistent store file to use.
+   * @param  compact    Indicates whether to use compact entry storage.
+   *
+   * @return  The server that was created.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static InMemoryDirectoryServer createPersistentStoreServer(
+                      final File storeFile, final boolean compact)
+          throws Exception
+  {
+    final InMemoryDirectoryServerConfig config =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+    config.setPersistentStoreFile(storeFile);
+    config.setUseCompactEntryStorage(compact);
+    config.setEqualityIndexAttributes("uid");
+    config.setMaxChangeLogEntries(100);
+    return new InMemoryDirectoryServer(config);
+  }
+
+
+
+  /**
+   * Tests to ensure that searches processed with presence, ordering, and
+   * substring indexes return the same results as searches processed without
+   * any indexes.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testAdditionalIndexTypes()
+         throws Exception
+  {
+    final InMemoryDirectoryServerConfig indexedConfig =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+    indexedConfig.setPresenceIndexAttributes("description", "mail");
+    indexedConfig.setOrderingIndexAttributes("employeeNumber", "sn");
+    indexedConfig.setSubstringIndexAttributes("cn", "mail");
+
+    final InMemoryDirectoryServer indexedDS =
+         new InMemoryDirectoryServer(indexedConfig);
+    final InMemoryDirectoryServer unindexedDS =
+         new InMemoryDirectoryServer("dc=example,dc=com");
+
+    final List<Entry> entries = new ArrayList<>(101);
+    entries.add(new Entry(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example"));
+    for (int i=0; i < 100; i++)
+    {
+      final Entry e = new Entry(
+           "dn: uid=user." + i + ",dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: person",
+           "objectClass: organizationalPerson",
+           "objectClass: inetOrgPerson",
+           "uid: user." + i,
+           "givenName: User",
+           "sn: Number" + (i % 10),
+           "cn: User " + i + " Number" + (i % 10),
+           "employeeNumber: " + (1000 + i));
+      if ((i % 3) == 0)
+      {
+        e.addAttribute("description", "Divisible by three");
+      }
+      if ((i % 4) == 0)
+      {
+        e.addAttribute("mail", "user." + i + "@example.com");
+      }
+      entries.add(e);
+    }
+
+    indexedDS.addEntries(entries);
+    unindexedDS.addEntries(entries);
+
+    // Make some changes to ensure that the indexes are kept up to date.
+    for (final InMemoryDirectoryServer ds :
+         Arrays.asList(indexedDS, unindexedDS))
+    {
+      ds.delete("uid=user.12,dc=example,dc=com");
+      ds.modify(
+           "dn: uid=user.13,dc=example,dc=com",
+           "changetype: modify",
+           "replace: employeeNumber",
+           "employeeNumber: 2013",
+           "-",
+           "add: description",
+           "description: Modified",
+           "-",
+           "replace: cn",
+           "cn: Modified Person");
+      ds.modifyDN("uid=user.14,dc=example,dc=com", "uid=renamed.14", true);
+    }
+
+    final String[] filters =
+    {
+      "(description=*)",
+      "(mail=*)",
+      "(employeeNumber>=1050)",
+      "(employeeNumber<=1009)",
+      "(employeeNumber>=2000)",
+      "(sn>=number5)",
+      "(sn<=NUMBER2)",
+      "(cn=user 1*)",
+      "(cn=*number3)",
+      "(cn=*ER 4*)",
+      "(cn=u*2*r*)",
+      "(cn=modified*)",
+      "(cn=*xyz*)",
+      "(mail=*@example.com)",
+      "(&(description=*)(employeeNumber>=1090))",
+      "(|(mail=*)(cn=*number7))",
+      "(&(uid=user.3*)(cn=*er*))"
+    };
+
+    for (final String filter : filters)
+    {
+      final List<SearchResultEntry> indexedEntries = indexedDS.search(
+           "dc=example,dc=com", SearchScope.SUB, filter).getSearchEntries();
+      final List<SearchResultEntry> unindexedEntries = unindexedDS.search(
+           "dc=example,dc=com", SearchScope.SUB, filter).getSearchEntries();
+
+      final List<DN> indexedDNs = new ArrayList<>(indexedEntries.size());
+      for (final SearchResultEntry e : indexedEntries)
+      {
+        indexedDNs.add(e.getParsedDN());
+      }
+
+      final List<DN> unindexedDNs = new ArrayList<>(unindexedEntries.size());
+      for (final SearchResultEntry e : unindexedEntries)
+      {
+        unindexedDNs.add(e.getParsedDN());
+      }
+
+      assertEquals(new TreeSet<>(indexedDNs), new TreeSet<>(unindexedDNs),
+           "Mismatched results for filter " + filter);
+    }
+
+    // Make sure that the indexes are properly rebuilt after restoring a
+    // snapshot.
+    final InMemoryDirectoryServerSnapshot snapshot =
+         indexedDS.createSnapshot();
+    indexedDS.clear();
+    assertEquals(indexedDS.countEntries(), 0);
+
+    indexedDS.restoreSnapshot(snapshot);
+    assertEquals(
+         indexedDS.search("dc=example,dc=com", SearchScope.SUB,
+              "(description=*)").getEntryCount(),
+         unindexedDS.search("dc=example,dc=com", SearchScope.SUB,
+              "(description=*)").getEntryCount());
+  }
+
+
+
   /**
    * Tests the constructor with invalid arguments.
    *
@@ -6132,4 +6599,119 @@ public final class InMemoryDirectoryServerTestCase
 
     ds.shutDown(true);
   }
+
+
+
+  /**
+   * Tests the behavior of the server when searches and compares are processed
+   * concurrently with write operations on multiple connections.  The reads
+   * must never observe a partially-applied write.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConcurrentReadsAndWrites()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds =
+         new InMemoryDirectoryServer("dc=example,dc=com");
+    ds.add(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example");
+    ds.startListening();
+
+    final int numReaders = 4;
+    final int numIterations = 200;
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final CountDownLatch startLatch = new CountDownLatch(1);
+    final ArrayList<Thread> threads = new ArrayList<>(numReaders + 1);
+
+    threads.add(new Thread()
+    {
+      @Override()
+      public void run()
+      {
+        try (LDAPConnection conn = ds.getConnection())
+        {
+          startLatch.await();
+          for (int i=0; i < numIterations; i++)
+          {
+            conn.add(
+                 "dn: ou=Concurrent " + i + ",dc=example,dc=com",
+                 "objectClass: top",
+                 "objectClass: organizationalUnit",
+                 "ou: Concurrent " + i,
+                 "description: before");
+            conn.modify(
+                 "dn: ou=Concurrent " + i + ",dc=example,dc=com",
+                 "changetype: modify",
+                 "replace: description",
+                 "description: after");
+          }
+        }
+        catch (final Throwable t)
+        {
+          failure.compareAndSet(null, t);
+        }
+      }
+    });
+
+    for (int r=0; r < numReaders; r++)
+    {
+      threads.add(new Thread()
+      {
+        @Override()
+        public void run()
+        {
+          try (LDAPConnection conn = ds.getConnection())
+          {
+            startLatch.await();
+            for (int i=0; i < numIterations; i++)
+            {
+              final SearchResult searchResult = conn.search("dc=example,dc=com",
+                   SearchScope.ONE, "(ou=Concurrent*)", "ou");
+              assertResultCodeEquals(searchResult, ResultCode.SUCCESS);
+              assertTrue(searchResult.getEntryCount() <= numIterations);
+
+              assertNotNull(conn.getEntry("dc=example,dc=com"));
+              assertTrue(conn.compare("dc=example,dc=com", "dc",
+                   "example").compareMatched());
+            }
+          }
+          catch (final Throwable t)
+          {
+            failure.compareAndSet(null, t);
+          }
+        }
+      });
+    }
+
+    for (final Thread t : threads)
+    {
+      t.start();
+    }
+    startLatch.countDown();
+
+    for (final Thread t : threads)
+    {
+      t.join();
+    }
+
+    if (failure.get() != null)
+    {
+      throw new AssertionError(StaticUtils.getExceptionMessage(failure.get()),
+           failure.get());
+    }
+
+    assertEquals(ds.countEntriesBelow("dc=example,dc=com"),
+         numIterations + 1);
+    assertEquals(
+         ds.search("dc=example,dc=com", SearchScope.SUB,
+              "(description=before)").getEntryCount(),
+         0);
+
+    ds.shutDown(true);
+  }
 }
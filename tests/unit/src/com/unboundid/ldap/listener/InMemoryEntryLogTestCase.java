@@ -0,0 +1,245 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.listener;
+
+
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LDAPSDKTestCase;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.util.StaticUtils;
+
+
+
+/**
+ * This class provides a set of test cases for the InMemoryEntryLog class.
+ */
+public final class InMemoryEntryLogTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the behavior when writing records to a log and then reopening it.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testWriteAndReopen()
+         throws Exception
+  {
+    final File file = new File(createTempDir(), "entries.log");
+    final DN dn1 = new DN("dc=example,dc=com");
+    final DN dn2 = new DN("ou=People,dc=example,dc=com");
+    final DN dn3 = new DN("ou=Groups,dc=example,dc=com");
+
+    InMemoryEntryLog log = new InMemoryEntryLog(file);
+    assertSame(log.getFile(), file);
+    assertTrue(log.open(null).isEmpty());
+    assertTrue(file.exists());
+    assertEquals(log.getNumRecords(), 0L);
+
+    log.writePut(dn1, new byte[] { 0x01 });
+    log.writePut(dn2, new byte[] { 0x02 });
+    log.writeClear();
+    log.writePut(dn1, new byte[] { 0x03 });
+    log.writePut(dn2, new byte[] { 0x04, 0x05 });
+    log.writePut(dn3, new byte[0]);
+    log.writeDelete(dn3);
+    log.writePut(dn2, new byte[] { 0x06 });
+    assertEquals(log.getNumRecords(), 8L);
+    log.close();
+
+    log = new InMemoryEntryLog(file);
+    final TreeMap<DN,byte[]> entries = log.open(null);
+    assertEquals(log.getNumRecords(), 8L);
+    assertEquals(entries.size(), 2);
+    assertEquals(entries.get(dn1), new byte[] { 0x03 });
+    assertEquals(entries.get(dn2), new byte[] { 0x06 });
+
+    // Records written after reopening the log should also be preserved.
+    log.writeDelete(dn1);
+    log.close();
+
+    log = new InMemoryEntryLog(file);
+    assertEquals(log.open(null).keySet(), Arrays.asList(dn2));
+    log.close();
+  }
+
+
+
+  /**
+   * Tests to ensure that a record that was only partially written at the end
+   * of the log will be discarded.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testPartialRecord()
+         throws Exception
+  {
+    final File file = new File(createTempDir(), "entries.log");
+    final DN dn1 = new DN("dc=example,dc=com");
+    final DN dn2 = new DN("ou=People,dc=example,dc=com");
+
+    InMemoryEntryLog log = new InMemoryEntryLog(file);
+    log.open(null);
+    log.writePut(dn1, new byte[] { 0x01 });
+    final long validLength = file.length();
+    log.writePut(dn2, new byte[] { 0x02, 0x03, 0x04 });
+    log.close();
+
+    for (long length = file.length() - 1L; length > validLength; length--)
+    {
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+      {
+        raf.setLength(length);
+      }
+
+      log = new InMemoryEntryLog(file);
+      final TreeMap<DN,byte[]> entries = log.open(null);
+      assertEquals(entries.keySet(), Arrays.asList(dn1));
+      assertEquals(file.length(), validLength);
+
+      log.writePut(dn2, new byte[] { 0x02, 0x03, 0x04 });
+      log.close();
+    }
+
+    log = new InMemoryEntryLog(file);
+    assertEquals(log.open(null).size(), 2);
+    log.close();
+  }
+
+
+
+  /**
+   * Tests to ensure that a log with a corrupted record will be rejected.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testChecksumMismatch()
+         throws Exception
+  {
+    final File file = new File(createTempDir(), "entries.log");
+
+    InMemoryEntryLog log = new InMemoryEntryLog(file);
+    log.open(null);
+    log.writePut(new DN("dc=example,dc=com"), new byte[] { 0x01 });
+    log.writePut(new DN("ou=People,dc=example,dc=com"), new byte[] { 0x02 });
+    log.close();
+
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+    {
+      raf.seek(20L);
+      final int b = raf.read();
+      raf.seek(20L);
+      raf.write(b ^ 0xFF);
+    }
+
+    log = new InMemoryEntryLog(file);
+    try
+    {
+      log.open(null);
+      fail("Expected an exception when opening a corrupted log");
+    }
+    catch (final LDAPException le)
+    {
+      assertEquals(le.getResultCode(), ResultCode.LOCAL_ERROR);
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that a file that is not an entry log will be rejected.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPException.class })
+  public void testInvalidHeader()
+         throws Exception
+  {
+    final File file = createTempFile("dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example");
+    new InMemoryEntryLog(file).open(null);
+  }
+
+
+
+  /**
+   * Tests the behavior when compacting a log.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testCompact()
+         throws Exception
+  {
+    final File file = new File(createTempDir(), "entries.log");
+    final DN dn = new DN("dc=example,dc=com");
+
+    InMemoryEntryLog log = new InMemoryEntryLog(file);
+    log.open(null);
+    assertFalse(log.shouldCompact(1));
+    for (int i=0; i < InMemoryEntryLog.MIN_RECORDS_FOR_COMPACTION; i++)
+    {
+      log.writePut(dn, StaticUtils.getBytes(String.valueOf(i)));
+    }
+
+    assertTrue(log.shouldCompact(1));
+    assertFalse(log.shouldCompact(
+         (int) InMemoryEntryLog.MIN_RECORDS_FOR_COMPACTION));
+
+    final long uncompactedLength = file.length();
+    final Map.Entry<DN,byte[]> e =
+         new AbstractMap.SimpleImmutableEntry<>(dn, new byte[] { 0x01 });
+    final Iterator<Map.Entry<DN,byte[]>> iterator =
+         Arrays.<Map.Entry<DN,byte[]>>asList(e).iterator();
+    log.compact(iterator);
+    assertEquals(log.getNumRecords(), 1L);
+    assertFalse(log.shouldCompact(1));
+    assertTrue(file.length() < uncompactedLength);
+    assertFalse(new File(file.getAbsolutePath() + ".compact").exists());
+
+    final DN dn2 = new DN("ou=People,dc=example,dc=com");
+    log.writePut(dn2, new byte[] { 0x02 });
+    log.close();
+
+    log = new InMemoryEntryLog(file);
+    final TreeMap<DN,byte[]> entries = log.open(null);
+    assertEquals(log.getNumRecords(), 2L);
+    assertEquals(entries.get(dn), new byte[] { 0x01 });
+    assertEquals(entries.get(dn2), new byte[] { 0x02 });
+    log.close();
+  }
+}
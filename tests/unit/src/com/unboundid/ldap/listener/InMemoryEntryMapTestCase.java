@@ -0,0 +1,249 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.listener;
+
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.LDAPSDKTestCase;
+import com.unboundid.ldap.sdk.ReadOnlyEntry;
+import com.unboundid.ldap.sdk.schema.Schema;
+
+
+
+/**
+ * This class provides a set of test cases for the InMemoryEntryMap class.
+ */
+public final class InMemoryEntryMapTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Retrieves the storage modes to use for testing.
+   *
+   * @return  The storage modes to use for testing.
+   */
+  @DataProvider(name="storageModes")
+  public Object[][] getStorageModes()
+  {
+    return new Object[][]
+    {
+      new Object[] { false },
+      new Object[] { true }
+    };
+  }
+
+
+
+  /**
+   * Tests the basic behavior of adding, retrieving, and removing entries.
+   *
+   * @param  compact  Indicates whether entries should be held in compact form.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="storageModes")
+  public void testPutGetAndRemove(final boolean compact)
+         throws Exception
+  {
+    final InMemoryEntryMap map = new InMemoryEntryMap(
+         new AtomicReference<>(Schema.getDefaultStandardSchema()), compact);
+    assertEquals(map.isCompact(), compact);
+    assertTrue(map.isEmpty());
+    assertEquals(map.size(), 0);
+
+    final ReadOnlyEntry entry = createEntry("ou=People,dc=example,dc=com");
+    final DN dn = entry.getParsedDN();
+    assertFalse(map.containsKey(dn));
+    assertNull(map.get(dn));
+
+    assertNull(map.put(dn, entry));
+    assertFalse(map.isEmpty());
+    assertEquals(map.size(), 1);
+    assertTrue(map.containsKey(dn));
+    assertEquals(map.get(dn), entry);
+    assertEquals(map.get(dn).getDN(), entry.getDN());
+    assertEquals(map.get(dn).getAttributeValueBytes("jpegPhoto"),
+         entry.getAttributeValueBytes("jpegPhoto"));
+
+    final ReadOnlyEntry replacement =
+         new ReadOnlyEntry(entry.getDN(), entry.getAttribute("objectClass"));
+    assertEquals(map.put(dn, replacement), entry);
+    assertEquals(map.get(dn), replacement);
+    assertEquals(map.size(), 1);
+
+    assertEquals(map.remove(dn), replacement);
+    assertNull(map.remove(dn));
+    assertFalse(map.containsKey(dn));
+    assertTrue(map.isEmpty());
+
+    map.put(dn, entry);
+    map.clear();
+    assertTrue(map.isEmpty());
+  }
+
+
+
+  /**
+   * Tests the behavior of the methods used to iterate through the entries in
+   * the map, including tail map views.
+   *
+   * @param  compact  Indicates whether entries should be held in compact form.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="storageModes")
+  public void testIteration(final boolean compact)
+         throws Exception
+  {
+    final InMemoryEntryMap map =
+         new InMemoryEntryMap(new AtomicReference<Schema>(), compact);
+    final ReadOnlyEntry[] entries =
+    {
+      createEntry("dc=example,dc=com"),
+      createEntry("ou=People,dc=example,dc=com"),
+      createEntry("uid=test.user,ou=People,dc=example,dc=com"),
+      createEntry("ou=Groups,dc=example,dc=com")
+    };
+
+    for (final ReadOnlyEntry e : entries)
+    {
+      map.put(e.getParsedDN(), e);
+    }
+
+    assertEquals(new ArrayList<>(map.keySet()),
+         Arrays.asList(entries[0].getParsedDN(), entries[3].getParsedDN(),
+              entries[1].getParsedDN(), entries[2].getParsedDN()));
+    assertEquals(new ArrayList<>(map.values()),
+         Arrays.asList(entries[0], entries[3], entries[1], entries[2]));
+
+    final InMemoryEntryMap tailMap =
+         map.tailMap(entries[1].getParsedDN(), true);
+    assertEquals(tailMap.size(), 2);
+    assertEquals(new ArrayList<>(tailMap.values()),
+         Arrays.asList(entries[1], entries[2]));
+    assertEquals(map.tailMap(entries[1].getParsedDN(), false).size(), 1);
+
+    final Iterator<Map.Entry<DN,ReadOnlyEntry>> iterator =
+         tailMap.entrySet().iterator();
+    final Map.Entry<DN,ReadOnlyEntry> first = iterator.next();
+    assertEquals(first.getKey(), entries[1].getParsedDN());
+    assertEquals(first.getValue(), entries[1]);
+    iterator.remove();
+    assertFalse(map.containsKey(entries[1].getParsedDN()));
+    assertEquals(map.size(), 3);
+  }
+
+
+
+  /**
+   * Tests the behavior of read-only copies of the map.
+   *
+   * @param  compact  Indicates whether entries should be held in compact form.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="storageModes")
+  public void testReadOnlyCopy(final boolean compact)
+         throws Exception
+  {
+    final InMemoryEntryMap map =
+         new InMemoryEntryMap(new AtomicReference<Schema>(), compact);
+    final ReadOnlyEntry entry = createEntry("dc=example,dc=com");
+    final DN dn = entry.getParsedDN();
+    map.put(dn, entry);
+
+    final InMemoryEntryMap copy = map.readOnlyCopy();
+    assertEquals(copy.isCompact(), compact);
+    map.remove(dn);
+    assertTrue(map.isEmpty());
+    assertEquals(copy.get(dn), entry);
+
+    try
+    {
+      copy.put(dn, entry);
+      fail("Expected an exception when altering a read-only map");
+    }
+    catch (final UnsupportedOperationException e)
+    {
+      // This was expected.
+    }
+
+    try
+    {
+      copy.keySet().clear();
+      fail("Expected an exception when altering a read-only key set");
+    }
+    catch (final UnsupportedOperationException e)
+    {
+      // This was expected.
+    }
+
+    try
+    {
+      final Iterator<Map.Entry<DN,ReadOnlyEntry>> iterator =
+           copy.tailMap(dn, true).entrySet().iterator();
+      iterator.next();
+      iterator.remove();
+      fail("Expected an exception when altering a read-only tail map");
+    }
+    catch (final UnsupportedOperationException e)
+    {
+      // This was expected.
+    }
+
+    map.putAll(copy);
+    assertEquals(map.get(dn), entry);
+    assertEquals(copy.size(), 1);
+  }
+
+
+
+  /**
+   * Creates an entry with the provided DN and a set of attributes.
+   *
+   * @param  dn  The DN for the entry to create.
+   *
+   * @return  The entry that was created.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static ReadOnlyEntry createEntry(final String dn)
+          throws Exception
+  {
+    return new ReadOnlyEntry(
+         "dn: " + dn,
+         "objectClass: top",
+         "objectClass: extensibleObject",
+         "description: first",
+         "description: second",
+         "cn;lang-en: Test",
+         "jpegPhoto:: AAECAwQFBgcICf8=");
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.listener;
+
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LDAPSDKTestCase;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.SearchResultReference;
+
+
+
+/**
+ * This class provides a set of test cases for the InMemorySearchCursorCache
+ * class.
+ */
+public final class InMemorySearchCursorCacheTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the basic behavior of adding, retrieving, and removing cursors.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testPutGetAndRemove()
+         throws Exception
+  {
+    final InMemorySearchCursorCache cache = new InMemorySearchCursorCache();
+    assertEquals(cache.size(), 0);
+
+    final List<Entry> entries = createEntries(5);
+    final List<SearchResultReference> references = Collections.singletonList(
+         new SearchResultReference(new String[] { "ldap://ds.example.com/" },
+              null));
+
+    final InMemorySearchCursorCache.Cursor cursor =
+         cache.put("signature", "owner", entries, references);
+    assertNotNull(cursor);
+    assertNotNull(cursor.getID());
+    assertEquals(cursor.getSignature(), "signature");
+    assertEquals(cursor.getOwner(), "owner");
+    assertEquals(cursor.getEntries(), entries);
+    assertEquals(cursor.getReferences().size(), 1);
+    assertTrue(cursor.getLastAccessTime() > 0L);
+    assertEquals(cache.size(), 1);
+
+    assertSame(cache.get(cursor.getID(), "owner", "signature"), cursor);
+    assertNull(cache.get(cursor.getID(), "owner", "different signature"));
+    assertNull(cache.get("nonexistent", "owner", "signature"));
+
+    // A cursor must not be provided to a different owner.
+    try
+    {
+      cache.get(cursor.getID(), "different owner", "signature");
+      fail("Expected an exception when retrieving a cursor for a different " +
+           "owner");
+    }
+    catch (final LDAPException le)
+    {
+      assertEquals(le.getResultCode(), ResultCode.UNWILLING_TO_PERFORM);
+    }
+
+    final InMemorySearchCursorCache.Cursor cursor2 =
+         cache.put("signature", "owner", entries, references);
+    assertNotNull(cursor2);
+    assertFalse(cursor2.getID().equals(cursor.getID()));
+    assertEquals(cache.size(), 2);
+
+    cache.remove(cursor.getID());
+    assertEquals(cache.size(), 1);
+    assertNull(cache.get(cursor.getID(), "owner", "signature"));
+    assertSame(cache.get(cursor2.getID(), "owner", "signature"), cursor2);
+
+    cache.remove(cursor.getID());
+    assertEquals(cache.size(), 1);
+
+    cache.clear();
+    assertEquals(cache.size(), 0);
+    assertNull(cache.get(cursor2.getID(), "owner", "signature"));
+  }
+
+
+
+  /**
+   * Tests to ensure that the limits on the number of cursors and the total
+   * number of entries are enforced.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testLimits()
+         throws Exception
+  {
+    final InMemorySearchCursorCache cache =
+         new InMemorySearchCursorCache(2, 10, 60_000L);
+    final List<SearchResultReference> references = Collections.emptyList();
+
+    // A set of results that is too large to cache at all.
+    assertNull(cache.put("s", "o", createEntries(11), references));
+    assertEquals(cache.size(), 0);
+
+    final InMemorySearchCursorCache.Cursor c1 =
+         cache.put("s", "o", createEntries(3), references);
+    final InMemorySearchCursorCache.Cursor c2 =
+         cache.put("s", "o", createEntries(3), references);
+    assertNotNull(c1);
+    assertNotNull(c2);
+    assertEquals(cache.size(), 2);
+
+    // Access the first cursor so that the second is least recently used, and
+    // then add a third cursor.  The second cursor should be evicted.
+    assertNotNull(cache.get(c1.getID(), "o", "s"));
+    final InMemorySearchCursorCache.Cursor c3 =
+         cache.put("s", "o", createEntries(3), references);
+    assertNotNull(c3);
+    assertEquals(cache.size(), 2);
+    assertNotNull(cache.get(c1.getID(), "o", "s"));
+    assertNull(cache.get(c2.getID(), "o", "s"));
+    assertNotNull(cache.get(c3.getID(), "o", "s"));
+
+    // Add a cursor that would exceed the total entry limit.  The least
+    // recently used cursor should be evicted to make room for it.
+    final InMemorySearchCursorCache.Cursor c4 =
+         cache.put("s", "o", createEntries(6), references);
+    assertNotNull(c4);
+    assertEquals(cache.size(), 2);
+    assertNull(cache.get(c1.getID(), "o", "s"));
+    assertNotNull(cache.get(c3.getID(), "o", "s"));
+    assertNotNull(cache.get(c4.getID(), "o", "s"));
+
+    // Add a cursor that would require evicting both of the existing cursors.
+    final InMemorySearchCursorCache.Cursor c5 =
+         cache.put("s", "o", createEntries(8), references);
+    assertNotNull(c5);
+    assertEquals(cache.size(), 1);
+    assertNull(cache.get(c3.getID(), "o", "s"));
+    assertNull(cache.get(c4.getID(), "o", "s"));
+    assertNotNull(cache.get(c5.getID(), "o", "s"));
+  }
+
+
+
+  /**
+   * Tests to ensure that cursors expire once they have been idle for too long,
+   * and that a cache with a maximum of zero cursors does not hold any.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testExpirationAndDisabledCache()
+         throws Exception
+  {
+    final List<SearchResultReference> references = Collections.emptyList();
+
+    final InMemorySearchCursorCache cache =
+         new InMemorySearchCursorCache(10, 100, 10L);
+    final InMemorySearchCursorCache.Cursor cursor =
+         cache.put("s", "o", createEntries(1), references);
+    assertNotNull(cursor);
+
+    Thread.sleep(50L);
+    assertNull(cache.get(cursor.getID(), "o", "s"));
+    assertEquals(cache.size(), 0);
+
+    final InMemorySearchCursorCache disabledCache =
+         new InMemorySearchCursorCache(0, 100, 60_000L);
+    assertNull(disabledCache.put("s", "o", createEntries(1), references));
+    assertEquals(disabledCache.size(), 0);
+  }
+
+
+
+  /**
+   * Creates a list with the specified number of entries.
+   *
+   * @param  numEntries  The number of entries to create.
+   *
+   * @return  The list of entries that was created.
+   */
+  private static List<Entry> createEntries(final int numEntries)
+  {
+    final ArrayList<Entry> entries = new ArrayList<>(numEntries);
+    for (int i=0; i < numEntries; i++)
+    {
+      entries.add(new Entry("uid=user." + i + ",dc=example,dc=com"));
+    }
+
+    return entries;
+  }
+}
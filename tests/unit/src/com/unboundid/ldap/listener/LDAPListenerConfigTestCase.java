@@ -434,6 +434,110 @@ public final class LDAPListenerConfigTestCase
 
 
 
+  /**
+   * Provides test coverage for the maximum concurrent requests per connection
+   * configuration.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testMaxConcurrentRequestsPerConnection()
+         throws Exception
+  {
+    LDAPListenerConfig c = new LDAPListenerConfig(1234,
+         new CannedResponseRequestHandler());
+    assertEquals(c.getMaxConcurrentRequestsPerConnection(), 1);
+    c = c.duplicate();
+    assertEquals(c.getMaxConcurrentRequestsPerConnection(), 1);
+
+    assertNotNull(c.toString());
+
+    c.setMaxConcurrentRequestsPerConnection(16);
+    assertEquals(c.getMaxConcurrentRequestsPerConnection(), 16);
+    c = c.duplicate();
+    assertEquals(c.getMaxConcurrentRequestsPerConnection(), 16);
+
+    assertNotNull(c.toString());
+
+    c.setMaxConcurrentRequestsPerConnection(0);
+    assertEquals(c.getMaxConcurrentRequestsPerConnection(), 1);
+    c = c.duplicate();
+    assertEquals(c.getMaxConcurrentRequestsPerConnection(), 1);
+
+    assertNotNull(c.toString());
+  }
+
+
+
+  /**
+   * Provides test coverage for the number of request processing threads
+   * configuration.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testNumRequestProcessingThreads()
+         throws Exception
+  {
+    LDAPListenerConfig c = new LDAPListenerConfig(1234,
+         new CannedResponseRequestHandler());
+    assertEquals(c.getNumRequestProcessingThreads(), 0);
+    c = c.duplicate();
+    assertEquals(c.getNumRequestProcessingThreads(), 0);
+
+    assertNotNull(c.toString());
+
+    c.setNumRequestProcessingThreads(8);
+    assertEquals(c.getNumRequestProcessingThreads(), 8);
+    c = c.duplicate();
+    assertEquals(c.getNumRequestProcessingThreads(), 8);
+
+    assertNotNull(c.toString());
+
+    c.setNumRequestProcessingThreads(-1);
+    assertEquals(c.getNumRequestProcessingThreads(), 0);
+    c = c.duplicate();
+    assertEquals(c.getNumRequestProcessingThreads(), 0);
+
+    assertNotNull(c.toString());
+  }
+
+
+
+  /**
+   * Provides test coverage for the write timeout configuration.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testWriteTimeoutMillis()
+         throws Exception
+  {
+    LDAPListenerConfig c = new LDAPListenerConfig(1234,
+         new CannedResponseRequestHandler());
+    assertEquals(c.getWriteTimeoutMillis(), 300_000L);
+    c = c.duplicate();
+    assertEquals(c.getWriteTimeoutMillis(), 300_000L);
+
+    assertNotNull(c.toString());
+
+    c.setWriteTimeoutMillis(1234L);
+    assertEquals(c.getWriteTimeoutMillis(), 1234L);
+    c = c.duplicate();
+    assertEquals(c.getWriteTimeoutMillis(), 1234L);
+
+    assertNotNull(c.toString());
+
+    c.setWriteTimeoutMillis(-1L);
+    assertEquals(c.getWriteTimeoutMillis(), 0L);
+    c = c.duplicate();
+    assertEquals(c.getWriteTimeoutMillis(), 0L);
+
+    assertNotNull(c.toString());
+  }
+
+
+
   /**
    * Provides test coverage for the receive buffer size configuration.
    *
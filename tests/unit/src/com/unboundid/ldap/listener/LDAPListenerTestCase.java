@@ -23,12 +23,40 @@ package com.unboundid.ldap.listener;
 
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import com.unboundid.asn1.ASN1StreamReader;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedSearchEntry;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+import com.unboundid.ldap.listener.interceptor.
+            InMemoryOperationInterceptorRequestHandler;
+import com.unboundid.ldap.protocol.AbandonRequestProtocolOp;
+import com.unboundid.ldap.protocol.BindRequestProtocolOp;
+import com.unboundid.ldap.protocol.LDAPMessage;
+import com.unboundid.ldap.protocol.SearchRequestProtocolOp;
+import com.unboundid.ldap.protocol.UnbindRequestProtocolOp;
+import com.unboundid.ldap.sdk.AsyncRequestID;
+import com.unboundid.ldap.sdk.BasicAsyncSearchResultListener;
 import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPConnectionOptions;
+import com.unboundid.ldap.sdk.LDAPException;
 import com.unboundid.ldap.sdk.LDAPSDKTestCase;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.SearchRequest;
+import com.unboundid.ldap.sdk.SearchResult;
+import com.unboundid.ldap.sdk.SearchResultEntry;
+import com.unboundid.ldap.sdk.SearchScope;
 import com.unboundid.util.ThrowsOnAcceptServerSocketFactory;
 import com.unboundid.util.ThrowsOnCreateServerSocketFactory;
 
@@ -143,4 +171,789 @@ public final class LDAPListenerTestCase
 
     listener.shutDown(true);
   }
+
+
+
+  /**
+   * Tests the behavior of a listener that uses a selector and a pool of
+   * request processing threads rather than a dedicated thread per connection.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSelectorBasedListener()
+         throws Exception
+  {
+    final LDAPListenerConfig config = new LDAPListenerConfig(0,
+         new InMemoryRequestHandler(
+              new InMemoryDirectoryServerConfig("dc=example,dc=com")));
+    config.setNumRequestProcessingThreads(2);
+
+    final LDAPListener listener = new LDAPListener(config);
+    listener.startListening();
+    assertNotNull(listener.getConnectionSelector());
+
+    final int listenPort = listener.getListenPort();
+    assertTrue(listenPort > 0);
+
+    // Establish more connections than there are request processing threads
+    // and interleave operations across them.
+    final List<LDAPConnection> connections = new ArrayList<>(10);
+    for (int i=0; i < 10; i++)
+    {
+      connections.add(new LDAPConnection("127.0.0.1", listenPort));
+    }
+
+    connections.get(0).add(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example");
+
+    for (int i=0; i < 10; i++)
+    {
+      connections.get(i).add(
+           "dn: ou=test " + i + ",dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: test " + i);
+    }
+
+    for (final LDAPConnection conn : connections)
+    {
+      assertEntryExists(conn, "ou=test 9,dc=example,dc=com");
+      assertEquals(conn.search("dc=example,dc=com", SearchScope.SUB,
+           "(objectClass=*)").getEntryCount(), 11);
+    }
+
+
+    // Send several requests on the same connection without waiting for the
+    // responses, and make sure they all get processed.
+    final LDAPConnection pipelinedConn = connections.get(0);
+    final List<BasicAsyncSearchResultListener> listeners = new ArrayList<>(20);
+    final List<AsyncRequestID> requestIDs = new ArrayList<>(20);
+    for (int i=0; i < 20; i++)
+    {
+      final BasicAsyncSearchResultListener l =
+           new BasicAsyncSearchResultListener();
+      listeners.add(l);
+      requestIDs.add(pipelinedConn.asyncSearch(new SearchRequest(l,
+           "ou=test " + (i % 10) + ",dc=example,dc=com", SearchScope.BASE,
+           "(objectClass=*)")));
+    }
+
+    for (int i=0; i < 20; i++)
+    {
+      assertEquals(requestIDs.get(i).get().getResultCode(),
+           ResultCode.SUCCESS);
+
+      final SearchResult result = listeners.get(i).getSearchResult();
+      assertEquals(result.getEntryCount(), 1);
+    }
+
+
+    // Close a connection and make sure the others are not affected.
+    connections.remove(9).close();
+    for (final LDAPConnection conn : connections)
+    {
+      assertNotNull(conn.getRootDSE());
+    }
+
+
+    // Stop accepting new connections but leave the existing connections
+    // established.  They should continue to work with dedicated threads.
+    listener.shutDown(false);
+    assertNull(listener.getConnectionSelector());
+    for (final LDAPConnection conn : connections)
+    {
+      assertNotNull(conn.getRootDSE());
+    }
+
+    listener.closeAllConnections(true);
+    for (final LDAPConnection conn : connections)
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that a listener configured to use request processing
+   * threads will fall back to dedicated threads for connections accepted by a
+   * server socket factory other than the JVM default.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSelectorWithNonDefaultServerSocketFactory()
+         throws Exception
+  {
+    final LDAPListenerConfig config = new LDAPListenerConfig(0,
+         new CannedResponseRequestHandler());
+    config.setNumRequestProcessingThreads(2);
+    config.setServerSocketFactory(new ThrowsOnAcceptServerSocketFactory());
+
+    final LDAPListener listener = new LDAPListener(config);
+    listener.startListening();
+    assertNull(listener.getConnectionSelector());
+
+    listener.shutDown(true);
+  }
+
+
+
+  /**
+   * Tests the behavior of a listener that allows multiple requests from the
+   * same connection to be processed concurrently.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConcurrentRequestProcessing()
+         throws Exception
+  {
+    final InMemoryRequestHandler requestHandler = new InMemoryRequestHandler(
+         new InMemoryDirectoryServerConfig("dc=example,dc=com"));
+
+    final LDAPListenerConfig config =
+         new LDAPListenerConfig(0, requestHandler);
+    config.setMaxConcurrentRequestsPerConnection(10);
+
+    final LDAPListener listener = new LDAPListener(config);
+    listener.startListening();
+    assertNotNull(listener.getConcurrentRequestExecutor());
+
+    final LDAPConnection conn =
+         new LDAPConnection("127.0.0.1", listener.getListenPort());
+    conn.add(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example");
+
+
+    // Send ten searches that each take at least 250 milliseconds without
+    // waiting for the responses.  If they are processed concurrently, then
+    // they should complete in much less than the 2.5 seconds that would be
+    // required to process them serially.
+    requestHandler.setProcessingDelayMillis(250L);
+
+    final long startTime = System.currentTimeMillis();
+    final List<AsyncRequestID> requestIDs = new ArrayList<>(10);
+    for (int i=0; i < 10; i++)
+    {
+      requestIDs.add(conn.asyncSearch(new SearchRequest(
+           new BasicAsyncSearchResultListener(), "dc=example,dc=com",
+           SearchScope.BASE, "(objectClass=*)")));
+    }
+
+    for (final AsyncRequestID requestID : requestIDs)
+    {
+      assertEquals(requestID.get().getResultCode(), ResultCode.SUCCESS);
+    }
+
+    assertTrue((System.currentTimeMillis() - startTime) < 2000L);
+
+
+    // Make sure that a bind issued while other requests are in progress
+    // waits for them and still succeeds.
+    for (int i=0; i < 5; i++)
+    {
+      conn.asyncSearch(new SearchRequest(new BasicAsyncSearchResultListener(),
+           "dc=example,dc=com", SearchScope.BASE, "(objectClass=*)"));
+    }
+
+    requestHandler.setProcessingDelayMillis(0L);
+    assertEquals(conn.bind("", "").getResultCode(), ResultCode.SUCCESS);
+    assertNotNull(conn.getEntry("dc=example,dc=com"));
+
+
+    // Make sure that an unbind while requests are in progress closes the
+    // connection without problems.
+    requestHandler.setProcessingDelayMillis(250L);
+    for (int i=0; i < 5; i++)
+    {
+      conn.asyncSearch(new SearchRequest(new BasicAsyncSearchResultListener(),
+           "dc=example,dc=com", SearchScope.BASE, "(objectClass=*)"));
+    }
+
+    conn.close();
+    requestHandler.setProcessingDelayMillis(0L);
+
+    listener.shutDown(true);
+  }
+
+
+
+  /**
+   * Tests to ensure that a listener that processes requests concurrently will
+   * stop sending search results for a search that has been abandoned, and that
+   * an unbind request will not close the connection until any requests in
+   * progress have stopped.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConcurrentAbandonAndUnbindStopSearchResults()
+         throws Exception
+  {
+    final AtomicInteger entriesSent = new AtomicInteger(0);
+    final InMemoryOperationInterceptor interceptor =
+         new InMemoryOperationInterceptor()
+         {
+           @Override()
+           public void processSearchEntry(
+                            final InMemoryInterceptedSearchEntry entry)
+           {
+             entriesSent.incrementAndGet();
+
+             try
+             {
+               Thread.sleep(10L);
+             }
+             catch (final InterruptedException e)
+             {
+               Thread.currentThread().interrupt();
+             }
+           }
+         };
+
+    final LDAPListenerConfig config = new LDAPListenerConfig(0,
+         new InMemoryOperationInterceptorRequestHandler(
+              Collections.singletonList(interceptor),
+              new InMemoryRequestHandler(
+                   new InMemoryDirectoryServerConfig("dc=example,dc=com"))));
+    config.setMaxConcurrentRequestsPerConnection(10);
+
+    final LDAPListener listener = new LDAPListener(config);
+    listener.startListening();
+
+    final int numEntries = 200;
+    final LDAPConnection conn =
+         new LDAPConnection("127.0.0.1", listener.getListenPort());
+    conn.add(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example");
+    for (int i=1; i < numEntries; i++)
+    {
+      conn.add(
+           "dn: ou=" + i + ",dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: " + i);
+    }
+    conn.close();
+
+    final Socket socket = new Socket("127.0.0.1", listener.getListenPort());
+    socket.setSoTimeout(30_000);
+    final OutputStream outputStream = socket.getOutputStream();
+    final ASN1StreamReader asn1Reader =
+         new ASN1StreamReader(socket.getInputStream());
+
+
+    // Start a search, and abandon it once the first entry has been received.
+    // The abandoned search must not send all of its entries, and must not
+    // send a search result done message.
+    outputStream.write(new LDAPMessage(1, new SearchRequestProtocolOp(
+         new SearchRequest("dc=example,dc=com", SearchScope.SUB,
+              "(objectClass=*)"))).encode().encode());
+    outputStream.flush();
+
+    LDAPMessage message = LDAPMessage.readFrom(asn1Reader, true);
+    assertNotNull(message);
+    assertEquals(message.getMessageID(), 1);
+    assertEquals(message.getProtocolOpType(),
+         LDAPMessage.PROTOCOL_OP_TYPE_SEARCH_RESULT_ENTRY);
+
+    outputStream.write(new LDAPMessage(2,
+         new AbandonRequestProtocolOp(1)).encode().encode());
+    outputStream.write(new LDAPMessage(3, new SearchRequestProtocolOp(
+         new SearchRequest("dc=example,dc=com", SearchScope.BASE,
+              "(objectClass=*)"))).encode().encode());
+    outputStream.flush();
+
+    while (true)
+    {
+      message = LDAPMessage.readFrom(asn1Reader, true);
+      assertNotNull(message);
+      if (message.getMessageID() == 3)
+      {
+        if (message.getProtocolOpType() ==
+            LDAPMessage.PROTOCOL_OP_TYPE_SEARCH_RESULT_DONE)
+        {
+          break;
+        }
+      }
+      else
+      {
+        assertEquals(message.getMessageID(), 1);
+        assertEquals(message.getProtocolOpType(),
+             LDAPMessage.PROTOCOL_OP_TYPE_SEARCH_RESULT_ENTRY);
+      }
+    }
+
+    Thread.sleep(100L);
+    final int entriesSentAfterAbandon = entriesSent.get();
+    assertTrue(entriesSentAfterAbandon < (numEntries + 1));
+
+    Thread.sleep(200L);
+    assertEquals(entriesSent.get(), entriesSentAfterAbandon);
+
+
+    // Start another search and send an unbind request while it is in
+    // progress.  No more entries may be sent once the connection is closed.
+    outputStream.write(new LDAPMessage(4, new SearchRequestProtocolOp(
+         new SearchRequest("dc=example,dc=com", SearchScope.SUB,
+              "(objectClass=*)"))).encode().encode());
+    outputStream.flush();
+
+    message = LDAPMessage.readFrom(asn1Reader, true);
+    assertNotNull(message);
+    assertEquals(message.getMessageID(), 4);
+
+    outputStream.write(new LDAPMessage(5,
+         new UnbindRequestProtocolOp()).encode().encode());
+    outputStream.flush();
+
+    try
+    {
+      while (LDAPMessage.readFrom(asn1Reader, true) != null)
+      {
+        // Discard any entries that were sent before the unbind request was
+        // processed.
+      }
+    }
+    catch (final LDAPException le)
+    {
+      // This is acceptable if the server reset the connection.
+    }
+
+    final int entriesSentBeforeClose = entriesSent.get();
+    assertTrue(entriesSentBeforeClose < (2 * numEntries));
+
+    Thread.sleep(100L);
+    assertEquals(entriesSent.get(), entriesSentBeforeClose);
+
+    socket.close();
+    listener.shutDown(true);
+  }
+
+
+
+  /**
+   * Tests to ensure that responses to requests processed concurrently are all
+   * delivered when the client does not read them until long after they have
+   * been generated, so that threads trying to queue more responses must wait
+   * for earlier responses to be written.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConcurrentResponseQueueLimit()
+         throws Exception
+  {
+    final LDAPListenerConfig config = new LDAPListenerConfig(0,
+         new InMemoryRequestHandler(
+              new InMemoryDirectoryServerConfig("dc=example,dc=com")));
+    config.setMaxConcurrentRequestsPerConnection(10);
+
+    final LDAPListener listener = new LDAPListener(config);
+    listener.startListening();
+
+    final int valueSize =
+         LDAPListenerClientConnection.MAX_QUEUED_RESPONSE_BYTES / 4;
+    final StringBuilder description = new StringBuilder(valueSize);
+    for (int i=0; i < valueSize; i++)
+    {
+      description.append((char) ('a' + (i % 26)));
+    }
+
+    final LDAPConnection conn =
+         new LDAPConnection("127.0.0.1", listener.getListenPort());
+    conn.add(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example",
+         "description: " + description);
+    conn.close();
+
+
+    // Send a number of searches whose responses will far exceed the queue
+    // limit, and wait before reading any of them.
+    final Socket socket = new Socket("127.0.0.1", listener.getListenPort());
+    socket.setSoTimeout(30_000);
+    final OutputStream outputStream = socket.getOutputStream();
+    final int numSearches = 20;
+    for (int i=1; i <= numSearches; i++)
+    {
+      outputStream.write(new LDAPMessage(i, new SearchRequestProtocolOp(
+           new SearchRequest("dc=example,dc=com", SearchScope.BASE,
+                "(objectClass=*)"))).encode().encode());
+    }
+    outputStream.flush();
+
+    Thread.sleep(500L);
+
+    final ASN1StreamReader asn1Reader =
+         new ASN1StreamReader(socket.getInputStream());
+    int numEntries = 0;
+    int numDone = 0;
+    while (numDone < numSearches)
+    {
+      final LDAPMessage message = LDAPMessage.readFrom(asn1Reader, true);
+      assertNotNull(message);
+      if (message.getProtocolOpType() ==
+          LDAPMessage.PROTOCOL_OP_TYPE_SEARCH_RESULT_ENTRY)
+      {
+        numEntries++;
+      }
+      else
+      {
+        assertEquals(
+             message.getSearchResultDoneProtocolOp().getResultCode(),
+             ResultCode.SUCCESS_INT_VALUE);
+        numDone++;
+      }
+    }
+
+    assertEquals(numEntries, numSearches);
+
+    socket.close();
+    listener.shutDown(true);
+  }
+
+
+
+  /**
+   * Tests the behavior of a listener that uses a selector for idle connections
+   * and also allows multiple requests from the same connection to be processed
+   * concurrently.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConcurrentRequestProcessingWithSelector()
+         throws Exception
+  {
+    final LDAPListenerConfig config = new LDAPListenerConfig(0,
+         new InMemoryRequestHandler(
+              new InMemoryDirectoryServerConfig("dc=example,dc=com")));
+    config.setNumRequestProcessingThreads(2);
+    config.setMaxConcurrentRequestsPerConnection(4);
+
+    final LDAPListener listener = new LDAPListener(config);
+    listener.startListening();
+
+    final LDAPConnection conn =
+         new LDAPConnection("127.0.0.1", listener.getListenPort());
+    conn.add(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example");
+
+    final List<AsyncRequestID> requestIDs = new ArrayList<>(100);
+    for (int i=0; i < 100; i++)
+    {
+      requestIDs.add(conn.asyncSearch(new SearchRequest(
+           new BasicAsyncSearchResultListener(), "dc=example,dc=com",
+           SearchScope.BASE, "(objectClass=*)")));
+    }
+
+    for (final AsyncRequestID requestID : requestIDs)
+    {
+      assertEquals(requestID.get().getResultCode(), ResultCode.SUCCESS);
+    }
+
+    assertEquals(conn.bind("", "").getResultCode(), ResultCode.SUCCESS);
+
+    conn.close();
+    listener.shutDown(true);
+  }
+
+
+
+  /**
+   * Retrieves the maximum numbers of concurrent requests per connection to use
+   * when testing response sizes.
+   *
+   * @return  The maximum numbers of concurrent requests per connection to use
+   *          when testing response sizes.
+   */
+  @DataProvider(name="maxConcurrentRequests")
+  public Object[][] getMaxConcurrentRequests()
+  {
+    return new Object[][]
+    {
+      new Object[] { 1 },
+      new Object[] { 4 }
+    };
+  }
+
+
+
+  /**
+   * Tests the behavior of a selector-based listener when returning responses
+   * of a range of sizes, both with and without concurrent request processing.
+   *
+   * @param  maxConcurrentRequests  The maximum number of requests that may be
+   *                                processed concurrently on a connection.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="maxConcurrentRequests")
+  public void testSelectorBasedListenerResponseSizes(
+                   final int maxConcurrentRequests)
+         throws Exception
+  {
+    final LDAPListenerConfig config = new LDAPListenerConfig(0,
+         new InMemoryRequestHandler(
+              new InMemoryDirectoryServerConfig("dc=example,dc=com")));
+    config.setNumRequestProcessingThreads(2);
+    config.setMaxConcurrentRequestsPerConnection(maxConcurrentRequests);
+
+    final LDAPListener listener = new LDAPListener(config);
+    listener.startListening();
+    assertNotNull(listener.getConnectionSelector());
+
+    final LDAPConnection conn =
+         new LDAPConnection("127.0.0.1", listener.getListenPort());
+    conn.add(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example");
+
+    final int[] valueSizes = { 10, 5_000, 100_000, 300_000 };
+    for (final int valueSize : valueSizes)
+    {
+      final StringBuilder description = new StringBuilder(valueSize);
+      for (int i=0; i < valueSize; i++)
+      {
+        description.append((char) ('a' + (i % 26)));
+      }
+
+      conn.add(
+           "dn: ou=size " + valueSize + ",dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: size " + valueSize,
+           "description: " + description);
+
+      final List<AsyncRequestID> requestIDs = new ArrayList<>(10);
+      final List<BasicAsyncSearchResultListener> resultListeners =
+           new ArrayList<>(10);
+      for (int i=0; i < 10; i++)
+      {
+        final BasicAsyncSearchResultListener resultListener =
+             new BasicAsyncSearchResultListener();
+        resultListeners.add(resultListener);
+        requestIDs.add(conn.asyncSearch(new SearchRequest(resultListener,
+             "ou=size " + valueSize + ",dc=example,dc=com", SearchScope.BASE,
+             "(objectClass=*)")));
+      }
+
+      for (int i=0; i < 10; i++)
+      {
+        assertEquals(requestIDs.get(i).get().getResultCode(),
+             ResultCode.SUCCESS);
+        final List<SearchResultEntry> entries =
+             resultListeners.get(i).getSearchEntries();
+        assertEquals(entries.size(), 1);
+        assertEquals(entries.get(0).getAttributeValue("description"),
+             description.toString());
+      }
+    }
+
+    conn.close();
+    listener.shutDown(true);
+  }
+
+
+
+  /**
+   * Tests to ensure that a client that sends only part of a request does not
+   * prevent a selector-based listener from processing requests from other
+   * clients, and that the request is processed once the rest of it arrives.
+   * It also ensures that a request that is too large to be buffered is still
+   * processed.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSelectorWithPartialRequest()
+         throws Exception
+  {
+    final LDAPListenerConfig config = new LDAPListenerConfig(0,
+         new InMemoryRequestHandler(
+              new InMemoryDirectoryServerConfig("dc=example,dc=com")));
+    config.setNumRequestProcessingThreads(1);
+
+    final LDAPListener listener = new LDAPListener(config);
+    listener.startListening();
+    assertNotNull(listener.getConnectionSelector());
+
+    final byte[] bindRequestBytes = new LDAPMessage(1,
+         new BindRequestProtocolOp("", "")).encode().encode();
+
+    final Socket socket = new Socket("127.0.0.1", listener.getListenPort());
+    socket.setSoTimeout(10_000);
+    final OutputStream outputStream = socket.getOutputStream();
+    outputStream.write(bindRequestBytes, 0, 5);
+    outputStream.flush();
+
+    // The only request processing thread must still be available to process
+    // requests from another client.
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setResponseTimeoutMillis(10_000L);
+    final LDAPConnection conn = new LDAPConnection(options, "127.0.0.1",
+         listener.getListenPort());
+    conn.add(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example");
+    assertEntryExists(conn, "dc=example,dc=com");
+
+    outputStream.write(bindRequestBytes, 5, (bindRequestBytes.length - 5));
+    outputStream.flush();
+
+    final ASN1StreamReader asn1Reader =
+         new ASN1StreamReader(socket.getInputStream());
+    final LDAPMessage response = LDAPMessage.readFrom(asn1Reader, true);
+    assertNotNull(response);
+    assertEquals(response.getMessageID(), 1);
+    assertEquals(response.getBindResponseProtocolOp().getResultCode(),
+         ResultCode.SUCCESS_INT_VALUE);
+
+    socket.close();
+
+
+    // Send a request that is larger than the selector will buffer.
+    final int valueSize = LDAPListenerClientConnection.MAX_INBOUND_BUFFER_SIZE;
+    final StringBuilder description = new StringBuilder(valueSize);
+    for (int i=0; i < valueSize; i++)
+    {
+      description.append((char) ('a' + (i % 26)));
+    }
+
+    conn.add(
+         "dn: ou=large,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: organizationalUnit",
+         "ou: large",
+         "description: " + description);
+    assertEquals(conn.getEntry("ou=large,dc=example,dc=com").
+         getAttributeValue("description"), description.toString());
+
+    conn.close();
+    listener.shutDown(true);
+  }
+
+
+
+  /**
+   * Tests to ensure that a selector-based listener will terminate the
+   * connection to a client that stops reading responses once the write timeout
+   * has elapsed, and that the request processing thread that was trying to
+   * write to that client is then available to process requests from other
+   * clients.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSelectorWriteTimeout()
+         throws Exception
+  {
+    final LDAPListenerConfig config = new LDAPListenerConfig(0,
+         new InMemoryRequestHandler(
+              new InMemoryDirectoryServerConfig("dc=example,dc=com")));
+    config.setNumRequestProcessingThreads(1);
+    config.setSendBufferSize(8192);
+    config.setWriteTimeoutMillis(500L);
+
+    final LDAPListener listener = new LDAPListener(config);
+    listener.startListening();
+
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setResponseTimeoutMillis(10_000L);
+    final LDAPConnection conn = new LDAPConnection(options, "127.0.0.1",
+         listener.getListenPort());
+    conn.add(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example");
+
+    final int valueSize = 4 * 1024 * 1024;
+    final StringBuilder description = new StringBuilder(valueSize);
+    for (int i=0; i < valueSize; i++)
+    {
+      description.append((char) ('a' + (i % 26)));
+    }
+
+    conn.add(
+         "dn: ou=large,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: organizationalUnit",
+         "ou: large",
+         "description: " + description);
+    conn.close();
+
+
+    // Request the large entry over a connection that never reads the response.
+    final Socket socket = new Socket();
+    socket.setReceiveBufferSize(4096);
+    socket.connect(new InetSocketAddress("127.0.0.1",
+         listener.getListenPort()));
+    socket.setSoTimeout(10_000);
+    socket.getOutputStream().write(new LDAPMessage(1,
+         new SearchRequestProtocolOp(new SearchRequest(
+              "ou=large,dc=example,dc=com", SearchScope.BASE,
+              "(objectClass=*)"))).encode().encode());
+    socket.getOutputStream().flush();
+
+    Thread.sleep(1000L);
+
+
+    // The only request processing thread must be available to process requests
+    // from another client once the write has timed out.
+    final LDAPConnection conn2 = new LDAPConnection(options, "127.0.0.1",
+         listener.getListenPort());
+    assertEntryExists(conn2, "dc=example,dc=com");
+    conn2.close();
+
+
+    // The stalled connection must have been closed before the entire response
+    // was written.
+    long totalBytesRead = 0L;
+    try
+    {
+      final InputStream inputStream = socket.getInputStream();
+      final byte[] buffer = new byte[8192];
+      while (true)
+      {
+        final int bytesRead = inputStream.read(buffer);
+        if (bytesRead < 0)
+        {
+          break;
+        }
+
+        totalBytesRead += bytesRead;
+      }
+    }
+    catch (final IOException e)
+    {
+      // This is acceptable if the server reset the connection.
+    }
+
+    assertTrue(totalBytesRead < valueSize);
+
+    socket.close();
+    listener.shutDown(true);
+  }
 }
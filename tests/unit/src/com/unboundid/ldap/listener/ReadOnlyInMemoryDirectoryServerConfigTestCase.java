@@ -405,6 +405,7 @@ public final class ReadOnlyInMemoryDirectoryServerConfigTestCase
 
     // Test methods related to the generation of operational attributes.
     assertTrue(readOnlyConfig.generateOperationalAttributes());
+    assertFalse(readOnlyConfig.useCompactEntryStorage());
 
     try
     {
@@ -417,6 +418,28 @@ public final class ReadOnlyInMemoryDirectoryServerConfigTestCase
       // This was expected.
     }
 
+    try
+    {
+      readOnlyConfig.setUseCompactEntryStorage(true);
+      fail("Expected an exception when trying to call " +
+           "setUseCompactEntryStorage");
+    }
+    catch (final UnsupportedOperationException e)
+    {
+      // This was expected.
+    }
+
+    try
+    {
+      readOnlyConfig.setPersistentStoreFile(null);
+      fail("Expected an exception when trying to call " +
+           "setPersistentStoreFile");
+    }
+    catch (final UnsupportedOperationException e)
+    {
+      // This was expected.
+    }
+
 
     // Test methods related to changelog entries.
     assertEquals(readOnlyConfig.getMaxChangeLogEntries(), 0);
@@ -461,6 +484,90 @@ public final class ReadOnlyInMemoryDirectoryServerConfigTestCase
     }
 
 
+    // Test methods related to ordering index attributes.
+    assertNotNull(readOnlyConfig.getOrderingIndexAttributes());
+    assertTrue(readOnlyConfig.getOrderingIndexAttributes().isEmpty());
+
+    try
+    {
+      readOnlyConfig.setOrderingIndexAttributes("member");
+      fail("Expected an exception when trying to call " +
+           "setOrderingIndexAttributes");
+    }
+    catch (final UnsupportedOperationException e)
+    {
+      // This was expected
+    }
+
+    try
+    {
+      readOnlyConfig.setOrderingIndexAttributes(Arrays.asList(
+           "member", "uniqueMember", "owner", "seeAlso"));
+      fail("Expected an exception when trying to call " +
+           "setOrderingIndexAttributes");
+    }
+    catch (final UnsupportedOperationException e)
+    {
+      // This was expected
+    }
+
+
+    // Test methods related to presence index attributes.
+    assertNotNull(readOnlyConfig.getPresenceIndexAttributes());
+    assertTrue(readOnlyConfig.getPresenceIndexAttributes().isEmpty());
+
+    try
+    {
+      readOnlyConfig.setPresenceIndexAttributes("member");
+      fail("Expected an exception when trying to call " +
+           "setPresenceIndexAttributes");
+    }
+    catch (final UnsupportedOperationException e)
+    {
+      // This was expected
+    }
+
+    try
+    {
+      readOnlyConfig.setPresenceIndexAttributes(Arrays.asList(
+           "member", "uniqueMember", "owner", "seeAlso"));
+      fail("Expected an exception when trying to call " +
+           "setPresenceIndexAttributes");
+    }
+    catch (final UnsupportedOperationException e)
+    {
+      // This was expected
+    }
+
+
+    // Test methods related to substring index attributes.
+    assertNotNull(readOnlyConfig.getSubstringIndexAttributes());
+    assertTrue(readOnlyConfig.getSubstringIndexAttributes().isEmpty());
+
+    try
+    {
+      readOnlyConfig.setSubstringIndexAttributes("member");
+      fail("Expected an exception when trying to call " +
+           "setSubstringIndexAttributes");
+    }
+    catch (final UnsupportedOperationException e)
+    {
+      // This was expected
+    }
+
+    try
+    {
+      readOnlyConfig.setSubstringIndexAttributes(Arrays.asList(
+           "member", "uniqueMember", "owner", "seeAlso"));
+      fail("Expected an exception when trying to call " +
+           "setSubstringIndexAttributes");
+    }
+    catch (final UnsupportedOperationException e)
+    {
+      // This was expected
+    }
+
+
     // Test methods related to referential integrity attributes.
     assertNotNull(readOnlyConfig.getReferentialIntegrityAttributes());
     assertTrue(readOnlyConfig.getReferentialIntegrityAttributes().isEmpty());
@@ -561,6 +668,7 @@ public final class ReadOnlyInMemoryDirectoryServerConfigTestCase
     config.addExtendedOperationHandler(new TestExtendedOperationHandler());
     config.addSASLBindHandler(new TestSASLBindHandler());
     config.setGenerateOperationalAttributes(false);
+    config.setUseCompactEntryStorage(true);
     config.setMaxChangeLogEntries(100);
     config.setEqualityIndexAttributes("uid", "cn");
     config.setReferentialIntegrityAttributes("member", "uniqueMember", "owner",
@@ -920,6 +1028,7 @@ public final class ReadOnlyInMemoryDirectoryServerConfigTestCase
 
     // Test methods related to the generation of operational attributes.
     assertFalse(readOnlyConfig.generateOperationalAttributes());
+    assertTrue(readOnlyConfig.useCompactEntryStorage());
 
     try
     {
@@ -932,6 +1041,28 @@ public final class ReadOnlyInMemoryDirectoryServerConfigTestCase
       // This was expected.
     }
 
+    try
+    {
+      readOnlyConfig.setUseCompactEntryStorage(false);
+      fail("Expected an exception when trying to call " +
+           "setUseCompactEntryStorage");
+    }
+    catch (final UnsupportedOperationException e)
+    {
+      // This was expected.
+    }
+
+    try
+    {
+      readOnlyConfig.setPersistentStoreFile(null);
+      fail("Expected an exception when trying to call " +
+           "setPersistentStoreFile");
+    }
+    catch (final UnsupportedOperationException e)
+    {
+      // This was expected.
+    }
+
 
     // Test methods related to changelog entries.
     assertEquals(readOnlyConfig.getMaxChangeLogEntries(), 100);
@@ -185,4 +185,39 @@ public final class AsyncTimeoutTestCase
     conn.close();
     ds.shutDown(true);
   }
+
+
+
+  /**
+   * Tests to ensure that closing a connection will cancel the timeouts for
+   * any asynchronous operations that are still in progress on it.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testCloseCancelsAsyncTimeouts()
+         throws Exception
+  {
+    final InMemoryDirectoryServerConfig cfg = new InMemoryDirectoryServerConfig(
+         "dc=example,dc=com");
+    final InMemoryDirectoryServer ds = new InMemoryDirectoryServer(cfg);
+    ds.startListening();
+
+    final LDAPConnection conn = ds.getConnection();
+
+    // Use a timeout task for an operation that the connection reader does not
+    // know about, so that it cannot be cancelled when the reader tells the
+    // operation that the connection has been closed.
+    final AsyncCompareHelper compareHelper = new AsyncCompareHelper(conn,
+         conn.nextMessageID(), new TestAsyncListener(), null);
+    final AsyncTimeoutTimerTask timerTask =
+         new AsyncTimeoutTimerTask(compareHelper);
+    conn.scheduleAsyncTimeout(timerTask, 600_000L);
+    assertFalse(timerTask.isCancelled());
+
+    conn.close();
+    assertTrue(timerTask.isCancelled());
+
+    ds.shutDown(true);
+  }
 }
@@ -2011,6 +2011,135 @@ public class AttributeTestCase
 
 
 
+  /**
+   * Retrieves the settings to use for caching normalized values.
+   *
+   * @return  The settings to use for caching normalized values.
+   */
+  @DataProvider(name="cacheNormalizedValues")
+  public Object[][] getCacheNormalizedValues()
+  {
+    return new Object[][]
+    {
+      new Object[] { false },
+      new Object[] { true }
+    };
+  }
+
+
+
+  /**
+   * Tests the {@code getNormalizedValues} method and ensures that normalized
+   * values are used consistently for equality determinations regardless of
+   * whether they are cached.
+   *
+   * @param  cache  Indicates whether normalized values should be cached.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="cacheNormalizedValues")
+  public void testGetNormalizedValues(final boolean cache)
+         throws Exception
+  {
+    final boolean originalCache = Attribute.cacheNormalizedValues();
+    Attribute.setCacheNormalizedValues(cache);
+    try
+    {
+      testGetNormalizedValues();
+    }
+    finally
+    {
+      Attribute.setCacheNormalizedValues(originalCache);
+    }
+  }
+
+
+
+  /**
+   * Performs the tests for the {@code getNormalizedValues} method using the
+   * current setting for caching normalized values.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static void testGetNormalizedValues()
+          throws Exception
+  {
+    final Attribute a = new Attribute("description",
+         CaseIgnoreStringMatchingRule.getInstance(), "Foo  Bar", "BAZ");
+
+    final ASN1OctetString[] normalizedValues =
+         a.getNormalizedValues(CaseIgnoreStringMatchingRule.getInstance());
+    assertEquals(normalizedValues.length, 2);
+    assertEquals(normalizedValues[0].stringValue(), "foo bar");
+    assertEquals(normalizedValues[1].stringValue(), "baz");
+    if (Attribute.cacheNormalizedValues())
+    {
+      assertSame(
+           a.getNormalizedValues(CaseIgnoreStringMatchingRule.getInstance()),
+           normalizedValues);
+    }
+    else
+    {
+      assertNotSame(
+           a.getNormalizedValues(CaseIgnoreStringMatchingRule.getInstance()),
+           normalizedValues);
+    }
+
+    final ASN1OctetString[] caseExactValues =
+         a.getNormalizedValues(CaseExactStringMatchingRule.getInstance());
+    assertEquals(caseExactValues[0].stringValue(), "Foo Bar");
+    assertEquals(caseExactValues[1].stringValue(), "BAZ");
+    assertNotSame(
+         a.getNormalizedValues(CaseExactStringMatchingRule.getInstance()),
+         caseExactValues);
+
+    assertTrue(a.hasValue("foo bar"));
+    assertTrue(a.hasValue("baz"));
+    assertFalse(a.hasValue("foo"));
+    assertFalse(a.hasValue("baz",
+         CaseExactStringMatchingRule.getInstance()));
+    assertEquals(a.hashCode(),
+         new Attribute("DESCRIPTION", "baz", "foo bar").hashCode());
+    assertEquals(a, new Attribute("DESCRIPTION", "baz", "foo bar"));
+
+    final Attribute invalid = new Attribute("foo",
+         IntegerMatchingRule.getInstance(), "1", "not an integer");
+    try
+    {
+      invalid.getNormalizedValues(IntegerMatchingRule.getInstance());
+      fail("Expected an exception when normalizing an invalid integer.");
+    }
+    catch (final LDAPException le)
+    {
+      // This was expected.
+    }
+
+    assertTrue(invalid.hasValue("1"));
+    assertTrue(invalid.hasValue("not an integer"));
+    assertFalse(invalid.hasValue("2"));
+    assertEquals(invalid,
+         new Attribute("foo", IntegerMatchingRule.getInstance(),
+              "not an integer", "1"));
+
+    final String[] manyValues = new String[20];
+    final String[] manyUpperValues = new String[20];
+    for (int i=0; i < manyValues.length; i++)
+    {
+      manyValues[i] = "value " + i;
+      manyUpperValues[manyValues.length - i - 1] = "VALUE " + i;
+    }
+
+    final Attribute many = new Attribute("description", manyValues);
+    final Attribute manyUpper = new Attribute("description", manyUpperValues);
+    assertEquals(many, manyUpper);
+    assertEquals(many.hashCode(), manyUpper.hashCode());
+    assertFalse(new Attribute("description",
+         CaseExactStringMatchingRule.getInstance(), manyUpperValues).equals(
+         many));
+  }
+
+
+
   /**
    * Tests the {@code decode} method with a sequence whose length is not 2.
    *
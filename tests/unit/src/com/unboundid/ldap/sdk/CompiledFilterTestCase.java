@@ -0,0 +1,241 @@
+/*
+ * Copyright 2007-2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2007-2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.sdk.schema.Schema;
+
+
+
+/**
+ * This class provides a set of test cases for the CompiledFilter class.
+ */
+public class CompiledFilterTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests to ensure that a compiled filter yields the same result as the
+   * {@code Filter.matchesEntry} method, both with and without a schema.
+   *
+   * @param  filterString  The string representation of the filter to test.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="testFilters")
+  public void testMatchesEntry(final String filterString)
+         throws Exception
+  {
+    final Filter filter = Filter.create(filterString);
+    final Entry[] entries =
+    {
+      new Entry(
+           "dn: uid=test.user,ou=People,dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: person",
+           "objectClass: organizationalPerson",
+           "objectClass: inetOrgPerson",
+           "uid: test.user",
+           "givenName: Test",
+           "sn: User",
+           "cn: Test User",
+           "cn: User, Test",
+           "cn;lang-en: User",
+           "description: This is a test",
+           "telephoneNumber: +1 123 456 7890",
+           "employeeNumber: 10",
+           "2.5.4.7: Austin",
+           "createTimestamp: 20190101000000Z"),
+      new Entry(
+           "dn: uid=another.user,ou=People,dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: person",
+           "uid: another.user",
+           "surname: ANOTHER",
+           "commonName:   Another    User",
+           "localityName: Dallas",
+           "telephoneNumber: 123-456-7890",
+           "employeeNumber: 9",
+           "createTimestamp: 20180601120000.000Z"),
+      new Entry(
+           "dn: ou=People,dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: People")
+    };
+
+    final Schema[] schemas =
+    {
+      null,
+      Schema.getDefaultStandardSchema()
+    };
+
+    for (final Schema schema : schemas)
+    {
+      final CompiledFilter compiledFilter = filter.compile(schema);
+      assertSame(compiledFilter.getFilter(), filter);
+      assertSame(compiledFilter.getSchema(), schema);
+      assertEquals(compiledFilter.toString(), filter.toString());
+
+      for (final Entry e : entries)
+      {
+        boolean expected;
+        try
+        {
+          expected = filter.matchesEntry(e, schema);
+        }
+        catch (final LDAPException le)
+        {
+          try
+          {
+            compiledFilter.matchesEntry(e);
+            fail("Expected an exception when evaluating compiled filter " +
+                 filterString + " against entry " + e.getDN() +
+                 " with schema " + schema);
+          }
+          catch (final LDAPException le2)
+          {
+            assertEquals(le2.getResultCode(), le.getResultCode());
+          }
+          continue;
+        }
+
+        assertEquals(compiledFilter.matchesEntry(e), expected,
+             "Compiled filter " + filterString + " against entry " +
+                  e.getDN() + " with schema " + schema);
+      }
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that a compiled filter can be serialized and deserialized.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSerialization()
+         throws Exception
+  {
+    final CompiledFilter compiledFilter =
+         Filter.create("(&(cn=test*user)(sn=USER)(!(uid<=a)))").compile(
+              Schema.getDefaultStandardSchema());
+
+    final ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+    try (ObjectOutputStream objectOutput = new ObjectOutputStream(byteOutput))
+    {
+      objectOutput.writeObject(compiledFilter);
+    }
+
+    final CompiledFilter deserialized;
+    try (ObjectInputStream objectInput = new ObjectInputStream(
+              new ByteArrayInputStream(byteOutput.toByteArray())))
+    {
+      deserialized = (CompiledFilter) objectInput.readObject();
+    }
+
+    assertEquals(deserialized.getFilter(), compiledFilter.getFilter());
+    assertTrue(deserialized.matchesEntry(new Entry(
+         "dn: uid=test.user,ou=People,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: person",
+         "uid: test.user",
+         "sn: user",
+         "cn: Test User")));
+  }
+
+
+
+  /**
+   * Retrieves a set of filters to use in testing.
+   *
+   * @return  A set of filters to use in testing.
+   */
+  @DataProvider(name = "testFilters")
+  public Object[][] getTestFilters()
+  {
+    return new Object[][]
+    {
+      new Object[] { "(&)" },
+      new Object[] { "(|)" },
+      new Object[] { "(objectClass=*)" },
+      new Object[] { "(missing=*)" },
+      new Object[] { "(objectClass=person)" },
+      new Object[] { "(objectclass=PERSON)" },
+      new Object[] { "(objectClass=organizationalUnit)" },
+      new Object[] { "(uid=test.user)" },
+      new Object[] { "(UID=TEST.USER)" },
+      new Object[] { "(sn=user)" },
+      new Object[] { "(surname=another)" },
+      new Object[] { "(sn=another)" },
+      new Object[] { "(2.5.4.4=USER)" },
+      new Object[] { "(cn=another user)" },
+      new Object[] { "(cn=*)" },
+      new Object[] { "(commonName=*)" },
+      new Object[] { "(cn;lang-en=user)" },
+      new Object[] { "(commonName;lang-en=USER)" },
+      new Object[] { "(cn;lang-fr=user)" },
+      new Object[] { "(l=austin)" },
+      new Object[] { "(localityName=dallas)" },
+      new Object[] { "(telephoneNumber=1234567890)" },
+      new Object[] { "(telephoneNumber=+11234567890)" },
+      new Object[] { "(telephoneNumber=*456*)" },
+      new Object[] { "(employeeNumber=10)" },
+      new Object[] { "(cn=test*)" },
+      new Object[] { "(cn=*USER)" },
+      new Object[] { "(cn=*st*us*)" },
+      new Object[] { "(cn=t*  user)" },
+      new Object[] { "(cn=another*user)" },
+      new Object[] { "(description=*is*a*)" },
+      new Object[] { "(description=*is*is*is*)" },
+      new Object[] { "(uid=*.*)" },
+      new Object[] { "(sn>=a)" },
+      new Object[] { "(sn<=a)" },
+      new Object[] { "(sn>=USER)" },
+      new Object[] { "(sn<=user)" },
+      new Object[] { "(employeeNumber>=2)" },
+      new Object[] { "(createTimestamp>=20181231235959Z)" },
+      new Object[] { "(createTimestamp<=20181231235959Z)" },
+      new Object[] { "(createTimestamp=20190101000000.000Z)" },
+      new Object[] { "(createTimestamp=invalid)" },
+      new Object[] { "(createTimestamp>=invalid)" },
+      new Object[] { "(telephoneNumber>=1)" },
+      new Object[] { "(sn~=user)" },
+      new Object[] { "(sn:caseExactMatch:=User)" },
+      new Object[] { "(!(uid=test.user))" },
+      new Object[] { "(&(objectClass=person)(sn=user))" },
+      new Object[] { "(&(objectClass=person)(!(sn=user)))" },
+      new Object[] { "(|(sn=another)(cn=test*))" },
+      new Object[] { "(|(missing=*)(ou=people))" },
+      new Object[] { "(&(objectClass=*)(|(sn~=user)(uid=*)))" },
+      new Object[] { "(|(uid=*)(sn~=user))" }
+    };
+  }
+}
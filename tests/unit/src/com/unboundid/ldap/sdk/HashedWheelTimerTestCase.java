@@ -0,0 +1,209 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+
+
+/**
+ * This class provides a set of test cases for the {@code HashedWheelTimer}
+ * class.
+ */
+public final class HashedWheelTimerTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests to ensure that scheduled tasks are run no earlier than their
+   * deadlines, including tasks whose deadlines require multiple rotations of
+   * the wheel.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testTasksRunAfterDeadline()
+         throws Exception
+  {
+    final HashedWheelTimer timer =
+         new HashedWheelTimer("testTasksRunAfterDeadline", 1L, 4);
+    timer.start();
+
+    final long[] delays = { 0L, 1L, 3L, 10L, 25L, 50L, 100L };
+    final List<TestHashedWheelTimerTask> tasks = new ArrayList<>(delays.length);
+    final List<Long> scheduleTimes = new ArrayList<>(delays.length);
+    for (final long delay : delays)
+    {
+      final TestHashedWheelTimerTask task = new TestHashedWheelTimerTask();
+      scheduleTimes.add(System.nanoTime());
+      timer.schedule(task, delay);
+      tasks.add(task);
+    }
+
+    for (int i=0; i < delays.length; i++)
+    {
+      final TestHashedWheelTimerTask task = tasks.get(i);
+      assertTrue(task.getLatch().await(10L, TimeUnit.SECONDS));
+
+      final long elapsedNanos = task.getRunTimeNanos() - scheduleTimes.get(i);
+      assertTrue(elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(delays[i]),
+           "Task with a delay of " + delays[i] + "ms ran after only " +
+                elapsedNanos + "ns");
+      assertFalse(task.cancel());
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that cancelled tasks are not run and are eventually
+   * discarded from the wheel.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testCancel()
+         throws Exception
+  {
+    final HashedWheelTimer timer = new HashedWheelTimer("testCancel", 1L, 8);
+    timer.start();
+
+    final TestHashedWheelTimerTask cancelledTask =
+         new TestHashedWheelTimerTask();
+    timer.schedule(cancelledTask, 20L);
+    assertTrue(cancelledTask.cancel());
+    assertFalse(cancelledTask.cancel());
+
+    final TestHashedWheelTimerTask uncancelledTask =
+         new TestHashedWheelTimerTask();
+    timer.schedule(uncancelledTask, 40L);
+
+    assertTrue(uncancelledTask.getLatch().await(10L, TimeUnit.SECONDS));
+    assertEquals(cancelledTask.getRunTimeNanos(), -1L);
+
+    final long stopTime = System.currentTimeMillis() + 10_000L;
+    while ((timer.getNumTasksInWheel() > 0L) &&
+           (System.currentTimeMillis() < stopTime))
+    {
+      Thread.sleep(10L);
+    }
+    assertEquals(timer.getNumTasksInWheel(), 0L);
+  }
+
+
+
+  /**
+   * Tests to ensure that a task cannot be scheduled more than once, and that a
+   * cancelled task cannot be scheduled.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testScheduleTwice()
+         throws Exception
+  {
+    final HashedWheelTimer timer =
+         new HashedWheelTimer("testScheduleTwice", 1L, 8);
+    timer.start();
+
+    final TestHashedWheelTimerTask task = new TestHashedWheelTimerTask();
+    timer.schedule(task, 1L);
+
+    try
+    {
+      timer.schedule(task, 1L);
+      fail("Expected an exception when scheduling a task twice");
+    }
+    catch (final IllegalStateException e)
+    {
+      // This was expected.
+    }
+
+    // A rejected attempt to reschedule a pending task must not change the
+    // deadline that the timer thread is using for it.
+    final TestHashedWheelTimerTask pendingTask =
+         new TestHashedWheelTimerTask();
+    timer.schedule(pendingTask, 60_000L);
+    final long pendingDeadline = pendingTask.getDeadlineNanos();
+
+    try
+    {
+      timer.schedule(pendingTask, 1L);
+      fail("Expected an exception when scheduling a pending task twice");
+    }
+    catch (final IllegalStateException e)
+    {
+      // This was expected.
+    }
+
+    assertEquals(pendingTask.getDeadlineNanos(), pendingDeadline);
+    assertTrue(pendingTask.cancel());
+
+    final TestHashedWheelTimerTask cancelledTask =
+         new TestHashedWheelTimerTask();
+    assertTrue(cancelledTask.cancel());
+
+    try
+    {
+      timer.schedule(cancelledTask, 1L);
+      fail("Expected an exception when scheduling a cancelled task");
+    }
+    catch (final IllegalStateException e)
+    {
+      // This was expected.
+    }
+
+    assertTrue(task.getLatch().await(10L, TimeUnit.SECONDS));
+  }
+
+
+
+  /**
+   * Tests to ensure that the timer will resume properly after it has been idle.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testResumeAfterIdle()
+         throws Exception
+  {
+    final HashedWheelTimer timer = HashedWheelTimer.getSharedInstance();
+    assertSame(HashedWheelTimer.getSharedInstance(), timer);
+
+    for (int i=0; i < 3; i++)
+    {
+      final TestHashedWheelTimerTask task = new TestHashedWheelTimerTask();
+      final long scheduleTime = System.nanoTime();
+      timer.schedule(task, 5L);
+
+      assertTrue(task.getLatch().await(10L, TimeUnit.SECONDS));
+      assertTrue((task.getRunTimeNanos() - scheduleTime) >=
+           TimeUnit.MILLISECONDS.toNanos(5L));
+
+      Thread.sleep(50L);
+    }
+  }
+}
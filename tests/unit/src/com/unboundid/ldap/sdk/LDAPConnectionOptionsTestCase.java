@@ -26,6 +26,8 @@ import java.io.File;
 import java.net.InetAddress;
 import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import javax.net.ssl.SSLSocketFactory;
 
 import org.testng.annotations.Test;
@@ -37,6 +39,7 @@ import com.unboundid.ldap.sdk.extensions.CancelExtendedRequest;
 import com.unboundid.ldap.sdk.extensions.PasswordModifyExtendedRequest;
 import com.unboundid.ldap.sdk.extensions.StartTLSExtendedRequest;
 import com.unboundid.ldap.sdk.extensions.WhoAmIExtendedRequest;
+import com.unboundid.ldap.sdk.schema.Schema;
 import com.unboundid.ldap.sdk.unboundidds.extensions.
             DeregisterYubiKeyOTPDeviceExtendedRequest;
 import com.unboundid.ldap.sdk.unboundidds.extensions.
@@ -97,6 +100,9 @@ public class LDAPConnectionOptionsTestCase
     assertEquals(opts.getLingerTimeoutSeconds(), 5);
     assertTrue(opts.useReuseAddress());
     assertFalse(opts.useSynchronousMode());
+    assertFalse(opts.useSharedConnectionReader());
+    assertFalse(opts.useWriteCoalescing());
+    assertFalse(opts.useLazySearchEntryDecoding());
     assertTrue(opts.useTCPNoDelay());
     assertEquals(opts.getConnectTimeoutMillis(), 10_000L);
     assertEquals(opts.getResponseTimeoutMillis(), 300_000L);
@@ -206,6 +212,9 @@ public class LDAPConnectionOptionsTestCase
     opts.setReceiveBufferSize(1234);
     opts.setSendBufferSize(1234);
     opts.setUseSynchronousMode(true);
+    opts.setUseSharedConnectionReader(true);
+    opts.setUseWriteCoalescing(true);
+    opts.setUseLazySearchEntryDecoding(true);
     opts.setUseSchema(true);
     opts.setAllowConcurrentSocketFactoryUse(false);
     opts.setSSLSocketVerifier(new HostNameSSLSocketVerifier(true));
@@ -236,6 +245,11 @@ public class LDAPConnectionOptionsTestCase
     assertEquals(dup.getReceiveBufferSize(), 1234);
     assertEquals(dup.getSendBufferSize(), 1234);
     assertEquals(dup.useSynchronousMode(), opts.useSynchronousMode());
+    assertEquals(dup.useSharedConnectionReader(),
+         opts.useSharedConnectionReader());
+    assertEquals(dup.useWriteCoalescing(), opts.useWriteCoalescing());
+    assertEquals(dup.useLazySearchEntryDecoding(),
+         opts.useLazySearchEntryDecoding());
     assertEquals(dup.useSchema(), opts.useSchema());
     assertEquals(dup.usePooledSchema(), opts.usePooledSchema());
     assertEquals(dup.allowConcurrentSocketFactoryUse(),
@@ -988,6 +1002,625 @@ public class LDAPConnectionOptionsTestCase
 
 
 
+  /**
+   * Tests the ability to get and set the flag that controls whether to use a
+   * shared connection reader.
+   */
+  @Test()
+  public void testUseSharedConnectionReader()
+  {
+    final LDAPConnectionOptions opts = new LDAPConnectionOptions();
+
+    assertFalse(opts.useSharedConnectionReader());
+    assertNotNull(opts.toString());
+
+    opts.setUseSharedConnectionReader(true);
+    assertTrue(opts.useSharedConnectionReader());
+    assertNotNull(opts.toString());
+
+    opts.setUseSharedConnectionReader(false);
+    assertFalse(opts.useSharedConnectionReader());
+    assertNotNull(opts.toString());
+  }
+
+
+
+  /**
+   * Tests the behavior of connections that use a shared connection reader,
+   * including processing concurrent asynchronous operations over a number of
+   * connections and detecting when the server closes them.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSharedConnectionReader()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = new InMemoryDirectoryServer(
+         new InMemoryDirectoryServerConfig("dc=example,dc=com"));
+    ds.startListening();
+    ds.add(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example");
+    for (int i=0; i < 10; i++)
+    {
+      ds.add(
+           "dn: ou=test " + i + ",dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: test " + i);
+    }
+
+    final LDAPConnectionOptions opts = new LDAPConnectionOptions();
+    opts.setUseSharedConnectionReader(true);
+
+    final LDAPConnection[] conns = new LDAPConnection[10];
+    try
+    {
+      for (int i=0; i < conns.length; i++)
+      {
+        conns[i] = new LDAPConnection(opts, "127.0.0.1", ds.getListenPort());
+        assertNotNull(conns[i].getConnectionInternals(true).
+             getSocketChannelOutputStream());
+        assertNull(conns[i].getConnectionInternals(true).
+             getConnectionReader().getReaderThread());
+      }
+
+      final AsyncRequestID[] requestIDs = new AsyncRequestID[50];
+      final TestAsyncListener[] listeners =
+           new TestAsyncListener[requestIDs.length];
+      for (int i=0; i < requestIDs.length; i++)
+      {
+        listeners[i] = new TestAsyncListener();
+        requestIDs[i] = conns[i % conns.length].asyncSearch(
+             new SearchRequest(listeners[i], "dc=example,dc=com",
+                  SearchScope.SUB, "(objectClass=*)"));
+      }
+
+      for (int i=0; i < requestIDs.length; i++)
+      {
+        assertEquals(requestIDs[i].get().getResultCode(), ResultCode.SUCCESS);
+        assertEquals(listeners[i].getSearchEntries(), 11);
+      }
+
+      for (final LDAPConnection conn : conns)
+      {
+        assertEquals(conn.search("dc=example,dc=com", SearchScope.BASE,
+             "(objectClass=*)").getEntryCount(), 1);
+      }
+
+      conns[0].close();
+      assertFalse(conns[0].isConnected());
+
+      ds.shutDown(true);
+      for (int i=1; i < conns.length; i++)
+      {
+        final long stopTime = System.currentTimeMillis() + 10_000L;
+        while (conns[i].isConnected() &&
+               (System.currentTimeMillis() < stopTime))
+        {
+          Thread.sleep(10L);
+        }
+
+        assertFalse(conns[i].isConnected());
+      }
+    }
+    finally
+    {
+      for (final LDAPConnection conn : conns)
+      {
+        if (conn != null)
+        {
+          conn.close();
+        }
+      }
+
+      ds.shutDown(true);
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that connections configured to use a shared connection
+   * reader continue to receive responses when other connections using the
+   * shared reader have listeners that block, even if there are more of them
+   * than there are processors.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSharedConnectionReaderWithBlockingConsumers()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = new InMemoryDirectoryServer(
+         new InMemoryDirectoryServerConfig("dc=example,dc=com"));
+    ds.startListening();
+    ds.add(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example");
+    for (int i=0; i < 10; i++)
+    {
+      ds.add(
+           "dn: ou=test " + i + ",dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: organizationalUnit",
+           "ou: test " + i);
+    }
+
+    final LDAPConnectionOptions opts = new LDAPConnectionOptions();
+    opts.setUseSharedConnectionReader(true);
+    opts.setResponseTimeoutMillis(30_000L);
+
+    final int numBlockedConns =
+         (2 * Runtime.getRuntime().availableProcessors()) + 2;
+    final CountDownLatch listenersBlocked = new CountDownLatch(numBlockedConns);
+    final CountDownLatch releaseListeners = new CountDownLatch(1);
+    final AsyncSearchResultListener blockingListener =
+         new AsyncSearchResultListener()
+    {
+      private static final long serialVersionUID = 1L;
+
+      @Override()
+      public void searchEntryReturned(final SearchResultEntry searchEntry)
+      {
+        listenersBlocked.countDown();
+
+        try
+        {
+          releaseListeners.await();
+        }
+        catch (final InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      @Override()
+      public void searchReferenceReturned(
+                       final SearchResultReference searchReference)
+      {
+        // No implementation is required.
+      }
+
+      @Override()
+      public void searchResultReceived(final AsyncRequestID requestID,
+                                       final SearchResult searchResult)
+      {
+        // No implementation is required.
+      }
+    };
+
+    final LDAPConnection[] blockedConns = new LDAPConnection[numBlockedConns];
+    final AsyncRequestID[] requestIDs = new AsyncRequestID[numBlockedConns];
+    final LDAPConnection conn =
+         new LDAPConnection(opts, "127.0.0.1", ds.getListenPort());
+    try
+    {
+      // Tie up a thread with each of the blocked connections.
+      for (int i=0; i < numBlockedConns; i++)
+      {
+        blockedConns[i] =
+             new LDAPConnection(opts, "127.0.0.1", ds.getListenPort());
+        requestIDs[i] = blockedConns[i].asyncSearch(new SearchRequest(
+             blockingListener, "dc=example,dc=com", SearchScope.BASE,
+             "(objectClass=*)"));
+      }
+
+      assertTrue(listenersBlocked.await(30L, TimeUnit.SECONDS));
+
+
+      // Other connections must still be able to get their responses, and the
+      // blocked connections must not have needed a dedicated reader thread.
+      assertNotNull(conn.getRootDSE());
+
+      final LDAPEntrySource entrySource = new LDAPEntrySource(conn,
+           new SearchRequest("dc=example,dc=com", SearchScope.SUB,
+                "(objectClass=*)"),
+           false, 1);
+      int numEntries = 0;
+      while (entrySource.nextEntry() != null)
+      {
+        numEntries++;
+      }
+      assertEquals(numEntries, 11);
+      entrySource.close();
+
+      for (final LDAPConnection c : blockedConns)
+      {
+        assertNull(c.getConnectionInternals(true).getConnectionReader().
+             getReaderThread());
+      }
+
+      releaseListeners.countDown();
+      for (final AsyncRequestID requestID : requestIDs)
+      {
+        assertEquals(requestID.get(30L, TimeUnit.SECONDS).getResultCode(),
+             ResultCode.SUCCESS);
+      }
+    }
+    finally
+    {
+      releaseListeners.countDown();
+      conn.close();
+      for (final LDAPConnection c : blockedConns)
+      {
+        if (c != null)
+        {
+          c.close();
+        }
+      }
+      ds.shutDown(true);
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that a connection configured to use a shared connection
+   * reader will switch to a dedicated reader thread when StartTLS is used.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSharedConnectionReaderWithStartTLS()
+         throws Exception
+  {
+    final File resourceDir = new File(System.getProperty("unit.resource.dir"));
+    final File serverKeyStore = new File(resourceDir, "server.keystore");
+
+    final SSLUtil serverSSLUtil = new SSLUtil(
+         new KeyStoreKeyManager(serverKeyStore, "password".toCharArray(),
+              "JKS", "server-cert"),
+         new TrustAllTrustManager());
+    final SSLUtil clientSSLUtil = new SSLUtil(new TrustAllTrustManager());
+
+    final InMemoryDirectoryServerConfig cfg =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+    cfg.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("LDAP",
+         null, 0, serverSSLUtil.createSSLSocketFactory()));
+
+    final InMemoryDirectoryServer ds = new InMemoryDirectoryServer(cfg);
+    ds.startListening();
+
+    final LDAPConnectionOptions opts = new LDAPConnectionOptions();
+    opts.setUseSharedConnectionReader(true);
+
+    final LDAPConnection conn =
+         new LDAPConnection(opts, "127.0.0.1", ds.getListenPort());
+    try
+    {
+      assertNull(conn.getConnectionInternals(true).getConnectionReader().
+           getReaderThread());
+
+      assertEquals(
+           conn.processExtendedOperation(new StartTLSExtendedRequest(
+                clientSSLUtil.createSSLContext())).getResultCode(),
+           ResultCode.SUCCESS);
+
+      assertNotNull(conn.getConnectionInternals(true).getConnectionReader().
+           getReaderThread());
+      assertNotNull(conn.getRootDSE());
+    }
+    finally
+    {
+      conn.close();
+      ds.shutDown(true);
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that a connection configured to use a shared connection
+   * reader will fall back to a dedicated reader thread when it is created with
+   * a socket factory other than the JVM default, even if that factory creates
+   * sockets with channels.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSharedConnectionReaderWithNonDefaultSocketFactory()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, false);
+
+    final LDAPConnectionOptions opts = new LDAPConnectionOptions();
+    opts.setUseSharedConnectionReader(true);
+
+    final LDAPConnection conn = new LDAPConnection(
+         new SocketChannelSocketFactory(), opts, "127.0.0.1",
+         ds.getListenPort());
+    try
+    {
+      assertNull(conn.getConnectionInternals(true).
+           getSocketChannelOutputStream());
+      assertNotNull(conn.getConnectionInternals(true).getConnectionReader().
+           getReaderThread());
+      assertNotNull(conn.getRootDSE());
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Tests the ability to get and set the flag that controls whether to use
+   * write coalescing.
+   */
+  @Test()
+  public void testUseWriteCoalescing()
+  {
+    final LDAPConnectionOptions opts = new LDAPConnectionOptions();
+
+    assertFalse(opts.useWriteCoalescing());
+    assertNotNull(opts.toString());
+
+    opts.setUseWriteCoalescing(true);
+    assertTrue(opts.useWriteCoalescing());
+    assertNotNull(opts.toString());
+
+    opts.setUseWriteCoalescing(false);
+    assertFalse(opts.useWriteCoalescing());
+    assertNotNull(opts.toString());
+  }
+
+
+
+  /**
+   * Tests the behavior of a connection that uses write coalescing when a
+   * number of threads concurrently send requests over it.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testWriteCoalescing()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, false);
+
+    final LDAPConnectionOptions opts = new LDAPConnectionOptions();
+    opts.setUseWriteCoalescing(true);
+
+    final LDAPConnection conn =
+         new LDAPConnection(opts, "127.0.0.1", ds.getListenPort(),
+              "cn=Directory Manager", "password");
+    try
+    {
+      final AsyncRequestID[] requestIDs = new AsyncRequestID[200];
+      final TestAsyncListener[] listeners =
+           new TestAsyncListener[requestIDs.length];
+      final Thread[] threads = new Thread[10];
+      for (int i=0; i < threads.length; i++)
+      {
+        final int firstRequest = i * (requestIDs.length / threads.length);
+        threads[i] = new Thread()
+        {
+          @Override()
+          public void run()
+          {
+            for (int j=firstRequest;
+                 j < (firstRequest + (requestIDs.length / threads.length));
+                 j++)
+            {
+              try
+              {
+                listeners[j] = new TestAsyncListener();
+                requestIDs[j] = conn.asyncSearch(new SearchRequest(
+                     listeners[j], "dc=example,dc=com", SearchScope.BASE,
+                     "(objectClass=*)"));
+              }
+              catch (final LDAPException le)
+              {
+                return;
+              }
+            }
+          }
+        };
+      }
+
+      for (final Thread t : threads)
+      {
+        t.start();
+      }
+
+      for (final Thread t : threads)
+      {
+        t.join();
+      }
+
+      for (int i=0; i < requestIDs.length; i++)
+      {
+        assertNotNull(requestIDs[i]);
+        assertEquals(requestIDs[i].get().getResultCode(), ResultCode.SUCCESS);
+        assertEquals(listeners[i].getSearchEntries(), 1);
+      }
+
+      assertEquals(conn.bind("cn=Directory Manager", "password").
+           getResultCode(), ResultCode.SUCCESS);
+      assertNotNull(conn.getRootDSE());
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that the SO_TIMEOUT value for a connection's socket is
+   * only updated when it changes, and that the cached value is kept in sync
+   * with the socket.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSoTimeoutCaching()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(false, false);
+
+    final LDAPConnection conn = ds.getConnection();
+    try
+    {
+      final LDAPConnectionInternals internals =
+           conn.getConnectionInternals(true);
+
+      internals.setSoTimeout(1234);
+      assertEquals(internals.getSocket().getSoTimeout(), 1234);
+
+      // Change the value directly on the socket.  Setting the same value
+      // through the internals should have no effect, but setting a different
+      // value should.
+      internals.getSocket().setSoTimeout(5678);
+      internals.setSoTimeout(1234);
+      assertEquals(internals.getSocket().getSoTimeout(), 5678);
+
+      internals.setSoTimeout(0);
+      assertEquals(internals.getSocket().getSoTimeout(), 0);
+
+      InternalSDKHelper.setSoTimeout(conn, 4321);
+      assertEquals(internals.getSocket().getSoTimeout(), 4321);
+
+      internals.setSocket(internals.getSocket());
+      internals.getSocket().setSoTimeout(5678);
+      internals.setSoTimeout(4321);
+      assertEquals(internals.getSocket().getSoTimeout(), 4321);
+
+      assertNotNull(conn.getRootDSE());
+    }
+    finally
+    {
+      conn.close();
+    }
+  }
+
+
+
+  /**
+   * Tests the ability to get and set the flag that controls whether to use
+   * lazy decoding for search result entries.
+   */
+  @Test()
+  public void testUseLazySearchEntryDecoding()
+  {
+    final LDAPConnectionOptions opts = new LDAPConnectionOptions();
+
+    assertFalse(opts.useLazySearchEntryDecoding());
+    assertNotNull(opts.toString());
+
+    opts.setUseLazySearchEntryDecoding(true);
+    assertTrue(opts.useLazySearchEntryDecoding());
+    assertNotNull(opts.toString());
+
+    opts.setUseLazySearchEntryDecoding(false);
+    assertFalse(opts.useLazySearchEntryDecoding());
+    assertNotNull(opts.toString());
+  }
+
+
+
+  /**
+   * Tests to ensure that entries read over a connection that uses lazy search
+   * entry decoding are equivalent to those read over a connection that does
+   * not.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testLazySearchEntryDecoding()
+         throws Exception
+  {
+    final InMemoryDirectoryServerConfig cfg =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+    final InMemoryDirectoryServer ds = new InMemoryDirectoryServer(cfg);
+    ds.add(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example");
+    ds.add(
+         "dn: ou=People,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: organizationalUnit",
+         "ou: People");
+    ds.add(
+         "dn: uid=test.user,ou=People,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: person",
+         "objectClass: organizationalPerson",
+         "objectClass: inetOrgPerson",
+         "uid: test.user",
+         "givenName: Test",
+         "sn: User",
+         "cn: Test User");
+    ds.startListening();
+
+    final LDAPConnectionOptions lazyOptions = new LDAPConnectionOptions();
+    lazyOptions.setUseLazySearchEntryDecoding(true);
+    lazyOptions.setUseSchema(true);
+
+    final LDAPConnectionOptions eagerOptions = new LDAPConnectionOptions();
+    eagerOptions.setUseSchema(true);
+
+    final LDAPConnection lazyConn = ds.getConnection(lazyOptions);
+    final LDAPConnection eagerConn = ds.getConnection(eagerOptions);
+    try
+    {
+      final Schema schema = lazyConn.getCachedSchema();
+      assertNotNull(schema);
+      assertSame(eagerConn.getCachedSchema(), schema);
+
+      final SearchResult lazyResult = lazyConn.search("dc=example,dc=com",
+           SearchScope.SUB, "(objectClass=*)", "*", "+");
+      final SearchResult eagerResult = eagerConn.search("dc=example,dc=com",
+           SearchScope.SUB, "(objectClass=*)", "*", "+");
+
+      assertEquals(lazyResult.getEntryCount(), eagerResult.getEntryCount());
+      assertTrue(lazyResult.getEntryCount() > 0);
+
+      for (int i=0; i < lazyResult.getEntryCount(); i++)
+      {
+        final SearchResultEntry lazyEntry =
+             lazyResult.getSearchEntries().get(i);
+        final SearchResultEntry eagerEntry =
+             eagerResult.getSearchEntries().get(i);
+
+        assertEquals(lazyEntry.getParsedDN(), eagerEntry.getParsedDN());
+        assertEquals(lazyEntry.getAttribute("objectClass"),
+             eagerEntry.getAttribute("objectClass"));
+        assertEquals(lazyEntry.getAttribute("entryDN"),
+             eagerEntry.getAttribute("entryDN"));
+        assertNull(lazyEntry.getAttribute("undefined"));
+        assertEquals(lazyEntry, eagerEntry);
+        assertEquals(lazyEntry.toLDIFString(), eagerEntry.toLDIFString());
+        assertSame(lazyEntry.getSchema(), schema);
+        assertSame(eagerEntry.getSchema(), schema);
+      }
+
+      final SearchResultEntry entry =
+           lazyConn.getEntry("dc=example,dc=com", "dc");
+      assertNotNull(entry);
+      assertEquals(entry.getAttributeValue("dc"), "example");
+    }
+    finally
+    {
+      lazyConn.close();
+      eagerConn.close();
+      ds.shutDown(true);
+    }
+  }
+
+
+
   /**
    * Tests the ability to get and set the flag that controls whether to use
    * schema information when reading data from the server.
@@ -1031,6 +1664,28 @@ public class LDAPConnectionOptionsTestCase
 
 
 
+  /**
+   * Tests the ability to get and set the schema revalidation interval.
+   */
+  @Test()
+  public void testSchemaRevalidationInterval()
+  {
+    final LDAPConnectionOptions opts = new LDAPConnectionOptions();
+    assertEquals(opts.getSchemaRevalidationIntervalMillis(), 0L);
+
+    opts.setSchemaRevalidationIntervalMillis(12345L);
+    assertEquals(opts.getSchemaRevalidationIntervalMillis(), 12345L);
+    assertTrue(opts.toString().contains(
+         "schemaRevalidationIntervalMillis=12345"));
+    assertEquals(opts.duplicate().getSchemaRevalidationIntervalMillis(),
+         12345L);
+
+    opts.setSchemaRevalidationIntervalMillis(-12345L);
+    assertEquals(opts.getSchemaRevalidationIntervalMillis(), 0L);
+  }
+
+
+
   /**
    * Tests the ability to indicate whether the associated socket factory should
    * allow concurrent use of the socket factory by multiple threads.
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+
+
+/**
+ * This class provides a set of test cases for the LDAPConnectionPoolQueue
+ * class.
+ */
+public class LDAPConnectionPoolQueueTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the behavior of the queue in the default FIFO mode.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testFIFO()
+         throws Exception
+  {
+    final LDAPConnectionPoolQueue queue = new LDAPConnectionPoolQueue(3);
+    assertFalse(queue.isLIFO());
+    assertEquals(queue.size(), 0);
+    assertEquals(queue.remainingCapacity(), 3);
+    assertNull(queue.poll());
+    assertNull(queue.peek());
+    assertNull(queue.pollLeastRecentlyUsed());
+
+    final LDAPConnection c1 = new LDAPConnection();
+    final LDAPConnection c2 = new LDAPConnection();
+    final LDAPConnection c3 = new LDAPConnection();
+    final LDAPConnection c4 = new LDAPConnection();
+
+    assertTrue(queue.offer(c1));
+    assertTrue(queue.offer(c2));
+    assertTrue(queue.offer(c3));
+    assertFalse(queue.offer(c4));
+    assertEquals(queue.size(), 3);
+    assertEquals(queue.remainingCapacity(), 0);
+
+    assertSame(queue.peek(), c1);
+    assertSame(queue.poll(), c1);
+    assertTrue(queue.offer(c1));
+    assertSame(queue.pollLeastRecentlyUsed(), c2);
+    assertSame(queue.poll(), c3);
+    assertSame(queue.poll(), c1);
+    assertNull(queue.poll());
+    assertEquals(queue.size(), 0);
+    assertEquals(queue.remainingCapacity(), 3);
+  }
+
+
+
+  /**
+   * Tests the behavior of the queue in LIFO mode.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testLIFO()
+         throws Exception
+  {
+    final LDAPConnectionPoolQueue queue = new LDAPConnectionPoolQueue(3);
+    queue.setLIFO(true);
+    assertTrue(queue.isLIFO());
+
+    final LDAPConnection c1 = new LDAPConnection();
+    final LDAPConnection c2 = new LDAPConnection();
+    final LDAPConnection c3 = new LDAPConnection();
+
+    assertTrue(queue.offer(c1));
+    assertTrue(queue.offer(c2));
+    assertTrue(queue.offer(c3));
+    assertFalse(queue.offer(new LDAPConnection()));
+
+    assertSame(queue.peek(), c3);
+    assertSame(queue.poll(), c3);
+    assertSame(queue.poll(), c2);
+    assertTrue(queue.offer(c2));
+    assertSame(queue.poll(), c2);
+
+    assertTrue(queue.offer(c2));
+    assertTrue(queue.offer(c3));
+    assertSame(queue.pollLeastRecentlyUsed(), c1);
+    assertTrue(queue.offer(c1));
+    assertSame(queue.pollLeastRecentlyUsed(), c2);
+    assertTrue(queue.offer(c2));
+    assertSame(queue.pollLeastRecentlyUsed(), c3);
+    assertTrue(queue.offer(c3));
+
+    // A full rotation through pollLeastRecentlyUsed should leave the order
+    // unchanged.
+    assertSame(queue.poll(), c3);
+    assertSame(queue.poll(), c2);
+    assertSame(queue.poll(), c1);
+    assertNull(queue.pollLeastRecentlyUsed());
+  }
+
+
+
+  /**
+   * Tests that a thread using a queue in LIFO mode will get back the connection
+   * that it most recently released, even if another thread released a
+   * connection after it.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testLIFOThreadAffinity()
+         throws Exception
+  {
+    final LDAPConnectionPoolQueue queue = new LDAPConnectionPoolQueue(3);
+    queue.setLIFO(true);
+
+    final LDAPConnection c1 = new LDAPConnection();
+    final LDAPConnection c2 = new LDAPConnection();
+    final LDAPConnection c3 = new LDAPConnection();
+    assertTrue(queue.offer(c1));
+
+    final Thread t = new Thread()
+    {
+      @Override()
+      public void run()
+      {
+        queue.offer(c2);
+      }
+    };
+    t.start();
+    t.join();
+
+    assertSame(queue.peek(), c2);
+    assertSame(queue.poll(), c1);
+    assertSame(queue.poll(), c2);
+
+    // The hint should only be used once.
+    assertTrue(queue.offer(c1));
+    assertTrue(queue.offer(c2));
+    assertSame(queue.poll(), c2);
+    assertSame(queue.poll(), c1);
+
+    // Connections released in FIFO mode should not be used as hints.
+    queue.setLIFO(false);
+    assertTrue(queue.offer(c1));
+    assertTrue(queue.offer(c2));
+    assertTrue(queue.offer(c3));
+    queue.setLIFO(true);
+    assertSame(queue.poll(), c1);
+  }
+
+
+
+  /**
+   * Tests the behavior of the timed poll method.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testTimedPoll()
+         throws Exception
+  {
+    final LDAPConnectionPoolQueue queue = new LDAPConnectionPoolQueue(1);
+
+    final long startTime = System.nanoTime();
+    assertNull(queue.poll(50L, TimeUnit.MILLISECONDS));
+    assertTrue((System.nanoTime() - startTime) >=
+         TimeUnit.MILLISECONDS.toNanos(40L));
+
+    final LDAPConnection conn = new LDAPConnection();
+    final CountDownLatch latch = new CountDownLatch(1);
+    final Thread t = new Thread()
+    {
+      @Override()
+      public void run()
+      {
+        try
+        {
+          latch.await();
+          Thread.sleep(50L);
+        }
+        catch (final InterruptedException e)
+        {
+          // Ignore this.
+        }
+
+        queue.offer(conn);
+      }
+    };
+    t.start();
+    latch.countDown();
+
+    assertSame(queue.poll(10L, TimeUnit.SECONDS), conn);
+    t.join();
+  }
+
+
+
+  /**
+   * Tests the behavior of the drainTo and iterator methods.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testDrainToAndIterator()
+         throws Exception
+  {
+    final LDAPConnectionPoolQueue queue = new LDAPConnectionPoolQueue(5);
+    final List<LDAPConnection> connList = new ArrayList<>(5);
+    for (int i=0; i < 5; i++)
+    {
+      final LDAPConnection conn = new LDAPConnection();
+      connList.add(conn);
+    }
+    assertTrue(queue.addAll(connList));
+
+    final Iterator<LDAPConnection> iterator = queue.iterator();
+    for (final LDAPConnection conn : connList)
+    {
+      assertTrue(iterator.hasNext());
+      assertSame(iterator.next(), conn);
+    }
+    assertFalse(iterator.hasNext());
+
+    try
+    {
+      queue.iterator().remove();
+      fail("Expected an exception when removing through the iterator");
+    }
+    catch (final UnsupportedOperationException e)
+    {
+      // This was expected.
+    }
+
+    final List<LDAPConnection> drained = new ArrayList<>(5);
+    assertEquals(queue.drainTo(drained), 5);
+    assertEquals(drained, connList);
+    assertEquals(queue.size(), 0);
+    assertEquals(queue.drainTo(drained), 0);
+  }
+
+
+
+  /**
+   * Tests that the queue maintains an accurate count of connections when it is
+   * accessed concurrently by several threads.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConcurrentAccess()
+         throws Exception
+  {
+    final int numConnections = 4;
+    final LDAPConnectionPoolQueue queue =
+         new LDAPConnectionPoolQueue(numConnections);
+    queue.setLIFO(true);
+    for (int i=0; i < numConnections; i++)
+    {
+      assertTrue(queue.offer(new LDAPConnection()));
+    }
+
+    final Thread[] threads = new Thread[8];
+    for (int i=0; i < threads.length; i++)
+    {
+      final boolean examineLRU = ((i % 2) == 0);
+      threads[i] = new Thread()
+      {
+        @Override()
+        public void run()
+        {
+          for (int j=0; j < 10_000; j++)
+          {
+            try
+            {
+              final LDAPConnection conn =
+                   queue.poll(10L, TimeUnit.SECONDS);
+              if (conn != null)
+              {
+                queue.offer(conn);
+              }
+            }
+            catch (final InterruptedException e)
+            {
+              return;
+            }
+
+            if (examineLRU && ((j % 1000) == 0))
+            {
+              final LDAPConnection conn = queue.pollLeastRecentlyUsed();
+              if (conn != null)
+              {
+                queue.offer(conn);
+              }
+            }
+          }
+        }
+      };
+    }
+
+    for (final Thread t : threads)
+    {
+      t.start();
+    }
+
+    for (final Thread t : threads)
+    {
+      t.join();
+    }
+
+    assertEquals(queue.size(), numConnections);
+    assertEquals(queue.remainingCapacity(), 0);
+    for (int i=0; i < numConnections; i++)
+    {
+      assertNotNull(queue.poll());
+    }
+    assertNull(queue.poll());
+  }
+}
@@ -3020,6 +3020,59 @@ public class LDAPConnectionPoolTestCase
 
 
 
+  /**
+   * Tests the behavior of a connection pool configured to use LIFO connection
+   * reuse.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testLIFOConnectionReuse()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS();
+
+    final SingleServerSet serverSet =
+         new SingleServerSet("localhost", ds.getListenPort());
+    final LDAPConnectionPool pool =
+         new LDAPConnectionPool(serverSet, null, 5, 5);
+    assertFalse(pool.useLIFOConnectionReuse());
+
+    LDAPConnection conn = pool.getConnection();
+    pool.releaseConnection(conn);
+    final LDAPConnection otherConn = pool.getConnection();
+    assertNotSame(otherConn, conn);
+    pool.releaseConnection(otherConn);
+
+    pool.setUseLIFOConnectionReuse(true);
+    assertTrue(pool.useLIFOConnectionReuse());
+
+    conn = pool.getConnection();
+    pool.releaseConnection(conn);
+    for (int i=0; i < 10; i++)
+    {
+      final LDAPConnection c = pool.getConnection();
+      assertSame(c, conn);
+      assertTrue(c.isConnected());
+      pool.releaseConnection(c);
+    }
+    assertEquals(pool.getCurrentAvailableConnections(), 5);
+
+    // Shrinking the pool should retain the connection that has been in use.
+    pool.shrinkPool(1);
+    assertEquals(pool.getCurrentAvailableConnections(), 1);
+    assertSame(pool.getConnection(), conn);
+    assertTrue(conn.isConnected());
+    pool.releaseConnection(conn);
+
+    pool.setUseLIFOConnectionReuse(false);
+    assertFalse(pool.useLIFOConnectionReuse());
+
+    pool.close();
+  }
+
+
+
   /**
    * Tests the behavior of the methods used to set a goal for the minimum number
    * of available connections.
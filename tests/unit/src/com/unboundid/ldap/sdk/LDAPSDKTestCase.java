@@ -608,6 +608,10 @@ public abstract class LDAPSDKTestCase
   {
     testDS.clear();
 
+    // Schema cached for the shared server by an earlier test must not be
+    // used by connections created for this one.
+    ServerSchemaCache.getInstance().clear();
+
     if (addBaseEntry)
     {
       testDS.add(
@@ -689,6 +693,10 @@ public abstract class LDAPSDKTestCase
   {
     testDSWithSSL.clear();
 
+    // Schema cached for the shared server by an earlier test must not be
+    // used by connections created for this one.
+    ServerSchemaCache.getInstance().clear();
+
     if (addBaseEntry)
     {
       testDSWithSSL.add(
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.testng.annotations.Test;
+
+import com.unboundid.asn1.ASN1Buffer;
+import com.unboundid.ldap.sdk.schema.Schema;
+
+
+
+/**
+ * This class provides a set of test cases for the LazyAttributeMap class.
+ */
+public class LazyAttributeMapTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests that attributes are only decoded as they are accessed, and that the
+   * map behaves like a normal map once all attributes have been decoded.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testLazyDecoding()
+         throws Exception
+  {
+    final Attribute[] attrs =
+    {
+      new Attribute("objectClass", "top", "person"),
+      new Attribute("cn", "John Doe", "Johnny"),
+      new Attribute("sn", "Doe"),
+      new Attribute("description", new byte[300]),
+      new Attribute("emptyAttr")
+    };
+
+    final LazyAttributeMap map = LazyAttributeMap.create(encode(attrs),
+         Schema.getDefaultStandardSchema());
+    assertNotNull(map);
+
+    assertEquals(map.size(), 5);
+    assertFalse(map.isEmpty());
+    assertTrue(map.containsKey("cn"));
+    assertTrue(map.containsKey("objectclass"));
+    assertFalse(map.containsKey("objectClass"));
+    assertFalse(map.containsKey("givenname"));
+    assertEquals(map.getNumDecodedAttributes(), 0);
+
+    assertNull(map.get("givenname"));
+    assertEquals(map.getNumDecodedAttributes(), 0);
+
+    final Attribute cn = map.get("cn");
+    assertEquals(cn, attrs[1]);
+    assertSame(map.get("cn"), cn);
+    assertEquals(map.getNumDecodedAttributes(), 1);
+
+    assertEquals(map.get("description"), attrs[3]);
+    assertEquals(map.getNumDecodedAttributes(), 2);
+
+    final Collection<Attribute> values = map.values();
+    assertEquals(map.getNumDecodedAttributes(), 5);
+    assertEquals(new ArrayList<>(values), Arrays.asList(attrs));
+
+    final Iterator<String> keyIterator = map.keySet().iterator();
+    assertEquals(keyIterator.next(), "objectclass");
+    assertEquals(keyIterator.next(), "cn");
+    assertEquals(keyIterator.next(), "sn");
+    assertEquals(keyIterator.next(), "description");
+    assertEquals(keyIterator.next(), "emptyattr");
+    assertFalse(keyIterator.hasNext());
+
+    assertSame(map.get("cn"), cn);
+    assertEquals(map.size(), 5);
+
+    assertNotNull(map.remove("cn"));
+    assertEquals(map.size(), 4);
+    assertNull(map.put("givenname", new Attribute("givenName", "John")));
+    assertTrue(map.containsKey("givenname"));
+    assertEquals(map.size(), 5);
+  }
+
+
+
+  /**
+   * Tests that altering the map before all attributes have been decoded will
+   * decode the remaining attributes and preserve their order.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testAlterBeforeDecoding()
+         throws Exception
+  {
+    final LazyAttributeMap map = LazyAttributeMap.create(
+         encode(new Attribute("a", "1"), new Attribute("b", "2"),
+              new Attribute("c", "3")),
+         null);
+    assertNotNull(map);
+    assertNotNull(map.get("b"));
+
+    map.put("d", new Attribute("d", "4"));
+    assertEquals(map.getNumDecodedAttributes(), 3);
+    assertEquals(new ArrayList<>(map.keySet()),
+         Arrays.asList("a", "b", "c", "d"));
+
+    final LazyAttributeMap map2 = LazyAttributeMap.create(
+         encode(new Attribute("a", "1"), new Attribute("b", "2")), null);
+    assertNotNull(map2);
+    map2.clear();
+    assertTrue(map2.isEmpty());
+    assertNull(map2.get("a"));
+  }
+
+
+
+  /**
+   * Tests the behavior when the encoded attribute list is empty.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testEmpty()
+         throws Exception
+  {
+    final LazyAttributeMap map = LazyAttributeMap.create(new byte[0], null);
+    assertNotNull(map);
+    assertEquals(map.size(), 0);
+    assertTrue(map.isEmpty());
+    assertNull(map.get("cn"));
+    assertTrue(map.values().isEmpty());
+  }
+
+
+
+  /**
+   * Tests that a lazy map will not be created for an attribute list that
+   * contains the same attribute more than once.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testDuplicateAttribute()
+         throws Exception
+  {
+    assertNull(LazyAttributeMap.create(
+         encode(new Attribute("cn", "a"), new Attribute("sn", "b"),
+              new Attribute("CN", "c")),
+         null));
+  }
+
+
+
+  /**
+   * Tests the behavior with malformed attribute lists.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testMalformed()
+         throws Exception
+  {
+    final byte[] validBytes = encode(new Attribute("cn", "John Doe"),
+         new Attribute("sn", "Doe"));
+    final int firstAttributeLength =
+         encode(new Attribute("cn", "John Doe")).length;
+
+    // Truncate the encoded attributes at every position other than the
+    // boundary between the two attributes.
+    for (int i=1; i < validBytes.length; i++)
+    {
+      if (i == firstAttributeLength)
+      {
+        continue;
+      }
+
+      try
+      {
+        LazyAttributeMap.create(Arrays.copyOf(validBytes, i), null);
+        fail("Expected an exception for an attribute list truncated to " + i +
+             " bytes");
+      }
+      catch (final LDAPException le)
+      {
+        assertEquals(le.getResultCode(), ResultCode.DECODING_ERROR);
+      }
+    }
+
+    // An attribute with extra data after the value set.
+    final byte[] extraData = { 0x30, 0x08, 0x04, 0x02, 'c', 'n', 0x31, 0x00,
+         0x04, 0x00 };
+    try
+    {
+      LazyAttributeMap.create(extraData, null);
+      fail("Expected an exception for an attribute with extra data");
+    }
+    catch (final LDAPException le)
+    {
+      assertEquals(le.getResultCode(), ResultCode.DECODING_ERROR);
+    }
+
+    // A length that uses too many bytes.
+    final byte[] longLength = { 0x30, (byte) 0x85, 0x00, 0x00, 0x00, 0x00,
+         0x00 };
+    try
+    {
+      LazyAttributeMap.create(longLength, null);
+      fail("Expected an exception for an invalid length");
+    }
+    catch (final LDAPException le)
+    {
+      assertEquals(le.getResultCode(), ResultCode.DECODING_ERROR);
+    }
+
+    // A value set that contains a malformed value will be detected when the
+    // attribute is decoded.
+    final byte[] badValue = { 0x30, 0x08, 0x04, 0x02, 'c', 'n', 0x31, 0x02,
+         0x04, 0x05 };
+    final LazyAttributeMap map = LazyAttributeMap.create(badValue, null);
+    assertNotNull(map);
+    assertTrue(map.containsKey("cn"));
+    try
+    {
+      map.get("cn");
+      fail("Expected an exception when decoding a malformed attribute");
+    }
+    catch (final LDAPRuntimeException lre)
+    {
+      assertEquals(lre.getResultCode(), ResultCode.DECODING_ERROR);
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior of entries that use a lazy attribute map, including
+   * comparing them with and serializing them.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testEntry()
+         throws Exception
+  {
+    final Entry eagerEntry = new Entry(
+         "dn: uid=john.doe,ou=People,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: person",
+         "objectClass: organizationalPerson",
+         "objectClass: inetOrgPerson",
+         "uid: john.doe",
+         "givenName: John",
+         "sn: Doe",
+         "cn: John Doe");
+
+    final LazyAttributeMap map = LazyAttributeMap.create(
+         encode(eagerEntry.getAttributes().toArray(new Attribute[0])), null);
+    final Entry lazyEntry = new SearchResultEntry(1,
+         new Entry(eagerEntry.getDN(), null, map));
+
+    assertTrue(lazyEntry.hasAttribute("uid"));
+    assertEquals(map.getNumDecodedAttributes(), 0);
+    assertEquals(lazyEntry.getAttributeValue("givenName"), "John");
+    assertTrue(lazyEntry.hasAttributeValue("cn", "john doe"));
+    assertEquals(map.getNumDecodedAttributes(), 2);
+
+    assertEquals(lazyEntry, eagerEntry);
+    assertEquals(lazyEntry.hashCode(), eagerEntry.hashCode());
+    assertEquals(lazyEntry.toLDIFString(), eagerEntry.toLDIFString());
+
+    final LazyAttributeMap map2 = LazyAttributeMap.create(
+         encode(eagerEntry.getAttributes().toArray(new Attribute[0])), null);
+    final Entry lazyEntry2 = new Entry(eagerEntry.getDN(), null, map2);
+    final ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+    try (ObjectOutputStream objectOutput = new ObjectOutputStream(byteOutput))
+    {
+      objectOutput.writeObject(lazyEntry2);
+    }
+
+    try (ObjectInputStream objectInput = new ObjectInputStream(
+              new ByteArrayInputStream(byteOutput.toByteArray())))
+    {
+      final Entry deserialized = (Entry) objectInput.readObject();
+      assertEquals(deserialized, eagerEntry);
+    }
+
+    final LazyAttributeMap map3 = LazyAttributeMap.create(
+         encode(eagerEntry.getAttributes().toArray(new Attribute[0])), null);
+    final Object clone = map3.clone();
+    assertEquals(clone.getClass(), LinkedHashMap.class);
+    assertEquals(clone, map3);
+  }
+
+
+
+  /**
+   * Encodes the provided attributes as the value of an attribute list.
+   *
+   * @param  attributes  The attributes to encode.
+   *
+   * @return  The encoded attribute list.
+   */
+  private static byte[] encode(final Attribute... attributes)
+  {
+    final ASN1Buffer buffer = new ASN1Buffer();
+    for (final Attribute a : attributes)
+    {
+      a.writeTo(buffer);
+    }
+
+    return buffer.toByteArray();
+  }
+}
@@ -0,0 +1,655 @@
+/*
+ * Copyright 2007-2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2007-2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedSearchRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+import com.unboundid.ldap.sdk.controls.SimplePagedResultsControl;
+
+
+
+/**
+ * This class provides a set of test cases for the
+ * {@code SearchResultPublisher} class.
+ */
+public final class SearchResultPublisherTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * The number of user entries that will be added to the server.
+   */
+  private static final int NUM_USERS = 25;
+
+
+
+  // The in-memory directory server instance to use for testing.
+  private InMemoryDirectoryServer ds;
+
+  // The connection to use for testing.
+  private LDAPConnection conn;
+
+
+
+  /**
+   * Starts an in-memory directory server and populates it with test entries.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @BeforeClass()
+  public void setUp()
+         throws Exception
+  {
+    ds = new InMemoryDirectoryServer(
+         new InMemoryDirectoryServerConfig("dc=example,dc=com"));
+    ds.startListening();
+
+    ds.add(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example");
+    ds.add(
+         "dn: ou=People,dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: organizationalUnit",
+         "ou: People");
+
+    for (int i=0; i < NUM_USERS; i++)
+    {
+      ds.add(
+           "dn: uid=user." + i + ",ou=People,dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: person",
+           "objectClass: organizationalPerson",
+           "objectClass: inetOrgPerson",
+           "uid: user." + i,
+           "givenName: User",
+           "sn: " + i,
+           "cn: User " + i);
+    }
+
+    conn = ds.getConnection();
+  }
+
+
+
+  /**
+   * Closes the connection and shuts down the in-memory directory server.
+   */
+  @AfterClass()
+  public void cleanUp()
+  {
+    conn.close();
+    ds.shutDown(true);
+  }
+
+
+
+  /**
+   * Tests the behavior when requesting all entries at once.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testRequestAllEntries()
+         throws Exception
+  {
+    final SearchResultPublisher publisher =
+         new SearchResultPublisher(conn, createSearchRequest(), 10);
+    assertEquals(publisher.getMaxPageSize(), 10);
+
+    final TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE, 0L);
+    publisher.subscribe(subscriber);
+    subscriber.awaitTermination();
+
+    assertEquals(subscriber.entries.size(), NUM_USERS);
+    assertNotNull(subscriber.result);
+    assertEquals(subscriber.result.getResultCode(), ResultCode.SUCCESS);
+    assertNull(subscriber.exception);
+  }
+
+
+
+  /**
+   * Tests the behavior when entries are requested one at a time as each entry
+   * is processed.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testRequestOneAtATime()
+         throws Exception
+  {
+    final SearchResultPublisher publisher =
+         new SearchResultPublisher(conn, createSearchRequest());
+
+    final TestSubscriber subscriber = new TestSubscriber(1L, 1L);
+    publisher.subscribe(subscriber);
+    subscriber.awaitTermination();
+
+    assertEquals(subscriber.entries.size(), NUM_USERS);
+    assertNotNull(subscriber.result);
+    assertNull(subscriber.exception);
+  }
+
+
+
+  /**
+   * Tests to ensure that no more entries are provided than have been
+   * requested, and that each subscriber receives the results of a separate
+   * search.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testDemandIsHonored()
+         throws Exception
+  {
+    final SearchRequest searchRequest = createSearchRequest();
+    searchRequest.addControl(new SimplePagedResultsControl(1));
+    final SearchResultPublisher publisher =
+         new SearchResultPublisher(conn, searchRequest, 4);
+
+    final TestSubscriber subscriber1 = new TestSubscriber(7L, 0L);
+    publisher.subscribe(subscriber1);
+    subscriber1.awaitEntries(7);
+    assertEquals(subscriber1.entries.size(), 7);
+    assertNull(subscriber1.result);
+
+    final TestSubscriber subscriber2 = new TestSubscriber(3L, 0L);
+    publisher.subscribe(subscriber2);
+    subscriber2.awaitEntries(3);
+    assertEquals(subscriber2.entries.size(), 3);
+    assertEquals(subscriber2.entries.get(0).getDN(),
+         subscriber1.entries.get(0).getDN());
+
+    subscriber1.subscription.request(100L);
+    subscriber1.awaitTermination();
+    assertEquals(subscriber1.entries.size(), NUM_USERS);
+    assertNotNull(subscriber1.result);
+
+    subscriber2.subscription.request(NUM_USERS - 3);
+    subscriber2.awaitTermination();
+    assertEquals(subscriber2.entries.size(), NUM_USERS);
+    assertNotNull(subscriber2.result);
+
+    // Additional requests after completion will be ignored.
+    subscriber2.subscription.request(1L);
+    assertEquals(subscriber2.entries.size(), NUM_USERS);
+  }
+
+
+
+  /**
+   * Tests the behavior when the subscription is cancelled before all entries
+   * have been provided.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testCancel()
+         throws Exception
+  {
+    final SearchResultPublisher publisher =
+         new SearchResultPublisher(conn, createSearchRequest(), 5);
+
+    final TestSubscriber subscriber = new TestSubscriber(3L, 0L);
+    publisher.subscribe(subscriber);
+    subscriber.awaitEntries(3);
+    assertEquals(subscriber.entries.size(), 3);
+
+    subscriber.subscription.cancel();
+    subscriber.subscription.request(10L);
+    assertEquals(subscriber.entries.size(), 3);
+    assertNull(subscriber.result);
+    assertNull(subscriber.exception);
+  }
+
+
+
+  /**
+   * Tests the behavior when a non-positive number of entries is requested.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testInvalidRequestCount()
+         throws Exception
+  {
+    final SearchResultPublisher publisher =
+         new SearchResultPublisher(conn, createSearchRequest());
+
+    final TestSubscriber subscriber = new TestSubscriber(0L, 0L);
+    publisher.subscribe(subscriber);
+    subscriber.awaitTermination();
+
+    assertTrue(subscriber.entries.isEmpty());
+    assertNull(subscriber.result);
+    assertNotNull(subscriber.exception);
+    assertEquals(subscriber.exception.getResultCode(), ResultCode.PARAM_ERROR);
+  }
+
+
+
+  /**
+   * Tests the behavior when the search fails.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSearchFails()
+         throws Exception
+  {
+    final SearchResultPublisher publisher = new SearchResultPublisher(conn,
+         new SearchRequest("ou=missing,dc=example,dc=com", SearchScope.SUB,
+              Filter.createPresenceFilter("objectClass")));
+
+    final TestSubscriber subscriber = new TestSubscriber(10L, 0L);
+    publisher.subscribe(subscriber);
+    subscriber.awaitTermination();
+
+    assertTrue(subscriber.entries.isEmpty());
+    assertNull(subscriber.result);
+    assertNotNull(subscriber.exception);
+    assertEquals(subscriber.exception.getResultCode(),
+         ResultCode.NO_SUCH_OBJECT);
+  }
+
+
+
+  /**
+   * Tests the behavior when using a connection pool.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConnectionPool()
+         throws Exception
+  {
+    final LDAPConnectionPool pool =
+         new LDAPConnectionPool(ds.getConnection(), 1, 2);
+
+    try
+    {
+      final SearchResultPublisher publisher =
+           new SearchResultPublisher(pool, createSearchRequest(), 10);
+
+      final TestSubscriber subscriber = new TestSubscriber(5L, 0L);
+      publisher.subscribe(subscriber);
+      subscriber.awaitEntries(5);
+      assertEquals(subscriber.entries.size(), 5);
+      assertEquals(pool.getCurrentAvailableConnections(), 0);
+
+      subscriber.subscription.request(Long.MAX_VALUE);
+      subscriber.awaitTermination();
+      assertEquals(subscriber.entries.size(), NUM_USERS);
+      assertNotNull(subscriber.result);
+      assertEquals(pool.getCurrentAvailableConnections(), 1);
+
+      final TestSubscriber cancelledSubscriber = new TestSubscriber(5L, 0L);
+      publisher.subscribe(cancelledSubscriber);
+      cancelledSubscriber.awaitEntries(5);
+      assertEquals(pool.getCurrentAvailableConnections(), 0);
+
+      // The connection will be released once the server has been told that
+      // no more pages are needed.
+      cancelledSubscriber.subscription.cancel();
+      final long stopTime = System.currentTimeMillis() + 30_000L;
+      while ((pool.getCurrentAvailableConnections() == 0) &&
+             (System.currentTimeMillis() < stopTime))
+      {
+        Thread.sleep(10L);
+      }
+      assertEquals(pool.getCurrentAvailableConnections(), 1);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+
+  /**
+   * Retrieves a set of values indicating whether to use a connection that is
+   * operating in synchronous mode.
+   *
+   * @return  A set of values indicating whether to use a connection that is
+   *          operating in synchronous mode.
+   */
+  @DataProvider(name="synchronousMode")
+  public Object[][] getSynchronousMode()
+  {
+    return new Object[][]
+    {
+      new Object[] { false },
+      new Object[] { true }
+    };
+  }
+
+
+
+  /**
+   * Tests to ensure that entries returned before a search fails will be
+   * provided to the subscriber before it is notified of the failure.
+   *
+   * @param  synchronousMode  Indicates whether to use a connection that is
+   *                          operating in synchronous mode.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider="synchronousMode")
+  public void testEntriesProvidedBeforeFailure(final boolean synchronousMode)
+         throws Exception
+  {
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUseSynchronousMode(synchronousMode);
+
+    final LDAPConnection c = ds.getConnection(options);
+
+    try
+    {
+      final SearchRequest searchRequest = createSearchRequest();
+      searchRequest.setSizeLimit(3);
+      final SearchResultPublisher publisher =
+           new SearchResultPublisher(c, searchRequest);
+
+      final TestSubscriber subscriber = new TestSubscriber(10L, 0L);
+      publisher.subscribe(subscriber);
+      subscriber.awaitTermination();
+
+      assertEquals(subscriber.entries.size(), 3);
+      assertNull(subscriber.result);
+      assertNotNull(subscriber.exception);
+      assertEquals(subscriber.exception.getResultCode(),
+           ResultCode.SIZE_LIMIT_EXCEEDED);
+    }
+    finally
+    {
+      c.close();
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that requesting entries does not wait for the server to
+   * respond.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testRequestDoesNotWaitForServer()
+         throws Exception
+  {
+    final CountDownLatch latch = new CountDownLatch(1);
+    final InMemoryDirectoryServerConfig config =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+    config.addInMemoryOperationInterceptor(new InMemoryOperationInterceptor()
+    {
+      @Override()
+      public void processSearchRequest(
+                       final InMemoryInterceptedSearchRequest request)
+      {
+        try
+        {
+          latch.await(30L, TimeUnit.SECONDS);
+        }
+        catch (final InterruptedException e)
+        {
+          // No implementation required.
+        }
+      }
+    });
+
+    final InMemoryDirectoryServer delayedDS =
+         new InMemoryDirectoryServer(config);
+    delayedDS.add(
+         "dn: dc=example,dc=com",
+         "objectClass: top",
+         "objectClass: domain",
+         "dc: example");
+    delayedDS.startListening();
+
+    final LDAPConnection c = delayedDS.getConnection();
+
+    try
+    {
+      final SearchResultPublisher publisher = new SearchResultPublisher(c,
+           new SearchRequest("dc=example,dc=com", SearchScope.BASE,
+                Filter.createPresenceFilter("objectClass")));
+
+      // The subscriber requests entries when it is subscribed, so this would
+      // not return until the latch was released if the request waited for the
+      // server.
+      final TestSubscriber subscriber = new TestSubscriber(10L, 0L);
+      publisher.subscribe(subscriber);
+      assertTrue(subscriber.entries.isEmpty());
+      assertNull(subscriber.result);
+
+      latch.countDown();
+      subscriber.awaitTermination();
+      assertEquals(subscriber.entries.size(), 1);
+      assertNotNull(subscriber.result);
+      assertNull(subscriber.exception);
+    }
+    finally
+    {
+      latch.countDown();
+      c.close();
+      delayedDS.shutDown(true);
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that a search request with a search result listener will
+   * be rejected.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPException.class })
+  public void testRequestWithListener()
+         throws Exception
+  {
+    final SearchRequest searchRequest = new SearchRequest(
+         new TestAsyncListener(), "dc=example,dc=com", SearchScope.SUB,
+         Filter.createPresenceFilter("objectClass"));
+    new SearchResultPublisher(conn, searchRequest);
+  }
+
+
+
+  /**
+   * Creates a search request that will match all of the user entries.
+   *
+   * @return  A search request that will match all of the user entries.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static SearchRequest createSearchRequest()
+          throws Exception
+  {
+    return new SearchRequest("ou=People,dc=example,dc=com", SearchScope.ONE,
+         Filter.createEqualityFilter("objectClass", "person"));
+  }
+
+
+
+  /**
+   * A subscriber that records the information provided to it.
+   */
+  private static final class TestSubscriber
+          implements SearchResultSubscriber
+  {
+    // The number of entries to request when subscribed.
+    private final long initialRequest;
+
+    // The number of entries to request after each entry is received.
+    private final long requestPerEntry;
+
+    // The entries that have been received.
+    private final List<SearchResultEntry> entries;
+
+    // The exception that has been received.
+    private LDAPException exception;
+
+    // The search result that has been received.
+    private SearchResult result;
+
+    // The subscription that has been received.
+    private SearchResultSubscription subscription;
+
+
+
+    /**
+     * Creates a new test subscriber.
+     *
+     * @param  initialRequest   The number of entries to request when
+     *                          subscribed.
+     * @param  requestPerEntry  The number of entries to request after each
+     *                          entry is received.
+     */
+    private TestSubscriber(final long initialRequest,
+                           final long requestPerEntry)
+    {
+      this.initialRequest = initialRequest;
+      this.requestPerEntry = requestPerEntry;
+
+      entries = new ArrayList<>(NUM_USERS);
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void onSubscribe(final SearchResultSubscription subscription)
+    {
+      assertNull(this.subscription);
+      this.subscription = subscription;
+      subscription.request(initialRequest);
+    }
+
+
+
+    /**
+     * Waits until at least the specified number of entries have been received,
+     * or until processing has completed.
+     *
+     * @param  count  The number of entries to wait for.
+     *
+     * @throws  Exception  If an unexpected problem occurs.
+     */
+    private synchronized void awaitEntries(final int count)
+            throws Exception
+    {
+      final long stopTime = System.currentTimeMillis() + 30_000L;
+      while ((entries.size() < count) && (result == null) &&
+             (exception == null) && (System.currentTimeMillis() < stopTime))
+      {
+        wait(10L);
+      }
+    }
+
+
+
+    /**
+     * Waits until the subscriber has been notified that processing has
+     * completed, either successfully or with an error.
+     *
+     * @throws  Exception  If an unexpected problem occurs.
+     */
+    private synchronized void awaitTermination()
+            throws Exception
+    {
+      final long stopTime = System.currentTimeMillis() + 30_000L;
+      while ((result == null) && (exception == null) &&
+             (System.currentTimeMillis() < stopTime))
+      {
+        wait(10L);
+      }
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public synchronized void onNext(final SearchResultEntry entry)
+    {
+      assertNull(result);
+      assertNull(exception);
+      entries.add(entry);
+      notifyAll();
+
+      if (requestPerEntry > 0L)
+      {
+        subscription.request(requestPerEntry);
+      }
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public synchronized void onError(final LDAPException exception)
+    {
+      assertNull(result);
+      assertNull(this.exception);
+      this.exception = exception;
+      notifyAll();
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public synchronized void onComplete(final SearchResult result)
+    {
+      assertNull(this.result);
+      assertNull(exception);
+      this.result = result;
+      notifyAll();
+    }
+  }
+}
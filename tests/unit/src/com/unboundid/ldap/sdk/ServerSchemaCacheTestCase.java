@@ -0,0 +1,479 @@
+/*
+ * Copyright 2007-2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2007-2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedSearchEntry;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedSearchRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+import com.unboundid.ldap.sdk.schema.Schema;
+
+
+
+/**
+ * This class provides a set of test cases for the {@code ServerSchemaCache}
+ * class.
+ */
+public final class ServerSchemaCacheTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Clears the schema cache before each test.
+   */
+  @BeforeMethod()
+  public void clearCache()
+  {
+    ServerSchemaCache.getInstance().clear();
+  }
+
+
+
+  /**
+   * Tests to ensure that schema is only retrieved again when the server
+   * indicates that it has been modified.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testRevalidateWithModifyTimestamp()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = new InMemoryDirectoryServer(
+         new InMemoryDirectoryServerConfig("dc=example,dc=com"));
+    ds.startListening();
+
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUseSchema(true);
+
+    try
+    {
+      addAttributeType(ds, "1.2.3.4", "testAttr1");
+
+      final ServerSchemaCache cache = ServerSchemaCache.getInstance();
+      final long initialRetrievals = cache.getNumSchemaRetrievals();
+
+      final LDAPConnection conn1 = ds.getConnection(options);
+      final Schema schema1 = conn1.getCachedSchema();
+      assertNotNull(schema1);
+      assertNotNull(schema1.getAttributeType("testAttr1"));
+      assertEquals(cache.getNumSchemaRetrievals(), (initialRetrievals + 1L));
+
+      final LDAPConnection conn2 = ds.getConnection(options);
+      assertSame(conn2.getCachedSchema(), schema1);
+      assertEquals(cache.getNumSchemaRetrievals(), (initialRetrievals + 1L));
+
+      Thread.sleep(10L);
+      addAttributeType(ds, "1.2.3.5", "testAttr2");
+
+      final LDAPConnection conn3 = ds.getConnection(options);
+      final Schema schema3 = conn3.getCachedSchema();
+      assertNotNull(schema3);
+      assertNotNull(schema3.getAttributeType("testAttr2"));
+      assertEquals(cache.getNumSchemaRetrievals(), (initialRetrievals + 2L));
+
+      conn1.close();
+      conn2.close();
+      conn3.close();
+    }
+    finally
+    {
+      ds.shutDown(true);
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that schema is not checked at all within the revalidation
+   * interval.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testRevalidationInterval()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = new InMemoryDirectoryServer(
+         new InMemoryDirectoryServerConfig("dc=example,dc=com"));
+    ds.startListening();
+
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUseSchema(true);
+    options.setSchemaRevalidationIntervalMillis(3_600_000L);
+
+    try
+    {
+      final ServerSchemaCache cache = ServerSchemaCache.getInstance();
+      final long initialRetrievals = cache.getNumSchemaRetrievals();
+
+      final LDAPConnection conn1 = ds.getConnection(options);
+      final Schema schema1 = conn1.getCachedSchema();
+      assertNotNull(schema1);
+      assertEquals(cache.getNumSchemaRetrievals(), (initialRetrievals + 1L));
+
+      // The server will not be asked whether the schema has changed, so the
+      // new attribute type will not be visible.
+      addAttributeType(ds, "1.2.3.4", "testAttr1");
+
+      final LDAPConnection conn2 = ds.getConnection(options);
+      assertSame(conn2.getCachedSchema(), schema1);
+      assertNull(conn2.getCachedSchema().getAttributeType("testAttr1"));
+      assertEquals(cache.getNumSchemaRetrievals(), (initialRetrievals + 1L));
+
+      // Once the cache is cleared, the updated schema will be retrieved.
+      cache.clear();
+      final LDAPConnection conn3 = ds.getConnection(options);
+      assertNotNull(conn3.getCachedSchema().getAttributeType("testAttr1"));
+      assertEquals(cache.getNumSchemaRetrievals(), (initialRetrievals + 2L));
+
+      conn1.close();
+      conn2.close();
+      conn3.close();
+    }
+    finally
+    {
+      ds.shutDown(true);
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that the schema is retrieved with only one search beyond
+   * the root DSE on a cache miss, and that a cache hit only requires the
+   * modifyTimestamp check beyond the root DSE.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testSearchesPerConnection()
+         throws Exception
+  {
+    final SearchCountingInterceptor interceptor =
+         new SearchCountingInterceptor(false);
+    final InMemoryDirectoryServerConfig config =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+    config.addInMemoryOperationInterceptor(interceptor);
+
+    final InMemoryDirectoryServer ds = new InMemoryDirectoryServer(config);
+    ds.startListening();
+
+    final LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setUseSchema(true);
+
+    try
+    {
+      // The in-memory server will only provide a modify timestamp for its
+      // subschema subentry once the schema has been updated.
+      addAttributeType(ds, "1.2.3.4", "testAttr1");
+
+      final ServerSchemaCache cache = ServerSchemaCache.getInstance();
+      final long initialRetrievals = cache.getNumSchemaRetrievals();
+
+      interceptor.numSearches.set(0);
+      final LDAPConnection conn1 = ds.getConnection(options);
+      assertNotNull(conn1.getCachedSchema());
+      assertEquals(interceptor.numSearches.get(), 2);
+      assertEquals(cache.getNumSchemaRetrievals(), (initialRetrievals + 1L));
+
+      interceptor.numSearches.set(0);
+      final LDAPConnection conn2 = ds.getConnection(options);
+      assertSame(conn2.getCachedSchema(), conn1.getCachedSchema());
+      assertEquals(interceptor.numSearches.get(), 2);
+      assertEquals(cache.getNumSchemaRetrievals(), (initialRetrievals + 1L));
+
+      conn1.close();
+      conn2.close();
+    }
+    finally
+    {
+      ds.shutDown(true);
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that schema from a server that does not provide a modify
+   * timestamp for its subschema subentry is reused only for a limited time
+   * after it was retrieved.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testServerWithoutModifyTimestamp()
+         throws Exception
+  {
+    final SearchCountingInterceptor interceptor =
+         new SearchCountingInterceptor(true);
+    final InMemoryDirectoryServerConfig config =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+    config.addInMemoryOperationInterceptor(interceptor);
+
+    final InMemoryDirectoryServer ds = new InMemoryDirectoryServer(config);
+    ds.startListening();
+
+    final LDAPConnection conn = ds.getConnection();
+
+    try
+    {
+      addAttributeType(ds, "1.2.3.4", "testAttr1");
+
+      // Within the time-to-live, the cached schema will be used without
+      // retrieving the subschema subentry at all.
+      final ServerSchemaCache cache =
+           new ServerSchemaCache(3_600_000L, 10);
+
+      interceptor.numSearches.set(0);
+      final Schema schema1 = cache.getSchema(conn, 0L);
+      assertNotNull(schema1);
+      assertEquals(interceptor.numSearches.get(), 2);
+      assertEquals(cache.getNumSchemaRetrievals(), 1L);
+
+      addAttributeType(ds, "1.2.3.5", "testAttr2");
+
+      interceptor.numSearches.set(0);
+      assertSame(cache.getSchema(conn, 0L), schema1);
+      assertEquals(interceptor.numSearches.get(), 1);
+      assertEquals(cache.getNumSchemaRetrievals(), 1L);
+
+      // Once the time-to-live has elapsed, the full schema must be read again,
+      // but that should not require a separate timestamp search.
+      final ServerSchemaCache expiringCache = new ServerSchemaCache(0L, 10);
+      assertNotNull(expiringCache.getSchema(conn, 0L));
+      addAttributeType(ds, "1.2.3.6", "testAttr3");
+
+      interceptor.numSearches.set(0);
+      final Schema schema3 = expiringCache.getSchema(conn, 0L);
+      assertNotNull(schema3.getAttributeType("testAttr3"));
+      assertEquals(interceptor.numSearches.get(), 2);
+      assertEquals(expiringCache.getNumSchemaRetrievals(), 2L);
+    }
+    finally
+    {
+      conn.close();
+      ds.shutDown(true);
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that schema will be retrieved again, even within the
+   * revalidation interval, if the root DSE indicates that the server listening
+   * on the same address and port is a different server instance.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testServerInstanceChanged()
+         throws Exception
+  {
+    final SearchCountingInterceptor interceptor =
+         new SearchCountingInterceptor(false);
+    interceptor.startupUUID = "first";
+    final InMemoryDirectoryServerConfig config =
+         new InMemoryDirectoryServerConfig("dc=example,dc=com");
+    config.addInMemoryOperationInterceptor(interceptor);
+
+    final InMemoryDirectoryServer ds = new InMemoryDirectoryServer(config);
+    ds.startListening();
+
+    final LDAPConnection conn = ds.getConnection();
+
+    try
+    {
+      final ServerSchemaCache cache = new ServerSchemaCache(3_600_000L, 10);
+
+      final Schema schema1 = cache.getSchema(conn, 3_600_000L);
+      assertNotNull(schema1);
+      assertEquals(cache.getNumSchemaRetrievals(), 1L);
+
+      assertSame(cache.getSchema(conn, 3_600_000L), schema1);
+      assertEquals(cache.getNumSchemaRetrievals(), 1L);
+
+      addAttributeType(ds, "1.2.3.4", "testAttr1");
+      interceptor.startupUUID = "second";
+
+      final Schema schema2 = cache.getSchema(conn, 3_600_000L);
+      assertNotNull(schema2.getAttributeType("testAttr1"));
+      assertEquals(cache.getNumSchemaRetrievals(), 2L);
+    }
+    finally
+    {
+      conn.close();
+      ds.shutDown(true);
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that the schema for the least recently used server is
+   * discarded when the cache is full.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testLeastRecentlyUsedEviction()
+         throws Exception
+  {
+    final InMemoryDirectoryServer[] servers = new InMemoryDirectoryServer[3];
+    final LDAPConnection[] conns = new LDAPConnection[servers.length];
+    for (int i=0; i < servers.length; i++)
+    {
+      servers[i] = new InMemoryDirectoryServer(
+           new InMemoryDirectoryServerConfig("dc=example,dc=com"));
+      servers[i].startListening();
+      conns[i] = servers[i].getConnection();
+    }
+
+    try
+    {
+      final ServerSchemaCache cache = new ServerSchemaCache(3_600_000L, 2);
+
+      assertNotNull(cache.getSchema(conns[0], 0L));
+      assertNotNull(cache.getSchema(conns[1], 0L));
+      assertEquals(cache.getNumSchemaRetrievals(), 2L);
+
+      // Using the first server's schema makes the second the least recently
+      // used, so it is the one that will be discarded for the third.
+      assertNotNull(cache.getSchema(conns[0], 0L));
+      assertNotNull(cache.getSchema(conns[2], 0L));
+      assertEquals(cache.getNumSchemaRetrievals(), 3L);
+
+      assertNotNull(cache.getSchema(conns[0], 0L));
+      assertEquals(cache.getNumSchemaRetrievals(), 3L);
+
+      assertNotNull(cache.getSchema(conns[1], 0L));
+      assertEquals(cache.getNumSchemaRetrievals(), 4L);
+    }
+    finally
+    {
+      for (int i=0; i < servers.length; i++)
+      {
+        conns[i].close();
+        servers[i].shutDown(true);
+      }
+    }
+  }
+
+
+
+  /**
+   * Adds a new attribute type to the schema for the provided server.
+   *
+   * @param  ds    The server to update.
+   * @param  oid   The OID for the attribute type.
+   * @param  name  The name for the attribute type.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static void addAttributeType(final InMemoryDirectoryServer ds,
+                                       final String oid, final String name)
+         throws Exception
+  {
+    ds.modify(
+         "dn: cn=schema",
+         "changetype: modify",
+         "add: attributeTypes",
+         "attributeTypes: ( " + oid + " NAME '" + name + "' )");
+  }
+
+
+
+  /**
+   * An in-memory operation interceptor that counts the search requests that
+   * it receives, and that may optionally remove the modifyTimestamp attribute
+   * from search result entries and add a startupUUID attribute to the root
+   * DSE.
+   */
+  private static final class SearchCountingInterceptor
+          extends InMemoryOperationInterceptor
+  {
+    // The number of search requests received.
+    private final AtomicInteger numSearches;
+
+    // Indicates whether to remove modifyTimestamp from returned entries.
+    private final boolean removeModifyTimestamp;
+
+    // The startupUUID value to add to the root DSE, if any.
+    private volatile String startupUUID;
+
+
+
+    /**
+     * Creates a new instance of this interceptor.
+     *
+     * @param  removeModifyTimestamp  Indicates whether to remove the
+     *                                modifyTimestamp attribute from search
+     *                                result entries.
+     */
+    private SearchCountingInterceptor(final boolean removeModifyTimestamp)
+    {
+      this.removeModifyTimestamp = removeModifyTimestamp;
+      numSearches = new AtomicInteger(0);
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void processSearchRequest(
+                     final InMemoryInterceptedSearchRequest request)
+    {
+      numSearches.incrementAndGet();
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override()
+    public void processSearchEntry(final InMemoryInterceptedSearchEntry entry)
+    {
+      final Entry e = entry.getSearchEntry().duplicate();
+      if (removeModifyTimestamp)
+      {
+        e.removeAttribute("modifyTimestamp");
+      }
+
+      final String uuid = startupUUID;
+      if ((uuid != null) && e.getDN().isEmpty())
+      {
+        e.addAttribute("startupUUID", uuid);
+      }
+
+      entry.setSearchEntry(e);
+    }
+  }
+}
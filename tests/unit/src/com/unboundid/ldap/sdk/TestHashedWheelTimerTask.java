@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk;
+
+
+
+import java.util.concurrent.CountDownLatch;
+
+
+
+/**
+ * This class provides a hashed wheel timer task that records when it was run,
+ * for use in testing the {@link HashedWheelTimer} class.
+ */
+public final class TestHashedWheelTimerTask
+       extends HashedWheelTimerTask
+{
+  // The latch that will be released when the task is run.
+  private final CountDownLatch latch;
+
+  // The System.nanoTime value at which the task was run.
+  private volatile long runTimeNanos;
+
+
+
+  /**
+   * Creates a new instance of this test task.
+   */
+  public TestHashedWheelTimerTask()
+  {
+    latch = new CountDownLatch(1);
+    runTimeNanos = -1L;
+  }
+
+
+
+  /**
+   * Records the time that the task was run.
+   */
+  @Override()
+  public void run()
+  {
+    runTimeNanos = System.nanoTime();
+    latch.countDown();
+  }
+
+
+
+  /**
+   * Retrieves the latch that will be released when the task is run.
+   *
+   * @return  The latch that will be released when the task is run.
+   */
+  public CountDownLatch getLatch()
+  {
+    return latch;
+  }
+
+
+
+  /**
+   * Retrieves the System.nanoTime value at which the task was run.
+   *
+   * @return  The System.nanoTime value at which the task was run, or -1 if it
+   *          has not been run.
+   */
+  public long getRunTimeNanos()
+  {
+    return runTimeNanos;
+  }
+}
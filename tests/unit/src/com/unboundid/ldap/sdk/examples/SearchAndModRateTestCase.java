@@ -26,11 +26,14 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
 import com.unboundid.ldap.sdk.LDAPConnection;
 import com.unboundid.ldap.sdk.LDAPSDKTestCase;
 import com.unboundid.ldap.sdk.ResultCode;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.util.List;
 
 
 /**
@@ -770,4 +773,55 @@ public class SearchAndModRateTestCase
 
     assertEquals(searchAndModRate.runTool(args), ResultCode.SUCCESS);
   }
+
+
+
+  /**
+   * Tests the response time percentiles included in the output and the
+   * latency histogram written at the end of the run.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testLatencyPercentilesAndHistogramFile()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final File histogramFile = createTempFile();
+    assertTrue(histogramFile.delete());
+
+    final String[] args =
+    {
+      "-h", "localhost",
+      "-p", String.valueOf(ds.getListenPort()),
+      "-b", "ou=People,dc=example,dc=com",
+      "-s", "base",
+      "-f", "(objectClass=*)",
+      "-m", "description",
+      "-t", "2",
+      "-i", "1",
+      "-I", "2",
+      "-r", "100",
+      "--warmUpIntervals", "1",
+      "--latencyHistogramFile", histogramFile.getAbsolutePath(),
+      "-c"
+    };
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(SearchAndModRate.main(args, out, out), ResultCode.SUCCESS);
+
+    final String output = out.toString("UTF-8");
+    assertTrue(output.contains("Srch P50 ms"));
+    assertTrue(output.contains("Mod P99.9 ms"));
+    assertTrue(output.contains("Mod Max ms"));
+
+    assertTrue(histogramFile.exists());
+    final List<String> lines = readFileLines(histogramFile);
+    assertEquals(lines.get(0), "# Search Response Times");
+    assertEquals(lines.get(1),
+         "Lower Bound ms,Upper Bound ms,Count,Cumulative Percent");
+    assertTrue(lines.contains("# Modify Response Times"));
+    assertTrue(lines.get(lines.size()-1).endsWith(",100.000"));
+  }
 }
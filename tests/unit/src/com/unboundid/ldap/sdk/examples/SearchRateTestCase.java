@@ -26,11 +26,14 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
 import com.unboundid.ldap.sdk.LDAPConnection;
 import com.unboundid.ldap.sdk.LDAPSDKTestCase;
 import com.unboundid.ldap.sdk.ResultCode;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.util.List;
 
 
 /**
@@ -927,4 +930,117 @@ public class SearchRateTestCase
 
     assertEquals(searchRate.runTool(args), ResultCode.SUCCESS);
   }
+
+
+
+  /**
+   * Tests the response time percentiles included in the output and the
+   * latency histogram written at the end of the run.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testLatencyPercentilesAndHistogramFile()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final File histogramFile = createTempFile();
+    assertTrue(histogramFile.delete());
+
+    final String[] args =
+    {
+      "-h", "localhost",
+      "-p", String.valueOf(ds.getListenPort()),
+      "-b", "dc=example,dc=com",
+      "-s", "base",
+      "-f", "(objectClass=*)",
+      "-t", "2",
+      "-i", "1",
+      "-I", "2",
+      "-r", "100",
+      "--warmUpIntervals", "1",
+      "--correctForCoordinatedOmission",
+      "--latencyHistogramFile", histogramFile.getAbsolutePath(),
+      "-c"
+    };
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(SearchRate.main(args, out, out), ResultCode.SUCCESS);
+
+    final String output = out.toString("UTF-8");
+    assertTrue(output.contains("P50 ms"));
+    assertTrue(output.contains("P99.9 ms"));
+    assertTrue(output.contains("Max ms"));
+
+    assertTrue(histogramFile.exists());
+    final List<String> lines = readFileLines(histogramFile);
+    assertEquals(lines.get(0),
+         "Lower Bound ms,Upper Bound ms,Count,Cumulative Percent");
+    assertTrue(lines.size() > 1);
+    assertTrue(lines.get(lines.size()-1).endsWith(",100.000"));
+  }
+
+
+
+  /**
+   * Tests the tool in open-loop mode with a poisson arrival distribution.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testOpenLoop()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final String[] args =
+    {
+      "-h", "localhost",
+      "-p", String.valueOf(ds.getListenPort()),
+      "-b", "dc=example,dc=com",
+      "-s", "base",
+      "-f", "(objectClass=*)",
+      "-t", "2",
+      "-i", "1",
+      "-I", "2",
+      "-r", "100",
+      "--openLoop",
+      "--arrivalDistribution", "poisson",
+      "-O", "10",
+      "-c"
+    };
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(SearchRate.main(args, out, out), ResultCode.SUCCESS);
+  }
+
+
+
+  /**
+   * Tests to ensure that open-loop mode cannot be used without a target rate.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testOpenLoopWithoutRate()
+         throws Exception
+  {
+    final InMemoryDirectoryServer ds = getTestDS(true, true);
+
+    final String[] args =
+    {
+      "-h", "localhost",
+      "-p", String.valueOf(ds.getListenPort()),
+      "-b", "dc=example,dc=com",
+      "-s", "base",
+      "-f", "(objectClass=*)",
+      "-i", "1",
+      "-I", "1",
+      "--openLoop"
+    };
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(SearchRate.main(args, out, out), ResultCode.PARAM_ERROR);
+  }
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2007-2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2007-2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.ldap.sdk.persist;
+
+
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.testng.annotations.Test;
+
+import com.unboundid.ldap.sdk.LDAPSDKTestCase;
+
+
+
+/**
+ * This class provides test coverage for the {@code PersistAccessors} class.
+ */
+public class PersistAccessorsTestCase
+       extends LDAPSDKTestCase
+{
+  /**
+   * Tests the ability to get and set the values of primitive and object fields.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testFieldAccessors()
+         throws Exception
+  {
+    final Field intField = AccessorTarget.class.getDeclaredField("intValue");
+    intField.setAccessible(true);
+    final MethodHandle intGetter = PersistAccessors.getFieldGetter(intField);
+    final MethodHandle intSetter = PersistAccessors.getFieldSetter(intField);
+
+    final Field stringField =
+         AccessorTarget.class.getDeclaredField("stringValue");
+    stringField.setAccessible(true);
+    final MethodHandle stringGetter =
+         PersistAccessors.getFieldGetter(stringField);
+    final MethodHandle stringSetter =
+         PersistAccessors.getFieldSetter(stringField);
+
+    final AccessorTarget t = new AccessorTarget();
+    assertEquals(PersistAccessors.getFieldValue(intGetter, t), 0);
+    assertNull(PersistAccessors.getFieldValue(stringGetter, t));
+
+    PersistAccessors.setFieldValue(intSetter, t, 1234);
+    PersistAccessors.setFieldValue(stringSetter, t, "foo");
+    assertEquals(t.intValue, 1234);
+    assertEquals(t.stringValue, "foo");
+    assertEquals(PersistAccessors.getFieldValue(intGetter, t), 1234);
+    assertEquals(PersistAccessors.getFieldValue(stringGetter, t), "foo");
+
+    try
+    {
+      PersistAccessors.setFieldValue(intSetter, t, "not an integer");
+      fail("Expected an exception when setting a value of the wrong type");
+    }
+    catch (final ClassCastException cce)
+    {
+      // This was expected.
+    }
+  }
+
+
+
+  /**
+   * Tests the ability to invoke instance and static methods.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testMethodInvokers()
+         throws Exception
+  {
+    final Method getter = AccessorTarget.class.getDeclaredMethod("getInt");
+    getter.setAccessible(true);
+    final MethodHandle getterInvoker =
+         PersistAccessors.getMethodInvoker(getter);
+
+    final Method setter =
+         AccessorTarget.class.getDeclaredMethod("setInt", int.class);
+    setter.setAccessible(true);
+    final MethodHandle setterInvoker =
+         PersistAccessors.getMethodInvoker(setter);
+
+    final Method staticMethod =
+         AccessorTarget.class.getDeclaredMethod("getStaticString");
+    staticMethod.setAccessible(true);
+    final MethodHandle staticInvoker =
+         PersistAccessors.getMethodInvoker(staticMethod);
+
+    final AccessorTarget t = new AccessorTarget();
+    assertNull(PersistAccessors.invoke(setterInvoker, t, 5678));
+    assertEquals(t.intValue, 5678);
+    assertEquals(PersistAccessors.invoke(getterInvoker, t), 5678);
+    assertEquals(PersistAccessors.invoke(staticInvoker, t), "static");
+    assertEquals(PersistAccessors.invoke(staticInvoker, null), "static");
+  }
+
+
+
+  /**
+   * Tests to ensure that an exception thrown by an invoked method will be
+   * wrapped in an {@code InvocationTargetException}.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testMethodThrowsException()
+         throws Exception
+  {
+    final Method m = AccessorTarget.class.getDeclaredMethod("fail");
+    m.setAccessible(true);
+    final MethodHandle invoker = PersistAccessors.getMethodInvoker(m);
+
+    try
+    {
+      PersistAccessors.invoke(invoker, new AccessorTarget());
+      fail("Expected an exception from the invoked method");
+    }
+    catch (final InvocationTargetException ite)
+    {
+      assertTrue(ite.getTargetException() instanceof
+           UnsupportedOperationException);
+    }
+  }
+
+
+
+  /**
+   * Tests the ability to invoke a constructor.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConstructorInvoker()
+         throws Exception
+  {
+    final Constructor<AccessorTarget> c =
+         AccessorTarget.class.getDeclaredConstructor();
+    c.setAccessible(true);
+    final MethodHandle invoker = PersistAccessors.getConstructorInvoker(c);
+
+    final Object o = PersistAccessors.invoke(invoker);
+    assertNotNull(o);
+    assertTrue(o instanceof AccessorTarget);
+    assertNotSame(PersistAccessors.invoke(invoker), o);
+  }
+
+
+
+  /**
+   * Tests the behavior when attempting to create a setter for a final field.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LDAPPersistException.class })
+  public void testSetterForFinalField()
+         throws Exception
+  {
+    final Field f = AccessorTarget.class.getDeclaredField("STATIC_FINAL");
+    f.setAccessible(true);
+    PersistAccessors.getFieldSetter(f);
+  }
+
+
+
+  /**
+   * A class whose members will be accessed by the tests.
+   */
+  private static final class AccessorTarget
+  {
+    // A static final field that cannot be updated.
+    private static final String STATIC_FINAL = "static";
+
+    // A primitive field.
+    private int intValue;
+
+    // An object field.
+    private String stringValue;
+
+
+
+    /**
+     * Creates a new instance of this class.
+     */
+    private AccessorTarget()
+    {
+      intValue = 0;
+      stringValue = null;
+    }
+
+
+
+    /**
+     * Retrieves the primitive value.
+     *
+     * @return  The primitive value.
+     */
+    private int getInt()
+    {
+      return intValue;
+    }
+
+
+
+    /**
+     * Sets the primitive value.
+     *
+     * @param  intValue  The primitive value.
+     */
+    private void setInt(final int intValue)
+    {
+      this.intValue = intValue;
+    }
+
+
+
+    /**
+     * Retrieves a string from a static method.
+     *
+     * @return  A string from a static method.
+     */
+    private static String getStaticString()
+    {
+      return STATIC_FINAL;
+    }
+
+
+
+    /**
+     * Always throws an exception.
+     */
+    private void fail()
+    {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
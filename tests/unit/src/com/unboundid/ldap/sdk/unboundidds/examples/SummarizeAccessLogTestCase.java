@@ -24,11 +24,13 @@ package com.unboundid.ldap.sdk.unboundidds.examples;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.Random;
@@ -547,6 +549,106 @@ public class SummarizeAccessLogTestCase
 
 
 
+  /**
+   * Tests to ensure that examining log files in parallel, including splitting
+   * large uncompressed files into ranges that are examined separately, yields
+   * exactly the same summary as examining them with a single thread.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testParallelProcessing()
+         throws Exception
+  {
+    // Create a log in which the request and result messages for operations are
+    // interleaved, so that many of them will be split across ranges, along
+    // with some results that don't have a separate request message.  Use
+    // processing times that can be represented exactly so that the order in
+    // which they are added doesn't matter.
+    final SimpleDateFormat f =
+         new SimpleDateFormat("'['dd/MMM/yyyy:HH:mm:ss.SSS Z']'");
+    final long baseTime = System.currentTimeMillis();
+    final ArrayList<String> lines = new ArrayList<>(2000);
+    for (int i=0; i < 300; i++)
+    {
+      final String ts = f.format(new Date(baseTime + (i * 7L)));
+      lines.add(ts + " CONNECT conn=" + i + " from=\"1.2.3." + (i % 7) +
+           "\" to=\"5.6.7.8\" protocol=\"LDAP\" " +
+           "clientConnectionPolicy=\"policy" + (i % 3) + '"');
+      lines.add(ts + " SEARCH REQUEST conn=" + i + " op=1 msgID=2 " +
+           "base=\"dc=example,dc=com\" scope=" + (i % 3) +
+           " filter=\"(uid=user." + i + ")\" attrs=\"ALL\"");
+      lines.add(ts + " EXTENDED REQUEST conn=" + i + " op=2 msgID=3 " +
+           "requestOID=\"1.2.3." + (i % 4) + '"');
+
+      if (i >= 5)
+      {
+        final int j = i - 5;
+        lines.add(ts + " SEARCH RESULT conn=" + j + " op=1 msgID=2 " +
+             "base=\"dc=example,dc=com\" scope=" + (j % 3) +
+             " filter=\"(uid=user." + j + ")\" attrs=\"ALL\" " +
+             "resultCode=" + ((j % 5 == 0) ? 32 : 0) + " etime=" +
+             ((j % 8) * 0.25) + " entriesReturned=" + (j % 4) +
+             " unindexed=" + (j % 6 == 0));
+        lines.add(ts + " EXTENDED RESULT conn=" + j + " op=2 msgID=3 " +
+             "requestOID=\"1.2.3." + (j % 4) + "\" resultCode=0 etime=" +
+             ((j % 3) * 0.5));
+        lines.add(ts + " SEARCH RESULT conn=" + j + " op=3 msgID=4 " +
+             "base=\"ou=People,dc=example,dc=com\" scope=2 " +
+             "filter=\"(cn=" + j + ")\" resultCode=0 etime=0.125 " +
+             "entriesReturned=1");
+        lines.add(ts + " MODIFY RESULT conn=" + j + " op=4 msgID=5 " +
+             "dn=\"uid=user." + j + ",dc=example,dc=com\" resultCode=" +
+             ((j % 9 == 0) ? 50 : 0) + " etime=" + ((j % 4) * 0.75) +
+             " uncachedDataAccessed=" + (j % 2 == 0));
+        lines.add(ts + " DISCONNECT conn=" + j + " reason=\"Client Unbind\"");
+      }
+
+      if (i % 50 == 0)
+      {
+        lines.add("");
+        lines.add("# This is a comment");
+        lines.add(ts + " INVALID");
+      }
+    }
+
+    final File logFile = createTempFile(lines.toArray(new String[0]));
+
+    final String[] sequentialArgs =
+    {
+      logFile.getAbsolutePath(),
+      compressedFile.getAbsolutePath(),
+      logFile.getAbsolutePath()
+    };
+
+    final ByteArrayOutputStream sequentialOutput = new ByteArrayOutputStream();
+    final SummarizeAccessLog sequentialTool =
+         new SummarizeAccessLog(sequentialOutput, null);
+    assertEquals(sequentialTool.runTool(sequentialArgs), ResultCode.SUCCESS);
+
+    final String[] parallelArgs =
+    {
+      "--numThreads", "4",
+      logFile.getAbsolutePath(),
+      compressedFile.getAbsolutePath(),
+      logFile.getAbsolutePath()
+    };
+
+    for (final long chunkSize : new long[] { 97L, 1000L, 4096L, 1000000L })
+    {
+      final ByteArrayOutputStream parallelOutput = new ByteArrayOutputStream();
+      final SummarizeAccessLog parallelTool =
+           new SummarizeAccessLog(parallelOutput, null);
+      parallelTool.setChunkSizeBytes(chunkSize);
+      assertEquals(parallelTool.runTool(parallelArgs), ResultCode.SUCCESS);
+      assertEquals(parallelOutput.toString("UTF-8"),
+           sequentialOutput.toString("UTF-8"),
+           "Unexpected output for chunk size " + chunkSize);
+    }
+  }
+
+
+
   /**
    * Provides test coverage for the summarize-access-log tool with a compressed
    * file.
@@ -5903,4 +5903,72 @@ public class AccessLogReaderTestCase
 
     reader.close();
   }
+
+
+
+  /**
+   * Tests to ensure that reading access log messages with lazy decoding yields
+   * the same messages as reading them without it.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testLazyDecoding()
+         throws Exception
+  {
+    final File file = createTempFile(
+         "# This is a comment and the next line is empty",
+         "",
+         "[01/Jan/2019:12:34:56 -0600] CONNECT conn=1 from=\"1.2.3.4\" " +
+              "to=\"5.6.7.8\" protocol=\"LDAP\"",
+         "[01/Jan/2019:12:34:56 -0600] SEARCH REQUEST conn=1 op=2 " +
+              "msgID=3 base=\"dc=example,dc=com\" scope=2 " +
+              "filter=\"(uid=test.user)\" attrs=\"ALL\"",
+         "[01/Jan/2019:12:34:56 -0600] SEARCH RESULT conn=1 op=2 msgID=3 " +
+              "base=\"dc=example,dc=com\" scope=2 " +
+              "filter=\"(uid=test.user)\" attrs=\"ALL\" resultCode=0 " +
+              "etime=0.5 entriesReturned=1",
+         "[01/Jan/2019:12:34:56 -0600] MODIFY RESULT conn=1 op=3 msgID=4 " +
+              "dn=\"uid=test.user,dc=example,dc=com\" resultCode=32 " +
+              "message=\"No such entry\" etime=1.25",
+         "[01/Jan/2019:12:34:57 -0600] DISCONNECT conn=1 " +
+              "reason=\"Client Unbind\"");
+
+    final AccessLogReader eagerReader =
+         new AccessLogReader(new FileReader(file));
+    final AccessLogReader lazyReader =
+         new AccessLogReader(new FileReader(file), true);
+    while (true)
+    {
+      final AccessLogMessage eager = eagerReader.read();
+      final AccessLogMessage lazy = lazyReader.read();
+      if (eager == null)
+      {
+        assertNull(lazy);
+        break;
+      }
+
+      assertNotNull(lazy);
+      assertEquals(lazy.getClass(), eager.getClass());
+      assertEquals(lazy.getMessageType(), eager.getMessageType());
+      assertEquals(lazy.getConnectionID(), eager.getConnectionID());
+      assertEquals(lazy.getNamedValues(), eager.getNamedValues());
+      assertEquals(lazy.getUnnamedValues(), eager.getUnnamedValues());
+      assertEquals(lazy.toString(), eager.toString());
+
+      if (eager instanceof OperationResultAccessLogMessage)
+      {
+        final OperationResultAccessLogMessage eagerResult =
+             (OperationResultAccessLogMessage) eager;
+        final OperationResultAccessLogMessage lazyResult =
+             (OperationResultAccessLogMessage) lazy;
+        assertEquals(lazyResult.getResultCode(), eagerResult.getResultCode());
+        assertEquals(lazyResult.getProcessingTimeMillis(),
+             eagerResult.getProcessingTimeMillis());
+      }
+    }
+
+    eagerReader.close();
+    lazyReader.close();
+  }
 }
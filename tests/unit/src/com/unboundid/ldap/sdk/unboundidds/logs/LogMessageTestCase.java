@@ -24,7 +24,12 @@ package com.unboundid.ldap.sdk.unboundidds.logs;
 
 import java.text.SimpleDateFormat;
 import java.util.GregorianCalendar;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
 
 import org.testng.annotations.Test;
 
@@ -503,4 +508,158 @@ public class LogMessageTestCase
     assertEquals(d, d2, "Timestamps are unexpectedly not equal");
   }
 
+
+
+  /**
+   * Tests to ensure that timestamps decoded directly from the message string
+   * match the values obtained from a date formatter for a variety of dates,
+   * times, and time zones.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testDirectTimestampParsing()
+         throws Exception
+  {
+    final Random random = new Random();
+    final String[] timeZoneIDs =
+    {
+      "UTC", "America/Chicago", "Asia/Kolkata", "Australia/Adelaide",
+      "Pacific/Chatham", "America/St_Johns"
+    };
+
+    for (final String timeZoneID : timeZoneIDs)
+    {
+      final TimeZone tz = TimeZone.getTimeZone(timeZoneID);
+      final SimpleDateFormat secFormat =
+           new SimpleDateFormat("'['dd/MMM/yyyy:HH:mm:ss Z']'", Locale.US);
+      secFormat.setTimeZone(tz);
+      final SimpleDateFormat msFormat =
+           new SimpleDateFormat("'['dd/MMM/yyyy:HH:mm:ss.SSS Z']'", Locale.US);
+      msFormat.setTimeZone(tz);
+
+      for (int i=0; i < 1000; i++)
+      {
+        // Pick a time between 1970 and 2100.
+        final long time = (random.nextLong() & Long.MAX_VALUE) % 4102444800000L;
+
+        final String msString = msFormat.format(new Date(time));
+        assertEquals(LogMessage.parseTimestamp(msString, msString.length()-1),
+             time, msString);
+        assertEquals(new LogMessage(msString + " a=b").getTimestamp().getTime(),
+             time, msString);
+
+        final String secString = secFormat.format(new Date(time));
+        assertEquals(
+             LogMessage.parseTimestamp(secString, secString.length()-1),
+             ((time / 1000L) * 1000L), secString);
+      }
+    }
+
+    // Leap days should only be accepted in leap years.
+    assertEquals(
+         LogMessage.parseTimestamp("[29/Feb/2000:00:00:00 +0000]", 27),
+         951782400000L);
+    assertEquals(
+         LogMessage.parseTimestamp("[29/Feb/2100:00:00:00 +0000]", 27), -1L);
+
+    // Timestamps that don't have the expected form should not be handled.
+    assertEquals(
+         LogMessage.parseTimestamp("[31/Apr/2019:00:00:00 +0000]", 27), -1L);
+    assertEquals(
+         LogMessage.parseTimestamp("[01/Foo/2019:00:00:00 +0000]", 27), -1L);
+    assertEquals(
+         LogMessage.parseTimestamp("[01/Jan/2019:24:00:00 +0000]", 27), -1L);
+    assertEquals(
+         LogMessage.parseTimestamp("[01/Jan/1969:00:00:00 +0000]", 27), -1L);
+    assertEquals(
+         LogMessage.parseTimestamp("[01/Jan/2019:00:00:00 GMT00]", 27), -1L);
+    assertEquals(
+         LogMessage.parseTimestamp("[01/Jan/2019:00:00:00.12x +0000]", 31),
+         -1L);
+  }
+
+
+
+  /**
+   * Tests to ensure that decoding a log message lazily yields exactly the same
+   * tokens as decoding it immediately.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testLazyDecoding()
+         throws Exception
+  {
+    final String ts = "[01/Jan/2019:12:34:56.789 -0600]";
+    final String[] messageStrings =
+    {
+      ts,
+      ts + " ",
+      ts + "   SEARCH   RESULT  conn=1 op=2  ",
+      ts + " SEARCH RESULT conn=1 op=2 msgID=3 base=\"dc=example,dc=com\" " +
+           "scope=2 filter=\"(&(uid=a b)(cn=c=d))\" attrs=\"ALL\" " +
+           "resultCode=0 etime=1.234 entriesReturned=5 unindexed=true",
+      ts + " CONNECT from=\"1.2.3.4\" from=\"5.6.7.8\" to=\"\" " +
+           "\"\" \"quoted unnamed\" CONNECT",
+      ts + " MODIFY REQUEST dn=\"cn=J#c3#bcrgen,dc=example,dc=com\" " +
+           "msg=\"caf\u00e9 \ud83d\ude00\" \u00e9l\u00e8ve",
+      ts + " EXTENDED REQUEST a\"b\"c=d \"e=f\" g==h =i j= k#41 " +
+           "requestOID=\"1.3.6.1.4.1.1466.20037\"",
+      ts + " ERROR category=CORE severity=NOTICE msgID=123 " +
+           "msg=\"The server started\" unterminated=\"abc def"
+    };
+
+    for (final String messageString : messageStrings)
+    {
+      final LogMessage eager = new LogMessage(messageString, false);
+      final LogMessage lazy = new LogMessage(messageString, true);
+
+      assertEquals(lazy.getTimestamp(), eager.getTimestamp());
+      assertEquals(lazy.toString(), eager.toString());
+
+      for (final Map.Entry<String,String> e :
+           eager.getNamedValues().entrySet())
+      {
+        assertEquals(lazy.getNamedValue(e.getKey()), e.getValue(),
+             messageString);
+      }
+
+      for (final String value : eager.getUnnamedValues())
+      {
+        assertTrue(lazy.hasUnnamedValue(value), messageString);
+      }
+
+      assertNull(lazy.getNamedValue("noSuchName"));
+      assertFalse(lazy.hasUnnamedValue("NOSUCHVALUE"));
+      assertEquals(lazy.getNamedValueAsLong("op"),
+           eager.getNamedValueAsLong("op"));
+      assertEquals(lazy.getNamedValueAsDouble("etime"),
+           eager.getNamedValueAsDouble("etime"));
+
+      assertEquals(new ArrayList<>(lazy.getNamedValues().entrySet()),
+           new ArrayList<>(eager.getNamedValues().entrySet()), messageString);
+      assertEquals(new ArrayList<>(lazy.getUnnamedValues()),
+           new ArrayList<>(eager.getUnnamedValues()), messageString);
+
+      final LogMessage copy = new LogMessage(lazy);
+      assertEquals(copy.getNamedValues(), eager.getNamedValues());
+      assertEquals(copy.getUnnamedValues(), eager.getUnnamedValues());
+    }
+  }
+
+
+
+  /**
+   * Tests to ensure that a log message with an invalid escaped character will
+   * be rejected when it is created even if it is to be decoded lazily.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(expectedExceptions = { LogException.class })
+  public void testLazyDecodingInvalidEscapedCharacter()
+         throws Exception
+  {
+    new LogMessage("[01/Jan/2019:12:34:56 -0600] a=b c=\"#zz\"", true);
+  }
 }
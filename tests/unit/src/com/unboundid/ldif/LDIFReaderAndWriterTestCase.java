@@ -9561,4 +9561,435 @@ public class LDIFReaderAndWriterTestCase
          "objectClass: domain",
          "dc: example");
   }
+
+
+
+  /**
+   * Retrieves a set of chunk sizes and thread counts to use when testing the
+   * chunked LDIF reader.
+   *
+   * @return  A set of chunk sizes and thread counts to use when testing the
+   *          chunked LDIF reader.
+   */
+  @DataProvider(name = "chunkSizesAndThreads")
+  public Object[][] getChunkSizesAndThreads()
+  {
+    return new Object[][]
+    {
+      new Object[] { 1, 1 },
+      new Object[] { 7, 2 },
+      new Object[] { 64, 4 },
+      new Object[] { 4096, 3 },
+      new Object[] { 1024 * 1024, 4 }
+    };
+  }
+
+
+
+  /**
+   * Generates LDIF data that exercises a variety of features, including a
+   * version header, comments, wrapped lines, base64-encoded and non-ASCII
+   * values, lines ending with a carriage return and line feed, change records,
+   * and a final record that isn't followed by a blank line.
+   *
+   * @return  The generated LDIF data.
+   */
+  private static byte[] generateChunkedReaderLDIF()
+  {
+    final StringBuilder buffer = new StringBuilder();
+    buffer.append("version: 1\n");
+    buffer.append("# A comment\n");
+    buffer.append("#  that is wrapped\n");
+    buffer.append("dn: dc=example,dc=com\n");
+    buffer.append("objectClass: top\n");
+    buffer.append("objectClass: domain\n");
+    buffer.append("dc: example\n");
+    buffer.append("\n\n\n");
+
+    for (int i=0; i < 100; i++)
+    {
+      final String lineEnd = (((i % 3) == 0) ? "\r\n" : "\n");
+      buffer.append("dn: uid=user.").append(i).
+           append(",dc=example,dc=com").append(lineEnd);
+      buffer.append("# A comment in the middle of the entry").append(lineEnd);
+      buffer.append("objectClass: top").append(lineEnd);
+      buffer.append("objectClass: person").append(lineEnd);
+      buffer.append("uid: user.").append(i).append(lineEnd);
+      buffer.append("cn: User ").append(lineEnd);
+      buffer.append(" ").append(i).append(lineEnd);
+      buffer.append("sn: \u00dcser ").append(lineEnd);
+      buffer.append(" \u00e9").append(i).append(lineEnd);
+      buffer.append("description:: ").append(
+           Base64.encode("Description for \u00fcser " + i)).append(lineEnd);
+      buffer.append(lineEnd);
+    }
+
+    buffer.append("dn: dc=example,dc=com\n");
+    buffer.append("changetype: modify\n");
+    buffer.append("replace: description\n");
+    buffer.append("description: foo\n");
+    buffer.append("-\n");
+    buffer.append("\n");
+    buffer.append("dn: uid=user.0,dc=example,dc=com\n");
+    buffer.append("changetype: delete\n");
+    buffer.append("\n");
+    buffer.append("dn: ou=last,dc=example,dc=com\n");
+    buffer.append("objectClass: top\n");
+    buffer.append("objectClass: organizationalUnit\n");
+    buffer.append("ou: last");
+
+    return StaticUtils.getBytes(buffer.toString());
+  }
+
+
+
+  /**
+   * Tests to ensure that the chunked LDIF reader returns the same records as
+   * the line-oriented reader when order is preserved.
+   *
+   * @param  chunkSize   The chunk size to use.
+   * @param  numThreads  The number of parse threads to use.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider = "chunkSizesAndThreads")
+  public void testChunkedReaderPreserveOrder(final int chunkSize,
+                                             final int numThreads)
+         throws Exception
+  {
+    final byte[] ldifBytes = generateChunkedReaderLDIF();
+
+    final List<LDIFRecord> expectedRecords = new ArrayList<LDIFRecord>();
+    try (LDIFReader reader =
+              new LDIFReader(new ByteArrayInputStream(ldifBytes)))
+    {
+      while (true)
+      {
+        final LDIFRecord r = reader.readLDIFRecord();
+        if (r == null)
+        {
+          break;
+        }
+
+        expectedRecords.add(r);
+      }
+    }
+
+    assertEquals(expectedRecords.size(), 104);
+
+    final List<LDIFRecord> chunkedRecords = new ArrayList<LDIFRecord>();
+    try (LDIFReader reader = new LDIFReader(
+              new ByteArrayInputStream(ldifBytes), numThreads, true, null,
+              null, chunkSize))
+    {
+      while (true)
+      {
+        final LDIFRecord r = reader.readLDIFRecord();
+        if (r == null)
+        {
+          break;
+        }
+
+        chunkedRecords.add(r);
+      }
+
+      assertNull(reader.readLDIFRecord());
+    }
+
+    assertEquals(chunkedRecords, expectedRecords);
+
+    final Entry e = (Entry) chunkedRecords.get(1);
+    assertEquals(e.getAttributeValue("cn"), "User 0");
+    assertEquals(e.getAttributeValue("sn"), "\u00dcser \u00e90");
+    assertEquals(e.getAttributeValue("description"),
+         "Description for \u00fcser 0");
+  }
+
+
+
+  /**
+   * Tests to ensure that the chunked LDIF reader returns all of the records
+   * when order is not preserved.
+   *
+   * @param  chunkSize   The chunk size to use.
+   * @param  numThreads  The number of parse threads to use.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider = "chunkSizesAndThreads")
+  public void testChunkedReaderUnordered(final int chunkSize,
+                                         final int numThreads)
+         throws Exception
+  {
+    final ByteStringBuffer buffer = new ByteStringBuffer();
+    final Set<Entry> expectedEntries = new HashSet<Entry>();
+    for (int i=0; i < 500; i++)
+    {
+      final Entry e = new Entry(
+           "dn: uid=user." + i + ",dc=example,dc=com",
+           "objectClass: top",
+           "objectClass: person",
+           "uid: user." + i,
+           "cn: User " + i,
+           "sn: " + i);
+      expectedEntries.add(e);
+      buffer.append(e.toLDIFString(20));
+      buffer.append(StaticUtils.EOL_BYTES);
+    }
+
+    final File ldifFile = createTempFile();
+    try (FileOutputStream outputStream = new FileOutputStream(ldifFile))
+    {
+      buffer.write(outputStream);
+    }
+
+    final Set<Entry> chunkedEntries = new HashSet<Entry>();
+    try (LDIFReader reader = new LDIFReader(new FileInputStream(ldifFile),
+              numThreads, false, null, null, chunkSize))
+    {
+      while (true)
+      {
+        final Entry e = reader.readEntry();
+        if (e == null)
+        {
+          break;
+        }
+
+        assertTrue(chunkedEntries.add(e));
+      }
+    }
+
+    assertTrue(chunkedEntries.equals(expectedEntries));
+
+    chunkedEntries.clear();
+    try (LDIFReader reader = new LDIFReader(ldifFile, numThreads, false, null,
+              null))
+    {
+      while (true)
+      {
+        final Entry e = reader.readEntry();
+        if (e == null)
+        {
+          break;
+        }
+
+        assertTrue(chunkedEntries.add(e));
+      }
+    }
+
+    assertTrue(chunkedEntries.equals(expectedEntries));
+  }
+
+
+
+  /**
+   * Tests to ensure that the chunked LDIF reader reports malformed records
+   * with the same line numbers as the line-oriented reader and continues
+   * reading after them.
+   *
+   * @param  chunkSize   The chunk size to use.
+   * @param  numThreads  The number of parse threads to use.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test(dataProvider = "chunkSizesAndThreads")
+  public void testChunkedReaderMalformedRecords(final int chunkSize,
+                                                final int numThreads)
+         throws Exception
+  {
+    final byte[] ldifBytes = StaticUtils.getBytes(
+         "dn: dc=example,dc=com\n" +
+         "objectClass: top\n" +
+         "objectClass: domain\n" +
+         "dc: example\n" +
+         "\n" +
+         " starts with a space\n" +
+         "dn: ou=skipped,dc=example,dc=com\n" +
+         "\n" +
+         "dn: ou=People,dc=example,dc=com\n" +
+         "objectClass: top\n" +
+         "objectClass: organizationalUnit\n" +
+         "ou: People\n" +
+         "\n" +
+         "dn: ou=malformed,dc=example,dc=com\n" +
+         "this line has no colon\n" +
+         "\n" +
+         "dn: ou=Groups,dc=example,dc=com\n" +
+         "objectClass: top\n" +
+         "objectClass: organizationalUnit\n" +
+         "ou: Groups\n");
+
+    final List<Object> expectedResults = readEntriesAndErrors(
+         new LDIFReader(new ByteArrayInputStream(ldifBytes)));
+    assertEquals(expectedResults.size(), 6);
+
+    final List<Object> chunkedResults = readEntriesAndErrors(
+         new LDIFReader(new ByteArrayInputStream(ldifBytes), numThreads, true,
+              null, null, chunkSize));
+    assertEquals(chunkedResults, expectedResults);
+  }
+
+
+
+  /**
+   * Reads all of the entries from the provided LDIF reader, along with the
+   * line numbers of any errors encountered, and closes the reader.
+   *
+   * @param  reader  The LDIF reader to use.
+   *
+   * @return  A list of the entries read and the line numbers of any errors
+   *          encountered, in the order in which they were encountered.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  private static List<Object> readEntriesAndErrors(final LDIFReader reader)
+          throws Exception
+  {
+    final List<Object> results = new ArrayList<Object>();
+    try
+    {
+      while (true)
+      {
+        try
+        {
+          final Entry e = reader.readEntry();
+          if (e == null)
+          {
+            return results;
+          }
+
+          results.add(e);
+        }
+        catch (final LDIFException le)
+        {
+          results.add(le.getLineNumber());
+        }
+      }
+    }
+    finally
+    {
+      reader.close();
+    }
+  }
+
+
+
+  /**
+   * Tests the chunked LDIF reader with entry and change record translators.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testChunkedReaderWithTranslators()
+         throws Exception
+  {
+    final byte[] ldifBytes = StaticUtils.getBytes(
+         "dn: dc=example,dc=com\n" +
+         "objectClass: top\n" +
+         "objectClass: domain\n" +
+         "dc: example\n" +
+         "\n" +
+         "dn: ou=suppress,dc=example,dc=com\n" +
+         "changetype: add\n" +
+         "objectClass: top\n" +
+         "objectClass: organizationalUnit\n" +
+         "ou: suppress\n" +
+         "\n" +
+         "dn: ou=People,dc=example,dc=com\n" +
+         "changetype: add\n" +
+         "objectClass: top\n" +
+         "objectClass: organizationalUnit\n" +
+         "ou: People\n");
+
+    try (LDIFReader reader = new LDIFReader(
+              new ByteArrayInputStream(ldifBytes), 2, true, this, this, 16))
+    {
+      final LDIFChangeRecord r1 = reader.readChangeRecord(true);
+      assertEquals(r1.getDN(), "dc=example,dc=com");
+
+      final LDIFChangeRecord r2 = reader.readChangeRecord(true);
+      assertEquals(r2.getDN(), "ou=People,dc=example,dc=com");
+      assertEquals(((LDIFAddChangeRecord) r2).getEntryToAdd().
+           getAttributeValue("description"), "replacedOnRead");
+
+      assertNull(reader.readChangeRecord(true));
+    }
+  }
+
+
+
+  /**
+   * Tests the behavior when closing a chunked LDIF reader before all of the
+   * data has been read, and when closing a reader that was never used.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testChunkedReaderCloseEarly()
+         throws Exception
+  {
+    final byte[] ldifBytes = generateChunkedReaderLDIF();
+
+    final LDIFReader reader = new LDIFReader(
+         new ByteArrayInputStream(ldifBytes), 2, true, null, null, 32);
+    assertNotNull(reader.readEntry());
+    assertNotNull(reader.readEntry());
+    reader.close();
+    assertNull(reader.readEntry());
+
+    new LDIFReader(new ByteArrayInputStream(ldifBytes), 2, false, null,
+         null).close();
+  }
+
+
+
+  /**
+   * Tests the chunked LDIF reader with an empty input stream and with input
+   * that contains only blank lines and comments.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testChunkedReaderNoRecords()
+         throws Exception
+  {
+    try (LDIFReader reader = new LDIFReader(
+              new ByteArrayInputStream(StaticUtils.NO_BYTES), 1, true, null,
+              null))
+    {
+      assertNull(reader.readLDIFRecord());
+    }
+
+    try (LDIFReader reader = new LDIFReader(
+              new ByteArrayInputStream(
+                   StaticUtils.getBytes("\n\n# comment\n\r\n\n")),
+              1, true, null, null, 2))
+    {
+      assertNull(reader.readLDIFRecord());
+    }
+  }
+
+
+
+  /**
+   * Tests the method used to find the last record boundary in a chunk.
+   */
+  @Test()
+  public void testFindLastRecordBoundary()
+  {
+    assertEquals(LDIFReader.findLastRecordBoundary(
+         StaticUtils.NO_BYTES, 0), 0);
+    assertEquals(LDIFReader.findLastRecordBoundary(
+         StaticUtils.getBytes("dn: dc=example,dc=com\n"), 22), 0);
+    assertEquals(LDIFReader.findLastRecordBoundary(
+         StaticUtils.getBytes("\n"), 1), 1);
+    assertEquals(LDIFReader.findLastRecordBoundary(
+         StaticUtils.getBytes("\r\n"), 2), 2);
+    assertEquals(LDIFReader.findLastRecordBoundary(
+         StaticUtils.getBytes("a\n\nb\n"), 5), 3);
+    assertEquals(LDIFReader.findLastRecordBoundary(
+         StaticUtils.getBytes("a\r\n\r\nb\r\n\r\nc"), 11), 10);
+    assertEquals(LDIFReader.findLastRecordBoundary(
+         StaticUtils.getBytes("a\n\nb\n\n"), 4), 3);
+  }
 }
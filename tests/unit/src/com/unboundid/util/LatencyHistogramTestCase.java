@@ -0,0 +1,246 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ * All Rights Reserved.
+ */
+/*
+ * Copyright (C) 2019 Ping Identity Corporation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License (GPLv2 only)
+ * or the terms of the GNU Lesser General Public License (LGPLv2.1 only)
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package com.unboundid.util;
+
+
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.testng.annotations.Test;
+
+
+
+/**
+ * This class provides a set of test cases for the {@code LatencyHistogram}
+ * class.
+ */
+public class LatencyHistogramTestCase
+       extends UtilTestCase
+{
+  /**
+   * Tests the behavior of an empty histogram.
+   */
+  @Test()
+  public void testEmptyHistogram()
+  {
+    final LatencyHistogram h = new LatencyHistogram();
+    assertEquals(h.getTotalCount(), 0L);
+    assertEquals(h.getMaxValue(), 0L);
+    assertEquals(h.getValueAtPercentile(50.0d), 0L);
+    assertEquals(h.getValueAtPercentile(100.0d), 0L);
+
+    final StringWriter w = new StringWriter();
+    h.writeCSV(new PrintWriter(w));
+    assertEquals(w.toString().trim(),
+         "Lower Bound ms,Upper Bound ms,Count,Cumulative Percent");
+  }
+
+
+
+  /**
+   * Tests the mapping between values and buckets.
+   */
+  @Test()
+  public void testBuckets()
+  {
+    long lastUpperBound = -1L;
+    for (int i=0; ; i++)
+    {
+      final long lowerBound = LatencyHistogram.getBucketLowerBound(i);
+      final long upperBound = LatencyHistogram.getBucketUpperBound(i);
+      assertEquals(lowerBound, lastUpperBound + 1L);
+      assertTrue(upperBound >= lowerBound);
+
+      assertEquals(LatencyHistogram.getBucketIndex(lowerBound), i);
+      assertEquals(LatencyHistogram.getBucketIndex(upperBound), i);
+      if (lowerBound >= 128L)
+      {
+        assertTrue(((upperBound - lowerBound) * 64L) <= lowerBound);
+      }
+
+      if (upperBound == Long.MAX_VALUE)
+      {
+        break;
+      }
+
+      lastUpperBound = upperBound;
+    }
+  }
+
+
+
+  /**
+   * Tests percentile calculation for a uniform set of values.
+   */
+  @Test()
+  public void testPercentiles()
+  {
+    final LatencyHistogram h = new LatencyHistogram();
+    for (long i=1; i <= 10_000L; i++)
+    {
+      h.recordValue(i * 1_000L);
+    }
+
+    assertEquals(h.getTotalCount(), 10_000L);
+    assertEquals(h.getMaxValue(), 10_000_000L);
+
+    assertWithinPrecision(h.getValueAtPercentile(0.0d), 1_000L);
+    assertWithinPrecision(h.getValueAtPercentile(50.0d), 5_000_000L);
+    assertWithinPrecision(h.getValueAtPercentile(90.0d), 9_000_000L);
+    assertWithinPrecision(h.getValueAtPercentile(99.0d), 9_900_000L);
+    assertWithinPrecision(h.getValueAtPercentile(99.9d), 9_990_000L);
+    assertEquals(h.getValueAtPercentile(100.0d), 10_000_000L);
+
+    h.recordValue(-5L);
+    assertEquals(h.getTotalCount(), 10_001L);
+    assertEquals(h.getValueAtPercentile(0.0d), 0L);
+
+    try
+    {
+      h.getValueAtPercentile(100.1d);
+      fail("Expected an exception for an invalid percentile");
+    }
+    catch (final LDAPSDKUsageException e)
+    {
+      // This was expected.
+    }
+  }
+
+
+
+  /**
+   * Tests the coordinated omission correction.
+   */
+  @Test()
+  public void testCoordinatedOmissionCorrection()
+  {
+    final LatencyHistogram h = new LatencyHistogram();
+    h.recordValue(10L, 100L);
+    assertEquals(h.getTotalCount(), 1L);
+
+    h.recordValue(1_000L, 0L);
+    assertEquals(h.getTotalCount(), 2L);
+
+    h.recordValue(1_000L, 100L);
+    assertEquals(h.getTotalCount(), 12L);
+    assertEquals(h.getMaxValue(), 1_000L);
+    assertEquals(h.getValueAtPercentile(10.0d), 100L);
+  }
+
+
+
+  /**
+   * Tests the methods used to combine histograms.
+   */
+  @Test()
+  public void testDrainAndAdd()
+  {
+    final LatencyHistogram h1 = new LatencyHistogram();
+    final LatencyHistogram h2 = new LatencyHistogram();
+    h1.recordValue(5L);
+    h1.recordValue(5_000_000L);
+    h2.recordValue(7L);
+
+    final LatencyHistogram interval = new LatencyHistogram();
+    h1.drainTo(interval);
+    h2.drainTo(interval);
+    assertEquals(h1.getTotalCount(), 0L);
+    assertEquals(h1.getMaxValue(), 0L);
+    assertEquals(h2.getTotalCount(), 0L);
+    assertEquals(interval.getTotalCount(), 3L);
+    assertEquals(interval.getMaxValue(), 5_000_000L);
+
+    final LatencyHistogram overall = new LatencyHistogram();
+    overall.add(interval);
+    overall.add(interval);
+    assertEquals(interval.getTotalCount(), 3L);
+    assertEquals(overall.getTotalCount(), 6L);
+    assertEquals(overall.getMaxValue(), 5_000_000L);
+    assertEquals(overall.getValueAtPercentile(50.0d), 7L);
+
+    final StringWriter w = new StringWriter();
+    overall.writeCSV(new PrintWriter(w));
+    final String[] lines = w.toString().trim().split("\\r?\\n");
+    assertEquals(lines.length, 4);
+    assertEquals(lines[1], "0.000005,0.000005,2,33.333");
+    assertEquals(lines[3], "4.980736,5.046271,2,100.000");
+  }
+
+
+
+  /**
+   * Tests that values recorded concurrently with draining are not lost.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test()
+  public void testConcurrentRecordAndDrain()
+         throws Exception
+  {
+    final LatencyHistogram h = new LatencyHistogram();
+    final Thread[] threads = new Thread[4];
+    for (int i=0; i < threads.length; i++)
+    {
+      threads[i] = new Thread()
+      {
+        @Override()
+        public void run()
+        {
+          for (int j=0; j < 50_000; j++)
+          {
+            h.recordValue(j);
+          }
+        }
+      };
+      threads[i].start();
+    }
+
+    final LatencyHistogram combined = new LatencyHistogram();
+    for (final Thread t : threads)
+    {
+      while (t.isAlive())
+      {
+        h.drainTo(combined);
+      }
+    }
+    h.drainTo(combined);
+
+    assertEquals(combined.getTotalCount(), 200_000L);
+    assertEquals(combined.getMaxValue(), 49_999L);
+  }
+
+
+
+  /**
+   * Ensures that the provided value is within the precision of the histogram
+   * of the expected value.
+   *
+   * @param  value     The value obtained from the histogram.
+   * @param  expected  The expected value.
+   */
+  private static void assertWithinPrecision(final long value,
+                                            final long expected)
+  {
+    assertTrue((value >= expected) && (value <= (expected + (expected / 64L))),
+         "Value " + value + " is not within the precision of " + expected);
+  }
+}